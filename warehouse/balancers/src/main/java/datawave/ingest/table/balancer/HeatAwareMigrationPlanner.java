@@ -0,0 +1,272 @@
+package datawave.ingest.table.balancer;
+
+import com.google.common.base.Function;
+import org.apache.accumulo.core.data.impl.KeyExtent;
+import org.apache.accumulo.server.master.state.TServerInstance;
+import org.apache.accumulo.server.master.state.TabletMigration;
+import org.apache.log4j.Logger;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Plans the migrations of a heat-aware balancer pass over the tablets of a sharded table. Rather than counting tablets, each tablet is weighted by its load:
+ * one plus its recent scan and ingest rate, halved for every half-life of days between its shard date and today. Recent days carry most of the query and
+ * compaction load, so this spreads the hot shards of the last few days across the tablet servers instead of letting a few servers serve all of them.
+ * <p>
+ * A pass first moves tablets off servers that hold more of a day than allowed, and then repeatedly moves a tablet from the most loaded server to a less loaded
+ * server while that narrows the gap between them. A server may hold the larger of its even share of a day's tablets and the configured fraction of them. A
+ * tablet is moved at most once per pass and a pass makes at most the configured number of migrations, so the balance converges over several passes without
+ * moving large parts of the table at once. Given the same tablets and rates, a pass always plans the same migrations.
+ */
+public class HeatAwareMigrationPlanner {
+    private static final Logger log = Logger.getLogger(HeatAwareMigrationPlanner.class);
+    
+    /**
+     * The fraction of the mean server load that the most and least loaded servers may differ by before tablets are moved between them
+     */
+    public static final double LOAD_TOLERANCE = 0.1;
+    
+    private static final DateTimeFormatter SHARD_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    
+    private final Function<KeyExtent,String> dayPartitioner = new ShardedTableTabletBalancer.ShardDayPartitioner();
+    private final LocalDate today;
+    private final double halfLifeDays;
+    private final double maxDayFraction;
+    private final int maxMigrations;
+    
+    /**
+     * @param today
+     *            the date that shard ages are measured from
+     * @param halfLifeDays
+     *            the number of days over which the load of a tablet halves, or 0 to weight tablets of all ages the same
+     * @param maxDayFraction
+     *            the fraction of the tablets of a day that a server may hold beyond its even share
+     * @param maxMigrations
+     *            the most migrations a pass makes
+     */
+    public HeatAwareMigrationPlanner(LocalDate today, double halfLifeDays, double maxDayFraction, int maxMigrations) {
+        this.today = today;
+        this.halfLifeDays = halfLifeDays;
+        this.maxDayFraction = maxDayFraction;
+        this.maxMigrations = maxMigrations;
+    }
+    
+    /**
+     * @param day
+     *            the shard date of the tablet, yyyyMMdd
+     * @param rate
+     *            the recent scan and ingest rate of the tablet
+     * @return the load of the tablet
+     */
+    public double getLoad(String day, double rate) {
+        double load = 1.0 + Math.max(rate, 0.0);
+        if (halfLifeDays > 0) {
+            load *= Math.pow(0.5, getAgeInDays(day) / halfLifeDays);
+        }
+        return load;
+    }
+    
+    /**
+     * @return the days between the shard date and today, or 0 for tablets that are not in a shard date (which are weighted as if they were today's)
+     */
+    private long getAgeInDays(String day) {
+        try {
+            return Math.max(0, ChronoUnit.DAYS.between(LocalDate.parse(day, SHARD_DATE_FORMAT), today));
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+    
+    /**
+     * @return the number of tablets of a day that a server may hold
+     */
+    int getDayLimit(int dayTablets, int numServers) {
+        int evenShare = (dayTablets + numServers - 1) / numServers;
+        return Math.max(evenShare, (int) Math.ceil(dayTablets * maxDayFraction));
+    }
+    
+    /**
+     * Plans the migrations of a pass
+     *
+     * @param tablets
+     *            the tablets hosted by each tablet server, with their recent scan and ingest rates
+     * @return the migrations
+     */
+    public List<TabletMigration> plan(SortedMap<TServerInstance,? extends Map<KeyExtent,Double>> tablets) {
+        List<TabletMigration> migrations = new ArrayList<>();
+        if (tablets.size() < 2) {
+            return migrations;
+        }
+        
+        Map<TServerInstance,Server> servers = new TreeMap<>();
+        Map<String,Integer> dayTablets = new HashMap<>();
+        for (Entry<TServerInstance,? extends Map<KeyExtent,Double>> entry : tablets.entrySet()) {
+            Server server = new Server(entry.getKey());
+            servers.put(entry.getKey(), server);
+            for (Entry<KeyExtent,Double> rate : entry.getValue().entrySet()) {
+                String day = dayPartitioner.apply(rate.getKey());
+                server.add(new Tablet(rate.getKey(), day, getLoad(day, rate.getValue() == null ? 0.0 : rate.getValue())));
+                dayTablets.merge(day, 1, Integer::sum);
+            }
+        }
+        
+        Set<KeyExtent> moved = new HashSet<>();
+        spreadDays(servers, dayTablets, moved, migrations);
+        spreadLoad(servers, dayTablets, moved, migrations);
+        
+        if (log.isDebugEnabled()) {
+            double total = 0.0;
+            for (Server server : servers.values()) {
+                total += server.load;
+            }
+            log.debug("Planned " + migrations.size() + " migrations, " + getMostLoaded(servers).load + " on the most loaded of " + servers.size()
+                            + " servers with a mean load of " + (total / servers.size()));
+        }
+        return migrations;
+    }
+    
+    /**
+     * Moves the hottest tablets of a day off the servers that hold more of the day than allowed, to the least loaded servers that have room for the day
+     */
+    private void spreadDays(Map<TServerInstance,Server> servers, Map<String,Integer> dayTablets, Set<KeyExtent> moved, List<TabletMigration> migrations) {
+        for (Server server : servers.values()) {
+            for (Tablet tablet : server.getTabletsByLoad()) {
+                if (migrations.size() >= maxMigrations) {
+                    return;
+                }
+                if (server.getDayCount(tablet.day) <= getDayLimit(dayTablets.get(tablet.day), servers.size())) {
+                    continue;
+                }
+                Server target = null;
+                for (Server candidate : servers.values()) {
+                    if (candidate != server && candidate.getDayCount(tablet.day) < getDayLimit(dayTablets.get(tablet.day), servers.size())
+                                    && (target == null || candidate.load < target.load)) {
+                        target = candidate;
+                    }
+                }
+                if (target != null) {
+                    move(tablet, server, target, moved, migrations);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Moves tablets from the most loaded server to less loaded servers while that narrows the gap between them
+     */
+    private void spreadLoad(Map<TServerInstance,Server> servers, Map<String,Integer> dayTablets, Set<KeyExtent> moved, List<TabletMigration> migrations) {
+        double total = 0.0;
+        for (Server server : servers.values()) {
+            total += server.load;
+        }
+        double tolerance = LOAD_TOLERANCE * total / servers.size();
+        
+        while (migrations.size() < maxMigrations) {
+            Server hot = getMostLoaded(servers);
+            List<Server> colder = new ArrayList<>(servers.values());
+            colder.sort((a, b) -> Double.compare(a.load, b.load));
+            
+            Tablet selected = null;
+            Server target = null;
+            for (Server cold : colder) {
+                double gap = hot.load - cold.load;
+                if (gap <= tolerance) {
+                    break;
+                }
+                // the move that best evens the two servers is the tablet whose load is nearest half the gap, and only tablets lighter than the gap narrow it
+                for (Tablet tablet : hot.tablets.values()) {
+                    if (tablet.load < gap && !moved.contains(tablet.extent)
+                                    && cold.getDayCount(tablet.day) < getDayLimit(dayTablets.get(tablet.day), servers.size())
+                                    && (selected == null || Math.abs(gap / 2 - tablet.load) < Math.abs(gap / 2 - selected.load))) {
+                        selected = tablet;
+                    }
+                }
+                if (selected != null) {
+                    target = cold;
+                    break;
+                }
+            }
+            if (selected == null) {
+                return;
+            }
+            move(selected, hot, target, moved, migrations);
+        }
+    }
+    
+    private static Server getMostLoaded(Map<TServerInstance,Server> servers) {
+        Server hot = null;
+        for (Server server : servers.values()) {
+            if (hot == null || server.load > hot.load) {
+                hot = server;
+            }
+        }
+        return hot;
+    }
+    
+    private static void move(Tablet tablet, Server from, Server to, Set<KeyExtent> moved, List<TabletMigration> migrations) {
+        from.remove(tablet);
+        to.add(tablet);
+        moved.add(tablet.extent);
+        migrations.add(new TabletMigration(tablet.extent, from.tserver, to.tserver));
+    }
+    
+    private static class Tablet {
+        private final KeyExtent extent;
+        private final String day;
+        private final double load;
+        
+        Tablet(KeyExtent extent, String day, double load) {
+            this.extent = extent;
+            this.day = day;
+            this.load = load;
+        }
+    }
+    
+    private static class Server {
+        private final TServerInstance tserver;
+        private final SortedMap<KeyExtent,Tablet> tablets = new TreeMap<>();
+        private final Map<String,Integer> dayCounts = new HashMap<>();
+        private double load = 0.0;
+        
+        Server(TServerInstance tserver) {
+            this.tserver = tserver;
+        }
+        
+        void add(Tablet tablet) {
+            tablets.put(tablet.extent, tablet);
+            dayCounts.merge(tablet.day, 1, Integer::sum);
+            load += tablet.load;
+        }
+        
+        void remove(Tablet tablet) {
+            tablets.remove(tablet.extent);
+            dayCounts.merge(tablet.day, -1, Integer::sum);
+            load -= tablet.load;
+        }
+        
+        int getDayCount(String day) {
+            return dayCounts.getOrDefault(day, 0);
+        }
+        
+        /**
+         * @return a copy of the tablets, hottest first
+         */
+        List<Tablet> getTabletsByLoad() {
+            List<Tablet> byLoad = new ArrayList<>(tablets.values());
+            byLoad.sort((a, b) -> Double.compare(b.load, a.load));
+            return byLoad;
+        }
+    }
+}
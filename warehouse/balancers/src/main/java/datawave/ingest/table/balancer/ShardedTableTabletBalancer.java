@@ -2,9 +2,11 @@ package datawave.ingest.table.balancer;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
+import org.apache.accumulo.core.client.impl.thrift.ThriftSecurityException;
 import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.impl.KeyExtent;
 import org.apache.accumulo.core.master.thrift.TabletServerStatus;
+import org.apache.accumulo.core.tabletserver.thrift.TabletStats;
 import org.apache.accumulo.core.util.Pair;
 import org.apache.accumulo.server.master.balancer.GroupBalancer;
 import org.apache.accumulo.server.master.state.TServerInstance;
@@ -12,10 +14,14 @@ import org.apache.accumulo.server.master.state.TabletMigration;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.WritableComparator;
 import org.apache.log4j.Logger;
+import org.apache.thrift.TException;
 
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -34,16 +40,31 @@ import java.util.TreeMap;
  * Therefore, a legal balance could have successive days on the same tablet servers. For example, if a day were partitioned into 100 pieces and the cluster had
  * 500 tablet servers, a legal balance of 20 days of data could have days 1-5 all on the first 100 tablet servers, days 6-10 on the second 100 tablet servers,
  * and so on. This is not ideal, since the real goal is to spread data out across the cluster as much as possible.
+ * <p>
+ * Counting tablets ignores that recent days carry most of the query and compaction load. When {@link #SHARDED_HEAT_AWARE} is set, balancing instead weights
+ * each tablet by its recent scan and ingest rate, decayed with the age of its shard, and moves a limited number of tablets per pass from the most to the least
+ * loaded servers without placing more than a configured fraction of a day on one server. See {@link HeatAwareMigrationPlanner}. Assignments are made as
+ * before.
  */
 public class ShardedTableTabletBalancer extends GroupBalancer {
     private static final String SHARDED_PROPERTY_PREFIX = Property.TABLE_ARBITRARY_PROP_PREFIX.getKey() + "sharded.balancer.";
     public static final String SHARDED_MAX_MIGRATIONS = SHARDED_PROPERTY_PREFIX + "max.migrations";
     public static final int MAX_MIGRATIONS_DEFAULT = 10000;
+    public static final String SHARDED_HEAT_AWARE = SHARDED_PROPERTY_PREFIX + "heat.aware";
+    public static final String SHARDED_HEAT_MAX_MIGRATIONS = SHARDED_PROPERTY_PREFIX + "heat.max.migrations";
+    public static final int HEAT_MAX_MIGRATIONS_DEFAULT = 100;
+    public static final String SHARDED_HEAT_HALF_LIFE_DAYS = SHARDED_PROPERTY_PREFIX + "heat.half.life.days";
+    public static final double HEAT_HALF_LIFE_DAYS_DEFAULT = 7.0;
+    public static final String SHARDED_HEAT_MAX_DAY_FRACTION = SHARDED_PROPERTY_PREFIX + "heat.max.day.fraction";
+    public static final double HEAT_MAX_DAY_FRACTION_DEFAULT = 0.1;
+    // the weight of the latest rates of a tablet against its earlier ones, so that a burst of scans does not move it right away
+    private static final double RATE_SMOOTHING = 0.5;
     
     private static final Logger log = Logger.getLogger(ShardedTableTabletBalancer.class);
     private Collection<Pair<KeyExtent,Location>> tabletLocationCache;
     private Function<KeyExtent,String> partitioner;
     private String tableId;
+    private Map<KeyExtent,Double> smoothedRates = new HashMap<>();
     
     public ShardedTableTabletBalancer(String tableId) {
         super(tableId);
@@ -66,6 +87,11 @@ public class ShardedTableTabletBalancer extends GroupBalancer {
         // Clear the location cache so we're sure to rebuild for this balancer pass
         tabletLocationCache = null;
         
+        if (isHeatAware()) {
+            partitioner = new ShardDayPartitioner();
+            return balanceByHeat(current, migrations, migrationsOut);
+        }
+        
         // During balancing, we actually want to balance using groups that include multiple days, in order to ensure that
         // data doesn't cluster weeks or months of data on a subset of the cluster.
         final int numTservers = current.size();
@@ -108,6 +134,104 @@ public class ShardedTableTabletBalancer extends GroupBalancer {
         return maxMigrations;
     }
     
+    private boolean isHeatAware() {
+        return Boolean.parseBoolean(getTableProperty(SHARDED_HEAT_AWARE));
+    }
+    
+    private String getTableProperty(String property) {
+        try {
+            return this.configuration.getTableConfiguration(this.tableId).get(property);
+        } catch (Exception e) {
+            log.warn("Failed to get " + property, e);
+            return null;
+        }
+    }
+    
+    private double getDoubleProperty(String property, double defaultValue) {
+        String value = getTableProperty(property);
+        if (value != null && !value.isEmpty()) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                log.error("Unable to parse " + property + " value (" + value + ") as a number.  Defaulting to " + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+    
+    /**
+     * Balances by the load of the tablets rather than their count, see {@link HeatAwareMigrationPlanner}
+     */
+    protected long balanceByHeat(SortedMap<TServerInstance,TabletServerStatus> current, Set<KeyExtent> migrations, List<TabletMigration> migrationsOut) {
+        if (current.size() < 2) {
+            return getWaitTime();
+        }
+        // wait for the migrations of the previous pass to finish, so their tablets are counted where they end up
+        for (KeyExtent migration : migrations) {
+            if (migration.getTableId().equals(tableId)) {
+                return getWaitTime();
+            }
+        }
+        
+        SortedMap<TServerInstance,Map<KeyExtent,Double>> tablets = new TreeMap<>();
+        Map<KeyExtent,Double> rates = new HashMap<>();
+        for (TServerInstance tserver : current.keySet()) {
+            Map<KeyExtent,Double> serverRates = new TreeMap<>();
+            try {
+                for (TabletStats stats : getTabletStats(tserver)) {
+                    KeyExtent extent = new KeyExtent(stats.getExtent());
+                    double rate = stats.getIngestRate() + stats.getQueryRate();
+                    Double previous = smoothedRates.get(extent);
+                    if (previous != null) {
+                        rate = RATE_SMOOTHING * rate + (1 - RATE_SMOOTHING) * previous;
+                    }
+                    serverRates.put(extent, rate);
+                    rates.put(extent, rate);
+                }
+            } catch (Exception e) {
+                log.warn("Unable to get the tablets of " + tableId + " on " + tserver + ", skipping this pass", e);
+                return getWaitTime();
+            }
+            tablets.put(tserver, serverRates);
+        }
+        // only keep the rates of the tablets that are still online
+        smoothedRates = rates;
+        
+        int maxMigrations = HEAT_MAX_MIGRATIONS_DEFAULT;
+        String maxMigrationsProp = getTableProperty(SHARDED_HEAT_MAX_MIGRATIONS);
+        if (maxMigrationsProp != null && !maxMigrationsProp.isEmpty()) {
+            try {
+                maxMigrations = Integer.parseInt(maxMigrationsProp);
+            } catch (NumberFormatException e) {
+                log.error("Unable to parse " + SHARDED_HEAT_MAX_MIGRATIONS + " value (" + maxMigrationsProp + ") as an integer.  Defaulting to "
+                                + maxMigrations);
+            }
+        }
+        HeatAwareMigrationPlanner planner = new HeatAwareMigrationPlanner(getToday(), getDoubleProperty(SHARDED_HEAT_HALF_LIFE_DAYS,
+                        HEAT_HALF_LIFE_DAYS_DEFAULT), getDoubleProperty(SHARDED_HEAT_MAX_DAY_FRACTION, HEAT_MAX_DAY_FRACTION_DEFAULT), maxMigrations);
+        List<TabletMigration> planned = planner.plan(tablets);
+        if (!planned.isEmpty()) {
+            log.info("Migrating " + planned.size() + " tablets of " + tableId + " to balance their load");
+        }
+        migrationsOut.addAll(planned);
+        return getWaitTime();
+    }
+    
+    /**
+     * Gets the tablets of the table that a tablet server hosts, with their scan and ingest rates. Test cases might override this to supply the tablets without
+     * contacting a tablet server.
+     */
+    protected List<TabletStats> getTabletStats(TServerInstance tserver) throws ThriftSecurityException, TException {
+        return getOnlineTabletsForTable(tserver, tableId);
+    }
+    
+    /**
+     * @return the date that shard ages are measured from
+     */
+    protected LocalDate getToday() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+    
     /**
      * Gets the raw location provider. By default this just delegates to the parent class' {@link #getLocationProvider()} which scans the metadata table.
      * However, test cases might override in order to replace the parent metadata location provider whilst still allowing the caching mechanism in use here.
@@ -0,0 +1,99 @@
+package datawave.ingest.table.balancer;
+
+import org.apache.accumulo.core.data.impl.KeyExtent;
+import org.apache.accumulo.server.master.state.TServerInstance;
+import org.apache.accumulo.server.master.state.TabletMigration;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HeatAwareMigrationPlannerTest {
+    private static final LocalDate TODAY = LocalDate.of(2019, 1, 31);
+    
+    @Test
+    public void testLoadDecaysWithAge() {
+        HeatAwareMigrationPlanner planner = new HeatAwareMigrationPlanner(TODAY, 7.0, 0.1, 100);
+        assertEquals(11.0, planner.getLoad("20190131", 10.0), 0.0001);
+        assertEquals(5.5, planner.getLoad("20190124", 10.0), 0.0001);
+        assertEquals(11.0, planner.getLoad("null", 10.0), 0.0001);
+        assertEquals(11.0, new HeatAwareMigrationPlanner(TODAY, 0, 0.1, 100).getLoad("20180131", 10.0), 0.0001);
+    }
+    
+    @Test
+    public void testDayLimit() {
+        HeatAwareMigrationPlanner planner = new HeatAwareMigrationPlanner(TODAY, 7.0, 0.1, 100);
+        assertEquals(1, planner.getDayLimit(10, 10));
+        assertEquals(2, planner.getDayLimit(11, 10));
+        assertEquals(10, planner.getDayLimit(100, 20));
+    }
+    
+    @Test
+    public void testSpreadsADay() {
+        TServerInstance server1 = new TServerInstance("127.0.0.1:1000", 1);
+        TServerInstance server2 = new TServerInstance("127.0.0.1:1001", 2);
+        SortedMap<TServerInstance,Map<KeyExtent,Double>> tablets = new TreeMap<>();
+        tablets.put(server1, new TreeMap<>());
+        tablets.put(server2, new TreeMap<>());
+        for (int i = 0; i < 4; i++) {
+            tablets.get(server1).put(new KeyExtent("s", new Text("20190131_" + i), i == 0 ? null : new Text("20190131_" + (i - 1))), 0.0);
+        }
+        
+        List<TabletMigration> migrations = new HeatAwareMigrationPlanner(TODAY, 7.0, 0.0, 100).plan(tablets);
+        assertEquals(2, migrations.size());
+        for (TabletMigration migration : migrations) {
+            assertEquals(server1, migration.oldServer);
+            assertEquals(server2, migration.newServer);
+        }
+        
+        assertEquals(1, new HeatAwareMigrationPlanner(TODAY, 7.0, 0.0, 1).plan(tablets).size());
+        assertTrue(new HeatAwareMigrationPlanner(TODAY, 7.0, 0.0, 100).plan(new TreeMap<>(Collections.singletonMap(server1, tablets.get(server1))))
+                        .isEmpty());
+    }
+    
+    @Test
+    public void testSimulation() {
+        HeatAwareMigrationPlanner planner = new HeatAwareMigrationPlanner(TODAY, 7.0, 0.1, 50);
+        ShardedTableHeatSimulation simulation = new ShardedTableHeatSimulation(10, 20, 10, planner, TODAY, 42L);
+        double initial = simulation.getImbalance();
+        assertTrue("Expected the initial placement to be imbalanced: " + initial, initial > 2.0);
+        
+        for (int round = 0; round < 30; round++) {
+            List<TabletMigration> migrations = simulation.round();
+            assertTrue(migrations.size() <= 50);
+            Set<KeyExtent> migrated = new HashSet<>();
+            for (TabletMigration migration : migrations) {
+                assertFalse("Found multiple migrations for the same tablet: " + migration.tablet, migrated.contains(migration.tablet));
+                migrated.add(migration.tablet);
+            }
+        }
+        assertTrue("Expected the load to be balanced: " + simulation.getImbalance(), simulation.getImbalance() < 1.25);
+        assertTrue(simulation.getMaxTabletsOfADayOnAServer() <= planner.getDayLimit(10, 10));
+    }
+    
+    @Test
+    public void testSimulationIsDeterministic() {
+        ShardedTableHeatSimulation first = new ShardedTableHeatSimulation(5, 10, 5, new HeatAwareMigrationPlanner(TODAY, 7.0, 0.1, 20), TODAY, 7L);
+        ShardedTableHeatSimulation second = new ShardedTableHeatSimulation(5, 10, 5, new HeatAwareMigrationPlanner(TODAY, 7.0, 0.1, 20), TODAY, 7L);
+        for (int round = 0; round < 5; round++) {
+            List<TabletMigration> expected = first.round();
+            List<TabletMigration> actual = second.round();
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).tablet, actual.get(i).tablet);
+                assertEquals(expected.get(i).newServer, actual.get(i).newServer);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package datawave.ingest.table.balancer;
+
+import org.apache.accumulo.core.data.impl.KeyExtent;
+import org.apache.accumulo.server.master.state.TServerInstance;
+import org.apache.accumulo.server.master.state.TabletMigration;
+import org.apache.hadoop.io.Text;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A deterministic simulation of heat-aware balancing of a sharded table, for testing {@link HeatAwareMigrationPlanner} offline. The tablets of consecutive days
+ * start out on the same servers, which is a legal balance by tablet count that leaves the servers holding the last few days with most of the load. Each round
+ * draws the scan and ingest rates of every tablet from a seeded random source, hotter for recent days, plans a pass and applies its migrations.
+ * <p>
+ * Usage: ShardedTableHeatSimulation [tservers] [days] [shardsPerDay] [rounds] [seed]
+ */
+public class ShardedTableHeatSimulation {
+    private static final DateTimeFormatter SHARD_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    
+    private final LocalDate today;
+    private final HeatAwareMigrationPlanner planner;
+    private final Random random;
+    private final List<TServerInstance> tservers = new ArrayList<>();
+    private final SortedMap<KeyExtent,TServerInstance> locations = new TreeMap<>();
+    private final Map<KeyExtent,Integer> ages = new HashMap<>();
+    
+    public ShardedTableHeatSimulation(int numTservers, int days, int shardsPerDay, HeatAwareMigrationPlanner planner, LocalDate today, long seed) {
+        this.today = today;
+        this.planner = planner;
+        this.random = new Random(seed);
+        for (int i = 0; i < numTservers; i++) {
+            tservers.add(new TServerInstance(String.format("10.0.0.%d:9997", i + 1), i + 1));
+        }
+        
+        int numTablets = days * shardsPerDay;
+        int index = 0;
+        Text prevEndRow = null;
+        for (int age = days - 1; age >= 0; age--) {
+            String day = today.minusDays(age).format(SHARD_DATE_FORMAT);
+            for (int shard = 0; shard < shardsPerDay; shard++) {
+                Text endRow = new Text(day + "_" + shard);
+                KeyExtent extent = new KeyExtent("s", endRow, prevEndRow);
+                locations.put(extent, tservers.get((int) ((long) index * numTservers / numTablets)));
+                ages.put(extent, age);
+                prevEndRow = endRow;
+                index++;
+            }
+        }
+    }
+    
+    /**
+     * Runs a round: draws the rates, plans a pass and applies its migrations
+     *
+     * @return the migrations of the round
+     */
+    public List<TabletMigration> round() {
+        SortedMap<TServerInstance,Map<KeyExtent,Double>> tablets = getTablets();
+        List<TabletMigration> migrations = planner.plan(tablets);
+        for (TabletMigration migration : migrations) {
+            locations.put(migration.tablet, migration.newServer);
+        }
+        return migrations;
+    }
+    
+    private SortedMap<TServerInstance,Map<KeyExtent,Double>> getTablets() {
+        SortedMap<TServerInstance,Map<KeyExtent,Double>> tablets = new TreeMap<>();
+        for (TServerInstance tserver : tservers) {
+            tablets.put(tserver, new TreeMap<>());
+        }
+        for (Map.Entry<KeyExtent,TServerInstance> entry : locations.entrySet()) {
+            // today's shards take the ingest and most of the queries, older ones mostly the queries of longer date ranges
+            int age = ages.get(entry.getKey());
+            double rate = 1000.0 * Math.pow(0.5, age) * (0.5 + random.nextDouble()) + 10.0 * random.nextDouble();
+            tablets.get(entry.getValue()).put(entry.getKey(), rate);
+        }
+        return tablets;
+    }
+    
+    /**
+     * @return the load of the most loaded server over the mean server load, for rates at the middle of their range
+     */
+    public double getImbalance() {
+        Map<TServerInstance,Double> loads = new HashMap<>();
+        double total = 0.0;
+        for (Map.Entry<KeyExtent,TServerInstance> entry : locations.entrySet()) {
+            int age = ages.get(entry.getKey());
+            double load = planner.getLoad(today.minusDays(age).format(SHARD_DATE_FORMAT), 1000.0 * Math.pow(0.5, age) + 5.0);
+            loads.merge(entry.getValue(), load, Double::sum);
+            total += load;
+        }
+        double max = 0.0;
+        for (double load : loads.values()) {
+            max = Math.max(max, load);
+        }
+        return max / (total / tservers.size());
+    }
+    
+    /**
+     * @return the most tablets of one day on one server
+     */
+    public int getMaxTabletsOfADayOnAServer() {
+        Map<String,Integer> counts = new HashMap<>();
+        int max = 0;
+        for (Map.Entry<KeyExtent,TServerInstance> entry : locations.entrySet()) {
+            String day = entry.getKey().getEndRow().toString().substring(0, 8);
+            max = Math.max(max, counts.merge(entry.getValue() + "/" + day, 1, Integer::sum));
+        }
+        return max;
+    }
+    
+    public static void main(String[] args) {
+        int numTservers = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int shardsPerDay = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+        
+        LocalDate today = LocalDate.of(2019, 1, 31);
+        HeatAwareMigrationPlanner planner = new HeatAwareMigrationPlanner(today, ShardedTableTabletBalancer.HEAT_HALF_LIFE_DAYS_DEFAULT,
+                        ShardedTableTabletBalancer.HEAT_MAX_DAY_FRACTION_DEFAULT, ShardedTableTabletBalancer.HEAT_MAX_MIGRATIONS_DEFAULT);
+        ShardedTableHeatSimulation simulation = new ShardedTableHeatSimulation(numTservers, days, shardsPerDay, planner, today, seed);
+        
+        System.out.println(String.format("%d tservers, %d days of %d shards, seed %d", numTservers, days, shardsPerDay, seed));
+        System.out.println(String.format("round %2d: imbalance %.3f, most of a day on a server %d", 0, simulation.getImbalance(),
+                        simulation.getMaxTabletsOfADayOnAServer()));
+        for (int round = 1; round <= rounds; round++) {
+            int migrations = simulation.round().size();
+            System.out.println(String.format("round %2d: %4d migrations, imbalance %.3f, most of a day on a server %d", round, migrations,
+                            simulation.getImbalance(), simulation.getMaxTabletsOfADayOnAServer()));
+        }
+    }
+}
@@ -17,6 +17,7 @@ import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.impl.KeyExtent;
 import org.apache.accumulo.core.master.thrift.TabletServerStatus;
+import org.apache.accumulo.core.tabletserver.thrift.TabletStats;
 import org.apache.accumulo.core.util.MapCounter;
 import org.apache.accumulo.core.util.Pair;
 import org.apache.accumulo.server.conf.NamespaceConfiguration;
@@ -41,6 +42,7 @@ import java.time.temporal.WeekFields;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -542,6 +544,44 @@ public class ShardedTableTabletBalancerTest {
         runAndCheckBalance(1);
     }
     
+    @Test
+    public void testHeatAwareBalance() {
+        config.set(ShardedTableTabletBalancer.SHARDED_HEAT_AWARE, "true");
+        config.set(ShardedTableTabletBalancer.SHARDED_HEAT_MAX_DAY_FRACTION, "0");
+        
+        // A balance by count, but all of the hot day on one server
+        TServerInstance server1 = testTServers.addTServer("127.0.0.1");
+        TServerInstance server2 = testTServers.addTServer("127.0.0.1");
+        for (int i = 1; i <= 4; i++) {
+            testTServers.addTablet(makeExtent(TNAME, "20100123_" + i, i == 1 ? null : "20100123_" + (i - 1)), server1);
+        }
+        for (int i = 1; i <= 4; i++) {
+            KeyExtent extent = makeExtent(TNAME, "20100124_" + i, i == 1 ? "20100123_4" : "20100124_" + (i - 1));
+            testTServers.addTablet(extent, server2);
+            testTServers.setRate(extent, 100.0);
+        }
+        
+        ArrayList<TabletMigration> migrationsOut = new ArrayList<>();
+        testBalancer.balance(testTServers.getCurrent(), new HashSet<>(), migrationsOut);
+        ensureUniqueMigrations(migrationsOut);
+        assertEquals(4, migrationsOut.size());
+        testTServers.applyMigrations(migrationsOut);
+        testTServers.checkShardsPerDay(2, 2);
+        
+        // Balanced, so nothing else moves
+        migrationsOut.clear();
+        testBalancer.balance(testTServers.getCurrent(), new HashSet<>(), migrationsOut);
+        assertEquals(0, migrationsOut.size());
+        
+        // Wait for the migrations of the table to finish
+        testTServers.addTablet(makeExtent(TNAME, "20100124_5", "20100124_4"), server1);
+        testTServers.addTablet(makeExtent(TNAME, "20100124_6", "20100124_5"), server1);
+        testBalancer.balance(testTServers.getCurrent(), Collections.singleton(makeExtent(TNAME, "20100123_1", null)), migrationsOut);
+        assertEquals(0, migrationsOut.size());
+        testBalancer.balance(testTServers.getCurrent(), new HashSet<>(), migrationsOut);
+        assertEquals(1, migrationsOut.size());
+    }
+    
     private void runAndCheckBalance(int numPasses) {
         
         // Balance the number of times we're told to
@@ -583,6 +623,7 @@ public class ShardedTableTabletBalancerTest {
     private static class TestTServers {
         private final Set<TServerInstance> tservers = new HashSet<>();
         private final SortedMap<KeyExtent,TServerInstance> tabletLocs = new TreeMap<>();
+        private final Map<KeyExtent,Double> rates = new HashMap<>();
         private int portNumber = 1000;
         private Random random;
         
@@ -838,6 +879,23 @@ public class ShardedTableTabletBalancerTest {
             return current;
         }
         
+        public void setRate(KeyExtent extent, double rate) {
+            rates.put(extent, rate);
+        }
+        
+        public List<TabletStats> getTabletStats(TServerInstance tserver) {
+            List<TabletStats> tabletStats = new ArrayList<>();
+            for (Entry<KeyExtent,TServerInstance> entry : tabletLocs.entrySet()) {
+                if (entry.getValue().equals(tserver)) {
+                    TabletStats stats = new TabletStats();
+                    stats.setExtent(entry.getKey().toThrift());
+                    stats.setQueryRate(rates.getOrDefault(entry.getKey(), 0.0));
+                    tabletStats.add(stats);
+                }
+            }
+            return tabletStats;
+        }
+        
         public Iterable<Pair<KeyExtent,Location>> getLocationProvider() {
             return Iterables.transform(tabletLocs.entrySet(), input -> new Pair<>(input.getKey(), new Location(input.getValue())));
         }
@@ -944,6 +1002,16 @@ public class ShardedTableTabletBalancerTest {
         protected long getWaitTime() {
             return 0;
         }
+        
+        @Override
+        protected List<TabletStats> getTabletStats(TServerInstance tserver) {
+            return testTServers.getTabletStats(tserver);
+        }
+        
+        @Override
+        protected LocalDate getToday() {
+            return LocalDate.of(2010, 1, 24);
+        }
     }
     
     public class TestTableConfiguration extends TableConfiguration {
@@ -0,0 +1,146 @@
+package datawave.data.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+
+import com.clearspring.analytics.stream.cardinality.CardinalityMergeException;
+import com.clearspring.analytics.stream.cardinality.HyperLogLogPlus;
+import com.clearspring.analytics.stream.frequency.CountMinSketch;
+import com.clearspring.analytics.stream.frequency.FrequencyMergeException;
+
+/**
+ * Mergeable statistics of the values of a field: a HyperLogLog for the number of distinct values and a count-min sketch for the frequency of a value. Ingest
+ * keeps one per field, datatype and day in the {@link #COLF_SKETCH} column of the metadata table, where the {@link datawave.iterators.FieldSketchCombiner}
+ * merges them, and queries merge the days of a date range to answer cardinality and selectivity questions without scanning the index.
+ * <p>
+ * Every sketch is built with the same precision, dimensions and seed so that any two can be merged. The count-min sketch never under estimates: the estimate
+ * of a value is at most {@code 2 / WIDTH} of the values counted above the real count, with a probability of {@code 1 - 1 / 2^DEPTH}. Sketches cannot forget,
+ * so deleted values are still counted.
+ * <p>
+ * Metadata entry: Row - FieldName, Fam - sk, Qual - DataType \0 yyyyMMdd, Value - serialized sketch
+ */
+public class FieldSketch {
+    
+    public static final Text COLF_SKETCH = new Text("sk");
+    
+    public static final int P = 12;
+    public static final int SP = 20;
+    public static final int DEPTH = 4;
+    public static final int WIDTH = 256;
+    public static final int SEED = 0x5eed;
+    
+    private static final byte VERSION = 1;
+    
+    private final HyperLogLogPlus distinct;
+    private final CountMinSketch frequency;
+    
+    public FieldSketch() {
+        this(new HyperLogLogPlus(P, SP), new CountMinSketch(DEPTH, WIDTH, SEED));
+    }
+    
+    private FieldSketch(HyperLogLogPlus distinct, CountMinSketch frequency) {
+        this.distinct = distinct;
+        this.frequency = frequency;
+    }
+    
+    /**
+     * Counts an occurrence of a value
+     *
+     * @param value
+     *            the field value
+     */
+    public void offer(String value) {
+        distinct.offer(value);
+        frequency.add(value, 1);
+    }
+    
+    /**
+     * @return the estimated number of distinct values
+     */
+    public long getCardinality() {
+        return distinct.cardinality();
+    }
+    
+    /**
+     * @param value
+     *            the field value
+     * @return the estimated number of occurrences of the value, never less than the real number
+     */
+    public long estimateCount(String value) {
+        return frequency.estimateCount(value);
+    }
+    
+    /**
+     * @return the number of occurrences of all of the values
+     */
+    public long getCount() {
+        return frequency.size();
+    }
+    
+    /**
+     * @param value
+     *            the field value
+     * @return the estimated fraction of the occurrences of the field that have the value, or -1 if nothing has been counted
+     */
+    public double getSelectivity(String value) {
+        long count = getCount();
+        return count <= 0 ? -1.0 : Math.min(1.0, (double) estimateCount(value) / (double) count);
+    }
+    
+    /**
+     * Merges another sketch into this one
+     *
+     * @param other
+     *            the other sketch
+     * @return this sketch
+     * @throws IOException
+     *             if the sketches were not built with the same precision and dimensions
+     */
+    public FieldSketch merge(FieldSketch other) throws IOException {
+        try {
+            distinct.addAll(other.distinct);
+            CountMinSketch merged = CountMinSketch.merge(frequency, other.frequency);
+            return new FieldSketch(distinct, merged);
+        } catch (CardinalityMergeException | FrequencyMergeException e) {
+            throw new IOException("Unable to merge field sketches", e);
+        }
+    }
+    
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            byte[] distinctBytes = distinct.getBytes();
+            out.writeInt(distinctBytes.length);
+            out.write(distinctBytes);
+            byte[] frequencyBytes = CountMinSketch.serialize(frequency);
+            out.writeInt(frequencyBytes.length);
+            out.write(frequencyBytes);
+        }
+        return bytes.toByteArray();
+    }
+    
+    public static FieldSketch fromBytes(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unknown field sketch version " + version);
+            }
+            byte[] distinctBytes = new byte[in.readInt()];
+            in.readFully(distinctBytes);
+            byte[] frequencyBytes = new byte[in.readInt()];
+            in.readFully(frequencyBytes);
+            return new FieldSketch(HyperLogLogPlus.Builder.build(distinctBytes), CountMinSketch.deserialize(frequencyBytes));
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "FieldSketch [cardinality=" + getCardinality() + ", count=" + getCount() + "]";
+    }
+}
@@ -1,126 +1,40 @@
 package datawave.edge.util;
 
 import org.apache.accumulo.core.data.Key;
-import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.WritableComparator;
 import org.apache.log4j.Logger;
 
 import java.nio.charset.CharacterCodingException;
 
-import static datawave.edge.util.EdgeKey.DATE_TYPE;
-import static datawave.edge.util.EdgeKey.EdgeColumnParts;
 import static datawave.edge.util.EdgeKey.EDGE_FORMAT;
-import static datawave.edge.util.EdgeKey.EDGE_VERSION;
 import static datawave.edge.util.EdgeKey.STATS_TYPE;
 import static datawave.edge.util.EdgeKey.COL_SEPARATOR_BYTE;
-import static datawave.edge.util.EdgeKey.COL_SUB_SEPARATOR;
 import static datawave.edge.util.EdgeKey.STATS_BYTES;
 
 /**
  * Extracted from datawave.edge.util.EdgeKey
  *
- * Its implementation was slightly modified so that the decoder could be reused and thus reuse Text objects to avoid excessive allocation and garbage
- * collection.
+ * Its implementation was slightly modified so that the decoder could be reused to avoid excessive allocation and garbage collection. Decoding is delegated to
+ * an {@link EdgeKeyView}, which splits the key in place rather than through intermediate Text and String objects.
  */
 public class EdgeKeyDecoder {
     private static final Logger log = Logger.getLogger(EdgeKeyDecoder.class);
     private static final int DATE_LEN = 8;
     
-    private final Text textCf;
-    private final Text textCq;
-    private final Text textRow;
-    private final Text textCv;
+    private final EdgeKeyView view;
     
     public EdgeKeyDecoder() {
-        textCf = new Text();
-        textCq = new Text();
-        textRow = new Text();
-        textCv = new Text();
+        view = new EdgeKeyView();
     }
     
     public EdgeKey decode(Key key, EdgeKey.EdgeKeyBuilder builder) {
-        key.getColumnFamily(textCf);
-        
-        builder.setFormat(determineEdgeFormat(textCf));
-        
-        // Parse row for type and source/sink information
-        
-        final String row = key.getRow(textRow).toString();
-        
-        // the previous code threw an exception when there was no row key, so
-        // we should maintain that same
-        if (row.isEmpty())
-            throw new IllegalStateException("Invalid row identifier");
-        
-        int nullPos = row.indexOf('\0');
-        
-        if (nullPos < 0 && log.isTraceEnabled()) {
-            log.trace("No null character found");
-        }
-        
-        /**
-         * determine if we are dealing with a stats edge
-         */
-        boolean statsEdge = builder.getFormat() == EDGE_FORMAT.STATS;
-        
-        /**
-         * If we have a stats edge or an invalid row key, we will assign the row to the source and null to the sink.
-         */
-        String source = (statsEdge || nullPos <= 0) ? row : row.substring(0, nullPos);
-        String sink = (statsEdge || nullPos <= 0) ? null : row.substring(nullPos + 1);
-        
+        // the view splits the row and columns in place, so only the fields which end up in the EdgeKey are decoded
+        view.reset(key);
         if (log.isTraceEnabled()) {
-            log.trace("Source is " + source + " sink is " + sink);
-        }
-        switch (builder.getFormat()) {
-            case STANDARD:
-                builder.setSourceData(source);
-                builder.setSinkData(sink);
-                break;
-            case STATS:
-                builder.setSourceData(source);
-                break;
+            log.trace("Decoding " + view.getVersion() + " edge key " + key);
         }
-        
-        byte[] colQual = key.getColumnQualifier(textCq).getBytes();
-        
-        // Parse colf and colq as one big list, decoding with EDGE_VERSION logic
-        EdgeColumnParts parts = new EdgeColumnParts(textCf, textCq);
-        
-        EDGE_VERSION version = EDGE_VERSION.getEdgeVersion(parts);
-        
-        builder.setType(parts.get(version.getTypeIndex()));
-        builder.setYyyymmdd(parts.get(version.getYMDIndex()));
-        if (version.getFormat() == EDGE_FORMAT.STATS) {
-            builder.setStatsType(version.getStatsType(parts));
-            builder.setSourceRelationship(parts.get(version.getRelationshipIndex()));
-            builder.setSourceAttribute1(parts.get(version.getCategoryIndex()));
-        } else {
-            String[] subPieces = StringUtils.splitPreserveAllTokens(parts.get(version.getRelationshipIndex()), COL_SUB_SEPARATOR);
-            builder.setSourceRelationship(subPieces[0]);
-            builder.setSinkRelationship(subPieces[1]);
-            subPieces = StringUtils.splitPreserveAllTokens(parts.get(version.getCategoryIndex()), COL_SUB_SEPARATOR);
-            builder.setSourceAttribute1(subPieces[0]);
-            builder.setSinkAttribute1(subPieces[1]);
-        }
-        
-        if (version.hasAttribute2()) {
-            builder.setAttribute2(parts.get(version.getAttribute2Index()));
-        }
-        if (version.hasAttribute3()) {
-            builder.setAttribute3(parts.get(version.getAttribute3Index()));
-        }
-        if (version.getDateTypeIndex() >= 0) {
-            builder.setDateType(DATE_TYPE.parse(parts.get(version.getDateTypeIndex())));
-        }
-        
-        // set the rest
-        builder.setColvis(key.getColumnVisibility(textCv));
-        builder.setDeleted(key.isDeleted());
-        builder.setTimestamp(key.getTimestamp());
-        
-        return builder.build();
+        return view.decode(key, builder);
     }
     
     public static EDGE_FORMAT determineEdgeFormat(Text colFam) {
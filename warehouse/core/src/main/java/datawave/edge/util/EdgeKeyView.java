@@ -0,0 +1,453 @@
+package datawave.edge.util;
+
+import java.nio.charset.CharacterCodingException;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.hadoop.io.Text;
+
+import static datawave.edge.util.EdgeKey.COL_SEPARATOR_BYTE;
+import static datawave.edge.util.EdgeKey.COL_SUB_SEPARATOR;
+import static datawave.edge.util.EdgeKey.DATE_TYPE;
+import static datawave.edge.util.EdgeKey.EDGE_FORMAT;
+import static datawave.edge.util.EdgeKey.EDGE_VERSION;
+import static datawave.edge.util.EdgeKey.STATS_BYTES;
+import static datawave.edge.util.EdgeKey.STATS_TYPE;
+
+/**
+ * A reusable, read-only view of an edge table key which works directly against the backing arrays of the {@link Key}.
+ * <p>
+ * {@link #reset(Key)} only records the offsets of the row null separator and of the column family and qualifier pieces (the same pieces that
+ * {@link EdgeKey.EdgeColumnParts} would produce), which is enough to determine the {@link EDGE_VERSION}. Nothing is decoded into a String until one of the
+ * getters is called, and the {@code *Equals} methods compare bytes in place. This makes it suitable for tserver-side iterators which reject most of the keys
+ * they see: a key that fails a cheap check (e.g. on the edge type or relationship) never allocates anything.
+ * <p>
+ * The view holds a reference to the key's backing arrays, so it is only valid until the key is modified or the source iterator advances. A view is not thread
+ * safe and is meant to be reused for every key read by a single iterator.
+ */
+public class EdgeKeyView {
+    private static final int MAX_PARTS = 9;
+    private static final byte ROW_SEPARATOR_BYTE = 0;
+    private static final byte ESCAPE_BYTE = '\\';
+    
+    private byte[] row;
+    private int rowOffset;
+    private int rowLength;
+    private int nullIndex;
+    private int nullCount;
+    
+    private byte[] colFam;
+    private byte[] colQual;
+    
+    // start (inclusive) and end (exclusive) of each piece; pieces below numColfPieces index into colFam, the rest into colQual
+    private int[] pieceStart = new int[MAX_PARTS];
+    private int[] pieceEnd = new int[MAX_PARTS];
+    private int numPieces;
+    private int numColfPieces;
+    
+    private EDGE_FORMAT format;
+    private EDGE_VERSION version;
+    
+    /**
+     * Points this view at a new key. Only the separator offsets are computed; no fields are decoded.
+     *
+     * @param key
+     *            a key from the edge table
+     * @return this view
+     */
+    public EdgeKeyView reset(Key key) {
+        ByteSequence rowData = key.getRowData();
+        row = rowData.getBackingArray();
+        rowOffset = rowData.offset();
+        rowLength = rowData.length();
+        nullIndex = -1;
+        nullCount = 0;
+        for (int i = rowOffset, end = rowOffset + rowLength; i < end; i++) {
+            if (row[i] == ROW_SEPARATOR_BYTE) {
+                if (nullCount++ == 0) {
+                    nullIndex = i;
+                }
+            }
+        }
+        
+        numPieces = 0;
+        ByteSequence cf = key.getColumnFamilyData();
+        colFam = cf.getBackingArray();
+        addPieces(colFam, cf.offset(), cf.length());
+        numColfPieces = numPieces;
+        ByteSequence cq = key.getColumnQualifierData();
+        colQual = cq.getBackingArray();
+        addPieces(colQual, cq.offset(), cq.length());
+        
+        format = startsWith(colFam, cf.offset(), cf.length(), STATS_BYTES) ? EDGE_FORMAT.STATS : EDGE_FORMAT.STANDARD;
+        version = determineVersion();
+        return this;
+    }
+    
+    private void addPieces(byte[] bytes, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (bytes[i] == COL_SEPARATOR_BYTE) {
+                addPiece(start, i);
+                start = i + 1;
+            }
+        }
+        addPiece(start, end);
+    }
+    
+    private void addPiece(int start, int end) {
+        if (numPieces == pieceStart.length) {
+            // only malformed keys get here; grow once and keep the larger arrays for reuse
+            int[] newStart = new int[numPieces * 2];
+            int[] newEnd = new int[numPieces * 2];
+            System.arraycopy(pieceStart, 0, newStart, 0, numPieces);
+            System.arraycopy(pieceEnd, 0, newEnd, 0, numPieces);
+            pieceStart = newStart;
+            pieceEnd = newEnd;
+        }
+        pieceStart[numPieces] = start;
+        pieceEnd[numPieces] = end;
+        numPieces++;
+    }
+    
+    /**
+     * Same rules as {@link EDGE_VERSION#getEdgeVersion(java.util.List)}, without decoding the pieces.
+     */
+    private EDGE_VERSION determineVersion() {
+        if (numPieces < 4 || numPieces > MAX_PARTS) {
+            return EDGE_VERSION.UNKNOWN;
+        }
+        if (pieceEquals(0, STATS_BYTES)) {
+            switch (numPieces) {
+                case 6:
+                    return EDGE_VERSION.STATS_BASE;
+                case 7:
+                    return EDGE_VERSION.STATS_ATTRIBUTE2;
+                case 8:
+                    return EDGE_VERSION.STATS_PROTOBUF;
+                case 9:
+                    return EDGE_VERSION.DATE_STATS_PROTOBUF;
+            }
+        } else {
+            switch (numPieces) {
+                case 4:
+                    return EDGE_VERSION.BASE;
+                case 5:
+                    return EDGE_VERSION.BASE_ATTRIBUTE2;
+                case 6:
+                    return EDGE_VERSION.PROTOBUF;
+                case 7:
+                    return EDGE_VERSION.DATE_PROTOBUF;
+            }
+        }
+        return EDGE_VERSION.UNKNOWN;
+    }
+    
+    public EDGE_VERSION getVersion() {
+        return version;
+    }
+    
+    /**
+     * @return {@link EDGE_FORMAT#STATS} if the column family starts with STATS, otherwise {@link EDGE_FORMAT#STANDARD}
+     */
+    public EDGE_FORMAT getFormat() {
+        return format;
+    }
+    
+    public boolean isStats() {
+        return format == EDGE_FORMAT.STATS;
+    }
+    
+    /* row */
+    
+    /**
+     * @return the number of null separators in the row: 1 for a standard edge, 0 for a stats edge
+     */
+    public int getRowSeparatorCount() {
+        return nullCount;
+    }
+    
+    /**
+     * @return true if the row contains an escape character, in which case the raw source and sink differ from their unescaped values
+     */
+    public boolean hasEscapedRow() {
+        for (int i = rowOffset, end = rowOffset + rowLength; i < end; i++) {
+            if (row[i] == ESCAPE_BYTE) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * @return true if the row is split into a source and sink, using the same rules as {@link EdgeKeyDecoder}
+     */
+    public boolean hasSink() {
+        return format == EDGE_FORMAT.STANDARD && nullIndex > rowOffset;
+    }
+    
+    /**
+     * @return the source exactly as it appears in the row (i.e. still escaped), or the whole row if the key has no sink
+     */
+    public String getSourceData() {
+        return hasSink() ? decode(row, rowOffset, nullIndex - rowOffset) : decode(row, rowOffset, rowLength);
+    }
+    
+    /**
+     * @return the sink exactly as it appears in the row (i.e. still escaped), or null if the key has no sink
+     */
+    public String getSinkData() {
+        return hasSink() ? decode(row, nullIndex + 1, rowOffset + rowLength - nullIndex - 1) : null;
+    }
+    
+    public boolean sourceEquals(byte[] value) {
+        return hasSink() ? bytesEqual(row, rowOffset, nullIndex - rowOffset, value) : bytesEqual(row, rowOffset, rowLength, value);
+    }
+    
+    public boolean sinkEquals(byte[] value) {
+        return hasSink() && bytesEqual(row, nullIndex + 1, rowOffset + rowLength - nullIndex - 1, value);
+    }
+    
+    /* raw column pieces */
+    
+    /**
+     * @return the total number of column family and column qualifier pieces
+     */
+    public int getPieceCount() {
+        return numPieces;
+    }
+    
+    public int getColumnFamilyPieceCount() {
+        return numColfPieces;
+    }
+    
+    public int getColumnQualifierPieceCount() {
+        return numPieces - numColfPieces;
+    }
+    
+    public int getPieceLength(int piece) {
+        return pieceEnd[piece] - pieceStart[piece];
+    }
+    
+    /**
+     * @param piece
+     *            index into the combined column family and column qualifier pieces
+     * @return the decoded piece
+     */
+    public String getPiece(int piece) {
+        return decode(pieceBytes(piece), pieceStart[piece], getPieceLength(piece));
+    }
+    
+    /**
+     * @param piece
+     *            index into the combined column family and column qualifier pieces
+     * @param value
+     *            the UTF-8 bytes to compare against
+     * @return true if the piece is byte-for-byte equal to {@code value}
+     */
+    public boolean pieceEquals(int piece, byte[] value) {
+        return bytesEqual(pieceBytes(piece), pieceStart[piece], getPieceLength(piece), value);
+    }
+    
+    private byte[] pieceBytes(int piece) {
+        if (piece < 0 || piece >= numPieces) {
+            throw new IndexOutOfBoundsException("Edge key has " + numPieces + " column pieces, requested " + piece);
+        }
+        return piece < numColfPieces ? colFam : colQual;
+    }
+    
+    /* version aware fields */
+    
+    public String getType() {
+        return getPiece(version.getTypeIndex());
+    }
+    
+    public boolean typeEquals(byte[] value) {
+        return pieceEquals(version.getTypeIndex(), value);
+    }
+    
+    /**
+     * @return the full relationship, i.e. {@code SOURCEREL-SINKREL} for a standard edge
+     */
+    public String getRelationship() {
+        return getPiece(version.getRelationshipIndex());
+    }
+    
+    public boolean relationshipEquals(byte[] value) {
+        return pieceEquals(version.getRelationshipIndex(), value);
+    }
+    
+    /**
+     * @return the full first attribute, i.e. {@code SOURCECATEGORY-SINKCATEGORY} for a standard edge
+     */
+    public String getAttribute1() {
+        return getPiece(version.getCategoryIndex());
+    }
+    
+    public String getAttribute2() {
+        return version.hasAttribute2() ? getPiece(version.getAttribute2Index()) : null;
+    }
+    
+    public String getAttribute3() {
+        return version.hasAttribute3() ? getPiece(version.getAttribute3Index()) : null;
+    }
+    
+    public String getYyyymmdd() {
+        return getPiece(version.getYMDIndex());
+    }
+    
+    public boolean yyyymmddEquals(byte[] value) {
+        return pieceEquals(version.getYMDIndex(), value);
+    }
+    
+    /**
+     * @return the date type, or null if this version has no date type or the abbreviation is not recognized (as {@link DATE_TYPE#parse(String)})
+     */
+    public DATE_TYPE getDateType() {
+        if (version.getDateTypeIndex() < 0) {
+            return null;
+        }
+        for (DATE_TYPE dateType : DATE_TYPE.values()) {
+            if (dateTypeEquals(dateType)) {
+                return dateType;
+            }
+        }
+        return null;
+    }
+    
+    public boolean dateTypeEquals(DATE_TYPE dateType) {
+        int piece = version.getDateTypeIndex();
+        return piece >= 0 && pieceEquals(piece, dateType.abbreviation);
+    }
+    
+    public STATS_TYPE getStatsType() {
+        int piece = version.getStatsTypeIndex();
+        for (STATS_TYPE statsType : STATS_TYPE.values()) {
+            if (pieceEquals(piece, statsType.name())) {
+                return statsType;
+            }
+        }
+        throw new EnumConstantNotPresentException(STATS_TYPE.class, getPiece(piece));
+    }
+    
+    /**
+     * Compares a piece against an ASCII constant without encoding it.
+     */
+    private boolean pieceEquals(int piece, String ascii) {
+        if (getPieceLength(piece) != ascii.length()) {
+            return false;
+        }
+        byte[] bytes = pieceBytes(piece);
+        int start = pieceStart[piece];
+        for (int i = 0; i < ascii.length(); i++) {
+            if (bytes[start + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Fully decodes the current key into the builder, with the same results as {@link EdgeKeyDecoder#decode(Key, EdgeKey.EdgeKeyBuilder)}.
+     *
+     * @param key
+     *            the key this view was last reset with, used for the visibility, timestamp and delete flag
+     * @param builder
+     *            the builder to populate, which determines whether the source and sink are unescaped
+     * @return the built EdgeKey
+     */
+    public EdgeKey decode(Key key, EdgeKey.EdgeKeyBuilder builder) {
+        if (rowLength == 0) {
+            throw new IllegalStateException("Invalid row identifier");
+        }
+        if (numPieces > MAX_PARTS) {
+            throw new RuntimeException("Exceeded number of possible number of parts (" + MAX_PARTS + ").  key: " + key);
+        }
+        
+        builder.setFormat(format);
+        builder.setSourceData(getSourceData());
+        if (format == EDGE_FORMAT.STANDARD) {
+            builder.setSinkData(getSinkData());
+        }
+        
+        builder.setType(getType());
+        builder.setYyyymmdd(getYyyymmdd());
+        if (version.getFormat() == EDGE_FORMAT.STATS) {
+            builder.setStatsType(getStatsType());
+            builder.setSourceRelationship(getRelationship());
+            builder.setSourceAttribute1(getAttribute1());
+        } else {
+            int piece = version.getRelationshipIndex();
+            builder.setSourceRelationship(getSubPiece(piece, 0));
+            builder.setSinkRelationship(getSubPiece(piece, 1));
+            piece = version.getCategoryIndex();
+            builder.setSourceAttribute1(getSubPiece(piece, 0));
+            builder.setSinkAttribute1(getSubPiece(piece, 1));
+        }
+        
+        if (version.hasAttribute2()) {
+            builder.setAttribute2(getAttribute2());
+        }
+        if (version.hasAttribute3()) {
+            builder.setAttribute3(getAttribute3());
+        }
+        if (version.getDateTypeIndex() >= 0) {
+            builder.setDateType(getDateType());
+        }
+        
+        builder.setColvis(key.getColumnVisibility());
+        builder.setDeleted(key.isDeleted());
+        builder.setTimestamp(key.getTimestamp());
+        
+        return builder.build();
+    }
+    
+    /**
+     * @return the n-th {@link EdgeKey#COL_SUB_SEPARATOR} separated token of a piece, preserving empty tokens
+     */
+    private String getSubPiece(int piece, int n) {
+        byte[] bytes = pieceBytes(piece);
+        int start = pieceStart[piece];
+        int end = pieceEnd[piece];
+        int token = 0;
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == COL_SUB_SEPARATOR) {
+                if (token == n) {
+                    return decode(bytes, start, i - start);
+                }
+                token++;
+                start = i + 1;
+            }
+        }
+        if (token == n) {
+            return decode(bytes, start, end - start);
+        }
+        throw new IllegalStateException("Edge key piece " + getPiece(piece) + " does not contain a " + COL_SUB_SEPARATOR + " separated value at " + n);
+    }
+    
+    private static boolean startsWith(byte[] bytes, int offset, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean bytesEqual(byte[] bytes, int offset, int length, byte[] value) {
+        return length == value.length && startsWith(bytes, offset, length, value);
+    }
+    
+    private static String decode(byte[] bytes, int offset, int length) {
+        try {
+            return Text.decode(bytes, offset, length);
+        } catch (CharacterCodingException e) {
+            // same behavior as EdgeKey.getParts
+            throw new RuntimeException("Edge key column encoding exception", e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package datawave.ingest.protobuf;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+/**
+ * A columnar view of a serialized {@link TermWeight.Info}. The offsets, skips and scores are decoded straight into int arrays, without the boxed lists of the
+ * generated message, and {@link TermWeightPosition}s are only built for the entries that are asked for.
+ */
+public class TermWeightColumns {
+    private static final int[] EMPTY = new int[0];
+    
+    private final int[] offsets;
+    private final int[] prevSkips;
+    private final int[] scores;
+    private final boolean zeroOffsetMatch;
+    
+    private TermWeightColumns(int[] offsets, int[] prevSkips, int[] scores, boolean zeroOffsetMatch) {
+        this.offsets = offsets;
+        this.prevSkips = prevSkips;
+        this.scores = scores;
+        this.zeroOffsetMatch = zeroOffsetMatch;
+    }
+    
+    /**
+     * @param bytes
+     *            a serialized TermWeight.Info
+     * @return the columns of the term weight
+     * @throws InvalidProtocolBufferException
+     *             if the bytes are not a TermWeight.Info
+     */
+    public static TermWeightColumns parseFrom(byte[] bytes) throws InvalidProtocolBufferException {
+        IntColumn offsets = new IntColumn();
+        IntColumn prevSkips = new IntColumn();
+        IntColumn scores = new IntColumn();
+        boolean zeroOffsetMatch = TermWeightPosition.DEFAULT_ZERO_OFFSET_MATCH;
+        
+        CodedInputStream input = CodedInputStream.newInstance(bytes);
+        try {
+            boolean done = false;
+            while (!done) {
+                int tag = input.readTag();
+                switch (tag) {
+                    case 0:
+                        done = true;
+                        break;
+                    case 24:
+                        offsets.add(input.readUInt32());
+                        break;
+                    case 26:
+                        offsets.addPacked(input);
+                        break;
+                    case 32:
+                        prevSkips.add(input.readUInt32());
+                        break;
+                    case 34:
+                        prevSkips.addPacked(input);
+                        break;
+                    case 40:
+                        scores.add(input.readUInt32());
+                        break;
+                    case 42:
+                        scores.addPacked(input);
+                        break;
+                    case 48:
+                        zeroOffsetMatch = input.readBool();
+                        break;
+                    default:
+                        done = !input.skipField(tag);
+                        break;
+                }
+            }
+        } catch (InvalidProtocolBufferException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new InvalidProtocolBufferException(e.getMessage());
+        }
+        return new TermWeightColumns(offsets.toArray(), prevSkips.toArray(), scores.toArray(), zeroOffsetMatch);
+    }
+    
+    /**
+     * @return the number of offsets
+     */
+    public int size() {
+        return offsets.length;
+    }
+    
+    public int getOffset(int i) {
+        return offsets[i];
+    }
+    
+    /**
+     * @return the skips before the offset, or {@link TermWeightPosition#DEFAULT_PREV_SKIPS} if the skips do not line up with the offsets
+     */
+    public int getPrevSkips(int i) {
+        return prevSkips.length == offsets.length ? prevSkips[i] : TermWeightPosition.DEFAULT_PREV_SKIPS;
+    }
+    
+    /**
+     * @return the lowest possible offset with respect to skips, as {@link TermWeightPosition#getLowOffset()}
+     */
+    public int getLowOffset(int i) {
+        int skips = getPrevSkips(i);
+        return skips >= 0 ? offsets[i] - skips : offsets[i];
+    }
+    
+    /**
+     * @return the score of the offset, or {@link TermWeightPosition#DEFAULT_SCORE} if the scores do not line up with the offsets
+     */
+    public int getScore(int i) {
+        return scores.length == offsets.length ? scores[i] : TermWeightPosition.DEFAULT_SCORE;
+    }
+    
+    public boolean getZeroOffsetMatch() {
+        return zeroOffsetMatch;
+    }
+    
+    /**
+     * Builds the position of an offset, the same as {@link TermWeightPosition.Builder#setTermWeightOffsetInfo(TermWeight.Info, int)} would
+     *
+     * @param i
+     *            the index of the offset
+     * @param builder
+     *            a builder, which is reset first
+     * @return the position
+     */
+    public TermWeightPosition getPosition(int i, TermWeightPosition.Builder builder) {
+        builder.reset();
+        builder.setOffset(offsets[i]);
+        if (prevSkips.length == offsets.length) {
+            builder.setPrevSkips(prevSkips[i]);
+        }
+        if (scores.length == offsets.length) {
+            builder.setScore(scores[i]);
+        }
+        builder.setZeroOffsetMatch(zeroOffsetMatch);
+        return builder.build();
+    }
+    
+    @Override
+    public String toString() {
+        return "{zeroMatch=" + zeroOffsetMatch + ", offsets=" + Arrays.toString(offsets) + ", prevSkips=" + Arrays.toString(prevSkips) + ", scores="
+                        + Arrays.toString(scores) + '}';
+    }
+    
+    /**
+     * A growable array of ints
+     */
+    private static class IntColumn {
+        private int[] values = EMPTY;
+        private int size = 0;
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(8, size * 2));
+            }
+            values[size++] = value;
+        }
+        
+        void addPacked(CodedInputStream input) throws IOException {
+            int limit = input.pushLimit(input.readRawVarint32());
+            while (input.getBytesUntilLimit() > 0) {
+                add(input.readUInt32());
+            }
+            input.popLimit(limit);
+        }
+        
+        int[] toArray() {
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+    }
+}
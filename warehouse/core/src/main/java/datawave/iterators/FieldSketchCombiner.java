@@ -0,0 +1,64 @@
+package datawave.iterators;
+
+import datawave.data.sketch.FieldSketch;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Combiner;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Merges the {@link FieldSketch}es of a field, datatype and day.
+ *
+ */
+public class FieldSketchCombiner extends Combiner {
+    
+    private static final Logger log = Logger.getLogger(FieldSketchCombiner.class);
+    
+    /**
+     * Reduces a list of Values into a single Value.
+     *
+     * @param key
+     *            The most recent version of the Key being reduced.
+     *
+     * @param iter
+     *            An iterator over the Values for different versions of the key.
+     *
+     * @return The combined Value.
+     */
+    @Override
+    public Value reduce(Key key, Iterator<Value> iter) {
+        
+        FieldSketch sketch = null;
+        Value singletonValue = null;
+        
+        while (iter.hasNext()) {
+            Value value = iter.next();
+            try {
+                FieldSketch newSketch = FieldSketch.fromBytes(value.get());
+                if (sketch == null) {
+                    sketch = newSketch;
+                    singletonValue = value;
+                } else {
+                    sketch = sketch.merge(newSketch);
+                    singletonValue = null;
+                }
+            } catch (IOException e) {
+                log.error("Unable to decode field sketch from " + key, e);
+            }
+        }
+        
+        if (singletonValue != null) {
+            return singletonValue;
+        } else if (sketch != null) {
+            try {
+                return new Value(sketch.toBytes());
+            } catch (IOException e) {
+                log.error("Unable to encode field sketch for " + key, e);
+            }
+        }
+        return new Value();
+    }
+}
@@ -58,4 +58,9 @@ public class AgeOffConfigParams {
      * Exclude schema components from age-off
      */
     public static final String EXCLUDE_DATA = "excludeData";
+    
+    /**
+     * A flag denoting whether the filter rules are compiled per column (the default) or evaluated one by one for every key
+     */
+    public static final String COMPILE_RULES = "compileRules";
 }
@@ -1,5 +1,6 @@
 package datawave.iterators.filter;
 
+import datawave.iterators.filter.ageoff.ColumnDecision;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 
@@ -21,4 +22,16 @@ public class ColumnFamilyRegexFilter extends RegexFilterBase {
         return k.getColumnFamily().toString();
     }
     
+    @Override
+    public ColumnDecision decideColumn(Key k) {
+        return decideColumn(getKeyField(k, null));
+    }
+    
+    /**
+     * The pattern may match the uid of an event column family
+     */
+    @Override
+    public boolean isDecidedByDataType() {
+        return false;
+    }
 }
@@ -3,6 +3,7 @@
  */
 package datawave.iterators.filter;
 
+import datawave.iterators.filter.ageoff.ColumnDecision;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 
@@ -66,4 +67,8 @@ public class ColumnVisibilityAndFilter extends TokenFilterBase {
         return numFound == found.length;
     }
     
+    @Override
+    public ColumnDecision decideColumn(Key k) {
+        return decideColumnTokens(k);
+    }
 }
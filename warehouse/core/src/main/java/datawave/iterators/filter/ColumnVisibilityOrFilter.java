@@ -3,6 +3,7 @@
  */
 package datawave.iterators.filter;
 
+import datawave.iterators.filter.ageoff.ColumnDecision;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 
@@ -57,4 +58,8 @@ public class ColumnVisibilityOrFilter extends TokenFilterBase {
         return found;
     }
     
+    @Override
+    public ColumnDecision decideColumn(Key k) {
+        return decideColumnTokens(k);
+    }
 }
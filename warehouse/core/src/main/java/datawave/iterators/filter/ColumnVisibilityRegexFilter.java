@@ -3,6 +3,7 @@
  */
 package datawave.iterators.filter;
 
+import datawave.iterators.filter.ageoff.ColumnDecision;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 
@@ -25,4 +26,8 @@ public class ColumnVisibilityRegexFilter extends RegexFilterBase {
         return new String(k.getColumnVisibilityData().getBackingArray());
     }
     
+    @Override
+    public ColumnDecision decideColumn(Key k) {
+        return decideColumn(getKeyField(k, null));
+    }
 }
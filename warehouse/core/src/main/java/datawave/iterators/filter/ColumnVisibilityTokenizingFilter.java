@@ -1,5 +1,6 @@
 package datawave.iterators.filter;
 
+import datawave.iterators.filter.ageoff.ColumnDecision;
 import datawave.iterators.filter.ageoff.FilterOptions;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
@@ -16,4 +17,9 @@ public class ColumnVisibilityTokenizingFilter extends TokenizingFilterBase {
     public byte[] getDelimiters(FilterOptions options) {
         return CV_DELIMITERS;
     }
+    
+    @Override
+    public ColumnDecision decideColumn(Key k) {
+        return decideColumn(getKeyField(k, null));
+    }
 }
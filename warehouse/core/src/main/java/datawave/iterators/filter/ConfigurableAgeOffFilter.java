@@ -8,6 +8,7 @@ import datawave.ingest.util.cache.ReloadableCacheBuilder;
 import datawave.ingest.util.cache.watch.FileRuleWatcher;
 import datawave.iterators.filter.ageoff.AgeOffPeriod;
 import datawave.iterators.filter.ageoff.AppliedRule;
+import datawave.iterators.filter.ageoff.CompiledAgeOffRules;
 import datawave.iterators.filter.ageoff.FilterRule;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.data.Key;
@@ -119,6 +120,11 @@ public class ConfigurableAgeOffFilter extends Filter implements OptionDescriber
     
     protected Collection<AppliedRule> filterList;
     
+    // the filterList compiled per column, rebuilt whenever the filterList is replaced
+    protected CompiledAgeOffRules compiledRules;
+    
+    protected boolean compileRules = true;
+    
     protected long cutOffDateMillis;
     protected long scanStart;
     
@@ -168,6 +174,10 @@ public class ConfigurableAgeOffFilter extends Filter implements OptionDescriber
         if (timeStamp > this.shortCircuitDateMillis)
             return true;
         
+        if (this.compileRules) {
+            return getCompiledRules().accept(k, v);
+        }
+        
         boolean acceptFlag = false;
         boolean filterRuleApplied = false;
         
@@ -189,6 +199,13 @@ public class ConfigurableAgeOffFilter extends Filter implements OptionDescriber
         
     }
     
+    private CompiledAgeOffRules getCompiledRules() {
+        if (this.compiledRules == null || !this.compiledRules.isCompiledFrom(this.filterList, this.cutOffDateMillis)) {
+            this.compiledRules = new CompiledAgeOffRules(this.filterList, this.cutOffDateMillis);
+        }
+        return this.compiledRules;
+    }
+    
     @Override
     public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
         
@@ -205,6 +222,8 @@ public class ConfigurableAgeOffFilter extends Filter implements OptionDescriber
         
         this.filterList = Lists.newArrayList(other.filterList);
         
+        this.compileRules = other.compileRules;
+        
         this.scanStart = other.scanStart;
         
         this.cutOffDateMillis = other.cutOffDateMillis;
@@ -324,6 +343,8 @@ public class ConfigurableAgeOffFilter extends Filter implements OptionDescriber
         initialize(options.get(AgeOffConfigParams.TTL), options.get(AgeOffConfigParams.TTL_UNITS), options.get(AgeOffConfigParams.TTL_SHORT_CIRCUIT),
                         sessionScanStart, options.get(AgeOffConfigParams.FILTER_CONFIG));
         
+        String compileRulesStr = options.get(AgeOffConfigParams.COMPILE_RULES);
+        compileRules = (compileRulesStr == null) || Boolean.parseBoolean(compileRulesStr);
     }
     
     /**
@@ -436,6 +457,7 @@ public class ConfigurableAgeOffFilter extends Filter implements OptionDescriber
         options.put(AgeOffConfigParams.FILTER_CONFIG, "URL to the age off filter configuration file.");
         options.put(AgeOffConfigParams.DISABLE_ON_NON_FULL_MAJC,
                         "If set to 'true', then filters will be disabled for system-initialized full major compactions (non-full majc)");
+        options.put(AgeOffConfigParams.COMPILE_RULES, "If set to 'false', then every filter rule is evaluated for every key instead of once per column [default = true]");
         return new IteratorOptions("cfgAgeoff", "ConfigurableAgeOffFilter removes entries with timestamps more than <ttl> milliseconds old", options, null);
     }
     
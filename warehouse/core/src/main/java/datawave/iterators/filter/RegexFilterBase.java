@@ -7,6 +7,7 @@ import java.util.regex.PatternSyntaxException;
 
 import datawave.iterators.filter.ageoff.AgeOffPeriod;
 import datawave.iterators.filter.ageoff.AppliedRule;
+import datawave.iterators.filter.ageoff.ColumnDecision;
 import datawave.iterators.filter.ageoff.FilterOptions;
 
 import org.apache.accumulo.core.data.Key;
@@ -91,6 +92,20 @@ public abstract class RegexFilterBase extends AppliedRule {
         return dtFlag;
     }
     
+    /**
+     * Decides this rule for a column, for subclasses whose key field is part of the column family or column visibility.
+     *
+     * @param keyField
+     *            the key field of any key in the column
+     * @return the decision for every key in the column
+     */
+    protected ColumnDecision decideColumn(String keyField) {
+        if (this.pattern == null || !pattern.matcher(keyField).find()) {
+            return ColumnDecision.NOT_APPLIED;
+        }
+        return ColumnDecision.applied(getPeriod().getCutOffMilliseconds());
+    }
+    
     /**
      * Required by the {@code FilterRule} interface. Used to initialize the the {@code FilterRule} implementation
      * 
@@ -2,6 +2,7 @@ package datawave.iterators.filter;
 
 import datawave.iterators.filter.ageoff.AgeOffPeriod;
 import datawave.iterators.filter.ageoff.AppliedRule;
+import datawave.iterators.filter.ageoff.ColumnDecision;
 import datawave.iterators.filter.ageoff.FilterOptions;
 import datawave.util.StringUtils;
 import org.apache.accumulo.core.data.Key;
@@ -91,6 +92,20 @@ public abstract class TokenFilterBase extends AppliedRule {
         return dtFlag;
     }
     
+    /**
+     * Decides this rule for a column, for subclasses whose tokens are part of the column family or column visibility.
+     *
+     * @param k
+     *            any key in the column
+     * @return the decision for every key in the column
+     */
+    protected ColumnDecision decideColumnTokens(Key k) {
+        if (this.patternBytes == null || !hasToken(k, null, patternBytes)) {
+            return ColumnDecision.NOT_APPLIED;
+        }
+        return ColumnDecision.applied(getPeriod().getCutOffMilliseconds());
+    }
+    
     /**
      * Required by the {@code FilterRule} interface. Used to initialize the the {@code FilterRule} implementation
      * 
@@ -5,6 +5,7 @@ import java.util.Objects;
 import datawave.iterators.filter.TokenTtlTrie.Builder.MERGE_MODE;
 import datawave.iterators.filter.ageoff.AgeOffPeriod;
 import datawave.iterators.filter.ageoff.AppliedRule;
+import datawave.iterators.filter.ageoff.ColumnDecision;
 import datawave.iterators.filter.ageoff.FilterOptions;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
@@ -95,17 +96,40 @@ public abstract class TokenizingFilterBase extends AppliedRule {
     
     @Override
     public boolean accept(AgeOffPeriod period, Key k, Value V) {
-        Long calculatedTTL = scanTrie.scan(getKeyField(k, V));
-        if (calculatedTTL == null) {
+        Long cutoffTimestamp = getCutoff(period, getKeyField(k, V));
+        if (cutoffTimestamp == null) {
             ruleApplied = false;
             return true;
         }
+        ruleApplied = true;
+        return k.getTimestamp() > cutoffTimestamp;
+    }
+    
+    /**
+     * Decides this rule for a column, for subclasses whose key field is part of the column family or column visibility.
+     *
+     * @param keyField
+     *            the key field of any key in the column
+     * @return the decision for every key in the column
+     */
+    protected ColumnDecision decideColumn(byte[] keyField) {
+        Long cutoffTimestamp = getCutoff(getPeriod(), keyField);
+        return cutoffTimestamp == null ? ColumnDecision.NOT_APPLIED : ColumnDecision.applied(cutoffTimestamp);
+    }
+    
+    /**
+     * @return the cutoff for the best token in the key field, or null if the key field has none of the configured tokens
+     */
+    private Long getCutoff(AgeOffPeriod period, byte[] keyField) {
+        Long calculatedTTL = scanTrie.scan(keyField);
+        if (calculatedTTL == null) {
+            return null;
+        }
         long cutoffTimestamp = period.getCutOffMilliseconds();
         if (calculatedTTL > 0) {
             cutoffTimestamp -= calculatedTTL - period.getTtl() * period.getTtlUnitsFactor();
         }
-        ruleApplied = true;
-        return k.getTimestamp() > cutoffTimestamp;
+        return cutoffTimestamp;
     }
     
     @Override
@@ -87,6 +87,34 @@ public abstract class AppliedRule implements FilterRule {
     
     public abstract boolean accept(AgeOffPeriod period, Key k, Value V);
     
+    /**
+     * Decides this rule for every key in the column of {@code k}, i.e. every key with the same column family and column visibility. Implementations must only
+     * look at the column family and column visibility of {@code k}. Rules that can decide a column up front are skipped by the {@link CompiledAgeOffRules}
+     * for the other keys in the column.
+     * <p>
+     * The default is {@link ColumnDecision#PER_KEY}, which evaluates this rule through {@link #accept(Key, Value)} for every key.
+     *
+     * @param k
+     *            any key in the column
+     * @return the decision for every key in the column
+     */
+    public ColumnDecision decideColumn(Key k) {
+        return ColumnDecision.PER_KEY;
+    }
+    
+    /**
+     * Whether {@link #decideColumn(Key)} makes the same decision for every shard table event column of a data type, i.e. only looks at the data type of a
+     * datatype\0uid column family. The {@link CompiledAgeOffRules} share one plan between the events of a data type, and evaluate the rules that return false
+     * per key for them.
+     * <p>
+     * The default is true. Rules whose column decision depends on the rest of the column family must override this.
+     *
+     * @return true if the column decision does not depend on the uid of an event column family
+     */
+    public boolean isDecidedByDataType() {
+        return true;
+    }
+    
     /*
      * (non-Javadoc)
      * 
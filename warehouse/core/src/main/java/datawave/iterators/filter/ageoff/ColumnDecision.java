@@ -0,0 +1,53 @@
+package datawave.iterators.filter.ageoff;
+
+/**
+ * The decision an {@link AppliedRule} makes for every key in a column, that is every key with the same column family and column visibility.
+ *
+ * @see AppliedRule#decideColumn(org.apache.accumulo.core.data.Key)
+ */
+public final class ColumnDecision {
+    
+    /**
+     * The rule does not apply to any key in the column
+     */
+    public static final ColumnDecision NOT_APPLIED = new ColumnDecision(false, false, 0L);
+    
+    /**
+     * The rule has to be evaluated for each key in the column
+     */
+    public static final ColumnDecision PER_KEY = new ColumnDecision(false, true, 0L);
+    
+    private final boolean applied;
+    private final boolean perKey;
+    private final long cutOffMillis;
+    
+    private ColumnDecision(boolean applied, boolean perKey, long cutOffMillis) {
+        this.applied = applied;
+        this.perKey = perKey;
+        this.cutOffMillis = cutOffMillis;
+    }
+    
+    /**
+     * The rule applies to every key in the column, keys with a timestamp at or before the cutoff are aged off
+     */
+    public static ColumnDecision applied(long cutOffMillis) {
+        return new ColumnDecision(true, false, cutOffMillis);
+    }
+    
+    public boolean isApplied() {
+        return applied;
+    }
+    
+    public boolean isPerKey() {
+        return perKey;
+    }
+    
+    public long getCutOffMilliseconds() {
+        return cutOffMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return applied ? "APPLIED[" + cutOffMillis + "]" : (perKey ? "PER_KEY" : "NOT_APPLIED");
+    }
+}
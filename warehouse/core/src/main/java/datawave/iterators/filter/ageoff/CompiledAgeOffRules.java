@@ -0,0 +1,185 @@
+package datawave.iterators.filter.ageoff;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.log4j.Logger;
+
+/**
+ * An ordered list of age off rules compiled per column. The age off decision for a key is made by the first rule that applies to it, or by the default cutoff
+ * if no rule applies. Most rules can decide every key of a column (column family and column visibility) up front, see
+ * {@link AppliedRule#decideColumn(Key)}, so the first time a column is seen the rules are reduced to a plan: the rules that still have to be evaluated per key,
+ * followed by the cutoff of the first rule that applies to the whole column. Every other key in the column only evaluates the plan.
+ * <p>
+ * The column family of a shard table event is datatype\0uid, which is different for every document. The events of a data type share one plan instead, keyed
+ * on the column family up to and including the null byte, and the rules that are not decided by the data type alone (see
+ * {@link AppliedRule#isDecidedByDataType()}) are evaluated per key for them. The field index column families, fi\0FIELD, are kept whole.
+ * <p>
+ * Keys arrive in sorted order during a compaction, so the plan of the previous key is checked first. Plans for other columns are kept in a bounded map, which
+ * catches visibilities that alternate within a row. Instances are not thread safe.
+ */
+public class CompiledAgeOffRules {
+    private static final Logger log = Logger.getLogger(CompiledAgeOffRules.class);
+    
+    public static final int DEFAULT_MAX_COLUMNS = 10000;
+    
+    private static final byte NULL = 0;
+    private static final byte[] FI_COLUMN_BYTES = {'f', 'i', NULL};
+    
+    private final Collection<AppliedRule> rules;
+    private final AppliedRule[] ruleArray;
+    private final long defaultCutOffMillis;
+    private final int maxColumns;
+    
+    private final Map<ByteBuffer,Plan> plans = new HashMap<>();
+    private Plan lastPlan = null;
+    
+    public CompiledAgeOffRules(Collection<AppliedRule> rules, long defaultCutOffMillis) {
+        this(rules, defaultCutOffMillis, DEFAULT_MAX_COLUMNS);
+    }
+    
+    public CompiledAgeOffRules(Collection<AppliedRule> rules, long defaultCutOffMillis, int maxColumns) {
+        this.rules = rules;
+        this.ruleArray = rules.toArray(new AppliedRule[rules.size()]);
+        this.defaultCutOffMillis = defaultCutOffMillis;
+        this.maxColumns = maxColumns;
+    }
+    
+    /**
+     * @return true if this was compiled from the given rules and default cutoff
+     */
+    public boolean isCompiledFrom(Collection<AppliedRule> rules, long defaultCutOffMillis) {
+        return this.rules == rules && this.defaultCutOffMillis == defaultCutOffMillis;
+    }
+    
+    /**
+     * @return true if the key should be kept, with the same result as evaluating each rule in order and falling back to the default cutoff
+     */
+    public boolean accept(Key k, Value v) {
+        if (ruleArray.length == 0) {
+            return k.getTimestamp() > defaultCutOffMillis;
+        }
+        Plan plan = getPlan(k);
+        for (AppliedRule rule : plan.perKeyRules) {
+            boolean accept = rule.accept(k, v);
+            if (rule.isFilterRuleApplied()) {
+                return accept;
+            }
+        }
+        return k.getTimestamp() > plan.cutOffMillis;
+    }
+    
+    /**
+     * @return the number of columns with a cached plan
+     */
+    public int getColumnCount() {
+        return plans.size();
+    }
+    
+    private Plan getPlan(Key k) {
+        ByteSequence cf = k.getColumnFamilyData();
+        ByteSequence cv = k.getColumnVisibilityData();
+        int cfLength = getPlannedLength(cf);
+        if (lastPlan != null && lastPlan.isColumn(cf, cfLength, cv)) {
+            return lastPlan;
+        }
+        
+        ByteBuffer column = toColumn(cf, cfLength, cv);
+        Plan plan = plans.get(column);
+        if (plan == null) {
+            if (plans.size() >= maxColumns) {
+                plans.clear();
+            }
+            plan = compile(k, cfLength < cf.length());
+            plans.put(column, plan);
+        }
+        lastPlan = plan;
+        return plan;
+    }
+    
+    /**
+     * @param dataTypeColumn
+     *            true if the plan is shared by the events of a data type, rather than being for the column of {@code k} only
+     */
+    private Plan compile(Key k, boolean dataTypeColumn) {
+        List<AppliedRule> perKeyRules = new ArrayList<>();
+        long cutOffMillis = defaultCutOffMillis;
+        for (AppliedRule rule : ruleArray) {
+            ColumnDecision decision = (dataTypeColumn && !rule.isDecidedByDataType()) ? ColumnDecision.PER_KEY : rule.decideColumn(k);
+            if (decision.isPerKey()) {
+                perKeyRules.add(rule);
+            } else if (decision.isApplied()) {
+                cutOffMillis = decision.getCutOffMilliseconds();
+                break;
+            }
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("Compiled " + ruleArray.length + " rules for " + k.getColumnFamily() + " " + k.getColumnVisibility() + " into " + perKeyRules.size()
+                            + " per key rules and a cutoff of " + cutOffMillis);
+        }
+        ByteSequence cf = k.getColumnFamilyData();
+        return new Plan(cf.subSequence(0, getPlannedLength(cf)), k.getColumnVisibilityData(), perKeyRules.toArray(new AppliedRule[perKeyRules.size()]),
+                        cutOffMillis);
+    }
+    
+    /**
+     * @return the length of the part of the column family that a plan is kept for: up to and including the first null byte, which leaves out the uid of a
+     *         datatype\0uid event column family, or the whole column family if it is a field index column family or has no null byte
+     */
+    private static int getPlannedLength(ByteSequence cf) {
+        byte[] bytes = cf.getBackingArray();
+        int offset = cf.offset();
+        int length = cf.length();
+        if (length >= FI_COLUMN_BYTES.length && bytes[offset] == FI_COLUMN_BYTES[0] && bytes[offset + 1] == FI_COLUMN_BYTES[1] && bytes[offset + 2] == NULL) {
+            return length;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] == NULL) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+    
+    /**
+     * @return the planned column family length, planned column family and column visibility, for use as a map key
+     */
+    private static ByteBuffer toColumn(ByteSequence cf, int cfLength, ByteSequence cv) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + cfLength + cv.length());
+        buffer.putInt(cfLength);
+        buffer.put(cf.getBackingArray(), cf.offset(), cfLength);
+        buffer.put(cv.getBackingArray(), cv.offset(), cv.length());
+        buffer.flip();
+        return buffer;
+    }
+    
+    /**
+     * The rules left to evaluate for the keys in one column, or in the event columns of one data type
+     */
+    private static class Plan {
+        private final byte[] cf;
+        private final byte[] cv;
+        private final AppliedRule[] perKeyRules;
+        private final long cutOffMillis;
+        
+        Plan(ByteSequence cf, ByteSequence cv, AppliedRule[] perKeyRules, long cutOffMillis) {
+            this.cf = cf.toArray();
+            this.cv = cv.toArray();
+            this.perKeyRules = perKeyRules;
+            this.cutOffMillis = cutOffMillis;
+        }
+        
+        boolean isColumn(ByteSequence otherCf, int otherCfLength, ByteSequence otherCv) {
+            return WritableComparator.compareBytes(cf, 0, cf.length, otherCf.getBackingArray(), otherCf.offset(), otherCfLength) == 0
+                            && WritableComparator.compareBytes(cv, 0, cv.length, otherCv.getBackingArray(), otherCv.offset(), otherCv.length()) == 0;
+        }
+    }
+}
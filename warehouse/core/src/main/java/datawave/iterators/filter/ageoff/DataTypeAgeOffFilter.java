@@ -136,15 +136,7 @@ public class DataTypeAgeOffFilter extends AppliedRule {
             // ASSUMES THAT THE KEY STARTS WITH A CORRECTLY SIZED BYTE ARRAY
             byte[] cf = k.getColumnFamilyData().getBackingArray();
             
-            byte[] column = null;
-            if (cf.length >= 3 && cf[0] == FI_COLUMN_BYTES[0] && cf[1] == FI_COLUMN_BYTES[1] && cf[2] == NULL) {
-                column = FI_COLUMN_BYTES;
-            } else if (cf.length == 2 && cf[0] == TF_COLUMN_BYTES[0]) {
-                // no need to check second character as we cannot have a datatype of 't' with an empty UID
-                column = TF_COLUMN_BYTES;
-            } else if (cf.length == 1 && cf[0] == DOCUMENT_COLUMN_BYTES[0]) {
-                column = DOCUMENT_COLUMN_BYTES;
-            }
+            byte[] column = getShardColumn(cf);
             
             // if a document or tf column family, then we parse the shard entry differently
             if (column == DOCUMENT_COLUMN_BYTES || column == TF_COLUMN_BYTES) {
@@ -181,35 +173,75 @@ public class DataTypeAgeOffFilter extends AppliedRule {
                     dataType = new ArrayByteSequence(cq, nullIndex, (uidIndex - nullIndex));
                 
             } else {
-                int cfLength = cf.length;
-                for (int i = 0; i < cfLength; i++) {
-                    if (cf[i] == NULL) {
-                        nullIndex = i;
-                        break;
-                    }
-                }
                 // data column
-                if (nullIndex > 0) {
-                    dataType = new ArrayByteSequence(cf, 0, nullIndex);
-                }
-                
+                dataType = getDataTypeFromColumnFamily(cf);
             }
         }
         
+        Long cutoff = getCutoff(period, dataType);
+        ruleApplied = cutoff != null;
+        return cutoff == null || k.getTimestamp() > cutoff;
+    }
+    
+    /**
+     * On the shard table the data type of every column other than the document, term frequency and field index columns is part of the column family, so
+     * those columns can be decided up front.
+     */
+    @Override
+    public ColumnDecision decideColumn(Key k) {
+        if (isIndextable) {
+            return ColumnDecision.PER_KEY;
+        }
+        byte[] cf = k.getColumnFamilyData().getBackingArray();
+        if (getShardColumn(cf) != null) {
+            return ColumnDecision.PER_KEY;
+        }
+        Long cutoff = getCutoff(getPeriod(), getDataTypeFromColumnFamily(cf));
+        return cutoff == null ? ColumnDecision.NOT_APPLIED : ColumnDecision.applied(cutoff);
+    }
+    
+    /**
+     * @return the cutoff for the data type, or null if this rule does not apply to it
+     */
+    private Long getCutoff(AgeOffPeriod period, ByteSequence dataType) {
         long defaultCutoffTime = (period.getTtl() >= 0) ? period.getCutOffMilliseconds() : -1;
         Long dataTypeCutoff = (dataTypeTimes.containsKey(dataType)) ? dataTypeTimes.get(dataType) : null;
-        boolean accept = true;
         
         if (dataTypeCutoff == null) {
             if (defaultCutoffTime >= 0) {
-                ruleApplied = true;
-                accept = k.getTimestamp() > defaultCutoffTime;
+                return defaultCutoffTime;
+            }
+            return null;
+        }
+        return dataTypeCutoff;
+    }
+    
+    /**
+     * @return the document, term frequency or field index column bytes if the column family is one of them, otherwise null
+     */
+    private static byte[] getShardColumn(byte[] cf) {
+        if (cf.length >= 3 && cf[0] == FI_COLUMN_BYTES[0] && cf[1] == FI_COLUMN_BYTES[1] && cf[2] == NULL) {
+            return FI_COLUMN_BYTES;
+        } else if (cf.length == 2 && cf[0] == TF_COLUMN_BYTES[0]) {
+            // no need to check second character as we cannot have a datatype of 't' with an empty UID
+            return TF_COLUMN_BYTES;
+        } else if (cf.length == 1 && cf[0] == DOCUMENT_COLUMN_BYTES[0]) {
+            return DOCUMENT_COLUMN_BYTES;
+        }
+        return null;
+    }
+    
+    /**
+     * @return the data type at the start of a data column family, or null if there is none
+     */
+    private static ByteSequence getDataTypeFromColumnFamily(byte[] cf) {
+        int cfLength = cf.length;
+        for (int i = 0; i < cfLength; i++) {
+            if (cf[i] == NULL) {
+                return i > 0 ? new ArrayByteSequence(cf, 0, i) : null;
             }
-        } else {
-            ruleApplied = true;
-            accept = k.getTimestamp() > dataTypeCutoff;
         }
-        return accept;
+        return null;
     }
     
     /**
@@ -215,6 +215,39 @@ public class FieldAgeOffFilter extends AppliedRule {
         return true;
     }
     
+    /**
+     * Decides the index table columns and the shard table field index columns up front, since their field is part of the column family. Every other column
+     * that can match a field has to be evaluated per key.
+     */
+    @Override
+    public ColumnDecision decideColumn(Key k) {
+        if (cvOrFilter.hasToken(k, null, this.cvOrFilter.getPatternBytes()) == false) {
+            return ColumnDecision.NOT_APPLIED;
+        }
+        
+        ByteSequence field;
+        if (isIndextable) {
+            field = k.getColumnFamilyData();
+        } else {
+            final byte[] cf = k.getColumnFamilyData().getBackingArray();
+            if (cf.length >= 3 && cf[0] == FI_COLUMN_BYTES[0] && cf[1] == FI_COLUMN_BYTES[1] && cf[2] == NULL) {
+                int start = FI_COLUMN_BYTES.length + 1;
+                field = new ArrayByteSequence(cf, start, cf.length - start);
+            } else if (cf.length == 2 && cf[0] == TF_COLUMN_BYTES[0]) {
+                return ColumnDecision.PER_KEY;
+            } else if (cf.length == 1 && cf[0] == DOCUMENT_COLUMN_BYTES[0]) {
+                return ColumnDecision.NOT_APPLIED;
+            } else if (fieldExcludeOptions.contains(FieldExclusionType.EVENT)) {
+                return ColumnDecision.NOT_APPLIED;
+            } else {
+                return ColumnDecision.PER_KEY;
+            }
+        }
+        
+        Long dataTypeCutoff = (fieldTimes.containsKey(field)) ? fieldTimes.get(field) : null;
+        return dataTypeCutoff == null ? ColumnDecision.NOT_APPLIED : ColumnDecision.applied(dataTypeCutoff);
+    }
+    
     /**
      * Required by the {@code FilterRule} interface. Used to initialize the the {@code FilterRule} implementation
      *
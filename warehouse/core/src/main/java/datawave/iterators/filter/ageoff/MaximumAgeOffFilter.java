@@ -101,6 +101,11 @@ public class MaximumAgeOffFilter extends AppliedRule {
         }
     }
     
+    @Override
+    public ColumnDecision decideColumn(Key k) {
+        return ColumnDecision.applied(getPeriod().getCutOffMilliseconds());
+    }
+    
     @Override
     public boolean isFilterRuleApplied() {
         return ruleApplied;
@@ -0,0 +1,65 @@
+package datawave.data.sketch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import datawave.iterators.FieldSketchCombiner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.junit.Test;
+
+public class FieldSketchTest {
+    
+    @Test
+    public void testEstimates() {
+        FieldSketch sketch = new FieldSketch();
+        for (int i = 0; i < 1000; i++) {
+            sketch.offer("value" + i);
+        }
+        for (int i = 0; i < 500; i++) {
+            sketch.offer("common");
+        }
+        
+        assertEquals(1500, sketch.getCount());
+        assertEquals(1001, sketch.getCardinality(), 20);
+        // count-min never under estimates and stays within 2 / WIDTH of the total count
+        assertTrue(sketch.estimateCount("common") >= 500);
+        assertTrue(sketch.estimateCount("common") <= 500 + 1500 * 2 / FieldSketch.WIDTH);
+        assertEquals(1.0 / 3.0, sketch.getSelectivity("common"), 0.02);
+        assertEquals(-1.0, new FieldSketch().getSelectivity("common"), 0.0);
+    }
+    
+    @Test
+    public void testMergeAndSerialize() throws IOException {
+        FieldSketch day1 = new FieldSketch();
+        FieldSketch day2 = new FieldSketch();
+        for (int i = 0; i < 100; i++) {
+            day1.offer("value" + i);
+            day2.offer("value" + (i + 50));
+        }
+        
+        FieldSketch merged = FieldSketch.fromBytes(day1.toBytes()).merge(FieldSketch.fromBytes(day2.toBytes()));
+        assertEquals(200, merged.getCount());
+        assertEquals(150, merged.getCardinality(), 3);
+        assertTrue(merged.estimateCount("value75") >= 2);
+    }
+    
+    @Test
+    public void testCombiner() throws IOException {
+        FieldSketch day1 = new FieldSketch();
+        FieldSketch day2 = new FieldSketch();
+        day1.offer("a");
+        day2.offer("b");
+        day2.offer("b");
+        
+        Value combined = new FieldSketchCombiner().reduce(new Key("FIELD", "sk", "datatype\u000020190101"),
+                        Arrays.asList(new Value(day1.toBytes()), new Value(day2.toBytes())).iterator());
+        FieldSketch sketch = FieldSketch.fromBytes(combined.get());
+        assertEquals(3, sketch.getCount());
+        assertEquals(2, sketch.getCardinality());
+        assertEquals(2, sketch.estimateCount("b"));
+    }
+}
@@ -0,0 +1,113 @@
+package datawave.edge.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.hadoop.io.Text;
+
+/**
+ * A micro benchmark comparing the String based edge key decoding with the {@link EdgeKeyView}. This is not run as part of the build; run the main method
+ * directly with the test classpath.
+ * <p>
+ * Synthetic keys are generated for every {@link EdgeKey.EDGE_VERSION} and each one is read three ways:
+ * <ul>
+ * <li>{@link EdgeKey#decode(Key)}, which builds a full EdgeKey</li>
+ * <li>{@link EdgeKeyUtil#dissasembleKey(Key, boolean)}, which is what the edge filter iterator previously did for every key</li>
+ * <li>{@link EdgeKeyView#reset(Key)} followed by a type comparison, which is what a rejecting filter now does</li>
+ * </ul>
+ *
+ * <pre>
+ *    usage: EdgeKeyViewBenchmark [numKeys] [iterations]
+ * </pre>
+ */
+public class EdgeKeyViewBenchmark {
+    
+    private static final byte[] MATCH_TYPE = "TYPE_0".getBytes(StandardCharsets.UTF_8);
+    
+    public static void main(String[] args) {
+        int numKeys = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        
+        Map<EdgeKey.EDGE_VERSION,List<Key>> keys = generate(numKeys);
+        EdgeKeyView view = new EdgeKeyView();
+        
+        // warm up every code path before measuring anything
+        for (List<Key> versionKeys : keys.values()) {
+            run(versionKeys, view, Math.max(1, iterations / 4));
+        }
+        
+        System.out.println(String.format("%-20s %15s %15s %15s", "version", "decode ns/key", "disassemble", "view ns/key"));
+        for (Map.Entry<EdgeKey.EDGE_VERSION,List<Key>> entry : keys.entrySet()) {
+            long[] nanos = run(entry.getValue(), view, iterations);
+            double total = (double) entry.getValue().size() * iterations;
+            System.out.println(String.format("%-20s %15.1f %15.1f %15.1f", entry.getKey(), nanos[0] / total, nanos[1] / total, nanos[2] / total));
+        }
+    }
+    
+    private static long[] run(List<Key> keys, EdgeKeyView view, int iterations) {
+        long[] nanos = new long[3];
+        long blackhole = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            for (Key key : keys) {
+                blackhole += EdgeKey.decode(key).getType().length();
+            }
+            nanos[0] += System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            for (Key key : keys) {
+                blackhole += EdgeKeyUtil.dissasembleKey(key, true).size();
+            }
+            nanos[1] += System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            for (Key key : keys) {
+                if (view.reset(key).typeEquals(MATCH_TYPE)) {
+                    blackhole++;
+                }
+            }
+            nanos[2] += System.nanoTime() - start;
+        }
+        if (blackhole == 42) {
+            System.out.println("unlikely");
+        }
+        return nanos;
+    }
+    
+    private static Map<EdgeKey.EDGE_VERSION,List<Key>> generate(int numKeys) {
+        Random random = new Random(814);
+        Map<EdgeKey.EDGE_VERSION,List<Key>> keys = new EnumMap<>(EdgeKey.EDGE_VERSION.class);
+        for (EdgeKey.EDGE_FORMAT format : new EdgeKey.EDGE_FORMAT[] {EdgeKey.EDGE_FORMAT.STANDARD, EdgeKey.EDGE_FORMAT.STATS}) {
+            for (int i = 0; i < numKeys; i++) {
+                EdgeKey.EdgeKeyBuilder builder = EdgeKey.newBuilder(format).setSourceData("source" + random.nextInt(numKeys))
+                                .setSinkData("sink" + random.nextInt(numKeys)).setType("TYPE_" + random.nextInt(10)).setSourceRelationship("FROM")
+                                .setSinkRelationship("TO").setSourceAttribute1("SOURCECATEGORY").setSinkAttribute1("SINKCATEGORY")
+                                .setAttribute2("ATTRIBUTE2").setAttribute3("ATTRIBUTE3").setYyyymmdd("201901" + (10 + random.nextInt(19)))
+                                .setStatsType(EdgeKey.STATS_TYPE.LINKS).setColvis(new Text("ALL")).setTimestamp(814L);
+                builder.setDateType(EdgeKey.DATE_TYPE.ACTIVITY_AND_EVENT);
+                EdgeKey edgeKey = builder.build();
+                
+                add(keys, edgeKey.encode());
+                add(keys, edgeKey.encodeLegacyProtobufKey());
+                add(keys, edgeKey.encodeLegacyAttribute2Key());
+                add(keys, edgeKey.encodeLegacyKey());
+            }
+        }
+        return keys;
+    }
+    
+    private static void add(Map<EdgeKey.EDGE_VERSION,List<Key>> keys, Key key) {
+        EdgeKey.EDGE_VERSION version = EdgeKey.EDGE_VERSION.getEdgeVersion(new EdgeKey.EdgeColumnParts(key));
+        List<Key> versionKeys = keys.get(version);
+        if (versionKeys == null) {
+            versionKeys = new ArrayList<>();
+            keys.put(version, versionKeys);
+        }
+        versionKeys.add(key);
+    }
+}
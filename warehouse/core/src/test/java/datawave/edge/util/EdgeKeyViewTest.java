@@ -0,0 +1,108 @@
+package datawave.edge.util;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.hadoop.io.Text;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EdgeKeyViewTest {
+    private EdgeTableTestKeyHelper testKeyHelper;
+    private EdgeKeyView view;
+    
+    @Before
+    public void before() {
+        testKeyHelper = new EdgeTableTestKeyHelper();
+        view = new EdgeKeyView();
+    }
+    
+    @Test
+    public void testVersions() {
+        assertEquals(EdgeKey.EDGE_VERSION.BASE, view.reset(testKeyHelper.refBase).getVersion());
+        assertEquals(EdgeKey.EDGE_VERSION.BASE_ATTRIBUTE2, view.reset(testKeyHelper.refBaseAttribute2).getVersion());
+        assertEquals(EdgeKey.EDGE_VERSION.PROTOBUF, view.reset(testKeyHelper.refProtobuf).getVersion());
+        assertEquals(EdgeKey.EDGE_VERSION.DATE_PROTOBUF, view.reset(testKeyHelper.refDateProtobuf).getVersion());
+        assertEquals(EdgeKey.EDGE_VERSION.STATS_BASE, view.reset(testKeyHelper.refStatsBase).getVersion());
+        assertEquals(EdgeKey.EDGE_VERSION.STATS_ATTRIBUTE2, view.reset(testKeyHelper.refStatsAttribute2).getVersion());
+        assertEquals(EdgeKey.EDGE_VERSION.STATS_PROTOBUF, view.reset(testKeyHelper.refStatsProtobuf).getVersion());
+        assertEquals(EdgeKey.EDGE_VERSION.DATE_STATS_PROTOBUF, view.reset(testKeyHelper.refStatsDateProtobuf).getVersion());
+        assertEquals(EdgeKey.EDGE_VERSION.UNKNOWN, view.reset(new Key("SOURCE\0SINK", "TYPE", "YYYYMMDD")).getVersion());
+    }
+    
+    @Test
+    public void testStandardFields() {
+        view.reset(testKeyHelper.refDateProtobuf);
+        assertEquals(EdgeKey.EDGE_FORMAT.STANDARD, view.getFormat());
+        assertTrue(view.hasSink());
+        assertEquals(EdgeTableTestKeyHelper.SOURCE_DATA, view.getSourceData());
+        assertEquals(EdgeTableTestKeyHelper.SINK_DATA, view.getSinkData());
+        assertTrue(view.sourceEquals(bytes(EdgeTableTestKeyHelper.SOURCE_DATA)));
+        assertTrue(view.sinkEquals(bytes(EdgeTableTestKeyHelper.SINK_DATA)));
+        assertFalse(view.sinkEquals(bytes(EdgeTableTestKeyHelper.SOURCE_DATA)));
+        
+        assertTrue(view.typeEquals(bytes(EdgeTableTestKeyHelper.TYPE)));
+        assertFalse(view.typeEquals(bytes("TYPE2")));
+        assertTrue(view.relationshipEquals(bytes(EdgeTableTestKeyHelper.SOURCEREL + "-" + EdgeTableTestKeyHelper.SINKREL)));
+        assertTrue(view.yyyymmddEquals(bytes(EdgeTableTestKeyHelper.DATE)));
+        assertEquals(EdgeTableTestKeyHelper.ATTR_2, view.getAttribute2());
+        assertEquals(EdgeTableTestKeyHelper.ATTR_3, view.getAttribute3());
+        assertTrue(view.dateTypeEquals(EdgeKey.DATE_TYPE.EVENT_ONLY));
+        assertFalse(view.dateTypeEquals(EdgeKey.DATE_TYPE.ACTIVITY_ONLY));
+        assertEquals(EdgeKey.DATE_TYPE.EVENT_ONLY, view.getDateType());
+        
+        view.reset(testKeyHelper.refProtobuf);
+        assertNull(view.getDateType());
+        assertFalse(view.dateTypeEquals(EdgeKey.DATE_TYPE.OLD_EVENT));
+    }
+    
+    @Test
+    public void testStatsFields() {
+        view.reset(testKeyHelper.refStatsDateProtobuf);
+        assertTrue(view.isStats());
+        assertFalse(view.hasSink());
+        assertNull(view.getSinkData());
+        assertEquals(EdgeTableTestKeyHelper.SOURCE_DATA, view.getSourceData());
+        assertEquals(EdgeKey.STATS_TYPE.DURATION, view.getStatsType());
+        assertTrue(view.typeEquals(bytes(EdgeTableTestKeyHelper.TYPE)));
+        assertTrue(view.relationshipEquals(bytes(EdgeTableTestKeyHelper.SOURCEREL)));
+        assertEquals(EdgeTableTestKeyHelper.SOURCE_ATTR_1, view.getAttribute1());
+    }
+    
+    @Test
+    public void testDecodeAllVersions() {
+        Key[] standard = {testKeyHelper.refBase, testKeyHelper.refBaseAttribute2, testKeyHelper.refProtobuf, testKeyHelper.refDateProtobuf};
+        for (Key key : standard) {
+            testKeyHelper.verifyEdgeKey(view.reset(key).decode(key, EdgeKey.newBuilder().unescape()), false);
+        }
+        Key[] stats = {testKeyHelper.refStatsBase, testKeyHelper.refStatsAttribute2, testKeyHelper.refStatsProtobuf, testKeyHelper.refStatsDateProtobuf};
+        for (Key key : stats) {
+            testKeyHelper.verifyEdgeKey(view.reset(key).decode(key, EdgeKey.newBuilder().unescape()), true);
+        }
+    }
+    
+    @Test
+    public void testEscapedRow() {
+        EdgeKey edgeKey = EdgeKey.newBuilder().escape().setSourceData("SOURCE\tDATA").setSinkData("SINK").setType("TYPE").setSourceRelationship("FROM")
+                        .setSinkRelationship("TO").setSourceAttribute1("CAT").setSinkAttribute1("CAT").setYyyymmdd("20190101")
+                        .setColvis(new Text("ALL")).build();
+        Key key = edgeKey.encode();
+        
+        view.reset(key);
+        assertTrue(view.hasEscapedRow());
+        assertEquals(EdgeKey.decodeForInternal(key).getSourceData(), view.getSourceData());
+        assertEquals("SOURCE\tDATA", view.decode(key, EdgeKey.newBuilder().unescape()).getSourceData());
+        assertEquals(EdgeKey.decode(key), view.decode(key, EdgeKey.newBuilder().unescape()));
+        
+        assertFalse(view.reset(testKeyHelper.refProtobuf).hasEscapedRow());
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
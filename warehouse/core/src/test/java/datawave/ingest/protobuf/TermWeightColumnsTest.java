@@ -0,0 +1,84 @@
+package datawave.ingest.protobuf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TermWeightColumnsTest {
+    
+    @Test
+    public void testMatchesInfo() throws InvalidProtocolBufferException {
+        TermWeight.Info info = TermWeight.Info.newBuilder().addTermOffset(3).addTermOffset(7).addTermOffset(12).addPrevSkips(0).addPrevSkips(2)
+                        .addPrevSkips(1).addScore(10).addScore(20).addScore(30).setZeroOffsetMatch(false).build();
+        assertSamePositions(info);
+    }
+    
+    @Test
+    public void testMismatchedColumns() throws InvalidProtocolBufferException {
+        // skips and scores that do not line up with the offsets are ignored
+        TermWeight.Info info = TermWeight.Info.newBuilder().addTermOffset(3).addTermOffset(7).addPrevSkips(1).addScore(10).build();
+        assertSamePositions(info);
+        
+        TermWeightColumns columns = TermWeightColumns.parseFrom(info.toByteArray());
+        Assert.assertEquals(TermWeightPosition.DEFAULT_PREV_SKIPS, columns.getPrevSkips(0));
+        Assert.assertEquals(TermWeightPosition.DEFAULT_SCORE, columns.getScore(1));
+        Assert.assertEquals(7, columns.getLowOffset(1));
+    }
+    
+    @Test
+    public void testEmpty() throws InvalidProtocolBufferException {
+        TermWeightColumns columns = TermWeightColumns.parseFrom(TermWeight.Info.newBuilder().build().toByteArray());
+        Assert.assertEquals(0, columns.size());
+        Assert.assertEquals(TermWeightPosition.DEFAULT_ZERO_OFFSET_MATCH, columns.getZeroOffsetMatch());
+    }
+    
+    @Test
+    public void testPackedAndUnknownFields() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        // a packed list of offsets
+        output.writeTag(3, 2);
+        output.writeRawVarint32(CodedOutputStream.computeUInt32SizeNoTag(5) + CodedOutputStream.computeUInt32SizeNoTag(300));
+        output.writeUInt32NoTag(5);
+        output.writeUInt32NoTag(300);
+        // a field that this version does not know
+        output.writeString(9, "unknown");
+        output.writeBool(6, false);
+        output.flush();
+        
+        TermWeightColumns columns = TermWeightColumns.parseFrom(bytes.toByteArray());
+        Assert.assertEquals(2, columns.size());
+        Assert.assertEquals(5, columns.getOffset(0));
+        Assert.assertEquals(300, columns.getOffset(1));
+        Assert.assertFalse(columns.getZeroOffsetMatch());
+    }
+    
+    @Test(expected = InvalidProtocolBufferException.class)
+    public void testTruncated() throws InvalidProtocolBufferException {
+        byte[] bytes = TermWeight.Info.newBuilder().addTermOffset(300).build().toByteArray();
+        byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        TermWeightColumns.parseFrom(truncated);
+    }
+    
+    private static void assertSamePositions(TermWeight.Info info) throws InvalidProtocolBufferException {
+        TermWeightColumns columns = TermWeightColumns.parseFrom(info.toByteArray());
+        Assert.assertEquals(info.getTermOffsetCount(), columns.size());
+        
+        TermWeightPosition.Builder expected = new TermWeightPosition.Builder();
+        TermWeightPosition.Builder actual = new TermWeightPosition.Builder();
+        for (int i = 0; i < info.getTermOffsetCount(); i++) {
+            TermWeightPosition position = expected.setTermWeightOffsetInfo(info, i).build();
+            expected.reset();
+            TermWeightPosition columnPosition = columns.getPosition(i, actual);
+            
+            Assert.assertEquals(position.toString(), columnPosition.toString());
+            Assert.assertEquals(position.getLowOffset(), columns.getLowOffset(i));
+            Assert.assertEquals(position.getScore(), columns.getScore(i));
+        }
+    }
+}
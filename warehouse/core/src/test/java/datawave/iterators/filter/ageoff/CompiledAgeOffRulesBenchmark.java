@@ -0,0 +1,97 @@
+package datawave.iterators.filter.ageoff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import datawave.iterators.filter.AgeOffConfigParams;
+import datawave.iterators.filter.ColumnFamilyRegexFilter;
+import datawave.iterators.filter.ColumnVisibilityOrFilter;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+
+/**
+ * A micro benchmark of the age off rule evaluation done for every key of a compaction, comparing the rules evaluated in order with the
+ * {@link CompiledAgeOffRules}. This is not run as part of the build; run the main method directly with the test classpath.
+ * <p>
+ * The rule list is the one from {@link CompiledAgeOffRulesTest} preceded by {@code numRules} data type, field, column family and visibility rules that never
+ * apply to the generated keys, which is the worst case for in order evaluation: every key has to reject every one of them.
+ *
+ * <pre>
+ *    usage: CompiledAgeOffRulesBenchmark [numKeys] [numRules] [iterations]
+ * </pre>
+ */
+public class CompiledAgeOffRulesBenchmark {
+    private static final long MILLIS_IN_DAY = 1000L * 60 * 60 * 24;
+    private static final Value VALUE = new Value();
+    
+    public static void main(String[] args) {
+        int numKeys = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        int numRules = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        
+        CompiledAgeOffRulesTest factory = new CompiledAgeOffRulesTest();
+        List<AppliedRule> rules = new ArrayList<>();
+        for (int i = 0; i < numRules; i++) {
+            switch (i % 4) {
+                case 0:
+                    rules.add(factory.rule(new DataTypeAgeOffFilter(), 10, "datatypes", "type" + i));
+                    break;
+                case 1:
+                    rules.add(factory.rule(new FieldAgeOffFilter(), 10, AgeOffConfigParams.MATCHPATTERN, "FOUO", "fields", "FIELD" + i));
+                    break;
+                case 2:
+                    rules.add(factory.rule(new ColumnFamilyRegexFilter(), 10, AgeOffConfigParams.MATCHPATTERN, "^type" + i + "\u0000"));
+                    break;
+                default:
+                    rules.add(factory.rule(new ColumnVisibilityOrFilter(), 10, AgeOffConfigParams.MATCHPATTERN, "TOKEN" + i));
+                    break;
+            }
+        }
+        rules.addAll(factory.shardRules(false));
+        long defaultCutoff = System.currentTimeMillis() - 30 * MILLIS_IN_DAY;
+        
+        // compactions see sorted keys
+        List<Key> keys = CompiledAgeOffRulesTest.ShardKeyGenerator.generate(new Random(814), numKeys, System.currentTimeMillis());
+        Collections.sort(keys);
+        
+        // warm up both code paths before measuring anything
+        run(keys, rules, defaultCutoff, Math.max(1, iterations / 4));
+        
+        long[] nanos = run(keys, rules, defaultCutoff, iterations);
+        double total = (double) keys.size() * iterations;
+        System.out.println(String.format("%d keys, %d rules", keys.size(), rules.size()));
+        System.out.println(String.format("%-12s %12s %15s", "", "ns/key", "keys/sec"));
+        System.out.println(String.format("%-12s %12.1f %15.0f", "in order", nanos[0] / total, total * 1e9 / nanos[0]));
+        System.out.println(String.format("%-12s %12.1f %15.0f", "compiled", nanos[1] / total, total * 1e9 / nanos[1]));
+    }
+    
+    private static long[] run(List<Key> keys, List<AppliedRule> rules, long defaultCutoff, int iterations) {
+        long[] nanos = new long[2];
+        long accepted = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            for (Key key : keys) {
+                if (CompiledAgeOffRulesTest.acceptInOrder(rules, defaultCutoff, key, VALUE)) {
+                    accepted++;
+                }
+            }
+            nanos[0] += System.nanoTime() - start;
+            
+            // a new instance per iteration, the way a new filter is initialized for each compaction
+            start = System.nanoTime();
+            CompiledAgeOffRules compiled = new CompiledAgeOffRules(rules, defaultCutoff);
+            for (Key key : keys) {
+                if (compiled.accept(key, VALUE)) {
+                    accepted--;
+                }
+            }
+            nanos[1] += System.nanoTime() - start;
+        }
+        if (accepted != 0) {
+            throw new IllegalStateException("The compiled rules did not match the rules evaluated in order");
+        }
+        return nanos;
+    }
+}
@@ -0,0 +1,225 @@
+package datawave.iterators.filter.ageoff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import datawave.iterators.filter.AgeOffConfigParams;
+import datawave.iterators.filter.AgeOffTtlUnits;
+import datawave.iterators.filter.ColumnFamilyRegexFilter;
+import datawave.iterators.filter.ColumnQualifierRegexFilter;
+import datawave.iterators.filter.ColumnVisibilityAndFilter;
+import datawave.iterators.filter.ColumnVisibilityOrFilter;
+import datawave.iterators.filter.ColumnVisibilityRegexFilter;
+import datawave.iterators.filter.ColumnVisibilityTokenizingFilter;
+import datawave.iterators.filter.RegexFilterBase;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompiledAgeOffRulesTest {
+    private static final long MILLIS_IN_DAY = 1000L * 60 * 60 * 24;
+    private static final Value VALUE = new Value();
+    
+    private static final String[] DATA_TYPES = {"csv", "json", "xml"};
+    private static final String[] FIELDS = {"NAME", "PHONE", "EMAIL", "ADDRESS"};
+    private static final String[] VISIBILITIES = {"", "A", "A&B", "PRIVATE|FOUO", "FOUO", "SECRET&A", "TOPSECRET", "(A|B)&PRIVATE", "B&FOUO"};
+    
+    private final long scanStart = System.currentTimeMillis();
+    
+    @Test
+    public void testShardTableMatchesRuleOrder() {
+        verify(shardRules(false), 50000, true);
+        verify(shardRules(false), 50000, false);
+    }
+    
+    @Test
+    public void testIndexTableMatchesRuleOrder() {
+        verify(shardRules(true), 50000, true);
+    }
+    
+    @Test
+    public void testFirstAppliedRuleWins() {
+        List<AppliedRule> rules = new ArrayList<>();
+        rules.add(rule(new ColumnVisibilityOrFilter(), 5, AgeOffConfigParams.MATCHPATTERN, "PRIVATE"));
+        rules.add(rule(new MaximumAgeOffFilter(), 10));
+        rules.add(rule(new ColumnVisibilityOrFilter(), 20, AgeOffConfigParams.MATCHPATTERN, "A"));
+        CompiledAgeOffRules compiled = new CompiledAgeOffRules(rules, scanStart - 30 * MILLIS_IN_DAY);
+        
+        Assert.assertFalse(compiled.accept(key("csv\0uid", "NAME\0value", "PRIVATE", daysAgo(6)), VALUE));
+        Assert.assertTrue(compiled.accept(key("csv\0uid", "NAME\0value", "A", daysAgo(9)), VALUE));
+        // the maximum age off rule applies to everything, so the 20 day rule is never reached
+        Assert.assertFalse(compiled.accept(key("csv\0uid", "NAME\0value", "A", daysAgo(11)), VALUE));
+    }
+    
+    @Test
+    public void testPerKeyRulesAreEvaluated() {
+        List<AppliedRule> rules = new ArrayList<>();
+        rules.add(rule(new RowRegexFilter(), 5, AgeOffConfigParams.MATCHPATTERN, "^old"));
+        rules.add(rule(new ColumnQualifierRegexFilter(), 10, AgeOffConfigParams.MATCHPATTERN, "PHONE"));
+        CompiledAgeOffRules compiled = new CompiledAgeOffRules(rules, scanStart - 30 * MILLIS_IN_DAY);
+        
+        Assert.assertFalse(compiled.accept(new Key("old", "csv\0uid", "NAME\0value", "", daysAgo(6)), VALUE));
+        Assert.assertTrue(compiled.accept(new Key("new", "csv\0uid", "NAME\0value", "", daysAgo(6)), VALUE));
+        Assert.assertFalse(compiled.accept(new Key("new", "csv\0uid", "PHONE\0value", "", daysAgo(11)), VALUE));
+        Assert.assertTrue(compiled.accept(new Key("new", "csv\0uid", "NAME\0value", "", daysAgo(11)), VALUE));
+        Assert.assertFalse(compiled.accept(new Key("new", "csv\0uid", "NAME\0value", "", daysAgo(31)), VALUE));
+        Assert.assertEquals(1, compiled.getColumnCount());
+    }
+    
+    @Test
+    public void testColumnCacheIsBounded() {
+        List<AppliedRule> rules = new ArrayList<>();
+        rules.add(rule(new ColumnFamilyRegexFilter(), 5, AgeOffConfigParams.MATCHPATTERN, "^json"));
+        CompiledAgeOffRules compiled = new CompiledAgeOffRules(rules, scanStart - 30 * MILLIS_IN_DAY, 10);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertFalse(compiled.accept(key("fi\0JSON" + i, "value\0csv\0uid", "", daysAgo(6)), VALUE));
+            Assert.assertTrue(compiled.accept(key("fi\0CSV" + i, "value\0csv\0uid", "", daysAgo(6)), VALUE));
+        }
+        Assert.assertTrue(compiled.getColumnCount() <= 10);
+    }
+    
+    @Test
+    public void testEventsShareAPlanPerDataType() {
+        List<AppliedRule> rules = new ArrayList<>();
+        rules.add(rule(new ColumnFamilyRegexFilter(), 5, AgeOffConfigParams.MATCHPATTERN, "uid7$"));
+        rules.add(rule(new DataTypeAgeOffFilter(), 20, "datatypes", "csv,json", "json.ttl", "3"));
+        CompiledAgeOffRules compiled = new CompiledAgeOffRules(rules, scanStart - 30 * MILLIS_IN_DAY);
+        for (int i = 0; i < 100; i++) {
+            // the column family rule still sees the uid of each event
+            Assert.assertEquals(i % 10 != 7, compiled.accept(key("csv\0uid" + i, "NAME\0value", "A", daysAgo(6)), VALUE));
+            Assert.assertEquals(i % 10 != 7, compiled.accept(key("csv\0uid" + i, "NAME\0value", "B", daysAgo(19)), VALUE));
+            Assert.assertFalse(compiled.accept(key("json\0uid" + i, "NAME\0value", "A", daysAgo(4)), VALUE));
+        }
+        // one plan per data type and visibility, rather than one per document
+        Assert.assertEquals(3, compiled.getColumnCount());
+    }
+    
+    private void verify(List<AppliedRule> rules, int numKeys, boolean sorted) {
+        long defaultCutoff = scanStart - 30 * MILLIS_IN_DAY;
+        CompiledAgeOffRules compiled = new CompiledAgeOffRules(rules, defaultCutoff);
+        
+        List<Key> keys = ShardKeyGenerator.generate(new Random(814), numKeys, scanStart);
+        if (sorted) {
+            Collections.sort(keys);
+        }
+        int agedOff = 0;
+        for (Key key : keys) {
+            boolean expected = acceptInOrder(rules, defaultCutoff, key, VALUE);
+            Assert.assertEquals("Mismatch for " + key, expected, compiled.accept(key, VALUE));
+            if (!expected) {
+                agedOff++;
+            }
+        }
+        // make sure the generated keys exercise both outcomes
+        Assert.assertTrue(agedOff > 0 && agedOff < keys.size());
+    }
+    
+    /**
+     * The rule evaluation of the ConfigurableAgeOffFilter before rules were compiled
+     */
+    static boolean acceptInOrder(List<AppliedRule> rules, long defaultCutoff, Key k, Value v) {
+        for (AppliedRule rule : rules) {
+            boolean accept = rule.accept(k, v);
+            if (rule.isFilterRuleApplied()) {
+                return accept;
+            }
+        }
+        return k.getTimestamp() > defaultCutoff;
+    }
+    
+    List<AppliedRule> shardRules(boolean indexTable) {
+        String isIndexTable = Boolean.toString(indexTable);
+        List<AppliedRule> rules = new ArrayList<>();
+        rules.add(rule(new ColumnVisibilityOrFilter(), 5, AgeOffConfigParams.MATCHPATTERN, "PRIVATE"));
+        rules.add(rule(new FieldAgeOffFilter(), 10, AgeOffConfigParams.MATCHPATTERN, "FOUO", "fields", "NAME,PHONE", "field.PHONE.ttl", "2",
+                        AgeOffConfigParams.IS_INDEX_TABLE, isIndexTable));
+        rules.add(rule(new FieldAgeOffFilter(), 12, AgeOffConfigParams.MATCHPATTERN, "B", "fields", "EMAIL", AgeOffConfigParams.EXCLUDE_DATA, "event",
+                        AgeOffConfigParams.IS_INDEX_TABLE, isIndexTable));
+        rules.add(rule(new ColumnFamilyRegexFilter(), 4, AgeOffConfigParams.MATCHPATTERN, "^fi\u0000EMAIL"));
+        rules.add(rule(new ColumnQualifierRegexFilter(), 6, AgeOffConfigParams.MATCHPATTERN, "ADDRESS"));
+        rules.add(rule(new ColumnVisibilityTokenizingFilter(), 8, AgeOffConfigParams.MATCHPATTERN, "\"SECRET\": 7d, \"TOPSECRET\""));
+        rules.add(rule(new RowRegexFilter(), 3, AgeOffConfigParams.MATCHPATTERN, "_3$"));
+        rules.add(rule(new ColumnVisibilityAndFilter(), 9, AgeOffConfigParams.MATCHPATTERN, "A,B"));
+        rules.add(rule(new ColumnVisibilityRegexFilter(), 11, AgeOffConfigParams.MATCHPATTERN, "^A$"));
+        rules.add(rule(new DataTypeAgeOffFilter(), 20, "datatypes", "csv,json", "json.ttl", "3", AgeOffConfigParams.IS_INDEX_TABLE, isIndexTable));
+        rules.add(rule(new MaximumAgeOffFilter(), 1));
+        return rules;
+    }
+    
+    AppliedRule rule(AppliedRule rule, long ttlDays, String... options) {
+        FilterOptions filterOptions = new FilterOptions();
+        filterOptions.setTTL(ttlDays);
+        filterOptions.setTTLUnits(AgeOffTtlUnits.DAYS);
+        for (int i = 0; i < options.length; i += 2) {
+            filterOptions.setOption(options[i], options[i + 1]);
+        }
+        rule.init(filterOptions);
+        return (AppliedRule) rule.deepCopy(scanStart);
+    }
+    
+    private Key key(String cf, String cq, String cv, long timestamp) {
+        return new Key("20190101_0", cf, cq, cv, timestamp);
+    }
+    
+    private long daysAgo(int days) {
+        return scanStart - days * MILLIS_IN_DAY;
+    }
+    
+    /**
+     * A custom rule on the row, which can only be evaluated per key
+     */
+    public static class RowRegexFilter extends RegexFilterBase {
+        @Override
+        protected String getKeyField(Key k, Value v) {
+            return k.getRow().toString();
+        }
+    }
+    
+    /**
+     * Generates shard and shard index table keys: events, document, term frequency and field index keys.
+     */
+    static class ShardKeyGenerator {
+        static List<Key> generate(Random random, int numKeys, long scanStart) {
+            List<Key> keys = new ArrayList<>(numKeys);
+            for (int i = 0; i < numKeys; i++) {
+                String row = "20190101_" + random.nextInt(5);
+                String dataType = DATA_TYPES[random.nextInt(DATA_TYPES.length)];
+                String uid = "uid" + random.nextInt(200);
+                String field = FIELDS[random.nextInt(FIELDS.length)];
+                String visibility = VISIBILITIES[random.nextInt(VISIBILITIES.length)];
+                long timestamp = scanStart - (long) (random.nextDouble() * 40 * MILLIS_IN_DAY);
+                
+                String cf;
+                String cq;
+                switch (random.nextInt(6)) {
+                    case 0:
+                        cf = "d";
+                        cq = dataType + '\0' + uid + "\0view";
+                        break;
+                    case 1:
+                        cf = "tf";
+                        cq = dataType + '\0' + uid + "\0value\0" + field;
+                        break;
+                    case 2:
+                        cf = "fi\0" + field;
+                        cq = "value\0" + dataType + '\0' + uid;
+                        break;
+                    case 3:
+                        // shard index
+                        cf = field;
+                        cq = row + '\0' + dataType;
+                        break;
+                    default:
+                        cf = dataType + '\0' + uid;
+                        cq = field + (random.nextBoolean() ? ".1" : "") + "\0value";
+                        break;
+                }
+                keys.add(new Key(row, cf, cq, visibility, timestamp));
+            }
+            return keys;
+        }
+    }
+}
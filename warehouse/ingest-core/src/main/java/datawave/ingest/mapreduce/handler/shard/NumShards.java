@@ -6,6 +6,8 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
@@ -37,6 +39,7 @@ public class NumShards {
     
     private static final String DEFAULT_NUM_SHARDS_CACHE_DIR = "/data/numShardsCache/";
     private static final String DEFAULT_NUM_SHARDS_CACHE_FILENAME = "numshards.txt";
+    private static final String DEFAULT_DATATYPE_NUM_SHARDS_CACHE_FILENAME = "numshards.datatype.txt";
     private static final long DEFAULT_CACHE_TIMEOUT = 1000L * 60L * 60L * 12L;
     
     private final Configuration conf;
@@ -54,22 +57,33 @@ public class NumShards {
     public static final String MULTIPLE_NUMSHARDS_CACHE_FILENAME = "multiple.numshards.cache.filename";
     public static final String MULTIPLE_NUMSHARDS_CACHE_TIMEOUT = "multiple.numshards.cache.timeout";
     
+    // skew-aware sharding spreads the events of a datatype over fewer or more shards of a day than the day has, see ShardIdFactory
+    public static final String ENABLE_DATATYPE_NUMSHARDS = "datatype.numshards.enable";
+    public static final String PREFETCHED_DATATYPE_NUMSHARDS_CONFIGURATION = "prefetched.datatype.numshards.configuration";
+    public static final String DATATYPE_NUMSHARDS_CACHE_FILENAME = "datatype.numshards.cache.filename";
+    
     // populating two caches in order to support lookup by milli/dateString without doing conversion
     private TreeMap<Long,Integer> milliToNumShardsCache = new TreeMap<>();
     private TreeMap<String,Integer> yyyyMMddToNumShardsCache = new TreeMap<>();
     
+    // the number of shards per datatype, for the days they were computed for
+    private Map<String,Map<String,Integer>> yyyyMMddToDatatypeNumShardsCache = new HashMap<>();
+    private boolean datatypesInitialized = false;
+    
     // seems like a good thing to calculate
     private int maxNumShards = 0;
     private int minNumShards = 0;
     private int shardCount = 0;
     
     private Path numShardsCachePath = null;
+    private Path datatypeNumShardsCachePath = null;
     private int defaultNumShards = 0;
     
     private static final int MAX_NUMBER_OF_RETRIES_CACHEFILE = 10;
     
     public static final Text NUM_SHARDS = new Text("num_shards");
     public static final Text NUM_SHARDS_CF = new Text("ns");
+    public static final Text DATATYPE_NUM_SHARDS_CF = new Text("nsdt");
     
     private AccumuloHelper aHelper = null;
     
@@ -87,6 +101,8 @@ public class NumShards {
         this.conf = conf;
         this.numShardsCachePath = new Path(conf.get(MULTIPLE_NUMSHARDS_CACHE_PATH, DEFAULT_NUM_SHARDS_CACHE_DIR), conf.get(MULTIPLE_NUMSHARDS_CACHE_FILENAME,
                         DEFAULT_NUM_SHARDS_CACHE_FILENAME));
+        this.datatypeNumShardsCachePath = new Path(this.numShardsCachePath.getParent(), conf.get(DATATYPE_NUMSHARDS_CACHE_FILENAME,
+                        DEFAULT_DATATYPE_NUM_SHARDS_CACHE_FILENAME));
     }
     
     /**
@@ -142,6 +158,108 @@ public class NumShards {
         return yyyyMMddToNumShardsCache.floorEntry(date).getValue();
     }
     
+    /**
+     * Returns the number of shards of a day that the events of a datatype are spread over. This is the number of shards of the day, unless skew-aware
+     * sharding is enabled and a number was computed for the datatype on that day: fewer shards for a small datatype, or more shards than the day has for a
+     * heavy one. The shards above the day's count are only used by such datatypes, see {@link #getNumShardsWithDatatypes(String)}.
+     *
+     * @param date
+     *            the date in epoch millis
+     * @param datatype
+     *            the datatype
+     * @return the number of shards for the datatype
+     */
+    public int getNumShards(long date, String datatype) {
+        return getNumShards(DateHelper.format(date), datatype);
+    }
+    
+    /**
+     * @param date
+     *            the date string 'yyyyMMdd'
+     * @param datatype
+     *            the datatype
+     * @return the number of shards for the datatype
+     * @see #getNumShards(long, String)
+     */
+    public int getNumShards(String date, String datatype) {
+        if (!datatypesInitialized) {
+            configureDatatypes();
+        }
+        Map<String,Integer> datatypeNumShards = yyyyMMddToDatatypeNumShardsCache.get(date);
+        if (datatypeNumShards != null && datatype != null) {
+            Integer numShardsForDatatype = datatypeNumShards.get(datatype);
+            if (numShardsForDatatype != null) {
+                return numShardsForDatatype;
+            }
+        }
+        return getNumShards(date);
+    }
+    
+    /**
+     * Returns the number of shards that exist on a day, which is what the splits of the day have to cover. This is the number of shards of the day, unless a
+     * heavy datatype was given more shards than that on the day.
+     *
+     * @param date
+     *            the date string 'yyyyMMdd'
+     * @return the number of shards of the day including those of the datatypes
+     */
+    public int getNumShardsWithDatatypes(String date) {
+        int numShards = getNumShards(date);
+        if (!datatypesInitialized) {
+            configureDatatypes();
+        }
+        Map<String,Integer> datatypeNumShards = yyyyMMddToDatatypeNumShardsCache.get(date);
+        if (datatypeNumShards != null) {
+            for (int numShardsForDatatype : datatypeNumShards.values()) {
+                numShards = Math.max(numShards, numShardsForDatatype);
+            }
+        }
+        return numShards;
+    }
+    
+    private void configureDatatypes() {
+        if (conf.getBoolean(ENABLE_DATATYPE_NUMSHARDS, false)) {
+            String datatypeNumShardsConfig = conf.get(PREFETCHED_DATATYPE_NUMSHARDS_CONFIGURATION);
+            if (datatypeNumShardsConfig == null) {
+                datatypeNumShardsConfig = readDatatypeNumShardsConfig();
+            }
+            configureDatatypeNumShards(datatypeNumShardsConfig);
+        }
+        datatypesInitialized = true;
+    }
+    
+    /**
+     * this method will take configuration (comma-separated yyyyMMdd_numShards_datatype) i.e.) 20170101_3_csv,20170101_7_wikipedia
+     *
+     * @param datatypeNumShardsConfiguration
+     */
+    private void configureDatatypeNumShards(String datatypeNumShardsConfiguration) {
+        if (datatypeNumShardsConfiguration.isEmpty()) {
+            return;
+        }
+        
+        try {
+            for (String datatypeNumShardsConfigEntry : datatypeNumShardsConfiguration.split(",")) {
+                // the datatype is last as it may contain an underscore
+                String[] numShardsStringsSplit = datatypeNumShardsConfigEntry.split("_", 3);
+                if (numShardsStringsSplit.length != 3 || numShardsStringsSplit[0].length() != 8) {
+                    throw new IllegalArgumentException("Unable to configure datatype numshards cache with the specified config: ["
+                                    + datatypeNumShardsConfiguration + "]");
+                }
+                int numShardsForDatatype = Integer.parseInt(numShardsStringsSplit[1]);
+                if (numShardsForDatatype < 1) {
+                    throw new IllegalArgumentException("Unable to configure datatype numshards cache with the specified config: ["
+                                    + datatypeNumShardsConfiguration + "]");
+                }
+                yyyyMMddToDatatypeNumShardsCache.computeIfAbsent(numShardsStringsSplit[0], d -> new HashMap<>()).put(numShardsStringsSplit[2],
+                                numShardsForDatatype);
+            }
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Unable to configure datatype numshards cache with the specified config: [" + datatypeNumShardsConfiguration
+                            + "]", nfe);
+        }
+    }
+    
     private void configure() {
         // no need to go thru this, unless the system is enabled for multiple numshards
         if (conf.getBoolean(ENABLE_MULTIPLE_NUMSHARDS, false)) {
@@ -177,10 +295,34 @@ public class NumShards {
         }
     }
     
+    /**
+     * this will read the datatype numshards cache from the filesystem and return a formatted string. comma-separated date and datatype based shards. i.e.)
+     * 20170101_3_csv,20170101_7_wikipedia
+     *
+     * @return
+     */
+    public String readDatatypeNumShardsConfig() {
+        if (isCacheValid(this.datatypeNumShardsCachePath)) {
+            log.info(String.format("Loading the datatype numshards cache (@ '%s')...", this.datatypeNumShardsCachePath.toUri().toString()));
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(this.datatypeNumShardsCachePath.getFileSystem(this.conf).open(
+                            this.datatypeNumShardsCachePath)))) {
+                return in.lines().collect(Collectors.joining(","));
+            } catch (IOException ioe) {
+                throw new RuntimeException("Could not read datatype numshards cache file. See documentation for using generateMultipleNumShardsCache.sh");
+            }
+        } else {
+            throw new RuntimeException("Datatype numshards cache is invalid. See documentation for using generateMultipleNumShardsCache.sh");
+        }
+    }
+    
     public boolean isCacheValid() {
+        return isCacheValid(this.numShardsCachePath);
+    }
+    
+    private boolean isCacheValid(Path cachePath) {
         FileStatus fileStatus = null;
         try {
-            fileStatus = this.numShardsCachePath.getFileSystem(this.conf).getFileStatus(this.numShardsCachePath);
+            fileStatus = cachePath.getFileSystem(this.conf).getFileStatus(cachePath);
         } catch (IOException ioe) {
             log.warn("Clould not get the FileStatus of the multiple numShards file");
         }
@@ -206,6 +348,10 @@ public class NumShards {
         return initialized;
     }
     
+    public boolean isDatatypeNumShardsEnabled() {
+        return conf.getBoolean(ENABLE_DATATYPE_NUMSHARDS, false);
+    }
+    
     public void updateCache() throws AccumuloException, AccumuloSecurityException, TableNotFoundException, IOException {
         FileSystem fs = this.numShardsCachePath.getFileSystem(this.conf);
         String metadataTableName = ConfigurationHelper.isNull(this.conf, ShardedDataTypeHandler.METADATA_TABLE_NAME, String.class);
@@ -221,28 +367,43 @@ public class NumShards {
         ensureTableExists(conn, metadataTableName);
         
         ArrayList<String> nsEntries = new ArrayList<>();
+        ArrayList<String> datatypeEntries = new ArrayList<>();
         try (Scanner scanner = conn.createScanner(metadataTableName, new Authorizations())) {
-            scanner.setRange(Range.exact(NUM_SHARDS, NUM_SHARDS_CF));
+            scanner.setRange(new Range(NUM_SHARDS));
             
             for (Map.Entry<Key,Value> entry : scanner) {
-                nsEntries.add(entry.getKey().getColumnQualifier().toString());
+                Text cf = entry.getKey().getColumnFamily();
+                if (cf.equals(NUM_SHARDS_CF)) {
+                    nsEntries.add(entry.getKey().getColumnQualifier().toString());
+                } else if (cf.equals(DATATYPE_NUM_SHARDS_CF)) {
+                    datatypeEntries.add(entry.getKey().getColumnQualifier().toString());
+                }
             }
         }
         
+        writeCacheFile(fs, this.numShardsCachePath, nsEntries);
+        
+        // the datatype entries go to a file of their own, so the numshards cache keeps a format that earlier releases can read
+        if (isDatatypeNumShardsEnabled() || !datatypeEntries.isEmpty()) {
+            writeCacheFile(fs, this.datatypeNumShardsCachePath, datatypeEntries);
+        }
+    }
+    
+    private void writeCacheFile(FileSystem fs, Path cachePath, List<String> entries) throws IOException {
         // create a new temporary file
         int count = 1;
-        Path tmpShardCacheFile = new Path(this.numShardsCachePath.getParent(), numShardsCachePath.getName() + "." + count);
+        Path tmpShardCacheFile = new Path(cachePath.getParent(), cachePath.getName() + "." + count);
         
         while (!fs.createNewFile(tmpShardCacheFile) && count < MAX_NUMBER_OF_RETRIES_CACHEFILE) {
             count++;
-            tmpShardCacheFile = new Path(this.numShardsCachePath.getParent(), numShardsCachePath.getName() + "." + count);
+            tmpShardCacheFile = new Path(cachePath.getParent(), cachePath.getName() + "." + count);
         }
         
         // now attempt to write them out
         try (PrintStream out = new PrintStream(new BufferedOutputStream(fs.create(tmpShardCacheFile)))) {
             
-            for (String nsEntry : nsEntries) {
-                out.println(nsEntry);
+            for (String entry : entries) {
+                out.println(entry);
             }
             out.close();
             
@@ -252,16 +413,16 @@ public class NumShards {
             while (!isCacheLoaded && numOfTries++ < MAX_NUMBER_OF_RETRIES_CACHEFILE) {
                 // now move the temporary file to the file cache
                 try {
-                    fs.delete(this.numShardsCachePath, false);
+                    fs.delete(cachePath, false);
                     // Note this rename will fail if the file already exists (i.e. the delete failed or somebody just replaced it)
                     // but this is OK...
-                    if (!fs.rename(tmpShardCacheFile, this.numShardsCachePath)) {
+                    if (!fs.rename(tmpShardCacheFile, cachePath)) {
                         throw new IOException("Failed to rename temporary multiple numshards cache file");
                     }
                     
                     isCacheLoaded = true;
                 } catch (Exception e) {
-                    log.warn("Unable to rename " + tmpShardCacheFile + " to " + this.numShardsCachePath + " probably because somebody else replaced it", e);
+                    log.warn("Unable to rename " + tmpShardCacheFile + " to " + cachePath + " probably because somebody else replaced it", e);
                     try {
                         fs.delete(tmpShardCacheFile, false);
                     } catch (Exception e2) {
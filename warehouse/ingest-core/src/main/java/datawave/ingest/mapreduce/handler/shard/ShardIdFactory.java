@@ -48,6 +48,29 @@ public class ShardIdFactory {
         return numShards.getNumShards(date);
     }
     
+    /**
+     * this method will return the number of shards a datatype is spread over for a date string 'yyyyMMdd', which is the numShards of the date unless
+     * skew-aware sharding computed fewer or more for the datatype
+     *
+     * @param date
+     * @param datatype
+     * @return
+     */
+    public int getNumShards(String date, String datatype) {
+        return numShards.getNumShards(date, datatype);
+    }
+    
+    /**
+     * this method will return the number of shards that exist for a date string 'yyyyMMdd', which is the numShards of the date unless skew-aware sharding
+     * gave a datatype more shards than that
+     *
+     * @param date
+     * @return
+     */
+    public int getNumShardsWithDatatypes(String date) {
+        return numShards.getNumShardsWithDatatypes(date);
+    }
+    
     /**
      * Calculates the shard id of the event
      * 
@@ -56,13 +79,43 @@ public class ShardIdFactory {
      */
     public String getShardId(RawRecordContainer record) {
         StringBuilder buf = new StringBuilder();
-        buf.append(DateHelper.format(record.getDate()));
+        String date = DateHelper.format(record.getDate());
+        buf.append(date);
         buf.append("_");
-        int partition = (Integer.MAX_VALUE & record.getId().getShardedPortion().hashCode()) % getNumShards(record.getDate());
+        int hash = Integer.MAX_VALUE & record.getId().getShardedPortion().hashCode();
+        int dayShards = getNumShards(record.getDate());
+        int partition = hash % dayShards;
+        if (record.getDataType() != null && numShards.isDatatypeNumShardsEnabled()) {
+            partition = getPartition(hash, dayShards, record.getDataType().outputName(), numShards.getNumShards(date, record.getDataType().outputName()));
+        }
         buf.append(partition);
         return buf.toString();
     }
     
+    /**
+     * Calculates the shard of a day for an event of a datatype that is spread over a different number of shards than the day has. The shards of a small
+     * datatype are a run of consecutive shards that starts at an offset derived from the datatype, so that the datatypes that use few shards do not all use the
+     * same ones. A heavy datatype is spread over all of the shards of the day plus the shards above them, which exist only for the datatypes that need them,
+     * so that its events are not concentrated on the day's tablets.
+     *
+     * @param hash
+     *            the non-negative hash of the sharded portion of the event uid
+     * @param dayShards
+     *            the number of shards of the day
+     * @param datatype
+     *            the datatype of the event
+     * @param datatypeShards
+     *            the number of shards of the day for the datatype
+     * @return the shard, between 0 and the larger of dayShards and datatypeShards, minus one
+     */
+    static int getPartition(int hash, int dayShards, String datatype, int datatypeShards) {
+        if (datatypeShards >= dayShards) {
+            return hash % datatypeShards;
+        }
+        int offset = (Integer.MAX_VALUE & datatype.hashCode()) % dayShards;
+        return (offset + (hash % datatypeShards)) % dayShards;
+    }
+    
     /**
      * Get the date portion of the shard id
      * 
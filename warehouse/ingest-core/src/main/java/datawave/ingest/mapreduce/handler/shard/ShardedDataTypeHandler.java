@@ -38,6 +38,7 @@ import datawave.ingest.mapreduce.MemberShipTest;
 import datawave.ingest.mapreduce.handler.DataTypeHandler;
 import datawave.ingest.mapreduce.job.BulkIngestKey;
 import datawave.ingest.mapreduce.job.statsd.StatsDEnabledDataTypeHandler;
+import datawave.ingest.metadata.EventMetadata;
 import datawave.ingest.metadata.RawRecordMetadata;
 import datawave.ingest.protobuf.Uid;
 import datawave.ingest.protobuf.Uid.List.Builder;
@@ -167,6 +168,11 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
      */
     public static final String METADATA_TERM_FREQUENCY = "metadata.term.frequency.enabled";
     
+    /**
+     * Enable/Disable the sketches of field values by datatype and day in the metadata
+     */
+    public static final String METADATA_SKETCHES = "metadata.sketches.enabled";
+    
     /**
      * Suppress event key generation making this into a psuedo re-indexing job No type prefix here as it is meant to be job level not datatype level.
      */
@@ -256,6 +262,9 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
         if (getMetadataTableName() != null) {
             setMetadata(ingestConfig.createMetadata(getShardTableName(), getMetadataTableName(), getLoadDatesTableName(), getShardIndexTableName(),
                             getShardReverseIndexTableName(), conf.getBoolean(METADATA_TERM_FREQUENCY, true)));
+            if (getMetadata() instanceof EventMetadata) {
+                ((EventMetadata) getMetadata()).setSketch(conf.getBoolean(METADATA_SKETCHES, false));
+            }
         }
         
         tableName = conf.get(SHARD_DINDX_NAME, null);
@@ -0,0 +1,238 @@
+package datawave.ingest.mapreduce.handler.shard;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.user.SummingCombiner;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import datawave.data.ColumnFamilyConstants;
+
+/**
+ * Computes the number of shards per day and per datatype for skew-aware sharding. The size of a datatype is taken as the number of field values ingested for
+ * it per day, which ingest keeps in the frequency columns of the metadata table (row: field name, column family: f, column qualifier: datatype\0yyyyMMdd).
+ * <p>
+ * A datatype gets enough shards to hold its size on its busiest day at the target size per shard. A small datatype is written to a few shards of a day instead
+ * of a small file in every one of them. A hot or bursty datatype that needs more shards than the day has is spread over extra shards above the day's count, so
+ * that it does not overload the day's tablets. The extra shards need splits of their own, see {@link #getSplits(String, int, Map)}. The counts are recorded in
+ * the num_shards row of the metadata table, from which {@link NumShards#updateCache()} builds the cache that ingest reads.
+ */
+public class SkewAwareShardCounts {
+    private static final Logger log = Logger.getLogger(SkewAwareShardCounts.class);
+    
+    private final long targetValuesPerShard;
+    private final Map<String,Long> valuesByDatatype = new TreeMap<>();
+    private final Map<String,Map<String,Long>> valuesByDatatypeAndDay = new TreeMap<>();
+    private final Set<String> days = new TreeSet<>();
+    
+    /**
+     * @param targetValuesPerShard
+     *            the number of field values per day that a shard should hold
+     */
+    public SkewAwareShardCounts(long targetValuesPerShard) {
+        if (targetValuesPerShard < 1) {
+            throw new IllegalArgumentException("The target number of values per shard must be positive: " + targetValuesPerShard);
+        }
+        this.targetValuesPerShard = targetValuesPerShard;
+    }
+    
+    /**
+     * Adds the number of field values of a datatype on a day
+     */
+    public void add(String datatype, String day, long count) {
+        valuesByDatatype.merge(datatype, count, Long::sum);
+        valuesByDatatypeAndDay.computeIfAbsent(datatype, d -> new TreeMap<>()).merge(day, count, Long::sum);
+        days.add(day);
+    }
+    
+    /**
+     * Reads the frequency counts of the days from beginDay to endDay, inclusive, from the metadata table
+     *
+     * @param connector
+     *            a connector
+     * @param metadataTableName
+     *            the metadata table
+     * @param beginDay
+     *            the first day, 'yyyyMMdd'
+     * @param endDay
+     *            the last day, 'yyyyMMdd'
+     * @throws TableNotFoundException
+     *             if the metadata table does not exist
+     */
+    public void read(Connector connector, String metadataTableName, String beginDay, String endDay) throws TableNotFoundException {
+        long entries = 0;
+        try (Scanner scanner = connector.createScanner(metadataTableName, new Authorizations())) {
+            scanner.fetchColumnFamily(ColumnFamilyConstants.COLF_F);
+            for (Map.Entry<Key,Value> entry : scanner) {
+                String cq = entry.getKey().getColumnQualifier().toString();
+                int index = cq.indexOf('\0');
+                if (index < 0) {
+                    continue;
+                }
+                String day = cq.substring(index + 1);
+                if (day.compareTo(beginDay) >= 0 && day.compareTo(endDay) <= 0) {
+                    add(cq.substring(0, index), day, SummingCombiner.VAR_LEN_ENCODER.decode(entry.getValue().get()));
+                    entries++;
+                }
+            }
+        }
+        log.info("Read " + entries + " frequency entries of " + valuesByDatatype.size() + " datatypes from " + beginDay + " to " + endDay);
+    }
+    
+    /**
+     * @return the average number of field values per day of each datatype, over the days that have counts
+     */
+    public Map<String,Long> getDailyValues() {
+        Map<String,Long> dailyValues = new TreeMap<>();
+        for (Map.Entry<String,Long> entry : valuesByDatatype.entrySet()) {
+            dailyValues.put(entry.getKey(), entry.getValue() / Math.max(days.size(), 1));
+        }
+        return dailyValues;
+    }
+    
+    /**
+     * @param minShards
+     *            the fewest shards a day may have
+     * @param maxShards
+     *            the most shards a day may have, which should not exceed the shards that splits can be generated for
+     * @return the number of shards a day needs to hold the average daily values of all datatypes at the target size
+     */
+    public int getDayNumShards(int minShards, int maxShards) {
+        long total = 0;
+        for (long values : getDailyValues().values()) {
+            total += values;
+        }
+        return (int) Math.max(minShards, Math.min(maxShards, divideRoundingUp(total, targetValuesPerShard)));
+    }
+    
+    /**
+     * @return the number of field values of each datatype on its busiest day
+     */
+    public Map<String,Long> getPeakDailyValues() {
+        Map<String,Long> peakDailyValues = new TreeMap<>();
+        for (Map.Entry<String,Map<String,Long>> entry : valuesByDatatypeAndDay.entrySet()) {
+            peakDailyValues.put(entry.getKey(), Collections.max(entry.getValue().values()));
+        }
+        return peakDailyValues;
+    }
+    
+    /**
+     * @param dayShards
+     *            the number of shards of the day
+     * @param maxDatatypeShards
+     *            the most shards a datatype may have, which should not exceed the shards that splits can be generated for
+     * @return the number of shards of each datatype that needs fewer or more shards than the day has
+     */
+    public Map<String,Integer> getDatatypeNumShards(int dayShards, int maxDatatypeShards) {
+        Map<String,Integer> datatypeNumShards = new TreeMap<>();
+        for (Map.Entry<String,Long> entry : getPeakDailyValues().entrySet()) {
+            long shards = Math.max(1, Math.min(Math.max(maxDatatypeShards, dayShards), divideRoundingUp(entry.getValue(), targetValuesPerShard)));
+            if (shards != dayShards) {
+                datatypeNumShards.put(entry.getKey(), (int) shards);
+            }
+        }
+        return datatypeNumShards;
+    }
+    
+    public Set<String> getDays() {
+        return Collections.unmodifiableSet(days);
+    }
+    
+    private static long divideRoundingUp(long values, long perShard) {
+        return (values + perShard - 1) / perShard;
+    }
+    
+    /**
+     * Returns the shard splits of a day, which cover the shards of the day and the extra shards of the datatypes that have more shards than the day
+     *
+     * @param day
+     *            the day, 'yyyyMMdd'
+     * @param dayShards
+     *            the number of shards of the day
+     * @param datatypeNumShards
+     *            the number of shards of each datatype on the day
+     * @return the splits, 'yyyyMMdd_shard'
+     */
+    public static SortedSet<Text> getSplits(String day, int dayShards, Map<String,Integer> datatypeNumShards) {
+        int shards = dayShards;
+        for (int numShardsForDatatype : datatypeNumShards.values()) {
+            shards = Math.max(shards, numShardsForDatatype);
+        }
+        SortedSet<Text> splits = new TreeSet<>();
+        for (int shard = 0; shard < shards; shard++) {
+            splits.add(new Text(day + "_" + shard));
+        }
+        return splits;
+    }
+    
+    /**
+     * Reads the datatype entries of a day that are recorded in the num_shards row of the metadata table
+     *
+     * @return the entries, 'yyyyMMdd_numShards_datatype'
+     * @throws TableNotFoundException
+     *             if the metadata table does not exist
+     */
+    public static Set<String> readDatatypeEntries(Connector connector, String metadataTableName, String day) throws TableNotFoundException {
+        Set<String> entries = new TreeSet<>();
+        try (Scanner scanner = connector.createScanner(metadataTableName, new Authorizations())) {
+            scanner.setRange(new Range(NumShards.NUM_SHARDS));
+            scanner.fetchColumnFamily(NumShards.DATATYPE_NUM_SHARDS_CF);
+            for (Map.Entry<Key,Value> entry : scanner) {
+                String cq = entry.getKey().getColumnQualifier().toString();
+                if (cq.startsWith(day + "_")) {
+                    entries.add(cq);
+                }
+            }
+        }
+        return entries;
+    }
+    
+    /**
+     * Creates the metadata table entries for the shard counts of a day
+     *
+     * @param day
+     *            the day, 'yyyyMMdd'
+     * @param dayShards
+     *            the number of shards of the day and the days after it, or null to keep the current number
+     * @param datatypeNumShards
+     *            the number of shards of each datatype on the day
+     * @param existingDatatypeEntries
+     *            the datatype entries of the day that are already recorded, those that differ are removed so that the latest computation is the only one
+     * @return the mutation of the num_shards row, which may have no updates
+     */
+    public static Mutation createMutation(String day, Integer dayShards, Map<String,Integer> datatypeNumShards, Set<String> existingDatatypeEntries) {
+        Set<String> entries = new TreeSet<>();
+        for (Map.Entry<String,Integer> entry : datatypeNumShards.entrySet()) {
+            entries.add(day + "_" + entry.getValue() + "_" + entry.getKey());
+        }
+        
+        Mutation m = new Mutation(NumShards.NUM_SHARDS);
+        for (String existing : existingDatatypeEntries) {
+            if (!entries.contains(existing)) {
+                m.putDelete(NumShards.DATATYPE_NUM_SHARDS_CF.toString(), existing);
+            }
+        }
+        if (dayShards != null) {
+            m.put(NumShards.NUM_SHARDS_CF.toString(), day + "_" + dayShards, "");
+        }
+        for (String entry : entries) {
+            if (!existingDatatypeEntries.contains(entry)) {
+                m.put(NumShards.DATATYPE_NUM_SHARDS_CF.toString(), entry, "");
+            }
+        }
+        return m;
+    }
+}
@@ -0,0 +1,156 @@
+package datawave.ingest.mapreduce.job;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Collections;
+
+import datawave.iterators.EdgeStatsRollupIterator;
+import org.apache.accumulo.core.client.ClientConfiguration;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.ZooKeeperInstance;
+import org.apache.accumulo.core.client.mapreduce.AccumuloInputFormat;
+import org.apache.accumulo.core.client.mapreduce.AccumuloOutputFormat;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.apache.log4j.Logger;
+
+/**
+ * A map only job that precomputes one month of edge stats rollups. The edge table is read through the {@link EdgeStatsRollupIterator} with a MONTH
+ * granularity, so each tablet server returns one key per vertex, stats type, relationship and attributes for the month, and those keys are written to a
+ * separate rollup table. A year of vertex degree data can then be read from twelve keys.
+ * <p>
+ * The rollups must not be written back into the edge table: the edge table combiner would merge them with the daily edges of the first of the month and
+ * count them twice. The rollup table should not have the edge combiner configured either; rerunning the job for a month simply overwrites the previous
+ * rollups for that month.
+ *
+ * <pre>
+ *    usage: EdgeStatsRollupJob -D edge.rollup.instance=... -D edge.rollup.zookeepers=... -D edge.rollup.username=... -D edge.rollup.password=...
+ *                              -D edge.rollup.month=yyyyMM [-D edge.rollup.input.table=edge] [-D edge.rollup.output.table=edgeRollup]
+ *                              [-D edge.rollup.merge.visibilities=false]
+ * </pre>
+ */
+public class EdgeStatsRollupJob extends Configured implements Tool {
+    private static final Logger log = Logger.getLogger(EdgeStatsRollupJob.class);
+    
+    public static final String INSTANCE = "edge.rollup.instance";
+    public static final String ZOOKEEPERS = "edge.rollup.zookeepers";
+    public static final String USERNAME = "edge.rollup.username";
+    public static final String PASSWORD = "edge.rollup.password";
+    public static final String INPUT_TABLE = "edge.rollup.input.table";
+    public static final String OUTPUT_TABLE = "edge.rollup.output.table";
+    public static final String MONTH = "edge.rollup.month";
+    public static final String MERGE_VISIBILITIES = "edge.rollup.merge.visibilities";
+    
+    public static final String DEFAULT_INPUT_TABLE = "edge";
+    public static final String DEFAULT_OUTPUT_TABLE = "edgeRollup";
+    
+    public static class RollupMapper extends Mapper<Key,Value,Text,Mutation> {
+        private Text outputTable;
+        
+        @Override
+        protected void setup(Context context) {
+            outputTable = new Text(context.getConfiguration().get(OUTPUT_TABLE, DEFAULT_OUTPUT_TABLE));
+        }
+        
+        @Override
+        protected void map(Key key, Value value, Context context) throws IOException, InterruptedException {
+            Mutation m = new Mutation(key.getRow());
+            m.put(key.getColumnFamily(), key.getColumnQualifier(), new ColumnVisibility(key.getColumnVisibility()), key.getTimestamp(), value);
+            context.write(outputTable, m);
+        }
+    }
+    
+    @Override
+    public int run(String[] args) throws Exception {
+        Configuration conf = getConf();
+        String instance = required(conf, INSTANCE);
+        String zookeepers = required(conf, ZOOKEEPERS);
+        String userName = required(conf, USERNAME);
+        PasswordToken password = new PasswordToken(required(conf, PASSWORD));
+        String inputTable = conf.get(INPUT_TABLE, DEFAULT_INPUT_TABLE);
+        String outputTable = conf.get(OUTPUT_TABLE, DEFAULT_OUTPUT_TABLE);
+        String month = required(conf, MONTH);
+        
+        String[] dates = getDateRange(month);
+        
+        ClientConfiguration clientConfig = ClientConfiguration.loadDefault().withInstance(instance.trim()).withZkHosts(zookeepers.trim());
+        Connector connector = new ZooKeeperInstance(clientConfig).getConnector(userName, password);
+        Authorizations auths = connector.securityOperations().getUserAuthorizations(userName);
+        
+        Job job = Job.getInstance(conf);
+        job.setJarByClass(this.getClass());
+        job.setJobName("EdgeStatsRollup_" + month);
+        
+        job.setInputFormatClass(AccumuloInputFormat.class);
+        AccumuloInputFormat.setConnectorInfo(job, userName, password);
+        AccumuloInputFormat.setZooKeeperInstance(job, clientConfig);
+        AccumuloInputFormat.setInputTableName(job, inputTable);
+        AccumuloInputFormat.setScanAuthorizations(job, auths);
+        AccumuloInputFormat.setRanges(job, Collections.singletonList(new Range()));
+        
+        IteratorSetting rollup = new IteratorSetting(50, EdgeStatsRollupIterator.class.getSimpleName(), EdgeStatsRollupIterator.class);
+        rollup.addOption(EdgeStatsRollupIterator.GRANULARITY_OPTION, EdgeStatsRollupIterator.Granularity.MONTH.name());
+        rollup.addOption(EdgeStatsRollupIterator.STATS_ONLY_OPTION, Boolean.TRUE.toString());
+        rollup.addOption(EdgeStatsRollupIterator.MERGE_VISIBILITIES_OPTION, Boolean.toString(conf.getBoolean(MERGE_VISIBILITIES, false)));
+        rollup.addOption(EdgeStatsRollupIterator.START_DATE_OPTION, dates[0]);
+        rollup.addOption(EdgeStatsRollupIterator.END_DATE_OPTION, dates[1]);
+        AccumuloInputFormat.addIterator(job, rollup);
+        
+        job.setMapperClass(RollupMapper.class);
+        job.setMapOutputKeyClass(Text.class);
+        job.setMapOutputValueClass(Mutation.class);
+        job.setNumReduceTasks(0);
+        
+        job.setOutputFormatClass(AccumuloOutputFormat.class);
+        AccumuloOutputFormat.setConnectorInfo(job, userName, password);
+        AccumuloOutputFormat.setZooKeeperInstance(job, clientConfig);
+        AccumuloOutputFormat.setCreateTables(job, true);
+        AccumuloOutputFormat.setDefaultTableName(job, outputTable);
+        
+        log.info("Rolling up edge stats from " + inputTable + " into " + outputTable + " for " + dates[0] + " through " + dates[1]);
+        return job.waitForCompletion(true) ? 0 : 1;
+    }
+    
+    /**
+     * Returns the first and last yyyyMMdd dates of a yyyyMM month.
+     */
+    static String[] getDateRange(String month) throws ParseException {
+        SimpleDateFormat monthFormat = new SimpleDateFormat("yyyyMM");
+        monthFormat.setLenient(false);
+        SimpleDateFormat dayFormat = new SimpleDateFormat("yyyyMMdd");
+        
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(monthFormat.parse(month));
+        String start = dayFormat.format(calendar.getTime());
+        calendar.set(Calendar.DAY_OF_MONTH, calendar.getActualMaximum(Calendar.DAY_OF_MONTH));
+        String end = dayFormat.format(calendar.getTime());
+        return new String[] {start, end};
+    }
+    
+    private static String required(Configuration conf, String name) {
+        String value = conf.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing required configuration property " + name);
+        }
+        return value;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        System.exit(ToolRunner.run(new Configuration(), new EdgeStatsRollupJob(), args));
+    }
+}
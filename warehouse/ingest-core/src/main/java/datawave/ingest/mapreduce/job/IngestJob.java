@@ -1002,6 +1002,13 @@ public class IngestJob implements Tool {
             // if it didn't throw RuntimeException, it found a valid cache file
             job.getConfiguration().set(NumShards.PREFETCHED_MULTIPLE_NUMSHARDS_CONFIGURATION, multipleNumShardsConfig == null ? "" : multipleNumShardsConfig);
         }
+        
+        // fetch the datatype numshards cache for skew-aware sharding, if necessary
+        if (job.getConfiguration().getBoolean(NumShards.ENABLE_DATATYPE_NUMSHARDS, false)) {
+            NumShards numShards = new NumShards(job.getConfiguration());
+            String datatypeNumShardsConfig = numShards.readDatatypeNumShardsConfig();
+            job.getConfiguration().set(NumShards.PREFETCHED_DATATYPE_NUMSHARDS_CONFIGURATION, datatypeNumShardsConfig == null ? "" : datatypeNumShardsConfig);
+        }
     }
     
     /**
@@ -101,7 +101,7 @@ public class ShardedTableMapFile {
         for (int daysAgo = 0; daysAgo <= daysToVerify; daysAgo++) {
             long inMillis = System.currentTimeMillis() - (daysAgo * DateUtils.MILLIS_PER_DAY);
             String datePrefix = DateHelper.format(inMillis);
-            int expectedNumberOfShards = shardIdFactory.getNumShards(datePrefix);
+            int expectedNumberOfShards = shardIdFactory.getNumShardsWithDatatypes(datePrefix);
             boolean shardsExist = shardsExistForDate(shardIdToLocation, datePrefix, expectedNumberOfShards);
             if (!shardsExist) {
                 log.error("Shards for " + datePrefix + " for table " + tableName + " do not exist!");
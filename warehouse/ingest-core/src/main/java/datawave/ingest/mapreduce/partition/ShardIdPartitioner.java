@@ -83,7 +83,7 @@ public class ShardIdPartitioner extends Partitioner<BulkIngestKey,Value> impleme
         
         // now turn the shard id into a number that is sequential (without gaps) with all other shard ids
         
-        return (daysFromBaseTime * shardIdFactory.getNumShards(date.getTime())) + shard;
+        return (daysFromBaseTime * shardIdFactory.getNumShardsWithDatatypes(shardId.substring(0, SHARD_ID_SPLIT))) + shard;
     }
     
     private long getBaseTime() throws IllegalArgumentException {
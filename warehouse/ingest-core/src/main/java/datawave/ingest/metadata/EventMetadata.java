@@ -3,6 +3,7 @@ package datawave.ingest.metadata;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import datawave.data.ColumnFamilyConstants;
+import datawave.data.sketch.FieldSketch;
 import datawave.ingest.data.RawRecordContainer;
 import datawave.ingest.data.Type;
 import datawave.ingest.data.config.NormalizedContentInterface;
@@ -21,6 +22,7 @@ import org.apache.accumulo.core.iterators.user.SummingCombiner;
 import org.apache.hadoop.io.Text;
 import org.slf4j.Logger;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
@@ -75,6 +77,14 @@ import static org.slf4j.LoggerFactory.getLogger;
  * <td>Count</td>
  * </tr>
  * <tr>
+ * <td>MetaData</td>
+ * <td>Field Value Sketch (See FieldSketch), if enabled</td>
+ * <td>Field Name</td>
+ * <td>'sk'</td>
+ * <td>DataType\0YYYMMDD</td>
+ * <td>HyperLogLog and count-min sketch of the values</td>
+ * </tr>
+ * <tr>
  * <td>Load Dates Table</td>
  * <td>Load Date Frequency (See LoadDateScanBuilder)</td>
  * <td>Field Name</td>
@@ -103,7 +113,9 @@ public class EventMetadata implements RawRecordMetadata {
     private final MetadataCounterGroup frequencyCounts = new MetadataCounterGroup(ColumnFamilyConstants.COLF_F); // by event date
     private final MetadataCounterGroup indexedFieldsLoadDateCounts;
     private final MetadataCounterGroup reverseIndexedFieldsLoadDateCounts;
+    private final MetadataSketchGroup sketches = new MetadataSketchGroup(FieldSketch.COLF_SKETCH); // by event date
     private boolean frequency = false;
+    private boolean sketch = false;
     
     /**
      * @param shardTableName
@@ -160,6 +172,11 @@ public class EventMetadata implements RawRecordMetadata {
             long fieldDelta = countDelta * fields.get(fieldName).size();
             addEventField(helper, event, fieldName, fieldDelta, frequency);
             
+            // sketches cannot forget values, so deletes are not counted
+            if (sketch && countDelta > 0) {
+                addToSketches(event, fieldName, fields.get(fieldName));
+            }
+            
             // if the field is indexed, reverse-indexed, or normalized, we need to write a dataType entry
             // using either the assigned dataType or the default dataType
             boolean shouldWriteDataType = false;
@@ -234,6 +251,15 @@ public class EventMetadata implements RawRecordMetadata {
         frequencyCounts.addToCount(countDelta, event.getDataType().outputName(), fieldName, date);
     }
     
+    protected void addToSketches(RawRecordContainer event, String fieldName, Collection<NormalizedContentInterface> norms) {
+        String date = DateHelper.format(event.getDate());
+        for (NormalizedContentInterface norm : norms) {
+            if (null != norm.getIndexedFieldValue()) {
+                sketches.offer(norm.getIndexedFieldValue(), event.getDataType().outputName(), fieldName, date);
+            }
+        }
+    }
+    
     protected void updateForIndexedField(@SuppressWarnings("UnusedParameters") IngestHelperInterface helper, RawRecordContainer event,
                     Multimap<String,NormalizedContentInterface> fields, long countDelta, String loadDate, String tokenDesignator, String fieldName) {
         update(event, fields.get(fieldName), tokenDesignator, countDelta, loadDate, indexedFieldsInfo, indexedFieldsLoadDateCounts);
@@ -364,6 +390,18 @@ public class EventMetadata implements RawRecordMetadata {
         }
     }
     
+    /**
+     * @param sketch
+     *            whether to keep a sketch of the values of each field by datatype and event date
+     */
+    public void setSketch(boolean sketch) {
+        this.sketch = sketch;
+    }
+    
+    public boolean isSketch() {
+        return sketch;
+    }
+    
     @Override
     public Multimap<BulkIngestKey,Value> getBulkMetadata() {
         Multimap<BulkIngestKey,Value> bulkData = HashMultimap.create();
@@ -375,6 +413,7 @@ public class EventMetadata implements RawRecordMetadata {
         addIndexedFieldToMetadata(bulkData, reverseIndexedFieldsInfo);
         
         addFrequenciesToMetadata(bulkData);
+        addSketchesToMetadata(bulkData);
         
         addIndexedFieldToMetadata(bulkData, dataTypeFieldsInfo);
         addIndexedFieldToMetadata(bulkData, normalizedFieldsInfo);
@@ -410,6 +449,18 @@ public class EventMetadata implements RawRecordMetadata {
         }
     }
     
+    protected void addSketchesToMetadata(Multimap<BulkIngestKey,Value> results) {
+        for (MetadataSketchGroup.SketchAndKeyComponents entry : sketches.getEntries()) {
+            Key k = new Key(new Text(entry.getRowId()), sketches.getColumnFamily(), new Text(entry.getDataType() + DELIMITER + entry.getDate()),
+                            DateHelper.parse(entry.getDate()).getTime());
+            try {
+                results.put(new BulkIngestKey(this.metadataTableName, k), new Value(entry.getSketch().toBytes()));
+            } catch (IOException e) {
+                log.error("Unable to serialize the field sketch for {}", k, e);
+            }
+        }
+    }
+    
     protected void addToResults(Multimap<BulkIngestKey,Value> results, Long value, Key key, Text tableName) {
         BulkIngestKey bk = new BulkIngestKey(tableName, key);
         results.put(bk, new Value(SummingCombiner.VAR_LEN_ENCODER.encode(value)));
@@ -434,6 +485,7 @@ public class EventMetadata implements RawRecordMetadata {
         this.eventFieldsInfo.clear();
         this.termFrequencyFieldsInfo.clear();
         this.frequencyCounts.clear();
+        this.sketches.clear();
         
         this.indexedFieldsInfo.clear();
         this.indexedFieldsLoadDateCounts.clear();
@@ -0,0 +1,74 @@
+package datawave.ingest.metadata;
+
+import java.util.Collection;
+import java.util.HashMap;
+
+import datawave.data.sketch.FieldSketch;
+import org.apache.hadoop.io.Text;
+
+/**
+ * Collects a {@link FieldSketch} of the values of each field, datatype and date seen by a mapper
+ */
+public class MetadataSketchGroup {
+    private final Text columnFamily;
+    private HashMap<String,SketchAndKeyComponents> sketches = new HashMap<>();
+    
+    public MetadataSketchGroup(Text columnFamily) {
+        this.columnFamily = columnFamily;
+    }
+    
+    private static String createKey(String dataType, String rowid, String date) {
+        return dataType + RawRecordMetadata.DELIMITER + rowid + RawRecordMetadata.DELIMITER + date;
+    }
+    
+    public void offer(String value, String dataType, String rowId, String date) {
+        String hashMapKey = createKey(dataType, rowId, date);
+        SketchAndKeyComponents entry = sketches.get(hashMapKey);
+        if (null == entry) {
+            entry = new SketchAndKeyComponents(dataType, rowId, date);
+            sketches.put(hashMapKey, entry);
+        }
+        entry.getSketch().offer(value);
+    }
+    
+    public void clear() {
+        sketches.clear();
+    }
+    
+    public Text getColumnFamily() {
+        return columnFamily;
+    }
+    
+    public Collection<SketchAndKeyComponents> getEntries() {
+        return sketches.values();
+    }
+    
+    public static class SketchAndKeyComponents {
+        private final String dataType;
+        private final String rowId;
+        private final String date;
+        private final FieldSketch sketch = new FieldSketch();
+        
+        public SketchAndKeyComponents(String dataType, String rowId, String date) {
+            this.dataType = dataType;
+            this.rowId = rowId;
+            this.date = date;
+        }
+        
+        public String getDataType() {
+            return dataType;
+        }
+        
+        public String getDate() {
+            return date;
+        }
+        
+        public String getRowId() {
+            return rowId;
+        }
+        
+        public FieldSketch getSketch() {
+            return sketch;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package datawave.ingest.table.config;
 
 import datawave.data.ColumnFamilyConstants;
+import datawave.data.sketch.FieldSketch;
 import datawave.ingest.mapreduce.handler.shard.ShardedDataTypeHandler;
+import datawave.iterators.FieldSketchCombiner;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -26,6 +28,7 @@ public class MetadataTableConfigHelper extends AbstractTableConfigHelper {
                 setFrequencyCombiner(tops, scope.name());
                 setCombinerForCountMetadata(tops, scope.name());
                 setCombinerForEdgeMetadata(tops, scope.name());
+                setCombinerForSketches(tops, scope.name());
             }
         }
         
@@ -49,6 +52,14 @@ public class MetadataTableConfigHelper extends AbstractTableConfigHelper {
         return stem;
     }
     
+    // add the FieldSketchCombiner to the sketch column
+    private String setCombinerForSketches(TableOperations tops, String scopeName) throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
+        String stem = String.format("%s%s.%s", Property.TABLE_ITERATOR_PREFIX, scopeName, "FieldSketchCombiner");
+        setPropertyIfNecessary(tableName, stem, "16," + FieldSketchCombiner.class.getName(), tops, log);
+        setPropertyIfNecessary(tableName, stem + ".opt.columns", FieldSketch.COLF_SKETCH.toString(), tops, log);
+        return stem;
+    }
+    
     // add the EdgeMetadataCombiner to the edge column
     private String setFrequencyCombiner(TableOperations tops, String scopeName) throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
         String stem = String.format("%s%s.%s", Property.TABLE_ITERATOR_PREFIX, scopeName, "FrequencyCombiner");
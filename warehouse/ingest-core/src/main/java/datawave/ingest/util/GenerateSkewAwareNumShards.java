@@ -0,0 +1,157 @@
+package datawave.ingest.util;
+
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.OptionBuilder;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import datawave.ingest.data.config.ConfigurationHelper;
+import datawave.ingest.data.config.ingest.AccumuloHelper;
+import datawave.ingest.mapreduce.handler.shard.NumShards;
+import datawave.ingest.mapreduce.handler.shard.ShardedDataTypeHandler;
+import datawave.ingest.mapreduce.handler.shard.SkewAwareShardCounts;
+import datawave.util.StringUtils;
+import datawave.util.time.DateHelper;
+
+/**
+ * Computes the shard counts of a day from the metadata frequency counts of the days before it, records them in the num_shards row of the metadata table and
+ * regenerates the numshards caches. The splits of the day, including the extra shards of the datatypes that have more shards than the day, are added to the
+ * sharded tables, so the tool should run before ingest reaches the day.
+ */
+public class GenerateSkewAwareNumShards {
+    private static final Logger log = Logger.getLogger(GenerateSkewAwareNumShards.class);
+    
+    public static final String CONFIG_DIRECTORY_LOCATION_OVERRIDE = "cd";
+    public static final String CONFIG_SUFFIEX_OVERRIDE = "cs";
+    public static final String DAY = "day";
+    public static final String LOOKBACK_DAYS = "lookback";
+    public static final String TARGET_VALUES_PER_SHARD = "target";
+    public static final String MIN_SHARDS = "minShards";
+    public static final String MAX_SHARDS = "maxShards";
+    public static final String MAX_DATATYPE_SHARDS = "maxDatatypeShards";
+    public static final String TABLES = "tables";
+    
+    private static final int DEFAULT_LOOKBACK_DAYS = 7;
+    private static final int DEFAULT_MAX_DATATYPE_SHARDS_FACTOR = 2;
+    
+    @SuppressWarnings("static-access")
+    public static void main(String[] args) throws ParseException, AccumuloException, AccumuloSecurityException, TableNotFoundException, IOException {
+        AccumuloCliOptions accumuloOptions = new AccumuloCliOptions();
+        Options options = accumuloOptions.getOptions();
+        options.addOption(OptionBuilder.isRequired(true).hasArg().withDescription("Config directory path").create(CONFIG_DIRECTORY_LOCATION_OVERRIDE));
+        options.addOption(OptionBuilder.isRequired(false).hasArg().withDescription("Config file suffix").create(CONFIG_SUFFIEX_OVERRIDE));
+        options.addOption(OptionBuilder.isRequired(false).hasArg().withDescription("Day to compute the shard counts for, yyyyMMdd (default tomorrow)")
+                        .create(DAY));
+        options.addOption(OptionBuilder.isRequired(false).hasArg().withDescription("Number of days before the day to average (default 7)")
+                        .create(LOOKBACK_DAYS));
+        options.addOption(OptionBuilder.isRequired(true).hasArg().withDescription("Number of field values per day that a shard should hold")
+                        .create(TARGET_VALUES_PER_SHARD));
+        options.addOption(OptionBuilder.isRequired(false).hasArg().withDescription("Fewest shards of the day, set with maxShards to change the day's shards")
+                        .create(MIN_SHARDS));
+        options.addOption(OptionBuilder.isRequired(false).hasArg().withDescription("Most shards of the day, set with minShards to change the day's shards")
+                        .create(MAX_SHARDS));
+        options.addOption(OptionBuilder.isRequired(false).hasArg().withDescription("Most shards of a datatype (default twice the shards of the day)")
+                        .create(MAX_DATATYPE_SHARDS));
+        options.addOption(OptionBuilder.isRequired(false).hasArg()
+                        .withDescription("Comma-separated tables to add the splits of the day to (default the configured sharded tables)").create(TABLES));
+        Configuration conf = accumuloOptions.getConf(args, true);
+        CommandLine cl;
+        try {
+            cl = new BasicParser().parse(options, args);
+        } catch (ParseException ex) {
+            log.error(GenerateSkewAwareNumShards.class.getName(), ex);
+            new HelpFormatter().printHelp("Generate Skew-Aware NumShards", options);
+            System.exit(1);
+            return;
+        }
+        
+        ConfigurationFileHelper.setConfigurationFromFiles(conf, cl.getOptionValue(CONFIG_DIRECTORY_LOCATION_OVERRIDE),
+                        cl.getOptionValue(CONFIG_SUFFIEX_OVERRIDE, "config.xml"));
+        
+        Calendar calendar = Calendar.getInstance();
+        if (cl.hasOption(DAY)) {
+            calendar.setTime(DateHelper.parse(cl.getOptionValue(DAY)));
+        } else {
+            calendar.add(Calendar.DATE, 1);
+        }
+        String day = DateHelper.format(calendar.getTime());
+        calendar.add(Calendar.DATE, -1);
+        String endDay = DateHelper.format(calendar.getTime());
+        calendar.add(Calendar.DATE, 1 - Integer.parseInt(cl.getOptionValue(LOOKBACK_DAYS, Integer.toString(DEFAULT_LOOKBACK_DAYS))));
+        String beginDay = DateHelper.format(calendar.getTime());
+        
+        AccumuloHelper accumuloHelper = new AccumuloHelper();
+        accumuloHelper.setup(conf);
+        Connector connector = accumuloHelper.getConnector();
+        String metadataTableName = ConfigurationHelper.isNull(conf, ShardedDataTypeHandler.METADATA_TABLE_NAME, String.class);
+        
+        SkewAwareShardCounts counts = new SkewAwareShardCounts(Long.parseLong(cl.getOptionValue(TARGET_VALUES_PER_SHARD)));
+        counts.read(connector, metadataTableName, beginDay, endDay);
+        if (counts.getDays().isEmpty()) {
+            log.warn("No frequency counts from " + beginDay + " to " + endDay + ", leaving the shard counts of " + day + " unchanged");
+            return;
+        }
+        
+        NumShards numShards = new NumShards(conf);
+        int currentShards = numShards.getNumShards(day);
+        Integer dayShards = null;
+        if (cl.hasOption(MIN_SHARDS) && cl.hasOption(MAX_SHARDS)) {
+            int shards = counts.getDayNumShards(Integer.parseInt(cl.getOptionValue(MIN_SHARDS)), Integer.parseInt(cl.getOptionValue(MAX_SHARDS)));
+            if (shards != currentShards) {
+                log.info("Changing the shards of " + day + " from " + currentShards + " to " + shards);
+                dayShards = shards;
+            }
+        }
+        int shardsOfDay = (dayShards == null) ? currentShards : dayShards;
+        int maxDatatypeShards = cl.hasOption(MAX_DATATYPE_SHARDS) ? Integer.parseInt(cl.getOptionValue(MAX_DATATYPE_SHARDS))
+                        : DEFAULT_MAX_DATATYPE_SHARDS_FACTOR * shardsOfDay;
+        
+        Map<String,Integer> datatypeNumShards = counts.getDatatypeNumShards(shardsOfDay, maxDatatypeShards);
+        
+        // the splits go in before the counts, so that ingest never writes to shards of the day that have no tablets of their own
+        SortedSet<Text> splits = SkewAwareShardCounts.getSplits(day, shardsOfDay, datatypeNumShards);
+        String[] tables = cl.hasOption(TABLES) ? StringUtils.split(cl.getOptionValue(TABLES), ',') : conf.getStrings(ShardedDataTypeHandler.SHARDED_TNAMES,
+                        new String[0]);
+        for (String table : tables) {
+            table = table.trim();
+            if (!table.isEmpty()) {
+                log.info("Adding the " + splits.size() + " shard splits of " + day + " to " + table);
+                connector.tableOperations().addSplits(table, splits);
+            }
+        }
+        
+        Set<String> existingDatatypeEntries = SkewAwareShardCounts.readDatatypeEntries(connector, metadataTableName, day);
+        Mutation m = SkewAwareShardCounts.createMutation(day, dayShards, datatypeNumShards, existingDatatypeEntries);
+        if (m.size() > 0) {
+            log.info("Recording the shards of " + datatypeNumShards.size() + " datatypes for " + day + ": " + datatypeNumShards);
+            BatchWriter writer = connector.createBatchWriter(metadataTableName, new BatchWriterConfig());
+            try {
+                writer.addMutation(m);
+            } finally {
+                writer.close();
+            }
+        } else {
+            log.info("The shard counts of " + day + " are unchanged");
+        }
+        
+        numShards.updateCache();
+    }
+}
@@ -0,0 +1,321 @@
+package datawave.iterators;
+
+import datawave.edge.util.EdgeKeyDecoder;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.OptionDescriber;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static datawave.edge.util.EdgeKey.EDGE_FORMAT.STATS;
+
+/**
+ * Rolls the daily STATS edges of a vertex up into a single key per vertex, stats type, edge type, relationship and attributes, so that wide date ranges do not
+ * have to bring every daily stats key back to the client.
+ * <p>
+ * Stats edges are {@code SOURCE STATS/STATTYPE/TYPE/RELATIONSHIP:YYYYMMDD/CATEGORY/ATTRIBUTE2/ATTRIBUTE3/DATETYPE}. All of the keys under one row and column
+ * family are read and grouped by the column qualifier with the date removed. Each group is combined with the same logic the {@link EdgeCombiner} uses on the
+ * table (the link count sketches are merged and the activity/duration histograms are summed) and returned under the earliest date of the group. With the
+ * {@link Granularity#MONTH} granularity the date is kept to the month instead, and the combined key is dated on the first of the month.
+ * <p>
+ * By default keys with different visibilities are never combined. When {@link #MERGE_VISIBILITIES_OPTION} is set, they are combined and the result is given
+ * the conjunction of the visibilities, so the caller can only see it if it could see every key that went into it. Standard (non stats) edges are passed
+ * through untouched, unless {@link #STATS_ONLY_OPTION} is set in which case they are skipped.
+ * <p>
+ * This iterator must see every key of a row and column family to produce a correct rollup. When seeked into the middle of a column family (e.g. when a scan
+ * is resumed) it rereads the column family from the beginning and only returns the rollups at or after the start of the range.
+ */
+public class EdgeStatsRollupIterator extends WrappingIterator implements OptionDescriber {
+    private static final Logger log = Logger.getLogger(EdgeStatsRollupIterator.class);
+    
+    public static final String GRANULARITY_OPTION = "granularity";
+    public static final String MERGE_VISIBILITIES_OPTION = "mergeVisibilities";
+    public static final String STATS_ONLY_OPTION = "statsOnly";
+    public static final String START_DATE_OPTION = "startDate";
+    public static final String END_DATE_OPTION = "endDate";
+    
+    /** the number of values buffered for a group before they are combined */
+    private static final int COMBINE_BATCH_SIZE = 64;
+    private static final byte[] STATS_BYTES = STATS.name().getBytes();
+    
+    public enum Granularity {
+        /** one key for everything in the scanned range */
+        ALL,
+        /** one key per calendar month */
+        MONTH
+    }
+    
+    private Granularity granularity = Granularity.ALL;
+    private boolean mergeVisibilities = false;
+    private boolean statsOnly = false;
+    private String startDate = null;
+    private String endDate = null;
+    
+    private final EdgeCombiner combiner = new EdgeCombiner();
+    private final TreeMap<Key,Value> rollups = new TreeMap<>();
+    private final Text row = new Text();
+    private final Text columnFamily = new Text();
+    private final Text columnQualifier = new Text();
+    
+    private Range range;
+    private Collection<ByteSequence> columnFamilies;
+    private boolean inclusive;
+    
+    private Key topKey;
+    private Value topValue;
+    
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options, IteratorEnvironment env) throws IOException {
+        super.init(source, options, env);
+        if (!validateOptions(options)) {
+            throw new IllegalArgumentException("Invalid options supplied to " + getClass().getSimpleName() + ": " + options);
+        }
+        if (options.containsKey(GRANULARITY_OPTION)) {
+            granularity = Granularity.valueOf(options.get(GRANULARITY_OPTION));
+        }
+        mergeVisibilities = Boolean.parseBoolean(options.get(MERGE_VISIBILITIES_OPTION));
+        statsOnly = Boolean.parseBoolean(options.get(STATS_ONLY_OPTION));
+        startDate = options.get(START_DATE_OPTION);
+        endDate = options.get(END_DATE_OPTION);
+    }
+    
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+        EdgeStatsRollupIterator copy = new EdgeStatsRollupIterator();
+        copy.setSource(getSource().deepCopy(env));
+        copy.granularity = granularity;
+        copy.mergeVisibilities = mergeVisibilities;
+        copy.statsOnly = statsOnly;
+        copy.startDate = startDate;
+        copy.endDate = endDate;
+        return copy;
+    }
+    
+    @Override
+    public IteratorOptions describeOptions() {
+        IteratorOptions options = new IteratorOptions("edgeStatsRollup", "Combines the STATS edges of a vertex across dates", null, null);
+        options.addNamedOption(GRANULARITY_OPTION, "ALL to combine every date in the range, MONTH to combine by calendar month (default ALL)");
+        options.addNamedOption(MERGE_VISIBILITIES_OPTION, "Combine keys with different visibilities into one key with the conjunction of the visibilities");
+        options.addNamedOption(STATS_ONLY_OPTION, "Skip standard edges instead of passing them through");
+        options.addNamedOption(START_DATE_OPTION, "Ignore stats edges dated before this yyyyMMdd date");
+        options.addNamedOption(END_DATE_OPTION, "Ignore stats edges dated after this yyyyMMdd date");
+        return options;
+    }
+    
+    @Override
+    public boolean validateOptions(Map<String,String> options) {
+        String value = options.get(GRANULARITY_OPTION);
+        if (value != null) {
+            try {
+                Granularity.valueOf(value);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        this.range = range;
+        this.columnFamilies = columnFamilies;
+        this.inclusive = inclusive;
+        rollups.clear();
+        
+        Range seekRange = range;
+        if (!range.isInfiniteStartKey()) {
+            // rollups have to be computed from the beginning of the column family
+            Key start = range.getStartKey();
+            Key columnFamilyStart = new Key(start.getRow(), start.getColumnFamily());
+            seekRange = new Range(columnFamilyStart, true, range.getEndKey(), range.isEndKeyInclusive());
+        }
+        super.seek(seekRange, columnFamilies, inclusive);
+        
+        findTop();
+        while (topKey != null && range.beforeStartKey(topKey)) {
+            findTop();
+        }
+    }
+    
+    @Override
+    public boolean hasTop() {
+        return topKey != null;
+    }
+    
+    @Override
+    public Key getTopKey() {
+        return topKey;
+    }
+    
+    @Override
+    public Value getTopValue() {
+        return topValue;
+    }
+    
+    @Override
+    public void next() throws IOException {
+        if (topKey == null) {
+            throw new IllegalStateException("next() called with no top");
+        }
+        findTop();
+    }
+    
+    private void findTop() throws IOException {
+        topKey = null;
+        topValue = null;
+        
+        SortedKeyValueIterator<Key,Value> source = getSource();
+        while (rollups.isEmpty() && source.hasTop()) {
+            Key key = source.getTopKey();
+            key.getColumnFamily(columnFamily);
+            if (isStats(columnFamily)) {
+                rollUp(source);
+            } else if (statsOnly) {
+                Key nextRow = key.followingKey(PartialKey.ROW);
+                if (range.afterEndKey(nextRow)) {
+                    return;
+                }
+                source.seek(new Range(nextRow, true, range.getEndKey(), range.isEndKeyInclusive()), columnFamilies, inclusive);
+            } else {
+                topKey = new Key(key);
+                topValue = new Value(source.getTopValue());
+                source.next();
+                return;
+            }
+        }
+        
+        if (!rollups.isEmpty()) {
+            Map.Entry<Key,Value> entry = rollups.pollFirstEntry();
+            topKey = entry.getKey();
+            topValue = entry.getValue();
+        }
+    }
+    
+    /**
+     * Reads every key in the current row and column family and fills the {@link #rollups}
+     */
+    private void rollUp(SortedKeyValueIterator<Key,Value> source) throws IOException {
+        Key first = source.getTopKey();
+        first.getRow(row);
+        Map<String,Group> groups = new HashMap<>();
+        int keys = 0;
+        
+        while (source.hasTop() && source.getTopKey().equals(first, PartialKey.ROW_COLFAM)) {
+            Key key = source.getTopKey();
+            key.getColumnQualifier(columnQualifier);
+            String date = EdgeKeyDecoder.getYYYYMMDD(columnQualifier);
+            if ((startDate == null || date.compareTo(startDate) >= 0) && (endDate == null || date.compareTo(endDate) <= 0)) {
+                String suffix = getSuffix(columnQualifier, date.length());
+                String period = (granularity == Granularity.MONTH && date.length() >= 6) ? date.substring(0, 6) : "";
+                Text visibility = key.getColumnVisibility();
+                
+                String groupId = mergeVisibilities ? period + '\0' + suffix : period + '\0' + suffix + '\0' + visibility;
+                Group group = groups.get(groupId);
+                if (group == null) {
+                    group = new Group(suffix, period.isEmpty() ? date : period + "01");
+                    groups.put(groupId, group);
+                }
+                group.add(key, date, visibility, new Value(source.getTopValue()));
+                keys++;
+            }
+            source.next();
+        }
+        
+        for (Group group : groups.values()) {
+            Key rollupKey = group.getKey();
+            rollups.put(rollupKey, group.combine(rollupKey));
+        }
+        
+        if (log.isTraceEnabled()) {
+            log.trace("Rolled " + keys + " stats edges for " + row + " " + columnFamily + " into " + groups.size() + " keys");
+        }
+    }
+    
+    private static boolean isStats(Text colFam) {
+        return colFam.getLength() >= STATS_BYTES.length
+                        && WritableComparator.compareBytes(colFam.getBytes(), 0, STATS_BYTES.length, STATS_BYTES, 0, STATS_BYTES.length) == 0;
+    }
+    
+    /**
+     * @return everything in the column qualifier after the date and its separator, e.g. {@code CATEGORY/ATTRIBUTE2/ATTRIBUTE3/DATETYPE}
+     */
+    private static String getSuffix(Text colQual, int dateLength) {
+        if (colQual.getLength() <= dateLength + 1) {
+            return "";
+        }
+        return new String(colQual.getBytes(), dateLength + 1, colQual.getLength() - dateLength - 1, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * The keys that roll up into a single key
+     */
+    private class Group {
+        private final String suffix;
+        private String date;
+        private long timestamp = 0;
+        private final TreeSet<Text> visibilities = new TreeSet<>();
+        private final List<Value> values = new ArrayList<>();
+        
+        Group(String suffix, String date) {
+            this.suffix = suffix;
+            this.date = date;
+        }
+        
+        void add(Key key, String keyDate, Text visibility, Value value) {
+            timestamp = Math.max(timestamp, key.getTimestamp());
+            visibilities.add(visibility);
+            if (granularity == Granularity.ALL && keyDate.compareTo(date) < 0) {
+                date = keyDate;
+            }
+            values.add(value);
+            if (values.size() >= COMBINE_BATCH_SIZE) {
+                Value combined = combiner.reduce(key, values.iterator());
+                values.clear();
+                values.add(combined);
+            }
+        }
+        
+        Key getKey() {
+            Text colQual = new Text(suffix.isEmpty() ? date : date + '/' + suffix);
+            return new Key(row, columnFamily, colQual, getVisibility(), timestamp);
+        }
+        
+        Value combine(Key rollupKey) {
+            return values.size() == 1 ? values.get(0) : combiner.reduce(rollupKey, values.iterator());
+        }
+        
+        private Text getVisibility() {
+            if (visibilities.size() == 1) {
+                return visibilities.first();
+            }
+            StringBuilder expression = new StringBuilder();
+            for (Text visibility : visibilities) {
+                if (visibility.getLength() > 0) {
+                    if (expression.length() > 0) {
+                        expression.append('&');
+                    }
+                    expression.append('(').append(visibility).append(')');
+                }
+            }
+            return new Text(new ColumnVisibility(expression.toString()).flatten());
+        }
+    }
+}
@@ -308,4 +308,93 @@ public class NumShardsTest {
         assertEquals(1, numShards.getShardCount());
     }
     
+    @Test
+    public void testDatatypeNumShards() {
+        Configuration conf = new Configuration();
+        conf.set(ShardIdFactory.NUM_SHARDS, "11");
+        conf.set(NumShards.PREFETCHED_MULTIPLE_NUMSHARDS_CONFIGURATION, "20170101_13");
+        conf.set(NumShards.ENABLE_MULTIPLE_NUMSHARDS, "true");
+        conf.set(NumShards.PREFETCHED_DATATYPE_NUMSHARDS_CONFIGURATION, "20170101_3_csv,20170101_20_wiki_pedia,20170102_5_csv");
+        conf.set(NumShards.ENABLE_DATATYPE_NUMSHARDS, "true");
+        NumShards numShards = new NumShards(conf);
+        
+        assertEquals(3, numShards.getNumShards("20170101", "csv"));
+        // more shards than the day has, and the datatype may contain an underscore
+        assertEquals(20, numShards.getNumShards("20170101", "wiki_pedia"));
+        assertEquals(13, numShards.getNumShards("20170101", "json"));
+        assertEquals(5, numShards.getNumShards("20170102", "csv"));
+        // the datatype entries only apply to the day they were computed for
+        assertEquals(13, numShards.getNumShards("20170103", "csv"));
+        assertEquals(11, numShards.getNumShards("20161231", "csv"));
+        assertEquals(13, numShards.getNumShards("20170101"));
+        
+        // the splits of a day cover the extra shards of its datatypes
+        assertEquals(20, numShards.getNumShardsWithDatatypes("20170101"));
+        assertEquals(13, numShards.getNumShardsWithDatatypes("20170102"));
+        assertEquals(11, numShards.getNumShardsWithDatatypes("20161231"));
+    }
+    
+    @Test
+    public void testDatatypeNumShardsDisabled() {
+        Configuration conf = new Configuration();
+        conf.set(ShardIdFactory.NUM_SHARDS, "11");
+        conf.set(NumShards.PREFETCHED_DATATYPE_NUMSHARDS_CONFIGURATION, "20170101_3_csv");
+        NumShards numShards = new NumShards(conf);
+        assertEquals(11, numShards.getNumShards("20170101", "csv"));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testDatatypeNumShardsParsingError() {
+        Configuration conf = new Configuration();
+        conf.set(ShardIdFactory.NUM_SHARDS, "11");
+        conf.set(NumShards.PREFETCHED_DATATYPE_NUMSHARDS_CONFIGURATION, "20170101_csv");
+        conf.set(NumShards.ENABLE_DATATYPE_NUMSHARDS, "true");
+        new NumShards(conf).getNumShards("20170101", "csv");
+    }
+    
+    @Test
+    public void testUpdateCacheWithDatatypeEntries() throws AccumuloException, AccumuloSecurityException, TableExistsException, TableNotFoundException,
+                    IOException {
+        PasswordToken noPasswordToken = new PasswordToken();
+        InMemoryInstance i = new InMemoryInstance("mock3");
+        Connector connector = i.getConnector("root", noPasswordToken);
+        
+        Configuration conf = new Configuration();
+        conf.set(ShardedDataTypeHandler.METADATA_TABLE_NAME, TableName.METADATA);
+        connector.tableOperations().create(TableName.METADATA);
+        BatchWriter recordWriter = connector.createBatchWriter(TableName.METADATA, new BatchWriterConfig());
+        Mutation m = new Mutation(NumShards.NUM_SHARDS);
+        m.put(NumShards.NUM_SHARDS_CF.toString(), "20170101_13", "");
+        m.put(NumShards.DATATYPE_NUM_SHARDS_CF.toString(), "20170101_3_csv", "");
+        recordWriter.addMutation(m);
+        recordWriter.close();
+        
+        File cacheDir = Files.createTempDirectory("numshards").toFile();
+        cacheDir.deleteOnExit();
+        
+        conf.set(ShardIdFactory.NUM_SHARDS, "11");
+        conf.set(NumShards.ENABLE_MULTIPLE_NUMSHARDS, "true");
+        conf.set(NumShards.ENABLE_DATATYPE_NUMSHARDS, "true");
+        conf.set(NumShards.MULTIPLE_NUMSHARDS_CACHE_PATH, cacheDir.getPath());
+        
+        AccumuloHelper mockedAccumuloHelper = EasyMock.createMock(AccumuloHelper.class);
+        mockedAccumuloHelper.setup(conf);
+        EasyMock.expectLastCall();
+        EasyMock.expect(mockedAccumuloHelper.getConnector()).andReturn(connector);
+        EasyMock.replay(mockedAccumuloHelper);
+        
+        NumShards numShards = new NumShards(conf);
+        numShards.setaHelper(mockedAccumuloHelper);
+        numShards.updateCache();
+        
+        // the numshards cache keeps only the day entries, so that earlier releases can read it
+        assertEquals("20170101_13", numShards.readMultipleNumShardsConfig());
+        assertEquals("20170101_3_csv", numShards.readDatatypeNumShardsConfig());
+        assertEquals(3, numShards.getNumShards("20170101", "csv"));
+        assertEquals(13, numShards.getNumShards("20170101", "json"));
+        
+        new File(cacheDir, "numshards.txt").delete();
+        new File(cacheDir, "numshards.datatype.txt").delete();
+    }
+
 }
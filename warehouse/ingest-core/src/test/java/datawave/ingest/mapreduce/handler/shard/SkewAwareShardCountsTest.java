@@ -0,0 +1,138 @@
+package datawave.ingest.mapreduce.handler.shard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.user.SummingCombiner;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.data.ColumnFamilyConstants;
+import datawave.util.TableName;
+
+public class SkewAwareShardCountsTest {
+    
+    @Test
+    public void testShardCounts() {
+        SkewAwareShardCounts counts = new SkewAwareShardCounts(100);
+        counts.add("csv", "20170101", 150);
+        counts.add("csv", "20170102", 250);
+        counts.add("wikipedia", "20170101", 5000);
+        counts.add("wikipedia", "20170102", 5000);
+        
+        assertEquals(200L, (long) counts.getDailyValues().get("csv"));
+        assertEquals(5000L, (long) counts.getDailyValues().get("wikipedia"));
+        assertEquals(52, counts.getDayNumShards(1, 100));
+        assertEquals(10, counts.getDayNumShards(1, 10));
+        assertEquals(60, counts.getDayNumShards(60, 100));
+        
+        // datatypes are sized by their busiest day
+        assertEquals(250L, (long) counts.getPeakDailyValues().get("csv"));
+        assertEquals(5000L, (long) counts.getPeakDailyValues().get("wikipedia"));
+        
+        // only the datatypes that need a different number of shards than the day has get an entry
+        assertEquals(Collections.singletonMap("csv", 3), counts.getDatatypeNumShards(50, 100));
+        Map<String,Integer> expected = new TreeMap<>();
+        expected.put("csv", 3);
+        expected.put("wikipedia", 50);
+        assertEquals(expected, counts.getDatatypeNumShards(52, 0));
+        
+        // a heavy datatype gets more shards than the day has, up to the most shards of a datatype
+        assertEquals(expected, counts.getDatatypeNumShards(10, 100));
+        expected.put("wikipedia", 20);
+        assertEquals(expected, counts.getDatatypeNumShards(10, 20));
+    }
+    
+    @Test
+    public void testGetSplits() {
+        Map<String,Integer> datatypeNumShards = new TreeMap<>();
+        datatypeNumShards.put("csv", 2);
+        assertEquals(3, SkewAwareShardCounts.getSplits("20170101", 3, datatypeNumShards).size());
+        
+        // the splits cover the extra shards of a heavy datatype
+        datatypeNumShards.put("wikipedia", 5);
+        SortedSet<Text> splits = SkewAwareShardCounts.getSplits("20170101", 3, datatypeNumShards);
+        assertEquals(5, splits.size());
+        for (int shard = 0; shard < 5; shard++) {
+            assertTrue(splits.contains(new Text("20170101_" + shard)));
+        }
+    }
+    
+    @Test
+    public void testRead() throws Exception {
+        InMemoryInstance instance = new InMemoryInstance("skewAwareShardCounts");
+        Connector connector = instance.getConnector("root", new PasswordToken());
+        connector.tableOperations().create(TableName.METADATA);
+        BatchWriter writer = connector.createBatchWriter(TableName.METADATA, new BatchWriterConfig());
+        Mutation m = new Mutation("FIELD_A");
+        m.put(ColumnFamilyConstants.COLF_F.toString(), "csv\u000020170101", new Value(SummingCombiner.VAR_LEN_ENCODER.encode(300L)));
+        m.put(ColumnFamilyConstants.COLF_F.toString(), "csv\u000020170105", new Value(SummingCombiner.VAR_LEN_ENCODER.encode(900L)));
+        m.put(ColumnFamilyConstants.COLF_E.toString(), "csv", new Value(new byte[0]));
+        writer.addMutation(m);
+        m = new Mutation("FIELD_B");
+        m.put(ColumnFamilyConstants.COLF_F.toString(), "csv\u000020170102", new Value(SummingCombiner.VAR_LEN_ENCODER.encode(100L)));
+        writer.addMutation(m);
+        writer.close();
+        
+        SkewAwareShardCounts counts = new SkewAwareShardCounts(100);
+        counts.read(connector, TableName.METADATA, "20170101", "20170104");
+        assertEquals(new HashSet<>(Arrays.asList("20170101", "20170102")), counts.getDays());
+        assertEquals(200L, (long) counts.getDailyValues().get("csv"));
+    }
+    
+    @Test
+    public void testCreateMutation() {
+        Set<String> existing = new HashSet<>(Arrays.asList("20170101_2_csv", "20170101_4_json"));
+        Map<String,Integer> datatypeNumShards = new TreeMap<>();
+        datatypeNumShards.put("csv", 2);
+        datatypeNumShards.put("json", 5);
+        
+        List<ColumnUpdate> updates = SkewAwareShardCounts.createMutation("20170101", 13, datatypeNumShards, existing).getUpdates();
+        assertEquals(3, updates.size());
+        assertUpdate(updates.get(0), NumShards.DATATYPE_NUM_SHARDS_CF.toString(), "20170101_4_json", true);
+        assertUpdate(updates.get(1), NumShards.NUM_SHARDS_CF.toString(), "20170101_13", false);
+        assertUpdate(updates.get(2), NumShards.DATATYPE_NUM_SHARDS_CF.toString(), "20170101_5_json", false);
+        
+        // nothing changed
+        datatypeNumShards.put("json", 4);
+        assertEquals(0, SkewAwareShardCounts.createMutation("20170101", null, datatypeNumShards, existing).size());
+    }
+    
+    @Test
+    public void testPartition() {
+        int dayShards = 13;
+        Set<Integer> partitions = new HashSet<>();
+        for (int hash = 0; hash < 1000; hash++) {
+            assertEquals(hash % dayShards, ShardIdFactory.getPartition(hash, dayShards, "csv", dayShards));
+            // a heavy datatype also uses the shards above the day's count
+            assertEquals(hash % 20, ShardIdFactory.getPartition(hash, dayShards, "wikipedia", 20));
+            int partition = ShardIdFactory.getPartition(hash, dayShards, "csv", 3);
+            assertTrue(partition >= 0 && partition < dayShards);
+            partitions.add(partition);
+        }
+        assertEquals(3, partitions.size());
+    }
+    
+    private static void assertUpdate(ColumnUpdate update, String columnFamily, String columnQualifier, boolean deleted) {
+        assertEquals(columnFamily, new String(update.getColumnFamily()));
+        assertEquals(columnQualifier, new String(update.getColumnQualifier()));
+        assertEquals(deleted, update.isDeleted());
+    }
+}
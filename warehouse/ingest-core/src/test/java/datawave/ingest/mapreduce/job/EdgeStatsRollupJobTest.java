@@ -0,0 +1,22 @@
+package datawave.ingest.mapreduce.job;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.text.ParseException;
+
+import org.junit.Test;
+
+public class EdgeStatsRollupJobTest {
+    
+    @Test
+    public void testGetDateRange() throws ParseException {
+        assertArrayEquals(new String[] {"20190101", "20190131"}, EdgeStatsRollupJob.getDateRange("201901"));
+        assertArrayEquals(new String[] {"20200201", "20200229"}, EdgeStatsRollupJob.getDateRange("202002"));
+        assertArrayEquals(new String[] {"20190201", "20190228"}, EdgeStatsRollupJob.getDateRange("201902"));
+    }
+    
+    @Test(expected = ParseException.class)
+    public void testGetDateRangeOfInvalidMonth() throws ParseException {
+        EdgeStatsRollupJob.getDateRange("201913");
+    }
+}
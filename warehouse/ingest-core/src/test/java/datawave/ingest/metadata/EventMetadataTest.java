@@ -14,12 +14,14 @@ import com.google.common.collect.Multimap;
 import datawave.IdentityDataType;
 import datawave.TestBaseIngestHelper;
 import datawave.TestAbstractContentIngestHelper;
+import datawave.data.sketch.FieldSketch;
 import datawave.ingest.data.RawRecordContainer;
 import datawave.ingest.data.Type;
 import datawave.ingest.data.config.NormalizedContentInterface;
 import datawave.ingest.data.config.NormalizedFieldAndValue;
 import datawave.ingest.data.config.ingest.BaseIngestHelper;
 import datawave.ingest.mapreduce.job.BulkIngestKey;
+import datawave.util.time.DateHelper;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Value;
@@ -205,6 +207,30 @@ public class EventMetadataTest {
         EasyMock.verify(event);
     }
     
+    @Test
+    public void testCreatesSketches() throws IOException {
+        setupMocks();
+        EventMetadata eventMetadata = new EventMetadata(null, METADATA_TABLE_NAME, LOADDATES_TABLE_NAME, INDEX_TABLE_NAME, RINDEX_TABLE_NAME, true);
+        Text expectedColumnQualifier = new Text(DATA_TYPE + RawRecordMetadata.DELIMITER + DateHelper.format(event.getDate()));
+        BulkIngestKey expectedBulkIngestKey = createExpectedBulkIngestKey(FieldSketch.COLF_SKETCH, METADATA_TABLE_NAME, FIELD_TO_COUNT,
+                        expectedColumnQualifier);
+        
+        eventMetadata.addEvent(helper, event, createEventFields(), getLoadDateAsMillis());
+        Assert.assertFalse(assertContainsKey(eventMetadata, expectedBulkIngestKey));
+        
+        eventMetadata.clear();
+        eventMetadata.setSketch(true);
+        eventMetadata.addEvent(helper, event, createEventFields(), getLoadDateAsMillis());
+        Collection<Value> values = getCorrespondingValue(eventMetadata, expectedBulkIngestKey);
+        Assert.assertNotNull(values);
+        Assert.assertEquals(1, values.size());
+        FieldSketch sketch = FieldSketch.fromBytes(values.iterator().next().get());
+        Assert.assertEquals(1L, sketch.getCount());
+        Assert.assertEquals(1L, sketch.getCardinality());
+        
+        EasyMock.verify(event);
+    }
+    
     private void assertFieldNameCountEquals(long expectedCount, Text tableName, String fieldName, RawRecordMetadata eventMetadata) {
         Text expectedColumnFamily = new Text(FIELD_NAME + RawRecordMetadata.DELIMITER + tableName);
         Text expectedColumnQualifier = new Text(VALUE_FOR_LOAD_DATE + RawRecordMetadata.DELIMITER + DATA_TYPE);
@@ -0,0 +1,182 @@
+package datawave.iterators;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import datawave.edge.util.EdgeKey;
+import datawave.edge.util.EdgeValue;
+import datawave.edge.util.EdgeValueHelper;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.hadoop.io.Text;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EdgeStatsRollupIteratorTest {
+    
+    private TreeMap<Key,Value> data;
+    
+    @Before
+    public void setup() {
+        data = new TreeMap<>();
+        addActivity("SOURCE", "20190101", "A", 1, 3);
+        addActivity("SOURCE", "20190115", "A", 2, 3);
+        addActivity("SOURCE", "20190203", "A", 3, 5);
+        addActivity("SOURCE", "20190204", "B", 4, 5);
+        addActivity("SOURCE2", "20190101", "A", 5, 3);
+        
+        EdgeKey edge = EdgeKey.newBuilder(EdgeKey.EDGE_FORMAT.STANDARD).setSourceData("SOURCE").setSinkData("SINK").setType("TYPE")
+                        .setSourceRelationship("FROM").setSinkRelationship("TO").setSourceAttribute1("CAT").setSinkAttribute1("CAT").setYyyymmdd("20190101")
+                        .setDateType(EdgeKey.DATE_TYPE.EVENT_ONLY).setColvis(new Text("A")).setTimestamp(1L).build();
+        EdgeValue.EdgeValueBuilder value = EdgeValue.newBuilder();
+        value.setCount(1L);
+        data.put(edge.encode(), value.build().encode());
+    }
+    
+    @Test
+    public void testRollupAll() throws IOException {
+        Map<Key,Value> results = scan(options(EdgeStatsRollupIterator.Granularity.ALL, false, false), new Range());
+        
+        // SOURCE A, SOURCE B, SOURCE2 A and the standard edge
+        assertEquals(4, results.size());
+        
+        Key sourceA = findStats(results, "SOURCE", "A");
+        assertEquals("20190101", EdgeKey.decode(sourceA).getYyyymmdd());
+        assertEquals(3L, sourceA.getTimestamp());
+        assertEquals(2L, hour(results.get(sourceA), 3));
+        assertEquals(1L, hour(results.get(sourceA), 5));
+        
+        Key sourceB = findStats(results, "SOURCE", "B");
+        assertEquals("20190204", EdgeKey.decode(sourceB).getYyyymmdd());
+        assertEquals(1L, hour(results.get(sourceB), 5));
+    }
+    
+    @Test
+    public void testRollupMonth() throws IOException {
+        Map<Key,Value> results = scan(options(EdgeStatsRollupIterator.Granularity.MONTH, false, true), new Range());
+        
+        // SOURCE A January, SOURCE A February, SOURCE B February, SOURCE2 A January
+        assertEquals(4, results.size());
+        
+        Map<String,Long> hour3 = new HashMap<>();
+        for (Map.Entry<Key,Value> entry : results.entrySet()) {
+            EdgeKey edgeKey = EdgeKey.decode(entry.getKey());
+            assertEquals(EdgeKey.EDGE_FORMAT.STATS, edgeKey.getFormat());
+            assertTrue(edgeKey.getYyyymmdd().endsWith("01"));
+            hour3.put(edgeKey.getSourceData() + '/' + edgeKey.getYyyymmdd() + '/' + entry.getKey().getColumnVisibility(), hour(entry.getValue(), 3));
+        }
+        assertEquals(Long.valueOf(2L), hour3.get("SOURCE/20190101/A"));
+        assertEquals(Long.valueOf(0L), hour3.get("SOURCE/20190201/A"));
+        assertEquals(Long.valueOf(0L), hour3.get("SOURCE/20190201/B"));
+        assertEquals(Long.valueOf(1L), hour3.get("SOURCE2/20190101/A"));
+    }
+    
+    @Test
+    public void testMergeVisibilities() throws IOException {
+        Map<String,String> options = options(EdgeStatsRollupIterator.Granularity.ALL, true, true);
+        options.put(EdgeStatsRollupIterator.START_DATE_OPTION, "20190110");
+        options.put(EdgeStatsRollupIterator.END_DATE_OPTION, "20190228");
+        Map<Key,Value> results = scan(options, new Range());
+        
+        // the SOURCE2 stats edge is out of the date range
+        assertEquals(1, results.size());
+        Key key = results.keySet().iterator().next();
+        assertEquals("A&B", key.getColumnVisibility().toString());
+        assertEquals("20190115", EdgeKey.decode(key).getYyyymmdd());
+        assertEquals(1L, hour(results.get(key), 3));
+        assertEquals(2L, hour(results.get(key), 5));
+    }
+    
+    @Test
+    public void testReseek() throws IOException {
+        Map<String,String> options = options(EdgeStatsRollupIterator.Granularity.MONTH, false, false);
+        List<Key> expected = new ArrayList<>(scan(options, new Range()).keySet());
+        
+        // resume after each returned key, the way a scanner does after a full batch
+        List<Key> resumed = new ArrayList<>();
+        Range range = new Range();
+        EdgeStatsRollupIterator iterator = create(options);
+        iterator.seek(range, Collections.<ByteSequence> emptyList(), false);
+        while (iterator.hasTop()) {
+            Key top = new Key(iterator.getTopKey());
+            resumed.add(top);
+            iterator = create(options);
+            iterator.seek(new Range(top, false, null, true), Collections.<ByteSequence> emptyList(), false);
+        }
+        assertEquals(expected, resumed);
+    }
+    
+    @Test
+    public void testValidateOptions() {
+        EdgeStatsRollupIterator iterator = new EdgeStatsRollupIterator();
+        assertTrue(iterator.validateOptions(options(EdgeStatsRollupIterator.Granularity.MONTH, false, false)));
+        Map<String,String> options = new HashMap<>();
+        options.put(EdgeStatsRollupIterator.GRANULARITY_OPTION, "WEEK");
+        assertFalse(iterator.validateOptions(options));
+    }
+    
+    private void addActivity(String source, String date, String visibility, long timestamp, int hour) {
+        EdgeKey key = EdgeKey.newBuilder(EdgeKey.EDGE_FORMAT.STATS).setSourceData(source).setStatsType(EdgeKey.STATS_TYPE.ACTIVITY).setType("TYPE")
+                        .setSourceRelationship("FROM").setSourceAttribute1("CAT").setYyyymmdd(date).setDateType(EdgeKey.DATE_TYPE.EVENT_ONLY)
+                        .setColvis(new Text(visibility)).setTimestamp(timestamp).build();
+        EdgeValue.EdgeValueBuilder value = EdgeValue.newBuilder();
+        value.setHours(EdgeValueHelper.getLongListForHour(hour, false));
+        data.put(key.encode(), value.build().encode());
+    }
+    
+    private Map<String,String> options(EdgeStatsRollupIterator.Granularity granularity, boolean mergeVisibilities, boolean statsOnly) {
+        Map<String,String> options = new HashMap<>();
+        options.put(EdgeStatsRollupIterator.GRANULARITY_OPTION, granularity.name());
+        options.put(EdgeStatsRollupIterator.MERGE_VISIBILITIES_OPTION, Boolean.toString(mergeVisibilities));
+        options.put(EdgeStatsRollupIterator.STATS_ONLY_OPTION, Boolean.toString(statsOnly));
+        return options;
+    }
+    
+    private EdgeStatsRollupIterator create(Map<String,String> options) throws IOException {
+        EdgeStatsRollupIterator iterator = new EdgeStatsRollupIterator();
+        iterator.init(new SortedMapIterator(data), options, null);
+        return iterator;
+    }
+    
+    private Map<Key,Value> scan(Map<String,String> options, Range range) throws IOException {
+        EdgeStatsRollupIterator iterator = create(options);
+        iterator.seek(range, Collections.<ByteSequence> emptyList(), false);
+        Map<Key,Value> results = new TreeMap<>();
+        while (iterator.hasTop()) {
+            results.put(new Key(iterator.getTopKey()), new Value(iterator.getTopValue()));
+            iterator.next();
+        }
+        return results;
+    }
+    
+    private static Key findStats(Map<Key,Value> results, String source, String visibility) {
+        for (Key key : results.keySet()) {
+            EdgeKey edgeKey = EdgeKey.decode(key);
+            if (edgeKey.getFormat() == EdgeKey.EDGE_FORMAT.STATS && edgeKey.getSourceData().equals(source)
+                            && key.getColumnVisibility().toString().equals(visibility)) {
+                return key;
+            }
+        }
+        throw new AssertionError("No stats edge for " + source + " " + visibility);
+    }
+    
+    private static long hour(Value value, int hour) {
+        try {
+            return EdgeValueHelper.decodeActivityHistogram(EdgeValue.decode(value).getHours()).get(hour);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
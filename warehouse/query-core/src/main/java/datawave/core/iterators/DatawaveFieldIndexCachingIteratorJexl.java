@@ -47,6 +47,7 @@ import java.util.Random;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
@@ -355,6 +356,9 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
     
     protected GenericObjectPool<SortedKeyValueIterator<Key,Value>> ivaratorSourcePool = null;
     
+    // the configured size of the ivarator source pool, which is shrunk while the tserver is throttling ivarator fills
+    protected int maxIvaratorSources = -1;
+    
     // -------------------------------------------------------------------------
     // ------------- Constructors
     
@@ -396,6 +400,9 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
         
         this.queryId = builder.queryId;
         this.ivaratorSourcePool = builder.ivaratorSourcePool;
+        if (this.ivaratorSourcePool != null) {
+            this.maxIvaratorSources = this.ivaratorSourcePool.getMaxActive();
+        }
         
         if (builder.fieldName.toString().startsWith("fi" + NULL_BYTE)) {
             this.fieldName = new Text(builder.fieldName.toString().substring(3));
@@ -808,6 +815,10 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
                     forcePersistence();
                 }
                 
+                if (this.set != null) {
+                    addBytesSpilled(this.set.getPersistedBytes());
+                }
+                
                 if (this.keys == null) {
                     this.keys = new CachingIterator<>(this.threadSafeSet.iterator());
                 }
@@ -871,6 +882,11 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
         
         TotalResults totalResults = new TotalResults(maxResults);
         
+        // only hold as many sources as the tserver currently allows fills to run
+        if (ivaratorSourcePool != null && maxIvaratorSources > 0) {
+            ivaratorSourcePool.setMaxActive(IteratorThreadPoolManager.getIvaratorLoadController(initEnv).getSourceLimit(maxIvaratorSources));
+        }
+        
         for (Range range : boundingFiRanges) {
             if (log.isTraceEnabled()) {
                 log.trace("range -> " + range);
@@ -1074,6 +1090,9 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
      */
     protected Future<?> fillSet(final Range boundingFiRange, final TotalResults totalResults) {
         
+        final IvaratorLoadController loadController = IteratorThreadPoolManager.getIvaratorLoadController(initEnv);
+        final long submitted = System.nanoTime();
+        
         // this will block until an ivarator source becomes available
         final SortedKeyValueIterator<Key,Value> source = takePoolSource();
         
@@ -1087,11 +1106,16 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
             QuerySpan querySpan = null;
             Key nextSeekKey = null;
             int nextCount = 0;
+            long started = -1;
             try {
                 if (collectTimingDetails && source instanceof SourceTrackingIterator) {
                     querySpan = ((SourceTrackingIterator) source).getQuerySpan();
                 }
                 
+                // this will block while the tserver is throttling ivarator fills
+                loadController.acquire();
+                started = System.nanoTime();
+                
                 // seek the source to a range covering the entire row....the bounding box will dictate the actual scan
                 source.seek(boundingFiRange, EMPTY_CFS, false);
                 scanned++;
@@ -1188,6 +1212,14 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
             } finally {
                 // return the ivarator source back to the pool.
                 returnPoolSource(source);
+                if (started >= 0) {
+                    long fillTime = System.nanoTime() - started;
+                    long waitTime = started - submitted;
+                    loadController.release(scanned, fillTime, waitTime);
+                    if (querySpan != null) {
+                        querySpan.addIvaratorFill(TimeUnit.NANOSECONDS.toMillis(fillTime), TimeUnit.NANOSECONDS.toMillis(waitTime));
+                    }
+                }
                 if (log.isDebugEnabled()) {
                     StringBuilder builder = new StringBuilder();
                     builder.append("Matched ").append(matched).append(" out of ").append(scanned).append(" for ").append(boundingFiRange).append(": ")
@@ -1204,6 +1236,25 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
         
     }
     
+    /**
+     * Record the bytes spilled to the ivarator cache dirs with the tserver and, when collecting timing details, with the query
+     *
+     * @param bytes
+     *            the bytes spilled
+     */
+    protected void addBytesSpilled(long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        IteratorThreadPoolManager.getIvaratorLoadController(initEnv).addBytesSpilled(bytes);
+        if (collectTimingDetails && querySpanCollector != null) {
+            QuerySpan querySpan = new QuerySpan(null);
+            querySpan.setSourceCount(0);
+            querySpan.addIvaratorBytesSpilled(bytes);
+            querySpanCollector.addQuerySpan(querySpan);
+        }
+    }
+    
     /**
      * Get the unique directory for a specific row
      *
@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.Map;
 
 import datawave.core.iterators.filter.GlobalIndexTermMatchingFilter;
+import datawave.query.Constants;
 
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
@@ -14,11 +15,13 @@ import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.OptionDescriber;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
 
 public class GlobalIndexTermMatchingIterator extends GlobalIndexTermMatchingFilter implements SortedKeyValueIterator<Key,Value>, OptionDescriber {
     
     public static final String UNIQUE_TERMS_IN_FIELD = "term.unique";
+    public static final String UNIQUE_TERMS_PER_DAY = "term.unique.day";
     private static final Logger log = Logger.getLogger(GlobalIndexTermMatchingIterator.class);
     
     private SortedKeyValueIterator<Key,Value> source;
@@ -30,6 +33,7 @@ public class GlobalIndexTermMatchingIterator extends GlobalIndexTermMatchingFilt
     private boolean scanInclusive;
     
     protected boolean uniqueTermsOnly = false;
+    protected boolean uniqueTermsPerDay = false;
     
     public GlobalIndexTermMatchingIterator() throws IOException {}
     
@@ -129,7 +133,7 @@ public class GlobalIndexTermMatchingIterator extends GlobalIndexTermMatchingFilt
          * nexts a few times for giving up and seek'ing for the following row, column family
          */
         Key endKey = scanRange.getEndKey();
-        Key next = top.followingKey(PartialKey.ROW_COLFAM);
+        Key next = uniqueTermsPerDay ? followingDay(top) : top.followingKey(PartialKey.ROW_COLFAM);
         // we've surpassed the end range
         if (null != endKey && next.compareTo(endKey) > 0) {
             next = scanRange.getEndKey();
@@ -149,6 +153,19 @@ public class GlobalIndexTermMatchingIterator extends GlobalIndexTermMatchingFilt
         }
     }
     
+    /**
+     * @return the key following every shard of the same day as the top key, whose column qualifier is shard_id\0datatype with shard ids of the form
+     *         yyyyMMdd_n
+     */
+    private Key followingDay(final Key top) {
+        String cq = top.getColumnQualifier().toString();
+        int index = cq.indexOf('_');
+        if (index < 0) {
+            return top.followingKey(PartialKey.ROW_COLFAM);
+        }
+        return new Key(top.getRow(), top.getColumnFamily(), new Text(cq.substring(0, index) + Constants.MAX_UNICODE_STRING));
+    }
+    
     protected void setSource(SortedKeyValueIterator<Key,Value> source) {
         this.source = source;
     }
@@ -164,6 +181,7 @@ public class GlobalIndexTermMatchingIterator extends GlobalIndexTermMatchingFilt
         io.addNamedOption(PATTERN + "i", "A regex value to match");
         io.addNamedOption(REVERSE_INDEX, "Boolean denoting whether we are matching against a reverse index");
         io.addNamedOption(UNIQUE_TERMS_IN_FIELD, "Advances the term when one is found, ignoring the fact that the term may exist on multiple shards");
+        io.addNamedOption(UNIQUE_TERMS_PER_DAY, "With unique terms, advances to the next shard day rather than the next term when one is found");
         io.setDescription("GlobalIndexTermMatchingIterator uses a set of literals and regexs to match global index keys");
         return io;
     }
@@ -180,6 +198,9 @@ public class GlobalIndexTermMatchingIterator extends GlobalIndexTermMatchingFilt
             uniqueTermsOnly = new Boolean(options.get(UNIQUE_TERMS_IN_FIELD));
             
         }
+        if (options.containsKey(UNIQUE_TERMS_PER_DAY)) {
+            uniqueTermsPerDay = Boolean.parseBoolean(options.get(UNIQUE_TERMS_PER_DAY));
+        }
         return valid;
     }
     
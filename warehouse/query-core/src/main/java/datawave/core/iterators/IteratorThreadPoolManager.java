@@ -1,5 +1,6 @@
 package datawave.core.iterators;
 
+import java.lang.management.ManagementFactory;
 import java.util.Map;
 import java.util.Objects;
 import java.util.TreeMap;
@@ -29,23 +30,49 @@ public class IteratorThreadPoolManager {
     
     private Map<String,ExecutorService> threadPools = new TreeMap<>();
     
+    private IvaratorLoadController ivaratorLoadController;
+    
     private static final Object instanceSemaphore = new Object();
     private static final String instanceId = Integer.toHexString(instanceSemaphore.hashCode());
     private static volatile IteratorThreadPoolManager instance;
     
     private IteratorThreadPoolManager(IteratorEnvironment env) {
         // create the thread pools
-        createExecutorService(IVARATOR_THREAD_PROP, IVARATOR_THREAD_NAME, env);
+        ThreadPoolExecutor ivaratorService = createExecutorService(IVARATOR_THREAD_PROP, IVARATOR_THREAD_NAME, env);
         createExecutorService(EVALUATOR_THREAD_PROP, EVALUATOR_THREAD_NAME, env);
+        
+        // limit the concurrent ivarator fills to what the tserver can sustain, never more than the ivarator threads
+        ivaratorLoadController = new IvaratorLoadController(ivaratorService.getMaximumPoolSize());
+        SimpleTimer.getInstance(getConfiguration(env)).schedule(() -> {
+            try {
+                ivaratorLoadController.setMaxLimit(ivaratorService.getMaximumPoolSize());
+                int limit = ivaratorLoadController.getLimit();
+                if (ivaratorLoadController.adjust(getLoadPerCore()) != limit) {
+                    log.info("Changing the concurrent ivarator fills from " + limit + " to " + ivaratorLoadController.getLimit() + ": "
+                                    + ivaratorLoadController);
+                } else if (log.isDebugEnabled()) {
+                    log.debug("Ivarator fills " + ivaratorLoadController);
+                }
+            } catch (Throwable t) {
+                log.error(t, t);
+            }
+        }, 1000, 1000);
     }
     
-    private ThreadPoolExecutor createExecutorService(final String prop, final String name, IteratorEnvironment env) {
-        final AccumuloConfiguration accumuloConfiguration;
+    private AccumuloConfiguration getConfiguration(IteratorEnvironment env) {
         if (env != null) {
-            accumuloConfiguration = env.getConfig();
+            return env.getConfig();
         } else {
-            accumuloConfiguration = DefaultConfiguration.getInstance();
+            return DefaultConfiguration.getInstance();
         }
+    }
+    
+    private double getLoadPerCore() {
+        return ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage() / Runtime.getRuntime().availableProcessors();
+    }
+    
+    private ThreadPoolExecutor createExecutorService(final String prop, final String name, IteratorEnvironment env) {
+        final AccumuloConfiguration accumuloConfiguration = getConfiguration(env);
         final ThreadPoolExecutor service = createExecutorService(getMaxThreads(prop, accumuloConfiguration), name + " (" + instanceId + ')');
         threadPools.put(name, service);
         SimpleTimer.getInstance(accumuloConfiguration).schedule(() -> {
@@ -109,6 +136,13 @@ public class IteratorThreadPoolManager {
         return instance(env).execute(IVARATOR_THREAD_NAME, task, taskName);
     }
     
+    /**
+     * @return the controller of the concurrent ivarator fills and the tserver wide ivarator metrics
+     */
+    public static IvaratorLoadController getIvaratorLoadController(IteratorEnvironment env) {
+        return instance(env).ivaratorLoadController;
+    }
+    
     public static Future<?> executeEvaluation(Runnable task, String taskName, IteratorEnvironment env) {
         return instance(env).execute(EVALUATOR_THREAD_NAME, task, taskName);
     }
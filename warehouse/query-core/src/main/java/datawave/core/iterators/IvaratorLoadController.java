@@ -0,0 +1,216 @@
+package datawave.core.iterators;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of ivarator fill tasks that run at once on a tablet server, and with it the number of ivarator sources a query may hold. The limit starts
+ * at the size of the ivarator thread pool and is adjusted by {@link #adjust(double)}: it is cut when the tablet server is loaded or when the throughput of a
+ * fill task drops well below the best recently seen, which is what happens when too many fills compete for the same disks, and it is raised again one task at a
+ * time while fills are waiting for a slot and throughput holds.
+ * <p>
+ * The controller also keeps the tablet server wide ivarator metrics: the ranges filled, the time spent filling and waiting to fill, and the bytes spilled to
+ * the ivarator cache dirs.
+ */
+public class IvaratorLoadController {
+    
+    /**
+     * The load average per core above which fills are throttled
+     */
+    public static final double DEFAULT_MAX_LOAD = 2.0;
+    
+    /**
+     * The fraction of the limit that is kept when it is cut
+     */
+    protected static final double DECREASE = 0.75;
+    
+    /**
+     * The fraction of the best throughput below which a fill is considered to be contending with the others
+     */
+    protected static final double TOLERANCE = 0.5;
+    
+    /**
+     * How much of the best throughput is retained each adjustment, so that it tracks the current data
+     */
+    protected static final double DECAY = 0.95;
+    
+    private final int minLimit;
+    private final double maxLoad;
+    private int maxLimit;
+    private int limit;
+    private int active = 0;
+    private boolean saturated = false;
+    private double bestThroughput = 0;
+    
+    // the fills that completed since the last adjustment
+    private long windowKeys = 0;
+    private long windowFillNanos = 0;
+    
+    private final AtomicLong ranges = new AtomicLong();
+    private final AtomicLong keys = new AtomicLong();
+    private final AtomicLong fillNanos = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong bytesSpilled = new AtomicLong();
+    
+    public IvaratorLoadController(int maxLimit) {
+        this(1, maxLimit, DEFAULT_MAX_LOAD);
+    }
+    
+    /**
+     * @param minLimit
+     *            the fewest fills that are always allowed to run at once
+     * @param maxLimit
+     *            the most fills that may run at once, normally the size of the ivarator thread pool
+     * @param maxLoad
+     *            the load average per core above which the limit is cut
+     */
+    public IvaratorLoadController(int minLimit, int maxLimit, double maxLoad) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.maxLoad = maxLoad;
+        this.limit = this.maxLimit;
+    }
+    
+    /**
+     * Blocks until a fill may run
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (active >= limit) {
+            saturated = true;
+            wait();
+        }
+        active++;
+    }
+    
+    /**
+     * Records a fill that completed and lets the next one run
+     *
+     * @param scannedKeys
+     *            the field index keys the fill scanned
+     * @param fillTime
+     *            the nanoseconds the fill ran for
+     * @param waitTime
+     *            the nanoseconds the fill waited for a source, a thread and a slot
+     */
+    public synchronized void release(long scannedKeys, long fillTime, long waitTime) {
+        active--;
+        windowKeys += scannedKeys;
+        windowFillNanos += fillTime;
+        ranges.incrementAndGet();
+        keys.addAndGet(scannedKeys);
+        fillNanos.addAndGet(fillTime);
+        waitNanos.addAndGet(waitTime);
+        notifyAll();
+    }
+    
+    public void addBytesSpilled(long bytes) {
+        bytesSpilled.addAndGet(bytes);
+    }
+    
+    /**
+     * Adjusts the limit from the fills that completed since the last adjustment
+     *
+     * @param loadPerCore
+     *            the system load average per core, or a negative value if it is not available
+     * @return the new limit
+     */
+    public synchronized int adjust(double loadPerCore) {
+        int previous = limit;
+        boolean overloaded = loadPerCore > maxLoad;
+        if (windowKeys > 0 && windowFillNanos > 0) {
+            double throughput = windowKeys / (double) windowFillNanos;
+            bestThroughput = Math.max(bestThroughput * DECAY, throughput);
+            if (overloaded || throughput < bestThroughput * TOLERANCE) {
+                limit = Math.max(minLimit, (int) (limit * DECREASE));
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        } else if (!overloaded) {
+            // nothing completed, so recover towards the maximum
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        windowKeys = 0;
+        windowFillNanos = 0;
+        saturated = false;
+        if (limit > previous) {
+            notifyAll();
+        }
+        return limit;
+    }
+    
+    /**
+     * @param maxLimit
+     *            the most fills that may run at once, normally the size of the ivarator thread pool
+     */
+    public synchronized void setMaxLimit(int maxLimit) {
+        this.maxLimit = Math.max(minLimit, maxLimit);
+        if (limit > this.maxLimit) {
+            limit = this.maxLimit;
+        }
+    }
+    
+    public synchronized int getMaxLimit() {
+        return maxLimit;
+    }
+    
+    public synchronized int getLimit() {
+        return limit;
+    }
+    
+    public synchronized int getActive() {
+        return active;
+    }
+    
+    /**
+     * @param maxSources
+     *            the ivarator sources configured for a query
+     * @return the ivarator sources a query may currently hold
+     */
+    public int getSourceLimit(int maxSources) {
+        return Math.max(1, Math.min(maxSources, getLimit()));
+    }
+    
+    /**
+     * @return the ranges filled on this tablet server
+     */
+    public long getRanges() {
+        return ranges.get();
+    }
+    
+    /**
+     * @return the field index keys scanned by the fills on this tablet server
+     */
+    public long getKeys() {
+        return keys.get();
+    }
+    
+    /**
+     * @return the milliseconds spent filling on this tablet server
+     */
+    public long getFillTime() {
+        return TimeUnit.NANOSECONDS.toMillis(fillNanos.get());
+    }
+    
+    /**
+     * @return the milliseconds fills waited for a source, a thread and a slot on this tablet server
+     */
+    public long getWaitTime() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+    }
+    
+    /**
+     * @return the bytes spilled to the ivarator cache dirs on this tablet server
+     */
+    public long getBytesSpilled() {
+        return bytesSpilled.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "limit:" + getLimit() + "/" + getMaxLimit() + " active:" + getActive() + " ranges:" + getRanges() + " keys:" + getKeys() + " fillTime:"
+                        + getFillTime() + " waitTime:" + getWaitTime() + " bytesSpilled:" + getBytesSpilled();
+    }
+}
@@ -0,0 +1,255 @@
+package datawave.core.iterators.querylock;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A query lock that caches the state of another query lock for a lease period. The ivarators of a query on a tablet server all share one lease, so they do not
+ * each create a zookeeper client or check for hdfs files: within the lease a check is answered locally, and the leases of all of the queries on the tablet
+ * server are renewed together by a single background thread before they expire. Once the underlying lock reports the query as stopped, that is kept for the
+ * life of the lease since a stopped query never restarts. A lease that has not been checked for two lease periods is dropped and its underlying lock is cleaned
+ * up.
+ * <p>
+ * The time spent checking the underlying lock is kept with each lease, and reported when the lease is dropped.
+ */
+public class LeaseQueryLock implements QueryLock {
+    private static Logger log = Logger.getLogger(LeaseQueryLock.class);
+    
+    /**
+     * How often the leases are renewed and the idle leases dropped
+     */
+    protected static final long RENEWAL_INTERVAL = 1000;
+    
+    /**
+     * An average check of the underlying lock slower than this is reported at info
+     */
+    protected static final long SLOW_CHECK_MS = 1000;
+    
+    private static final ConcurrentMap<String,LeaseQueryLock> leases = new ConcurrentHashMap<>();
+    private static Timer timer = null;
+    
+    private final String key;
+    private final QueryLock delegate;
+    private final long leaseDuration;
+    
+    private volatile boolean stopped = false;
+    private volatile boolean released = false;
+    private volatile long leaseExpiration = 0;
+    private volatile long lastAccess;
+    
+    private final AtomicLong localChecks = new AtomicLong();
+    private final AtomicLong remoteChecks = new AtomicLong();
+    private final AtomicLong remoteCheckNanos = new AtomicLong();
+    private final AtomicLong maxRemoteCheckNanos = new AtomicLong();
+    
+    protected LeaseQueryLock(String key, QueryLock delegate, long leaseDuration) {
+        this.key = key;
+        this.delegate = delegate;
+        this.leaseDuration = leaseDuration;
+        this.lastAccess = System.currentTimeMillis();
+    }
+    
+    /**
+     * @param key
+     *            the key of the lease, which identifies the query and the configuration of its underlying lock
+     * @return the lease on this tablet server, or null if there is none
+     */
+    public static LeaseQueryLock getLease(String key) {
+        return leases.get(key);
+    }
+    
+    /**
+     * Get the lease for a key, creating it if there is none
+     *
+     * @param key
+     *            the key of the lease, which identifies the query and the configuration of its underlying lock
+     * @param delegate
+     *            the underlying lock, which is cleaned up if another lease was created first
+     * @param leaseDuration
+     *            the milliseconds a check of the underlying lock is trusted for
+     * @return the lease
+     */
+    public static LeaseQueryLock lease(String key, QueryLock delegate, long leaseDuration) {
+        LeaseQueryLock lease = new LeaseQueryLock(key, delegate, leaseDuration);
+        LeaseQueryLock existing = leases.putIfAbsent(key, lease);
+        if (existing != null) {
+            cleanup(delegate);
+            return existing;
+        }
+        startTimer();
+        return lease;
+    }
+    
+    private static synchronized void startTimer() {
+        if (timer == null) {
+            timer = new Timer("Query Lock Lease Renewal", true);
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    try {
+                        renewLeases(System.currentTimeMillis());
+                    } catch (Throwable t) {
+                        log.error("Failed to renew query lock leases", t);
+                    }
+                }
+            }, RENEWAL_INTERVAL, RENEWAL_INTERVAL);
+        }
+    }
+    
+    /**
+     * Renew the leases that expire within half a lease period, and drop those that have not been checked for two lease periods
+     *
+     * @param now
+     *            the current time
+     */
+    static void renewLeases(long now) {
+        for (LeaseQueryLock lease : leases.values()) {
+            if (now - lease.lastAccess > 2 * lease.leaseDuration) {
+                lease.release();
+            } else if (!lease.stopped && lease.leaseExpiration - now < lease.leaseDuration / 2) {
+                lease.renew(now, true);
+            }
+        }
+    }
+    
+    private synchronized void release() {
+        if (leases.remove(key, this)) {
+            released = true;
+            cleanup(delegate);
+            String message = "Released query lock lease for " + key.replace('\0', ' ') + ": " + this;
+            if (remoteChecks.get() > 0 && getRemoteCheckTime() / remoteChecks.get() >= SLOW_CHECK_MS) {
+                log.info(message);
+            } else if (log.isDebugEnabled()) {
+                log.debug(message);
+            }
+        }
+    }
+    
+    private static void cleanup(QueryLock lock) {
+        try {
+            lock.cleanup();
+        } catch (Exception e) {
+            log.error("Unable to clean up query lock", e);
+        }
+    }
+    
+    private synchronized LeaseQueryLock reclaim() {
+        if (released) {
+            // the lease was dropped while still in use, so defer to the lease that replaced it or take it back
+            LeaseQueryLock current = leases.putIfAbsent(key, this);
+            if (current != null) {
+                return current;
+            }
+            released = false;
+        }
+        return this;
+    }
+    
+    private synchronized boolean renew(long now, boolean force) {
+        if (!stopped && (force || now >= leaseExpiration)) {
+            long start = System.nanoTime();
+            boolean running = delegate.isQueryRunning();
+            long elapsed = System.nanoTime() - start;
+            remoteChecks.incrementAndGet();
+            remoteCheckNanos.addAndGet(elapsed);
+            if (elapsed > maxRemoteCheckNanos.get()) {
+                maxRemoteCheckNanos.set(elapsed);
+            }
+            if (running) {
+                leaseExpiration = now + leaseDuration;
+            } else {
+                stopped = true;
+            }
+        }
+        return !stopped;
+    }
+    
+    @Override
+    public void startQuery() throws Exception {
+        delegate.startQuery();
+        stopped = false;
+        leaseExpiration = System.currentTimeMillis() + leaseDuration;
+    }
+    
+    @Override
+    public boolean isQueryRunning() {
+        return isQueryRunning(System.currentTimeMillis());
+    }
+    
+    boolean isQueryRunning(long now) {
+        if (released) {
+            LeaseQueryLock current = reclaim();
+            if (current != this) {
+                return current.isQueryRunning(now);
+            }
+        }
+        lastAccess = now;
+        if (stopped) {
+            localChecks.incrementAndGet();
+            return false;
+        }
+        if (now < leaseExpiration) {
+            localChecks.incrementAndGet();
+            return true;
+        }
+        return renew(now, false);
+    }
+    
+    @Override
+    public void stopQuery() throws Exception {
+        delegate.stopQuery();
+        stopped = true;
+    }
+    
+    /**
+     * The lease is shared by every user of the query lock on this tablet server, so the underlying lock is only cleaned up when the lease is dropped
+     */
+    @Override
+    public void cleanup() {
+        // noop
+    }
+    
+    public long getLeaseDuration() {
+        return leaseDuration;
+    }
+    
+    /**
+     * @return the checks answered from the lease
+     */
+    public long getLocalChecks() {
+        return localChecks.get();
+    }
+    
+    /**
+     * @return the checks of the underlying lock
+     */
+    public long getRemoteChecks() {
+        return remoteChecks.get();
+    }
+    
+    /**
+     * @return the milliseconds spent checking the underlying lock
+     */
+    public long getRemoteCheckTime() {
+        return TimeUnit.NANOSECONDS.toMillis(remoteCheckNanos.get());
+    }
+    
+    /**
+     * @return the milliseconds of the slowest check of the underlying lock
+     */
+    public long getMaxRemoteCheckTime() {
+        return TimeUnit.NANOSECONDS.toMillis(maxRemoteCheckNanos.get());
+    }
+    
+    @Override
+    public String toString() {
+        return "stopped:" + stopped + " localChecks:" + getLocalChecks() + " remoteChecks:" + getRemoteChecks() + " remoteCheckTime:" + getRemoteCheckTime()
+                        + " maxRemoteCheckTime:" + getMaxRemoteCheckTime();
+    }
+}
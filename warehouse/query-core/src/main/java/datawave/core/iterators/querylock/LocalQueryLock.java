@@ -0,0 +1,40 @@
+package datawave.core.iterators.querylock;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process query lock for tests and single process deployments. Like the {@link ZookeeperQueryLock}, it keeps a count of the starts of a query less its
+ * stops, and the query is considered running while the count is positive.
+ */
+public class LocalQueryLock implements QueryLock {
+    private static final ConcurrentMap<String,AtomicLong> runningQueries = new ConcurrentHashMap<>();
+    
+    private String queryId;
+    
+    public LocalQueryLock(String queryId) {
+        this.queryId = queryId;
+    }
+    
+    @Override
+    public void startQuery() {
+        runningQueries.computeIfAbsent(queryId, k -> new AtomicLong()).incrementAndGet();
+    }
+    
+    @Override
+    public boolean isQueryRunning() {
+        AtomicLong count = runningQueries.get(queryId);
+        return count != null && count.get() > 0;
+    }
+    
+    @Override
+    public void stopQuery() {
+        runningQueries.computeIfPresent(queryId, (k, count) -> count.decrementAndGet() > 0 ? count : null);
+    }
+    
+    @Override
+    public void cleanup() {
+        // noop, the lock lives as long as the process
+    }
+}
@@ -27,6 +27,8 @@ public interface QueryLock {
         private long cleanupInterval;
         private String ivaratorURIs;
         private String fstURIs;
+        private boolean local;
+        private long leaseDuration;
         
         public Builder forZookeeper(String zookeeperConfig, long cleanupInterval) {
             this.zookeeperConfig = zookeeperConfig;
@@ -54,6 +56,27 @@ public interface QueryLock {
             return this;
         }
         
+        /**
+         * @param local
+         *            whether to add an in-process lock, for tests and single process deployments
+         * @return the builder
+         */
+        public Builder forLocal(boolean local) {
+            this.local = local;
+            return this;
+        }
+        
+        /**
+         * @param leaseDuration
+         *            if positive, the milliseconds a check of the lock is trusted for by every user of the lock in this process
+         * @return the builder
+         * @see LeaseQueryLock
+         */
+        public Builder forLease(long leaseDuration) {
+            this.leaseDuration = leaseDuration;
+            return this;
+        }
+        
         public Builder forQueryId(String queryId) {
             this.queryId = queryId;
             return this;
@@ -64,7 +87,34 @@ public interface QueryLock {
         }
         
         public QueryLock build() throws ConfigException, MalformedURLException {
+            if (leaseDuration > 0 && queryId != null) {
+                String key = getLeaseKey();
+                QueryLock lock = LeaseQueryLock.getLease(key);
+                if (lock == null) {
+                    QueryLock delegate = buildLock();
+                    if (delegate != null) {
+                        lock = LeaseQueryLock.lease(key, delegate, leaseDuration);
+                    }
+                }
+                return lock;
+            }
+            return buildLock();
+        }
+        
+        private String getLeaseKey() {
+            return queryId + '\0' + zookeeperConfig + '\0' + hdfsSiteConfigs + '\0' + ivaratorURIs + '\0' + fstURIs + '\0' + local + '\0' + leaseDuration;
+        }
+        
+        private QueryLock buildLock() throws ConfigException, MalformedURLException {
             List<QueryLock> locks = new ArrayList<>();
+            if (local) {
+                if (queryId == null) {
+                    throw new IllegalArgumentException("Cannot create a query lock without a query id");
+                }
+                
+                locks.add(new LocalQueryLock(queryId));
+            }
+            
             if (!isEmpty(zookeeperConfig)) {
                 if (queryId == null) {
                     throw new IllegalArgumentException("Cannot create a query lock without a query id");
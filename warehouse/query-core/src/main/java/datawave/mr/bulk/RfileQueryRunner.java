@@ -0,0 +1,406 @@
+package datawave.mr.bulk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import datawave.mr.bulk.split.FileRangeSplit;
+import datawave.mr.bulk.split.TabletSplitSplit;
+import datawave.webservice.query.configuration.QueryData;
+
+/**
+ * Runs a planned query directly over the rfiles of a table, without the tablet servers. Each {@link QueryData} produced by the query planner is broken into
+ * splits of its ranges, and each split is read by a {@link RecordIterator} with the iterators of the query data, normally the query iterator, on top of the
+ * files. The splits are read by a pool of threads and their results are merged into a single stream in key order. Reading the files of an offline table or a
+ * clone this way lets a large analytic query run at hdfs read throughput without loading the tablet servers of the live cluster.
+ * <p>
+ * The splits come from a {@link SplitSource}: {@link #forTable(Connector, String)} finds the files of the tablets covering the ranges in the metadata table,
+ * which works for offline tables and clones, and {@link #forFiles(Collection)} reads a fixed set of rfiles such as those of an exported table.
+ * <p>
+ * A split only starts to be merged once the merge reaches the start of its ranges, so when the ranges do not overlap, as is the case for the shard ranges of a
+ * query plan, only one split at a time is held in the merge while the pool reads ahead. Overlapping splits are merged as well, and the pool is grown to the
+ * most splits that overlap at any one key so that every split held in the merge has a thread.
+ */
+public class RfileQueryRunner implements Closeable {
+    
+    private static final Logger log = Logger.getLogger(RfileQueryRunner.class);
+    
+    public static final String RFILE_QUERY_BUFFER_SIZE = "rfile.query.buffer.size";
+    
+    public static final int DEFAULT_BUFFER_SIZE = 1000;
+    
+    private static final Entry<Key,Value> END = Maps.immutableEntry(null, null);
+    
+    /**
+     * Finds the rfiles to read for a set of ranges
+     */
+    public interface SplitSource {
+        /**
+         * @param conf
+         *            the configuration of the query data, with its iterators
+         * @param ranges
+         *            the ranges of the query data
+         * @return the splits to read, each a {@link TabletSplitSplit} of the files and ranges to read together
+         * @throws IOException
+         *             if the files cannot be found
+         */
+        List<InputSplit> getSplits(Configuration conf, List<Range> ranges) throws IOException;
+    }
+    
+    /**
+     * @param connector
+     *            the connector used to read the metadata table
+     * @param tableName
+     *            the table, which may be offline or a clone
+     * @return a source of one split per tablet row from the metadata table
+     */
+    public static SplitSource forTable(final Connector connector, final String tableName) {
+        return (conf, ranges) -> {
+            try {
+                return MultiRfileInputformat.computeSplitPoints(connector, conf, tableName, ranges);
+            } catch (TableNotFoundException | AccumuloException | AccumuloSecurityException | InterruptedException e) {
+                throw new IOException("Unable to compute the splits of " + tableName, e);
+            }
+        };
+    }
+    
+    /**
+     * @param files
+     *            the rfiles of the table
+     * @return a source of one split per range, each reading all of the files
+     */
+    public static SplitSource forFiles(final Collection<Path> files) {
+        return (conf, ranges) -> {
+            List<InputSplit> splits = Lists.newArrayList();
+            for (Range range : ranges) {
+                TabletSplitSplit split = new TabletSplitSplit(files.size());
+                for (Path file : files) {
+                    long length = file.getFileSystem(conf).getFileStatus(file).getLen();
+                    try {
+                        split.add(new FileRangeSplit(range, file, 0, length, new String[0]));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    }
+                }
+                splits.add(split);
+            }
+            return splits;
+        };
+    }
+    
+    protected final Configuration conf;
+    
+    protected final AccumuloConfiguration tableConf;
+    
+    protected final SplitSource splitSource;
+    
+    protected final int numThreads;
+    
+    protected final int bufferSize;
+    
+    protected ExecutorService executor = null;
+    
+    protected volatile boolean closed = false;
+    
+    /**
+     * @param conf
+     *            the base configuration of the record iterators
+     * @param tableConf
+     *            the configuration of the table, whose scan iterators are applied beneath those of the query. If null the default configuration is used, so
+     *            that the results are still filtered by the authorizations.
+     * @param auths
+     *            the authorizations of the query
+     * @param splitSource
+     *            the source of the splits to read
+     * @param numThreads
+     *            the number of splits to read at once
+     */
+    public RfileQueryRunner(Configuration conf, AccumuloConfiguration tableConf, Authorizations auths, SplitSource splitSource, int numThreads) {
+        this.conf = new Configuration(conf);
+        this.conf.set("recorditer.auth.string", auths.toString());
+        this.tableConf = (tableConf == null ? AccumuloConfiguration.getDefaultConfiguration() : tableConf);
+        this.splitSource = splitSource;
+        this.numThreads = Math.max(1, numThreads);
+        this.bufferSize = Math.max(1, conf.getInt(RFILE_QUERY_BUFFER_SIZE, DEFAULT_BUFFER_SIZE));
+    }
+    
+    /**
+     * Starts reading the splits of the query data
+     *
+     * @param queries
+     *            the query data of the query plan, for example the queries of a shard query configuration once the query logic is initialized
+     * @return the results of all of the query data in key order
+     * @throws IOException
+     *             if the splits cannot be computed
+     */
+    public synchronized Iterator<Entry<Key,Value>> run(Iterator<QueryData> queries) throws IOException {
+        if (executor != null) {
+            throw new IllegalStateException("The runner has already been started");
+        }
+        List<SplitReader> readers = Lists.newArrayList();
+        while (queries.hasNext()) {
+            QueryData queryData = queries.next();
+            if (queryData.getRanges() == null || queryData.getRanges().isEmpty()) {
+                continue;
+            }
+            Configuration queryConf = new Configuration(conf);
+            for (IteratorSetting setting : queryData.getSettings()) {
+                BulkInputFormat.addIterator(queryConf, setting);
+            }
+            for (InputSplit split : splitSource.getSplits(queryConf, Lists.newArrayList(queryData.getRanges()))) {
+                readers.add(new SplitReader(readers.size(), (TabletSplitSplit) split, queryConf));
+            }
+        }
+        readers.sort(Comparator.comparing((SplitReader reader) -> reader.extent).thenComparingInt(reader -> reader.index));
+        
+        int overlap = getMaxOverlap(readers);
+        int threads = Math.max(numThreads, overlap);
+        if (log.isDebugEnabled()) {
+            log.debug("Reading " + readers.size() + " splits with " + threads + " threads, at most " + overlap + " overlapping");
+        }
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("RfileQueryRunner-%d").setDaemon(true).build());
+        // the pool starts the splits in the order they are merged
+        for (SplitReader reader : readers) {
+            executor.submit(reader);
+        }
+        executor.shutdown();
+        return new MergeIterator(readers);
+    }
+    
+    /**
+     * @param readers
+     *            the readers, in the order of their extents
+     * @return the most readers whose extents contain any one key
+     */
+    protected static int getMaxOverlap(List<SplitReader> readers) {
+        int max = 0;
+        List<SplitReader> open = new LinkedList<>();
+        for (SplitReader reader : readers) {
+            // an earlier extent that does not reach the start of this one will not reach any later one either
+            open.removeIf(other -> other.extent.clip(reader.extent, true) == null);
+            open.add(reader);
+            max = Math.max(max, open.size());
+        }
+        return max;
+    }
+    
+    /**
+     * @param split
+     *            a split
+     * @return the range from the start of the first range of the split to the end of its last
+     */
+    protected static Range getExtent(TabletSplitSplit split) {
+        Range first = null;
+        Range last = null;
+        for (int i = 0; i < split.getLength(); i++) {
+            for (Range range : ((FileRangeSplit) split.get(i)).getRanges()) {
+                if (first == null || range.compareTo(first) < 0) {
+                    first = range;
+                }
+                if (last == null || endsAfter(range, last)) {
+                    last = range;
+                }
+            }
+        }
+        if (first == null) {
+            return new Range();
+        }
+        return new Range(first.getStartKey(), first.isStartKeyInclusive(), last.getEndKey(), last.isEndKeyInclusive());
+    }
+    
+    private static boolean endsAfter(Range range, Range other) {
+        if (other.isInfiniteStopKey()) {
+            return false;
+        }
+        if (range.isInfiniteStopKey()) {
+            return true;
+        }
+        int compare = range.getEndKey().compareTo(other.getEndKey());
+        return compare > 0 || (compare == 0 && range.isEndKeyInclusive() && !other.isEndKeyInclusive());
+    }
+    
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+    
+    /**
+     * Reads a split into a bounded buffer, ending it with {@link #END}
+     */
+    protected class SplitReader implements Runnable {
+        
+        protected final int index;
+        protected final TabletSplitSplit split;
+        protected final Configuration conf;
+        protected final Range extent;
+        protected final BlockingQueue<Entry<Key,Value>> buffer;
+        protected volatile Throwable failure = null;
+        
+        // the next result, only used by the merge
+        protected Entry<Key,Value> head = null;
+        
+        public SplitReader(int index, TabletSplitSplit split, Configuration conf) {
+            this.index = index;
+            this.split = split;
+            // the record iterator updates its configuration
+            this.conf = new Configuration(conf);
+            this.extent = getExtent(split);
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+        
+        @Override
+        public void run() {
+            RecordIterator recordIter = null;
+            try {
+                if (closed) {
+                    return;
+                }
+                recordIter = new RecordIterator(split, tableConf, conf);
+                while (!closed && recordIter.hasTop()) {
+                    buffer.put(Maps.immutableEntry(new Key(recordIter.getTopKey()), new Value(recordIter.getTopValue())));
+                    recordIter.next();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+            } catch (Throwable t) {
+                log.error("Failed to read " + extent, t);
+                failure = t;
+            } finally {
+                if (recordIter != null) {
+                    try {
+                        recordIter.close();
+                    } catch (IOException e) {
+                        log.warn("Unable to close the record iterator for " + extent, e);
+                    }
+                }
+                finish();
+            }
+        }
+        
+        private void finish() {
+            try {
+                if (!buffer.offer(END)) {
+                    buffer.put(END);
+                }
+            } catch (InterruptedException e) {
+                // only interrupted when the runner is closed, and the merge stops reading once it is
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        /**
+         * Moves to the next result of the split, blocking until it has been read
+         *
+         * @return true if there is another result
+         */
+        protected boolean advance() {
+            try {
+                // a split that was never started has no end, so stop waiting for it once the runner is closed
+                head = null;
+                while (head == null && !closed) {
+                    head = buffer.poll(1, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while reading " + extent, e);
+            }
+            if (head == null || head == END) {
+                head = null;
+                if (failure != null) {
+                    throw new RuntimeException("Unable to read " + extent, failure);
+                }
+                return false;
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * Merges the results of the readers, starting to read from each when the merge reaches the start of its extent
+     */
+    protected class MergeIterator implements Iterator<Entry<Key,Value>> {
+        
+        private final LinkedList<SplitReader> pending;
+        private final PriorityQueue<SplitReader> active;
+        
+        public MergeIterator(List<SplitReader> readers) {
+            this.pending = new LinkedList<>(readers);
+            this.active = new PriorityQueue<>(Math.max(1, readers.size()), Comparator.comparing((SplitReader reader) -> reader.head.getKey()).thenComparingInt(
+                            reader -> reader.index));
+        }
+        
+        private void activate() {
+            while (!pending.isEmpty() && (active.isEmpty() || !pending.peek().extent.beforeStartKey(active.peek().head.getKey()))) {
+                SplitReader reader = pending.poll();
+                if (reader.advance()) {
+                    active.add(reader);
+                }
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            activate();
+            return !active.isEmpty();
+        }
+        
+        @Override
+        public Entry<Key,Value> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            SplitReader reader = active.poll();
+            Entry<Key,Value> entry = reader.head;
+            if (reader.advance()) {
+                active.add(reader);
+            }
+            return entry;
+        }
+        
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Can't remove from the rfile query results");
+        }
+    }
+}
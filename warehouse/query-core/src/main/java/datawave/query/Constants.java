@@ -54,6 +54,7 @@ public class Constants {
     // FieldIndex Query logic params
     public static final String UNIQ_DATATYPE = "unique.datatype";
     public static final String UNIQ_VISIBILITY = "unique.visibility";
+    public static final String APPROXIMATE_COUNTS = "approximate.counts";
     
     public static final String PARENT_UID = "PARENT_UID";
     public static final String CHILD_COUNT = "CHILD_COUNT";
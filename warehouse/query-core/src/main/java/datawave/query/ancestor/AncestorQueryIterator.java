@@ -26,6 +26,7 @@ import datawave.query.iterator.QueryIterator;
 import datawave.query.iterator.SourcedOptions;
 import datawave.query.iterator.logic.IndexIterator;
 import datawave.query.jexl.visitors.IteratorBuildingVisitor;
+import datawave.query.jexl.visitors.RebuildingVisitor;
 import datawave.query.predicate.AncestorEventDataFilter;
 import datawave.query.predicate.ConfiguredPredicate;
 
@@ -36,6 +37,7 @@ import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
 import org.apache.commons.lang.builder.CompareToBuilder;
 import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
@@ -129,7 +131,7 @@ public class AncestorQueryIterator extends QueryIterator {
     
     @Override
     protected JexlEvaluation getJexlEvaluation(NestedQueryIterator<Key> documentSource) {
-        return new JexlEvaluation(query, getArithmetic()) {
+        return new JexlEvaluation(query, (ASTJexlScript) RebuildingVisitor.copy(script), getArithmetic()) {
             private Key currentKey = null;
             
             private boolean isCurrentDoc(Key key) {
@@ -135,6 +135,17 @@ public abstract class Attribute<T extends Comparable<T>> implements WritableComp
         }
     }
     
+    /**
+     * Replaces the metadata with the equal instance of the dictionary, so that the attributes of a document share one copy of it. The shared metadata must not
+     * be modified in place, which is why the setters always build a new key.
+     *
+     * @param dictionary
+     *            the dictionary of the document that holds this attribute
+     */
+    void shareMetadata(DocumentDictionary dictionary) {
+        this.metadata = dictionary.metadata(this.metadata);
+    }
+    
     protected boolean isFieldIndex(ByteSequence cf) {
         return (cf.length() >= 3 && cf.byteAt(0) == 'f' && cf.byteAt(1) == 'i' && cf.byteAt(2) == '\0');
     }
@@ -76,6 +76,14 @@ public class Attributes extends AttributeBag<Attributes> implements Serializable
         return this.attributes;
     }
     
+    @Override
+    void shareMetadata(DocumentDictionary dictionary) {
+        super.shareMetadata(dictionary);
+        for (Attribute<? extends Comparable<?>> attr : _getAttributes()) {
+            attr.shareMetadata(dictionary);
+        }
+    }
+    
     @Override
     public int size() {
         return _count;
@@ -52,6 +52,11 @@ public class Document extends AttributeBag<Document> implements Serializable {
      */
     private boolean trackSizes;
     
+    /**
+     * shares the field names and attribute metadata of this document, and of the other documents of a query when they are given the same one
+     */
+    private transient DocumentDictionary documentDictionary;
+    
     private static final long ONE_DAY_MS = 1000l * 60 * 60 * 24;
     
     public MarkingFunctions getMarkingFunctions() {
@@ -109,6 +114,24 @@ public class Document extends AttributeBag<Document> implements Serializable {
         return dict;
     }
     
+    /**
+     * @return the dictionary that the field names and attribute metadata of this document are shared through, which is its own unless it was given one
+     */
+    public DocumentDictionary getDocumentDictionary() {
+        if (documentDictionary == null) {
+            documentDictionary = new DocumentDictionary();
+        }
+        return documentDictionary;
+    }
+    
+    /**
+     * @param documentDictionary
+     *            the dictionary to share field names and attribute metadata through, e.g. the one of the query that this document belongs to
+     */
+    public void setDocumentDictionary(DocumentDictionary documentDictionary) {
+        this.documentDictionary = documentDictionary;
+    }
+    
     public Set<Entry<String,Attribute<? extends Comparable<?>>>> entrySet() {
         return getDictionary().entrySet();
     }
@@ -234,7 +257,8 @@ public class Document extends AttributeBag<Document> implements Serializable {
      * @param value
      */
     public void replace(String key, Attribute<?> value, Boolean includeGroupingContext, boolean reducedResponse) {
-        dict.put(key, value);
+        value.shareMetadata(getDocumentDictionary());
+        dict.put(getDocumentDictionary().fieldName(key), value);
     }
     
     /**
@@ -255,7 +279,8 @@ public class Document extends AttributeBag<Document> implements Serializable {
             return;
         }
         
-        key = JexlASTHelper.deconstructIdentifier(key, includeGroupingContext);
+        key = getDocumentDictionary().fieldName(JexlASTHelper.deconstructIdentifier(key, includeGroupingContext));
+        value.shareMetadata(getDocumentDictionary());
         
         if (log.isTraceEnabled()) {
             log.trace("Loading: " + key + "=" + value);
@@ -556,7 +581,7 @@ public class Document extends AttributeBag<Document> implements Serializable {
         
         for (int i = 0; i < numAttrs; i++) {
             // Get the fieldName
-            String fieldName = WritableUtils.readString(in);
+            String fieldName = getDocumentDictionary().fieldName(WritableUtils.readString(in));
             
             // Get the class name for the concrete Attribute
             String attrClassName = WritableUtils.readString(in);
@@ -584,6 +609,7 @@ public class Document extends AttributeBag<Document> implements Serializable {
             
             // Reload the attribute
             attr.readFields(in);
+            attr.shareMetadata(getDocumentDictionary());
             
             // Add the attribute back to the Map
             this.dict.put(fieldName, attr);
@@ -786,9 +812,15 @@ public class Document extends AttributeBag<Document> implements Serializable {
         
         this.dict = new TreeMap<>();
         
+        // share the dictionary of the deserializer, if it has one, with the other documents that it reads
+        DocumentDictionary shared = (DocumentDictionary) kryo.getContext().get(DocumentDictionary.class);
+        if (shared != null) {
+            this.documentDictionary = shared;
+        }
+        
         for (int i = 0; i < numAttrs; i++) {
             // Get the fieldName
-            String fieldName = input.readString();
+            String fieldName = getDocumentDictionary().fieldName(input.readString());
             
             // Get the class name for the concrete Attribute
             String attrClassName = input.readString();
@@ -815,6 +847,7 @@ public class Document extends AttributeBag<Document> implements Serializable {
             }
             // Reload the attribute
             attr.read(kryo, input);
+            attr.shareMetadata(getDocumentDictionary());
             
             // Add the attribute back to the Map
             this.dict.put(fieldName, attr);
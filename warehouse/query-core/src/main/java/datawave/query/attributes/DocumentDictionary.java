@@ -0,0 +1,73 @@
+package datawave.query.attributes;
+
+import org.apache.accumulo.core.data.Key;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A dictionary of the field names and attribute metadata of documents. The attributes of a document almost always share the same row, column family,
+ * visibility and timestamp, and every document of a query has the same handful of field names, so a wide document would otherwise carry hundreds of equal
+ * copies of each. Documents put the field names and the metadata of the attributes they are given through their dictionary so that equal ones are shared.
+ * <p>
+ * A document uses a dictionary of its own unless it is given one. The documents of a query are given the dictionary of the query's deserializer, which keeps it
+ * in its Kryo context, so that they share one copy of each field name. A dictionary is not thread safe, and it is cleared when it grows past its limit, so that
+ * the metadata of documents that are long gone is not held for the rest of the query. A shared metadata key must never be modified in place; {@link Attribute}
+ * always replaces its metadata instead.
+ */
+public class DocumentDictionary {
+    
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    
+    private final int maxEntries;
+    private final Map<String,String> fieldNames = new HashMap<>();
+    private final Map<Key,Key> metadata = new HashMap<>();
+    
+    public DocumentDictionary() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+    
+    /**
+     * @param maxEntries
+     *            the number of field names or metadata keys past which they are cleared
+     */
+    public DocumentDictionary(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+    
+    /**
+     * @param fieldName
+     *            a field name
+     * @return the shared instance of the field name
+     */
+    public String fieldName(String fieldName) {
+        if (fieldName == null) {
+            return null;
+        }
+        return intern(fieldNames, fieldName);
+    }
+    
+    /**
+     * @param key
+     *            the metadata of an attribute
+     * @return the shared instance of the metadata
+     */
+    public Key metadata(Key key) {
+        if (key == null) {
+            return null;
+        }
+        return intern(metadata, key);
+    }
+    
+    private <T> T intern(Map<T,T> entries, T entry) {
+        T shared = entries.get(entry);
+        if (shared == null) {
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+            entries.put(entry, entry);
+            shared = entry;
+        }
+        return shared;
+    }
+}
@@ -12,6 +12,12 @@ public class TimingMetadata extends Metadata {
     private static final String SOURCE_COUNT = "SOURCE_COUNT";
     private static final String SEEK_COUNT = "SEEK_COUNT";
     private static final String YIELD_COUNT = "YIELD_COUNT";
+    private static final String SAVED_SEEK_COUNT = "SAVED_SEEK_COUNT";
+    private static final String SAVED_NEXT_COUNT = "SAVED_NEXT_COUNT";
+    private static final String IVARATOR_RANGES = "IVARATOR_RANGES";
+    private static final String IVARATOR_FILL_TIME = "IVARATOR_FILL_TIME";
+    private static final String IVARATOR_WAIT_TIME = "IVARATOR_WAIT_TIME";
+    private static final String IVARATOR_BYTES_SPILLED = "IVARATOR_BYTES_SPILLED";
     private static final String STAGE_TIMERS = "STAGE_TIMERS";
     private static final String HOST = "HOST";
     
@@ -68,6 +74,84 @@ public class TimingMetadata extends Metadata {
         put(YIELD_COUNT, new Numeric(yieldCount, this.getMetadata(), this.isToKeep()));
     }
     
+    public long getSavedSeekCount() {
+        Numeric numericValue = (Numeric) get(SAVED_SEEK_COUNT);
+        if (numericValue != null) {
+            return ((Number) numericValue.getData()).longValue();
+        } else {
+            return 0L;
+        }
+    }
+    
+    public void setSavedSeekCount(long savedSeekCount) {
+        put(SAVED_SEEK_COUNT, new Numeric(savedSeekCount, this.getMetadata(), this.isToKeep()));
+    }
+    
+    public long getSavedNextCount() {
+        Numeric numericValue = (Numeric) get(SAVED_NEXT_COUNT);
+        if (numericValue != null) {
+            return ((Number) numericValue.getData()).longValue();
+        } else {
+            return 0L;
+        }
+    }
+    
+    public void setSavedNextCount(long savedNextCount) {
+        put(SAVED_NEXT_COUNT, new Numeric(savedNextCount, this.getMetadata(), this.isToKeep()));
+    }
+    
+    public long getIvaratorRanges() {
+        Numeric numericValue = (Numeric) get(IVARATOR_RANGES);
+        if (numericValue != null) {
+            return ((Number) numericValue.getData()).longValue();
+        } else {
+            return 0L;
+        }
+    }
+    
+    public void setIvaratorRanges(long ivaratorRanges) {
+        put(IVARATOR_RANGES, new Numeric(ivaratorRanges, this.getMetadata(), this.isToKeep()));
+    }
+    
+    public long getIvaratorFillTime() {
+        Numeric numericValue = (Numeric) get(IVARATOR_FILL_TIME);
+        if (numericValue != null) {
+            return ((Number) numericValue.getData()).longValue();
+        } else {
+            return 0L;
+        }
+    }
+    
+    public void setIvaratorFillTime(long ivaratorFillTime) {
+        put(IVARATOR_FILL_TIME, new Numeric(ivaratorFillTime, this.getMetadata(), this.isToKeep()));
+    }
+    
+    public long getIvaratorWaitTime() {
+        Numeric numericValue = (Numeric) get(IVARATOR_WAIT_TIME);
+        if (numericValue != null) {
+            return ((Number) numericValue.getData()).longValue();
+        } else {
+            return 0L;
+        }
+    }
+    
+    public void setIvaratorWaitTime(long ivaratorWaitTime) {
+        put(IVARATOR_WAIT_TIME, new Numeric(ivaratorWaitTime, this.getMetadata(), this.isToKeep()));
+    }
+    
+    public long getIvaratorBytesSpilled() {
+        Numeric numericValue = (Numeric) get(IVARATOR_BYTES_SPILLED);
+        if (numericValue != null) {
+            return ((Number) numericValue.getData()).longValue();
+        } else {
+            return 0L;
+        }
+    }
+    
+    public void setIvaratorBytesSpilled(long ivaratorBytesSpilled) {
+        put(IVARATOR_BYTES_SPILLED, new Numeric(ivaratorBytesSpilled, this.getMetadata(), this.isToKeep()));
+    }
+    
     public void addStageTimer(String stageName, Numeric elapsed) {
         Metadata stageTimers = (Metadata) get(STAGE_TIMERS);
         if (stageTimers == null) {
@@ -0,0 +1,119 @@
+package datawave.query.cardinality;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import datawave.data.sketch.FieldSketch;
+import datawave.security.util.ScannerHelper;
+import datawave.util.time.DateHelper;
+
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.log4j.Logger;
+
+/**
+ * Answers cardinality and selectivity questions about a field over a date range from the {@link FieldSketch}es that ingest keeps in the metadata table. The
+ * sketches of the days and datatypes in the range are merged on the client, which is a scan of a single metadata row, so the estimates are available in
+ * milliseconds instead of the time it takes to scan the index or run the index stats jobs. The merged sketches are cached by the scanner, so a scanner that is
+ * held for the life of a query scans the metadata row of a field once no matter how many terms reference it.
+ */
+public class FieldSketchScanner {
+    
+    private static final Logger log = Logger.getLogger(FieldSketchScanner.class);
+    
+    private final Connector connector;
+    private final String metadataTableName;
+    private final Set<Authorizations> auths;
+    private final Map<String,FieldSketch> sketches = new HashMap<>();
+    
+    public FieldSketchScanner(Connector connector, String metadataTableName, Set<Authorizations> auths) {
+        this.connector = connector;
+        this.metadataTableName = metadataTableName;
+        this.auths = auths;
+    }
+    
+    /**
+     * @param field
+     *            the field name
+     * @param datatypes
+     *            the datatypes to include, or null or empty for all of them
+     * @param begin
+     *            the first day of the range
+     * @param end
+     *            the last day of the range
+     * @return the merged sketch of the days and datatypes, or null if there are none
+     * @throws TableNotFoundException
+     *             if the metadata table does not exist
+     */
+    public synchronized FieldSketch getSketch(String field, Collection<String> datatypes, Date begin, Date end) throws TableNotFoundException {
+        String beginDay = DateHelper.format(begin);
+        String endDay = DateHelper.format(end);
+        
+        String cacheKey = field + '\0' + beginDay + '\0' + endDay + '\0' + (datatypes == null ? "" : new TreeSet<>(datatypes));
+        if (sketches.containsKey(cacheKey)) {
+            return sketches.get(cacheKey);
+        }
+        
+        FieldSketch merged = null;
+        int days = 0;
+        Scanner scanner = ScannerHelper.createScanner(connector, metadataTableName, auths);
+        try {
+            scanner.setRange(Range.exact(field));
+            scanner.fetchColumnFamily(FieldSketch.COLF_SKETCH);
+            for (Map.Entry<Key,Value> entry : scanner) {
+                String qualifier = entry.getKey().getColumnQualifier().toString();
+                int index = qualifier.lastIndexOf('\0');
+                if (index < 0) {
+                    continue;
+                }
+                String datatype = qualifier.substring(0, index);
+                String day = qualifier.substring(index + 1);
+                if (day.compareTo(beginDay) < 0 || day.compareTo(endDay) > 0 || (datatypes != null && !datatypes.isEmpty() && !datatypes.contains(datatype))) {
+                    continue;
+                }
+                
+                try {
+                    FieldSketch sketch = FieldSketch.fromBytes(entry.getValue().get());
+                    merged = (merged == null) ? sketch : merged.merge(sketch);
+                    days++;
+                } catch (IOException e) {
+                    log.warn("Unable to read the field sketch of " + entry.getKey(), e);
+                }
+            }
+        } finally {
+            scanner.close();
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Merged " + days + " sketches of " + field + " between " + beginDay + " and " + endDay + ": " + merged);
+        }
+        sketches.put(cacheKey, merged);
+        return merged;
+    }
+    
+    /**
+     * @return the estimated number of distinct values of the field, or -1 if there are no sketches
+     */
+    public long getCardinality(String field, Collection<String> datatypes, Date begin, Date end) throws TableNotFoundException {
+        FieldSketch sketch = getSketch(field, datatypes, begin, end);
+        return sketch == null ? -1L : sketch.getCardinality();
+    }
+    
+    /**
+     * @return the estimated fraction of the values of the field that are the given value, or -1 if there are no sketches
+     */
+    public double getSelectivity(String field, String value, Collection<String> datatypes, Date begin, Date end) throws TableNotFoundException {
+        FieldSketch sketch = getSketch(field, datatypes, begin, end);
+        return sketch == null ? -1.0 : sketch.getSelectivity(value);
+    }
+}
@@ -35,6 +35,8 @@ public class EdgeQueryConfiguration extends GenericQueryConfiguration {
     
     public static final String SUMMARIZE = "summarize";
     
+    public static final String STATS_ROLLUP = "stats.rollup";
+    
     // Query model defaults...
     private String modelName = "DATAWAVE_EDGE";
     private String modelTableName = "DatawaveMetadata";
@@ -56,6 +58,9 @@ public class EdgeQueryConfiguration extends GenericQueryConfiguration {
     // Use to aggregate results will be false by default
     private boolean aggregateResults = false;
     
+    // Use to combine the stats edges of each vertex across the date range on the tservers, false by default
+    private boolean statsRollup = false;
+    
     public EdgeQueryConfiguration(EdgeQueryLogic configuredLogic, Query query) {
         super(configuredLogic);
         setDataTypes(configuredLogic.getDataTypes());
@@ -143,6 +148,11 @@ public class EdgeQueryConfiguration extends GenericQueryConfiguration {
             if (p != null && !p.getParameterValue().isEmpty()) {
                 this.aggregateResults = Boolean.parseBoolean(p.getParameterValue());
             }
+            
+            p = settings.findParameter(STATS_ROLLUP);
+            if (p != null && !p.getParameterValue().isEmpty()) {
+                this.statsRollup = Boolean.parseBoolean(p.getParameterValue());
+            }
         }
         return this;
     }
@@ -179,6 +189,14 @@ public class EdgeQueryConfiguration extends GenericQueryConfiguration {
         this.aggregateResults = aggregateResults;
     }
     
+    public boolean isStatsRollup() {
+        return statsRollup;
+    }
+    
+    public void setStatsRollup(boolean statsRollup) {
+        this.statsRollup = statsRollup;
+    }
+    
     public EdgeQueryModel getEdgeQueryModel() {
         return this.edgeQueryModel;
     }
@@ -0,0 +1,66 @@
+package datawave.query.config;
+
+import datawave.query.tables.edge.EdgeTraversalQueryLogic;
+import datawave.webservice.query.Query;
+import datawave.webservice.query.QueryImpl;
+
+/**
+ * Configuration for the {@link EdgeTraversalQueryLogic}. In addition to the normal edge query parameters, this accepts the number of hops to traverse and an
+ * optional JEXL expression that edges in the second and later hops must satisfy.
+ */
+public class EdgeTraversalQueryConfiguration extends EdgeQueryConfiguration {
+    private static final long serialVersionUID = 4172465338270536841L;
+    
+    public static final String HOPS = "edge.traversal.hops";
+    public static final String HOP_QUERY = "edge.traversal.hop.query";
+    
+    private int hops;
+    private int maxHops;
+    private String hopQuery = null;
+    
+    public EdgeTraversalQueryConfiguration(EdgeTraversalQueryLogic configuredLogic, Query query) {
+        super(configuredLogic, query);
+        this.hops = configuredLogic.getDefaultHops();
+        this.maxHops = configuredLogic.getMaxHops();
+    }
+    
+    @Override
+    public EdgeQueryConfiguration parseParameters(Query settings) {
+        super.parseParameters(settings);
+        if (settings.getParameters() != null) {
+            QueryImpl.Parameter p = settings.findParameter(HOPS);
+            if (p != null && !p.getParameterValue().isEmpty()) {
+                try {
+                    this.hops = Integer.parseInt(p.getParameterValue());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("The query parameter " + HOPS + " must be an integer: " + p.getParameterValue());
+                }
+                if (this.hops < 1 || this.hops > maxHops) {
+                    throw new IllegalArgumentException("The query parameter " + HOPS + " must be between 1 and " + maxHops + ": " + this.hops);
+                }
+            }
+            
+            p = settings.findParameter(HOP_QUERY);
+            if (p != null && !p.getParameterValue().isEmpty()) {
+                this.hopQuery = p.getParameterValue();
+            }
+        }
+        return this;
+    }
+    
+    public int getHops() {
+        return hops;
+    }
+    
+    public void setHops(int hops) {
+        this.hops = hops;
+    }
+    
+    public String getHopQuery() {
+        return hopQuery;
+    }
+    
+    public void setHopQuery(String hopQuery) {
+        this.hopQuery = hopQuery;
+    }
+}
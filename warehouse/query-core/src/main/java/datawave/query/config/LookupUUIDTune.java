@@ -31,6 +31,7 @@ public class LookupUUIDTune implements Profile {
     protected boolean speculativeScanning = false;
     protected int maxFieldHitsBeforeSeek = -1;
     protected int maxKeysBeforeSeek = -1;
+    protected boolean tldSeekPlanner = false;
     protected String queryIteratorClass = TLDQueryIterator.class.getCanonicalName();
     protected int maxShardsPerDayThreshold = -1;
     protected int pageByteTrigger = -1;
@@ -67,6 +68,7 @@ public class LookupUUIDTune implements Profile {
                 SeekingQueryPlanner planner = new SeekingQueryPlanner();
                 planner.setMaxFieldHitsBeforeSeek(maxFieldHitsBeforeSeek);
                 planner.setMaxKeysBeforeSeek(maxKeysBeforeSeek);
+                planner.setTldSeekPlanner(tldSeekPlanner);
                 
                 rsq.setQueryPlanner(planner);
                 
@@ -204,6 +206,14 @@ public class LookupUUIDTune implements Profile {
         return maxKeysBeforeSeek;
     }
     
+    public void setTldSeekPlanner(boolean tldSeekPlanner) {
+        this.tldSeekPlanner = tldSeekPlanner;
+    }
+    
+    public boolean isTldSeekPlanner() {
+        return tldSeekPlanner;
+    }
+    
     public void setQueryIteratorClass(String queryIteratorClass) {
         this.queryIteratorClass = queryIteratorClass;
     }
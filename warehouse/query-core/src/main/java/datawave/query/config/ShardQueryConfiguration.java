@@ -11,6 +11,7 @@ import datawave.query.iterator.ivarator.IvaratorCacheDirConfig;
 import datawave.data.type.DiscreteIndexType;
 import datawave.data.type.NoOpType;
 import datawave.data.type.Type;
+import datawave.query.cardinality.FieldSketchScanner;
 import datawave.query.Constants;
 import datawave.query.DocumentSerialization;
 import datawave.query.DocumentSerialization.ReturnType;
@@ -75,6 +76,38 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
     private boolean disableIndexOnlyDocuments = false;
     @JsonIgnore
     private transient QueryStopwatch timers = new QueryStopwatch();
+    /**
+     * Whether the plan of this query came from the plan cache, or null if the plan cache is not used
+     */
+    @JsonIgnore
+    private transient Boolean planCacheHit = null;
+    /**
+     * Why the planner ordered and placed the terms of the query the way it did, see {@link datawave.query.jexl.visitors.OrderByCostVisitor}
+     */
+    @JsonIgnore
+    private transient List<String> planDecisions = new ArrayList<>();
+    /**
+     * The number of days of the date index that were found in and missing from the date index cache, or null if the date index is not used
+     */
+    @JsonIgnore
+    private transient Integer dateIndexCacheHits = null;
+    @JsonIgnore
+    private transient Integer dateIndexCacheMisses = null;
+    /**
+     * The time spent decomposing geowave functions into ranges, the number of ranges they were decomposed into and the number of decompositions that were
+     * found in the decomposition cache, or null if the query has no geowave functions
+     */
+    @JsonIgnore
+    private transient Long geoWaveDecompositionTime = null;
+    @JsonIgnore
+    private transient Integer geoWaveRangeCount = null;
+    @JsonIgnore
+    private transient Integer geoWaveDecompositionCacheHits = null;
+    /**
+     * The scanner of the field sketches in the metadata table, which caches the sketches that it merges for the life of this query
+     */
+    @JsonIgnore
+    private transient FieldSketchScanner fieldSketchScanner = null;
     private int maxScannerBatchSize = 1000;
     /**
      * Index batch size is the size of results use for each index lookup
@@ -159,6 +192,19 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
      * Used to determine the maximum number of envelopes which can be used when generating ranges for a geowave query.
      */
     private int geoWaveMaxEnvelopes = 4;
+    /**
+     * Used to determine the maximum number of ranges a geowave function is decomposed into, after which the closest ranges of a tier are merged. 0 means no
+     * maximum.
+     */
+    private int geoWaveRangeBudget = 0;
+    /**
+     * Used to determine the maximum number of threads used to optimize the ranges of a single geowave function.
+     */
+    private int geoWaveDecompositionThreads = 4;
+    /**
+     * Determines whether or not the decompositions of geowave functions are cached across queries.
+     */
+    private boolean cacheGeoWaveDecompositions = true;
     private String shardTableName = TableName.SHARD;
     private String indexTableName = TableName.SHARD_INDEX;
     private String reverseIndexTableName = TableName.SHARD_RINDEX;
@@ -238,6 +284,10 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
     private boolean rawTypes = false;
     // Used to choose how "selective" a term is (indexStats)
     private double minSelectivity = -1.0;
+    // Used to estimate the selectivity of terms without term counts from the field sketches in the metadata table
+    private boolean useMetadataSketches = false;
+    // Used to choose how "selective" a term is from the field sketches, as a fraction of the values of its own field rather than of all fields
+    private double minSketchSelectivity = -1.0;
     // Used to add the event datatype to the event as an event field.
     private boolean includeDataTypeAsField = false;
     // Used to add the event RECORD_ID to the event as an event field
@@ -287,6 +337,8 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
     private int maxUnfieldedExpansionThreshold = 500;
     private boolean expandValues = true;
     private int maxValueExpansionThreshold = 5000;
+    // cache regex and range expansions from the global index per shard day, see IndexExpansionCache
+    private boolean cacheIndexExpansion = false;
     private int maxOrExpansionThreshold = 500;
     private int maxOrRangeThreshold = 10;
     private int maxOrRangeIvarators = 10;
@@ -296,6 +348,8 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
     private String hdfsSiteConfigURLs = null;
     private String hdfsFileCompressionCodec = null;
     private String zookeeperConfig = null;
+    // the milliseconds the tservers trust a check of the query lock for, or 0 to check the lock for each ivarator
+    private long queryLockLease = 1000L * 60;
     private List<IvaratorCacheDirConfig> ivaratorCacheDirConfigs = Collections.emptyList();
     private String ivaratorFstHdfsBaseURIs = null;
     private int ivaratorCacheBufferSize = 10000;
@@ -408,6 +462,9 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setGeoWaveMaxRangeOverlap(other.getGeoWaveMaxRangeOverlap());
         this.setOptimizeGeoWaveRanges(other.isOptimizeGeoWaveRanges());
         this.setGeoWaveMaxEnvelopes(other.getGeoWaveMaxEnvelopes());
+        this.setGeoWaveRangeBudget(other.getGeoWaveRangeBudget());
+        this.setGeoWaveDecompositionThreads(other.getGeoWaveDecompositionThreads());
+        this.setCacheGeoWaveDecompositions(other.isCacheGeoWaveDecompositions());
         this.setShardTableName(other.getShardTableName());
         this.setIndexTableName(other.getIndexTableName());
         this.setReverseIndexTableName(other.getReverseIndexTableName());
@@ -461,6 +518,8 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setFailOutsideValidDateRange(other.isFailOutsideValidDateRange());
         this.setRawTypes(other.isRawTypes());
         this.setMinSelectivity(other.getMinSelectivity());
+        this.setUseMetadataSketches(other.isUseMetadataSketches());
+        this.setMinSketchSelectivity(other.getMinSketchSelectivity());
         this.setIncludeDataTypeAsField(other.getIncludeDataTypeAsField());
         this.setIncludeRecordId(other.getIncludeRecordId());
         this.setIncludeHierarchyFields(other.getIncludeHierarchyFields());
@@ -485,6 +544,7 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setMaxUnfieldedExpansionThreshold(other.getMaxUnfieldedExpansionThreshold());
         this.setExpandFields(other.isExpandFields());
         this.setMaxValueExpansionThreshold(other.getMaxValueExpansionThreshold());
+        this.setCacheIndexExpansion(other.isCacheIndexExpansion());
         this.setExpandValues(other.isExpandValues());
         this.setMaxOrExpansionThreshold(other.getMaxOrExpansionThreshold());
         this.setMaxOrRangeThreshold(other.getMaxOrRangeThreshold());
@@ -495,6 +555,7 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setHdfsSiteConfigURLs(other.getHdfsSiteConfigURLs());
         this.setHdfsFileCompressionCodec(other.getHdfsFileCompressionCodec());
         this.setZookeeperConfig(other.getZookeeperConfig());
+        this.setQueryLockLease(other.getQueryLockLease());
         this.setIvaratorCacheDirConfigs(null == other.getIvaratorCacheDirConfigs() ? null : Lists.newArrayList(other.getIvaratorCacheDirConfigs()));
         this.setIvaratorFstHdfsBaseURIs(other.getIvaratorFstHdfsBaseURIs());
         this.setIvaratorCacheBufferSize(other.getIvaratorCacheBufferSize());
@@ -917,6 +978,30 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.geoWaveMaxEnvelopes = geoWaveMaxEnvelopes;
     }
     
+    public int getGeoWaveRangeBudget() {
+        return geoWaveRangeBudget;
+    }
+    
+    public void setGeoWaveRangeBudget(int geoWaveRangeBudget) {
+        this.geoWaveRangeBudget = geoWaveRangeBudget;
+    }
+    
+    public int getGeoWaveDecompositionThreads() {
+        return geoWaveDecompositionThreads;
+    }
+    
+    public void setGeoWaveDecompositionThreads(int geoWaveDecompositionThreads) {
+        this.geoWaveDecompositionThreads = geoWaveDecompositionThreads;
+    }
+    
+    public boolean isCacheGeoWaveDecompositions() {
+        return cacheGeoWaveDecompositions;
+    }
+    
+    public void setCacheGeoWaveDecompositions(boolean cacheGeoWaveDecompositions) {
+        this.cacheGeoWaveDecompositions = cacheGeoWaveDecompositions;
+    }
+    
     public Boolean getUseFilters() {
         return useFilters;
     }
@@ -1116,6 +1201,14 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.maxValueExpansionThreshold = maxValueExpansionThreshold;
     }
     
+    public boolean isCacheIndexExpansion() {
+        return cacheIndexExpansion;
+    }
+    
+    public void setCacheIndexExpansion(boolean cacheIndexExpansion) {
+        this.cacheIndexExpansion = cacheIndexExpansion;
+    }
+    
     public int getMaxScannerBatchSize() {
         return this.maxScannerBatchSize;
     }
@@ -1197,6 +1290,14 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.zookeeperConfig = zookeeperConfig;
     }
     
+    public long getQueryLockLease() {
+        return queryLockLease;
+    }
+    
+    public void setQueryLockLease(long queryLockLease) {
+        this.queryLockLease = queryLockLease;
+    }
+    
     public List<IvaratorCacheDirConfig> getIvaratorCacheDirConfigs() {
         return ivaratorCacheDirConfigs;
     }
@@ -1567,6 +1668,30 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.minSelectivity = minSelectivity;
     }
     
+    public boolean isUseMetadataSketches() {
+        return useMetadataSketches;
+    }
+    
+    public void setUseMetadataSketches(boolean useMetadataSketches) {
+        this.useMetadataSketches = useMetadataSketches;
+    }
+    
+    public double getMinSketchSelectivity() {
+        return minSketchSelectivity;
+    }
+    
+    public void setMinSketchSelectivity(double minSketchSelectivity) {
+        this.minSketchSelectivity = minSketchSelectivity;
+    }
+    
+    public FieldSketchScanner getFieldSketchScanner() {
+        return fieldSketchScanner;
+    }
+    
+    public void setFieldSketchScanner(FieldSketchScanner fieldSketchScanner) {
+        this.fieldSketchScanner = fieldSketchScanner;
+    }
+    
     /**
      * Checks for non-null, sane values for the configured values
      *
@@ -1759,6 +1884,62 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         return timers;
     }
     
+    public Boolean getPlanCacheHit() {
+        return planCacheHit;
+    }
+    
+    public void setPlanCacheHit(Boolean planCacheHit) {
+        this.planCacheHit = planCacheHit;
+    }
+    
+    public List<String> getPlanDecisions() {
+        return planDecisions;
+    }
+    
+    public void setPlanDecisions(List<String> planDecisions) {
+        this.planDecisions = planDecisions;
+    }
+    
+    public Integer getDateIndexCacheHits() {
+        return dateIndexCacheHits;
+    }
+    
+    public void setDateIndexCacheHits(Integer dateIndexCacheHits) {
+        this.dateIndexCacheHits = dateIndexCacheHits;
+    }
+    
+    public Integer getDateIndexCacheMisses() {
+        return dateIndexCacheMisses;
+    }
+    
+    public void setDateIndexCacheMisses(Integer dateIndexCacheMisses) {
+        this.dateIndexCacheMisses = dateIndexCacheMisses;
+    }
+    
+    public Long getGeoWaveDecompositionTime() {
+        return geoWaveDecompositionTime;
+    }
+    
+    public void setGeoWaveDecompositionTime(Long geoWaveDecompositionTime) {
+        this.geoWaveDecompositionTime = geoWaveDecompositionTime;
+    }
+    
+    public Integer getGeoWaveRangeCount() {
+        return geoWaveRangeCount;
+    }
+    
+    public void setGeoWaveRangeCount(Integer geoWaveRangeCount) {
+        this.geoWaveRangeCount = geoWaveRangeCount;
+    }
+    
+    public Integer getGeoWaveDecompositionCacheHits() {
+        return geoWaveDecompositionCacheHits;
+    }
+    
+    public void setGeoWaveDecompositionCacheHits(Integer geoWaveDecompositionCacheHits) {
+        this.geoWaveDecompositionCacheHits = geoWaveDecompositionCacheHits;
+    }
+    
     public Query getQuery() {
         return query;
     }
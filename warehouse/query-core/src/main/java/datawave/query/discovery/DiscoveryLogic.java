@@ -60,6 +60,7 @@ import org.javatuples.Pair;
 
 import com.google.common.base.Function;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
@@ -74,9 +75,15 @@ public class DiscoveryLogic extends ShardIndexQueryTable {
     public static final String SEPARATE_COUNTS_BY_COLVIS = "separate.counts.by.colvis";
     public static final String SHOW_REFERENCE_COUNT = "show.reference.count";
     public static final String REVERSE_INDEX = "reverse.index";
+    public static final String TOP_K = "top.k";
+    public static final String TOP_K_RANKING = "top.k.ranking";
+    public static final String AGGREGATE_DATES = "aggregate.dates";
     
     private Boolean separateCountsByColVis = false;
     private Boolean showReferenceCount = false;
+    private int topK = 0;
+    private DiscoveryTopK.Ranking topKRanking = DiscoveryTopK.Ranking.COUNT;
+    private boolean aggregateDates = false;
     private MetadataHelper metadataHelper;
     
     public DiscoveryLogic() {
@@ -85,6 +92,12 @@ public class DiscoveryLogic extends ShardIndexQueryTable {
     
     public DiscoveryLogic(ShardIndexQueryTable other) {
         super(other);
+        if (other instanceof DiscoveryLogic) {
+            DiscoveryLogic otherLogic = (DiscoveryLogic) other;
+            this.topK = otherLogic.topK;
+            this.topKRanking = otherLogic.topKRanking;
+            this.aggregateDates = otherLogic.aggregateDates;
+        }
     }
     
     @Override
@@ -126,6 +139,29 @@ public class DiscoveryLogic extends ShardIndexQueryTable {
             config.setShowReferenceCount(showReferenceCount);
         }
         
+        // Check if user would like only the top terms, ranked on the tablet servers, and whether to rank the terms over all of the dates
+        config.setTopK(topK);
+        config.setTopKRanking(topKRanking);
+        config.setAggregateDates(aggregateDates);
+        if (null != settings.findParameter(TOP_K) && !settings.findParameter(TOP_K).getParameterValue().trim().isEmpty()) {
+            config.setTopK(Integer.parseInt(settings.findParameter(TOP_K).getParameterValue().trim()));
+        }
+        if (null != settings.findParameter(TOP_K_RANKING) && !settings.findParameter(TOP_K_RANKING).getParameterValue().trim().isEmpty()) {
+            String ranking = settings.findParameter(TOP_K_RANKING).getParameterValue().trim().toUpperCase();
+            try {
+                config.setTopKRanking(DiscoveryTopK.Ranking.valueOf(ranking));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid " + TOP_K_RANKING + " [" + ranking + "], expected one of "
+                                + Arrays.toString(DiscoveryTopK.Ranking.values()), e);
+            }
+        }
+        if (null != settings.findParameter(AGGREGATE_DATES) && !settings.findParameter(AGGREGATE_DATES).getParameterValue().trim().isEmpty()) {
+            config.setAggregateDates(Boolean.valueOf(settings.findParameter(AGGREGATE_DATES).getParameterValue().trim()));
+        }
+        if (log.isDebugEnabled() && config.isRanked()) {
+            log.debug("Returning the top " + config.getTopK() + " terms by " + config.getTopKRanking() + ", aggregating dates = " + config.isAggregateDates());
+        }
+        
         this.queryModel = metadataHelper.getQueryModel(modelTableName, modelName, null);
         
         // get the data type filter set if any
@@ -229,7 +265,11 @@ public class DiscoveryLogic extends ShardIndexQueryTable {
         config.setSeparateCountsByColVis(separateCountsByColVis);
         config.setShowReferenceCount(showReferenceCount);
         
-        this.iterator = concat(iterators.iterator());
+        if (config.isRanked()) {
+            this.iterator = mergeTopK(concat(iterators.iterator()), config);
+        } else {
+            this.iterator = concat(iterators.iterator());
+        }
     }
     
     public static BatchScanner configureBatchScannerForDiscovery(DiscoveryQueryConfiguration config, ScannerFactory scannerFactory, String tableName,
@@ -270,6 +310,14 @@ public class DiscoveryLogic extends ShardIndexQueryTable {
         }
         bs.addScanIterator(discoveryIteratorSetting);
         
+        if (config.isRanked()) {
+            IteratorSetting topKIteratorSetting = new IteratorSetting(config.getBaseIteratorPriority() + 51, TopKDiscoveryIterator.class);
+            topKIteratorSetting.addOption(TOP_K, Integer.toString(config.getTopK()));
+            topKIteratorSetting.addOption(TOP_K_RANKING, config.getTopKRanking().name());
+            topKIteratorSetting.addOption(AGGREGATE_DATES, Boolean.toString(config.isAggregateDates()));
+            bs.addScanIterator(topKIteratorSetting);
+        }
+        
         return bs;
     }
     
@@ -353,6 +401,36 @@ public class DiscoveryLogic extends ShardIndexQueryTable {
         }));
     }
     
+    /**
+     * Merges the top K of every range, as returned by the {@link TopKDiscoveryIterator}, into the top K of the query. A term is always in a single row, so
+     * this is the same as ranking all of the discovered things. The ranked lists of the tablets are consumed as they arrive and the first result is available
+     * once the last one has arrived.
+     *
+     * @param things
+     *            the discovered things of every range
+     * @param config
+     *            the query configuration
+     * @return the top K discovered things, best ranked first
+     */
+    public static Iterator<DiscoveredThing> mergeTopK(final Iterator<DiscoveredThing> things, final DiscoveryQueryConfiguration config) {
+        return new AbstractIterator<DiscoveredThing>() {
+            private Iterator<DiscoveredThing> top = null;
+            
+            @Override
+            protected DiscoveredThing computeNext() {
+                if (top == null) {
+                    // the dates were aggregated on the tablet servers, and the things of a term are all in the same row
+                    DiscoveryTopK merged = new DiscoveryTopK(config.getTopK(), config.getTopKRanking(), false);
+                    while (things.hasNext()) {
+                        merged.add(things.next());
+                    }
+                    top = merged.getTop().iterator();
+                }
+                return top.hasNext() ? top.next() : endOfData();
+            }
+        };
+    }
+    
     /**
      * Makes two collections of ranges: one for the forward index (value0) and one for the reverse index (value1).
      *
@@ -497,6 +575,9 @@ public class DiscoveryLogic extends ShardIndexQueryTable {
     public Set<String> getOptionalQueryParameters() {
         Set<String> params = super.getOptionalQueryParameters();
         params.add(SEPARATE_COUNTS_BY_COLVIS);
+        params.add(TOP_K);
+        params.add(TOP_K_RANKING);
+        params.add(AGGREGATE_DATES);
         return params;
     }
     
@@ -516,4 +597,28 @@ public class DiscoveryLogic extends ShardIndexQueryTable {
         this.showReferenceCount = showReferenceCount;
     }
     
+    public int getTopK() {
+        return topK;
+    }
+    
+    public void setTopK(int topK) {
+        this.topK = topK;
+    }
+    
+    public DiscoveryTopK.Ranking getTopKRanking() {
+        return topKRanking;
+    }
+    
+    public void setTopKRanking(DiscoveryTopK.Ranking topKRanking) {
+        this.topKRanking = topKRanking;
+    }
+    
+    public boolean isAggregateDates() {
+        return aggregateDates;
+    }
+    
+    public void setAggregateDates(boolean aggregateDates) {
+        this.aggregateDates = aggregateDates;
+    }
+    
 }
@@ -15,6 +15,9 @@ public class DiscoveryQueryConfiguration extends ShardIndexQueryConfiguration {
     private Multimap<String,LiteralRange<String>> ranges;
     private Boolean separateCountsByColVis = false;
     private Boolean showReferenceCount = false;
+    private int topK = 0;
+    private DiscoveryTopK.Ranking topKRanking = DiscoveryTopK.Ranking.COUNT;
+    private boolean aggregateDates = false;
     
     public DiscoveryQueryConfiguration(ShardIndexQueryTable logic, Query query) {
         super(logic, query);
@@ -60,4 +63,35 @@ public class DiscoveryQueryConfiguration extends ShardIndexQueryConfiguration {
         this.showReferenceCount = showReferenceCount;
         
     }
+    
+    public int getTopK() {
+        return topK;
+    }
+    
+    public void setTopK(int topK) {
+        this.topK = topK;
+    }
+    
+    public DiscoveryTopK.Ranking getTopKRanking() {
+        return topKRanking;
+    }
+    
+    public void setTopKRanking(DiscoveryTopK.Ranking topKRanking) {
+        this.topKRanking = topKRanking;
+    }
+    
+    public boolean isAggregateDates() {
+        return aggregateDates;
+    }
+    
+    public void setAggregateDates(boolean aggregateDates) {
+        this.aggregateDates = aggregateDates;
+    }
+    
+    /**
+     * @return true if the discovered things are ranked on the tablet servers and only the best are returned
+     */
+    public boolean isRanked() {
+        return topK > 0 || aggregateDates;
+    }
 }
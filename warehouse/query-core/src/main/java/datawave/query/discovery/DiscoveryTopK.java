@@ -0,0 +1,164 @@
+package datawave.query.discovery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import datawave.marking.MarkingFunctions;
+
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.MapWritable;
+import org.apache.hadoop.io.VLongWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Keeps the K best ranked {@link DiscoveredThing}s offered to it, or all of them in rank order when K is not positive. The things are ranked by their count
+ * or by their date, with the other as a tie breaker and then the natural order of the things so that the same input always gives the same top K.
+ * <p>
+ * When dates are aggregated, the things of a term, field and datatype are merged into one before they are ranked: the counts are summed, the visibilities are
+ * combined and the most recent date is kept. All of the merged things are held until {@link #getTop()} is called, which is bounded by the number of distinct
+ * terms rather than the number of dates.
+ */
+public class DiscoveryTopK {
+    
+    private static final Logger log = Logger.getLogger(DiscoveryTopK.class);
+    
+    private static final MarkingFunctions markingFunctions = MarkingFunctions.Factory.createMarkingFunctions();
+    
+    public enum Ranking {
+        /**
+         * the highest counts first
+         */
+        COUNT,
+        /**
+         * the most recent dates first
+         */
+        RECENCY
+    }
+    
+    private final int k;
+    private final boolean aggregateDates;
+    private final Comparator<DiscoveredThing> bestFirst;
+    
+    // the worst of the top K is at the head of the heap so it can be dropped when a better thing arrives
+    private final PriorityQueue<DiscoveredThing> heap;
+    private final Map<List<String>,DiscoveredThing> aggregated = new HashMap<>();
+    
+    // the things that could not be merged into the thing of their term, field and datatype
+    private long dropped = 0;
+    
+    /**
+     * @param k
+     *            the number of things to keep, or zero or less to keep them all
+     * @param ranking
+     *            how the things are ranked
+     * @param aggregateDates
+     *            true to merge the dates of a term, field and datatype before ranking
+     */
+    public DiscoveryTopK(int k, Ranking ranking, boolean aggregateDates) {
+        this.k = k;
+        this.aggregateDates = aggregateDates;
+        this.bestFirst = comparator(ranking);
+        this.heap = new PriorityQueue<>(k > 0 ? k + 1 : 11, Collections.reverseOrder(bestFirst));
+    }
+    
+    /**
+     * @param ranking
+     *            the ranking
+     * @return a comparator that orders the best ranked things first
+     */
+    public static Comparator<DiscoveredThing> comparator(Ranking ranking) {
+        Comparator<DiscoveredThing> byCount = Comparator.comparingLong(DiscoveredThing::getCount).reversed();
+        Comparator<DiscoveredThing> byDate = Comparator.comparing(DiscoveredThing::getDate, Comparator.reverseOrder());
+        Comparator<DiscoveredThing> ranked = (ranking == Ranking.RECENCY) ? byDate.thenComparing(byCount) : byCount.thenComparing(byDate);
+        return ranked.thenComparing(Comparator.naturalOrder());
+    }
+    
+    public void add(DiscoveredThing thing) {
+        if (aggregateDates) {
+            List<String> key = Arrays.asList(thing.getTerm(), thing.getField(), thing.getType());
+            DiscoveredThing existing = aggregated.get(key);
+            DiscoveredThing merged = (existing == null) ? thing : merge(existing, thing);
+            if (merged != null) {
+                aggregated.put(key, merged);
+            } else {
+                dropped++;
+                log.warn("Dropping the " + thing.getDate() + " count of " + thing.getCount() + " for " + key + " as its visibility "
+                                + thing.getColumnVisibility() + " could not be combined with " + existing.getColumnVisibility());
+            }
+        } else {
+            offer(thing);
+        }
+    }
+    
+    public void addAll(Iterable<DiscoveredThing> things) {
+        for (DiscoveredThing thing : things) {
+            add(thing);
+        }
+    }
+    
+    /**
+     * @return the top K things, best ranked first
+     */
+    public List<DiscoveredThing> getTop() {
+        for (DiscoveredThing thing : aggregated.values()) {
+            offer(thing);
+        }
+        aggregated.clear();
+        
+        List<DiscoveredThing> top = new ArrayList<>(heap);
+        top.sort(bestFirst);
+        return top;
+    }
+    
+    /**
+     * @return the things dropped because their visibility could not be combined with that of the other dates of their term, field and datatype
+     */
+    public long getDropped() {
+        return dropped;
+    }
+    
+    private void offer(DiscoveredThing thing) {
+        heap.offer(thing);
+        if (k > 0 && heap.size() > k) {
+            heap.poll();
+        }
+    }
+    
+    /**
+     * Merges the counts of two dates of the same term, field and datatype
+     *
+     * @return the merged thing, or null if the visibilities could not be combined
+     */
+    private static DiscoveredThing merge(DiscoveredThing a, DiscoveredThing b) {
+        ColumnVisibility columnVisibility;
+        try {
+            columnVisibility = markingFunctions.combine(Sets.newHashSet(new ColumnVisibility(a.getColumnVisibility()),
+                            new ColumnVisibility(b.getColumnVisibility())));
+        } catch (Exception e) {
+            log.debug("Invalid columnvisibility after combining!", e);
+            return null;
+        }
+        
+        MapWritable countsByVis = new MapWritable();
+        for (MapWritable counts : Arrays.asList(a.getCountsByColumnVisibility(), b.getCountsByColumnVisibility())) {
+            for (Map.Entry<Writable,Writable> entry : counts.entrySet()) {
+                VLongWritable count = (VLongWritable) countsByVis.get(entry.getKey());
+                long total = ((VLongWritable) entry.getValue()).get() + (count == null ? 0L : count.get());
+                countsByVis.put(entry.getKey(), new VLongWritable(total));
+            }
+        }
+        
+        String date = a.getDate().compareTo(b.getDate()) >= 0 ? a.getDate() : b.getDate();
+        return new DiscoveredThing(a.getTerm(), a.getField(), a.getType(), date, new String(columnVisibility.flatten()), a.getCount() + b.getCount(),
+                        countsByVis);
+    }
+}
@@ -0,0 +1,126 @@
+package datawave.query.discovery;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.ArrayWritable;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Sits on top of the {@link DiscoveryIterator} and returns only the top K {@link DiscoveredThing}s of the range it is seeked to, ranked by count or recency
+ * and optionally aggregated across dates. The whole range is consumed on the seek and the top K are returned in a single key: the last key the
+ * {@link DiscoveryIterator} returned, so that a scan resumed after it finds nothing more in the range. The value is an {@link ArrayWritable} of the things,
+ * best ranked first, in the same form the {@link DiscoveryIterator} returns.
+ * <p>
+ * A term is always in a single row, so the global top K is the top K of the union of the top K of every range.
+ */
+public class TopKDiscoveryIterator implements SortedKeyValueIterator<Key,Value> {
+    private static final Logger log = Logger.getLogger(TopKDiscoveryIterator.class);
+    
+    private SortedKeyValueIterator<Key,Value> itr;
+    private int topK;
+    private DiscoveryTopK.Ranking ranking = DiscoveryTopK.Ranking.COUNT;
+    private boolean aggregateDates = false;
+    
+    private Key tk;
+    private Value tv;
+    
+    @Override
+    public TopKDiscoveryIterator deepCopy(IteratorEnvironment env) {
+        TopKDiscoveryIterator i = new TopKDiscoveryIterator();
+        i.itr = itr.deepCopy(env);
+        i.topK = topK;
+        i.ranking = ranking;
+        i.aggregateDates = aggregateDates;
+        return i;
+    }
+    
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options, IteratorEnvironment env) throws IOException {
+        itr = source;
+        if (options.containsKey(DiscoveryLogic.TOP_K)) {
+            topK = Integer.parseInt(options.get(DiscoveryLogic.TOP_K));
+        }
+        if (options.containsKey(DiscoveryLogic.TOP_K_RANKING)) {
+            ranking = DiscoveryTopK.Ranking.valueOf(options.get(DiscoveryLogic.TOP_K_RANKING));
+        }
+        aggregateDates = Boolean.parseBoolean(options.get(DiscoveryLogic.AGGREGATE_DATES));
+        
+        if (log.isTraceEnabled()) {
+            log.trace("Keeping the top " + topK + " by " + ranking + ", aggregating dates = " + aggregateDates);
+        }
+    }
+    
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        tk = null;
+        tv = null;
+        
+        itr.seek(range, columnFamilies, inclusive);
+        
+        DiscoveryTopK top = new DiscoveryTopK(topK, ranking, aggregateDates);
+        DataInputBuffer in = new DataInputBuffer();
+        Key last = null;
+        long things = 0;
+        while (itr.hasTop()) {
+            last = itr.getTopKey();
+            Value value = itr.getTopValue();
+            in.reset(value.get(), value.getSize());
+            ArrayWritable aw = new ArrayWritable(DiscoveredThing.class);
+            aw.readFields(in);
+            for (Writable w : aw.get()) {
+                top.add((DiscoveredThing) w);
+                things++;
+            }
+            itr.next();
+        }
+        
+        if (last != null) {
+            List<DiscoveredThing> topThings = top.getTop();
+            ArrayWritable aw = new ArrayWritable(DiscoveredThing.class);
+            aw.set(topThings.toArray(new Writable[topThings.size()]));
+            tk = new Key(last);
+            tv = new Value(WritableUtils.toByteArray(aw));
+            
+            if (top.getDropped() > 0) {
+                log.warn("Dropped " + top.getDropped() + " of " + things + " discovered things in " + range + " whose visibilities could not be combined");
+            }
+            if (log.isTraceEnabled()) {
+                log.trace("Kept " + topThings.size() + " of " + things + " discovered things in " + range);
+            }
+        }
+    }
+    
+    @Override
+    public void next() throws IOException {
+        // the top K of the range are returned in a single key
+        tk = null;
+        tv = null;
+    }
+    
+    @Override
+    public boolean hasTop() {
+        return tk != null;
+    }
+    
+    @Override
+    public Key getTopKey() {
+        return tk;
+    }
+    
+    @Override
+    public Value getTopValue() {
+        return tv;
+    }
+}
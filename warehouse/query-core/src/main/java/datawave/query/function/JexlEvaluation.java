@@ -50,6 +50,21 @@ public class JexlEvaluation implements Predicate<Tuple3<Key,Document,DatawaveJex
         this.script = this.engine.createScript(this.query);
     }
     
+    /**
+     * @param query
+     *            the query string
+     * @param queryTree
+     *            the parsed query, which is owned by this evaluation from now on
+     * @param arithmetic
+     *            the arithmetic of the evaluation
+     */
+    public JexlEvaluation(String query, ASTJexlScript queryTree, JexlArithmetic arithmetic) {
+        this.query = query;
+        this.arithmetic = arithmetic;
+        this.engine = ArithmeticJexlEngines.getEngine(arithmetic);
+        this.script = this.engine.createScript(queryTree, query);
+    }
+    
     public JexlArithmetic getArithmetic() {
         return arithmetic;
     }
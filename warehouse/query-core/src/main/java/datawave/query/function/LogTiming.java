@@ -57,6 +57,18 @@ public class LogTiming implements Function<Entry<Key,Document>,Entry<Key,Documen
                 } else {
                     timingMetadata.setYieldCount(0L);
                 }
+                // only a seek planner saves seeks and nexts, so leave them out of the documents of queries that do not use one
+                if (querySpan.getSavedSeekCount() != 0 || querySpan.getSavedNextCount() != 0) {
+                    timingMetadata.setSavedSeekCount(querySpan.getSavedSeekCount());
+                    timingMetadata.setSavedNextCount(querySpan.getSavedNextCount());
+                }
+                // likewise only ivarators fill ranges and spill
+                if (querySpan.getIvaratorRangeCount() > 0 || querySpan.getIvaratorBytesSpilled() > 0) {
+                    timingMetadata.setIvaratorRanges(querySpan.getIvaratorRangeCount());
+                    timingMetadata.setIvaratorFillTime(querySpan.getIvaratorFillTime());
+                    timingMetadata.setIvaratorWaitTime(querySpan.getIvaratorWaitTime());
+                    timingMetadata.setIvaratorBytesSpilled(querySpan.getIvaratorBytesSpilled());
+                }
                 
                 long totalStageTimers = querySpan.getStageTimerTotal();
                 // do not report timers that are less than 5% of the total
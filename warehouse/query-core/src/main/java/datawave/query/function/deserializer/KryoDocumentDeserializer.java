@@ -5,6 +5,7 @@ import java.io.Serializable;
 
 import datawave.query.attributes.Attribute;
 import datawave.query.attributes.Document;
+import datawave.query.attributes.DocumentDictionary;
 import datawave.query.function.KryoCVAwareSerializableSerializer;
 
 import com.esotericsoftware.kryo.Kryo;
@@ -23,6 +24,8 @@ public class KryoDocumentDeserializer extends DocumentDeserializer implements Se
     
     public KryoDocumentDeserializer() {
         kryo.addDefaultSerializer(Attribute.class, new KryoCVAwareSerializableSerializer(true));
+        // the documents read by this deserializer share their field names and attribute metadata
+        kryo.getContext().put(DocumentDictionary.class, new DocumentDictionary());
     }
     
     @Override
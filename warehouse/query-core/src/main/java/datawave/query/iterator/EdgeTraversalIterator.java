@@ -0,0 +1,222 @@
+package datawave.query.iterator;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.OptionDescriber;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+/**
+ * Server side iterator used by the {@link datawave.query.tables.edge.EdgeTraversalQueryLogic} to expand one hop of a breadth-first edge traversal.
+ * <p>
+ * Edge rows are {@code SOURCE\0SINK}, the column family is {@code TYPE/RELATIONSHIP} and each column family typically has one key per date and attribute
+ * combination. A traversal only needs to know which edges exist between two vertices, so this iterator returns the first key (as accepted by the filters
+ * beneath it) for each distinct row and column family and then seeks directly to the next column family. Stats rows, which have no sink, are skipped. This
+ * keeps the hop result proportional to the number of distinct edges instead of the number of edge keys.
+ * <p>
+ * The number of edges returned per range can be bounded with the {@link #MAX_EDGES_OPTION} option so that a single high-degree vertex cannot blow up the
+ * traversal frontier. The tserver may tear down a scan session and resume it later by re-seeking a new instance of this iterator after the last key returned,
+ * so the count of edges returned for the range so far is carried in the keys themselves: it is appended to the column qualifier of each key returned, after a
+ * null byte, and read back from the start key of the resumed range. Clients restore the edge table key with {@link #getEdgeKey(Key)}. The total number of
+ * edges is bounded by the query logic on the client.
+ * <p>
+ * A seek with an exclusive start key is a resume after the last key returned, so the iterator skips the rest of that edge rather than returning it again.
+ */
+public class EdgeTraversalIterator extends WrappingIterator implements OptionDescriber {
+    private static final Logger log = Logger.getLogger(EdgeTraversalIterator.class);
+    
+    public static final String MAX_EDGES_OPTION = "maxEdges";
+    
+    private static final char COUNT_SEPARATOR = '\0';
+    
+    private long maxEdges = Long.MAX_VALUE;
+    
+    private Range range;
+    private Collection<ByteSequence> columnFamilies;
+    private boolean inclusive;
+    
+    private long edgesReturned = 0;
+    private boolean exhausted = false;
+    private Key topKey;
+    private Value topValue;
+    
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options, IteratorEnvironment env) throws IOException {
+        super.init(source, options, env);
+        if (!validateOptions(options)) {
+            throw new IllegalArgumentException("Invalid options supplied to " + getClass().getSimpleName() + ": " + options);
+        }
+        if (options.containsKey(MAX_EDGES_OPTION)) {
+            maxEdges = Long.parseLong(options.get(MAX_EDGES_OPTION));
+        }
+    }
+    
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+        EdgeTraversalIterator copy = new EdgeTraversalIterator();
+        copy.setSource(getSource().deepCopy(env));
+        copy.maxEdges = maxEdges;
+        return copy;
+    }
+    
+    @Override
+    public IteratorOptions describeOptions() {
+        IteratorOptions options = new IteratorOptions(getClass().getSimpleName(), "Returns one edge per distinct source, sink, type and relationship", null,
+                        null);
+        options.addNamedOption(MAX_EDGES_OPTION, "The maximum number of distinct edges to return per range, including when a scan is resumed");
+        return options;
+    }
+    
+    @Override
+    public boolean validateOptions(Map<String,String> options) {
+        String max = options.get(MAX_EDGES_OPTION);
+        if (max != null) {
+            try {
+                return Long.parseLong(max) > 0;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        this.range = range;
+        this.columnFamilies = columnFamilies;
+        this.inclusive = inclusive;
+        this.edgesReturned = 0;
+        this.exhausted = false;
+        
+        Key start = range.getStartKey();
+        if (start != null && !range.isStartKeyInclusive()) {
+            // resuming after an edge that has already been returned, so skip its remaining dates/attributes and keep counting from it
+            edgesReturned = getEdgesReturned(start);
+            reseek(start.followingKey(PartialKey.ROW_COLFAM));
+        } else {
+            super.seek(range, columnFamilies, inclusive);
+        }
+        findTop();
+    }
+    
+    @Override
+    public boolean hasTop() {
+        return topKey != null;
+    }
+    
+    @Override
+    public Key getTopKey() {
+        return topKey;
+    }
+    
+    @Override
+    public Value getTopValue() {
+        return topValue;
+    }
+    
+    @Override
+    public void next() throws IOException {
+        if (topKey == null) {
+            throw new IllegalStateException("next() called with no top");
+        }
+        // skip all of the remaining dates/attributes for this source, sink, type and relationship
+        reseek(topKey.followingKey(PartialKey.ROW_COLFAM));
+        findTop();
+    }
+    
+    private void findTop() throws IOException {
+        topKey = null;
+        topValue = null;
+        
+        while (!exhausted && getSource().hasTop()) {
+            if (edgesReturned >= maxEdges) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Returned the maximum of " + maxEdges + " edges for " + range + ", truncating this hop");
+                }
+                exhausted = true;
+                break;
+            }
+            
+            Key key = getSource().getTopKey();
+            if (!hasSink(key.getRowData())) {
+                // a stats edge, which has no sink vertex to traverse to
+                reseek(key.followingKey(PartialKey.ROW));
+                continue;
+            }
+            
+            edgesReturned++;
+            topKey = new Key(key.getRow(), key.getColumnFamily(), new Text(key.getColumnQualifier().toString() + COUNT_SEPARATOR + edgesReturned),
+                            key.getColumnVisibility(), key.getTimestamp());
+            topValue = new Value(getSource().getTopValue());
+            break;
+        }
+    }
+    
+    private void reseek(Key start) throws IOException {
+        if (range.afterEndKey(start)) {
+            exhausted = true;
+        } else {
+            getSource().seek(new Range(start, true, range.getEndKey(), range.isEndKeyInclusive()), columnFamilies, inclusive);
+        }
+    }
+    
+    /**
+     * @param key
+     *            a key returned by this iterator
+     * @return the key as it is in the edge table, without the count of edges returned for the range
+     */
+    public static Key getEdgeKey(Key key) {
+        String cq = key.getColumnQualifier().toString();
+        int index = getCountIndex(cq);
+        if (index < 0) {
+            return key;
+        }
+        return new Key(key.getRow(), key.getColumnFamily(), new Text(cq.substring(0, index)), key.getColumnVisibility(), key.getTimestamp());
+    }
+    
+    /**
+     * @return the number of edges returned for the range up to and including {@code key}, or 0 if it is not a key returned by this iterator
+     */
+    static long getEdgesReturned(Key key) {
+        String cq = key.getColumnQualifier().toString();
+        int index = getCountIndex(cq);
+        return index < 0 ? 0 : Long.parseLong(cq.substring(index + 1));
+    }
+    
+    /**
+     * @return the index of the separator before the count in a column qualifier, or -1 if there is no count
+     */
+    private static int getCountIndex(String cq) {
+        int index = cq.lastIndexOf(COUNT_SEPARATOR);
+        if (index < 0 || index == cq.length() - 1) {
+            return -1;
+        }
+        for (int i = index + 1; i < cq.length(); i++) {
+            if (!Character.isDigit(cq.charAt(i))) {
+                return -1;
+            }
+        }
+        return index;
+    }
+    
+    private static boolean hasSink(ByteSequence row) {
+        byte[] bytes = row.getBackingArray();
+        int end = row.offset() + row.length();
+        for (int i = row.offset(); i < end; i++) {
+            if (bytes[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -61,10 +61,12 @@ import datawave.query.jexl.functions.IdentityAggregator;
 import datawave.query.jexl.functions.KeyAdjudicator;
 import datawave.query.jexl.visitors.DelayedNonEventSubTreeVisitor;
 import datawave.query.jexl.visitors.IteratorBuildingVisitor;
+import datawave.query.jexl.visitors.RebuildingVisitor;
 import datawave.query.jexl.visitors.SatisfactionVisitor;
 import datawave.query.jexl.visitors.VariableNameVisitor;
 import datawave.query.postprocessing.tf.TFFactory;
 import datawave.query.predicate.EmptyDocumentFilter;
+import datawave.query.predicate.EventDataQueryFilter;
 import datawave.query.statsd.QueryStatsDClient;
 import datawave.query.tracking.ActiveQuery;
 import datawave.query.tracking.ActiveQueryLog;
@@ -245,8 +247,8 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
         
         // Parse the query
         try {
-            this.script = JexlASTHelper.parseJexlQuery(this.getQuery());
-            this.myEvaluationFunction = new JexlEvaluation(this.getQuery(), arithmetic);
+            this.script = QueryOptionsCache.getScript(this.getQuery(), this.getSerializedQueryTree());
+            this.myEvaluationFunction = new JexlEvaluation(this.getQuery(), (ASTJexlScript) RebuildingVisitor.copy(this.script), arithmetic);
             
         } catch (Exception e) {
             throw new IOException("Could not parse the JEXL query: '" + this.getQuery() + "'", e);
@@ -707,7 +709,7 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
                 try {
                     
                     myScript = JexlASTHelper.parseJexlQuery(queries.getValue());
-                    eval = new JexlEvaluation(queries.getValue(), myArithmetic);
+                    eval = new JexlEvaluation(queries.getValue(), (ASTJexlScript) RebuildingVisitor.copy(myScript), myArithmetic);
                     
                 } catch (Exception e) {
                     throw new IOException("Could not parse the JEXL query: '" + this.getQuery() + "'", e);
@@ -828,6 +830,17 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
         };
     }
     
+    /**
+     * Get the filter that the document pipeline loads the event data of a document with
+     *
+     * @param trackingSpan
+     *            the span of the pipeline, or null if timing details are not gathered
+     * @return a copy of the evaluation filter
+     */
+    protected EventDataQueryFilter getDocumentDataFilter(QuerySpan trackingSpan) {
+        return getEvaluationFilter();
+    }
+    
     /**
      * Create the pipeline. It is very important that this pipeline can handle resetting the bottom iterator with a new value. This means that hasNext() needs
      * to call the next iterator. The only state that can be maintained is the next value ready after hasNext() has been called. Once next returns the value,
@@ -869,7 +882,7 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
                 }
             };
         } else {
-            docMapper = new KeyToDocumentData(deepSourceCopy, myEnvironment, documentOptions, super.equality, getEvaluationFilter(),
+            docMapper = new KeyToDocumentData(deepSourceCopy, myEnvironment, documentOptions, super.equality, getDocumentDataFilter(trackingSpan),
                             this.includeHierarchyFields, this.includeHierarchyFields);
         }
         
@@ -1088,21 +1101,31 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
     protected JexlEvaluation getJexlEvaluation(NestedQueryIterator<Key> documentSource) {
         
         if (null == documentSource) {
-            return new JexlEvaluation(query, getArithmetic());
+            return newJexlEvaluation();
         }
         JexlEvaluation jexlEvaluationFunction = null;
         NestedQuery<Key> nestedQuery = documentSource.getNestedQuery();
         if (null == nestedQuery) {
-            jexlEvaluationFunction = new JexlEvaluation(query, getArithmetic());
+            jexlEvaluationFunction = newJexlEvaluation();
         } else {
             jexlEvaluationFunction = nestedQuery.getEvaluation();
             if (null == jexlEvaluationFunction) {
-                return new JexlEvaluation(query, getArithmetic());
+                return newJexlEvaluation();
             }
         }
         return jexlEvaluationFunction;
     }
     
+    /**
+     * @return an evaluation of the query over a copy of the query tree parsed in init, so that the query is not parsed again
+     */
+    protected JexlEvaluation newJexlEvaluation() {
+        if (script == null) {
+            return new JexlEvaluation(query, getArithmetic());
+        }
+        return new JexlEvaluation(query, (ASTJexlScript) RebuildingVisitor.copy(script), getArithmetic());
+    }
+    
     @Override
     public JexlArithmetic getArithmetic() {
         JexlArithmetic myArithmetic = this.arithmetic;
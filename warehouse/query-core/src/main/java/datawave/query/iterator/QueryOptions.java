@@ -110,6 +110,10 @@ public class QueryOptions implements OptionDescriber {
     public static final String LIMIT_SOURCES = "sources.limit.count";
     public static final String DISABLE_DOCUMENTS_WITHOUT_EVENTS = "disable.index.only.documents";
     public static final String QUERY = "query";
+    /**
+     * The tree of the query, serialized by the {@link datawave.query.jexl.QueryTreeSerializer} so that it does not need to be parsed
+     */
+    public static final String QUERY_TREE = "query.tree";
     public static final String QUERY_ID = "query.id";
     public static final String TYPE_METADATA = "type.metadata";
     public static final String TYPE_METADATA_AUTHS = "type.metadata.auths";
@@ -197,6 +201,8 @@ public class QueryOptions implements OptionDescriber {
     
     public static final String ZOOKEEPER_CONFIG = "zookeeper.config";
     
+    public static final String QUERY_LOCK_LEASE = "query.lock.lease";
+    
     public static final String IVARATOR_CACHE_DIR_CONFIG = "ivarator.cache.dir.config";
     
     public static final String IVARATOR_CACHE_BUFFER_SIZE = "ivarator.cache.buffer.size";
@@ -251,6 +257,7 @@ public class QueryOptions implements OptionDescriber {
     
     protected String scanId;
     protected String query;
+    protected String serializedQueryTree;
     protected String queryId;
     protected boolean disableEvaluation = false;
     protected boolean disableFiEval = false;
@@ -324,6 +331,7 @@ public class QueryOptions implements OptionDescriber {
     protected FileSystemCache fsCache = null;
     
     protected String zookeeperConfig = null;
+    protected long queryLockLease = 0;
     
     protected List<IvaratorCacheDirConfig> ivaratorCacheDirConfigs = Collections.emptyList();
     protected long ivaratorCacheScanPersistThreshold = 100000L;
@@ -394,6 +402,7 @@ public class QueryOptions implements OptionDescriber {
     public void deepCopy(QueryOptions other) {
         this.options = other.options;
         this.query = other.query;
+        this.serializedQueryTree = other.serializedQueryTree;
         this.queryId = other.queryId;
         this.scanId = other.scanId;
         this.disableEvaluation = other.disableEvaluation;
@@ -498,6 +507,14 @@ public class QueryOptions implements OptionDescriber {
         this.query = query;
     }
     
+    public String getSerializedQueryTree() {
+        return serializedQueryTree;
+    }
+    
+    public void setSerializedQueryTree(String serializedQueryTree) {
+        this.serializedQueryTree = serializedQueryTree;
+    }
+    
     public String getQueryId() {
         return queryId;
     }
@@ -788,7 +805,7 @@ public class QueryOptions implements OptionDescriber {
     public QueryLock getQueryLock() throws MalformedURLException, ConfigException {
         return new QueryLock.Builder().forQueryId(getQueryId()).forFSCache(getFileSystemCache())
                         .forIvaratorDirs(ivaratorCacheDirConfigs.stream().map(IvaratorCacheDirConfig::getBasePathURI).collect(Collectors.joining(",")))
-                        .forZookeeper(getZookeeperConfig(), HdfsBackedControl.CANCELLED_CHECK_INTERVAL * 2).build();
+                        .forZookeeper(getZookeeperConfig(), HdfsBackedControl.CANCELLED_CHECK_INTERVAL * 2).forLease(getQueryLockLease()).build();
     }
     
     public String getHdfsFileCompressionCodec() {
@@ -807,6 +824,14 @@ public class QueryOptions implements OptionDescriber {
         this.zookeeperConfig = zookeeperConfig;
     }
     
+    public long getQueryLockLease() {
+        return queryLockLease;
+    }
+    
+    public void setQueryLockLease(long queryLockLease) {
+        this.queryLockLease = queryLockLease;
+    }
+    
     public List<IvaratorCacheDirConfig> getIvaratorCacheDirConfigs() {
         return ivaratorCacheDirConfigs;
     }
@@ -994,6 +1019,7 @@ public class QueryOptions implements OptionDescriber {
         options.put(LIMIT_SOURCES, "Allows client to limit the number of sources used for this scan");
         options.put(DISABLE_DOCUMENTS_WITHOUT_EVENTS, "Removes documents in which only hits against the index were found, and no event");
         options.put(QUERY, "The JEXL query to evaluate documents against");
+        options.put(QUERY_TREE, "The parsed JEXL query in binary form, used instead of parsing the query when it matches");
         options.put(QUERY_ID, "The UUID of the query");
         options.put(TYPE_METADATA, "A mapping of field name to a set of DataType class names");
         options.put(QUERY_MAPPING_COMPRESS, "Boolean value to indicate Normalizer mapping is compressed");
@@ -1047,6 +1073,8 @@ public class QueryOptions implements OptionDescriber {
                         "The maximum number of ranges to split a field index scan (ivarator) range into for multithreading.  Note the thread pool size is controlled via an accumulo property.");
         options.put(MAX_IVARATOR_OPEN_FILES,
                         "The maximum number of files that can be opened at one time during a merge sort.  If more that this number of files are created, then compactions will occur");
+        options.put(QUERY_LOCK_LEASE,
+                        "The milliseconds a tserver trusts a check of the query lock for across all of the ivarators of the query.  Default is 0, which checks the lock for each ivarator.");
         options.put(IVARATOR_NUM_RETRIES,
                         "The number of times an ivarator should attempt to persist a sorted set to a given ivarator cache directory.  We will use the specified number of retries for each of the configured ivarator cache directories.");
         options.put(MAX_IVARATOR_SOURCES,
@@ -1115,6 +1143,7 @@ public class QueryOptions implements OptionDescriber {
         // evaluation
         if (options.containsKey(QUERY)) {
             this.query = options.get(QUERY);
+            this.serializedQueryTree = options.get(QUERY_TREE);
         } else if (!this.disableEvaluation) {
             log.error("If a query is not specified, evaluation must be disabled.");
             return false;
@@ -1137,7 +1166,7 @@ public class QueryOptions implements OptionDescriber {
         if (options.containsKey(COMPOSITE_METADATA)) {
             String compositeMetadataString = options.get(COMPOSITE_METADATA);
             if (compositeMetadataString != null && !compositeMetadataString.isEmpty()) {
-                this.compositeMetadata = CompositeMetadata.fromBytes(java.util.Base64.getDecoder().decode(compositeMetadataString));
+                this.compositeMetadata = QueryOptionsCache.getCompositeMetadata(compositeMetadataString);
             }
             
             if (log.isTraceEnabled()) {
@@ -1406,6 +1435,10 @@ public class QueryOptions implements OptionDescriber {
             this.setZookeeperConfig(options.get(ZOOKEEPER_CONFIG));
         }
         
+        if (options.containsKey(QUERY_LOCK_LEASE)) {
+            this.setQueryLockLease(Long.parseLong(options.get(QUERY_LOCK_LEASE)));
+        }
+        
         if (options.containsKey(IVARATOR_CACHE_DIR_CONFIG)) {
             try {
                 this.setIvaratorCacheDirConfigs(IvaratorCacheDirConfig.fromJson(options.get(IVARATOR_CACHE_DIR_CONFIG)));
@@ -1558,10 +1591,7 @@ public class QueryOptions implements OptionDescriber {
         if (options.containsKey(TYPE_METADATA)) {
             String typeMetadataString = options.get(TYPE_METADATA);
             try {
-                if (compressedMappings) {
-                    typeMetadataString = decompressOption(typeMetadataString, QueryOptions.UTF8);
-                }
-                this.typeMetadata = buildTypeMetadata(typeMetadataString);
+                this.typeMetadata = QueryOptionsCache.getTypeMetadata(typeMetadataString, compressedMappings);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
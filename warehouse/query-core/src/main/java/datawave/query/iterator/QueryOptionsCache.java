@@ -0,0 +1,137 @@
+package datawave.query.iterator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import datawave.query.composite.CompositeMetadata;
+import datawave.query.jexl.JexlASTHelper;
+import datawave.query.jexl.QueryTreeSerializer;
+import datawave.query.jexl.visitors.RebuildingVisitor;
+import datawave.query.util.TypeMetadata;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.ParseException;
+import org.apache.log4j.Logger;
+
+/**
+ * Caches the parts of the {@link QueryOptions} that are expensive to build on the tablet servers: the query tree, the type metadata and the composite
+ * metadata. A query sends the same options with every scan session of every range, so each is deserialized once per tablet server and kept under the content
+ * hash of its option value.
+ * <p>
+ * The query tree and the type metadata are modified by the iterators, so copies of them are returned.
+ */
+public class QueryOptionsCache {
+    private static final Logger log = Logger.getLogger(QueryOptionsCache.class);
+    
+    private static final Cache<HashCode,ASTJexlScript> scripts = CacheBuilder.newBuilder().maximumSize(1000).concurrencyLevel(100)
+                    .expireAfterAccess(1, TimeUnit.HOURS).build();
+    private static final Cache<HashCode,TypeMetadata> typeMetadata = CacheBuilder.newBuilder().maximumSize(100).concurrencyLevel(100)
+                    .expireAfterAccess(1, TimeUnit.HOURS).build();
+    private static final Cache<HashCode,CompositeMetadata> compositeMetadata = CacheBuilder.newBuilder().maximumSize(100).concurrencyLevel(100)
+                    .expireAfterAccess(1, TimeUnit.HOURS).build();
+    
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    
+    private QueryOptionsCache() {}
+    
+    /**
+     * @param query
+     *            the query string
+     * @param serializedTree
+     *            the tree of the query serialized by the {@link QueryTreeSerializer}, or null to parse the query string
+     * @return a copy of the query tree
+     * @throws ParseException
+     *             if the query does not parse
+     */
+    public static ASTJexlScript getScript(String query, String serializedTree) throws ParseException {
+        HashCode key = hash(query);
+        ASTJexlScript script = scripts.getIfPresent(key);
+        if (script == null) {
+            misses.incrementAndGet();
+            script = deserialize(query, serializedTree);
+            scripts.put(key, script);
+        } else {
+            hits.incrementAndGet();
+        }
+        return (ASTJexlScript) RebuildingVisitor.copy(script);
+    }
+    
+    private static ASTJexlScript deserialize(String query, String serializedTree) throws ParseException {
+        if (serializedTree != null) {
+            try {
+                ASTJexlScript script = QueryTreeSerializer.decode(serializedTree, query);
+                if (script != null) {
+                    return script;
+                }
+                log.debug("Serialized query tree does not match the query, parsing it instead");
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Could not deserialize the query tree, parsing the query instead", e);
+            }
+        }
+        return JexlASTHelper.parseJexlQuery(query);
+    }
+    
+    /**
+     * @param option
+     *            the type metadata option
+     * @param compressed
+     *            whether the option is compressed
+     * @return a copy of the type metadata
+     * @throws IOException
+     *             if the option cannot be decompressed
+     */
+    public static TypeMetadata getTypeMetadata(String option, boolean compressed) throws IOException {
+        HashCode key = hash((compressed ? "1" : "0") + option);
+        TypeMetadata metadata = typeMetadata.getIfPresent(key);
+        if (metadata == null) {
+            misses.incrementAndGet();
+            metadata = QueryOptions.buildTypeMetadata(compressed ? QueryOptions.decompressOption(option, QueryOptions.UTF8) : option);
+            typeMetadata.put(key, metadata);
+        } else {
+            hits.incrementAndGet();
+        }
+        return new TypeMetadata(metadata);
+    }
+    
+    /**
+     * @param option
+     *            the Base64 encoded composite metadata option
+     * @return the composite metadata, which is shared and must not be modified
+     */
+    public static CompositeMetadata getCompositeMetadata(String option) {
+        HashCode key = hash(option);
+        CompositeMetadata metadata = compositeMetadata.getIfPresent(key);
+        if (metadata == null) {
+            misses.incrementAndGet();
+            metadata = CompositeMetadata.fromBytes(java.util.Base64.getDecoder().decode(option));
+            compositeMetadata.put(key, metadata);
+        } else {
+            hits.incrementAndGet();
+        }
+        return metadata;
+    }
+    
+    private static HashCode hash(String option) {
+        return Hashing.murmur3_128().hashString(option, StandardCharsets.UTF_8);
+    }
+    
+    public static long getHitCount() {
+        return hits.get();
+    }
+    
+    public static long getMissCount() {
+        return misses.get();
+    }
+    
+    public static void invalidateAll() {
+        scripts.invalidateAll();
+        typeMetadata.invalidateAll();
+        compositeMetadata.invalidateAll();
+    }
+}
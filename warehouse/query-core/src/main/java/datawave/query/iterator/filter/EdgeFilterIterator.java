@@ -3,6 +3,9 @@ package datawave.query.iterator.filter;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -10,6 +13,7 @@ import datawave.edge.model.EdgeModelAware;
 import datawave.edge.model.EdgeModelAware.Fields;
 import datawave.edge.model.EdgeModelAware.Fields.FieldKey;
 import datawave.edge.util.EdgeKeyUtil;
+import datawave.edge.util.EdgeKeyView;
 
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
@@ -17,6 +21,7 @@ import org.apache.accumulo.core.iterators.Filter;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.jexl2.Expression;
 import org.apache.commons.jexl2.JexlContext;
 import org.apache.commons.jexl2.JexlEngine;
@@ -33,6 +38,9 @@ import com.google.common.collect.HashMultimap;
  *
  * Prefiltering is an optional component that can determine quickly if a key will fail using a whitelist of accepted values parsed from the jexl
  *
+ * For the protobuf edge format, keys are read through an {@link EdgeKeyView} so that nothing is decoded for keys which fail the prefilter. The prefilter checks
+ * the cheapest fields first (type, relationship and date, which are compared in place against the key's bytes) and only looks at the source and sink last.
+ * Keys which pass the prefilter are evaluated against a context which decodes and lowercases each field only when the JEXL expression asks for it.
  */
 public class EdgeFilterIterator extends Filter {
     public static final Logger log = Logger.getLogger(EdgeFilterIterator.class);
@@ -53,12 +61,44 @@ public class EdgeFilterIterator extends Filter {
     
     private HashMultimap<String,String> preFilterValues;
     
+    // the prefilter whitelist as UTF-8 bytes, indexed by FieldKey ordinal
+    private byte[][][] preFilterBytes;
+    
+    /** the order in which fields are prefiltered, cheapest first */
+    private static final FieldKey[] PREFILTER_ORDER = {FieldKey.EDGE_TYPE, FieldKey.EDGE_RELATIONSHIP, FieldKey.DATE, FieldKey.EDGE_ATTRIBUTE1,
+            FieldKey.EDGE_ATTRIBUTE2, FieldKey.EDGE_ATTRIBUTE3, FieldKey.STATS_EDGE, FieldKey.EDGE_SOURCE, FieldKey.EDGE_SINK};
+    
+    private static final byte[] STATS_EDGE_VALUE = "true".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EMPTY_BYTES = new byte[0];
+    
+    private static final Map<String,FieldKey> CONTEXT_FIELDS = new HashMap<>();
+    static {
+        CONTEXT_FIELDS.put(EdgeModelAware.EDGE_SOURCE.toLowerCase(), FieldKey.EDGE_SOURCE);
+        CONTEXT_FIELDS.put(EdgeModelAware.EDGE_SINK.toLowerCase(), FieldKey.EDGE_SINK);
+        CONTEXT_FIELDS.put(EdgeModelAware.EDGE_TYPE.toLowerCase(), FieldKey.EDGE_TYPE);
+        CONTEXT_FIELDS.put(EdgeModelAware.EDGE_RELATIONSHIP.toLowerCase(), FieldKey.EDGE_RELATIONSHIP);
+        CONTEXT_FIELDS.put(EdgeModelAware.EDGE_ATTRIBUTE1.toLowerCase(), FieldKey.EDGE_ATTRIBUTE1);
+        CONTEXT_FIELDS.put(EdgeModelAware.EDGE_ATTRIBUTE2.toLowerCase(), FieldKey.EDGE_ATTRIBUTE2);
+        CONTEXT_FIELDS.put(EdgeModelAware.EDGE_ATTRIBUTE3.toLowerCase(), FieldKey.EDGE_ATTRIBUTE3);
+        CONTEXT_FIELDS.put(EdgeModelAware.DATE.toLowerCase(), FieldKey.DATE);
+    }
+    
+    private final EdgeKeyView view = new EdgeKeyView();
+    private final EdgeKeyContext keyContext = new EdgeKeyContext();
+    
+    // number of column family and column qualifier pieces as String.split("/") would count them for the current key
+    private int colFamSplitLength;
+    private int colQualSplitLength;
+    
     @Override
     public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
         EdgeFilterIterator result = (EdgeFilterIterator) super.deepCopy(env);
         result.protobuffFormat = this.protobuffFormat;
         result.expression = this.expression;
         result.preFilterValues = this.preFilterValues;
+        result.preFilterBytes = this.preFilterBytes;
+        result.includeStatsEdges = this.includeStatsEdges;
+        result.statsExpression = this.statsExpression;
         
         return result;
     }
@@ -175,6 +215,7 @@ public class EdgeFilterIterator extends Filter {
                 ois = new ObjectInputStream(new ByteArrayInputStream(data));
                 Object o = ois.readObject();
                 preFilterValues = (HashMultimap<String,String>) o;
+                preFilterBytes = toBytes(preFilterValues);
             } catch (IOException ex) {
                 // we can work without it
                 log.error("Invalid whitelist value supplied to iterator.");
@@ -184,6 +225,22 @@ public class EdgeFilterIterator extends Filter {
         }
     }
     
+    private static byte[][][] toBytes(HashMultimap<String,String> whitelist) {
+        byte[][][] bytes = new byte[FieldKey.values().length][][];
+        for (FieldKey field : PREFILTER_ORDER) {
+            Set<String> values = whitelist.get(Fields.getInstance().getFieldName(field));
+            if (values != null && !values.isEmpty()) {
+                byte[][] fieldBytes = new byte[values.size()][];
+                int i = 0;
+                for (String value : values) {
+                    fieldBytes[i++] = value.getBytes(StandardCharsets.UTF_8);
+                }
+                bytes[field.ordinal()] = fieldBytes;
+            }
+        }
+        return bytes;
+    }
+    
     /**
      * Method to perform prefilter against a whitelist to see if we can quickly ignore the key
      *
@@ -240,6 +297,31 @@ public class EdgeFilterIterator extends Filter {
      */
     @Override
     public boolean accept(Key k, Value V) {
+        if (!protobuffFormat || !isSimpleRow(view.reset(k))) {
+            return acceptDisassembled(k);
+        }
+        
+        colFamSplitLength = splitLength(0, view.getColumnFamilyPieceCount());
+        colQualSplitLength = splitLength(view.getColumnFamilyPieceCount(), view.getColumnQualifierPieceCount());
+        
+        if (!prefilter()) {
+            return false;
+        }
+        
+        keyContext.clear();
+        if (view.isStats()) {
+            if (!includeStatsEdges) {
+                return false;
+            }
+            return statsExpression == null || (boolean) statsExpression.evaluate(keyContext);
+        }
+        return (boolean) expression.evaluate(keyContext);
+    }
+    
+    /**
+     * Evaluates the key against fully disassembled key components. Used for the non-protobuf format and for malformed rows.
+     */
+    private boolean acceptDisassembled(Key k) {
         boolean value = false;
         
         Map<FieldKey,String> keyComponents = EdgeKeyUtil.dissasembleKey(k, protobuffFormat);
@@ -264,4 +346,169 @@ public class EdgeFilterIterator extends Filter {
         
         return value;
     }
+    
+    /**
+     * @return true if the row is either a lone source or a single source/sink pair, which is all the view based evaluation handles
+     */
+    private static boolean isSimpleRow(EdgeKeyView view) {
+        int separators = view.getRowSeparatorCount();
+        return separators == 0 || (separators == 1 && view.hasSink() && !view.sinkEquals(EMPTY_BYTES));
+    }
+    
+    /**
+     * The number of elements String.split would return for the given pieces: trailing empty pieces are dropped unless the whole string is empty.
+     */
+    private int splitLength(int first, int count) {
+        if (count == 1) {
+            return 1;
+        }
+        while (count > 0 && view.getPieceLength(first + count - 1) == 0) {
+            count--;
+        }
+        return count;
+    }
+    
+    /**
+     * Maps a field to its piece in the current key, following the protobuf layout used by {@link EdgeKeyUtil#dissasembleKey(Key, boolean)}.
+     *
+     * @return the piece index, or -1 if the key does not have the field
+     */
+    private int getPiece(FieldKey field) {
+        int colQualOffset = view.getColumnFamilyPieceCount();
+        switch (field) {
+            case EDGE_TYPE:
+                return view.isStats() ? (colFamSplitLength >= 4 ? 2 : -1) : (colFamSplitLength >= 2 ? 0 : -1);
+            case EDGE_RELATIONSHIP:
+                return view.isStats() ? (colFamSplitLength >= 4 ? 3 : -1) : (colFamSplitLength >= 2 ? 1 : -1);
+            case DATE:
+                return colQualSplitLength >= 1 ? colQualOffset : -1;
+            case EDGE_ATTRIBUTE1:
+                return colQualSplitLength >= 2 ? colQualOffset + 1 : -1;
+            case EDGE_ATTRIBUTE2:
+                return colQualSplitLength >= 3 ? colQualOffset + 2 : -1;
+            case EDGE_ATTRIBUTE3:
+                return colQualSplitLength >= 4 ? colQualOffset + 3 : -1;
+            default:
+                return -1;
+        }
+    }
+    
+    /**
+     * Same as {@link #prefilter(Map)}, but compares the key's bytes in place and checks the cheapest fields first.
+     */
+    private boolean prefilter() {
+        if (preFilterBytes == null) {
+            return true;
+        }
+        for (FieldKey field : PREFILTER_ORDER) {
+            byte[][] accepted = preFilterBytes[field.ordinal()];
+            if (accepted != null && !prefilter(field, accepted)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean prefilter(FieldKey field, byte[][] accepted) {
+        switch (field) {
+            case EDGE_SOURCE:
+            case EDGE_SINK:
+                boolean source = field == FieldKey.EDGE_SOURCE;
+                if (!source && !view.hasSink()) {
+                    return true;
+                }
+                if (view.hasEscapedRow()) {
+                    // the whitelist holds unescaped values
+                    String value = StringEscapeUtils.unescapeJava(source ? view.getSourceData() : view.getSinkData());
+                    return preFilterValues.get(Fields.getInstance().getFieldName(field)).contains(value);
+                }
+                for (byte[] value : accepted) {
+                    if (source ? view.sourceEquals(value) : view.sinkEquals(value)) {
+                        return true;
+                    }
+                }
+                return false;
+            case STATS_EDGE:
+                if (!view.isStats()) {
+                    return true;
+                }
+                for (byte[] value : accepted) {
+                    if (Arrays.equals(STATS_EDGE_VALUE, value)) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                int piece = getPiece(field);
+                if (piece < 0) {
+                    return true;
+                }
+                for (byte[] value : accepted) {
+                    if (view.pieceEquals(piece, value)) {
+                        return true;
+                    }
+                }
+                return false;
+        }
+    }
+    
+    /**
+     * A JEXL context over the current key which decodes and lowercases each edge field the first time the expression asks for it. Any other variables are
+     * kept in a plain map.
+     */
+    private class EdgeKeyContext implements JexlContext {
+        private final MapContext other = new MapContext();
+        private final String[] values = new String[FieldKey.values().length];
+        private final boolean[] decoded = new boolean[FieldKey.values().length];
+        
+        void clear() {
+            Arrays.fill(decoded, false);
+        }
+        
+        @Override
+        public Object get(String name) {
+            FieldKey field = CONTEXT_FIELDS.get(name);
+            if (field == null) {
+                return other.get(name);
+            }
+            int i = field.ordinal();
+            if (!decoded[i]) {
+                values[i] = decode(field);
+                decoded[i] = true;
+            }
+            return values[i];
+        }
+        
+        private String decode(FieldKey field) {
+            String value;
+            switch (field) {
+                case EDGE_SOURCE:
+                    value = StringEscapeUtils.unescapeJava(view.getSourceData());
+                    break;
+                case EDGE_SINK:
+                    value = view.hasSink() ? StringEscapeUtils.unescapeJava(view.getSinkData()) : null;
+                    break;
+                default:
+                    int piece = getPiece(field);
+                    value = piece < 0 ? null : view.getPiece(piece);
+            }
+            return value == null ? null : value.toLowerCase();
+        }
+        
+        @Override
+        public void set(String name, Object value) {
+            FieldKey field = CONTEXT_FIELDS.get(name);
+            if (field == null) {
+                other.set(name, value);
+            } else {
+                values[field.ordinal()] = value == null ? null : value.toString();
+                decoded[field.ordinal()] = true;
+            }
+        }
+        
+        @Override
+        public boolean has(String name) {
+            return CONTEXT_FIELDS.containsKey(name) || other.has(name);
+        }
+    }
 }
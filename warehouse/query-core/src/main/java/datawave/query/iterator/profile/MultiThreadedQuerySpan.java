@@ -47,6 +47,36 @@ public class MultiThreadedQuerySpan extends QuerySpan {
         return getThreadSpecificQuerySpan().getSeekCount();
     }
     
+    @Override
+    public long getSavedSeekCount() {
+        return getThreadSpecificQuerySpan().getSavedSeekCount();
+    }
+    
+    @Override
+    public long getSavedNextCount() {
+        return getThreadSpecificQuerySpan().getSavedNextCount();
+    }
+    
+    @Override
+    public long getIvaratorRangeCount() {
+        return getThreadSpecificQuerySpan().getIvaratorRangeCount();
+    }
+    
+    @Override
+    public long getIvaratorFillTime() {
+        return getThreadSpecificQuerySpan().getIvaratorFillTime();
+    }
+    
+    @Override
+    public long getIvaratorWaitTime() {
+        return getThreadSpecificQuerySpan().getIvaratorWaitTime();
+    }
+    
+    @Override
+    public long getIvaratorBytesSpilled() {
+        return getThreadSpecificQuerySpan().getIvaratorBytesSpilled();
+    }
+    
     public boolean getYield() {
         return getThreadSpecificQuerySpan().getYield();
     }
@@ -66,6 +96,26 @@ public class MultiThreadedQuerySpan extends QuerySpan {
         getThreadSpecificQuerySpan().yield();
     }
     
+    @Override
+    public synchronized void addSavedSeeks(long seeks) {
+        getThreadSpecificQuerySpan().addSavedSeeks(seeks);
+    }
+    
+    @Override
+    public synchronized void addSavedNexts(long nexts) {
+        getThreadSpecificQuerySpan().addSavedNexts(nexts);
+    }
+    
+    @Override
+    public synchronized void addIvaratorFill(long fillTime, long waitTime) {
+        getThreadSpecificQuerySpan().addIvaratorFill(fillTime, waitTime);
+    }
+    
+    @Override
+    public synchronized void addIvaratorBytesSpilled(long bytes) {
+        getThreadSpecificQuerySpan().addIvaratorBytesSpilled(bytes);
+    }
+    
     @Override
     public void reset() {
         super.reset();
@@ -107,6 +157,36 @@ public class MultiThreadedQuerySpan extends QuerySpan {
         getThreadSpecificQuerySpan().setYield(yield);
     }
     
+    @Override
+    public void setSavedSeek(long savedSeek) {
+        getThreadSpecificQuerySpan().setSavedSeek(savedSeek);
+    }
+    
+    @Override
+    public void setSavedNext(long savedNext) {
+        getThreadSpecificQuerySpan().setSavedNext(savedNext);
+    }
+    
+    @Override
+    public void setIvaratorRanges(long ivaratorRanges) {
+        getThreadSpecificQuerySpan().setIvaratorRanges(ivaratorRanges);
+    }
+    
+    @Override
+    public void setIvaratorFillTime(long ivaratorFillTime) {
+        getThreadSpecificQuerySpan().setIvaratorFillTime(ivaratorFillTime);
+    }
+    
+    @Override
+    public void setIvaratorWaitTime(long ivaratorWaitTime) {
+        getThreadSpecificQuerySpan().setIvaratorWaitTime(ivaratorWaitTime);
+    }
+    
+    @Override
+    public void setIvaratorBytesSpilled(long ivaratorBytesSpilled) {
+        getThreadSpecificQuerySpan().setIvaratorBytesSpilled(ivaratorBytesSpilled);
+    }
+    
     @Override
     public void setSourceCount(long sourceCount) {
         getThreadSpecificQuerySpan().setSourceCount(sourceCount);
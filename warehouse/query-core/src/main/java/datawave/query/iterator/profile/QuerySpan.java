@@ -30,6 +30,18 @@ public class QuerySpan {
     
     protected boolean yield = false;
     
+    protected long savedSeek = 0;
+    
+    protected long savedNext = 0;
+    
+    protected long ivaratorRanges = 0;
+    
+    protected long ivaratorFillTime = 0;
+    
+    protected long ivaratorWaitTime = 0;
+    
+    protected long ivaratorBytesSpilled = 0;
+    
     private Map<String,Long> stageTimers = new LinkedHashMap<>();
     
     private long stageTimerTotal = 0;
@@ -96,6 +108,72 @@ public class QuerySpan {
         return seekCount;
     }
     
+    /**
+     * @return the seeks that a seek planner avoided over the seeking thresholds it replaced, net of the seeks it added
+     */
+    public long getSavedSeekCount() {
+        long savedSeekCount = savedSeek;
+        for (QuerySpan subSpan : sources) {
+            savedSeekCount += subSpan.getSavedSeekCount();
+        }
+        return savedSeekCount;
+    }
+    
+    /**
+     * @return the nexts that a seek planner avoided by seeking over the seeking thresholds it replaced, net of the nexts it added by not seeking
+     */
+    public long getSavedNextCount() {
+        long savedNextCount = savedNext;
+        for (QuerySpan subSpan : sources) {
+            savedNextCount += subSpan.getSavedNextCount();
+        }
+        return savedNextCount;
+    }
+    
+    /**
+     * @return the field index ranges that ivarators filled
+     */
+    public long getIvaratorRangeCount() {
+        long ivaratorRangeCount = ivaratorRanges;
+        for (QuerySpan subSpan : sources) {
+            ivaratorRangeCount += subSpan.getIvaratorRangeCount();
+        }
+        return ivaratorRangeCount;
+    }
+    
+    /**
+     * @return the milliseconds ivarators spent filling ranges
+     */
+    public long getIvaratorFillTime() {
+        long fillTime = ivaratorFillTime;
+        for (QuerySpan subSpan : sources) {
+            fillTime += subSpan.getIvaratorFillTime();
+        }
+        return fillTime;
+    }
+    
+    /**
+     * @return the milliseconds ivarator fills waited for a source, a thread and a slot before they ran
+     */
+    public long getIvaratorWaitTime() {
+        long waitTime = ivaratorWaitTime;
+        for (QuerySpan subSpan : sources) {
+            waitTime += subSpan.getIvaratorWaitTime();
+        }
+        return waitTime;
+    }
+    
+    /**
+     * @return the bytes ivarators spilled to their cache dirs
+     */
+    public long getIvaratorBytesSpilled() {
+        long bytesSpilled = ivaratorBytesSpilled;
+        for (QuerySpan subSpan : sources) {
+            bytesSpilled += subSpan.getIvaratorBytesSpilled();
+        }
+        return bytesSpilled;
+    }
+    
     public boolean getYield() {
         if (yield) {
             return true;
@@ -111,7 +189,10 @@ public class QuerySpan {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(super.toString()).append(" sources:").append(getSourceCount()).append(" next:").append(getNextCount()).append(" seek:")
-                        .append(getSeekCount()).append(" yield:").append(getYield());
+                        .append(getSeekCount()).append(" yield:").append(getYield()).append(" savedSeek:").append(getSavedSeekCount()).append(" savedNext:")
+                        .append(getSavedNextCount()).append(" ivaratorRanges:").append(getIvaratorRangeCount()).append(" ivaratorFillTime:")
+                        .append(getIvaratorFillTime()).append(" ivaratorWaitTime:").append(getIvaratorWaitTime()).append(" ivaratorBytesSpilled:")
+                        .append(getIvaratorBytesSpilled());
         return sb.toString();
     }
     
@@ -156,6 +237,32 @@ public class QuerySpan {
         }
     }
     
+    public synchronized void addSavedSeeks(long seeks) {
+        savedSeek += seeks;
+    }
+    
+    public synchronized void addSavedNexts(long nexts) {
+        savedNext += nexts;
+    }
+    
+    /**
+     * Records a field index range that an ivarator filled
+     *
+     * @param fillTime
+     *            the milliseconds the fill ran for
+     * @param waitTime
+     *            the milliseconds the fill waited before it ran
+     */
+    public synchronized void addIvaratorFill(long fillTime, long waitTime) {
+        ivaratorRanges++;
+        ivaratorFillTime += fillTime;
+        ivaratorWaitTime += waitTime;
+    }
+    
+    public synchronized void addIvaratorBytesSpilled(long bytes) {
+        ivaratorBytesSpilled += bytes;
+    }
+    
     public void reset() {
         for (QuerySpan source : sources) {
             source.reset();
@@ -164,6 +271,12 @@ public class QuerySpan {
         next = 0;
         seek = 0;
         yield = false;
+        savedSeek = 0;
+        savedNext = 0;
+        ivaratorRanges = 0;
+        ivaratorFillTime = 0;
+        ivaratorWaitTime = 0;
+        ivaratorBytesSpilled = 0;
         stageTimerTotal = 0;
         stageTimers.clear();
     }
@@ -208,6 +321,30 @@ public class QuerySpan {
         this.yield = yield;
     }
     
+    public void setSavedSeek(long savedSeek) {
+        this.savedSeek = savedSeek;
+    }
+    
+    public void setSavedNext(long savedNext) {
+        this.savedNext = savedNext;
+    }
+    
+    public void setIvaratorRanges(long ivaratorRanges) {
+        this.ivaratorRanges = ivaratorRanges;
+    }
+    
+    public void setIvaratorFillTime(long ivaratorFillTime) {
+        this.ivaratorFillTime = ivaratorFillTime;
+    }
+    
+    public void setIvaratorWaitTime(long ivaratorWaitTime) {
+        this.ivaratorWaitTime = ivaratorWaitTime;
+    }
+    
+    public void setIvaratorBytesSpilled(long ivaratorBytesSpilled) {
+        this.ivaratorBytesSpilled = ivaratorBytesSpilled;
+    }
+    
     public void setSourceCount(long sourceCount) {
         this.sourceCount = sourceCount;
     }
@@ -12,6 +12,12 @@ public class QuerySpanCollector {
     private AtomicLong nextCount = new AtomicLong();
     private AtomicBoolean yield = new AtomicBoolean();
     private AtomicLong sourceCount = new AtomicLong();
+    private AtomicLong savedSeekCount = new AtomicLong();
+    private AtomicLong savedNextCount = new AtomicLong();
+    private AtomicLong ivaratorRangeCount = new AtomicLong();
+    private AtomicLong ivaratorFillTime = new AtomicLong();
+    private AtomicLong ivaratorWaitTime = new AtomicLong();
+    private AtomicLong ivaratorBytesSpilled = new AtomicLong();
     private Map<String,Long> stageTimers = new LinkedHashMap<>();
     private Logger log = Logger.getLogger(QuerySpan.class);
     
@@ -23,6 +29,12 @@ public class QuerySpanCollector {
                 nextCount.addAndGet(querySpan.getNextCount());
                 yield.set(querySpan.getYield());
                 sourceCount.addAndGet(querySpan.getSourceCount());
+                savedSeekCount.addAndGet(querySpan.getSavedSeekCount());
+                savedNextCount.addAndGet(querySpan.getSavedNextCount());
+                ivaratorRangeCount.addAndGet(querySpan.getIvaratorRangeCount());
+                ivaratorFillTime.addAndGet(querySpan.getIvaratorFillTime());
+                ivaratorWaitTime.addAndGet(querySpan.getIvaratorWaitTime());
+                ivaratorBytesSpilled.addAndGet(querySpan.getIvaratorBytesSpilled());
                 Map<String,Long> timers = querySpan.getStageTimers();
                 for (Map.Entry<String,Long> entry : timers.entrySet()) {
                     String k = entry.getKey();
@@ -51,6 +63,12 @@ public class QuerySpanCollector {
                 combinedQuerySpan.setSeek(this.seekCount.getAndSet(0));
                 combinedQuerySpan.setYield(this.yield.getAndSet(false));
                 combinedQuerySpan.setSourceCount(this.sourceCount.getAndSet(0));
+                combinedQuerySpan.setSavedSeek(this.savedSeekCount.getAndSet(0));
+                combinedQuerySpan.setSavedNext(this.savedNextCount.getAndSet(0));
+                combinedQuerySpan.setIvaratorRanges(this.ivaratorRangeCount.getAndSet(0));
+                combinedQuerySpan.setIvaratorFillTime(this.ivaratorFillTime.getAndSet(0));
+                combinedQuerySpan.setIvaratorWaitTime(this.ivaratorWaitTime.getAndSet(0));
+                combinedQuerySpan.setIvaratorBytesSpilled(this.ivaratorBytesSpilled.getAndSet(0));
                 combinedQuerySpan.setStageTimers(this.stageTimers);
                 this.stageTimers.clear();
             }
@@ -60,7 +78,7 @@ public class QuerySpanCollector {
     
     public boolean hasEntries() {
         if (this.seekCount.intValue() > 0 || this.nextCount.intValue() > 0 || this.yield.get() || this.sourceCount.intValue() > 0
-                        || !this.stageTimers.isEmpty()) {
+                        || this.ivaratorRangeCount.longValue() > 0 || this.ivaratorBytesSpilled.longValue() > 0 || !this.stageTimers.isEmpty()) {
             return true;
         } else {
             return false;
@@ -85,7 +103,9 @@ public class QuerySpanCollector {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(super.toString()).append(" seek:").append(seekCount).append(" next:").append(nextCount).append(" yield:").append(yield).append(" sources:")
-                        .append(sourceCount);
+                        .append(sourceCount).append(" savedSeek:").append(savedSeekCount).append(" savedNext:").append(savedNextCount)
+                        .append(" ivaratorRanges:").append(ivaratorRangeCount).append(" ivaratorFillTime:").append(ivaratorFillTime)
+                        .append(" ivaratorWaitTime:").append(ivaratorWaitTime).append(" ivaratorBytesSpilled:").append(ivaratorBytesSpilled);
         return sb.toString();
     }
     
@@ -118,6 +138,30 @@ public class QuerySpanCollector {
         return sourceCount.longValue();
     }
     
+    public long getSavedSeekCount() {
+        return savedSeekCount.longValue();
+    }
+    
+    public long getSavedNextCount() {
+        return savedNextCount.longValue();
+    }
+    
+    public long getIvaratorRangeCount() {
+        return ivaratorRangeCount.longValue();
+    }
+    
+    public long getIvaratorFillTime() {
+        return ivaratorFillTime.longValue();
+    }
+    
+    public long getIvaratorWaitTime() {
+        return ivaratorWaitTime.longValue();
+    }
+    
+    public long getIvaratorBytesSpilled() {
+        return ivaratorBytesSpilled.longValue();
+    }
+    
     public Map<String,Long> getStageTimers() {
         return Collections.unmodifiableMap(stageTimers);
     }
@@ -0,0 +1,180 @@
+package datawave.query.iterators;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.OptionDescriber;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Rolls up the per-shard counts of a {@link FieldIndexCountingIterator} or {@link datawave.core.iterators.FieldIndexCountingIteratorPerVisibility} below it
+ * into one count per day, field name, field value, datatype and visibility for the shards of the day in the tablet. A scan over many days then returns a key
+ * per day and count instead of a key per shard and count, which the client merges into its summary as they arrive.
+ * <p>
+ * The counts of a day are returned in the row of the last shard of the day in the tablet, with the most recent timestamp of the counts rolled into them. When a
+ * scan is resumed after a returned key, the day of that key is counted again from its first shard in the tablet and only the keys after the returned key are
+ * returned.
+ * <p>
+ * Return key: Row - last ShardId of the day Fam - fi\0FieldName Qual - FieldValue \0 Datatype Vis - visibility, Value - count
+ */
+public class FieldIndexCountRollupIterator implements SortedKeyValueIterator<Key,Value>, OptionDescriber {
+    
+    private static final Logger log = Logger.getLogger(FieldIndexCountRollupIterator.class);
+    
+    private static final Text EMPTY_ROW = new Text();
+    
+    protected SortedKeyValueIterator<Key,Value> source;
+    
+    private Range range;
+    
+    // the counts of the day being rolled up, keyed by their column family, qualifier and visibility. Each counter holds the count and most recent timestamp.
+    private final Map<Key,long[]> counters = new HashMap<>();
+    
+    // the rolled up counts of the last day, in key order
+    private final Deque<Map.Entry<Key,Value>> topEntries = new ArrayDeque<>();
+    
+    public FieldIndexCountRollupIterator() {}
+    
+    public FieldIndexCountRollupIterator(FieldIndexCountRollupIterator other, IteratorEnvironment env) {
+        this.source = other.source.deepCopy(env);
+    }
+    
+    @Override
+    public IteratorOptions describeOptions() {
+        return new IteratorOptions(getClass().getSimpleName(), "Rolls up the per-shard field index counts of a tablet by day", null, null);
+    }
+    
+    @Override
+    public boolean validateOptions(Map<String,String> options) {
+        return true;
+    }
+    
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options, IteratorEnvironment env) throws IOException {
+        this.source = source;
+    }
+    
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+        return new FieldIndexCountRollupIterator(this, env);
+    }
+    
+    @Override
+    public boolean hasTop() {
+        return !topEntries.isEmpty();
+    }
+    
+    @Override
+    public Key getTopKey() {
+        return topEntries.isEmpty() ? null : topEntries.peekFirst().getKey();
+    }
+    
+    @Override
+    public Value getTopValue() {
+        return topEntries.isEmpty() ? null : topEntries.peekFirst().getValue();
+    }
+    
+    @Override
+    public void next() throws IOException {
+        topEntries.pollFirst();
+        findTop();
+    }
+    
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        this.range = range;
+        this.topEntries.clear();
+        
+        Range sourceRange = range;
+        Key start = range.getStartKey();
+        if (null != start && !range.isStartKeyInclusive() && start.getColumnFamilyData().length() > 0) {
+            // resuming after a returned key, so count its day again from the first shard of the day
+            sourceRange = new Range(new Key(getDay(start.getRow())), true, range.getEndKey(), range.isEndKeyInclusive());
+            if (log.isTraceEnabled()) {
+                log.trace("resuming after " + start + ", seeking the source to " + sourceRange);
+            }
+        }
+        
+        source.seek(sourceRange, columnFamilies, inclusive);
+        findTop();
+    }
+    
+    private void findTop() throws IOException {
+        while (topEntries.isEmpty() && source.hasTop()) {
+            rollupDay();
+        }
+    }
+    
+    /**
+     * Consume the counts of the shards of the next day from the source and stage their rollup
+     */
+    private void rollupDay() throws IOException {
+        counters.clear();
+        String day = null;
+        Text lastRow = null;
+        while (source.hasTop()) {
+            Key key = source.getTopKey();
+            Text row = key.getRow();
+            String rowDay = getDay(row);
+            if (null == day) {
+                day = rowDay;
+            } else if (!day.equals(rowDay)) {
+                break;
+            }
+            lastRow = row;
+            
+            Key counterKey = new Key(EMPTY_ROW, key.getColumnFamily(), key.getColumnQualifier(), key.getColumnVisibility(), 0L);
+            long[] counter = counters.get(counterKey);
+            if (null == counter) {
+                counter = new long[2];
+                counters.put(counterKey, counter);
+            }
+            counter[0] += Long.parseLong(source.getTopValue().toString());
+            counter[1] = Math.max(counter[1], key.getTimestamp());
+            
+            source.next();
+        }
+        
+        List<Map.Entry<Key,Value>> entries = new ArrayList<>(counters.size());
+        for (Map.Entry<Key,long[]> entry : counters.entrySet()) {
+            Key counterKey = entry.getKey();
+            Key key = new Key(lastRow, counterKey.getColumnFamily(), counterKey.getColumnQualifier(), counterKey.getColumnVisibility(), entry.getValue()[1]);
+            // drop the keys returned before the scan was resumed
+            if (range.beforeStartKey(key) || range.afterEndKey(key)) {
+                continue;
+            }
+            entries.add(Maps.immutableEntry(key, new Value(Long.toString(entry.getValue()[0]).getBytes())));
+        }
+        entries.sort(Map.Entry.comparingByKey());
+        topEntries.addAll(entries);
+        counters.clear();
+        
+        if (log.isTraceEnabled()) {
+            log.trace("rolled up " + entries.size() + " counts of " + day + " into " + lastRow);
+        }
+    }
+    
+    /**
+     * @return the day of a shard row, yyyyMMdd
+     */
+    private static String getDay(Text row) {
+        String shard = row.toString();
+        int index = shard.indexOf('_');
+        return index < 0 ? shard : shard.substring(0, index);
+    }
+}
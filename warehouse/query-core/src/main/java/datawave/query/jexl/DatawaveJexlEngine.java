@@ -2,10 +2,12 @@ package datawave.query.jexl;
 
 import java.util.Map;
 
+import org.apache.commons.jexl2.ExpressionImpl;
 import org.apache.commons.jexl2.Interpreter;
 import org.apache.commons.jexl2.JexlArithmetic;
 import org.apache.commons.jexl2.JexlContext;
 import org.apache.commons.jexl2.JexlEngine;
+import org.apache.commons.jexl2.Script;
 import org.apache.commons.jexl2.introspection.Uberspect;
 import org.apache.commons.jexl2.parser.ASTJexlScript;
 import org.apache.commons.logging.Log;
@@ -38,4 +40,23 @@ public class DatawaveJexlEngine extends JexlEngine {
     public ASTJexlScript parse(CharSequence expression) {
         return super.parse(expression, null, null);
     }
+    
+    /**
+     * Creates a script from a query tree that has already been parsed, so that the query is not parsed again
+     *
+     * @param tree
+     *            the query tree, which is owned by the script from now on
+     * @param text
+     *            the query string of the tree
+     * @return the script
+     */
+    public Script createScript(ASTJexlScript tree, String text) {
+        return new ParsedScript(this, text, tree);
+    }
+    
+    private static class ParsedScript extends ExpressionImpl {
+        ParsedScript(JexlEngine engine, String text, ASTJexlScript tree) {
+            super(engine, text, tree);
+        }
+    }
 }
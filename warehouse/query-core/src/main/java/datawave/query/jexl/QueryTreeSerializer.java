@@ -0,0 +1,229 @@
+package datawave.query.jexl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.hash.Hashing;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.ASTNumberLiteral;
+import org.apache.commons.jexl2.parser.JexlNode;
+import org.apache.commons.jexl2.parser.JexlNodes;
+import org.apache.commons.jexl2.parser.ParseException;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * A compact, versioned binary form of a parsed query tree, which lets the tablet servers skip parsing the query string. The format is
+ * <ul>
+ * <li>a version byte</li>
+ * <li>the fingerprint of the query string that the tree was parsed from</li>
+ * <li>a dictionary of the node classes and one of the node images, so that each field name and literal is written once</li>
+ * <li>the nodes in pre-order, each as its class index, id, image index, number type and child count</li>
+ * </ul>
+ * A tree is only {@link #deserialize(byte[], String) deserialized} for the query string it was parsed from, so a query that is rewritten after the tree was
+ * serialized falls back to parsing the string.
+ */
+public class QueryTreeSerializer {
+    
+    public static final byte VERSION = 1;
+    
+    private static final int FINGERPRINT_LENGTH = 16;
+    
+    private static final byte NOT_A_NUMBER = 0;
+    private static final byte NATURAL = 1;
+    private static final byte REAL = 2;
+    
+    private static final Map<String,Constructor<? extends JexlNode>> constructors = new ConcurrentHashMap<>();
+    
+    private QueryTreeSerializer() {}
+    
+    /**
+     * Parses a query and serializes its tree into an iterator option
+     *
+     * @param query
+     *            the query string
+     * @return the Base64 encoded tree
+     * @throws ParseException
+     *             if the query does not parse
+     */
+    public static String encode(String query) throws ParseException {
+        return Base64.getEncoder().encodeToString(serialize(JexlASTHelper.parseJexlQuery(query), query));
+    }
+    
+    /**
+     * @param option
+     *            the Base64 encoded tree
+     * @param query
+     *            the query string the tree is used for
+     * @return the tree, or null if it was not parsed from the query string
+     * @throws IOException
+     *             if the tree cannot be read
+     */
+    public static ASTJexlScript decode(String option, String query) throws IOException {
+        return deserialize(Base64.getDecoder().decode(option), query);
+    }
+    
+    /**
+     * @param tree
+     *            the tree parsed from the query string
+     * @param query
+     *            the query string
+     * @return the serialized tree
+     */
+    public static byte[] serialize(ASTJexlScript tree, String query) {
+        Map<String,Integer> classes = new HashMap<>();
+        Map<String,Integer> images = new HashMap<>();
+        collect(tree, classes, images);
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.write(fingerprint(query));
+            writeDictionary(out, classes);
+            writeDictionary(out, images);
+            write(out, tree, classes, images);
+        } catch (IOException e) {
+            // not thrown by a ByteArrayOutputStream
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * @param bytes
+     *            the serialized tree
+     * @param query
+     *            the query string the tree is used for
+     * @return the tree, or null if it was not parsed from the query string
+     * @throws IOException
+     *             if the version is not supported or the tree cannot be read
+     */
+    public static ASTJexlScript deserialize(byte[] bytes, String query) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported query tree version " + version);
+            }
+            byte[] fingerprint = new byte[FINGERPRINT_LENGTH];
+            in.readFully(fingerprint);
+            if (!Arrays.equals(fingerprint, fingerprint(query))) {
+                return null;
+            }
+            List<String> classes = readDictionary(in);
+            List<String> images = readDictionary(in);
+            JexlNode root = read(in, classes, images);
+            if (!(root instanceof ASTJexlScript)) {
+                throw new IOException("Serialized query tree is not a script: " + root.getClass().getName());
+            }
+            return (ASTJexlScript) root;
+        }
+    }
+    
+    private static byte[] fingerprint(String query) {
+        return Hashing.murmur3_128().hashString(query, StandardCharsets.UTF_8).asBytes();
+    }
+    
+    private static void collect(JexlNode node, Map<String,Integer> classes, Map<String,Integer> images) {
+        classes.putIfAbsent(node.getClass().getName(), classes.size());
+        if (node.image != null) {
+            images.putIfAbsent(node.image, images.size());
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            collect(node.jjtGetChild(i), classes, images);
+        }
+    }
+    
+    private static void writeDictionary(DataOutputStream out, Map<String,Integer> dictionary) throws IOException {
+        String[] entries = new String[dictionary.size()];
+        for (Map.Entry<String,Integer> entry : dictionary.entrySet()) {
+            entries[entry.getValue()] = entry.getKey();
+        }
+        WritableUtils.writeVInt(out, entries.length);
+        for (String entry : entries) {
+            WritableUtils.writeString(out, entry);
+        }
+    }
+    
+    private static List<String> readDictionary(DataInputStream in) throws IOException {
+        int size = WritableUtils.readVInt(in);
+        List<String> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(WritableUtils.readString(in));
+        }
+        return entries;
+    }
+    
+    private static void write(DataOutputStream out, JexlNode node, Map<String,Integer> classes, Map<String,Integer> images) throws IOException {
+        WritableUtils.writeVInt(out, classes.get(node.getClass().getName()));
+        WritableUtils.writeVInt(out, JexlNodes.id(node));
+        // zero is a null image
+        WritableUtils.writeVInt(out, node.image == null ? 0 : images.get(node.image) + 1);
+        if (node instanceof ASTNumberLiteral) {
+            Class<?> literalClass = ((ASTNumberLiteral) node).getLiteralClass();
+            out.writeByte(JexlNodeFactory.REAL_NUMBERS.contains(literalClass) ? REAL : NATURAL);
+        } else {
+            out.writeByte(NOT_A_NUMBER);
+        }
+        WritableUtils.writeVInt(out, node.jjtGetNumChildren());
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            write(out, node.jjtGetChild(i), classes, images);
+        }
+    }
+    
+    private static JexlNode read(DataInputStream in, List<String> classes, List<String> images) throws IOException {
+        Constructor<? extends JexlNode> constructor = getConstructor(classes.get(WritableUtils.readVInt(in)));
+        int id = WritableUtils.readVInt(in);
+        int image = WritableUtils.readVInt(in);
+        byte number = in.readByte();
+        
+        JexlNode node;
+        try {
+            node = constructor.newInstance(id);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Could not create a " + constructor.getDeclaringClass().getName(), e);
+        }
+        if (image > 0) {
+            node.image = images.get(image - 1);
+        }
+        if (number == NATURAL) {
+            ((ASTNumberLiteral) node).setNatural(node.image);
+        } else if (number == REAL) {
+            ((ASTNumberLiteral) node).setReal(node.image);
+        }
+        
+        int numChildren = WritableUtils.readVInt(in);
+        JexlNode[] children = new JexlNode[numChildren];
+        for (int i = 0; i < numChildren; i++) {
+            children[i] = read(in, classes, images);
+        }
+        return JexlNodes.children(node, children);
+    }
+    
+    private static Constructor<? extends JexlNode> getConstructor(String className) throws IOException {
+        Constructor<? extends JexlNode> constructor = constructors.get(className);
+        if (constructor == null) {
+            try {
+                Class<?> clazz = Class.forName(className);
+                if (!JexlNode.class.isAssignableFrom(clazz)) {
+                    throw new IOException(className + " is not a query node");
+                }
+                constructor = clazz.asSubclass(JexlNode.class).getConstructor(Integer.TYPE);
+            } catch (ReflectiveOperationException e) {
+                throw new IOException("Unknown query node " + className, e);
+            }
+            constructors.put(className, constructor);
+        }
+        return constructor;
+    }
+}
@@ -117,7 +117,7 @@ public abstract class ContentFunctionEvaluator {
                 
                 return false;
             }
-            if (tfList.fetchOffsets().isEmpty()) {
+            if (tfList.isEmpty()) {
                 if (log.isTraceEnabled()) {
                     log.trace("Failing process() because of an empty offset list for " + term);
                 }
@@ -156,28 +156,28 @@ public abstract class ContentFunctionEvaluator {
             // now for each event, lets process the terms
             for (String eventId : eventIds) {
                 ListMultimap<String,List<TermWeightPosition>> offsetsByField = LinkedListMultimap.create();
-                for (String term : terms) {
-                    TermFrequencyList tfList = termOffsetMap.get(term);
+                
+                // a field can only satisfy the function if every term has offsets in it, so only the fields of the first term are candidates
+                for (String field : termOffsetMap.get(terms[0]).fields()) {
+                    // a field that was already hit does not need to be evaluated for another event
+                    if ((!fields.isEmpty() && !fields.contains(field)) || hitFields.contains(field)) {
+                        continue;
+                    }
+                    
+                    // check that every term has offsets in the field before decoding any of them
+                    TermFrequencyList.Zone[] zones = getZones(field, eventId);
+                    if (zones == null) {
+                        continue;
+                    }
                     
                     // Invert the map to take all of the offsets for a term within a field
                     // and group the lists together
-                    for (String field : tfList.fields()) {
-                        TermFrequencyList.Zone zone = new TermFrequencyList.Zone(field, true, eventId);
-                        Collection<TermWeightPosition> offsets = tfList.fetchOffsets().get(zone);
-                        // if no offsets, but we are explicitly looking for this field (i.e. not unfielded), then check for a non-content expansion zone
-                        if (offsets.isEmpty() && (fields != null && fields.contains(field))) {
-                            zone = new TermFrequencyList.Zone(field, false, eventId);
-                            offsets = tfList.fetchOffsets().get(zone);
-                        }
-                        // not all field/event pairs will have offsets
-                        if (offsets != null && !offsets.isEmpty()) {
-                            offsetsByField.put(field, Lists.newArrayList(offsets));
-                        }
+                    for (int i = 0; i < terms.length; i++) {
+                        offsetsByField.put(field, Lists.newArrayList(termOffsetMap.get(terms[i]).fetchOffsets(zones[i])));
                     }
                 }
                 
                 // If we have no offset lists, we can't match anything for this event
-                // (shouldn't happen because we are using an intersection of event ids...but just in case)
                 if (offsetsByField.isEmpty()) {
                     continue;
                 }
@@ -238,6 +238,38 @@ public abstract class ContentFunctionEvaluator {
         return Collections.emptySet();
     }
     
+    /**
+     * @return the zone of each term in the field and event, or null if a term has no offsets there
+     */
+    private TermFrequencyList.Zone[] getZones(String field, String eventId) {
+        TermFrequencyList.Zone[] zones = new TermFrequencyList.Zone[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            zones[i] = getZone(termOffsetMap.get(terms[i]), field, eventId);
+            if (zones[i] == null) {
+                return null;
+            }
+        }
+        return zones;
+    }
+    
+    /**
+     * @return the zone of the term in the field and event that has offsets, or null if there is none
+     */
+    private TermFrequencyList.Zone getZone(TermFrequencyList tfList, String field, String eventId) {
+        TermFrequencyList.Zone zone = new TermFrequencyList.Zone(field, true, eventId);
+        if (tfList.hasOffsets(zone)) {
+            return zone;
+        }
+        // if no offsets, but we are explicitly looking for this field (i.e. not unfielded), then check for a non-content expansion zone
+        if (fields != null && fields.contains(field)) {
+            zone = new TermFrequencyList.Zone(field, false, eventId);
+            if (tfList.hasOffsets(zone)) {
+                return zone;
+            }
+        }
+        return null;
+    }
+    
     @Override
     public String toString() {
         return "ContentFunctionEvaluator{fields=" + fields + ", distance=" + distance + ", terms=" + Arrays.toString(terms) + ", termOffsetMap="
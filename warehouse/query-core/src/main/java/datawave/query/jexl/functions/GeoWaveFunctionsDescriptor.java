@@ -16,7 +16,7 @@ import datawave.query.jexl.functions.arguments.JexlArgumentDescriptor;
 import datawave.query.jexl.nodes.BoundedRange;
 import datawave.query.jexl.visitors.EventDataQueryExpressionVisitor;
 import datawave.query.util.DateIndexHelper;
-import datawave.query.util.GeoWaveUtils;
+import datawave.query.util.GeoWaveRangeDecomposer;
 import datawave.query.util.MetadataHelper;
 import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.commons.jexl2.parser.ASTEQNode;
@@ -26,9 +26,7 @@ import org.apache.commons.jexl2.parser.ASTLENode;
 import org.apache.commons.jexl2.parser.JexlNode;
 import org.apache.commons.jexl2.parser.ParserTreeConstants;
 import org.apache.log4j.Logger;
-import org.locationtech.geowave.core.geotime.util.GeometryUtils;
 import org.locationtech.geowave.core.index.ByteArrayRange;
-import org.locationtech.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 import org.locationtech.geowave.core.store.api.Index;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
@@ -37,7 +35,6 @@ import org.locationtech.jts.geom.GeometryFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -61,6 +58,15 @@ public class GeoWaveFunctionsDescriptor implements JexlFunctionArgumentDescripto
     
     private static final Logger LOGGER = Logger.getLogger(GeoWaveFunctionsDescriptor.class);
     
+    /**
+     * Decomposes and caches the geometries of the geowave functions of all queries
+     */
+    private static final GeoWaveRangeDecomposer decomposer = new GeoWaveRangeDecomposer();
+    
+    public static GeoWaveRangeDecomposer getDecomposer() {
+        return decomposer;
+    }
+    
     public static class GeoWaveJexlArgumentDescriptor implements JexlArgumentDescriptor {
         protected final String name;
         protected final List<JexlNode> args;
@@ -154,19 +160,7 @@ public class GeoWaveFunctionsDescriptor implements JexlFunctionArgumentDescripto
                 maxExpansion = config.getGeometryMaxExpansion();
             }
             
-            Collection<ByteArrayRange> allRanges = new ArrayList<>();
-            int maxRanges = maxExpansion / envs.size();
-            for (Envelope env : envs) {
-                for (MultiDimensionalNumericData range : GeometryUtils.basicConstraintsFromEnvelope(env).getIndexConstraints(index)) {
-                    List<ByteArrayRange> byteArrayRanges = index.getIndexStrategy().getQueryRanges(range, maxRanges).getCompositeQueryRanges();
-                    if (config.isOptimizeGeoWaveRanges()) {
-                        byteArrayRanges = GeoWaveUtils.optimizeByteArrayRanges(geometry, byteArrayRanges, config.getGeoWaveRangeSplitThreshold(),
-                                        config.getGeoWaveMaxRangeOverlap());
-                    }
-                    allRanges.addAll(byteArrayRanges);
-                }
-            }
-            allRanges = ByteArrayRange.mergeIntersections(allRanges, ByteArrayRange.MergeOperation.UNION);
+            List<ByteArrayRange> allRanges = decomposer.decompose(geometry, envs, index, maxExpansion, config);
             
             Iterable<JexlNode> rangeNodes = Iterables.transform(allRanges, new ByteArrayRangeToJexlNode(fieldName));
             
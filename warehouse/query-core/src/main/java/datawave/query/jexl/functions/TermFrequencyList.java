@@ -2,12 +2,19 @@ package datawave.query.jexl.functions;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
+import datawave.ingest.protobuf.TermWeightColumns;
 import datawave.ingest.protobuf.TermWeightPosition;
 import org.apache.accumulo.core.data.Key;
 
@@ -18,6 +25,9 @@ import com.google.common.collect.TreeMultimap;
 /**
  * Represents a List of offsets represented as TermWeightPositions, corresponding to word positions, in a given field, for a term. This is intended to be used
  * in the scope of a Map from term to {@link TermFrequencyList}
+ * <p>
+ * Offsets added as {@link TermWeightColumns} are only turned into TermWeightPositions when the offsets of their zone are fetched, so the zones that a content
+ * function never looks at are never decoded.
  */
 public class TermFrequencyList {
     
@@ -97,6 +107,15 @@ public class TermFrequencyList {
     
     protected final TreeMultimap<Zone,TermWeightPosition> offsetsPerField;
     
+    // offsets that have not been decoded into offsetsPerField yet
+    protected final Map<Zone,List<TermWeightColumns>> undecodedPerField = new TreeMap<>();
+    
+    public TermFrequencyList(Zone field, TermWeightColumns offsets) {
+        this.offsetsPerField = TreeMultimap.create();
+        
+        addOffsets(field, offsets);
+    }
+    
     public TermFrequencyList(TreeMultimap<Zone,TermWeightPosition> offsetsByField) {
         checkNotNull(offsetsByField);
         
@@ -123,7 +142,54 @@ public class TermFrequencyList {
         TreeMultimap<Zone,TermWeightPosition> offsetsPerField = TreeMultimap.create();
         offsetsPerField.putAll(list1.offsetsPerField);
         offsetsPerField.putAll(list2.offsetsPerField);
-        return new TermFrequencyList(offsetsPerField);
+        TermFrequencyList merged = new TermFrequencyList(offsetsPerField);
+        merged.addUndecoded(list1.undecodedPerField);
+        merged.addUndecoded(list2.undecodedPerField);
+        return merged;
+    }
+    
+    private void addUndecoded(Map<Zone,List<TermWeightColumns>> undecoded) {
+        for (Entry<Zone,List<TermWeightColumns>> entry : undecoded.entrySet()) {
+            for (TermWeightColumns offsets : entry.getValue()) {
+                addOffsets(entry.getKey(), offsets);
+            }
+        }
+    }
+    
+    /**
+     * Adds the offsets of a term weight, which are decoded when the offsets of the field are fetched
+     *
+     * @param field
+     *            the zone of the offsets
+     * @param offsets
+     *            the offsets
+     */
+    public void addOffsets(Zone field, TermWeightColumns offsets) {
+        checkNotNull(field);
+        checkNotNull(offsets);
+        
+        // like an empty iterable of positions, no offsets add no zone
+        if (offsets.size() > 0) {
+            this.undecodedPerField.computeIfAbsent(field, k -> new ArrayList<>(1)).add(offsets);
+        }
+    }
+    
+    private void decode(Zone field) {
+        List<TermWeightColumns> undecoded = this.undecodedPerField.remove(field);
+        if (undecoded != null) {
+            TermWeightPosition.Builder position = new TermWeightPosition.Builder();
+            for (TermWeightColumns offsets : undecoded) {
+                for (int i = 0; i < offsets.size(); i++) {
+                    this.offsetsPerField.put(field, offsets.getPosition(i, position));
+                }
+            }
+        }
+    }
+    
+    private void decodeAll() {
+        while (!this.undecodedPerField.isEmpty()) {
+            decode(this.undecodedPerField.keySet().iterator().next());
+        }
     }
     
     public void addOffsets(Zone field, Iterable<TermWeightPosition> offsets) {
@@ -161,9 +227,37 @@ public class TermFrequencyList {
      * @return
      */
     public TreeMultimap<Zone,TermWeightPosition> fetchOffsets() {
+        decodeAll();
         return this.offsetsPerField;
     }
     
+    /**
+     * Return the offsets for a single field, decoding only that field
+     *
+     * @param field
+     * @return the offsets, which are empty if the field has none
+     */
+    public NavigableSet<TermWeightPosition> fetchOffsets(Zone field) {
+        checkNotNull(field);
+        
+        decode(field);
+        return this.offsetsPerField.get(field);
+    }
+    
+    /**
+     * @return true if there are offsets for the field, without decoding them
+     */
+    public boolean hasOffsets(Zone field) {
+        return this.undecodedPerField.containsKey(field) || this.offsetsPerField.containsKey(field);
+    }
+    
+    /**
+     * @return true if there are no offsets, without decoding them
+     */
+    public boolean isEmpty() {
+        return this.offsetsPerField.isEmpty() && this.undecodedPerField.isEmpty();
+    }
+    
     /**
      * Return only offsets for a limited set of fields
      * 
@@ -173,6 +267,9 @@ public class TermFrequencyList {
     public TreeMultimap<Zone,TermWeightPosition> fetchOffsets(Set<Zone> fields) {
         checkNotNull(fields);
         
+        for (Zone field : fields) {
+            decode(field);
+        }
         return (TreeMultimap<Zone,TermWeightPosition>) Multimaps.filterKeys(this.offsetsPerField, new FieldFilterPredicate(fields));
     }
     
@@ -180,11 +277,11 @@ public class TermFrequencyList {
      * Let clients ask what fields we are currently tracking.
      */
     public Set<String> fields() {
-        if (this.offsetsPerField.isEmpty()) {
+        if (isEmpty()) {
             return Collections.emptySet();
         } else {
             Set<String> fields = new HashSet<>();
-            for (Zone zone : this.offsetsPerField.keySet()) {
+            for (Zone zone : zones()) {
                 fields.add(zone.getZone());
             }
             return fields;
@@ -195,11 +292,11 @@ public class TermFrequencyList {
      * Let clients ask what event ids we are currently tracking.
      */
     public Set<String> eventIds() {
-        if (this.offsetsPerField.isEmpty()) {
+        if (isEmpty()) {
             return Collections.emptySet();
         } else {
             Set<String> eventIds = new HashSet<>();
-            for (Zone zone : this.offsetsPerField.keySet()) {
+            for (Zone zone : zones()) {
                 eventIds.add(zone.getEventId());
             }
             return eventIds;
@@ -210,16 +307,23 @@ public class TermFrequencyList {
      * Let clients ask what zones we are currently tracking.
      */
     public Set<Zone> zones() {
-        return this.offsetsPerField.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(this.offsetsPerField.keySet());
+        if (this.undecodedPerField.isEmpty()) {
+            return this.offsetsPerField.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(this.offsetsPerField.keySet());
+        }
+        Set<Zone> zones = new TreeSet<>(this.offsetsPerField.keySet());
+        zones.addAll(this.undecodedPerField.keySet());
+        return Collections.unmodifiableSet(zones);
     }
     
     @Override
     public String toString() {
+        decodeAll();
         return this.offsetsPerField.toString();
     }
     
     @Override
     public int hashCode() {
+        decodeAll();
         return this.offsetsPerField.hashCode();
     }
     
@@ -228,6 +332,8 @@ public class TermFrequencyList {
         if (o instanceof TermFrequencyList) {
             TermFrequencyList other = (TermFrequencyList) o;
             
+            decodeAll();
+            other.decodeAll();
             return this.offsetsPerField.equals(other.offsetsPerField);
         }
         
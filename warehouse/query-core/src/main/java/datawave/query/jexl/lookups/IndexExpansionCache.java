@@ -0,0 +1,198 @@
+package datawave.query.jexl.lookups;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Multimap;
+import datawave.util.time.DateHelper;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.log4j.Logger;
+
+/**
+ * A cache of global index expansions shared by the queries of a web server. The terms that a regex or range expands into are stored per shard day, keyed by
+ * the index table, the fields, the pattern, the datatype filter and the authorizations of the lookup. A lookup over a date range takes the days that are
+ * already cached from here and only scans the index for the rest, see {@link IndexLookup#expandWithCache}.
+ * <p>
+ * The cache is bounded by the number of terms it holds. Days within {@link #getRecentDays()} of now are never cached, since they are still being ingested.
+ */
+public class IndexExpansionCache {
+    private static final Logger log = Logger.getLogger(IndexExpansionCache.class);
+    
+    public static final long DEFAULT_MAX_TERMS = 1000000L;
+    public static final int DEFAULT_RECENT_DAYS = 2;
+    
+    private static final long MILLIS_IN_DAY = 1000L * 60 * 60 * 24;
+    
+    private final Cache<DayKey,Multimap<String,String>> expansions;
+    private final int recentDays;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    public IndexExpansionCache() {
+        this(DEFAULT_MAX_TERMS, 24, TimeUnit.HOURS, DEFAULT_RECENT_DAYS);
+    }
+    
+    /**
+     * @param maxTerms
+     *            the maximum number of terms held by the cache
+     * @param expireAfterWrite
+     *            how long a day of expansions is kept, which bounds how stale it can be after late data or an age off
+     * @param unit
+     *            the unit of expireAfterWrite
+     * @param recentDays
+     *            the number of days up to and including today that are never cached
+     */
+    public IndexExpansionCache(long maxTerms, long expireAfterWrite, TimeUnit unit, int recentDays) {
+        this.expansions = CacheBuilder.newBuilder().maximumWeight(maxTerms).weigher((DayKey key, Multimap<String,String> terms) -> terms.size() + 1)
+                        .expireAfterWrite(expireAfterWrite, unit).concurrencyLevel(100).build();
+        this.recentDays = recentDays;
+    }
+    
+    /**
+     * @param lookup
+     *            the lookup, see {@link #describe}
+     * @param days
+     *            the days of the lookup
+     * @return the cached field to term expansions of each of the days that is cached
+     */
+    public Map<String,Multimap<String,String>> get(String lookup, Collection<String> days) {
+        Map<String,Multimap<String,String>> cached = new HashMap<>();
+        for (String day : days) {
+            Multimap<String,String> terms = expansions.getIfPresent(new DayKey(lookup, day));
+            if (terms != null) {
+                cached.put(day, terms);
+            }
+        }
+        hits.addAndGet(cached.size());
+        misses.addAndGet(days.size() - cached.size());
+        if (log.isDebugEnabled()) {
+            log.debug("Found " + cached.size() + " of " + days.size() + " days cached for " + lookup);
+        }
+        return cached;
+    }
+    
+    /**
+     * Caches the complete field to term expansion of a lookup for one day. Days that are too recent are ignored.
+     */
+    public void put(String lookup, String day, Multimap<String,String> terms) {
+        if (isCacheable(day)) {
+            expansions.put(new DayKey(lookup, day), ImmutableSetMultimap.copyOf(terms));
+        }
+    }
+    
+    /**
+     * @return true if the day is old enough that its index entries are no longer changing
+     */
+    public boolean isCacheable(String day) {
+        return day.compareTo(DateHelper.format(System.currentTimeMillis() - (recentDays - 1) * MILLIS_IN_DAY)) < 0;
+    }
+    
+    public void invalidateAll() {
+        expansions.invalidateAll();
+    }
+    
+    public long size() {
+        return expansions.size();
+    }
+    
+    public int getRecentDays() {
+        return recentDays;
+    }
+    
+    /**
+     * @return the number of days that were found in the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+    
+    /**
+     * @return the number of days that had to be scanned
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+    
+    /**
+     * @return a description of a lookup that identifies it in the cache
+     */
+    public static String describe(String tableName, Collection<String> fields, String pattern, Collection<String> datatypeFilter,
+                    Collection<Authorizations> authorizations) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(tableName).append('\0').append(new TreeSet<>(fields)).append('\0').append(pattern).append('\0');
+        builder.append(datatypeFilter == null ? "[]" : new TreeSet<>(datatypeFilter)).append('\0');
+        Set<String> auths = new TreeSet<>();
+        if (authorizations != null) {
+            for (Authorizations auth : authorizations) {
+                Set<String> sorted = new TreeSet<>();
+                for (byte[] token : auth.getAuthorizations()) {
+                    sorted.add(new String(token, StandardCharsets.UTF_8));
+                }
+                auths.add(sorted.toString());
+            }
+        }
+        builder.append(auths);
+        return builder.toString();
+    }
+    
+    /**
+     * @return the shard days from the begin date to the end date, inclusive, in order
+     */
+    public static List<String> getDays(Date beginDate, Date endDate) {
+        List<String> days = new ArrayList<>();
+        String endDay = DateHelper.format(endDate);
+        long time = beginDate.getTime();
+        String day = DateHelper.format(time);
+        while (day.compareTo(endDay) <= 0) {
+            days.add(day);
+            time += MILLIS_IN_DAY;
+            day = DateHelper.format(time);
+        }
+        return days;
+    }
+    
+    /**
+     * @return the shard day of a shard id, which is of the form yyyyMMdd_n
+     */
+    public static String getDay(String shard) {
+        int index = shard.indexOf('_');
+        return index < 0 ? shard : shard.substring(0, index);
+    }
+    
+    private static class DayKey {
+        private final String lookup;
+        private final String day;
+        
+        DayKey(String lookup, String day) {
+            this.lookup = lookup;
+            this.day = day;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DayKey)) {
+                return false;
+            }
+            DayKey other = (DayKey) o;
+            return lookup.equals(other.lookup) && day.equals(other.day);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(lookup, day);
+        }
+    }
+}
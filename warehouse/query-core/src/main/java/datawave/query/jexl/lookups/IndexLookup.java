@@ -1,9 +1,13 @@
 package datawave.query.jexl.lookups;
 
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -11,20 +15,30 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
 import datawave.query.config.ShardQueryConfiguration;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.log4j.Logger;
 
 import datawave.query.tables.ScannerFactory;
+import datawave.query.util.DayRuns;
 
 public abstract class IndexLookup {
     
+    private static final IndexExpansionCache expansionCache = new IndexExpansionCache();
+    
     /**
      * Limits lookup to only terms, agnostic of date and data type.
      */
     protected boolean limitToTerms = false;
     
+    /**
+     * When not null, the scan of the current lookup also collects the terms it finds per shard day and field, to be stored in the {@link IndexExpansionCache}
+     */
+    protected volatile Map<String,Multimap<String,String>> termsByDay = null;
+    
     /**
      * Lookup a set of fieldname to values
      * 
@@ -42,6 +56,97 @@ public abstract class IndexLookup {
         this.limitToTerms = limitToTerms;
     }
     
+    public static IndexExpansionCache getExpansionCache() {
+        return expansionCache;
+    }
+    
+    /**
+     * Scans the index for one date range of a lookup, adding the terms found to the lookup map
+     */
+    protected interface DayRangeScanner {
+        void scan(String beginDay, String endDay);
+    }
+    
+    /**
+     * Expands a lookup over the date range of the query using the {@link IndexExpansionCache}. The cached days are added to the lookup map, and the rest of
+     * the days are scanned in runs of consecutive days. The days of a run are cached if its scan completed without exceeding a threshold.
+     *
+     * @param config
+     *            the query configuration
+     * @param lookup
+     *            the description of the lookup, see {@link IndexExpansionCache#describe}
+     * @param fields
+     *            the fields of the lookup
+     * @param fieldsToValues
+     *            the lookup map to add the terms to
+     * @param scanner
+     *            scans the index for a run of days, and has to add each term it finds to {@link #termsByDay} as well as the lookup map
+     */
+    protected void expandWithCache(ShardQueryConfiguration config, String lookup, Set<String> fields, IndexLookupMap fieldsToValues, DayRangeScanner scanner) {
+        List<String> days = IndexExpansionCache.getDays(config.getBeginDate(), config.getEndDate());
+        Map<String,Multimap<String,String>> cached = expansionCache.get(lookup, days);
+        for (Multimap<String,String> terms : cached.values()) {
+            for (Entry<String,Collection<String>> entry : terms.asMap().entrySet()) {
+                fieldsToValues.putAll(entry.getKey(), entry.getValue());
+            }
+        }
+        
+        for (String[] run : DayRuns.getUncachedRuns(days, cached.keySet())) {
+            if (isExpansionStopped(fieldsToValues, fields)) {
+                return;
+            }
+            Map<String,Multimap<String,String>> scanned = new ConcurrentHashMap<>();
+            termsByDay = scanned;
+            try {
+                scanner.scan(run[0], run[1]);
+            } finally {
+                termsByDay = null;
+            }
+            
+            // a scan that stopped early or timed out did not see every term
+            if (!isThresholdExceeded(fieldsToValues, fields)) {
+                for (String day : days.subList(days.indexOf(run[0]), days.indexOf(run[1]) + 1)) {
+                    Multimap<String,String> terms = scanned.get(day);
+                    expansionCache.put(lookup, day, terms == null ? HashMultimap.create() : terms);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Adds a term found by a scan to {@link #termsByDay}
+     */
+    protected static void addTermForDay(Map<String,Multimap<String,String>> termsByDay, String shard, String field, String term) {
+        termsByDay.computeIfAbsent(IndexExpansionCache.getDay(shard), day -> HashMultimap.create()).put(field, term);
+    }
+    
+    /**
+     * @return true if the lookup map no longer accepts terms for the lookup, as for a scan that returns early once a threshold is exceeded
+     */
+    private boolean isExpansionStopped(IndexLookupMap fieldsToValues, Set<String> fields) {
+        if (fieldsToValues.isKeyThresholdExceeded()) {
+            return true;
+        }
+        if (fields.size() == 1) {
+            ValueSet values = fieldsToValues.get(fields.iterator().next());
+            return values != null && values.isThresholdExceeded();
+        }
+        return false;
+    }
+    
+    private boolean isThresholdExceeded(IndexLookupMap fieldsToValues, Set<String> fields) {
+        if (fieldsToValues.isKeyThresholdExceeded()) {
+            return true;
+        }
+        for (String field : fields) {
+            ValueSet values = fieldsToValues.get(field);
+            if (values != null && values.isThresholdExceeded()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * 
      */
@@ -1,6 +1,7 @@
 package datawave.query.jexl.lookups;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import datawave.core.iterators.ColumnQualifierRangeIterator;
 import datawave.core.iterators.CompositeSeekingIterator;
@@ -33,6 +34,7 @@ import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
@@ -51,9 +53,6 @@ public class LookupBoundedRangeForTerms extends IndexLookup {
     
     @Override
     public IndexLookupMap lookup(ShardQueryConfiguration config, ScannerFactory scannerFactory, long maxLookup) {
-        String startDay = DateHelper.format(config.getBeginDate());
-        String endDay = DateHelper.format(config.getEndDate());
-        
         // build the start and end range for the scanner
         // Key for global index is Row-> Normalized FieldValue, CF-> FieldName,
         // CQ->shard_id\x00datatype
@@ -73,9 +72,36 @@ public class LookupBoundedRangeForTerms extends IndexLookup {
             
         }
         
+        if (config.isCacheIndexExpansion()) {
+            final IteratorSetting fairness = fairnessIterator;
+            String lookup = IndexExpansionCache.describe(config.getIndexTableName(), fields(), literalRange.toString(), config.getDatatypeFilter(),
+                            config.getAuthorizations());
+            expandWithCache(config, lookup, fields(), fieldToUniqueTerms,
+                            (beginDay, endDay) -> scanDays(config, scannerFactory, maxLookup, fairness, beginDay, endDay, fieldToUniqueTerms));
+        } else {
+            scanDays(config, scannerFactory, maxLookup, fairnessIterator, DateHelper.format(config.getBeginDate()), DateHelper.format(config.getEndDate()),
+                            fieldToUniqueTerms);
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Found " + fieldToUniqueTerms.size() + " matching terms for range: " + fieldToUniqueTerms);
+        }
+        
+        return fieldToUniqueTerms;
+    }
+    
+    private Set<String> fields() {
+        return Collections.singleton(literalRange.getFieldName());
+    }
+    
+    /**
+     * Scans the index for the terms in the range on the shard days from startDay to endDay, inclusive
+     */
+    private void scanDays(ShardQueryConfiguration config, ScannerFactory scannerFactory, long maxLookup, IteratorSetting fairnessIterator, String startDay,
+                    String endDay, IndexLookupMap fieldToUniqueTerms) {
         String lower = literalRange.getLower().toString(), upper = literalRange.getUpper().toString();
         
-        Set<String> fields = Collections.singleton(literalRange.getFieldName());
+        Set<String> fields = fields();
         Key startKey;
         if (literalRange.isLowerInclusive()) { // inclusive
             startKey = new Key(new Text(lower));
@@ -178,18 +204,13 @@ public class LookupBoundedRangeForTerms extends IndexLookup {
             if (bs != null)
                 scannerFactory.close(bs);
         }
-        
-        if (log.isDebugEnabled()) {
-            log.debug("Found " + fieldToUniqueTerms.size() + " matching terms for range: " + fieldToUniqueTerms);
-        }
-        
-        return fieldToUniqueTerms;
     }
     
     @Override
     protected Callable<Boolean> createTimedCallable(final Iterator<Entry<Key,Value>> iter, final IndexLookupMap fieldsToValues, ShardQueryConfiguration config,
                     final boolean unfieldedLookup, final Set<String> fields, boolean isReverse, long timeout) {
         final Set<String> myDatatypeFilter = datatypeFilter;
+        final Map<String,Multimap<String,String>> myTermsByDay = termsByDay;
         return () -> {
             Text holder = new Text();
             try {
@@ -253,6 +274,10 @@ public class LookupBoundedRangeForTerms extends IndexLookup {
                     }
                     if (foundDataType) {
                         
+                        if (null != myTermsByDay) {
+                            addTermForDays(myTermsByDay, keymap, myDatatypeFilter, field, uniqueTerm);
+                        }
+                        
                         // obtaining the size of a map can be expensive,
                         // instead
                         // track the count of each unique item added.
@@ -294,4 +319,17 @@ public class LookupBoundedRangeForTerms extends IndexLookup {
         };
     }
     
+    /**
+     * Adds the term to each of the shard days of the row that has a key with a datatype in the filter
+     */
+    private static void addTermForDays(Map<String,Multimap<String,String>> termsByDay, SortedMap<Key,Value> keymap, Set<String> datatypeFilter, String field,
+                    String term) {
+        for (Key topKey : keymap.keySet()) {
+            String colq = topKey.getColumnQualifier().toString();
+            int idx = colq.indexOf(Constants.NULL);
+            if (idx != -1 && (null == datatypeFilter || datatypeFilter.isEmpty() || datatypeFilter.contains(colq.substring(idx + 1)))) {
+                addTermForDay(termsByDay, colq.substring(0, idx), field, term);
+            }
+        }
+    }
 }
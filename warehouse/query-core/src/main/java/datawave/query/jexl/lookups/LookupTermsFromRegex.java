@@ -4,6 +4,7 @@ import java.text.MessageFormat;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -87,39 +88,11 @@ public class LookupTermsFromRegex extends RegexIndexLookup {
             fairnessIterator.addOption(TimeoutIterator.MAX_SESSION_TIME, Long.valueOf(maxTime).toString());
         }
         
-        for (String pattern : patterns) {
-            if (!isAcceptedPattern(pattern)) {
-                PreConditionFailedQueryException qe = new PreConditionFailedQueryException(DatawaveErrorCode.IGNORE_PATTERN_FOR_INDEX_LOOKUP,
-                                MessageFormat.format("Pattern: {0}", pattern));
-                log.debug(qe);
-                throw new DoNotPerformOptimizedQueryException(qe);
-            }
-            
-            ShardIndexQueryTableStaticMethods.RefactoredRangeDescription rangeDescription = null;
-            try {
-                rangeDescription = ShardIndexQueryTableStaticMethods.getRegexRange(null, pattern, config.getFullTableScanEnabled(), helperRef, config);
-            } catch (IllegalArgumentException e) {
-                log.debug("Ignoring pattern that was not capable of being looked up in the index: " + pattern, e);
-                continue;
-            } catch (JavaRegexParseException e) {
-                log.debug("Ignoring pattern that was not capable of being looked up in the index: " + pattern, e);
-                continue;
-            } catch (TableNotFoundException e) {
-                log.error(e);
-                throw new DatawaveFatalQueryException(e);
-            } catch (ExecutionException e) {
-                throw new DatawaveFatalQueryException(e);
-            }
-            if (log.isTraceEnabled()) {
-                log.trace("Adding pattern " + pattern);
-                log.trace("Adding pattern " + rangeDescription);
-            }
-            if (rangeDescription.isForReverseIndex) {
-                
-                reverseMap.put(pattern, rangeDescription.range);
-            } else {
-                forwardMap.put(pattern, rangeDescription.range);
-            }
+        classifyPatterns(config, forwardMap, reverseMap);
+        
+        if (config.isCacheIndexExpansion()) {
+            lookupWithCache(config, scannerFactory, forwardMap, reverseMap, fairnessIterator, fieldsToValues, maxLookupConfigured);
+            return fieldsToValues;
         }
         
         if (!fields.isEmpty() && !forwardMap.isEmpty()) {
@@ -205,10 +178,103 @@ public class LookupTermsFromRegex extends RegexIndexLookup {
         return fieldsToValues;
     }
     
+    /**
+     * Classifies the patterns as forward or reverse index satisfiable, and adds the index ranges to scan for each to the corresponding map
+     */
+    protected void classifyPatterns(ShardQueryConfiguration config, Multimap<String,Range> forwardMap, Multimap<String,Range> reverseMap) {
+        for (String pattern : patterns) {
+            if (!isAcceptedPattern(pattern)) {
+                PreConditionFailedQueryException qe = new PreConditionFailedQueryException(DatawaveErrorCode.IGNORE_PATTERN_FOR_INDEX_LOOKUP,
+                                MessageFormat.format("Pattern: {0}", pattern));
+                log.debug(qe);
+                throw new DoNotPerformOptimizedQueryException(qe);
+            }
+            
+            ShardIndexQueryTableStaticMethods.RefactoredRangeDescription rangeDescription = null;
+            try {
+                rangeDescription = ShardIndexQueryTableStaticMethods.getRegexRange(null, pattern, config.getFullTableScanEnabled(), helperRef, config);
+            } catch (IllegalArgumentException e) {
+                log.debug("Ignoring pattern that was not capable of being looked up in the index: " + pattern, e);
+                continue;
+            } catch (JavaRegexParseException e) {
+                log.debug("Ignoring pattern that was not capable of being looked up in the index: " + pattern, e);
+                continue;
+            } catch (TableNotFoundException e) {
+                log.error(e);
+                throw new DatawaveFatalQueryException(e);
+            } catch (ExecutionException e) {
+                throw new DatawaveFatalQueryException(e);
+            }
+            if (log.isTraceEnabled()) {
+                log.trace("Adding pattern " + pattern);
+                log.trace("Adding pattern " + rangeDescription);
+            }
+            if (rangeDescription.isForReverseIndex) {
+                
+                reverseMap.put(pattern, rangeDescription.range);
+            } else {
+                forwardMap.put(pattern, rangeDescription.range);
+            }
+        }
+    }
+    
+    /**
+     * Expands each pattern through the {@link IndexExpansionCache}, scanning the index only for the days that are not cached
+     */
+    protected void lookupWithCache(ShardQueryConfiguration config, ScannerFactory scannerFactory, Multimap<String,Range> forwardMap,
+                    Multimap<String,Range> reverseMap, IteratorSetting fairnessIterator, IndexLookupMap fieldsToValues, long maxLookupConfigured) {
+        if (!fields.isEmpty()) {
+            for (String pattern : forwardMap.keySet()) {
+                Collection<Range> ranges = forwardMap.get(pattern);
+                String lookup = IndexExpansionCache.describe(config.getIndexTableName(), fields, pattern, config.getDatatypeFilter(), config.getAuthorizations());
+                expandWithCache(config, lookup, fields, fieldsToValues, (beginDay, endDay) -> scanDays(config, scannerFactory, config.getIndexTableName(), ranges,
+                                pattern, fields, false, beginDay, endDay, fairnessIterator, fieldsToValues, maxLookupConfigured));
+            }
+        }
+        if (!reverseFields.isEmpty()) {
+            for (String pattern : reverseMap.keySet()) {
+                Collection<Range> ranges = reverseMap.get(pattern);
+                String lookup = IndexExpansionCache.describe(config.getReverseIndexTableName(), reverseFields, pattern, config.getDatatypeFilter(),
+                                config.getAuthorizations());
+                expandWithCache(config, lookup, reverseFields, fieldsToValues, (beginDay, endDay) -> scanDays(config, scannerFactory,
+                                config.getReverseIndexTableName(), ranges, pattern, reverseFields, true, beginDay, endDay, fairnessIterator, fieldsToValues,
+                                maxLookupConfigured));
+            }
+        }
+    }
+    
+    private void scanDays(ShardQueryConfiguration config, ScannerFactory scannerFactory, String tableName, Collection<Range> ranges, String pattern,
+                    Set<String> scanFields, boolean isReverse, String beginDay, String endDay, IteratorSetting fairnessIterator, IndexLookupMap fieldsToValues,
+                    long maxLookupConfigured) {
+        ScannerSession bs;
+        try {
+            bs = ShardIndexQueryTableStaticMethods.configureLimitedDiscovery(config, scannerFactory, tableName, ranges, Collections.emptySet(),
+                            Collections.singleton(pattern), isReverse, true, beginDay, endDay, true);
+            bs.setResourceClass(BatchResource.class);
+        } catch (Exception e) {
+            throw new DatawaveFatalQueryException(e);
+        }
+        SessionOptions opts = bs.getOptions();
+        if (null != fairnessIterator) {
+            opts.addScanIterator(fairnessIterator);
+            opts.addScanIterator(new IteratorSetting(config.getBaseIteratorPriority() + 100, TimeoutExceptionIterator.class));
+        }
+        for (String field : scanFields) {
+            opts.fetchColumnFamily(new Text(field));
+        }
+        
+        try {
+            timedScan(bs, fieldsToValues, config, unfieldedLookup, scanFields, isReverse, maxLookupConfigured, log);
+        } finally {
+            scannerFactory.close(bs);
+        }
+    }
+    
     @Override
     protected Callable<Boolean> createTimedCallable(final Iterator<Entry<Key,Value>> iter, final IndexLookupMap fieldsToValues, ShardQueryConfiguration config,
                     final boolean unfieldedLookup, final Set<String> fields, final boolean isReverse, long timeout) {
         final Set<String> myDatatypeFilter = config.getDatatypeFilter();
+        final Map<String,Multimap<String,String>> myTermsByDay = termsByDay;
         return () -> {
             Text holder = new Text();
             try {
@@ -259,6 +325,9 @@ public class LookupTermsFromRegex extends RegexIndexLookup {
                             // We are only returning a mapping of field value to field name, no need to
                             // determine cardinality and such at this point.
                             fieldsToValues.put(field, term);
+                            if (null != myTermsByDay) {
+                                addTermForDay(myTermsByDay, colq.substring(0, idx), field, term);
+                            }
                             // conditional states that if we exceed the key threshold OR field name is not null and we've exceeded
                             // the value threshold for that field name ( in the case where we have a fielded lookup ).
                             if (fieldsToValues.isKeyThresholdExceeded() || (fields.size() == 1 && fieldsToValues.get(field).isThresholdExceeded())) {
@@ -390,6 +390,19 @@ public class ShardIndexQueryTableStaticMethods {
     public static ScannerSession configureLimitedDiscovery(ShardQueryConfiguration config, ScannerFactory scannerFactory, String tableName,
                     Collection<Range> ranges, Collection<String> literals, Collection<String> patterns, boolean reverseIndex, boolean limitToUniqueTerms)
                     throws Exception {
+        return configureLimitedDiscovery(config, scannerFactory, tableName, ranges, literals, patterns, reverseIndex, limitToUniqueTerms,
+                        formatter.format(config.getBeginDate()), formatter.format(config.getEndDate()), false);
+    }
+    
+    /**
+     * Configures a discovery scan of the global index over the shard days from beginDay to endDay, inclusive
+     *
+     * @param uniqueTermsPerDay
+     *            if terms are limited to unique terms, return a term once per shard day rather than once
+     */
+    public static ScannerSession configureLimitedDiscovery(ShardQueryConfiguration config, ScannerFactory scannerFactory, String tableName,
+                    Collection<Range> ranges, Collection<String> literals, Collection<String> patterns, boolean reverseIndex, boolean limitToUniqueTerms,
+                    String beginDay, String endDay, boolean uniqueTermsPerDay) throws Exception {
         
         // if we have no ranges, then nothing to scan
         if (ranges.isEmpty()) {
@@ -401,13 +414,16 @@ public class ShardIndexQueryTableStaticMethods {
         bs.setRanges(ranges);
         
         SessionOptions options = new SessionOptions();
-        options.addScanIterator(configureDateRangeIterator(config));
+        options.addScanIterator(configureDateRangeIterator(config, beginDay, endDay));
         IteratorSetting setting = configureGlobalIndexDataTypeFilter(config, config.getDatatypeFilter());
         if (setting != null) {
             options.addScanIterator(setting);
         }
         setting = configureGlobalIndexTermMatchingIterator(config, literals, patterns, reverseIndex, limitToUniqueTerms);
         if (setting != null) {
+            if (limitToUniqueTerms && uniqueTermsPerDay) {
+                setting.addOption(GlobalIndexTermMatchingIterator.UNIQUE_TERMS_PER_DAY, Boolean.toString(true));
+            }
             options.addScanIterator(setting);
         }
         
@@ -438,14 +454,17 @@ public class ShardIndexQueryTableStaticMethods {
     }
     
     public static final IteratorSetting configureDateRangeIterator(ShardQueryConfiguration config) throws IOException {
+        return configureDateRangeIterator(config, formatter.format(config.getBeginDate()), formatter.format(config.getEndDate()));
+    }
+    
+    public static final IteratorSetting configureDateRangeIterator(ShardQueryConfiguration config, String beginDay, String endDay) throws IOException {
         // Setup the GlobalIndexDateRangeFilter
         if (log.isTraceEnabled()) {
             log.trace("Configuring configureDateRangeIterator ");
         }
         IteratorSetting cfg = new IteratorSetting(config.getBaseIteratorPriority() + 21, "dateFilter", ColumnQualifierRangeIterator.class);
-        String begin = formatter.format(config.getBeginDate());
-        String end = formatter.format(config.getEndDate()) + Constants.MAX_UNICODE_STRING;
-        cfg.addOption(ColumnQualifierRangeIterator.RANGE_NAME, ColumnQualifierRangeIterator.encodeRange(new Range(begin, end)));
+        String end = endDay + Constants.MAX_UNICODE_STRING;
+        cfg.addOption(ColumnQualifierRangeIterator.RANGE_NAME, ColumnQualifierRangeIterator.encodeRange(new Range(beginDay, end)));
         return cfg;
     }
     
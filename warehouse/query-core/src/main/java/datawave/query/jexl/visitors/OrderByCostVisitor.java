@@ -0,0 +1,387 @@
+package datawave.query.jexl.visitors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import datawave.data.MetadataCardinalityCounts;
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.index.stats.IndexStatsClient;
+import datawave.query.jexl.JexlASTHelper;
+import datawave.query.jexl.nodes.ExceededOrThresholdMarkerJexlNode;
+import datawave.query.jexl.nodes.ExceededTermThresholdMarkerJexlNode;
+import datawave.query.jexl.nodes.ExceededValueThresholdMarkerJexlNode;
+import datawave.query.jexl.nodes.QueryPropertyMarker;
+import datawave.query.util.MetadataHelper;
+import org.apache.commons.jexl2.parser.ASTAndNode;
+import org.apache.commons.jexl2.parser.ASTDelayedPredicate;
+import org.apache.commons.jexl2.parser.ASTEQNode;
+import org.apache.commons.jexl2.parser.ASTIdentifier;
+import org.apache.commons.jexl2.parser.ASTNotNode;
+import org.apache.commons.jexl2.parser.ASTOrNode;
+import org.apache.commons.jexl2.parser.ASTReference;
+import org.apache.commons.jexl2.parser.ASTReferenceExpression;
+import org.apache.commons.jexl2.parser.JexlNode;
+import org.apache.commons.jexl2.parser.JexlNodes;
+import org.apache.log4j.Logger;
+
+/**
+ * Orders the terms of each conjunction by their estimated cost, so that the most selective term drives the index lookups and the AndIterator, and optionally
+ * moves terms that are far less selective than the best term of their conjunction to evaluation.
+ * <p>
+ * The cost of an indexed equality is the estimated number of index entries it matches: the count of the field and value from the metadata term counts if
+ * there is one, otherwise the average number of entries per value of the field from the index stats table. Terms are placed in one of three groups, which
+ * are ordered before the estimates:
+ * <ul>
+ * <li>index: indexed terms, with or without an estimate</li>
+ * <li>ivarator: terms that were marked to be run against the field index because they exceeded an expansion threshold</li>
+ * <li>evaluation: delayed, unindexed, negated and function terms</li>
+ * </ul>
+ * Every placement and estimate of a conjunct is recorded as a plan decision, see {@link ShardQueryConfiguration#getPlanDecisions()}.
+ */
+public class OrderByCostVisitor extends BaseVisitor {
+    private static final Logger log = Logger.getLogger(OrderByCostVisitor.class);
+    
+    private static final int MAX_TERM_LENGTH = 128;
+    private static final int MAX_DECISIONS = 100;
+    
+    /**
+     * Where a term is run, in the order that the terms of a conjunction are sorted
+     */
+    public enum Placement {
+        INDEX, IVARATOR, EVALUATION
+    }
+    
+    /**
+     * The placement and estimated number of matching index entries of a term
+     */
+    public static class Cost implements Comparable<Cost> {
+        public static final double UNKNOWN = IndexStatsClient.DEFAULT_VALUE;
+        
+        public static final Cost IVARATOR = new Cost(Placement.IVARATOR, UNKNOWN, "marked for the field index");
+        public static final Cost EVALUATION = new Cost(Placement.EVALUATION, UNKNOWN, "evaluation only");
+        
+        private final Placement placement;
+        private final double estimate;
+        private final String source;
+        
+        public Cost(Placement placement, double estimate, String source) {
+            this.placement = placement;
+            this.estimate = estimate;
+            this.source = source;
+        }
+        
+        public Placement getPlacement() {
+            return placement;
+        }
+        
+        public double getEstimate() {
+            return estimate;
+        }
+        
+        public boolean isEstimated() {
+            return estimate != UNKNOWN;
+        }
+        
+        @Override
+        public int compareTo(Cost other) {
+            int cmp = placement.compareTo(other.placement);
+            if (cmp == 0) {
+                cmp = Double.compare(estimate, other.estimate);
+            }
+            return cmp;
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(placement.name().toLowerCase());
+            if (isEstimated()) {
+                sb.append(", ~").append(Math.round(estimate)).append(" entries");
+            }
+            if (source != null) {
+                sb.append(" (").append(source).append(')');
+            }
+            return sb.toString();
+        }
+    }
+    
+    private final ShardQueryConfiguration config;
+    private final MetadataHelper helper;
+    private final Set<String> indexedFields;
+    private final Set<String> indexOnlyFields;
+    private final double maxIndexCostRatio;
+    private final List<String> decisions = new ArrayList<>();
+    private int droppedDecisions = 0;
+    
+    private Map<String,Map<String,MetadataCardinalityCounts>> termCounts = null;
+    private final Map<String,Double> fieldWeights = new HashMap<>();
+    
+    /**
+     * @param config
+     *            the query configuration
+     * @param helper
+     *            the metadata helper, for the term counts
+     * @param indexedFields
+     *            the indexed fields of the query's datatypes
+     * @param indexOnlyFields
+     *            the index only fields of the query's datatypes, which can never be moved to evaluation
+     * @param maxIndexCostRatio
+     *            the number of times more entries than the most selective term of its conjunction that an indexed equality may match before it is moved to
+     *            evaluation, or a value of 0 or less to never move terms
+     */
+    public OrderByCostVisitor(ShardQueryConfiguration config, MetadataHelper helper, Set<String> indexedFields, Set<String> indexOnlyFields,
+                    double maxIndexCostRatio) {
+        this.config = config;
+        this.helper = helper;
+        this.indexedFields = indexedFields == null ? Collections.emptySet() : indexedFields;
+        this.indexOnlyFields = indexOnlyFields == null ? Collections.emptySet() : indexOnlyFields;
+        this.maxIndexCostRatio = maxIndexCostRatio;
+    }
+    
+    /**
+     * Orders the conjunctions of the query tree in place and sets the decisions on the configuration
+     */
+    public static <T extends JexlNode> T order(T queryTree, ShardQueryConfiguration config, MetadataHelper helper, Set<String> indexedFields,
+                    Set<String> indexOnlyFields, double maxIndexCostRatio) {
+        OrderByCostVisitor visitor = new OrderByCostVisitor(config, helper, indexedFields, indexOnlyFields, maxIndexCostRatio);
+        visitor.loadFieldWeights(queryTree);
+        queryTree.jjtAccept(visitor, null);
+        config.setPlanDecisions(new ArrayList<>(visitor.getDecisions()));
+        return queryTree;
+    }
+    
+    /**
+     * @return the placement and estimate of each term of each conjunction, in the order the terms were put in
+     */
+    public List<String> getDecisions() {
+        if (droppedDecisions > 0) {
+            List<String> truncated = new ArrayList<>(decisions);
+            truncated.add("... and " + droppedDecisions + " more terms");
+            return truncated;
+        }
+        return decisions;
+    }
+    
+    /**
+     * Looks up the index stats of every field of the query at once
+     */
+    protected void loadFieldWeights(JexlNode queryTree) {
+        if (config.getIndexStatsTableName() == null || config.getConnector() == null) {
+            return;
+        }
+        Set<String> fields = new HashSet<>();
+        for (ASTIdentifier identifier : JexlASTHelper.getIdentifiers(queryTree)) {
+            String field = JexlASTHelper.deconstructIdentifier(identifier);
+            if (indexedFields.contains(field)) {
+                fields.add(field);
+            }
+        }
+        if (fields.isEmpty()) {
+            return;
+        }
+        IndexStatsClient stats = new IndexStatsClient(config.getConnector(), config.getIndexStatsTableName());
+        Map<String,Double> weights = stats.safeGetStat(fields, config.getDatatypeFilter(), config.getBeginDate(), config.getEndDate());
+        for (Map.Entry<String,Double> entry : weights.entrySet()) {
+            // the default entry is only returned when the stats could not be read
+            if (!entry.getKey().equals(IndexStatsClient.DEFAULT_STRING)) {
+                fieldWeights.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+    
+    /**
+     * @return the number of index entries of the field and value from the metadata term counts, or null if there is no count
+     */
+    protected Double getValueCount(String field, String value) {
+        if (termCounts == null) {
+            try {
+                // like the low selectivity pushdown, the counts are read with root auths as they are only used for planning
+                termCounts = helper.getTermCountsWithRootAuths();
+            } catch (Exception e) {
+                log.warn("Could not retrieve term counts from the metadata helper", e);
+            }
+            if (termCounts == null) {
+                termCounts = Collections.emptyMap();
+            }
+        }
+        Map<String,MetadataCardinalityCounts> valueCounts = termCounts.get(field);
+        if (valueCounts != null) {
+            MetadataCardinalityCounts counts = valueCounts.get(value);
+            if (counts != null) {
+                return (double) counts.getFieldValueCount();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * @return the ratio of unique values to index entries of the field from the index stats table, or null if there is no weight
+     */
+    protected Double getFieldWeight(String field) {
+        return fieldWeights.get(field);
+    }
+    
+    @Override
+    public Object visit(ASTEQNode node, Object data) {
+        try {
+            String field = JexlASTHelper.getIdentifier(node);
+            if (!indexedFields.contains(field)) {
+                return new Cost(Placement.EVALUATION, Cost.UNKNOWN, "not indexed");
+            }
+            Double count = getValueCount(field, String.valueOf(JexlASTHelper.getLiteralValue(node)));
+            if (count != null) {
+                return new Cost(Placement.INDEX, count, "term counts");
+            }
+            Double weight = getFieldWeight(field);
+            if (weight != null && weight > 0) {
+                return new Cost(Placement.INDEX, 1.0d / weight, "index stats");
+            }
+            return new Cost(Placement.INDEX, Cost.UNKNOWN, null);
+        } catch (NoSuchElementException e) {
+            // field to field comparisons and the like
+            return Cost.EVALUATION;
+        }
+    }
+    
+    @Override
+    public Object visit(ASTNotNode node, Object data) {
+        // negations never drive a lookup, and nothing under them is reordered
+        return Cost.EVALUATION;
+    }
+    
+    @Override
+    public Object visit(ASTReference node, Object data) {
+        if (QueryPropertyMarker.instanceOf(node, null)) {
+            return markerCost(node);
+        }
+        return visitOnlyChild(node);
+    }
+    
+    @Override
+    public Object visit(ASTReferenceExpression node, Object data) {
+        if (QueryPropertyMarker.instanceOf(node, null)) {
+            return markerCost(node);
+        }
+        return visitOnlyChild(node);
+    }
+    
+    private Cost visitOnlyChild(JexlNode node) {
+        if (node.jjtGetNumChildren() == 1) {
+            return cost(node.jjtGetChild(0));
+        }
+        return Cost.EVALUATION;
+    }
+    
+    private Cost markerCost(JexlNode node) {
+        if (QueryPropertyMarker.instanceOf(node, ExceededValueThresholdMarkerJexlNode.class)
+                        || QueryPropertyMarker.instanceOf(node, ExceededTermThresholdMarkerJexlNode.class)
+                        || QueryPropertyMarker.instanceOf(node, ExceededOrThresholdMarkerJexlNode.class)) {
+            return Cost.IVARATOR;
+        }
+        // delayed, evaluation only and index hole terms, and bounded ranges
+        return Cost.EVALUATION;
+    }
+    
+    @Override
+    public Object visit(ASTOrNode node, Object data) {
+        // an OR matches as many entries as all of its terms, and can only use the index if all of its terms can
+        Placement placement = Placement.INDEX;
+        double estimate = 0;
+        for (JexlNode child : JexlNodes.children(node)) {
+            Cost cost = cost(child);
+            if (cost.getPlacement().compareTo(placement) > 0) {
+                placement = cost.getPlacement();
+            }
+            estimate = cost.isEstimated() && estimate != Cost.UNKNOWN ? estimate + cost.getEstimate() : Cost.UNKNOWN;
+        }
+        return new Cost(placement, estimate, null);
+    }
+    
+    @Override
+    public Object visit(ASTAndNode node, Object data) {
+        if (QueryPropertyMarker.instanceOf(node, null)) {
+            return markerCost(node);
+        }
+        
+        JexlNode[] children = JexlNodes.children(node);
+        final Map<JexlNode,Cost> costs = new HashMap<>();
+        for (JexlNode child : children) {
+            costs.put(child, cost(child));
+        }
+        
+        // an AND matches at most as many entries as its most selective term
+        Cost best = Collections.min(costs.values());
+        
+        if (maxIndexCostRatio > 0 && best.getPlacement() == Placement.INDEX && best.isEstimated()) {
+            double maxEstimate = best.getEstimate() * maxIndexCostRatio;
+            for (JexlNode child : children) {
+                Cost cost = costs.get(child);
+                if (cost.getPlacement() == Placement.INDEX && cost.isEstimated() && cost.getEstimate() > maxEstimate && isEvaluatable(child)) {
+                    // scanning the index for this term costs more than evaluating it against the documents of the best term
+                    JexlNode delayed = ASTDelayedPredicate.create(child);
+                    costs.put(delayed, new Cost(Placement.EVALUATION, cost.getEstimate(), "over " + maxIndexCostRatio + " times the best term"));
+                }
+            }
+            children = JexlNodes.children(node);
+        }
+        
+        JexlNode[] ordered = Arrays.copyOf(children, children.length);
+        // a stable sort, so terms of equal cost keep the order of the query
+        Arrays.sort(ordered, new Comparator<JexlNode>() {
+            @Override
+            public int compare(JexlNode a, JexlNode b) {
+                return costs.get(a).compareTo(costs.get(b));
+            }
+        });
+        if (!Arrays.equals(children, ordered)) {
+            JexlNodes.children(node, ordered);
+        }
+        
+        for (JexlNode child : ordered) {
+            if (decisions.size() < MAX_DECISIONS) {
+                decisions.add(describe(child) + ": " + costs.get(child));
+            } else {
+                droppedDecisions++;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * @return true if the term is a single equality of a field that is in the event, so that it can be evaluated instead of looked up
+     */
+    private boolean isEvaluatable(JexlNode node) {
+        JexlNode term = node;
+        while (term.jjtGetNumChildren() == 1 && (term instanceof ASTReference || term instanceof ASTReferenceExpression)) {
+            term = term.jjtGetChild(0);
+        }
+        if (!(term instanceof ASTEQNode)) {
+            return false;
+        }
+        try {
+            return !indexOnlyFields.contains(JexlASTHelper.getIdentifier(term));
+        } catch (NoSuchElementException e) {
+            return false;
+        }
+    }
+    
+    private Cost cost(JexlNode node) {
+        Object cost = node.jjtAccept(this, null);
+        return cost instanceof Cost ? (Cost) cost : Cost.EVALUATION;
+    }
+    
+    private static String describe(JexlNode node) {
+        String term = JexlStringBuildingVisitor.buildQueryWithoutParse(node);
+        if (term.length() > MAX_TERM_LENGTH) {
+            term = term.substring(0, MAX_TERM_LENGTH) + "...";
+        }
+        return term;
+    }
+}
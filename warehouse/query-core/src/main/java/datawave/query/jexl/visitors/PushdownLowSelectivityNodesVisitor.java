@@ -1,6 +1,7 @@
 package datawave.query.jexl.visitors;
 
 import datawave.data.MetadataCardinalityCounts;
+import datawave.query.cardinality.FieldSketchScanner;
 import datawave.query.config.ShardQueryConfiguration;
 import datawave.query.jexl.JexlASTHelper;
 import datawave.query.jexl.nodes.QueryPropertyMarker;
@@ -63,6 +64,16 @@ public class PushdownLowSelectivityNodesVisitor extends BaseVisitor {
         return node;
     }
     
+    /**
+     * @return the sketch scanner of the query, which is kept on the configuration so that each field's sketches are merged once per query
+     */
+    protected FieldSketchScanner getSketchScanner() {
+        if (config.getFieldSketchScanner() == null) {
+            config.setFieldSketchScanner(new FieldSketchScanner(config.getConnector(), config.getMetadataTableName(), config.getAuthorizations()));
+        }
+        return config.getFieldSketchScanner();
+    }
+    
     public boolean hasLowSelectability(JexlNode node) {
         try {
             String field = JexlASTHelper.getIdentifier(node);
@@ -71,13 +82,27 @@ public class PushdownLowSelectivityNodesVisitor extends BaseVisitor {
             // exposed to the user. It is only used to adjust the query planning.
             Map<String,Map<String,MetadataCardinalityCounts>> termCounts = this.helper.getTermCountsWithRootAuths();
             Map<String,MetadataCardinalityCounts> valueCounts = termCounts.get(field);
-            if (valueCounts != null) {
+            if (valueCounts != null && config.getMinSelectivity() > 0) {
                 MetadataCardinalityCounts counts = valueCounts.get(String.valueOf(literal));
                 if (counts != null) {
                     double selectivity = (double) counts.getFieldValueCount() / (double) counts.getTotalAllFieldAllValueCount();
                     if (selectivity >= config.getMinSelectivity()) {
                         return true;
                     }
+                    return false;
+                }
+            }
+            
+            // fall back to an estimate from the field sketches in the metadata table. That is the fraction of the values of the field that match rather than
+            // of the values of all fields, so it has its own threshold
+            if (config.isUseMetadataSketches() && config.getMinSketchSelectivity() > 0) {
+                double selectivity = getSketchScanner().getSelectivity(field, String.valueOf(literal), config.getDatatypeFilter(), config.getBeginDate(),
+                                config.getEndDate());
+                if (log.isDebugEnabled()) {
+                    log.debug("Estimated selectivity of " + field + " == " + literal + " from the metadata sketches: " + selectivity);
+                }
+                if (selectivity >= config.getMinSketchSelectivity()) {
+                    return true;
                 }
             }
         } catch (NoSuchElementException e) {
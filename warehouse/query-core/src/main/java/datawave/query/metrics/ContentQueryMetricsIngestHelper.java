@@ -179,6 +179,39 @@ public class ContentQueryMetricsIngestHelper extends CSVIngestHelper implements
             if (updatedQueryMetric.getPlan() != null) {
                 fields.put("PLAN", updatedQueryMetric.getPlan());
             }
+            if (updatedQueryMetric.getPlanCacheHit() != null) {
+                fields.put("PLAN_CACHE_HIT", updatedQueryMetric.getPlanCacheHit().toString());
+            }
+            if (updatedQueryMetric.getDateIndexCacheHits() != null) {
+                fields.put("DATE_INDEX_CACHE_HITS", updatedQueryMetric.getDateIndexCacheHits().toString());
+            }
+            if (updatedQueryMetric.getDateIndexCacheMisses() != null) {
+                fields.put("DATE_INDEX_CACHE_MISSES", updatedQueryMetric.getDateIndexCacheMisses().toString());
+            }
+            if (updatedQueryMetric.getGeoWaveDecompositionTime() != null) {
+                fields.put("GEOWAVE_DECOMPOSITION_TIME", updatedQueryMetric.getGeoWaveDecompositionTime().toString());
+            }
+            if (updatedQueryMetric.getGeoWaveRangeCount() != null) {
+                fields.put("GEOWAVE_RANGE_COUNT", updatedQueryMetric.getGeoWaveRangeCount().toString());
+            }
+            if (updatedQueryMetric.getGeoWaveDecompositionCacheHits() != null) {
+                fields.put("GEOWAVE_DECOMPOSITION_CACHE_HITS", updatedQueryMetric.getGeoWaveDecompositionCacheHits().toString());
+            }
+            if (updatedQueryMetric.getPlanTimings() != null) {
+                for (String planTiming : updatedQueryMetric.getPlanTimings()) {
+                    fields.put("PLAN_TIMINGS", planTiming);
+                }
+            }
+            if (updatedQueryMetric.getPlanDecisions() != null) {
+                for (String planDecision : updatedQueryMetric.getPlanDecisions()) {
+                    fields.put("PLAN_DECISIONS", planDecision);
+                }
+            }
+            if (updatedQueryMetric.getSubQueryTimings() != null) {
+                for (String subQueryTiming : updatedQueryMetric.getSubQueryTimings()) {
+                    fields.put("SUB_QUERY_TIMINGS", subQueryTiming);
+                }
+            }
             if (updatedQueryMetric.getQueryId() != null) {
                 fields.put("QUERY_ID", updatedQueryMetric.getQueryId());
             }
@@ -235,6 +268,12 @@ public class ContentQueryMetricsIngestHelper extends CSVIngestHelper implements
             fields.put("YIELD_COUNT", Long.toString(updatedQueryMetric.getYieldCount()));
             fields.put("DOC_RANGES", Long.toString(updatedQueryMetric.getDocRanges()));
             fields.put("FI_RANGES", Long.toString(updatedQueryMetric.getFiRanges()));
+            fields.put("IVARATOR_RANGES", Long.toString(updatedQueryMetric.getIvaratorRanges()));
+            fields.put("IVARATOR_FILL_TIME", Long.toString(updatedQueryMetric.getIvaratorFillTime()));
+            fields.put("IVARATOR_WAIT_TIME", Long.toString(updatedQueryMetric.getIvaratorWaitTime()));
+            fields.put("IVARATOR_BYTES_SPILLED", Long.toString(updatedQueryMetric.getIvaratorBytesSpilled()));
+            fields.put("SAVED_SEEK_COUNT", Long.toString(updatedQueryMetric.getSavedSeekCount()));
+            fields.put("SAVED_NEXT_COUNT", Long.toString(updatedQueryMetric.getSavedNextCount()));
             Set<Prediction> predictions = updatedQueryMetric.getPredictions();
             if (predictions != null && !predictions.isEmpty()) {
                 for (Prediction prediction : predictions) {
@@ -338,6 +377,24 @@ public class ContentQueryMetricsIngestHelper extends CSVIngestHelper implements
             if (updatedQueryMetric.getFiRanges() != storedQueryMetric.getFiRanges()) {
                 fields.put("FI_RANGES", Long.toString(storedQueryMetric.getFiRanges()));
             }
+            if (updatedQueryMetric.getIvaratorRanges() != storedQueryMetric.getIvaratorRanges()) {
+                fields.put("IVARATOR_RANGES", Long.toString(storedQueryMetric.getIvaratorRanges()));
+            }
+            if (updatedQueryMetric.getIvaratorFillTime() != storedQueryMetric.getIvaratorFillTime()) {
+                fields.put("IVARATOR_FILL_TIME", Long.toString(storedQueryMetric.getIvaratorFillTime()));
+            }
+            if (updatedQueryMetric.getIvaratorWaitTime() != storedQueryMetric.getIvaratorWaitTime()) {
+                fields.put("IVARATOR_WAIT_TIME", Long.toString(storedQueryMetric.getIvaratorWaitTime()));
+            }
+            if (updatedQueryMetric.getIvaratorBytesSpilled() != storedQueryMetric.getIvaratorBytesSpilled()) {
+                fields.put("IVARATOR_BYTES_SPILLED", Long.toString(storedQueryMetric.getIvaratorBytesSpilled()));
+            }
+            if (updatedQueryMetric.getSavedSeekCount() != storedQueryMetric.getSavedSeekCount()) {
+                fields.put("SAVED_SEEK_COUNT", Long.toString(storedQueryMetric.getSavedSeekCount()));
+            }
+            if (updatedQueryMetric.getSavedNextCount() != storedQueryMetric.getSavedNextCount()) {
+                fields.put("SAVED_NEXT_COUNT", Long.toString(storedQueryMetric.getSavedNextCount()));
+            }
             
             putExtendedFieldsToDelete(updatedQueryMetric, fields);
             
@@ -672,6 +672,45 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
                     m.setQuery(fieldValue);
                 } else if (fieldName.equals("PLAN")) {
                     m.setPlan(fieldValue);
+                } else if (fieldName.equals("PLAN_CACHE_HIT")) {
+                    m.setPlanCacheHit(Boolean.valueOf(fieldValue));
+                } else if (fieldName.equals("DATE_INDEX_CACHE_HITS")) {
+                    m.setDateIndexCacheHits(Integer.valueOf(fieldValue));
+                } else if (fieldName.equals("DATE_INDEX_CACHE_MISSES")) {
+                    m.setDateIndexCacheMisses(Integer.valueOf(fieldValue));
+                } else if (fieldName.equals("GEOWAVE_DECOMPOSITION_TIME")) {
+                    m.setGeoWaveDecompositionTime(Long.valueOf(fieldValue));
+                } else if (fieldName.equals("GEOWAVE_RANGE_COUNT")) {
+                    m.setGeoWaveRangeCount(Integer.valueOf(fieldValue));
+                } else if (fieldName.equals("GEOWAVE_DECOMPOSITION_CACHE_HITS")) {
+                    m.setGeoWaveDecompositionCacheHits(Integer.valueOf(fieldValue));
+                } else if (fieldName.equals("PLAN_TIMINGS")) {
+                    List<String> planTimings = m.getPlanTimings();
+                    if (planTimings == null) {
+                        planTimings = new ArrayList<>();
+                    }
+                    planTimings.add(fieldValue);
+                    // the timings are numbered, so keep them in planning order
+                    Collections.sort(planTimings);
+                    m.setPlanTimings(planTimings);
+                } else if (fieldName.equals("PLAN_DECISIONS")) {
+                    List<String> planDecisions = m.getPlanDecisions();
+                    if (planDecisions == null) {
+                        planDecisions = new ArrayList<>();
+                    }
+                    planDecisions.add(fieldValue);
+                    // the decisions are numbered, so keep them in planning order
+                    Collections.sort(planDecisions);
+                    m.setPlanDecisions(planDecisions);
+                } else if (fieldName.equals("SUB_QUERY_TIMINGS")) {
+                    List<String> subQueryTimings = m.getSubQueryTimings();
+                    if (subQueryTimings == null) {
+                        subQueryTimings = new ArrayList<>();
+                    }
+                    subQueryTimings.add(fieldValue);
+                    // the timings start with the name of the logic, so keep them in a stable order
+                    Collections.sort(subQueryTimings);
+                    m.setSubQueryTimings(subQueryTimings);
                 } else if (fieldName.equals("QUERY_LOGIC")) {
                     m.setQueryLogic(fieldValue);
                 } else if (fieldName.equals("QUERY_ID")) {
@@ -797,6 +836,18 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
                 
                 else if (fieldName.equals("FI_RANGES")) {
                     m.setFiRanges(Long.parseLong(fieldValue));
+                } else if (fieldName.equals("IVARATOR_RANGES")) {
+                    m.setIvaratorRanges(Long.parseLong(fieldValue));
+                } else if (fieldName.equals("IVARATOR_FILL_TIME")) {
+                    m.setIvaratorFillTime(Long.parseLong(fieldValue));
+                } else if (fieldName.equals("IVARATOR_WAIT_TIME")) {
+                    m.setIvaratorWaitTime(Long.parseLong(fieldValue));
+                } else if (fieldName.equals("IVARATOR_BYTES_SPILLED")) {
+                    m.setIvaratorBytesSpilled(Long.parseLong(fieldValue));
+                } else if (fieldName.equals("SAVED_SEEK_COUNT")) {
+                    m.setSavedSeekCount(Long.parseLong(fieldValue));
+                } else if (fieldName.equals("SAVED_NEXT_COUNT")) {
+                    m.setSavedNextCount(Long.parseLong(fieldValue));
                 } else {
                     log.error("encountered unanticipated field name: " + fieldName);
                 }
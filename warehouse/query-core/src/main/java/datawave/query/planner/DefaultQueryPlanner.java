@@ -38,8 +38,11 @@ import datawave.query.iterator.logic.IndexIterator;
 import datawave.query.jexl.JexlASTHelper;
 import datawave.query.jexl.JexlNodeFactory;
 import datawave.query.jexl.NodeTypeCount;
+import datawave.query.jexl.QueryTreeSerializer;
 import datawave.query.jexl.functions.EvaluationPhaseFilterFunctions;
 import datawave.query.jexl.functions.QueryFunctions;
+import datawave.query.jexl.lookups.IndexExpansionCache;
+import datawave.query.jexl.lookups.IndexLookup;
 import datawave.query.jexl.nodes.BoundedRange;
 import datawave.query.jexl.nodes.ExceededValueThresholdMarkerJexlNode;
 import datawave.query.jexl.visitors.BoundedRangeDetectionVisitor;
@@ -64,6 +67,7 @@ import datawave.query.jexl.visitors.IsNotNullIntentVisitor;
 import datawave.query.jexl.visitors.IvaratorRequiredVisitor;
 import datawave.query.jexl.visitors.JexlStringBuildingVisitor;
 import datawave.query.jexl.visitors.NodeTypeCountVisitor;
+import datawave.query.jexl.visitors.OrderByCostVisitor;
 import datawave.query.jexl.visitors.ParallelIndexExpansion;
 import datawave.query.jexl.visitors.PrintingVisitor;
 import datawave.query.jexl.visitors.PullupUnexecutableNodesVisitor;
@@ -100,6 +104,7 @@ import datawave.query.util.DateIndexHelper;
 import datawave.query.util.MetadataHelper;
 import datawave.query.util.QueryStopwatch;
 import datawave.query.util.Tuple2;
+import datawave.util.time.DateHelper;
 import datawave.util.time.TraceStopwatch;
 import datawave.webservice.common.logging.ThreadConfigurableLogger;
 import datawave.webservice.query.Query;
@@ -148,6 +153,8 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -194,6 +201,21 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
      */
     protected boolean cacheDataTypes = false;
     
+    /**
+     * Cache the index independent rewrites of queries with the same shape, and the planned queries after the index expansions, see {@link QueryPlanCache}
+     */
+    protected boolean cachePlans = false;
+    
+    /**
+     * The name of the plan cache of this planner, which is the name of its query logic unless set, so that each query logic has a cache of its own
+     */
+    protected String planCacheName = null;
+    
+    /**
+     * How long a planned query is kept after it was planned, which bounds how stale its index expansions may be
+     */
+    protected long plannedQueryExpiryMinutes = QueryPlanCache.DEFAULT_PLANNED_EXPIRY_MINUTES;
+    
     /**
      * Overrides behavior with doc specific ranges
      */
@@ -218,6 +240,12 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
     private static Cache<String,Multimap<String,Type<?>>> dataTypeMap = CacheBuilder.newBuilder().maximumSize(100).concurrencyLevel(100)
                     .expireAfterAccess(24, TimeUnit.HOURS).build();
     
+    private static final ConcurrentMap<String,QueryPlanCache> queryPlanCaches = new ConcurrentHashMap<>();
+    
+    // the serialized trees of the query strings sent to the tservers, which are set again for every query plan of a query
+    private static final Cache<String,String> queryTreeOptions = CacheBuilder.newBuilder().maximumSize(100).concurrencyLevel(100)
+                    .expireAfterAccess(10, TimeUnit.MINUTES).build();
+    
     private static Multimap<String,Type<?>> queryFieldsAsDataTypeMap;
     
     private static Multimap<String,Type<?>> normalizedFieldAsDataTypeMap;
@@ -243,6 +271,22 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
     
     protected boolean compressMappings;
     
+    /**
+     * Send the parsed query tree to the iterators along with the query string, see {@link QueryTreeSerializer}
+     */
+    protected boolean serializeQueryTree = false;
+    
+    /**
+     * Order the terms of each conjunction by their estimated cost, see {@link OrderByCostVisitor}
+     */
+    protected boolean orderByCost = false;
+    
+    /**
+     * When ordering by cost, move indexed terms that match more than this many times the entries of the best term of their conjunction to evaluation. A
+     * value of 0 or less never moves terms.
+     */
+    protected double maxIndexCostRatio = -1;
+    
     protected boolean buildQueryModel = true;
     
     protected boolean preloadOptions = false;
@@ -300,6 +344,9 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
         this(other.maxRangesPerQueryPiece, other.limitScanners);
         setRangeStreamClass(other.getRangeStreamClass());
         setCacheDataTypes(other.getCacheDataTypes());
+        setCachePlans(other.getCachePlans());
+        setPlanCacheName(other.getPlanCacheName());
+        setPlannedQueryExpiryMinutes(other.getPlannedQueryExpiryMinutes());
         setDisableAnyFieldLookup(other.disableAnyFieldLookup);
         setDisableBoundedLookup(other.disableBoundedLookup);
         setDisableCompositeFields(other.disableCompositeFields);
@@ -310,6 +357,9 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
         setMetadataHelper(other.getMetadataHelper());
         setDateIndexHelper(other.getDateIndexHelper());
         setCompressOptionMappings(other.compressMappings);
+        setSerializeQueryTree(other.serializeQueryTree);
+        setOrderByCost(other.orderByCost);
+        setMaxIndexCostRatio(other.maxIndexCostRatio);
         buildQueryModel = other.buildQueryModel;
         preloadOptions = other.preloadOptions;
         rangeStreamClass = other.rangeStreamClass;
@@ -370,10 +420,13 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
         ShardQueryConfiguration config = (ShardQueryConfiguration) genericConfig;
         
         // lets mark the query as started (used by ivarators at a minimum)
+        TraceStopwatch stopwatch = config.getTimers().newStartedStopwatch("DefaultQueryPlanner - Mark query started");
         try {
             markQueryStarted(config, settings);
         } catch (Exception e) {
             throw new DatawaveQueryException("Failed to mark query as started" + settings.getId(), e);
+        } finally {
+            stopwatch.stop();
         }
         
         return process(scannerFactory, getMetadataHelper(config), getDateIndexHelper(config), config, query, settings);
@@ -518,6 +571,9 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
         addOption(cfg, QueryOptions.TERM_FREQUENCY_FIELDS, Joiner.on(',').join(config.getQueryTermFrequencyFields()), false);
         addOption(cfg, QueryOptions.TERM_FREQUENCIES_REQUIRED, Boolean.toString(config.isTermFrequenciesRequired()), true);
         addOption(cfg, QueryOptions.QUERY, newQueryString, false);
+        if (serializeQueryTree) {
+            addQueryTreeOption(cfg, newQueryString);
+        }
         addOption(cfg, QueryOptions.QUERY_ID, config.getQuery().getId().toString(), false);
         addOption(cfg, QueryOptions.FULL_TABLE_SCAN_ONLY, Boolean.toString(isFullTable), false);
         addOption(cfg, QueryOptions.TRACK_SIZES, Boolean.toString(config.isTrackSizes()), true);
@@ -710,105 +766,14 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
             throw new DatawaveFatalQueryException("Found incorrectly marked bounded ranges");
         }
         
-        stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - flatten");
-        
-        // flatten the tree
-        queryTree = TreeFlatteningRebuildingVisitor.flatten(queryTree);
-        
-        if (log.isDebugEnabled()) {
-            logQuery(queryTree, "Query after initial flatten:");
-        }
-        
-        stopwatch.stop();
-        
-        validateQuerySize("initial parse", queryTree, config);
-        
-        stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - initial re-write");
-        
-        queryTree = applyRules(queryTree, scannerFactory, metadataHelper, config);
-        
-        if (log.isDebugEnabled()) {
-            logQuery(queryTree, "Query after applying pushdown rules:");
-        }
-        
-        stopwatch.stop();
-        stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Restructure negative numbers");
-        
-        queryTree = FixNegativeNumbersVisitor.fix(queryTree);
-        
-        if (log.isDebugEnabled()) {
-            logQuery(queryTree, "Query after restructuring negative numbers:");
-        }
-        
-        stopwatch.stop();
-        stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Uppercase all field names");
-        
-        // Ensure that all ASTIdentifier nodes (field names) are upper-case, as
-        // this
-        // is enforced at ingest time
-        CaseSensitivityVisitor.upperCaseIdentifiers(config, metadataHelper, queryTree);
-        
-        if (log.isDebugEnabled()) {
-            logQuery(queryTree, "Query after uppercase'ing field names:");
-        }
-        
-        stopwatch.stop();
-        stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Rewrite negated equality operators.");
-        
-        RewriteNegationsVisitor.rewrite(queryTree);
-        if (log.isDebugEnabled()) {
-            logQuery(queryTree, "Query after rewriting negated equality operators:");
-        }
-        
-        stopwatch.stop();
-        stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Apply query model");
-        
-        QueryModel queryModel = null;
-        QueryModelProvider queryModelProvider = this.queryModelProviderFactory.createQueryModelProvider();
-        if (queryModelProvider instanceof MetadataHelperQueryModelProvider) {
-            ((MetadataHelperQueryModelProvider) queryModelProvider).setMetadataHelper(metadataHelper);
-            ((MetadataHelperQueryModelProvider) queryModelProvider).setConfig(config);
-        }
-        queryModel = queryModelProvider.getQueryModel();
-        
-        if (null != queryModel) {
-            queryTree = applyQueryModel(metadataHelper, config, stopwatch, queryTree, queryModel);
-        }
-        
-        if (log.isDebugEnabled()) {
-            logQuery(queryTree, "Query after applying query model:");
-        }
-        
-        stopwatch.stop();
-        
-        // Enforce unique terms within an AND or OR expression.
-        if (config.getEnforceUniqueTermsWithinExpressions()) {
-            stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Enforce unique terms within AND and OR expressions");
-            queryTree = UniqueExpressionTermsVisitor.enforce(queryTree);
-            if (log.isDebugEnabled()) {
-                logQuery(queryTree, "Query after duplicate terms removed from AND and OR expressions:");
-            }
-            stopwatch.stop();
-        }
-        
-        // Enforce unique AND'd terms within OR expressions.
-        if (config.getEnforceUniqueConjunctionsWithinExpression()) {
-            stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Enforce unique AND'd terms within OR expressions");
-            queryTree = ConjunctionEliminationVisitor.optimize(queryTree);
-            if (log.isDebugEnabled()) {
-                logQuery(queryTree, "Query after duplicate AND'd terms remove from OR expressions.");
-            }
-            stopwatch.stop();
-        }
+        QueryModel queryModel = loadQueryModel(metadataHelper, config);
         
-        // Enforce unique OR'd terms within AND expressions.
-        if (config.getEnforceUniqueDisjunctionsWithinExpression()) {
-            stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Enforce unique OR'd terms within AND expressions");
-            queryTree = DisjunctionEliminationVisitor.optimize(queryTree);
-            if (log.isDebugEnabled()) {
-                logQuery(queryTree, "Query after duplicate OR'd terms remove from AND expressions.");
-            }
-            stopwatch.stop();
+        String metadataVersion = null;
+        if (cachePlans) {
+            metadataVersion = getMetadataVersion(metadataHelper, config, queryModel);
+            queryTree = rewriteQueryTreeWithPlanCache(queryTree, scannerFactory, metadataHelper, config, queryModel, metadataVersion);
+        } else {
+            queryTree = rewriteQueryTree(queryTree, scannerFactory, metadataHelper, config, queryModel);
         }
         
         Set<String> indexOnlyFields;
@@ -829,7 +794,11 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
             queryTree = RegexFunctionVisitor.expandRegex(config, metadataHelper, indexOnlyFields, queryTree);
         }
         
-        queryTree = processTree(queryTree, config, settings, metadataHelper, scannerFactory, queryData, timers, queryModel);
+        if (cachePlans) {
+            queryTree = processTreeWithPlanCache(queryTree, config, settings, metadataHelper, scannerFactory, queryData, timers, queryModel, metadataVersion);
+        } else {
+            queryTree = processTree(queryTree, config, settings, metadataHelper, scannerFactory, queryData, timers, queryModel);
+        }
         
         // ExpandCompositeTerms was here
         
@@ -954,6 +923,311 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
         return queryTree;
     }
     
+    /**
+     * Loads the query model for the query, or null if there is none
+     */
+    protected QueryModel loadQueryModel(MetadataHelper metadataHelper, ShardQueryConfiguration config) {
+        TraceStopwatch stopwatch = config.getTimers().newStartedStopwatch("DefaultQueryPlanner - Load query model");
+        
+        QueryModelProvider queryModelProvider = this.queryModelProviderFactory.createQueryModelProvider();
+        if (queryModelProvider instanceof MetadataHelperQueryModelProvider) {
+            ((MetadataHelperQueryModelProvider) queryModelProvider).setMetadataHelper(metadataHelper);
+            ((MetadataHelperQueryModelProvider) queryModelProvider).setConfig(config);
+        }
+        QueryModel queryModel = queryModelProvider.getQueryModel();
+        
+        stopwatch.stop();
+        return queryModel;
+    }
+    
+    /**
+     * Applies the rewrites that do not depend on the index: flattening, the pushdown rules, field name normalization, negation rewriting, the query model and
+     * the unique term enforcement. These are the rewrites cached by the {@link QueryPlanCache}, so none of them may depend on the value of a string literal
+     * that is compared to a field with {@code ==} or {@code !=}.
+     */
+    protected ASTJexlScript rewriteQueryTree(ASTJexlScript queryTree, ScannerFactory scannerFactory, MetadataHelper metadataHelper,
+                    ShardQueryConfiguration config, QueryModel queryModel) {
+        final QueryStopwatch timers = config.getTimers();
+        
+        TraceStopwatch stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - flatten");
+        
+        // flatten the tree
+        queryTree = TreeFlatteningRebuildingVisitor.flatten(queryTree);
+        
+        if (log.isDebugEnabled()) {
+            logQuery(queryTree, "Query after initial flatten:");
+        }
+        
+        stopwatch.stop();
+        
+        validateQuerySize("initial parse", queryTree, config);
+        
+        stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - initial re-write");
+        
+        queryTree = applyRules(queryTree, scannerFactory, metadataHelper, config);
+        
+        if (log.isDebugEnabled()) {
+            logQuery(queryTree, "Query after applying pushdown rules:");
+        }
+        
+        stopwatch.stop();
+        stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Restructure negative numbers");
+        
+        queryTree = FixNegativeNumbersVisitor.fix(queryTree);
+        
+        if (log.isDebugEnabled()) {
+            logQuery(queryTree, "Query after restructuring negative numbers:");
+        }
+        
+        stopwatch.stop();
+        stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Uppercase all field names");
+        
+        // Ensure that all ASTIdentifier nodes (field names) are upper-case, as
+        // this
+        // is enforced at ingest time
+        CaseSensitivityVisitor.upperCaseIdentifiers(config, metadataHelper, queryTree);
+        
+        if (log.isDebugEnabled()) {
+            logQuery(queryTree, "Query after uppercase'ing field names:");
+        }
+        
+        stopwatch.stop();
+        stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Rewrite negated equality operators.");
+        
+        RewriteNegationsVisitor.rewrite(queryTree);
+        if (log.isDebugEnabled()) {
+            logQuery(queryTree, "Query after rewriting negated equality operators:");
+        }
+        
+        stopwatch.stop();
+        stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Apply query model");
+        
+        if (null != queryModel) {
+            queryTree = applyQueryModel(metadataHelper, config, stopwatch, queryTree, queryModel);
+        }
+        
+        if (log.isDebugEnabled()) {
+            logQuery(queryTree, "Query after applying query model:");
+        }
+        
+        stopwatch.stop();
+        
+        // Enforce unique terms within an AND or OR expression.
+        if (config.getEnforceUniqueTermsWithinExpressions()) {
+            stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Enforce unique terms within AND and OR expressions");
+            queryTree = UniqueExpressionTermsVisitor.enforce(queryTree);
+            if (log.isDebugEnabled()) {
+                logQuery(queryTree, "Query after duplicate terms removed from AND and OR expressions:");
+            }
+            stopwatch.stop();
+        }
+        
+        // Enforce unique AND'd terms within OR expressions.
+        if (config.getEnforceUniqueConjunctionsWithinExpression()) {
+            stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Enforce unique AND'd terms within OR expressions");
+            queryTree = ConjunctionEliminationVisitor.optimize(queryTree);
+            if (log.isDebugEnabled()) {
+                logQuery(queryTree, "Query after duplicate AND'd terms remove from OR expressions.");
+            }
+            stopwatch.stop();
+        }
+        
+        // Enforce unique OR'd terms within AND expressions.
+        if (config.getEnforceUniqueDisjunctionsWithinExpression()) {
+            stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Enforce unique OR'd terms within AND expressions");
+            queryTree = DisjunctionEliminationVisitor.optimize(queryTree);
+            if (log.isDebugEnabled()) {
+                logQuery(queryTree, "Query after duplicate OR'd terms remove from AND expressions.");
+            }
+            stopwatch.stop();
+        }
+        
+        return queryTree;
+    }
+    
+    /**
+     * Applies the rewrites of {@link #rewriteQueryTree} through the plan cache. On a miss the rewrites are applied to the parameterized query and the result is
+     * cached for the shape of the query. On a hit the literals of the query are bound into a copy of the cached plan, and only the changes the rewrites make to
+     * the configuration are applied.
+     */
+    protected ASTJexlScript rewriteQueryTreeWithPlanCache(ASTJexlScript queryTree, ScannerFactory scannerFactory, MetadataHelper metadataHelper,
+                    ShardQueryConfiguration config, QueryModel queryModel, String metadataVersion) {
+        TraceStopwatch stopwatch = config.getTimers().newStartedStopwatch("DefaultQueryPlanner - Look up cached plan");
+        
+        QueryPlanCache.ParameterizedQuery parameterized = QueryPlanCache.parameterize(queryTree);
+        QueryPlanCache.PlanKey planKey = createPlanKey(parameterized, config, metadataVersion);
+        ASTJexlScript plan = getQueryPlanCache().get(planKey);
+        
+        stopwatch.stop();
+        
+        if (plan != null) {
+            config.setPlanCacheHit(true);
+            
+            stopwatch = config.getTimers().newStartedStopwatch("DefaultQueryPlanner - Bind literals to cached plan");
+            if (null != queryModel) {
+                remapQueryModelParameters(config, queryModel);
+            }
+            queryTree = parameterized.bind(plan);
+            if (log.isDebugEnabled()) {
+                logQuery(queryTree, "Query after binding literals to the cached plan:");
+            }
+            stopwatch.stop();
+            
+            return queryTree;
+        }
+        
+        config.setPlanCacheHit(false);
+        
+        // the debug logging of the rewrites will show the placeholders instead of the literals
+        plan = rewriteQueryTree(parameterized.getQueryTree(), scannerFactory, metadataHelper, config, queryModel);
+        getQueryPlanCache().put(planKey, plan);
+        return parameterized.bind(plan);
+    }
+    
+    /**
+     * Creates the plan cache key for a query: its shape and everything else that changes the result of {@link #rewriteQueryTree}.
+     */
+    protected QueryPlanCache.PlanKey createPlanKey(QueryPlanCache.ParameterizedQuery parameterized, ShardQueryConfiguration config, String metadataVersion) {
+        Set<String> datatypeFilter = config.getDatatypeFilter() == null ? null : new TreeSet<>(config.getDatatypeFilter());
+        return new QueryPlanCache.PlanKey(parameterized.getShape(), String.valueOf(config.getAuthorizations()), config.getModelTableName() + '/'
+                        + config.getModelName(), String.valueOf(datatypeFilter), metadataVersion, getRewriteOptions(config));
+    }
+    
+    /**
+     * Creates the planned query cache key for a query: the query itself, its date range, and everything else that changes the result of
+     * {@link #processTree}, including the index expansions.
+     */
+    protected QueryPlanCache.PlanKey createPlannedQueryKey(ASTJexlScript queryTree, ShardQueryConfiguration config, String metadataVersion) {
+        StringBuilder plannerOptions = new StringBuilder(getRewriteOptions(config));
+        plannerOptions.append(',').append(disableBoundedLookup).append(',').append(disableAnyFieldLookup).append(',').append(disableCompositeFields);
+        plannerOptions.append(',').append(disableTestNonExistentFields).append(',').append(disableExpandIndexFunction).append(',').append(executableExpansion);
+        plannerOptions.append(',').append(reduceQuery).append(',').append(orderByCost).append(',').append(maxIndexCostRatio);
+        for (NodeTransformRule rule : getTransformRules()) {
+            plannerOptions.append(',').append(rule.getClass().getName());
+        }
+        plannerOptions.append(',').append(config.isExpandFields()).append(',').append(config.isExpandValues()).append(',')
+                        .append(config.isExpandUnfieldedNegations()).append(',').append(config.isExpandAllTerms());
+        plannerOptions.append(',').append(config.getMaxUnfieldedExpansionThreshold()).append(',').append(config.getMaxValueExpansionThreshold());
+        plannerOptions.append(',').append(config.getMaxOrExpansionThreshold()).append(',').append(config.getMaxOrRangeThreshold()).append(',')
+                        .append(config.getMaxOrExpansionFstThreshold());
+        plannerOptions.append(',').append(config.getMinSelectivity()).append(',').append(config.isUseMetadataSketches()).append(',')
+                        .append(config.getMinSketchSelectivity());
+        plannerOptions.append(',').append(config.isIndexOnlyFilterFunctionsEnabled()).append(',').append(config.isCompositeFilterFunctionsEnabled());
+        plannerOptions.append(',').append(config.getIndexHoles()).append(',').append(config.getEvaluationOnlyFields()).append(',')
+                        .append(config.getUniqueFields());
+        
+        String dateRange = (config.getBeginDate() == null ? null : config.getBeginDate().getTime()) + "-"
+                        + (config.getEndDate() == null ? null : config.getEndDate().getTime());
+        Set<String> datatypeFilter = config.getDatatypeFilter() == null ? null : new TreeSet<>(config.getDatatypeFilter());
+        return new QueryPlanCache.PlanKey(JexlStringBuildingVisitor.buildQueryWithoutParse(queryTree), dateRange, String.valueOf(config.getAuthorizations()),
+                        config.getModelTableName() + '/' + config.getModelName(), String.valueOf(datatypeFilter), metadataVersion, plannerOptions.toString());
+    }
+    
+    /**
+     * @return the planner settings that change the result of {@link #rewriteQueryTree}
+     */
+    protected String getRewriteOptions(ShardQueryConfiguration config) {
+        StringBuilder plannerOptions = new StringBuilder();
+        for (PushDownRule rule : rules) {
+            plannerOptions.append(rule.getClass().getName()).append(',');
+        }
+        plannerOptions.append(config.getEnforceUniqueTermsWithinExpressions()).append(',');
+        plannerOptions.append(config.getEnforceUniqueConjunctionsWithinExpression()).append(',');
+        plannerOptions.append(config.getEnforceUniqueDisjunctionsWithinExpression());
+        return plannerOptions.toString();
+    }
+        
+    /**
+     * Computes the version of the metadata of a query for the plan cache keys: a {@link QueryPlanCache.MetadataDigest} of the fields, index settings,
+     * composites and datatypes the planning reads, and of the query model.
+     */
+    protected String getMetadataVersion(MetadataHelper metadataHelper, ShardQueryConfiguration config, QueryModel queryModel) {
+        Set<String> datatypeFilter = config.getDatatypeFilter();
+        QueryPlanCache.MetadataDigest digest = new QueryPlanCache.MetadataDigest();
+        try {
+            digest.add("allFields", metadataHelper.getAllFields(datatypeFilter));
+            digest.add("indexedFields", metadataHelper.getIndexedFields(datatypeFilter));
+            digest.add("reverseIndexedFields", metadataHelper.getReverseIndexedFields(datatypeFilter));
+            digest.add("indexOnlyFields", metadataHelper.getIndexOnlyFields(datatypeFilter));
+            digest.add("nonEventFields", metadataHelper.getNonEventFields(datatypeFilter));
+            digest.add("termFrequencyFields", metadataHelper.getTermFrequencyFields(datatypeFilter));
+            digest.add("expansionFields", metadataHelper.getExpansionFields(datatypeFilter));
+            digest.add("compositeToFieldMap", metadataHelper.getCompositeToFieldMap(datatypeFilter));
+            digest.add("compositeFieldSeparators", metadataHelper.getCompositeFieldSeparatorMap(datatypeFilter));
+            
+            Map<String,Date> compositeTransitionDates = metadataHelper.getCompositeTransitionDateMap(datatypeFilter);
+            Set<String> transitions = new HashSet<>();
+            for (Entry<String,Date> entry : compositeTransitionDates.entrySet()) {
+                transitions.add(entry.getKey() + '=' + (entry.getValue() == null ? null : entry.getValue().getTime()));
+            }
+            digest.add("compositeTransitionDates", transitions);
+            
+            Set<String> datatypes = new HashSet<>();
+            for (Entry<String,Type<?>> entry : metadataHelper.getFieldsToDatatypes(datatypeFilter).entries()) {
+                datatypes.add(entry.getKey() + '=' + entry.getValue().getClass().getName());
+            }
+            digest.add("fieldsToDatatypes", datatypes);
+        } catch (TableNotFoundException | InstantiationException | IllegalAccessException e) {
+            QueryException qe = new QueryException(DatawaveErrorCode.FIELD_FETCH_ERROR, e);
+            throw new DatawaveFatalQueryException(qe);
+        }
+        if (null != queryModel) {
+            digest.add("forwardQueryMapping", queryModel.getForwardQueryMapping());
+            digest.add("reverseQueryMapping", queryModel.getReverseQueryMapping());
+        }
+        return digest.digest();
+    }
+    
+    /**
+     * Applies {@link #processTree} through the planned query cache. On a miss the tree is processed and the result is cached, unless the date range of the
+     * query reaches into the days whose index is still being ingested, see {@link IndexExpansionCache#isCacheable}. On a hit the settings that processing
+     * makes on the configuration are applied to it, and a copy of the cached tree is returned.
+     */
+    protected ASTJexlScript processTreeWithPlanCache(ASTJexlScript queryTree, ShardQueryConfiguration config, Query settings, MetadataHelper metadataHelper,
+                    ScannerFactory scannerFactory, QueryData queryData, QueryStopwatch timers, QueryModel queryModel, String metadataVersion)
+                    throws DatawaveQueryException {
+        if (config.getEndDate() == null || !IndexLookup.getExpansionCache().isCacheable(DateHelper.format(config.getEndDate()))) {
+            return processTree(queryTree, config, settings, metadataHelper, scannerFactory, queryData, timers, queryModel);
+        }
+        
+        TraceStopwatch stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Look up planned query");
+        
+        QueryPlanCache.PlanKey plannedKey = createPlannedQueryKey(queryTree, config, metadataVersion);
+        QueryPlanCache.PlannedQuery planned = getQueryPlanCache().getPlanned(plannedKey);
+        if (planned != null) {
+            queryTree = planned.apply(config);
+            if (log.isDebugEnabled()) {
+                logQuery(queryTree, "Query from the cached planned query:");
+            }
+            stopwatch.stop();
+            return queryTree;
+        }
+        
+        stopwatch.stop();
+        
+        queryTree = processTree(queryTree, config, settings, metadataHelper, scannerFactory, queryData, timers, queryModel);
+        getQueryPlanCache().putPlanned(plannedKey, new QueryPlanCache.PlannedQuery(queryTree, config));
+        return queryTree;
+    }
+    
+    /**
+     * @return the plan cache of this planner's query logic
+     */
+    protected QueryPlanCache getQueryPlanCache() {
+        String name = planCacheName == null ? "" : planCacheName;
+        return queryPlanCaches.computeIfAbsent(name, k -> new QueryPlanCache(QueryPlanCache.DEFAULT_MAX_SIZE, TimeUnit.HOURS.toMillis(24),
+                        TimeUnit.MINUTES.toMillis(plannedQueryExpiryMinutes), TimeUnit.MILLISECONDS));
+    }
+    
+    /**
+     * Drops every cached plan of every query logic, for example when the metadata has changed
+     */
+    public static void invalidatePlanCache() {
+        for (QueryPlanCache cache : queryPlanCaches.values()) {
+            cache.invalidateAll();
+        }
+    }
+    
     protected ASTJexlScript processTree(final ASTJexlScript originalQueryTree, ShardQueryConfiguration config, Query settings, MetadataHelper metadataHelper,
                     ScannerFactory scannerFactory, QueryData queryData, QueryStopwatch timers, QueryModel queryModel) throws DatawaveQueryException {
         ASTJexlScript queryTree = originalQueryTree;
@@ -1180,7 +1454,8 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
         Set<String> indexedFields = null;
         Set<String> indexOnlyFields = null;
         Set<String> nonEventFields = null;
-        if (config.getMinSelectivity() > 0 || !disableBoundedLookup) {
+        boolean pushdownLowSelectivity = config.getMinSelectivity() > 0 || (config.isUseMetadataSketches() && config.getMinSketchSelectivity() > 0);
+        if (pushdownLowSelectivity || !disableBoundedLookup || orderByCost) {
             try {
                 indexedFields = metadataHelper.getIndexedFields(config.getDatatypeFilter());
                 indexOnlyFields = metadataHelper.getIndexOnlyFields(config.getDatatypeFilter());
@@ -1195,7 +1470,7 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
         queryTree = applyNodeTransformRules(queryTree, getTransformRules(), config, metadataHelper, "Pre pushdown-pullup");
         
         // push down terms that are over the min selectivity
-        if (config.getMinSelectivity() > 0) {
+        if (pushdownLowSelectivity) {
             stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Pushdown Low-Selective Terms");
             
             queryTree = PushdownLowSelectivityNodesVisitor.pushdownLowSelectiveTerms(queryTree, config, metadataHelper);
@@ -1419,6 +1694,18 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
             }
         }
         
+        if (orderByCost) {
+            stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Order terms by cost");
+            
+            queryTree = OrderByCostVisitor.order(queryTree, config, metadataHelper, indexedFields, indexOnlyFields, maxIndexCostRatio);
+            if (log.isDebugEnabled()) {
+                logQuery(queryTree, "Query after ordering terms by cost:");
+                logDebug(config.getPlanDecisions(), "Plan decisions:");
+            }
+            
+            stopwatch.stop();
+        }
+        
         return queryTree;
     }
     
@@ -1467,6 +1754,56 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
     // being used
     protected ASTJexlScript applyQueryModel(MetadataHelper metadataHelper, ShardQueryConfiguration config, TraceStopwatch stopwatch, ASTJexlScript queryTree,
                     QueryModel queryModel) {
+        remapQueryModelParameters(config, queryModel);
+        
+        Set<String> dataTypes = config.getDatatypeFilter();
+        Set<String> allFields = null;
+        try {
+            String dataTypeHash = String.valueOf(dataTypes.hashCode());
+            if (cacheDataTypes) {
+                allFields = allFieldTypeMap.getIfPresent(dataTypeHash);
+            }
+            if (null == allFields) {
+                allFields = metadataHelper.getAllFields(dataTypes);
+                if (cacheDataTypes)
+                    allFieldTypeMap.put(dataTypeHash, allFields);
+            }
+            
+            if (log.isTraceEnabled()) {
+                StringBuilder builder = new StringBuilder();
+                for (String dataType : dataTypes) {
+                    if (builder.length() > 0) {
+                        builder.append(',');
+                    }
+                    builder.append(dataType);
+                }
+                log.trace("Datatypes: " + builder);
+                builder.delete(0, builder.length());
+                
+                for (String field : allFields) {
+                    if (builder.length() > 0) {
+                        builder.append(',');
+                    }
+                    builder.append(field);
+                }
+                log.trace("allFields: " + builder);
+            }
+        } catch (TableNotFoundException e) {
+            stopwatch.stop();
+            QueryException qe = new QueryException(DatawaveErrorCode.FIELD_FETCH_ERROR, e);
+            log.error(qe);
+            throw new DatawaveFatalQueryException(qe);
+        }
+        queryTree = QueryModelVisitor.applyModel(queryTree, queryModel, allFields);
+        if (log.isTraceEnabled())
+            log.trace("queryTree:" + PrintingVisitor.formattedQueryString(queryTree));
+        return queryTree;
+    }
+    
+    /**
+     * Remaps the projection, grouping, unique, blacklisted and limit fields of the query through the query model
+     */
+    protected void remapQueryModelParameters(ShardQueryConfiguration config, QueryModel queryModel) {
         // generate the inverse of the reverse mapping; {display field name
         // => db field name}
         // a reverse mapping is always many to one, therefore the inverted
@@ -1520,49 +1857,6 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
             }
             config.setLimitFields(Sets.newHashSet(limitFields));
         }
-        
-        Set<String> dataTypes = config.getDatatypeFilter();
-        Set<String> allFields = null;
-        try {
-            String dataTypeHash = String.valueOf(dataTypes.hashCode());
-            if (cacheDataTypes) {
-                allFields = allFieldTypeMap.getIfPresent(dataTypeHash);
-            }
-            if (null == allFields) {
-                allFields = metadataHelper.getAllFields(dataTypes);
-                if (cacheDataTypes)
-                    allFieldTypeMap.put(dataTypeHash, allFields);
-            }
-            
-            if (log.isTraceEnabled()) {
-                StringBuilder builder = new StringBuilder();
-                for (String dataType : dataTypes) {
-                    if (builder.length() > 0) {
-                        builder.append(',');
-                    }
-                    builder.append(dataType);
-                }
-                log.trace("Datatypes: " + builder);
-                builder.delete(0, builder.length());
-                
-                for (String field : allFields) {
-                    if (builder.length() > 0) {
-                        builder.append(',');
-                    }
-                    builder.append(field);
-                }
-                log.trace("allFields: " + builder);
-            }
-        } catch (TableNotFoundException e) {
-            stopwatch.stop();
-            QueryException qe = new QueryException(DatawaveErrorCode.FIELD_FETCH_ERROR, e);
-            log.error(qe);
-            throw new DatawaveFatalQueryException(qe);
-        }
-        queryTree = QueryModelVisitor.applyModel(queryTree, queryModel, allFields);
-        if (log.isTraceEnabled())
-            log.trace("queryTree:" + PrintingVisitor.formattedQueryString(queryTree));
-        return queryTree;
     }
     
     /**
@@ -1668,6 +1962,8 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
             // get all of the fields used for this date type
             DateIndexHelper.DateTypeDescription dateIndexData = dateIndexHelper.getTypeDescription(dateType, config.getBeginDate(), config.getEndDate(),
                             config.getDatatypeFilter());
+            config.setDateIndexCacheHits(dateIndexData.getCachedDays());
+            config.setDateIndexCacheMisses(dateIndexData.getScannedDays());
             if (dateIndexData.getFields().isEmpty()) {
                 log.warn("The specified date type: " + dateType + " is unknown for the specified data types");
                 // If this is the case, then essentially we have no dates to search. Adding the filter function with _NO_FIELD_ will have the desired effect.
@@ -1825,6 +2121,7 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
                         if (config.getZookeeperConfig() != null) {
                             addOption(cfg, QueryOptions.ZOOKEEPER_CONFIG, config.getZookeeperConfig(), false);
                         }
+                        addOption(cfg, QueryOptions.QUERY_LOCK_LEASE, Long.toString(config.getQueryLockLease()), false);
                         if (config.getIvaratorCacheDirConfigs() != null && !config.getIvaratorCacheDirConfigs().isEmpty()) {
                             addOption(cfg, QueryOptions.IVARATOR_CACHE_DIR_CONFIG, IvaratorCacheDirConfig.toJson(getShuffledIvaratoCacheDirConfigs(config)),
                                             false);
@@ -1968,6 +2265,30 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
         
     }
     
+    /**
+     * Sets the serialized tree of a query, replacing the tree of a previous query. If the query does not parse then the option is removed, and the iterator
+     * will report the failure when it parses the query itself. The same query string is set for many query plans and settings, so each is only parsed and
+     * serialized once.
+     *
+     * @param cfg
+     *            the iterator setting
+     * @param query
+     *            the query string of the setting
+     */
+    public static void addQueryTreeOption(IteratorSetting cfg, String query) {
+        try {
+            String queryTree = queryTreeOptions.getIfPresent(query);
+            if (queryTree == null) {
+                queryTree = QueryTreeSerializer.encode(query);
+                queryTreeOptions.put(query, queryTree);
+            }
+            cfg.addOption(QueryOptions.QUERY_TREE, queryTree);
+        } catch (ParseException e) {
+            log.warn("Could not serialize the query tree of " + query, e);
+            cfg.removeOption(QueryOptions.QUERY_TREE);
+        }
+    }
+    
     public static void addOption(IteratorSetting cfg, String option, String value, boolean allowBlankValue) {
         if (StringUtils.isNotBlank(option) && (allowBlankValue || StringUtils.isNotBlank(value))) {
             // If blank value, then we need to change it to something else or it
@@ -2318,6 +2639,34 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
         this.cacheDataTypes = cacheDataTypes;
     }
     
+    public boolean getCachePlans() {
+        return cachePlans;
+    }
+    
+    public void setCachePlans(boolean cachePlans) {
+        this.cachePlans = cachePlans;
+    }
+    
+    public String getPlanCacheName() {
+        return planCacheName;
+    }
+    
+    public void setPlanCacheName(String planCacheName) {
+        this.planCacheName = planCacheName;
+    }
+    
+    public long getPlannedQueryExpiryMinutes() {
+        return plannedQueryExpiryMinutes;
+    }
+    
+    /**
+     * @param plannedQueryExpiryMinutes
+     *            how long a planned query is cached, which takes effect when the plan cache of the query logic is first created
+     */
+    public void setPlannedQueryExpiryMinutes(long plannedQueryExpiryMinutes) {
+        this.plannedQueryExpiryMinutes = plannedQueryExpiryMinutes;
+    }
+    
     private Multimap<String,String> invertMultimap(Map<String,String> multi) {
         Multimap<String,String> inverse = HashMultimap.create();
         for (Entry<String,String> entry : multi.entrySet()) {
@@ -2367,6 +2716,30 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
         return compressMappings;
     }
     
+    public boolean isSerializeQueryTree() {
+        return serializeQueryTree;
+    }
+    
+    public void setSerializeQueryTree(boolean serializeQueryTree) {
+        this.serializeQueryTree = serializeQueryTree;
+    }
+    
+    public boolean isOrderByCost() {
+        return orderByCost;
+    }
+    
+    public void setOrderByCost(boolean orderByCost) {
+        this.orderByCost = orderByCost;
+    }
+    
+    public double getMaxIndexCostRatio() {
+        return maxIndexCostRatio;
+    }
+    
+    public void setMaxIndexCostRatio(double maxIndexCostRatio) {
+        this.maxIndexCostRatio = maxIndexCostRatio;
+    }
+    
     /*
      * 
      * (non-Javadoc)
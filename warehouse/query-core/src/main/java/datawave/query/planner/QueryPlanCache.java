@@ -0,0 +1,454 @@
+package datawave.query.planner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import datawave.data.type.DiscreteIndexType;
+import datawave.data.type.Type;
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.jexl.JexlASTHelper;
+import datawave.query.jexl.visitors.JexlStringBuildingVisitor;
+import datawave.query.jexl.visitors.RebuildingVisitor;
+import org.apache.commons.jexl2.parser.ASTEQNode;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.ASTNENode;
+import org.apache.commons.jexl2.parser.ASTStringLiteral;
+import org.apache.commons.jexl2.parser.JexlNode;
+import org.apache.commons.jexl2.parser.JexlNodes;
+import org.apache.log4j.Logger;
+
+/**
+ * A cache of the rewrites that the {@link DefaultQueryPlanner} applies to a query before any index lookups: flattening, the pushdown rules, field name
+ * normalization, negation rewriting, the query model and the unique term enforcement. None of those rewrites look at the value of a string literal compared
+ * to a field with {@code ==} or {@code !=}, so queries that only differ in those values share a plan.
+ * <p>
+ * A query is first {@link #parameterize(ASTJexlScript) parameterized}: each distinct equality literal is replaced by a placeholder, and the resulting query
+ * string is the shape of the query. The planner rewrites the parameterized tree once and caches it under a {@link PlanKey} of the shape plus everything else
+ * those rewrites depend on. Later queries with the same key {@link ParameterizedQuery#bind(ASTJexlScript) bind} their literals into a copy of the cached
+ * tree.
+ * <p>
+ * The index dependent steps (regex and range expansion, normalization, composites, executability) depend on the literal values, so they are cached separately
+ * as a {@link PlannedQuery} under a key of the exact query and its date range. The planner only caches them for date ranges whose index is no longer being
+ * ingested, and planned queries expire after a few minutes instead of a day, which bounds how stale they can be after late data or an age off.
+ * <p>
+ * Both keys carry a {@link MetadataDigest} of the metadata the planning reads, so a change to the metadata is never served a stale plan, even before the
+ * caches are invalidated.
+ */
+public class QueryPlanCache {
+    private static final Logger log = Logger.getLogger(QueryPlanCache.class);
+    
+    public static final int DEFAULT_MAX_SIZE = 1000;
+    public static final long DEFAULT_PLANNED_EXPIRY_MINUTES = 5;
+    
+    private static final char PLACEHOLDER_DELIMITER = '\uE000';
+    
+    private final Cache<PlanKey,ASTJexlScript> plans;
+    private final Cache<PlanKey,PlannedQuery> plannedQueries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong plannedHits = new AtomicLong();
+    private final AtomicLong plannedMisses = new AtomicLong();
+    
+    public QueryPlanCache() {
+        this(DEFAULT_MAX_SIZE, TimeUnit.HOURS.toMillis(24), TimeUnit.MINUTES.toMillis(DEFAULT_PLANNED_EXPIRY_MINUTES), TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * @param maxSize
+     *            the maximum number of entries of each cache
+     * @param expireAfterAccess
+     *            how long a rewritten plan is kept after it was last used
+     * @param plannedExpireAfterWrite
+     *            how long a planned query is kept after it was planned, which bounds how stale its index expansions may be
+     * @param unit
+     *            the unit of both times
+     */
+    public QueryPlanCache(int maxSize, long expireAfterAccess, long plannedExpireAfterWrite, TimeUnit unit) {
+        plans = CacheBuilder.newBuilder().maximumSize(maxSize).concurrencyLevel(100).expireAfterAccess(expireAfterAccess, unit).build();
+        plannedQueries = CacheBuilder.newBuilder().maximumSize(maxSize).concurrencyLevel(100).expireAfterWrite(plannedExpireAfterWrite, unit).build();
+    }
+    
+    /**
+     * @return the cached plan for the key, which must be bound before it is used, or null if there is none
+     */
+    public ASTJexlScript get(PlanKey key) {
+        ASTJexlScript plan = plans.getIfPresent(key);
+        if (plan == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Plan cache " + (plan == null ? "miss" : "hit") + " for " + key.getShape() + " (" + hits.get() + " hits, " + misses.get() + " misses)");
+        }
+        return plan;
+    }
+    
+    /**
+     * Caches a plan of a parameterized query. The plan is shared between queries and must not be modified afterwards.
+     */
+    public void put(PlanKey key, ASTJexlScript plan) {
+        plans.put(key, plan);
+    }
+    
+    /**
+     * @return the planned query for the key, which may be applied to any number of configurations, or null if there is none
+     */
+    public PlannedQuery getPlanned(PlanKey key) {
+        PlannedQuery planned = plannedQueries.getIfPresent(key);
+        if (planned == null) {
+            plannedMisses.incrementAndGet();
+        } else {
+            plannedHits.incrementAndGet();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Planned query cache " + (planned == null ? "miss" : "hit") + " for " + key.getShape() + " (" + plannedHits.get() + " hits, "
+                            + plannedMisses.get() + " misses)");
+        }
+        return planned;
+    }
+    
+    public void putPlanned(PlanKey key, PlannedQuery planned) {
+        plannedQueries.put(key, planned);
+    }
+    
+    /**
+     * Drops every cached plan and planned query, for example when the metadata has changed
+     */
+    public void invalidateAll() {
+        plans.invalidateAll();
+        plannedQueries.invalidateAll();
+    }
+    
+    public long size() {
+        return plans.size();
+    }
+    
+    public long plannedSize() {
+        return plannedQueries.size();
+    }
+    
+    public long getHitCount() {
+        return hits.get();
+    }
+    
+    public long getMissCount() {
+        return misses.get();
+    }
+    
+    public long getPlannedHitCount() {
+        return plannedHits.get();
+    }
+    
+    public long getPlannedMissCount() {
+        return plannedMisses.get();
+    }
+    
+    /**
+     * Replaces the string literals of the equality and inequality nodes in a copy of the query tree with placeholders. Equal literals share a placeholder, so
+     * rewrites that compare terms see the same duplicates in the parameterized tree as in the original one.
+     *
+     * @param queryTree
+     *            the query tree, which is not modified
+     * @return the parameterized query
+     */
+    public static ParameterizedQuery parameterize(ASTJexlScript queryTree) {
+        ASTJexlScript copy = (ASTJexlScript) RebuildingVisitor.copy(queryTree);
+        Map<String,String> placeholders = new HashMap<>();
+        List<String> literals = new ArrayList<>();
+        parameterize(copy, placeholders, literals);
+        return new ParameterizedQuery(copy, JexlStringBuildingVisitor.buildQueryWithoutParse(copy), literals);
+    }
+    
+    private static void parameterize(JexlNode node, Map<String,String> placeholders, List<String> literals) {
+        if (node instanceof ASTEQNode || node instanceof ASTNENode) {
+            JexlASTHelper.IdentifierOpLiteral op = JexlASTHelper.getIdentifierOpLiteral(node);
+            if (op != null && op.getLiteral() instanceof ASTStringLiteral) {
+                ASTStringLiteral literal = (ASTStringLiteral) op.getLiteral();
+                String placeholder = placeholders.get(literal.image);
+                if (placeholder == null) {
+                    placeholder = PLACEHOLDER_DELIMITER + Integer.toString(literals.size()) + PLACEHOLDER_DELIMITER;
+                    placeholders.put(literal.image, placeholder);
+                    literals.add(literal.image);
+                }
+                JexlNodes.setLiteral(literal, placeholder);
+            }
+            return;
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            parameterize(node.jjtGetChild(i), placeholders, literals);
+        }
+    }
+    
+    private static void bind(JexlNode node, List<String> literals) {
+        if (node instanceof ASTStringLiteral) {
+            String image = ((ASTStringLiteral) node).image;
+            if (image != null && image.length() > 2 && image.charAt(0) == PLACEHOLDER_DELIMITER && image.charAt(image.length() - 1) == PLACEHOLDER_DELIMITER) {
+                int index = Integer.parseInt(image.substring(1, image.length() - 1));
+                JexlNodes.setLiteral((ASTStringLiteral) node, literals.get(index));
+            }
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            bind(node.jjtGetChild(i), literals);
+        }
+    }
+    
+    /**
+     * A query tree with its equality literals replaced by placeholders
+     */
+    public static class ParameterizedQuery {
+        private final ASTJexlScript queryTree;
+        private final String shape;
+        private final List<String> literals;
+        
+        ParameterizedQuery(ASTJexlScript queryTree, String shape, List<String> literals) {
+            this.queryTree = queryTree;
+            this.shape = shape;
+            this.literals = Collections.unmodifiableList(literals);
+        }
+        
+        /**
+         * @return the parameterized tree, which may be rewritten into a plan for this shape
+         */
+        public ASTJexlScript getQueryTree() {
+            return queryTree;
+        }
+        
+        /**
+         * @return the query string of the parameterized tree
+         */
+        public String getShape() {
+            return shape;
+        }
+        
+        public List<String> getLiterals() {
+            return literals;
+        }
+        
+        /**
+         * @param plan
+         *            a plan of this shape, which is not modified
+         * @return a copy of the plan with the literals of this query in place of the placeholders
+         */
+        public ASTJexlScript bind(ASTJexlScript plan) {
+            ASTJexlScript copy = (ASTJexlScript) RebuildingVisitor.copy(plan);
+            QueryPlanCache.bind(copy, literals);
+            return copy;
+        }
+    }
+    
+    /**
+     * The shape of a query, or the query itself for a planned query, plus everything the cached plan depends on
+     */
+    public static class PlanKey {
+        private final String shape;
+        private final String dateRange;
+        private final String authorizations;
+        private final String model;
+        private final String datatypeFilter;
+        private final String metadataVersion;
+        private final String plannerOptions;
+        
+        /**
+         * A key of the rewrites, which do not depend on the date range of the query
+         */
+        public PlanKey(String shape, String authorizations, String model, String datatypeFilter, String metadataVersion, String plannerOptions) {
+            this(shape, null, authorizations, model, datatypeFilter, metadataVersion, plannerOptions);
+        }
+        
+        /**
+         * @param shape
+         *            the shape of the parameterized query, or the query for a planned query
+         * @param dateRange
+         *            the date range of a planned query, whose index expansions depend on it
+         * @param authorizations
+         *            the authorizations of the query, which determine the visible metadata
+         * @param model
+         *            the query model name and table
+         * @param datatypeFilter
+         *            the datatype filter of the query
+         * @param metadataVersion
+         *            a {@link MetadataDigest} of the metadata the planning reads
+         * @param plannerOptions
+         *            the planner settings that change the plan
+         */
+        public PlanKey(String shape, String dateRange, String authorizations, String model, String datatypeFilter, String metadataVersion,
+                        String plannerOptions) {
+            this.shape = shape;
+            this.dateRange = dateRange;
+            this.authorizations = authorizations;
+            this.model = model;
+            this.datatypeFilter = datatypeFilter;
+            this.metadataVersion = metadataVersion;
+            this.plannerOptions = plannerOptions;
+        }
+        
+        public String getShape() {
+            return shape;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PlanKey)) {
+                return false;
+            }
+            PlanKey other = (PlanKey) o;
+            return shape.equals(other.shape) && Objects.equals(metadataVersion, other.metadataVersion) && Objects.equals(dateRange, other.dateRange)
+                            && Objects.equals(authorizations, other.authorizations) && Objects.equals(model, other.model)
+                            && Objects.equals(datatypeFilter, other.datatypeFilter) && Objects.equals(plannerOptions, other.plannerOptions);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(shape, dateRange, authorizations, model, datatypeFilter, metadataVersion, plannerOptions);
+        }
+        
+        @Override
+        public String toString() {
+            return "PlanKey [shape=" + shape + ", dateRange=" + dateRange + ", authorizations=" + authorizations + ", model=" + model + ", datatypeFilter="
+                            + datatypeFilter + ", metadataVersion=" + metadataVersion + ", plannerOptions=" + plannerOptions + "]";
+        }
+    }
+    
+    /**
+     * A query tree after the index dependent processing of the {@link DefaultQueryPlanner}, including the index expansions, with the settings that processing
+     * made on the configuration. The tree and the settings are copied in and out, so a planned query is never shared with a query.
+     */
+    public static class PlannedQuery {
+        private final ASTJexlScript queryTree;
+        private final Set<String> indexedFields;
+        private final Set<String> reverseIndexedFields;
+        private final Multimap<String,Type<?>> queryFieldsDatatypes;
+        private final Multimap<String,Type<?>> normalizedFieldsDatatypes;
+        private final Multimap<String,String> compositeToFieldMap;
+        private final Map<String,Date> compositeTransitionDates;
+        private final Map<String,String> compositeFieldSeparators;
+        private final Map<String,DiscreteIndexType<?>> fieldToDiscreteIndexTypes;
+        private final List<String> planDecisions;
+        
+        /**
+         * @param queryTree
+         *            the planned query tree, which is not modified
+         * @param config
+         *            the configuration the query was planned with
+         */
+        public PlannedQuery(ASTJexlScript queryTree, ShardQueryConfiguration config) {
+            this.queryTree = (ASTJexlScript) RebuildingVisitor.copy(queryTree);
+            this.indexedFields = copy(config.getIndexedFields());
+            this.reverseIndexedFields = copy(config.getReverseIndexedFields());
+            this.queryFieldsDatatypes = copy(config.getQueryFieldsDatatypes());
+            this.normalizedFieldsDatatypes = copy(config.getNormalizedFieldsDatatypes());
+            this.compositeToFieldMap = copy(config.getCompositeToFieldMap());
+            this.compositeTransitionDates = copy(config.getCompositeTransitionDates());
+            this.compositeFieldSeparators = copy(config.getCompositeFieldSeparators());
+            this.fieldToDiscreteIndexTypes = copy(config.getFieldToDiscreteIndexTypes());
+            this.planDecisions = config.getPlanDecisions() == null ? null : new ArrayList<>(config.getPlanDecisions());
+        }
+        
+        /**
+         * Makes the settings of the processing on a configuration
+         *
+         * @param config
+         *            the configuration of a query with the same key
+         * @return a copy of the planned query tree
+         */
+        public ASTJexlScript apply(ShardQueryConfiguration config) {
+            config.setIndexedFields(copy(indexedFields));
+            config.setReverseIndexedFields(copy(reverseIndexedFields));
+            config.setQueryFieldsDatatypes(copy(queryFieldsDatatypes));
+            config.setNormalizedFieldsDatatypes(copy(normalizedFieldsDatatypes));
+            config.setCompositeToFieldMap(copy(compositeToFieldMap));
+            config.setCompositeTransitionDates(copy(compositeTransitionDates));
+            config.setCompositeFieldSeparators(copy(compositeFieldSeparators));
+            config.setFieldToDiscreteIndexTypes(copy(fieldToDiscreteIndexTypes));
+            config.setPlanDecisions(planDecisions == null ? null : new ArrayList<>(planDecisions));
+            return (ASTJexlScript) RebuildingVisitor.copy(queryTree);
+        }
+        
+        private static <T> Set<T> copy(Set<T> set) {
+            return set == null ? null : new HashSet<>(set);
+        }
+        
+        private static <K,V> Multimap<K,V> copy(Multimap<K,V> multimap) {
+            return multimap == null ? null : HashMultimap.create(multimap);
+        }
+        
+        private static <K,V> Map<K,V> copy(Map<K,V> map) {
+            return map == null ? null : new HashMap<>(map);
+        }
+    }
+    
+    /**
+     * A SHA-256 digest of the metadata a plan was made with. Each part is named and its values are sorted, so two digests are equal exactly when the same
+     * metadata went into them, whatever order it was read in.
+     */
+    public static class MetadataDigest {
+        private final Hasher hasher = Hashing.sha256().newHasher();
+        
+        /**
+         * @param name
+         *            the name of the part of the metadata
+         * @param values
+         *            the values of the part, which may be null
+         * @return this digest
+         */
+        public MetadataDigest add(String name, Collection<?> values) {
+            hasher.putString(name, StandardCharsets.UTF_8).putChar('\0');
+            if (values == null) {
+                hasher.putChar('\2');
+                return this;
+            }
+            List<String> sorted = new ArrayList<>(values.size());
+            for (Object value : values) {
+                sorted.add(String.valueOf(value));
+            }
+            Collections.sort(sorted);
+            for (String value : sorted) {
+                hasher.putString(value, StandardCharsets.UTF_8).putChar('\0');
+            }
+            hasher.putChar('\1');
+            return this;
+        }
+        
+        /**
+         * Adds the entries of a map as {@code key=value} values
+         */
+        public MetadataDigest add(String name, Map<?,?> map) {
+            return add(name, map == null ? null : map.entrySet());
+        }
+        
+        /**
+         * Adds the entries of a multimap as {@code key=value} values
+         */
+        public MetadataDigest add(String name, Multimap<?,?> multimap) {
+            return add(name, multimap == null ? null : multimap.entries());
+        }
+        
+        /**
+         * @return the hex digest, after which nothing more may be added
+         */
+        public String digest() {
+            return hasher.hash().toString();
+        }
+    }
+}
@@ -10,17 +10,20 @@ public class SeekingQueryPlanner extends DefaultQueryPlanner {
     public static final String MAX_FIELD_HITS_BEFORE_SEEK = "SeekingFilter.maxFieldHitsBeforeSeek";
     public static final String MAX_KEYS_BEFORE_SEEK = "SeekingFilter.maxKeysBeforeSeek";
     public static final String MAX_KEYS_BEFORE_DATATYPE_SEEK = "SeekingFilter.maxKeysBeforeDataTypeSeek";
+    public static final String TLD_SEEK_PLANNER = "SeekingFilter.tldSeekPlanner";
     
     // default to disabled
     private int maxFieldsBeforeSeek = -1;
     private int maxKeysBeforeSeek = -1;
     private int maxKeysBeforeDataTypeSeek = -1;
+    private boolean tldSeekPlanner = false;
     
     @Override
     protected void configureAdditionalOptions(ShardQueryConfiguration config, IteratorSetting cfg) {
         addOption(cfg, MAX_FIELD_HITS_BEFORE_SEEK, Integer.toString(maxFieldsBeforeSeek), false);
         addOption(cfg, MAX_KEYS_BEFORE_SEEK, Integer.toString(maxKeysBeforeSeek), false);
         addOption(cfg, MAX_KEYS_BEFORE_DATATYPE_SEEK, Integer.toString(maxKeysBeforeDataTypeSeek), false);
+        addOption(cfg, TLD_SEEK_PLANNER, Boolean.toString(tldSeekPlanner), false);
     }
     
     @Override
@@ -29,6 +32,7 @@ public class SeekingQueryPlanner extends DefaultQueryPlanner {
         clone.setMaxFieldHitsBeforeSeek(maxFieldsBeforeSeek);
         clone.setMaxKeysBeforeSeek(maxKeysBeforeSeek);
         clone.setMaxKeysBeforeDataTypeSeek(maxKeysBeforeDataTypeSeek);
+        clone.setTldSeekPlanner(tldSeekPlanner);
         
         return clone;
     }
@@ -44,4 +48,12 @@ public class SeekingQueryPlanner extends DefaultQueryPlanner {
     public void setMaxKeysBeforeDataTypeSeek(int maxKeysBeforeDataTypeSeek) {
         this.maxKeysBeforeDataTypeSeek = maxKeysBeforeDataTypeSeek;
     }
+    
+    /**
+     * @param tldSeekPlanner
+     *            true to let a {@link datawave.query.tld.TLDSeekPlanner} decide when to seek within the children of a TLD document instead of the thresholds
+     */
+    public void setTldSeekPlanner(boolean tldSeekPlanner) {
+        this.tldSeekPlanner = tldSeekPlanner;
+    }
 }
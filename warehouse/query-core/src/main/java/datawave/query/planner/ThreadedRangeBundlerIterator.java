@@ -455,6 +455,11 @@ public class ThreadedRangeBundlerIterator implements Iterator<QueryData>, Closea
                 } else
                     newSetting.addOption(QueryOptions.QUERY, queryString);
                 
+                // the tree was serialized for the query of the original setting, so it only needs replacing when the query has changed
+                if (newSetting.getOptions().containsKey(QueryOptions.QUERY_TREE)
+                                && !newSetting.getOptions().get(QueryOptions.QUERY).equals(setting.getOptions().get(QueryOptions.QUERY))) {
+                    DefaultQueryPlanner.addQueryTreeOption(newSetting, newSetting.getOptions().get(QueryOptions.QUERY));
+                }
             }
             settings.add(newSetting);
         }
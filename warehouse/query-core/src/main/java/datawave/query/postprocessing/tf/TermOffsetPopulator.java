@@ -14,8 +14,7 @@ import java.util.Set;
 import datawave.core.iterators.TermFrequencyIterator;
 import datawave.data.type.NoOpType;
 import datawave.data.type.Type;
-import datawave.ingest.protobuf.TermWeight;
-import datawave.ingest.protobuf.TermWeightPosition;
+import datawave.ingest.protobuf.TermWeightColumns;
 import datawave.query.jexl.functions.TermFrequencyList;
 import datawave.query.predicate.EventDataQueryFilter;
 import datawave.query.Constants;
@@ -40,7 +39,6 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.Sets;
-import com.google.common.collect.TreeMultimap;
 import com.google.protobuf.InvalidProtocolBufferException;
 
 public class TermOffsetPopulator {
@@ -192,36 +190,29 @@ public class TermOffsetPopulator {
             
             this.document.put(fv.getField(), attr);
             
-            TreeMultimap<TermFrequencyList.Zone,TermWeightPosition> offsets = TreeMultimap.create();
+            // the offsets are decoded into columns here, and only into positions when a content function looks at their zone
+            TermWeightColumns offsets;
             try {
-                TermWeight.Info twInfo = TermWeight.Info.parseFrom(tfSource.getTopValue().get());
-                
-                // if no content expansion fields then assume every field is permitted for unfielded content functions
-                TermFrequencyList.Zone twZone = new TermFrequencyList.Zone(fv.getField(),
-                                (contentExpansionFields == null || contentExpansionFields.isEmpty() || contentExpansionFields.contains(fv.getField())),
-                                TermFrequencyList.getEventId(key));
-                
-                TermWeightPosition.Builder position = new TermWeightPosition.Builder();
-                for (int i = 0; i < twInfo.getTermOffsetCount(); i++) {
-                    position.setTermWeightOffsetInfo(twInfo, i);
-                    offsets.put(twZone, position.build());
-                    position.reset();
-                }
-                
+                offsets = TermWeightColumns.parseFrom(tfSource.getTopValue().get());
             } catch (InvalidProtocolBufferException e) {
                 log.error("Could not deserialize TermWeight protocol buffer for: " + source.getTopKey());
                 
                 return null;
             }
             
+            // if no content expansion fields then assume every field is permitted for unfielded content functions
+            TermFrequencyList.Zone twZone = new TermFrequencyList.Zone(fv.getField(),
+                            (contentExpansionFields == null || contentExpansionFields.isEmpty() || contentExpansionFields.contains(fv.getField())),
+                            TermFrequencyList.getEventId(key));
+            
             // First time looking up this term in a field
             TermFrequencyList tfl = termOffsetMap.get(fv.getValue());
             if (null == tfl) {
-                termOffsetMap.put(fv.getValue(), new TermFrequencyList(offsets));
+                termOffsetMap.put(fv.getValue(), new TermFrequencyList(twZone, offsets));
             } else {
                 // Merge in the offsets for the current field+term with all previous
                 // offsets from other fields in the same term
-                tfl.addOffsets(offsets);
+                tfl.addOffsets(twZone, offsets);
             }
             
             try {
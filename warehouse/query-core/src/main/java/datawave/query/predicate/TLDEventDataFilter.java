@@ -7,8 +7,11 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import datawave.query.iterator.profile.QuerySpan;
 import datawave.query.tld.TLD;
+import datawave.query.tld.TLDSeekPlanner;
 import datawave.query.util.TypeMetadata;
+import org.apache.accumulo.core.data.ArrayByteSequence;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.PartialKey;
@@ -63,6 +66,31 @@ public class TLDEventDataFilter extends EventDataQueryExpressionFilter {
     
     private Set<String> nonEventFields;
     
+    /**
+     * if set, decides whether to seek past the rest of a child instead of the maxFieldsBeforeSeek and maxKeysBeforeSeek thresholds
+     */
+    private TLDSeekPlanner seekPlanner;
+    
+    /**
+     * if set, records the seeks and nexts that the seekPlanner saved over the thresholds, net of those it added
+     */
+    private QuerySpan querySpan;
+    
+    /**
+     * what this filter has observed for the seekPlanner since the start of the document, recorded with the seekPlanner once per document
+     */
+    private final TLDSeekPlanner.Samples samples = new TLDSeekPlanner.Samples();
+    private String samplesDatatype;
+    
+    // track the child being walked and the time the last key was handed to the filter for the seekPlanner
+    private ByteSequence lastChild;
+    private long childKeyCount;
+    private boolean childSeek;
+    private boolean childSavedSeek;
+    private long lastKeyNanos = -1;
+    private boolean lastKeySeek;
+    private int keysSinceSample;
+    
     public TLDEventDataFilter(ASTJexlScript script, TypeMetadata attributeFactory, Set<String> whitelist, Set<String> blacklist, long maxFieldsBeforeSeek,
                     long maxKeysBeforeSeek) {
         this(script, attributeFactory, whitelist, blacklist, maxFieldsBeforeSeek, maxKeysBeforeSeek, Collections.EMPTY_MAP, null, Collections.EMPTY_SET);
@@ -114,6 +142,30 @@ public class TLDEventDataFilter extends EventDataQueryExpressionFilter {
         limitFieldsMap = other.limitFieldsMap;
         anyFieldLimit = other.anyFieldLimit;
         nonEventFields = other.nonEventFields;
+        seekPlanner = other.seekPlanner;
+        querySpan = other.querySpan;
+    }
+    
+    /**
+     * Let the seekPlanner decide when to seek to the next query field within a child, instead of the maxFieldsBeforeSeek and maxKeysBeforeSeek thresholds
+     *
+     * @param seekPlanner
+     *            the planner, shared with the clones of this filter
+     */
+    public void setSeekPlanner(TLDSeekPlanner seekPlanner) {
+        this.seekPlanner = seekPlanner;
+    }
+    
+    public TLDSeekPlanner getSeekPlanner() {
+        return seekPlanner;
+    }
+    
+    /**
+     * @param querySpan
+     *            the span to record the seeks and nexts saved by the seekPlanner in
+     */
+    public void setQuerySpan(QuerySpan querySpan) {
+        this.querySpan = querySpan;
     }
     
     @Override
@@ -121,6 +173,12 @@ public class TLDEventDataFilter extends EventDataQueryExpressionFilter {
         super.startNewDocument(document);
         // clear the parse info so a length comparison can't be made against a new document
         lastParseInfo = null;
+        recordSamples();
+        lastChild = null;
+        childKeyCount = 0;
+        childSeek = false;
+        childSavedSeek = false;
+        lastKeyNanos = -1;
     }
     
     /**
@@ -147,6 +205,9 @@ public class TLDEventDataFilter extends EventDataQueryExpressionFilter {
         Key current = input.getKey();
         lastParseInfo = getParseInfo(current);
         boolean root = lastParseInfo.isRoot();
+        if (update && seekPlanner != null) {
+            trackChild(current, root);
+        }
         boolean keep = keepField(current, update, root);
         if (keep) {
             if (root) {
@@ -165,6 +226,83 @@ public class TLDEventDataFilter extends EventDataQueryExpressionFilter {
         return false;
     }
     
+    /**
+     * Collect the cost of reaching this key from the last one, if that step was timed, and the number of event keys in each child walked without a seek for
+     * the seekPlanner. Only one in {@link TLDSeekPlanner#NEXT_SAMPLE_INTERVAL} nexts is timed.
+     *
+     * @param current
+     *            the key handed to the filter
+     * @param root
+     *            true if the key is part of the root document
+     */
+    private void trackChild(Key current, boolean root) {
+        if (!isEventKey(current)) {
+            return;
+        }
+        
+        if (lastKeyNanos != -1) {
+            if (lastChild != null) {
+                getSamples(getDatatype(lastChild)).recordStep(lastKeySeek, System.nanoTime() - lastKeyNanos);
+            }
+            lastKeyNanos = -1;
+        }
+        if (++keysSinceSample >= TLDSeekPlanner.NEXT_SAMPLE_INTERVAL) {
+            keysSinceSample = 0;
+            lastKeyNanos = System.nanoTime();
+        }
+        lastKeySeek = false;
+        
+        ByteSequence cf = current.getColumnFamilyData();
+        if (lastChild == null || !lastChild.equals(cf)) {
+            if (lastChild != null && !childSeek) {
+                getSamples(getDatatype(lastChild)).recordChild(childKeyCount);
+            }
+            // the root is not a child, so it is never recorded
+            lastChild = root ? null : new ArrayByteSequence(cf.toArray());
+            childKeyCount = 0;
+            childSeek = false;
+            childSavedSeek = false;
+        }
+        childKeyCount++;
+    }
+    
+    /**
+     * @param datatype
+     *            the datatype of the child being observed
+     * @return the samples to add the observation to, after recording the samples of any other datatype with the seekPlanner
+     */
+    private TLDSeekPlanner.Samples getSamples(String datatype) {
+        if (!datatype.equals(samplesDatatype)) {
+            recordSamples();
+            samplesDatatype = datatype;
+        }
+        return samples;
+    }
+    
+    /**
+     * Record what has been observed with the seekPlanner
+     */
+    private void recordSamples() {
+        if (samplesDatatype != null && !samples.isEmpty()) {
+            seekPlanner.record(samplesDatatype, samples);
+        }
+        samplesDatatype = null;
+    }
+    
+    /**
+     * @param cf
+     *            an event column family
+     * @return the datatype of the event column family
+     */
+    private static String getDatatype(ByteSequence cf) {
+        for (int i = 0; i < cf.length(); i++) {
+            if (cf.byteAt(i) == 0x00) {
+                return cf.subSequence(0, i).toString();
+            }
+        }
+        return cf.toString();
+    }
+    
     /**
      * Define the end key given the from condition.
      * 
@@ -362,6 +500,10 @@ public class TLDEventDataFilter extends EventDataQueryExpressionFilter {
      * @return the new range or null if a seek should not be performed
      */
     protected Range getQueryFieldRange(Key current, Key endKey, boolean endKeyInclusive) {
+        if (seekPlanner != null && lastChild != null) {
+            return getPlannedQueryFieldRange(current, endKey, endKeyInclusive);
+        }
+        
         Range range = null;
         
         // short circuit the seek if the threshold for seeking hasn't been met or it is disabled
@@ -376,6 +518,70 @@ public class TLDEventDataFilter extends EventDataQueryExpressionFilter {
         return range;
     }
     
+    /**
+     * Seek to the next query field if the seekPlanner expects the keys left in the child to cost more to next through than a seek, and record where that
+     * differs from the thresholds. Where the thresholds would seek and the planner does not, a seek is saved at the cost of the keys left in the child; where
+     * the planner seeks and the thresholds would not, those nexts are saved at the cost of a seek.
+     *
+     * @param current
+     *            the current key
+     * @param endKey
+     *            the end range key
+     * @param endKeyInclusive
+     *            the end inclusive flag
+     * @return the new range or null if a seek should not be performed
+     */
+    private Range getPlannedQueryFieldRange(Key current, Key endKey, boolean endKeyInclusive) {
+        String datatype = getDatatype(lastChild);
+        long keysToSkip = seekPlanner.getKeysToSkip(datatype, childKeyCount);
+        boolean thresholdSeek = !bypassSeek();
+        
+        if (!seekPlanner.shouldSeek(datatype, keysToSkip)) {
+            // the thresholds seek past the rest of a child at once, so count at most one saved seek per child
+            if (thresholdSeek && !childSavedSeek && querySpan != null) {
+                querySpan.addSavedSeeks(1);
+                querySpan.addSavedNexts(-keysToSkip);
+                childSavedSeek = true;
+            }
+            return null;
+        }
+        
+        if (!thresholdSeek && querySpan != null) {
+            querySpan.addSavedNexts(keysToSkip);
+            querySpan.addSavedSeeks(-1);
+        }
+        // a seek is always timed, from here to the next key handed to the filter
+        lastKeyNanos = System.nanoTime();
+        lastKeySeek = true;
+        childSeek = true;
+        return getNextQueryFieldRange(current, endKey, endKeyInclusive);
+    }
+    
+    /**
+     * Seek to the next query field of the current child or, if the child has no query fields left, past the rest of the child to the first query field of the
+     * next child. Children are not indexed by the fields they hold, so the next child in key order is the next one that may be relevant. Unlike the whitelist
+     * seeks, this leaves lastListSeekIndex to the seeks of the root document.
+     *
+     * @param current
+     *            the current key
+     * @param endKey
+     *            the end range key
+     * @param endKeyInclusive
+     *            the end inclusive flag
+     * @return the new range
+     */
+    private Range getNextQueryFieldRange(Key current, Key endKey, boolean endKeyInclusive) {
+        final String fieldName = lastParseInfo.getField();
+        for (String queryField : queryFields) {
+            if (fieldName.compareTo(queryField) < 0) {
+                Key startKey = new Key(current.getRow(), current.getColumnFamily(), new Text(queryField + Constants.NULL_BYTE_STRING));
+                return new Range(startKey, true, endKey, endKeyInclusive);
+            }
+        }
+        
+        return getRolloverRange(current, endKey, endKeyInclusive, queryFields);
+    }
+    
     /**
      * As long as a seek should not be bypassed, generate either a whitelist or blacklist range
      *
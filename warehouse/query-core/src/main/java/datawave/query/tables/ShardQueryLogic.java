@@ -59,6 +59,7 @@ import datawave.webservice.query.exception.QueryException;
 import datawave.webservice.query.logic.BaseQueryLogic;
 import datawave.webservice.query.logic.QueryLogicTransformer;
 import datawave.webservice.query.logic.WritesQueryMetrics;
+import datawave.webservice.query.metric.BaseQueryMetric;
 import datawave.webservice.query.result.event.ResponseObjectFactory;
 import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.Connector;
@@ -155,7 +156,7 @@ import java.util.concurrent.TimeUnit;
  * 
  * @see datawave.query.enrich
  */
-public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
+public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> implements WritesQueryMetrics {
     
     public static final String NULL_BYTE = "\0";
     public static final Class<? extends ShardQueryConfiguration> tableConfigurationType = ShardQueryConfiguration.class;
@@ -401,6 +402,9 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
             
             currentQueryPlanner.setMetadataHelper(metadataHelper);
             currentQueryPlanner.setDateIndexHelper(dateIndexHelper);
+            if (currentQueryPlanner.getPlanCacheName() == null) {
+                currentQueryPlanner.setPlanCacheName(getLogicName());
+            }
             
             QueryModelProvider queryModelProvider = currentQueryPlanner.getQueryModelProviderFactory().createQueryModelProvider();
             if (queryModelProvider instanceof MetadataHelperQueryModelProvider) {
@@ -1102,6 +1106,43 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         this.config = config;
     }
     
+    /**
+     * Records whether the plan came from the plan cache, the use of the date index cache, the decomposition of geowave functions, the planner timings and the
+     * planner's decisions of the query on its metric
+     */
+    @Override
+    public void writeQueryMetrics(BaseQueryMetric metric) {
+        if (config == null) {
+            return;
+        }
+        metric.setPlanCacheHit(config.getPlanCacheHit());
+        metric.setDateIndexCacheHits(config.getDateIndexCacheHits());
+        metric.setDateIndexCacheMisses(config.getDateIndexCacheMisses());
+        metric.setGeoWaveDecompositionTime(config.getGeoWaveDecompositionTime());
+        metric.setGeoWaveRangeCount(config.getGeoWaveRangeCount());
+        metric.setGeoWaveDecompositionCacheHits(config.getGeoWaveDecompositionCacheHits());
+        try {
+            List<String> planTimings = new ArrayList<>();
+            for (String timing : config.getTimers().summarizeAsList()) {
+                planTimings.add(timing.trim());
+            }
+            metric.setPlanTimings(planTimings);
+        } catch (IllegalArgumentException e) {
+            // a stopwatch was left running by a failed plan
+            log.debug("Could not summarize the planner timings", e);
+        }
+        List<String> decisions = config.getPlanDecisions();
+        if (decisions != null && !decisions.isEmpty()) {
+            // numbered like the timings, so that they keep their order when stored
+            int digits = Integer.toString(decisions.size()).length();
+            List<String> planDecisions = new ArrayList<>(decisions.size());
+            for (int i = 0; i < decisions.size(); i++) {
+                planDecisions.add(org.apache.commons.lang.StringUtils.leftPad(Integer.toString(i + 1), digits, '0') + ") " + decisions.get(i));
+            }
+            metric.setPlanDecisions(planDecisions);
+        }
+    }
+    
     @Override
     public AccumuloConnectionFactory.Priority getConnectionPriority() {
         return AccumuloConnectionFactory.Priority.NORMAL;
@@ -1303,6 +1344,14 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setMaxValueExpansionThreshold(maxValueExpansionThreshold);
     }
     
+    public boolean isCacheIndexExpansion() {
+        return getConfig().isCacheIndexExpansion();
+    }
+    
+    public void setCacheIndexExpansion(boolean cacheIndexExpansion) {
+        getConfig().setCacheIndexExpansion(cacheIndexExpansion);
+    }
+    
     public int getMaxOrExpansionThreshold() {
         return getConfig().getMaxOrExpansionThreshold();
     }
@@ -1628,6 +1677,14 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setZookeeperConfig(zookeeperConfig);
     }
     
+    public long getQueryLockLease() {
+        return getConfig().getQueryLockLease();
+    }
+    
+    public void setQueryLockLease(long queryLockLease) {
+        getConfig().setQueryLockLease(queryLockLease);
+    }
+    
     public int getMaxFieldIndexRangeSplit() {
         return getConfig().getMaxFieldIndexRangeSplit();
     }
@@ -1708,6 +1765,22 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setMinSelectivity(d);
     }
     
+    public boolean isUseMetadataSketches() {
+        return getConfig().isUseMetadataSketches();
+    }
+    
+    public void setUseMetadataSketches(boolean useMetadataSketches) {
+        getConfig().setUseMetadataSketches(useMetadataSketches);
+    }
+    
+    public double getMinimumSketchSelectivity() {
+        return getConfig().getMinSketchSelectivity();
+    }
+    
+    public void setMinimumSketchSelectivity(double d) {
+        getConfig().setMinSketchSelectivity(d);
+    }
+    
     public Map<String,QueryParser> getQuerySyntaxParsers() {
         return querySyntaxParsers;
     }
@@ -2218,6 +2291,30 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setGeoWaveMaxEnvelopes(geoWaveMaxEnvelopes);
     }
     
+    public int getGeoWaveRangeBudget() {
+        return getConfig().getGeoWaveRangeBudget();
+    }
+    
+    public void setGeoWaveRangeBudget(int geoWaveRangeBudget) {
+        getConfig().setGeoWaveRangeBudget(geoWaveRangeBudget);
+    }
+    
+    public int getGeoWaveDecompositionThreads() {
+        return getConfig().getGeoWaveDecompositionThreads();
+    }
+    
+    public void setGeoWaveDecompositionThreads(int geoWaveDecompositionThreads) {
+        getConfig().setGeoWaveDecompositionThreads(geoWaveDecompositionThreads);
+    }
+    
+    public boolean isCacheGeoWaveDecompositions() {
+        return getConfig().isCacheGeoWaveDecompositions();
+    }
+    
+    public void setCacheGeoWaveDecompositions(boolean cacheGeoWaveDecompositions) {
+        getConfig().setCacheGeoWaveDecompositions(cacheGeoWaveDecompositions);
+    }
+    
     public long getBeginDateCap() {
         return getConfig().getBeginDateCap();
     }
@@ -235,6 +235,9 @@ public class VisitorFunction implements Function<ScannerChunk,ScannerChunk> {
                     DefaultQueryPlanner.validateQuerySize("VisitorFunction", script, config, false);
                     
                     newIteratorSetting.addOption(QueryOptions.QUERY, newQuery);
+                    if (!newQuery.equals(query) && setting.getOptions().containsKey(QueryOptions.QUERY_TREE)) {
+                        DefaultQueryPlanner.addQueryTreeOption(newIteratorSetting, newQuery);
+                    }
                     newOptions.removeScanIterator(setting.getName());
                     newOptions.addScanIterator(newIteratorSetting);
                     
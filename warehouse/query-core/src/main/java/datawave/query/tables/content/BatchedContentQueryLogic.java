@@ -0,0 +1,160 @@
+package datawave.query.tables.content;
+
+import datawave.query.config.ContentQueryConfiguration;
+import datawave.query.transformer.ContentQueryTransformer;
+import datawave.webservice.query.Query;
+import datawave.webservice.query.configuration.GenericQueryConfiguration;
+import datawave.webservice.query.logic.QueryLogicTransformer;
+import datawave.webservice.query.logic.WritesQueryMetrics;
+import datawave.webservice.query.metric.BaseQueryMetric;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * A {@link ContentQueryTable} for bulk content lookups, such as those of the lookupUUID endpoints. All of the documents of a lookup are requested by a single
+ * query, so their ranges are coalesced and read by one batch scanner pass, which bins them by tablet, instead of by a query per batch of documents. The results
+ * are streamed back as they arrive, and the time taken by each batch of them is recorded in the sub query timings of the query metric.
+ * <p>
+ * The query is the same as that of the {@link ContentQueryTable}:
+ *
+ * <pre>
+ *     DOCUMENT:shardId/datatype/uid [DOCUMENT:shardId/datatype/uid]*
+ * </pre>
+ */
+public class BatchedContentQueryLogic extends ContentQueryTable {
+    
+    private static final Logger log = Logger.getLogger(BatchedContentQueryLogic.class);
+    
+    private int batchSize = 1000;
+    
+    private final List<String> batchTimings = Collections.synchronizedList(new ArrayList<>());
+    
+    public BatchedContentQueryLogic() {
+        super();
+    }
+    
+    public BatchedContentQueryLogic(final BatchedContentQueryLogic other) {
+        super(other);
+        setQueryThreads(other.getQueryThreads());
+        setBatchSize(other.getBatchSize());
+    }
+    
+    @Override
+    public GenericQueryConfiguration initialize(final Connector connection, final Query settings, final Set<Authorizations> auths) throws Exception {
+        final long start = System.currentTimeMillis();
+        final GenericQueryConfiguration config = super.initialize(connection, settings, auths);
+        this.batchTimings.clear();
+        this.batchTimings.add("Ranges: " + ((ContentQueryConfiguration) config).getRanges().size() + " in " + (System.currentTimeMillis() - start) + " ms");
+        return config;
+    }
+    
+    @Override
+    public void setupQuery(GenericQueryConfiguration genericConfig) throws Exception {
+        super.setupQuery(genericConfig);
+        this.iterator = new TimedIterator(this.iterator);
+    }
+    
+    @Override
+    public QueryLogicTransformer getTransformer(Query settings) {
+        return new BatchedContentQueryTransformer(settings);
+    }
+    
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        return new BatchedContentQueryLogic(this);
+    }
+    
+    /**
+     * @return the number of content entries in each batch whose time is recorded in the query metric
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+    
+    List<String> getBatchTimings() {
+        synchronized (this.batchTimings) {
+            return new ArrayList<>(this.batchTimings);
+        }
+    }
+    
+    /**
+     * Times each batch of entries read by the batch scanner, from the end of the last batch or from setup for the first one, which includes the time the
+     * scanner took to start returning results
+     */
+    private class TimedIterator implements Iterator<Entry<Key,Value>> {
+        
+        private final Iterator<Entry<Key,Value>> delegate;
+        private long batchStart = System.currentTimeMillis();
+        private int batchEntries = 0;
+        private int batches = 0;
+        
+        private TimedIterator(Iterator<Entry<Key,Value>> delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.delegate.hasNext();
+            if (!hasNext && this.batchEntries > 0) {
+                recordBatch();
+            }
+            return hasNext;
+        }
+        
+        @Override
+        public Entry<Key,Value> next() {
+            Entry<Key,Value> next = this.delegate.next();
+            if (++this.batchEntries >= batchSize) {
+                recordBatch();
+            }
+            return next;
+        }
+        
+        private void recordBatch() {
+            long now = System.currentTimeMillis();
+            String timing = "Batch " + (++this.batches) + ": " + this.batchEntries + " entries in " + (now - this.batchStart) + " ms";
+            if (log.isDebugEnabled()) {
+                log.debug(timing);
+            }
+            batchTimings.add(timing);
+            this.batchStart = now;
+            this.batchEntries = 0;
+        }
+    }
+    
+    /**
+     * Writes the batch timings of the logic to the query metric as the results are transformed
+     */
+    private class BatchedContentQueryTransformer extends ContentQueryTransformer implements WritesQueryMetrics {
+        
+        private int written = 0;
+        
+        private BatchedContentQueryTransformer(Query settings) {
+            super(settings, markingFunctions);
+        }
+        
+        @Override
+        public void writeQueryMetrics(BaseQueryMetric metric) {
+            // this is called for every result, so only copy the timings when a batch has been added
+            List<String> timings = getBatchTimings();
+            if (timings.size() != this.written) {
+                metric.setSubQueryTimings(timings);
+                this.written = timings.size();
+            }
+        }
+    }
+}
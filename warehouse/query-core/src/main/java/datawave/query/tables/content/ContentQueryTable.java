@@ -29,6 +29,7 @@ import org.apache.log4j.Logger;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
@@ -221,7 +222,14 @@ public class ContentQueryTable extends BaseQueryLogic<Entry<Key,Value>> {
                             + ". At least one term required of the form 'DOCUMENT:shardId/datatype/eventUID'.");
         }
         
-        return ranges;
+        // Coalesce the ranges so that each document is read once, e.g. the content of a child event is covered by the range of its parent when the
+        // content of the children is requested. The batch scanner bins the sorted ranges by tablet and reads all of them in one pass.
+        final List<Range> coalesced = Range.mergeOverlapping(ranges);
+        if (log.isDebugEnabled()) {
+            log.debug("Coalesced " + ranges.size() + " content ranges into " + coalesced.size());
+        }
+        
+        return coalesced;
     }
     
     @Override
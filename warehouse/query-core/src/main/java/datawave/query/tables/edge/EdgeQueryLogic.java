@@ -5,6 +5,7 @@ import com.google.common.collect.Lists;
 import datawave.core.iterators.ColumnQualifierRangeIterator;
 import datawave.core.iterators.ColumnRangeIterator;
 import datawave.data.type.Type;
+import datawave.iterators.EdgeStatsRollupIterator;
 import datawave.query.Constants;
 import datawave.query.QueryParameters;
 import datawave.query.config.EdgeQueryConfiguration;
@@ -93,6 +94,8 @@ public class EdgeQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
     private long maxQueryTerms = 10000;
     private long maxPrefilterValues = 100000;
     
+    private boolean statsRollupMergeVisibilities = false;
+    
     private String modelName = null;
     private String modelTableName = null;
     
@@ -116,6 +119,7 @@ public class EdgeQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         setModelName(other.getModelName());
         setModelTableName(other.getModelTableName());
         setMetadataHelperFactory(other.getMetadataHelperFactory());
+        setStatsRollupMergeVisibilities(other.isStatsRollupMergeVisibilities());
         visitationContext = other.visitationContext;
     }
     
@@ -579,6 +583,14 @@ public class EdgeQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
             addIterator(qData, edgeIteratorSetting);
         }
         
+        if (includeStats && config.isStatsRollup()) {
+            IteratorSetting rollupSetting = new IteratorSetting(currentIteratorPriority, EdgeStatsRollupIterator.class.getSimpleName() + "_"
+                            + currentIteratorPriority, EdgeStatsRollupIterator.class);
+            rollupSetting.addOption(EdgeStatsRollupIterator.GRANULARITY_OPTION, EdgeStatsRollupIterator.Granularity.ALL.name());
+            rollupSetting.addOption(EdgeStatsRollupIterator.MERGE_VISIBILITIES_OPTION, Boolean.toString(statsRollupMergeVisibilities));
+            addIterator(qData, rollupSetting);
+        }
+        
         log.debug("Configuring connection: tableName: " + config.getTableName() + ", auths: " + config.getAuthorizations());
         
         BatchScanner scanner = createBatchScanner(config);
@@ -682,6 +694,7 @@ public class EdgeQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         optionalParams.add(QueryParameters.DATATYPE_FILTER_SET);
         optionalParams.add(EdgeQueryConfiguration.INCLUDE_STATS);
         optionalParams.add(EdgeQueryConfiguration.DATE_RANGE_TYPE);
+        optionalParams.add(EdgeQueryConfiguration.STATS_ROLLUP);
         return optionalParams;
     }
     
@@ -717,6 +730,18 @@ public class EdgeQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         this.maxPrefilterValues = maxPrefilterValues;
     }
     
+    public boolean isStatsRollupMergeVisibilities() {
+        return statsRollupMergeVisibilities;
+    }
+    
+    /**
+     * When stats rollups are requested, allow stats edges with different visibilities to be combined. The combined edge is labeled with the conjunction of
+     * the visibilities, so a user only sees it if they could see every edge that went into it.
+     */
+    public void setStatsRollupMergeVisibilities(boolean statsRollupMergeVisibilities) {
+        this.statsRollupMergeVisibilities = statsRollupMergeVisibilities;
+    }
+    
     @Override
     public Set<String> getRequiredQueryParameters() {
         Set<String> requiredParams = new TreeSet<>();
@@ -0,0 +1,116 @@
+package datawave.query.tables.edge;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+
+/**
+ * Tracks the vertices of a breadth-first edge traversal. Sink vertices discovered while reading hop N are added to the next frontier (unless they have already
+ * been expanded), and {@link #advance()} turns that frontier into the seek ranges for hop N+1. Vertices are kept exactly as they appear in the edge table row
+ * (i.e. still escaped/normalized) so the generated ranges line up with the stored rows.
+ * <p>
+ * The frontier is bounded; once {@code maxFrontierSize} vertices are queued, any further sinks are dropped and {@link #isTruncated()} will return true.
+ */
+public class EdgeTraversalFrontier {
+    
+    private final int maxFrontierSize;
+    private final Set<String> visited = new HashSet<>();
+    private TreeSet<String> next = new TreeSet<>();
+    private boolean truncated = false;
+    
+    public EdgeTraversalFrontier(int maxFrontierSize) {
+        if (maxFrontierSize < 1) {
+            throw new IllegalArgumentException("maxFrontierSize must be positive: " + maxFrontierSize);
+        }
+        this.maxFrontierSize = maxFrontierSize;
+    }
+    
+    /**
+     * Records the edge with the given edge table key. The source is marked visited and the sink is queued for the next hop.
+     *
+     * @param key
+     *            an edge table key with a {@code SOURCE\0SINK} row
+     * @return true if the key was a standard (source/sink) edge, false otherwise
+     */
+    public boolean addEdge(Key key) {
+        ByteSequence row = key.getRowData();
+        byte[] bytes = row.getBackingArray();
+        int offset = row.offset();
+        int end = offset + row.length();
+        int split = -1;
+        for (int i = offset; i < end; i++) {
+            if (bytes[i] == 0) {
+                split = i;
+                break;
+            }
+        }
+        if (split < 0) {
+            return false;
+        }
+        
+        String source = new String(bytes, offset, split - offset, StandardCharsets.UTF_8);
+        String sink = new String(bytes, split + 1, end - split - 1, StandardCharsets.UTF_8);
+        visited.add(source);
+        next.remove(source);
+        if (!visited.contains(sink) && !next.contains(sink)) {
+            if (next.size() < maxFrontierSize) {
+                next.add(sink);
+            } else {
+                truncated = true;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Marks the current frontier as visited and returns the ranges covering all edges out of those vertices. The frontier is empty afterwards.
+     *
+     * @return sorted ranges, one per frontier vertex
+     */
+    public List<Range> advance() {
+        List<Range> ranges = new ArrayList<>(next.size());
+        for (String vertex : next) {
+            ranges.add(getVertexRange(vertex));
+        }
+        visited.addAll(next);
+        next = new TreeSet<>();
+        return ranges;
+    }
+    
+    /**
+     * @param vertex
+     *            a vertex as it appears in the edge table row
+     * @return a range covering every standard edge whose source is {@code vertex}
+     */
+    public static Range getVertexRange(String vertex) {
+        return new Range(new Key(vertex + '\0'), true, new Key(vertex + '\1'), false);
+    }
+    
+    public boolean isEmpty() {
+        return next.isEmpty();
+    }
+    
+    public int size() {
+        return next.size();
+    }
+    
+    public Collection<String> getFrontier() {
+        return next;
+    }
+    
+    public int getVisitedCount() {
+        return visited.size();
+    }
+    
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
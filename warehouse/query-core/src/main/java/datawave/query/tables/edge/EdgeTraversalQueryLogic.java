@@ -0,0 +1,238 @@
+package datawave.query.tables.edge;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Maps;
+import datawave.query.config.EdgeQueryConfiguration;
+import datawave.query.config.EdgeTraversalQueryConfiguration;
+import datawave.query.iterator.EdgeTraversalIterator;
+import datawave.query.iterator.filter.EdgeFilterIterator;
+import datawave.webservice.query.Query;
+import datawave.webservice.query.configuration.GenericQueryConfiguration;
+import datawave.webservice.query.configuration.QueryData;
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.log4j.Logger;
+
+/**
+ * An edge query logic that performs a breadth-first, multi-hop traversal of the edge table in a single query.
+ * <p>
+ * The first hop is the normal edge query: the query string is planned into ranges and filters exactly as it is for the {@link EdgeQueryLogic}. Every hop is
+ * read through an {@link EdgeTraversalIterator}, so the tservers only return one key per distinct source, sink, type and relationship. The sinks of hop N,
+ * deduplicated and bounded by {@link #getMaxFrontierSize()}, are turned into seek ranges for hop N+1. Later hops apply the date filters of the query and, if
+ * supplied, the {@link EdgeTraversalQueryConfiguration#HOP_QUERY} JEXL expression.
+ * <p>
+ * The edges of every hop are streamed, in hop order, through the standard {@link datawave.query.transformer.EdgeQueryTransformer}. Hop N+1 is only scanned once
+ * the edges of hop N have been consumed, so memory is bounded by the frontier rather than the number of edges. The edges of each range are bounded on the
+ * tservers by {@link #getMaxEdgesPerScan()}, also when a scan is torn down and resumed, and the total number of edges is bounded by
+ * {@link #getMaxTraversalEdges()}, across all of the tserver scans.
+ */
+public class EdgeTraversalQueryLogic extends EdgeQueryLogic {
+    private static final Logger log = Logger.getLogger(EdgeTraversalQueryLogic.class);
+    
+    private int defaultHops = 2;
+    private int maxHops = 3;
+    private int maxFrontierSize = 10000;
+    private long maxEdgesPerScan = 10000;
+    private long maxTraversalEdges = 100000;
+    
+    public EdgeTraversalQueryLogic() {
+        super();
+    }
+    
+    public EdgeTraversalQueryLogic(EdgeTraversalQueryLogic other) {
+        super(other);
+        setDefaultHops(other.getDefaultHops());
+        setMaxHops(other.getMaxHops());
+        setMaxFrontierSize(other.getMaxFrontierSize());
+        setMaxEdgesPerScan(other.getMaxEdgesPerScan());
+        setMaxTraversalEdges(other.getMaxTraversalEdges());
+    }
+    
+    @Override
+    public EdgeTraversalQueryLogic clone() {
+        return new EdgeTraversalQueryLogic(this);
+    }
+    
+    @Override
+    protected EdgeQueryConfiguration setUpConfig(Query settings) {
+        return new EdgeTraversalQueryConfiguration(this, settings).parseParameters(settings);
+    }
+    
+    @Override
+    public void setupQuery(GenericQueryConfiguration configuration) throws Exception {
+        // hop 1: the normal edge query, with the traversal iterator added on top through addCustomFilters
+        super.setupQuery(configuration);
+        
+        EdgeTraversalQueryConfiguration traversalConfig = (EdgeTraversalQueryConfiguration) configuration;
+        String hopQuery = traversalConfig.getHopQuery();
+        if (hopQuery != null && getEdgeQueryModel() != null) {
+            hopQuery = applyQueryModel(hopQuery);
+        }
+        
+        // later hops are only scanned once the edges of the previous hop have been consumed, so only the frontier is held in memory
+        iterator = new TraversalIterator(traversalConfig, hopQuery, iterator);
+    }
+    
+    @Override
+    protected void addCustomFilters(QueryData data, int priority) {
+        addIterator(data, getTraversalIterator(priority));
+    }
+    
+    /**
+     * Builds the iterators used for the second and subsequent hops: the date filters of the query, the optional hop filter, and the traversal iterator.
+     */
+    protected List<IteratorSetting> getHopIterators(EdgeTraversalQueryConfiguration config, String hopQuery) {
+        int priority = getBaseIteratorPriority() + 30;
+        List<IteratorSetting> settings = new ArrayList<>(getDateBasedIterators(config.getBeginDate(), config.getEndDate(), priority, getDateFilterSkipLimit(),
+                        config.getDateRangeType()));
+        priority += settings.size();
+        
+        if (hopQuery != null) {
+            IteratorSetting filter = new IteratorSetting(priority, EdgeFilterIterator.class.getSimpleName() + "_" + priority, EdgeFilterIterator.class);
+            filter.addOption(EdgeFilterIterator.JEXL_OPTION, hopQuery);
+            filter.addOption(EdgeFilterIterator.PROTOBUF_OPTION, "TRUE");
+            filter.addOption(EdgeFilterIterator.INCLUDE_STATS_OPTION, "FALSE");
+            settings.add(filter);
+            priority++;
+        }
+        
+        settings.add(getTraversalIterator(priority));
+        return settings;
+    }
+    
+    protected IteratorSetting getTraversalIterator(int priority) {
+        IteratorSetting setting = new IteratorSetting(priority, EdgeTraversalIterator.class.getSimpleName() + "_" + priority, EdgeTraversalIterator.class);
+        setting.addOption(EdgeTraversalIterator.MAX_EDGES_OPTION, Long.toString(maxEdgesPerScan));
+        return setting;
+    }
+    
+    /**
+     * Streams the edges of every hop, in hop order. The sinks of the edges returned for hop N are queued in the frontier, and the scanner for hop N+1 is only
+     * created once hop N has been exhausted.
+     */
+    private class TraversalIterator extends AbstractIterator<Entry<Key,Value>> {
+        private final EdgeTraversalQueryConfiguration config;
+        private final String hopQuery;
+        private final EdgeTraversalFrontier frontier = new EdgeTraversalFrontier(maxFrontierSize);
+        
+        private Iterator<Entry<Key,Value>> hopIterator;
+        private BatchScanner hopScanner = null;
+        private int hop = 1;
+        private int hopCount = 0;
+        private long count = 0;
+        
+        TraversalIterator(EdgeTraversalQueryConfiguration config, String hopQuery, Iterator<Entry<Key,Value>> firstHop) {
+            this.config = config;
+            this.hopQuery = hopQuery;
+            this.hopIterator = firstHop;
+        }
+        
+        @Override
+        protected Entry<Key,Value> computeNext() {
+            while (count < maxTraversalEdges) {
+                while (hopIterator.hasNext()) {
+                    Entry<Key,Value> entry = hopIterator.next();
+                    Key key = EdgeTraversalIterator.getEdgeKey(entry.getKey());
+                    if (frontier.addEdge(key)) {
+                        hopCount++;
+                        count++;
+                        return Maps.immutableEntry(key, entry.getValue());
+                    }
+                }
+                if (!nextHop()) {
+                    return endOfData();
+                }
+            }
+            log.warn("Edge traversal reached the maximum of " + maxTraversalEdges + " edges during hop " + hop + "; results are truncated.");
+            closeHop();
+            return endOfData();
+        }
+        
+        private boolean nextHop() {
+            closeHop();
+            if (frontier.isTruncated()) {
+                log.warn("Edge traversal frontier exceeded " + maxFrontierSize + " vertices during hop " + hop + "; some vertices will not be expanded.");
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Edge traversal hop " + hop + " returned " + hopCount + " edges, " + frontier.size() + " vertices in the next frontier, "
+                                + frontier.getVisitedCount() + " visited");
+            }
+            if (hop >= config.getHops() || frontier.isEmpty()) {
+                return false;
+            }
+            
+            hop++;
+            hopCount = 0;
+            hopScanner = createBatchScanner(config);
+            hopScanner.setRanges(frontier.advance());
+            for (IteratorSetting setting : getHopIterators(config, hopQuery)) {
+                hopScanner.addScanIterator(setting);
+            }
+            hopIterator = hopScanner.iterator();
+            return true;
+        }
+        
+        private void closeHop() {
+            if (hopScanner != null) {
+                hopScanner.close();
+                hopScanner = null;
+            }
+        }
+    }
+    
+    @Override
+    public Set<String> getOptionalQueryParameters() {
+        Set<String> optionalParams = super.getOptionalQueryParameters();
+        optionalParams.add(EdgeTraversalQueryConfiguration.HOPS);
+        optionalParams.add(EdgeTraversalQueryConfiguration.HOP_QUERY);
+        return optionalParams;
+    }
+    
+    public int getDefaultHops() {
+        return defaultHops;
+    }
+    
+    public void setDefaultHops(int defaultHops) {
+        this.defaultHops = defaultHops;
+    }
+    
+    public int getMaxHops() {
+        return maxHops;
+    }
+    
+    public void setMaxHops(int maxHops) {
+        this.maxHops = maxHops;
+    }
+    
+    public int getMaxFrontierSize() {
+        return maxFrontierSize;
+    }
+    
+    public void setMaxFrontierSize(int maxFrontierSize) {
+        this.maxFrontierSize = maxFrontierSize;
+    }
+    
+    public long getMaxEdgesPerScan() {
+        return maxEdgesPerScan;
+    }
+    
+    public void setMaxEdgesPerScan(long maxEdgesPerScan) {
+        this.maxEdgesPerScan = maxEdgesPerScan;
+    }
+    
+    public long getMaxTraversalEdges() {
+        return maxTraversalEdges;
+    }
+    
+    public void setMaxTraversalEdges(long maxTraversalEdges) {
+        this.maxTraversalEdges = maxTraversalEdges;
+    }
+}
@@ -15,17 +15,24 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
 
+import datawave.core.iterators.FieldIndexCountingIteratorPerVisibility;
+import datawave.core.iterators.GlobalIndexDateSummaryIterator;
 import datawave.data.type.Type;
+import datawave.ingest.protobuf.Uid;
 import datawave.marking.MarkingFunctions;
 import datawave.query.QueryParameters;
+import datawave.query.iterators.FieldIndexCountRollupIterator;
 import datawave.query.iterators.FieldIndexCountingIterator;
 import datawave.query.Constants;
 import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.jexl.lookups.ShardIndexQueryTableStaticMethods;
 import datawave.query.tables.ShardQueryLogic;
 import datawave.query.tables.ScannerFactory;
 import datawave.query.transformer.FieldIndexCountQueryTransformer;
 import datawave.query.util.MetadataHelper;
 import datawave.util.StringUtils;
+import datawave.util.TextUtil;
+import datawave.util.time.DateHelper;
 import datawave.webservice.query.Query;
 import datawave.webservice.query.configuration.GenericQueryConfiguration;
 import datawave.webservice.query.exception.QueryException;
@@ -42,9 +49,16 @@ import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.commons.collections4.Transformer;
 import org.apache.commons.collections4.iterators.TransformIterator;
+import org.apache.commons.lang.math.LongRange;
+import org.apache.commons.lang.time.DateUtils;
 import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
 
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.protobuf.InvalidProtocolBufferException;
+
 /**
  * Given a date range, FieldName(s), FieldValue(s), DataType(s) pull keys directly using FieldIndexIterator and count them as specified.
  * 
@@ -57,7 +71,9 @@ public class FieldIndexCountQueryLogic extends ShardQueryLogic {
     private Collection<String> fieldValues;
     private boolean uniqueByDataType = false;
     private boolean uniqueByVisibility = false;
+    private boolean approximateCounts = false;
     protected Long maxUniqueValues = 20000L;
+    protected boolean rollupByTablet = true;
     protected Collection<Range> ranges;
     
     public FieldIndexCountQueryLogic() {}
@@ -159,6 +175,14 @@ public class FieldIndexCountQueryLogic extends ShardQueryLogic {
             }
         }
         
+        // Find out if counts from the global index will do.
+        if (null != settings.findParameter(Constants.APPROXIMATE_COUNTS)) {
+            this.approximateCounts = Boolean.parseBoolean(settings.findParameter(Constants.APPROXIMATE_COUNTS).getParameterValue());
+            if (logger.isTraceEnabled()) {
+                logger.trace("approximateCounts: " + approximateCounts);
+            }
+        }
+        
         if (logger.isTraceEnabled()) {
             logger.trace("FieldNames: ");
             for (String f : this.fieldNames) {
@@ -186,6 +210,7 @@ public class FieldIndexCountQueryLogic extends ShardQueryLogic {
     public FieldIndexCountQueryLogic(FieldIndexCountQueryLogic other) {
         super(other);
         this.maxUniqueValues = other.getMaxUniqueValues();
+        this.rollupByTablet = other.isRollupByTablet();
     }
     
     public Long getMaxUniqueValues() {
@@ -196,6 +221,18 @@ public class FieldIndexCountQueryLogic extends ShardQueryLogic {
         this.maxUniqueValues = maxUniqueValues;
     }
     
+    public boolean isRollupByTablet() {
+        return rollupByTablet;
+    }
+    
+    /**
+     * @param rollupByTablet
+     *            true to roll the per-shard counts up by day on the tablet servers, false to return a count per shard
+     */
+    public void setRollupByTablet(boolean rollupByTablet) {
+        this.rollupByTablet = rollupByTablet;
+    }
+    
     /**
      * Create the batch scanner and set the iterator options / stack.
      * 
@@ -239,6 +276,15 @@ public class FieldIndexCountQueryLogic extends ShardQueryLogic {
         }
         
         try {
+            if (this.approximateCounts) {
+                if (null != this.fieldValues && !this.fieldValues.isEmpty()) {
+                    setupGlobalIndexQuery(config);
+                    return;
+                }
+                // the global index is keyed by value, so counting every value of a field from it would scan the whole index
+                logger.info("Approximate counts require a field value, counting the field index instead");
+            }
+            
             if (logger.isTraceEnabled()) {
                 logger.trace("configuring batch scanner and iterators.");
             }
@@ -247,11 +293,18 @@ public class FieldIndexCountQueryLogic extends ShardQueryLogic {
                             config.getQuery());
             bs.setRanges(this.ranges);
             // The stack we want to use
-            // 21 FieldIndexCountingIterator
+            // 21 FieldIndexCountingIterator, or FieldIndexCountingIteratorPerVisibility when rolling up by tablet
+            // 22 FieldIndexCountRollupIterator when rolling up by tablet
             
             // FieldIndexCountingIterator setup
             IteratorSetting cfg;
-            cfg = new IteratorSetting(config.getBaseIteratorPriority() + 21, "countingIter", FieldIndexCountingIterator.class);
+            if (this.rollupByTablet) {
+                // keep the visibilities apart so the rollup does not combine them per shard, the summary combines them once
+                cfg = new IteratorSetting(config.getBaseIteratorPriority() + 21, "countingIter", FieldIndexCountingIteratorPerVisibility.class);
+                cfg.addOption(FieldIndexCountingIteratorPerVisibility.UNIQ_BY_VISIBILITY, Boolean.toString(true));
+            } else {
+                cfg = new IteratorSetting(config.getBaseIteratorPriority() + 21, "countingIter", FieldIndexCountingIterator.class);
+            }
             cfg.addOption(FieldIndexCountingIterator.DATA_TYPES, config.getDatatypeFilterAsString());
             cfg.addOption(FieldIndexCountingIterator.FIELD_NAMES, join(this.fieldNames, FieldIndexCountingIterator.SEP));
             if (null != this.fieldValues && !this.fieldValues.isEmpty()) {
@@ -263,6 +316,9 @@ public class FieldIndexCountQueryLogic extends ShardQueryLogic {
             cfg.addOption(FieldIndexCountingIterator.UNIQ_BY_DATA_TYPE, Boolean.toString(this.uniqueByDataType));
             
             bs.addScanIterator(cfg);
+            if (this.rollupByTablet) {
+                bs.addScanIterator(new IteratorSetting(config.getBaseIteratorPriority() + 22, "rollupIter", FieldIndexCountRollupIterator.class));
+            }
             
             this.iterator = bs.iterator();
             this.scanner = bs;
@@ -271,6 +327,78 @@ public class FieldIndexCountQueryLogic extends ShardQueryLogic {
         }
     }
     
+    /**
+     * Count the field values from the global index instead of the field index. The global index counts are summarized by day on the tablet servers and
+     * returned in the form of the field index counts, so they can be summarized the same way. Its counts may be off where uids were removed or aged off.
+     *
+     * @param config
+     *            configuration object
+     * @throws TableNotFoundException
+     */
+    private void setupGlobalIndexQuery(ShardQueryConfiguration config) throws TableNotFoundException {
+        if (logger.isTraceEnabled()) {
+            logger.trace("configuring global index batch scanner and iterators.");
+        }
+        
+        BatchScanner bs = getScannerFactory().newScanner(config.getIndexTableName(), config.getAuthorizations(), config.getNumQueryThreads(),
+                        config.getQuery());
+        Collection<Range> valueRanges = new ArrayList<>();
+        for (String fieldValue : this.fieldValues) {
+            valueRanges.add(Range.exact(fieldValue));
+        }
+        bs.setRanges(valueRanges);
+        for (String fieldName : this.fieldNames) {
+            bs.fetchColumnFamily(new Text(fieldName));
+        }
+        
+        // the times in the index table have been truncated to the day
+        Date begin = DateUtils.truncate(config.getBeginDate(), Calendar.DAY_OF_MONTH);
+        LongRange dateRange = new LongRange(begin.getTime(), config.getEndDate().getTime());
+        ShardIndexQueryTableStaticMethods.configureGlobalIndexDateRangeFilter(config, bs, dateRange);
+        ShardIndexQueryTableStaticMethods.configureGlobalIndexDataTypeFilter(config, bs, config.getDatatypeFilter());
+        bs.addScanIterator(new IteratorSetting(config.getBaseIteratorPriority() + 50, "dateSummaryIter", GlobalIndexDateSummaryIterator.class));
+        
+        this.iterator = Iterators.transform(bs.iterator(), new GlobalIndexCountFunction(this.uniqueByDataType));
+        this.scanner = bs;
+    }
+    
+    /**
+     * Turns a global index date summary (Row - FieldValue Fam - FieldName Qual - Date \0 Datatype, Value - uid list with the count) into a field index count
+     * (Row - Date Fam - fi\0FieldName Qual - FieldValue \0 Datatype, Value - count) timestamped at the start of the day.
+     */
+    public static class GlobalIndexCountFunction implements Function<Entry<Key,Value>,Entry<Key,Value>> {
+        
+        private final boolean uniqueByDataType;
+        
+        public GlobalIndexCountFunction(boolean uniqueByDataType) {
+            this.uniqueByDataType = uniqueByDataType;
+        }
+        
+        @Override
+        public Entry<Key,Value> apply(Entry<Key,Value> entry) {
+            Key key = entry.getKey();
+            String cq = key.getColumnQualifier().toString();
+            int index = cq.indexOf('\0');
+            String date = index < 0 ? cq : cq.substring(0, index);
+            
+            Text countCq = new Text(key.getRow());
+            if (this.uniqueByDataType && index >= 0) {
+                TextUtil.textAppend(countCq, cq.substring(index + 1));
+            }
+            
+            long count;
+            try {
+                count = Uid.List.parseFrom(entry.getValue().get()).getCOUNT();
+            } catch (InvalidProtocolBufferException e) {
+                throw new IllegalArgumentException("Could not parse the uid list of " + key, e);
+            }
+            
+            Key countKey = new Key(new Text(date), new Text(Constants.FIELD_INDEX_PREFIX + key.getColumnFamily()), countCq, key.getColumnVisibility(),
+                            DateHelper.parse(date).getTime());
+            return Maps.immutableEntry(countKey, new Value(Long.toString(count).getBytes()));
+        }
+    }
+    
     private static String join(Collection<String> values, String sep) {
         StringBuilder b = new StringBuilder();
         for (String val : values) {
@@ -548,6 +676,7 @@ public class FieldIndexCountQueryLogic extends ShardQueryLogic {
         optionalParams.add(QueryParameters.PARAMETER_MODEL_NAME);
         optionalParams.add(QueryParameters.PARAMETER_MODEL_TABLE_NAME);
         optionalParams.add(QueryParameters.DATATYPE_FILTER_SET);
+        optionalParams.add(Constants.APPROXIMATE_COUNTS);
         return optionalParams;
     }
     
@@ -9,6 +9,7 @@ import datawave.query.iterator.NestedIterator;
 import datawave.query.iterator.QueryIterator;
 import datawave.query.iterator.SourcedOptions;
 import datawave.query.iterator.logic.IndexIterator;
+import datawave.query.iterator.profile.QuerySpan;
 import datawave.query.jexl.visitors.IteratorBuildingVisitor;
 import datawave.query.planner.SeekingQueryPlanner;
 import datawave.query.predicate.ChainableEventDataQueryFilter;
@@ -43,10 +44,14 @@ public class TLDQueryIterator extends QueryIterator {
     protected int maxFieldHitsBeforeSeek = -1;
     protected int maxKeysBeforeSeek = -1;
     
+    // shared by the evaluation filters of this iterator and its copies so the costs it learns carry across documents
+    protected TLDSeekPlanner seekPlanner = null;
+    
     public TLDQueryIterator() {}
     
     public TLDQueryIterator(TLDQueryIterator other, IteratorEnvironment env) {
         super(other, env);
+        this.seekPlanner = other.seekPlanner;
     }
     
     @Override
@@ -77,6 +82,10 @@ public class TLDQueryIterator extends QueryIterator {
             maxKeysBeforeSeek = Integer.parseInt(options.get(SeekingQueryPlanner.MAX_KEYS_BEFORE_SEEK));
         }
         
+        if (Boolean.parseBoolean(options.get(SeekingQueryPlanner.TLD_SEEK_PLANNER))) {
+            seekPlanner = new TLDSeekPlanner();
+        }
+        
         super.init(source, options, env);
         
         super.fiAggregator = new TLDFieldIndexAggregator(getNonEventFields(), getFIEvaluationFilter(), maxKeysBeforeSeek);
@@ -179,10 +188,20 @@ public class TLDQueryIterator extends QueryIterator {
             this.evaluationFilter = new TLDEventDataFilter(script, typeMetadata, useWhiteListedFields ? whiteListedFields : null,
                             useBlackListedFields ? blackListedFields : null, maxFieldHitsBeforeSeek, maxKeysBeforeSeek,
                             limitFieldsPreQueryEvaluation ? limitFieldsMap : Collections.EMPTY_MAP, limitFieldsField, getNonEventFields());
+            ((TLDEventDataFilter) this.evaluationFilter).setSeekPlanner(seekPlanner);
         }
         return this.evaluationFilter != null ? evaluationFilter.clone() : null;
     }
     
+    @Override
+    protected EventDataQueryFilter getDocumentDataFilter(QuerySpan trackingSpan) {
+        EventDataQueryFilter filter = super.getDocumentDataFilter(trackingSpan);
+        if (trackingSpan != null && filter instanceof TLDEventDataFilter) {
+            ((TLDEventDataFilter) filter).setQuerySpan(trackingSpan);
+        }
+        return filter;
+    }
+    
     @Override
     protected NestedIterator<Key> getEventDataNestedIterator(SortedKeyValueIterator<Key,Value> source) {
         return new TLDEventDataScanNestedIterator(source, getEventEntryKeyDataTypeFilter());
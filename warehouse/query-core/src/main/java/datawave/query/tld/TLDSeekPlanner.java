@@ -0,0 +1,213 @@
+package datawave.query.tld;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decides whether the {@link datawave.query.predicate.TLDEventDataFilter} should seek past the rest of a child document to the next query field, or next
+ * through it. Children of the same datatype tend to have the same layout, so the planner learns per datatype how many event keys a child holds and how long a
+ * next and a seek take, and seeks whenever the keys left in the child cost more to next through than a seek does. Until a datatype has been timed, a seek is
+ * assumed to cost {@link #DEFAULT_SEEK_COST_IN_NEXTS} nexts.
+ * <p>
+ * A planner is shared by the clones of a filter, so what one document teaches it is applied to the next. Filters collect their observations in {@link Samples}
+ * and add them to the planner once per document, so the planner is not locked for every key.
+ */
+public class TLDSeekPlanner {
+    /**
+     * The cost of a seek in nexts until both have been timed {@link #MIN_SAMPLES} times for a datatype
+     */
+    public static final double DEFAULT_SEEK_COST_IN_NEXTS = 10.0;
+    
+    /**
+     * The number of event keys of a child until {@link #MIN_SAMPLES} children of a datatype have been walked
+     */
+    public static final double DEFAULT_KEYS_PER_CHILD = 16.0;
+    
+    /**
+     * The number of samples before the learned costs replace the defaults
+     */
+    public static final long MIN_SAMPLES = 16;
+    
+    /**
+     * The number of samples that the moving averages are taken over once they have that many, so the costs follow changes in the data and the cache
+     */
+    public static final long WINDOW = 1000;
+    
+    /**
+     * Only one in this many nexts is timed, to keep the timing off most keys. Seeks are always timed.
+     */
+    public static final int NEXT_SAMPLE_INTERVAL = 8;
+    
+    private final ConcurrentMap<String,Costs> costs = new ConcurrentHashMap<>();
+    
+    /**
+     * Records the steps and children collected for a datatype, and clears them
+     *
+     * @param datatype
+     *            the datatype of the children
+     * @param samples
+     *            the steps and children observed since they were last recorded
+     */
+    public void record(String datatype, Samples samples) {
+        Costs datatypeCosts = getCosts(datatype);
+        datatypeCosts.recordSteps(false, samples.nexts, samples.nextNanos);
+        datatypeCosts.recordSteps(true, samples.seeks, samples.seekNanos);
+        datatypeCosts.recordChildren(samples.children, samples.childKeys);
+        samples.clear();
+    }
+    
+    /**
+     * @param datatype
+     *            the datatype of the child
+     * @param keysSeen
+     *            the number of event keys of the child that have been seen
+     * @return the number of keys that a seek past the rest of the child is expected to skip, at least one
+     */
+    public long getKeysToSkip(String datatype, long keysSeen) {
+        return Math.max(1, Math.round(getCosts(datatype).getKeysPerChild() - keysSeen));
+    }
+    
+    /**
+     * @param datatype
+     *            the datatype of the child
+     * @return the cost of a seek in nexts
+     */
+    public double getSeekCostInNexts(String datatype) {
+        return getCosts(datatype).getSeekCostInNexts();
+    }
+    
+    /**
+     * @param datatype
+     *            the datatype of the child
+     * @param keysToSkip
+     *            the number of keys that a seek would skip
+     * @return true if seeking past the keys is expected to be cheaper than nexting through them
+     */
+    public boolean shouldSeek(String datatype, long keysToSkip) {
+        return keysToSkip > getSeekCostInNexts(datatype);
+    }
+    
+    private Costs getCosts(String datatype) {
+        Costs datatypeCosts = costs.get(datatype);
+        if (datatypeCosts == null) {
+            Costs existing = costs.putIfAbsent(datatype, datatypeCosts = new Costs());
+            if (existing != null) {
+                datatypeCosts = existing;
+            }
+        }
+        return datatypeCosts;
+    }
+    
+    /**
+     * The steps and children observed by one filter, held locally until they are recorded with {@link #record(String, Samples)}
+     */
+    public static class Samples {
+        private long nexts = 0;
+        private long nextNanos = 0;
+        private long seeks = 0;
+        private long seekNanos = 0;
+        private long children = 0;
+        private long childKeys = 0;
+        
+        /**
+         * Records the time between the filter being handed a key and being handed the one after it
+         *
+         * @param seek
+         *            true if the filter asked for a seek to reach the next key, false if it was a next
+         * @param nanos
+         *            the time taken
+         */
+        public void recordStep(boolean seek, long nanos) {
+            if (seek) {
+                seeks++;
+                seekNanos += nanos;
+            } else {
+                nexts++;
+                nextNanos += nanos;
+            }
+        }
+        
+        /**
+         * Records the number of event keys of a child that was walked without a seek
+         *
+         * @param keys
+         *            the number of event keys in the child
+         */
+        public void recordChild(long keys) {
+            children++;
+            childKeys += keys;
+        }
+        
+        public boolean isEmpty() {
+            return nexts == 0 && seeks == 0 && children == 0;
+        }
+        
+        private void clear() {
+            nexts = 0;
+            nextNanos = 0;
+            seeks = 0;
+            seekNanos = 0;
+            children = 0;
+            childKeys = 0;
+        }
+    }
+    
+    private static class Costs {
+        private long nexts = 0;
+        private double nanosPerNext = 0.0;
+        private long seeks = 0;
+        private double nanosPerSeek = 0.0;
+        private long children = 0;
+        private double keysPerChild = 0.0;
+        
+        synchronized void recordSteps(boolean seek, long count, long nanos) {
+            if (count == 0) {
+                return;
+            }
+            if (seek) {
+                seeks += count;
+                nanosPerSeek = average(nanosPerSeek, seeks, count, nanos);
+            } else {
+                nexts += count;
+                nanosPerNext = average(nanosPerNext, nexts, count, nanos);
+            }
+        }
+        
+        synchronized void recordChildren(long count, long keys) {
+            if (count == 0) {
+                return;
+            }
+            children += count;
+            keysPerChild = average(keysPerChild, children, count, keys);
+        }
+        
+        synchronized double getSeekCostInNexts() {
+            if (seeks < MIN_SAMPLES || nexts < MIN_SAMPLES || nanosPerNext <= 0.0) {
+                return DEFAULT_SEEK_COST_IN_NEXTS;
+            }
+            return nanosPerSeek / nanosPerNext;
+        }
+        
+        synchronized double getKeysPerChild() {
+            return children < MIN_SAMPLES ? DEFAULT_KEYS_PER_CHILD : keysPerChild;
+        }
+        
+        /**
+         * A running mean over the first {@link #WINDOW} samples and an exponential moving average after
+         *
+         * @param average
+         *            the average before the batch
+         * @param samples
+         *            the number of samples, including the batch
+         * @param batch
+         *            the number of samples in the batch
+         * @param batchTotal
+         *            the sum of the samples in the batch
+         * @return the average including the batch
+         */
+        private static double average(double average, long samples, long batch, double batchTotal) {
+            double weight = Math.min(1.0, (double) batch / Math.min(samples, WINDOW));
+            return average + (batchTotal / batch - average) * weight;
+        }
+    }
+}
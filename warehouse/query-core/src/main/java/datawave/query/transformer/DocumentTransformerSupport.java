@@ -71,8 +71,14 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
     private long nextCount = 0;
     private long seekCount = 0;
     private long yieldCount = 0L;
+    private long savedSeekCount = 0;
+    private long savedNextCount = 0;
     private long docRanges = 0;
     private long fiRanges = 0;
+    private long ivaratorRanges = 0;
+    private long ivaratorFillTime = 0;
+    private long ivaratorWaitTime = 0;
+    private long ivaratorBytesSpilled = 0;
     private boolean logTimingDetails = false;
     private CardinalityRecord resultCardinalityDocumentDate = null;
     private CardinalityRecord resultCardinalityQueryDate = null;
@@ -219,11 +225,21 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
             long currentNextCount = timingMetadata.getNextCount();
             long currentSeekCount = timingMetadata.getSeekCount();
             long currentYieldCount = timingMetadata.getYieldCount();
+            long currentSavedSeekCount = timingMetadata.getSavedSeekCount();
+            long currentSavedNextCount = timingMetadata.getSavedNextCount();
             String host = timingMetadata.getHost();
             sourceCount += currentSourceCount;
             nextCount += currentNextCount;
             seekCount += currentSeekCount;
             yieldCount += currentYieldCount;
+            savedSeekCount += currentSavedSeekCount;
+            savedNextCount += currentSavedNextCount;
+            long currentIvaratorRanges = timingMetadata.getIvaratorRanges();
+            long currentIvaratorBytesSpilled = timingMetadata.getIvaratorBytesSpilled();
+            ivaratorRanges += currentIvaratorRanges;
+            ivaratorFillTime += timingMetadata.getIvaratorFillTime();
+            ivaratorWaitTime += timingMetadata.getIvaratorWaitTime();
+            ivaratorBytesSpilled += currentIvaratorBytesSpilled;
             Map<String,Long> stageTimers = timingMetadata.getStageTimers();
             if (stageTimers.containsKey(QuerySpan.Stage.DocumentSpecificTree.toString())) {
                 docRanges++;
@@ -237,6 +253,14 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
                                 .append(stageTimers);
                 sb.append(" sourceCount:").append(currentSourceCount).append(" nextCount:").append(currentNextCount).append(" seekCount:")
                                 .append(currentSeekCount).append(" yieldCount:").append(currentYieldCount);
+                if (currentSavedSeekCount != 0 || currentSavedNextCount != 0) {
+                    sb.append(" savedSeekCount:").append(currentSavedSeekCount).append(" savedNextCount:").append(currentSavedNextCount);
+                }
+                if (currentIvaratorRanges > 0 || currentIvaratorBytesSpilled > 0) {
+                    sb.append(" ivaratorRanges:").append(currentIvaratorRanges).append(" ivaratorFillTime:").append(timingMetadata.getIvaratorFillTime())
+                                    .append(" ivaratorWaitTime:").append(timingMetadata.getIvaratorWaitTime()).append(" ivaratorBytesSpilled:")
+                                    .append(currentIvaratorBytesSpilled);
+                }
                 if (log.isTraceEnabled()) {
                     log.trace(sb.toString());
                 } else {
@@ -260,6 +284,12 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
             metric.setYieldCount(yieldCount);
             metric.setDocRanges(docRanges);
             metric.setFiRanges(fiRanges);
+            metric.setIvaratorRanges(ivaratorRanges);
+            metric.setIvaratorFillTime(ivaratorFillTime);
+            metric.setIvaratorWaitTime(ivaratorWaitTime);
+            metric.setIvaratorBytesSpilled(ivaratorBytesSpilled);
+            metric.setSavedSeekCount(savedSeekCount);
+            metric.setSavedNextCount(savedNextCount);
         }
     }
     
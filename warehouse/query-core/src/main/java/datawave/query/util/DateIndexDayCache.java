@@ -0,0 +1,207 @@
+package datawave.query.util;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import datawave.ingest.mapreduce.handler.dateindex.DateIndexUtil;
+import datawave.query.util.DateIndexHelper.DateTypeDescription;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.log4j.Logger;
+
+/**
+ * A cache of the date index shared by the queries of a web server. It holds the fields and event dates that each day of a date type maps to, keyed by the date
+ * index table, the authorizations and the date type, so that the description of a date type over any date range can be assembled from the cached days and only
+ * the other days have to be scanned, see {@link DateIndexHelper#getTypeDescription}.
+ * <p>
+ * A day is kept for 24 hours at most. Today and later days are still being written to, so they are scanned again once they are older than
+ * {@link #getOpenDayTtl()} milliseconds.
+ */
+public class DateIndexDayCache {
+    private static final Logger log = Logger.getLogger(DateIndexDayCache.class);
+    
+    public static final long DEFAULT_MAX_ENTRIES = 1000000L;
+    public static final long DEFAULT_OPEN_DAY_TTL = TimeUnit.MINUTES.toMillis(5);
+    
+    private final Cache<DayKey,Day> days;
+    private final long openDayTtl;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    public DateIndexDayCache() {
+        this(DEFAULT_MAX_ENTRIES, 24, TimeUnit.HOURS, DEFAULT_OPEN_DAY_TTL);
+    }
+    
+    /**
+     * @param maxEntries
+     *            the maximum number of datatype and field entries held by the cache
+     * @param expireAfterWrite
+     *            how long a day is kept, which bounds how stale it can be after late data or an age off
+     * @param unit
+     *            the unit of expireAfterWrite
+     * @param openDayTtl
+     *            how long, in milliseconds, today and later days are used before they are scanned again
+     */
+    public DateIndexDayCache(long maxEntries, long expireAfterWrite, TimeUnit unit, long openDayTtl) {
+        this.days = CacheBuilder.newBuilder().maximumWeight(maxEntries).weigher((DayKey key, Day day) -> day.size() + 1)
+                        .expireAfterWrite(expireAfterWrite, unit).concurrencyLevel(100).build();
+        this.openDayTtl = openDayTtl;
+    }
+    
+    /**
+     * @param tableName
+     *            the date index table
+     * @param auths
+     *            the authorizations the date index is scanned with
+     * @param dateType
+     *            the date type
+     * @param dayList
+     *            the days of the date range, see {@link #getDays}
+     * @return the days that are cached and current, keyed by day
+     */
+    public Map<String,Day> get(String tableName, Set<Authorizations> auths, String dateType, Collection<String> dayList) {
+        Map<String,Day> cached = new HashMap<>();
+        long now = System.currentTimeMillis();
+        String today = DateIndexUtil.format(new Date(now));
+        for (String day : dayList) {
+            Day entries = days.getIfPresent(new DayKey(tableName, auths, dateType, day));
+            if (entries != null && (day.compareTo(today) < 0 || now - entries.loadTime < openDayTtl)) {
+                cached.put(day, entries);
+            }
+        }
+        hits.addAndGet(cached.size());
+        misses.addAndGet(dayList.size() - cached.size());
+        if (log.isDebugEnabled()) {
+            log.debug("Found " + cached.size() + " of " + dayList.size() + " days of " + dateType + " cached for " + tableName + ", " + auths);
+        }
+        return cached;
+    }
+    
+    /**
+     * Caches everything that one day of a date type maps to, including days that map to nothing
+     */
+    public void put(String tableName, Set<Authorizations> auths, String dateType, String day, Day entries) {
+        days.put(new DayKey(tableName, auths == null ? null : ImmutableSet.copyOf(auths), dateType, day), entries);
+    }
+    
+    public void invalidateAll() {
+        days.invalidateAll();
+    }
+    
+    public long size() {
+        return days.size();
+    }
+    
+    public long getOpenDayTtl() {
+        return openDayTtl;
+    }
+    
+    /**
+     * @return the number of days that were found in the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+    
+    /**
+     * @return the number of days that had to be scanned
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+    
+    /**
+     * @return the days, as rows of the date index, from the begin date to the end date, inclusive, in order
+     */
+    public static List<String> getDays(Date begin, Date end) {
+        List<String> dayList = new ArrayList<>();
+        String endDay = DateIndexUtil.format(end);
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(begin);
+        String day = DateIndexUtil.format(cal.getTime());
+        while (day.compareTo(endDay) <= 0) {
+            dayList.add(day);
+            cal.add(Calendar.DAY_OF_MONTH, 1);
+            day = DateIndexUtil.format(cal.getTime());
+        }
+        return dayList;
+    }
+    
+    /**
+     * The fields and event dates that one day of a date type maps to, per datatype
+     */
+    public static class Day {
+        private final Map<String,DateTypeDescription> datatypes = new HashMap<>();
+        private final long loadTime;
+        
+        /**
+         * @param loadTime
+         *            when the scan of this day started
+         */
+        public Day(long loadTime) {
+            this.loadTime = loadTime;
+        }
+        
+        public void add(String datatype, String field, String date) {
+            datatypes.computeIfAbsent(datatype, d -> new DateTypeDescription()).add(field, date);
+        }
+        
+        /**
+         * Adds the fields and event dates of the datatypes that pass the filter to a description
+         */
+        public void addTo(DateTypeDescription desc, Set<String> datatypeFilter) {
+            for (Map.Entry<String,DateTypeDescription> entry : datatypes.entrySet()) {
+                if (datatypeFilter == null || datatypeFilter.isEmpty() || datatypeFilter.contains(entry.getKey())) {
+                    desc.add(entry.getValue());
+                }
+            }
+        }
+        
+        public int size() {
+            int size = 0;
+            for (DateTypeDescription desc : datatypes.values()) {
+                size += desc.fields.size();
+            }
+            return size;
+        }
+    }
+    
+    private static class DayKey {
+        private final String tableName;
+        private final Set<Authorizations> auths;
+        private final String dateType;
+        private final String day;
+        
+        DayKey(String tableName, Set<Authorizations> auths, String dateType, String day) {
+            this.tableName = tableName;
+            this.auths = auths;
+            this.dateType = dateType;
+            this.day = day;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DayKey)) {
+                return false;
+            }
+            DayKey other = (DayKey) o;
+            return day.equals(other.day) && dateType.equals(other.dateType) && Objects.equals(tableName, other.tableName) && Objects.equals(auths, other.auths);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(tableName, auths, dateType, day);
+        }
+    }
+}
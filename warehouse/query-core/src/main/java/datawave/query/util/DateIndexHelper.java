@@ -27,11 +27,14 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -71,6 +74,8 @@ public class DateIndexHelper implements ApplicationContextAware {
     
     public static final String NULL_BYTE = "\0";
     
+    private static final DateIndexDayCache dayCache = new DateIndexDayCache();
+    
     protected Connector connector;
     protected Instance instance;
     
@@ -121,6 +126,10 @@ public class DateIndexHelper implements ApplicationContextAware {
         return applicationContext;
     }
     
+    public static DateIndexDayCache getDayCache() {
+        return dayCache;
+    }
+    
     protected DateIndexHelper() {}
     
     public static DateIndexHelper getInstance() {
@@ -178,6 +187,35 @@ public class DateIndexHelper implements ApplicationContextAware {
     public static class DateTypeDescription {
         final Set<String> fields = new HashSet<>();
         final String[] dateRange = new String[2];
+        int cachedDays = 0;
+        int scannedDays = 0;
+        
+        void add(String field, String date) {
+            fields.add(field);
+            addDate(date);
+        }
+        
+        void add(DateTypeDescription other) {
+            fields.addAll(other.fields);
+            if (other.dateRange[0] != null) {
+                addDate(other.dateRange[0]);
+                addDate(other.dateRange[1]);
+            }
+        }
+        
+        private void addDate(String date) {
+            if (dateRange[0] == null) {
+                dateRange[0] = date;
+                dateRange[1] = date;
+            } else {
+                if (date.compareTo(dateRange[0]) < 0) {
+                    dateRange[0] = date;
+                }
+                if (date.compareTo(dateRange[1]) > 0) {
+                    dateRange[1] = date;
+                }
+            }
+        }
         
         public Set<String> getFields() {
             return fields;
@@ -187,6 +225,20 @@ public class DateIndexHelper implements ApplicationContextAware {
             return dateRange;
         }
         
+        /**
+         * @return the number of days of the date range that were found in the {@link DateIndexDayCache}
+         */
+        public int getCachedDays() {
+            return cachedDays;
+        }
+        
+        /**
+         * @return the number of days of the date range that were scanned from the date index
+         */
+        public int getScannedDays() {
+            return scannedDays;
+        }
+        
         public Date getBeginDate() {
             try {
                 return DateIndexUtil.getBeginDate(dateRange[0]);
@@ -214,7 +266,8 @@ public class DateIndexHelper implements ApplicationContextAware {
     }
     
     /**
-     * Get the date type description which includes the fields and the mapped date range.
+     * Get the date type description which includes the fields and the mapped date range. The date index is cached per day of the date type, see
+     * {@link DateIndexDayCache}, so only the days of the date range that are not cached are scanned.
      * 
      * @param dateType
      * @param begin
@@ -223,52 +276,27 @@ public class DateIndexHelper implements ApplicationContextAware {
      * @return the date type description
      * @throws TableNotFoundException
      */
-    @Cacheable(value = "getTypeDescription", key = "{#root.target.dateIndexTableName,#root.target.auths,#dateType,#begin,#end,#datatypeFilter}",
-                    cacheManager = "dateIndexHelperCacheManager")
     public DateTypeDescription getTypeDescription(String dateType, Date begin, Date end, Set<String> datatypeFilter) throws TableNotFoundException {
-        log.debug("cache fault for getTypeDescription(" + dateIndexTableName + ", " + auths + ", " + dateType + ", " + begin + ", " + end + ", "
-                        + datatypeFilter + ")");
-        if (log.isTraceEnabled()) {
-            this.showMeDaCache("before getTypeDescription");
-        }
         long startTime = System.currentTimeMillis();
         
         DateTypeDescription desc = new DateTypeDescription();
         
-        BatchScanner bs = ScannerHelper.createBatchScanner(connector, dateIndexTableName, auths, numQueryThreads);
-        try {
-            
-            // scan from begin to end
-            bs.setRanges(Arrays.asList(new Range(DateIndexUtil.format(begin), DateIndexUtil.format(end) + '~')));
-            
-            // restrict to our date type
-            bs.fetchColumnFamily(new Text(dateType));
-            
-            Iterator<Entry<Key,Value>> iterator = bs.iterator();
-            
-            while (iterator.hasNext()) {
-                Entry<Key,Value> entry = iterator.next();
-                Key k = entry.getKey();
-                
-                String[] parts = StringUtils.split(k.getColumnQualifier().toString(), '\0');
-                if (datatypeFilter == null || datatypeFilter.isEmpty() || datatypeFilter.contains(parts[1])) {
-                    desc.fields.add(parts[2]);
-                    String date = parts[0];
-                    if (desc.dateRange[0] == null) {
-                        desc.dateRange[0] = date;
-                        desc.dateRange[1] = date;
-                    } else {
-                        if (date.compareTo(desc.dateRange[0]) < 0) {
-                            desc.dateRange[0] = date;
-                        }
-                        if (date.compareTo(desc.dateRange[1]) > 0) {
-                            desc.dateRange[1] = date;
-                        }
-                    }
-                }
+        List<String> days = DateIndexDayCache.getDays(begin, end);
+        Map<String,DateIndexDayCache.Day> cached = dayCache.get(dateIndexTableName, auths, dateType, days);
+        for (DateIndexDayCache.Day day : cached.values()) {
+            day.addTo(desc, datatypeFilter);
+        }
+        desc.cachedDays = cached.size();
+        desc.scannedDays = days.size() - cached.size();
+        
+        if (desc.scannedDays > 0) {
+            log.debug("cache fault for " + desc.scannedDays + " of " + days.size() + " days of getTypeDescription(" + dateIndexTableName + ", " + auths + ", "
+                            + dateType + ", " + begin + ", " + end + ")");
+            Map<String,DateIndexDayCache.Day> scanned = scanDays(dateType, days, cached.keySet());
+            for (Map.Entry<String,DateIndexDayCache.Day> entry : scanned.entrySet()) {
+                entry.getValue().addTo(desc, datatypeFilter);
+                dayCache.put(dateIndexTableName, auths, dateType, entry.getKey(), entry.getValue());
             }
-        } finally {
-            bs.close();
         }
         
         // if the dates are still empty, then default to the incoming dates
@@ -286,6 +314,55 @@ public class DateIndexHelper implements ApplicationContextAware {
         return desc;
     }
     
+    /**
+     * Scans the days of a date type that are not cached, in runs of consecutive days
+     *
+     * @param dateType
+     *            the date type
+     * @param days
+     *            the days of the date range, in order
+     * @param cachedDays
+     *            the days that are cached
+     * @return everything each of the scanned days maps to, including the days that map to nothing
+     * @throws TableNotFoundException
+     */
+    protected Map<String,DateIndexDayCache.Day> scanDays(String dateType, List<String> days, Set<String> cachedDays) throws TableNotFoundException {
+        long loadTime = System.currentTimeMillis();
+        Map<String,DateIndexDayCache.Day> scanned = new HashMap<>();
+        List<Range> ranges = new ArrayList<>();
+        for (String[] run : DayRuns.getUncachedRuns(days, cachedDays)) {
+            ranges.add(new Range(run[0], run[1] + '~'));
+        }
+        for (String day : days) {
+            if (!cachedDays.contains(day)) {
+                scanned.put(day, new DateIndexDayCache.Day(loadTime));
+            }
+        }
+        
+        BatchScanner bs = ScannerHelper.createBatchScanner(connector, dateIndexTableName, auths, numQueryThreads);
+        try {
+            bs.setRanges(ranges);
+            
+            // restrict to our date type
+            bs.fetchColumnFamily(new Text(dateType));
+            
+            for (Entry<Key,Value> entry : bs) {
+                Key k = entry.getKey();
+                String row = k.getRow().toString();
+                // the row may be sharded, the day is the date part
+                int index = row.indexOf('_');
+                DateIndexDayCache.Day day = scanned.get(index < 0 ? row : row.substring(0, index));
+                if (day != null) {
+                    String[] parts = StringUtils.split(k.getColumnQualifier().toString(), '\0');
+                    day.add(parts[1], parts[2], parts[0]);
+                }
+            }
+        } finally {
+            bs.close();
+        }
+        return scanned;
+    }
+    
     /**
      * Get a comma delimited set of shards and days to be used as the SHARDS_AND_DAYS hint to support to the RangeStream.
      * 
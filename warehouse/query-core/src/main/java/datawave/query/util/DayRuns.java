@@ -0,0 +1,38 @@
+package datawave.query.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Groups days into runs of consecutive days, for the caches that hold a table per day and scan the days they are missing with one range per run
+ */
+public class DayRuns {
+    
+    private DayRuns() {}
+    
+    /**
+     * Groups the days that are not cached into runs of consecutive days, each of which can be scanned with a single date range
+     *
+     * @param days
+     *            the days of a lookup, in order
+     * @param cachedDays
+     *            the days that are cached
+     * @return the first and last day of each run
+     */
+    public static List<String[]> getUncachedRuns(List<String> days, Set<String> cachedDays) {
+        List<String[]> runs = new ArrayList<>();
+        String[] run = null;
+        for (String day : days) {
+            if (cachedDays.contains(day)) {
+                run = null;
+            } else if (run == null) {
+                run = new String[] {day, day};
+                runs.add(run);
+            } else {
+                run[1] = day;
+            }
+        }
+        return runs;
+    }
+}
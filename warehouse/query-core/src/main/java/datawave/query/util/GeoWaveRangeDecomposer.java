@@ -0,0 +1,329 @@
+package datawave.query.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import datawave.query.config.ShardQueryConfiguration;
+import org.apache.log4j.Logger;
+import org.locationtech.geowave.core.geotime.util.GeometryUtils;
+import org.locationtech.geowave.core.index.ByteArrayRange;
+import org.locationtech.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import org.locationtech.geowave.core.store.api.Index;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Decomposes the geometry of a geowave function into the ranges of a geowave index. Decompositions are cached by the queries of a web server, keyed by the
+ * normalized geometry, its envelopes, the index and the settings that determine the tiers and resolution of the ranges, so a geometry that is queried again is
+ * not decomposed again. The least recently used decompositions are evicted once the cache holds {@link #DEFAULT_MAX_RANGES} ranges.
+ * <p>
+ * A geometry that decomposes into many ranges is optimized by several threads, see {@link ShardQueryConfiguration#getGeoWaveDecompositionThreads()}. If a
+ * range budget is set, the closest ranges of a tier are merged until the decomposition fits in it, see
+ * {@link ShardQueryConfiguration#getGeoWaveRangeBudget()}.
+ */
+public class GeoWaveRangeDecomposer {
+    private static final Logger log = Logger.getLogger(GeoWaveRangeDecomposer.class);
+    
+    public static final long DEFAULT_MAX_RANGES = 1000000L;
+    
+    /**
+     * The fewest ranges that are worth optimizing on another thread
+     */
+    protected static final int MIN_RANGES_PER_TASK = 32;
+    
+    private final Cache<DecompositionKey,List<ByteArrayRange>> decompositions;
+    private final ExecutorService executor;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    public GeoWaveRangeDecomposer() {
+        this(DEFAULT_MAX_RANGES, 24, TimeUnit.HOURS, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * @param maxRanges
+     *            the maximum number of ranges held by the cache
+     * @param expireAfterAccess
+     *            how long a decomposition that is not used is kept
+     * @param unit
+     *            the unit of expireAfterAccess
+     * @param threads
+     *            the number of threads shared by the decompositions
+     */
+    public GeoWaveRangeDecomposer(long maxRanges, long expireAfterAccess, TimeUnit unit, int threads) {
+        this.decompositions = CacheBuilder.newBuilder().maximumWeight(maxRanges)
+                        .weigher((DecompositionKey key, List<ByteArrayRange> ranges) -> ranges.size() + 1).expireAfterAccess(expireAfterAccess, unit)
+                        .concurrencyLevel(100).build();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads),
+                        new ThreadFactoryBuilder().setNameFormat("GeoWaveRangeDecomposer-%d").setDaemon(true).build());
+    }
+    
+    /**
+     * Decomposes a geometry into sorted and disjoint ranges of an index
+     *
+     * @param geometry
+     *            the geometry of the function
+     * @param envs
+     *            the envelopes of the geometry
+     * @param index
+     *            the geowave index of the field
+     * @param maxExpansion
+     *            the maximum number of ranges per tier for all of the envelopes
+     * @param config
+     *            the configuration of the query, whose decomposition counters are updated
+     * @return the ranges of the geometry
+     */
+    public List<ByteArrayRange> decompose(Geometry geometry, List<Envelope> envs, Index index, int maxExpansion, ShardQueryConfiguration config) {
+        long start = System.currentTimeMillis();
+        List<ByteArrayRange> ranges = null;
+        
+        DecompositionKey key = null;
+        if (config.isCacheGeoWaveDecompositions()) {
+            key = new DecompositionKey(geometry.norm().toText(), envs, index.getName(), maxExpansion, config);
+            ranges = decompositions.getIfPresent(key);
+        }
+        
+        if (ranges != null) {
+            hits.incrementAndGet();
+            config.setGeoWaveDecompositionCacheHits(add(config.getGeoWaveDecompositionCacheHits(), 1));
+        } else {
+            misses.incrementAndGet();
+            ranges = ImmutableList.copyOf(decompose(geometry, envs, index, maxExpansion, config.isOptimizeGeoWaveRanges(),
+                            config.getGeoWaveRangeSplitThreshold(), config.getGeoWaveMaxRangeOverlap(), config.getGeoWaveRangeBudget(),
+                            config.getGeoWaveDecompositionThreads()));
+            if (key != null) {
+                decompositions.put(key, ranges);
+            }
+        }
+        
+        long elapsed = System.currentTimeMillis() - start;
+        config.setGeoWaveDecompositionTime((config.getGeoWaveDecompositionTime() == null ? 0L : config.getGeoWaveDecompositionTime()) + elapsed);
+        config.setGeoWaveRangeCount(add(config.getGeoWaveRangeCount(), ranges.size()));
+        if (log.isDebugEnabled()) {
+            log.debug("Decomposed " + geometry.getGeometryType() + " into " + ranges.size() + " ranges of " + index.getName() + " in " + elapsed + "ms");
+        }
+        return ranges;
+    }
+    
+    /**
+     * Decomposes a geometry into sorted and disjoint ranges of an index without the cache
+     *
+     * @param geometry
+     *            the geometry of the function
+     * @param envs
+     *            the envelopes of the geometry
+     * @param index
+     *            the geowave index of the field
+     * @param maxExpansion
+     *            the maximum number of ranges per tier for all of the envelopes
+     * @param optimize
+     *            whether the portions of the ranges which do not intersect the geometry are pruned, see {@link GeoWaveUtils#optimizeByteArrayRanges}
+     * @param rangeSplitThreshold
+     *            the minimum number of segments to break a range into when optimizing
+     * @param maxRangeOverlap
+     *            the maximum overlap of a range with the envelope of the geometry when optimizing
+     * @param rangeBudget
+     *            the maximum number of ranges, or 0 for no maximum
+     * @param threads
+     *            the maximum number of threads to decompose the geometry with
+     * @return the ranges of the geometry
+     */
+    public List<ByteArrayRange> decompose(Geometry geometry, List<Envelope> envs, Index index, int maxExpansion, boolean optimize, int rangeSplitThreshold,
+                    double maxRangeOverlap, int rangeBudget, int threads) {
+        int maxRanges = maxExpansion / envs.size();
+        List<ByteArrayRange> ranges = new ArrayList<>();
+        for (Envelope env : envs) {
+            for (MultiDimensionalNumericData range : GeometryUtils.basicConstraintsFromEnvelope(env).getIndexConstraints(index)) {
+                ranges.addAll(index.getIndexStrategy().getQueryRanges(range, maxRanges).getCompositeQueryRanges());
+            }
+        }
+        
+        if (optimize) {
+            ranges = optimize(geometry, ranges, rangeSplitThreshold, maxRangeOverlap, threads);
+        }
+        
+        Collection<ByteArrayRange> merged = ByteArrayRange.mergeIntersections(ranges, ByteArrayRange.MergeOperation.UNION);
+        ranges = new ArrayList<>(merged);
+        Collections.sort(ranges);
+        
+        if (rangeBudget > 0 && ranges.size() > rangeBudget) {
+            ranges = mergeToBudget(ranges, rangeBudget);
+        }
+        return ranges;
+    }
+    
+    /**
+     * Optimizes the ranges of a geometry, splitting them across up to threads tasks. Each task gets its own copy of the geometry, since a geometry caches
+     * derived state as it is used.
+     */
+    protected List<ByteArrayRange> optimize(Geometry geometry, List<ByteArrayRange> ranges, int rangeSplitThreshold, double maxRangeOverlap, int threads) {
+        int tasks = Math.min(threads, ranges.size() / MIN_RANGES_PER_TASK);
+        if (tasks <= 1) {
+            return GeoWaveUtils.optimizeByteArrayRanges(geometry, ranges, rangeSplitThreshold, maxRangeOverlap);
+        }
+        
+        int rangesPerTask = (ranges.size() + tasks - 1) / tasks;
+        List<Future<List<ByteArrayRange>>> futures = new ArrayList<>(tasks);
+        for (int i = 0; i < ranges.size(); i += rangesPerTask) {
+            List<ByteArrayRange> chunk = ranges.subList(i, Math.min(ranges.size(), i + rangesPerTask));
+            Geometry copy = geometry.copy();
+            futures.add(executor.submit(() -> GeoWaveUtils.optimizeByteArrayRanges(copy, chunk, rangeSplitThreshold, maxRangeOverlap)));
+        }
+        
+        List<ByteArrayRange> optimized = new ArrayList<>();
+        try {
+            for (Future<List<ByteArrayRange>> future : futures) {
+                optimized.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while optimizing geowave ranges", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("Unable to optimize geowave ranges", e.getCause());
+        }
+        return optimized;
+    }
+    
+    /**
+     * Merges the ranges of a tier that have the smallest gaps between them until there are no more than rangeBudget ranges, or no two ranges share a tier.
+     * Merging only widens ranges, so the merged ranges still cover the geometry.
+     *
+     * @param ranges
+     *            sorted and disjoint ranges
+     * @param rangeBudget
+     *            the maximum number of ranges
+     * @return the merged ranges, sorted
+     */
+    public static List<ByteArrayRange> mergeToBudget(List<ByteArrayRange> ranges, int rangeBudget) {
+        ByteBuffer longBuffer = ByteBuffer.allocate(Long.BYTES);
+        
+        // the gaps between each range and the next one of the same tier, smallest first
+        PriorityQueue<Gap> gaps = new PriorityQueue<>();
+        for (int i = 0; i + 1 < ranges.size(); i++) {
+            ByteArrayRange range = ranges.get(i);
+            ByteArrayRange next = ranges.get(i + 1);
+            if (GeoWaveUtils.decodeTier(range.getEnd()) == GeoWaveUtils.decodeTier(next.getStart())) {
+                long gap = GeoWaveUtils.decodePosition(next.getStart(), longBuffer) - GeoWaveUtils.decodePosition(range.getEnd(), longBuffer);
+                gaps.add(new Gap(i, gap));
+            }
+        }
+        
+        // a range is merged into the next one when the gap after it is closed
+        boolean[] mergeWithNext = new boolean[ranges.size()];
+        int count = ranges.size();
+        while (count > rangeBudget && !gaps.isEmpty()) {
+            mergeWithNext[gaps.poll().index] = true;
+            count--;
+        }
+        
+        List<ByteArrayRange> merged = new ArrayList<>(count);
+        int first = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            if (!mergeWithNext[i]) {
+                merged.add(first == i ? ranges.get(i) : new ByteArrayRange(ranges.get(first).getStart(), ranges.get(i).getEnd(), false));
+                first = i + 1;
+            }
+        }
+        return merged;
+    }
+    
+    private static Integer add(Integer count, int value) {
+        return (count == null ? 0 : count) + value;
+    }
+    
+    public void invalidateAll() {
+        decompositions.invalidateAll();
+    }
+    
+    public long size() {
+        return decompositions.size();
+    }
+    
+    /**
+     * @return the number of decompositions that were found in the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+    
+    /**
+     * @return the number of geometries that had to be decomposed
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+    
+    private static class Gap implements Comparable<Gap> {
+        private final int index;
+        private final long size;
+        
+        private Gap(int index, long size) {
+            this.index = index;
+            this.size = size;
+        }
+        
+        @Override
+        public int compareTo(Gap other) {
+            int result = Long.compare(size, other.size);
+            return result != 0 ? result : Integer.compare(index, other.index);
+        }
+    }
+    
+    private static class DecompositionKey {
+        private final String geometry;
+        private final List<Envelope> envs;
+        private final String index;
+        private final int maxExpansion;
+        private final boolean optimize;
+        private final int rangeSplitThreshold;
+        private final double maxRangeOverlap;
+        private final int rangeBudget;
+        
+        private DecompositionKey(String geometry, List<Envelope> envs, String index, int maxExpansion, ShardQueryConfiguration config) {
+            this.geometry = geometry;
+            this.envs = new ArrayList<>(envs);
+            this.index = index;
+            this.maxExpansion = maxExpansion;
+            this.optimize = config.isOptimizeGeoWaveRanges();
+            this.rangeSplitThreshold = config.getGeoWaveRangeSplitThreshold();
+            this.maxRangeOverlap = config.getGeoWaveMaxRangeOverlap();
+            this.rangeBudget = config.getGeoWaveRangeBudget();
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DecompositionKey other = (DecompositionKey) o;
+            return maxExpansion == other.maxExpansion && optimize == other.optimize && rangeSplitThreshold == other.rangeSplitThreshold
+                            && Double.compare(maxRangeOverlap, other.maxRangeOverlap) == 0 && rangeBudget == other.rangeBudget
+                            && geometry.equals(other.geometry) && envs.equals(other.envs) && index.equals(other.index);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(geometry, envs, index, maxExpansion, optimize, rangeSplitThreshold, maxRangeOverlap, rangeBudget);
+        }
+    }
+}
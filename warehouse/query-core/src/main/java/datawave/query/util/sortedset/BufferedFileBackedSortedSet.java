@@ -34,6 +34,7 @@ public class BufferedFileBackedSortedSet<E> implements SortedSet<E> {
     protected boolean sizeModified = false;
     protected int size = 0;
     protected int numRetries;
+    protected long persistedBytes = 0;
     
     protected List<SortedSetFileHandlerFactory> handlerFactories;
     protected int bufferPersistThreshold;
@@ -61,6 +62,7 @@ public class BufferedFileBackedSortedSet<E> implements SortedSet<E> {
         }
         this.sizeModified = other.sizeModified;
         this.size = other.size;
+        this.persistedBytes = other.persistedBytes;
     }
     
     public BufferedFileBackedSortedSet(List<SortedSetFileHandlerFactory> handlerFactories) {
@@ -120,6 +122,7 @@ public class BufferedFileBackedSortedSet<E> implements SortedSet<E> {
                     for (int attempts = 0; attempts <= numRetries && !buffer.isPersisted(); attempts++) {
                         try {
                             buffer.persist(handler);
+                            persistedBytes += handler.getSize();
                         } catch (IOException e) {
                             if (attempts == numRetries)
                                 cause = e;
@@ -176,6 +179,13 @@ public class BufferedFileBackedSortedSet<E> implements SortedSet<E> {
         return (buffer == null || buffer.isPersisted());
     }
     
+    /**
+     * @return the bytes written when the buffer was persisted, not counting compactions
+     */
+    public long getPersistedBytes() {
+        return persistedBytes;
+    }
+    
     @Override
     public int size() {
         if (sizeModified) {
@@ -0,0 +1,72 @@
+package datawave.core.iterators;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import datawave.core.iterators.filter.GlobalIndexTermMatchingFilter;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GlobalIndexTermMatchingIteratorTest {
+    
+    private final TreeMap<Key,Value> index = new TreeMap<>();
+    
+    @Before
+    public void setup() {
+        for (String term : new String[] {"abc", "abd", "xyz"}) {
+            for (String day : new String[] {"20190101", "20190102"}) {
+                for (int shard = 0; shard < 3; shard++) {
+                    index.put(new Key(term, "FOO", day + "_" + shard + "\0csv"), new Value());
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testUniqueTerms() throws IOException {
+        List<Key> keys = scan(false);
+        Assert.assertEquals(2, keys.size());
+        Assert.assertEquals("abc", keys.get(0).getRow().toString());
+        Assert.assertEquals("abd", keys.get(1).getRow().toString());
+    }
+    
+    @Test
+    public void testUniqueTermsPerDay() throws IOException {
+        List<Key> keys = scan(true);
+        Assert.assertEquals(4, keys.size());
+        Assert.assertEquals(new Key("abc", "FOO", "20190101_0\0csv"), keys.get(0));
+        Assert.assertEquals(new Key("abc", "FOO", "20190102_0\0csv"), keys.get(1));
+        Assert.assertEquals(new Key("abd", "FOO", "20190101_0\0csv"), keys.get(2));
+        Assert.assertEquals(new Key("abd", "FOO", "20190102_0\0csv"), keys.get(3));
+    }
+    
+    private List<Key> scan(boolean perDay) throws IOException {
+        Map<String,String> options = new HashMap<>();
+        options.put(GlobalIndexTermMatchingFilter.PATTERN + 1, "ab.*");
+        options.put(GlobalIndexTermMatchingFilter.REVERSE_INDEX, "false");
+        options.put(GlobalIndexTermMatchingIterator.UNIQUE_TERMS_IN_FIELD, "true");
+        if (perDay) {
+            options.put(GlobalIndexTermMatchingIterator.UNIQUE_TERMS_PER_DAY, "true");
+        }
+        GlobalIndexTermMatchingIterator iterator = new GlobalIndexTermMatchingIterator();
+        iterator.init(new SortedMapIterator(index), options, null);
+        iterator.seek(new Range(), Collections.emptySet(), false);
+        
+        List<Key> keys = new ArrayList<>();
+        while (iterator.hasTop()) {
+            keys.add(iterator.getTopKey());
+            iterator.next();
+        }
+        return keys;
+    }
+}
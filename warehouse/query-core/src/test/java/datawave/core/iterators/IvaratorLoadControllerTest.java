@@ -0,0 +1,99 @@
+package datawave.core.iterators;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class IvaratorLoadControllerTest {
+    
+    @Test
+    public void testCutWhenOverloaded() throws Exception {
+        IvaratorLoadController controller = new IvaratorLoadController(1, 8, 2.0);
+        fill(controller, 1000);
+        
+        Assert.assertEquals(6, controller.adjust(3.0));
+        
+        // nothing completed while overloaded, so the limit holds
+        Assert.assertEquals(6, controller.adjust(3.0));
+        
+        // and recovers once the load drops
+        Assert.assertEquals(7, controller.adjust(1.0));
+        Assert.assertEquals(8, controller.adjust(1.0));
+        Assert.assertEquals(8, controller.adjust(1.0));
+    }
+    
+    @Test
+    public void testCutWhenThroughputDrops() throws Exception {
+        IvaratorLoadController controller = new IvaratorLoadController(1, 8, 2.0);
+        fill(controller, 1000);
+        Assert.assertEquals(8, controller.adjust(1.0));
+        
+        // a tenth of the throughput
+        fill(controller, 100);
+        Assert.assertEquals(6, controller.adjust(1.0));
+        
+        // never below the minimum
+        for (int i = 0; i < 10; i++) {
+            fill(controller, 1);
+            controller.adjust(1.0);
+        }
+        Assert.assertEquals(1, controller.getLimit());
+    }
+    
+    @Test
+    public void testSaturationRaisesLimit() throws Exception {
+        IvaratorLoadController controller = new IvaratorLoadController(1, 4, 2.0);
+        fill(controller, 1000);
+        Assert.assertEquals(4, controller.adjust(1.0));
+        fill(controller, 100);
+        Assert.assertEquals(3, controller.adjust(1.0));
+        
+        for (int i = 0; i < 3; i++) {
+            controller.acquire();
+        }
+        Thread waiter = new Thread(() -> {
+            try {
+                controller.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        controller.release(1000, 1000, 0);
+        
+        // the fill waited and throughput held, so one more is allowed
+        Assert.assertEquals(4, controller.adjust(1.0));
+        waiter.join();
+    }
+    
+    @Test
+    public void testTotals() throws Exception {
+        IvaratorLoadController controller = new IvaratorLoadController(4);
+        controller.acquire();
+        controller.release(10, TimeUnit.MILLISECONDS.toNanos(20), TimeUnit.MILLISECONDS.toNanos(5));
+        controller.acquire();
+        controller.release(30, TimeUnit.MILLISECONDS.toNanos(40), TimeUnit.MILLISECONDS.toNanos(15));
+        controller.addBytesSpilled(1024);
+        
+        Assert.assertEquals(2, controller.getRanges());
+        Assert.assertEquals(40, controller.getKeys());
+        Assert.assertEquals(60, controller.getFillTime());
+        Assert.assertEquals(20, controller.getWaitTime());
+        Assert.assertEquals(1024, controller.getBytesSpilled());
+        
+        Assert.assertEquals(2, controller.getSourceLimit(2));
+        Assert.assertEquals(4, controller.getSourceLimit(16));
+        controller.setMaxLimit(1);
+        Assert.assertEquals(1, controller.getLimit());
+        Assert.assertEquals(1, controller.getSourceLimit(16));
+    }
+    
+    private static void fill(IvaratorLoadController controller, long keys) throws InterruptedException {
+        controller.acquire();
+        controller.release(keys, 1000, 0);
+    }
+}
@@ -0,0 +1,102 @@
+package datawave.core.iterators.querylock;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.UUID;
+
+public class LeaseQueryLockTest {
+    
+    private static final long LEASE = 1000L * 60 * 60;
+    
+    private QueryLock build(String queryId, long lease) throws Exception {
+        return new QueryLock.Builder().forQueryId(queryId).forLocal(true).forLease(lease).build();
+    }
+    
+    @Test
+    public void testSharedLease() throws Exception {
+        String queryId = UUID.randomUUID().toString();
+        new LocalQueryLock(queryId).startQuery();
+        
+        QueryLock lock = build(queryId, LEASE);
+        Assert.assertTrue(lock instanceof LeaseQueryLock);
+        Assert.assertSame(lock, build(queryId, LEASE));
+        
+        LeaseQueryLock lease = (LeaseQueryLock) lock;
+        long now = System.currentTimeMillis();
+        Assert.assertTrue(lease.isQueryRunning(now));
+        Assert.assertTrue(lease.isQueryRunning(now + 1));
+        Assert.assertTrue(build(queryId, LEASE).isQueryRunning());
+        Assert.assertEquals(1, lease.getRemoteChecks());
+        Assert.assertEquals(2, lease.getLocalChecks());
+    }
+    
+    @Test
+    public void testStopSeenWhenLeaseExpires() throws Exception {
+        String queryId = UUID.randomUUID().toString();
+        QueryLock local = new LocalQueryLock(queryId);
+        local.startQuery();
+        
+        LeaseQueryLock lease = (LeaseQueryLock) build(queryId, LEASE);
+        long now = System.currentTimeMillis();
+        Assert.assertTrue(lease.isQueryRunning(now));
+        
+        local.stopQuery();
+        Assert.assertTrue(lease.isQueryRunning(now + LEASE - 1));
+        Assert.assertFalse(lease.isQueryRunning(now + LEASE));
+        
+        // a stopped query stays stopped without checking again
+        Assert.assertFalse(lease.isQueryRunning(now + 3 * LEASE));
+        Assert.assertEquals(2, lease.getRemoteChecks());
+    }
+    
+    @Test
+    public void testStopQuery() throws Exception {
+        String queryId = UUID.randomUUID().toString();
+        QueryLock lock = build(queryId, LEASE);
+        lock.startQuery();
+        Assert.assertTrue(lock.isQueryRunning());
+        
+        lock.stopQuery();
+        Assert.assertFalse(lock.isQueryRunning());
+        Assert.assertFalse(new LocalQueryLock(queryId).isQueryRunning());
+    }
+    
+    @Test
+    public void testRenewAndRelease() throws Exception {
+        String queryId = UUID.randomUUID().toString();
+        QueryLock local = new LocalQueryLock(queryId);
+        local.startQuery();
+        
+        LeaseQueryLock lease = (LeaseQueryLock) build(queryId, LEASE);
+        long now = System.currentTimeMillis();
+        Assert.assertTrue(lease.isQueryRunning(now));
+        
+        // renewed once it is within half a lease of expiring
+        LeaseQueryLock.renewLeases(now + LEASE / 4);
+        Assert.assertEquals(1, lease.getRemoteChecks());
+        LeaseQueryLock.renewLeases(now + LEASE / 2 + 1);
+        Assert.assertEquals(2, lease.getRemoteChecks());
+        Assert.assertTrue(lease.isQueryRunning(now + LEASE + 1));
+        Assert.assertEquals(2, lease.getRemoteChecks());
+        
+        // dropped once it has not been checked for two leases
+        LeaseQueryLock.renewLeases(now + 4 * LEASE);
+        QueryLock rebuilt = build(queryId, LEASE);
+        Assert.assertNotSame(lease, rebuilt);
+        Assert.assertTrue(rebuilt.isQueryRunning());
+        
+        // a dropped lease that is still in use defers to the lease that replaced it
+        Assert.assertTrue(lease.isQueryRunning(now + 4 * LEASE + 1));
+        Assert.assertEquals(2, lease.getRemoteChecks());
+        Assert.assertEquals(2, ((LeaseQueryLock) rebuilt).getRemoteChecks());
+        local.stopQuery();
+    }
+    
+    @Test
+    public void testWithoutLease() throws Exception {
+        String queryId = UUID.randomUUID().toString();
+        Assert.assertTrue(build(queryId, 0) instanceof LocalQueryLock);
+        Assert.assertNull(new QueryLock.Builder().forQueryId(queryId).forLease(LEASE).build());
+    }
+}
@@ -0,0 +1,147 @@
+package datawave.mr.bulk;
+
+import com.google.common.collect.Lists;
+import datawave.webservice.query.configuration.QueryData;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.rfile.RFile;
+import org.apache.accumulo.core.client.rfile.RFileWriter;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.user.RegExFilter;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class RfileQueryRunnerTest {
+    
+    private static final int SHARDS = 10;
+    private static final int FILES = 3;
+    
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
+    private Configuration conf;
+    private List<Path> files;
+    private SortedMap<Key,Value> expected;
+    
+    @Before
+    public void setup() throws Exception {
+        File tempDir = temporaryFolder.newFolder();
+        System.setProperty("hadoop.home.dir", tempDir.getCanonicalPath());
+        
+        conf = new Configuration();
+        files = Lists.newArrayList();
+        expected = new TreeMap<>();
+        
+        // spread the keys of every shard across all of the files, as the files of a tablet would be
+        List<SortedMap<Key,Value>> contents = Lists.newArrayList();
+        for (int i = 0; i < FILES; i++) {
+            contents.add(new TreeMap<>());
+        }
+        int count = 0;
+        for (int shard = 0; shard < SHARDS; shard++) {
+            for (int uid = 0; uid < 20; uid++) {
+                String visibility = (uid % 5 == 0 ? "B" : "A");
+                Key key = new Key("20190101_" + shard, "datatype\0uid" + uid, "FIELD\0" + (uid % 2 == 0 ? "even" : "odd"), visibility);
+                Value value = new Value(Integer.toString(uid).getBytes());
+                contents.get(count++ % FILES).put(key, value);
+                if (visibility.equals("A")) {
+                    expected.put(key, value);
+                }
+            }
+        }
+        
+        FileSystem fs = FileSystem.getLocal(conf);
+        for (int i = 0; i < FILES; i++) {
+            File file = new File(tempDir, "file" + i + ".rf");
+            try (RFileWriter writer = RFile.newWriter().to(file.getAbsolutePath()).withFileSystem(fs).build()) {
+                writer.append(contents.get(i).entrySet());
+            }
+            files.add(new Path(file.toURI()));
+        }
+    }
+    
+    private static List<Range> shardRanges(int start, int end) {
+        List<Range> ranges = Lists.newArrayList();
+        for (int shard = start; shard < end; shard++) {
+            ranges.add(new Range("20190101_" + shard));
+        }
+        return ranges;
+    }
+    
+    private static IteratorSetting filter(String parity) {
+        IteratorSetting setting = new IteratorSetting(30, "filter", RegExFilter.class);
+        RegExFilter.setRegexs(setting, null, null, ".*\0" + parity, null, false);
+        return setting;
+    }
+    
+    private List<Entry<Key,Value>> run(List<QueryData> queries, int threads) throws Exception {
+        List<Entry<Key,Value>> results = Lists.newArrayList();
+        try (RfileQueryRunner runner = new RfileQueryRunner(conf, null, new Authorizations("A"), RfileQueryRunner.forFiles(files), threads)) {
+            Iterator<Entry<Key,Value>> it = runner.run(queries.iterator());
+            while (it.hasNext()) {
+                results.add(it.next());
+            }
+        }
+        return results;
+    }
+    
+    private static SortedMap<Key,Value> filter(SortedMap<Key,Value> entries, String parity, int start, int end) {
+        SortedMap<Key,Value> filtered = new TreeMap<>();
+        for (Entry<Key,Value> entry : entries.entrySet()) {
+            int shard = Integer.parseInt(entry.getKey().getRow().toString().substring("20190101_".length()));
+            if (shard >= start && shard < end && entry.getKey().getColumnQualifier().toString().endsWith(parity)) {
+                filtered.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return filtered;
+    }
+    
+    @Test
+    public void testMergeInKeyOrder() throws Exception {
+        // the query data is not in key order, and each has its own iterators
+        QueryData odd = new QueryData("odd", shardRanges(5, SHARDS), Collections.singletonList(filter("odd")));
+        QueryData all = new QueryData("all", shardRanges(0, 5), Collections.emptyList());
+        
+        SortedMap<Key,Value> expectedResults = new TreeMap<>(filter(expected, "", 0, 5));
+        expectedResults.putAll(filter(expected, "odd", 5, SHARDS));
+        
+        List<Entry<Key,Value>> results = run(Arrays.asList(odd, all), 3);
+        assertEquals(Lists.newArrayList(expectedResults.entrySet()), results);
+    }
+    
+    @Test
+    public void testOverlappingRanges() throws Exception {
+        conf.setInt(RfileQueryRunner.RFILE_QUERY_BUFFER_SIZE, 2);
+        
+        // every shard is read by both, so the results interleave and the pool must grow past one thread
+        QueryData even = new QueryData("even", shardRanges(0, SHARDS), Collections.singletonList(filter("even")));
+        QueryData odd = new QueryData("odd", shardRanges(0, SHARDS), Collections.singletonList(filter("odd")));
+        
+        List<Entry<Key,Value>> results = run(Arrays.asList(even, odd), 1);
+        assertEquals(Lists.newArrayList(expected.entrySet()), results);
+    }
+    
+    @Test
+    public void testEmptyPlan() throws Exception {
+        QueryData none = new QueryData("none", Collections.emptyList(), Collections.emptyList());
+        assertEquals(0, run(Collections.singletonList(none), 2).size());
+    }
+}
@@ -0,0 +1,174 @@
+package datawave.query;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import datawave.configuration.spring.SpringBean;
+import datawave.ingest.data.TypeRegistry;
+import datawave.mr.bulk.RfileQueryRunner;
+import datawave.query.attributes.Document;
+import datawave.query.function.deserializer.KryoDocumentDeserializer;
+import datawave.query.iterator.QueryIterator;
+import datawave.query.tables.ShardQueryLogic;
+import datawave.query.tables.edge.DefaultEdgeEventQueryLogic;
+import datawave.query.util.WiseGuysIngest;
+import datawave.util.TableName;
+import datawave.webservice.edgedictionary.RemoteEdgeDictionary;
+import datawave.webservice.query.QueryImpl;
+import datawave.webservice.query.configuration.GenericQueryConfiguration;
+import datawave.webservice.query.configuration.QueryData;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.rfile.RFile;
+import org.apache.accumulo.core.client.rfile.RFileWriter;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.UUID;
+
+/**
+ * Runs the query data planned by the {@link ShardQueryLogic} through the {@link RfileQueryRunner} over rfiles written from the shard table, to show that the
+ * iterator environment the runner provides is enough for the {@link QueryIterator} stack
+ */
+@RunWith(Arquillian.class)
+public class RfileQueryRunnerQueryTest {
+    
+    private static final Logger log = Logger.getLogger(RfileQueryRunnerQueryTest.class);
+    
+    private static Connector connector = null;
+    private static Authorizations auths = new Authorizations("ALL");
+    
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
+    @Inject
+    @SpringBean(name = "EventQuery")
+    protected ShardQueryLogic logic;
+    
+    @Deployment
+    public static JavaArchive createDeployment() throws Exception {
+        
+        return ShrinkWrap
+                        .create(JavaArchive.class)
+                        .addPackages(true, "org.apache.deltaspike", "io.astefanutti.metrics.cdi", "datawave.query", "org.jboss.logging",
+                                        "datawave.webservice.query.result.event")
+                        .deleteClass(DefaultEdgeEventQueryLogic.class)
+                        .deleteClass(RemoteEdgeDictionary.class)
+                        .deleteClass(datawave.query.metrics.QueryMetricQueryLogic.class)
+                        .deleteClass(datawave.query.metrics.ShardTableQueryMetricHandler.class)
+                        .addAsManifestResource(
+                                        new StringAsset("<alternatives>" + "<stereotype>datawave.query.tables.edge.MockAlternative</stereotype>"
+                                                        + "</alternatives>"), "beans.xml");
+    }
+    
+    @BeforeClass
+    public static void setUp() throws Exception {
+        QueryTestTableHelper qtth = new QueryTestTableHelper(RfileQueryRunnerQueryTest.class.toString(), log, RebuildingScannerTestHelper.TEARDOWN.NEVER,
+                        RebuildingScannerTestHelper.INTERRUPT.NEVER);
+        connector = qtth.connector;
+        
+        WiseGuysIngest.writeItAll(connector, WiseGuysIngest.WhatKindaRange.SHARD);
+    }
+    
+    @AfterClass
+    public static void teardown() {
+        TypeRegistry.reset();
+    }
+    
+    @Before
+    public void setup() {
+        TimeZone.setDefault(TimeZone.getTimeZone("GMT"));
+    }
+    
+    /**
+     * Writes the shard table out to a local rfile, as the files of its tablets would be
+     */
+    private List<Path> writeShardTable() throws Exception {
+        File tempDir = temporaryFolder.newFolder();
+        System.setProperty("hadoop.home.dir", tempDir.getCanonicalPath());
+        
+        File file = new File(tempDir, "shard.rf");
+        Scanner scanner = connector.createScanner(TableName.SHARD, auths);
+        try (RFileWriter writer = RFile.newWriter().to(file.getAbsolutePath()).withFileSystem(FileSystem.getLocal(new Configuration())).build()) {
+            writer.append(scanner);
+        }
+        return Collections.singletonList(new Path(file.toURI()));
+    }
+    
+    @Test
+    public void testPlannedQuery() throws Exception {
+        List<Path> files = writeShardTable();
+        
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd");
+        QueryImpl settings = new QueryImpl();
+        settings.setBeginDate(format.parse("20091231"));
+        settings.setEndDate(format.parse("20150101"));
+        settings.setPagesize(Integer.MAX_VALUE);
+        settings.setQueryAuthorizations(auths.serialize());
+        settings.setQuery("UUID == 'SOPRANO' || UUID == 'CAPONE'");
+        settings.setId(UUID.randomUUID());
+        
+        GenericQueryConfiguration config = logic.initialize(connector, settings, Collections.singleton(auths));
+        
+        // keep the plan so that it can be checked after the runner has consumed it
+        List<QueryData> queries = Lists.newArrayList(config.getQueries());
+        Assert.assertFalse(queries.isEmpty());
+        for (QueryData query : queries) {
+            boolean planned = false;
+            for (IteratorSetting setting : query.getSettings()) {
+                planned |= setting.getIteratorClass().equals(QueryIterator.class.getName());
+            }
+            Assert.assertTrue("query data without a QueryIterator: " + query, planned);
+        }
+        
+        KryoDocumentDeserializer deserializer = new KryoDocumentDeserializer();
+        Set<String> uids = new HashSet<>();
+        Key last = null;
+        try (RfileQueryRunner runner = new RfileQueryRunner(new Configuration(), null, auths, RfileQueryRunner.forFiles(files), 2)) {
+            Iterator<Entry<Key,Value>> it = runner.run(queries.iterator());
+            while (it.hasNext()) {
+                Entry<Key,Value> result = it.next();
+                if (last != null) {
+                    Assert.assertTrue("results out of key order", last.compareTo(result.getKey()) <= 0);
+                }
+                last = result.getKey();
+                
+                Entry<Key,Document> document = deserializer.apply(result);
+                Assert.assertNotNull(document.getValue().get("UUID"));
+                
+                String cf = document.getKey().getColumnFamily().toString();
+                uids.add(cf.substring(cf.indexOf('\0') + 1));
+            }
+        }
+        
+        Assert.assertEquals(Sets.newHashSet(WiseGuysIngest.sopranoUID, WiseGuysIngest.caponeUID), uids);
+    }
+}
@@ -0,0 +1,95 @@
+package datawave.query.attributes;
+
+import java.io.ByteArrayInputStream;
+
+import datawave.query.function.deserializer.KryoDocumentDeserializer;
+import datawave.query.function.serializer.KryoDocumentSerializer;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DocumentDictionaryTest {
+    
+    private static final String SHARD = "20190101_0";
+    private static final String CF = "datatype\0uid";
+    
+    @Test
+    public void testAttributesShareMetadata() {
+        Content first = new Content("first", new Key(SHARD, CF, "FIELD_A\0first", "A&B", 12L), true);
+        Content second = new Content("second", new Key(SHARD, CF, "FIELD_B\0second", "A&B", 12L), true);
+        Content other = new Content("other", new Key(SHARD, CF, "FIELD_A\0other", "A", 12L), true);
+        Assert.assertNotSame(first.getMetadata(), second.getMetadata());
+        
+        Document document = new Document();
+        document.put("FIELD_A", first);
+        document.put("FIELD_B", second);
+        document.put("FIELD_A", other);
+        
+        Assert.assertSame(first.getMetadata(), second.getMetadata());
+        Assert.assertNotSame(first.getMetadata(), other.getMetadata());
+        Assert.assertEquals(new ColumnVisibility("A"), other.getColumnVisibility());
+    }
+    
+    @Test
+    public void testSharedMetadataIsReplaced() {
+        Content first = new Content("first", new Key(SHARD, CF, "FIELD_A\0first", "A", 12L), true);
+        Content second = new Content("second", new Key(SHARD, CF, "FIELD_A\0second", "A", 12L), true);
+        Document document = new Document();
+        document.put("FIELD_A", first);
+        document.put("FIELD_A", second);
+        Key shared = second.getMetadata();
+        Assert.assertSame(shared, first.getMetadata());
+        
+        first.setTimestamp(13L);
+        first.setColumnVisibility(new ColumnVisibility("B"));
+        
+        Assert.assertSame(shared, second.getMetadata());
+        Assert.assertEquals(12L, second.getTimestamp());
+        Assert.assertEquals(new ColumnVisibility("A"), second.getColumnVisibility());
+        Assert.assertEquals(13L, first.getTimestamp());
+        Assert.assertEquals(new ColumnVisibility("B"), first.getColumnVisibility());
+    }
+    
+    @Test
+    public void testFieldNamesAreShared() {
+        Document document = new Document();
+        document.put(new String("FIELD_A"), new Content("value", new Key(SHARD, CF, "FIELD_A\0value", "A", 12L), true));
+        
+        Assert.assertSame(document.getDocumentDictionary().fieldName(new String("FIELD_A")), document.getDictionary().keySet().iterator().next());
+    }
+    
+    @Test
+    public void testDeserializedDocumentsShareMetadata() {
+        Document document = new Document();
+        document.put("FIELD_A", new Content("a", new Key(SHARD, CF, "FIELD_A\0a", "A", 12L), true));
+        document.put("FIELD_B", new Content("b", new Key(SHARD, CF, "FIELD_B\0b", "A", 12L), true));
+        
+        byte[] bytes = new KryoDocumentSerializer().serialize(document);
+        KryoDocumentDeserializer deserializer = new KryoDocumentDeserializer();
+        Document first = deserializer.deserialize(new ByteArrayInputStream(bytes));
+        Document second = deserializer.deserialize(new ByteArrayInputStream(bytes));
+        
+        Assert.assertEquals(document.getDictionary().keySet(), first.getDictionary().keySet());
+        Assert.assertSame(first.get("FIELD_A").getMetadata(), first.get("FIELD_B").getMetadata());
+        Assert.assertSame(first.get("FIELD_A").getMetadata(), second.get("FIELD_A").getMetadata());
+        Assert.assertSame(first.getDictionary().keySet().iterator().next(), second.getDictionary().keySet().iterator().next());
+        
+        // the dictionary belongs to the deserializer of a query, so the documents of another query do not share it
+        Document other = new KryoDocumentDeserializer().deserialize(new ByteArrayInputStream(bytes));
+        Assert.assertNotSame(first.getDocumentDictionary(), other.getDocumentDictionary());
+        Assert.assertNotSame(first.getDictionary().keySet().iterator().next(), other.getDictionary().keySet().iterator().next());
+    }
+    
+    @Test
+    public void testDictionaryIsCleared() {
+        DocumentDictionary dictionary = new DocumentDictionary(2);
+        String first = dictionary.fieldName(new String("FIELD_A"));
+        Assert.assertSame(first, dictionary.fieldName(new String("FIELD_A")));
+        dictionary.fieldName("FIELD_B");
+        
+        // the third field name clears the first two
+        dictionary.fieldName("FIELD_C");
+        Assert.assertNotSame(first, dictionary.fieldName(new String("FIELD_A")));
+    }
+}
@@ -0,0 +1,117 @@
+package datawave.query.attributes;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import datawave.query.function.deserializer.KryoDocumentDeserializer;
+import datawave.query.function.serializer.KryoDocumentSerializer;
+import org.apache.accumulo.core.data.Key;
+
+/**
+ * A micro benchmark of the heap footprint and the build and serialization throughput of wide documents. This is not run as part of the build; run the main
+ * method directly with the test classpath, preferably with a fixed heap (e.g. -Xms2g -Xmx2g) so that the retained heap measurement is stable.
+ * <p>
+ * Each document is built from freshly created event keys and field names, the same as a document aggregated from the shard table, so the number of distinct
+ * metadata keys and field name instances shows how much the {@link DocumentDictionary} shares.
+ *
+ * <pre>
+ *    usage: DocumentFootprintBenchmark [numFields] [valuesPerField] [numDocuments]
+ * </pre>
+ */
+public class DocumentFootprintBenchmark {
+    
+    private static final String[] VISIBILITIES = {"PUBLIC", "PUBLIC&PRIVATE", "PUBLIC|PRIVATE"};
+    
+    public static void main(String[] args) {
+        int numFields = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int valuesPerField = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int numDocuments = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        
+        // warm up every code path before measuring anything
+        run(numFields, valuesPerField, Math.max(1, numDocuments / 4));
+        
+        long[] nanos = run(numFields, valuesPerField, numDocuments);
+        System.out.println(String.format("%d fields, %d values per field", numFields, valuesPerField));
+        System.out.println(String.format("%-20s %15.1f", "build us/doc", nanos[0] / 1000.0 / numDocuments));
+        System.out.println(String.format("%-20s %15.1f", "serialize us/doc", nanos[1] / 1000.0 / numDocuments));
+        System.out.println(String.format("%-20s %15.1f", "deserialize us/doc", nanos[2] / 1000.0 / numDocuments));
+        
+        List<Document> retained = new ArrayList<>(numDocuments);
+        long before = usedHeap();
+        for (int i = 0; i < numDocuments; i++) {
+            retained.add(build(new Random(i), i, numFields, valuesPerField));
+        }
+        long after = usedHeap();
+        System.out.println(String.format("%-20s %15d", "retained bytes/doc", (after - before) / numDocuments));
+        
+        Document document = retained.get(0);
+        Set<Object> metadata = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Object> fieldNames = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Document other : retained) {
+            fieldNames.addAll(other.getDictionary().keySet());
+        }
+        for (Attribute<?> attribute : document.getAttributes()) {
+            if (attribute instanceof Attributes) {
+                for (Attribute<?> value : ((Attributes) attribute).getAttributes()) {
+                    metadata.add(value.getMetadata());
+                }
+            } else {
+                metadata.add(attribute.getMetadata());
+            }
+        }
+        System.out.println(String.format("%-20s %15d of %d attributes", "metadata instances", metadata.size(), document.size()));
+        System.out.println(String.format("%-20s %15d across %d documents", "field name instances", fieldNames.size(), retained.size()));
+    }
+    
+    private static long[] run(int numFields, int valuesPerField, int numDocuments) {
+        long[] nanos = new long[3];
+        long blackhole = 0;
+        KryoDocumentSerializer serializer = new KryoDocumentSerializer();
+        KryoDocumentDeserializer deserializer = new KryoDocumentDeserializer();
+        for (int i = 0; i < numDocuments; i++) {
+            long start = System.nanoTime();
+            Document document = build(new Random(i), i, numFields, valuesPerField);
+            nanos[0] += System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            byte[] bytes = serializer.serialize(document);
+            nanos[1] += System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            blackhole += deserializer.deserialize(new ByteArrayInputStream(bytes)).size();
+            nanos[2] += System.nanoTime() - start;
+        }
+        if (blackhole == 42) {
+            System.out.println("unlikely");
+        }
+        return nanos;
+    }
+    
+    private static Document build(Random random, int uid, int numFields, int valuesPerField) {
+        Document document = new Document();
+        String visibility = VISIBILITIES[random.nextInt(VISIBILITIES.length)];
+        for (int field = 0; field < numFields; field++) {
+            for (int value = 0; value < valuesPerField; value++) {
+                // new strings every time, as a document aggregated from keys would have
+                String fieldName = new StringBuilder("FIELD_").append(field).toString();
+                String data = Long.toString(random.nextLong(), 36);
+                Key key = new Key("20190101_" + (uid % 10), "datatype\0" + uid, fieldName + '\0' + data, visibility, 1546300800000L);
+                document.put(fieldName, new Content(data, key, true));
+            }
+        }
+        return document;
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
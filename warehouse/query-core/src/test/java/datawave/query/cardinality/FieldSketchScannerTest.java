@@ -0,0 +1,103 @@
+package datawave.query.cardinality;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.data.sketch.FieldSketch;
+import datawave.util.time.DateHelper;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FieldSketchScannerTest {
+    
+    private static final String METADATA = "metadata";
+    private static final Set<Authorizations> AUTHS = Collections.singleton(new Authorizations("A"));
+    
+    private Connector connector;
+    
+    @Before
+    public void setup() throws Exception {
+        connector = new InMemoryInstance(FieldSketchScannerTest.class.getName()).getConnector("root", new PasswordToken(""));
+        connector.securityOperations().changeUserAuthorizations("root", new Authorizations("A"));
+        if (!connector.tableOperations().exists(METADATA)) {
+            connector.tableOperations().create(METADATA);
+        }
+        
+        BatchWriter writer = connector.createBatchWriter(METADATA, new BatchWriterConfig().setMaxLatency(1, TimeUnit.SECONDS).setMaxWriteThreads(1));
+        Mutation m = new Mutation("COLOR");
+        m.put(FieldSketch.COLF_SKETCH.toString(), "csv\u000020190101", new ColumnVisibility("A"), sketch("red", "red", "blue"));
+        m.put(FieldSketch.COLF_SKETCH.toString(), "csv\u000020190102", new ColumnVisibility("A"), sketch("red", "green"));
+        m.put(FieldSketch.COLF_SKETCH.toString(), "json\u000020190102", new ColumnVisibility("A"), sketch("yellow"));
+        m.put(FieldSketch.COLF_SKETCH.toString(), "csv\u000020190105", new ColumnVisibility("A"), sketch("purple"));
+        writer.addMutation(m);
+        writer.close();
+    }
+    
+    @Test
+    public void testMergesDateRange() throws Exception {
+        FieldSketchScanner scanner = new FieldSketchScanner(connector, METADATA, AUTHS);
+        
+        FieldSketch sketch = scanner.getSketch("COLOR", null, DateHelper.parse("20190101"), DateHelper.parse("20190102"));
+        assertEquals(6, sketch.getCount());
+        assertEquals(4, sketch.getCardinality());
+        assertEquals(3, sketch.estimateCount("red"));
+        assertEquals(0.5, scanner.getSelectivity("COLOR", "red", null, DateHelper.parse("20190101"), DateHelper.parse("20190102")), 0.0001);
+        
+        assertEquals(3, scanner.getCardinality("COLOR", Collections.singleton("csv"), DateHelper.parse("20190101"), DateHelper.parse("20190102")));
+        assertEquals(5, scanner.getCardinality("COLOR", null, DateHelper.parse("20190101"), DateHelper.parse("20190131")));
+    }
+    
+    @Test
+    public void testNoSketches() throws Exception {
+        FieldSketchScanner scanner = new FieldSketchScanner(connector, METADATA, AUTHS);
+        assertNull(scanner.getSketch("SHAPE", null, DateHelper.parse("20190101"), DateHelper.parse("20190102")));
+        assertEquals(-1L, scanner.getCardinality("COLOR", null, DateHelper.parse("20180101"), DateHelper.parse("20180102")));
+    }
+    
+    @Test
+    public void testCachesMergedSketches() throws Exception {
+        FieldSketchScanner scanner = new FieldSketchScanner(connector, METADATA, AUTHS);
+        assertEquals(6, scanner.getSketch("COLOR", null, DateHelper.parse("20190101"), DateHelper.parse("20190103")).getCount());
+        assertNull(scanner.getSketch("SHAPE", null, DateHelper.parse("20190101"), DateHelper.parse("20190103")));
+        
+        // sketches written after the first lookup are not seen by the scanner, which is held for the life of a query
+        BatchWriter writer = connector.createBatchWriter(METADATA, new BatchWriterConfig().setMaxLatency(1, TimeUnit.SECONDS).setMaxWriteThreads(1));
+        Mutation m = new Mutation("COLOR");
+        m.put(FieldSketch.COLF_SKETCH.toString(), "json\u000020190103", new ColumnVisibility("A"), sketch("red"));
+        writer.addMutation(m);
+        m = new Mutation("SHAPE");
+        m.put(FieldSketch.COLF_SKETCH.toString(), "csv\u000020190103", new ColumnVisibility("A"), sketch("square"));
+        writer.addMutation(m);
+        writer.close();
+        
+        assertEquals(6, scanner.getSketch("COLOR", null, DateHelper.parse("20190101"), DateHelper.parse("20190103")).getCount());
+        assertNull(scanner.getSketch("SHAPE", null, DateHelper.parse("20190101"), DateHelper.parse("20190103")));
+        
+        // a different range is a different sketch
+        assertEquals(3, scanner.getSketch("COLOR", Collections.singleton("csv"), DateHelper.parse("20190101"), DateHelper.parse("20190101")).getCount());
+        assertEquals(7, new FieldSketchScanner(connector, METADATA, AUTHS).getSketch("COLOR", null, DateHelper.parse("20190101"), DateHelper.parse("20190103"))
+                        .getCount());
+    }
+    
+    private static Value sketch(String... values) throws Exception {
+        FieldSketch sketch = new FieldSketch();
+        for (String value : values) {
+            sketch.offer(value);
+        }
+        return new Value(sketch.toBytes());
+    }
+}
@@ -84,6 +84,9 @@ public class ShardQueryConfigurationTest {
         Assert.assertEquals(0.25, config.getGeoWaveMaxRangeOverlap(), 0.0);
         Assert.assertTrue(config.isOptimizeGeoWaveRanges());
         Assert.assertEquals(4, config.getGeoWaveMaxEnvelopes());
+        Assert.assertEquals(0, config.getGeoWaveRangeBudget());
+        Assert.assertEquals(4, config.getGeoWaveDecompositionThreads());
+        Assert.assertTrue(config.isCacheGeoWaveDecompositions());
         Assert.assertEquals(TableName.SHARD, config.getShardTableName());
         Assert.assertEquals(TableName.SHARD_INDEX, config.getIndexTableName());
         Assert.assertEquals(TableName.SHARD_RINDEX, config.getReverseIndexTableName());
@@ -133,6 +136,8 @@ public class ShardQueryConfigurationTest {
         Assert.assertTrue(config.isFailOutsideValidDateRange());
         Assert.assertFalse(config.isRawTypes());
         Assert.assertEquals(-1.0, config.getMinSelectivity(), 0);
+        Assert.assertFalse(config.isUseMetadataSketches());
+        Assert.assertEquals(-1.0, config.getMinSketchSelectivity(), 0);
         Assert.assertFalse(config.getIncludeDataTypeAsField());
         Assert.assertTrue(config.getIncludeRecordId());
         Assert.assertFalse(config.getIncludeHierarchyFields());
@@ -156,6 +161,7 @@ public class ShardQueryConfigurationTest {
         Assert.assertEquals(2500, config.getMaxDepthThreshold());
         Assert.assertEquals(500, config.getMaxUnfieldedExpansionThreshold());
         Assert.assertEquals(5000, config.getMaxValueExpansionThreshold());
+        Assert.assertFalse(config.isCacheIndexExpansion());
         Assert.assertEquals(500, config.getMaxOrExpansionThreshold());
         Assert.assertEquals(10, config.getMaxOrRangeThreshold());
         Assert.assertEquals(10, config.getMaxOrRangeIvarators());
@@ -165,6 +171,7 @@ public class ShardQueryConfigurationTest {
         Assert.assertNull(config.getHdfsSiteConfigURLs());
         Assert.assertNull(config.getHdfsFileCompressionCodec());
         Assert.assertNull(config.getZookeeperConfig());
+        Assert.assertEquals(60000, config.getQueryLockLease());
         Assert.assertTrue(config.getIvaratorCacheDirConfigs().isEmpty());
         Assert.assertEquals(2, config.getIvaratorNumRetries());
         Assert.assertEquals(100, config.getIvaratorPersistVerifyCount());
@@ -443,7 +450,7 @@ public class ShardQueryConfigurationTest {
      */
     @Test
     public void testCheckForNewAdditions() throws IOException {
-        int expectedObjectCount = 177;
+        int expectedObjectCount = 178;
         ShardQueryConfiguration config = ShardQueryConfiguration.create();
         ObjectMapper mapper = new ObjectMapper();
         JsonNode root = mapper.readTree(mapper.writeValueAsString(config));
@@ -265,6 +265,55 @@ public class DiscoveryLogicTest {
         assertEquals(ImmutableSet.of(Pair.with("onyx", "POKEMON"), Pair.with("ruddy duck", "BIRD")), matches);
     }
     
+    @Test
+    public void testTopKByCountAggregatingDates() throws Throwable {
+        long officerCount = 0;
+        for (Iterator<DiscoveredThing> it = runTestQuery("*er"); it.hasNext();) {
+            DiscoveredThing thing = it.next();
+            if (thing.getTerm().equals("police officer")) {
+                officerCount += thing.getCount();
+            }
+        }
+        
+        Map<String,String> params = new HashMap<>();
+        params.put(DiscoveryLogic.TOP_K, "2");
+        params.put(DiscoveryLogic.AGGREGATE_DATES, "true");
+        List<DiscoveredThing> top = new ArrayList<>();
+        Date begin = dateFormatter.parse("20130101"), end = dateFormatter.parse("20130102");
+        for (Iterator<DiscoveredThing> it = runTestQuery("*er", params, begin, end); it.hasNext();) {
+            top.add(it.next());
+        }
+        
+        // every term has the same count, so the ties are broken by term
+        assertEquals(2, top.size());
+        assertEquals(Pair.with("police officer", "OTHERPERSON"), Pair.with(top.get(0).getTerm(), top.get(0).getField()));
+        assertEquals(Pair.with("rooster", "COCKADOODLEDOO"), Pair.with(top.get(1).getTerm(), top.get(1).getField()));
+        assertEquals(officerCount, top.get(0).getCount());
+        assertEquals(officerCount, top.get(1).getCount());
+    }
+    
+    @Test
+    public void testTopKByRecency() throws Throwable {
+        String lastDate = "";
+        for (Iterator<DiscoveredThing> it = runTestQuery("*er OR m*"); it.hasNext();) {
+            DiscoveredThing thing = it.next();
+            lastDate = thing.getDate().compareTo(lastDate) > 0 ? thing.getDate() : lastDate;
+        }
+        
+        Map<String,String> params = new HashMap<>();
+        params.put(DiscoveryLogic.TOP_K, "1");
+        params.put(DiscoveryLogic.TOP_K_RANKING, "recency");
+        List<DiscoveredThing> top = new ArrayList<>();
+        Date begin = dateFormatter.parse("20130101"), end = dateFormatter.parse("20130102");
+        for (Iterator<DiscoveredThing> it = runTestQuery("*er OR m*", params, begin, end); it.hasNext();) {
+            top.add(it.next());
+        }
+        
+        assertEquals(1, top.size());
+        assertEquals("motorboat", top.get(0).getTerm());
+        assertEquals(lastDate, top.get(0).getDate());
+    }
+    
     @Test
     public void testReverse() throws Throwable {
         for (Pair p : terms2) {
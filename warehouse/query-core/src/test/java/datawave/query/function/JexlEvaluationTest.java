@@ -9,10 +9,13 @@ import datawave.query.attributes.Attributes;
 import datawave.query.attributes.Content;
 import datawave.query.attributes.Document;
 import datawave.query.jexl.DatawaveJexlContext;
+import datawave.query.jexl.DefaultArithmetic;
+import datawave.query.jexl.JexlASTHelper;
 import datawave.query.jexl.HitListArithmetic;
 import datawave.query.jexl.functions.TermFrequencyList;
 import datawave.query.util.Tuple3;
 import org.apache.accumulo.core.data.Key;
+import org.apache.commons.jexl2.parser.ParseException;
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -24,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class JexlEvaluationTest {
@@ -42,6 +46,23 @@ public class JexlEvaluationTest {
         assertTrue(result);
     }
     
+    @Test
+    public void testParsedQueryTree() throws ParseException {
+        String query = "FOO == 'bar' && FOO =~ 'baz.*'";
+        Document d = new Document();
+        d.put("FOO", new Content("bar", new Key("shard", "datatype\0uid"), true));
+        d.put("FOO", new Content("bazaar", new Key("shard", "datatype\0uid"), true));
+        
+        // the tree from the query options cache is evaluated without parsing the query again
+        JexlEvaluation evaluation = new JexlEvaluation(query, JexlASTHelper.parseJexlQuery(query), new DefaultArithmetic());
+        DatawaveJexlContext context = new DatawaveJexlContext();
+        d.visit(Collections.singleton("FOO"), context);
+        assertTrue(evaluation.apply(new Tuple3<>(new Key("shard", "datatype\0uid"), d, context)));
+        
+        evaluation = new JexlEvaluation(query, JexlASTHelper.parseJexlQuery("FOO == 'baz'"), new DefaultArithmetic());
+        assertFalse(evaluation.apply(new Tuple3<>(new Key("shard", "datatype\0uid"), d, context)));
+    }
+    
     @Test
     public void testRegexIntersection() {
         String query = "FOO == 'bar' && FOO =~ 'baz.*'";
@@ -0,0 +1,141 @@
+package datawave.query.iterator;
+
+import com.google.common.collect.ImmutableMap;
+import datawave.query.tables.edge.EdgeTraversalFrontier;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EdgeTraversalIteratorTest {
+    
+    private final SortedMap<Key,Value> data = new TreeMap<>();
+    
+    @Before
+    public void setUp() {
+        // a stats edge, which must never be traversed
+        put("alpha", "STATS/LINKS/MY_EDGE/TO-FROM", "20190101/category/attr2/attr3/A");
+        for (String date : new String[] {"20190101", "20190102", "20190103"}) {
+            put("alpha\0bravo", "MY_EDGE/TO-FROM", date + "/category/attr2/attr3/A");
+            put("alpha\0bravo", "OTHER_EDGE/TO-FROM", date + "/category/attr2/attr3/A");
+            put("alpha\0charlie", "MY_EDGE/TO-FROM", date + "/category/attr2/attr3/A");
+            put("bravo\0delta", "MY_EDGE/TO-FROM", date + "/category/attr2/attr3/A");
+            put("charlie\0alpha", "MY_EDGE/TO-FROM", date + "/category/attr2/attr3/A");
+        }
+    }
+    
+    private void put(String row, String cf, String cq) {
+        data.put(new Key(row, cf, cq), new Value(new byte[0]));
+    }
+    
+    private List<Key> scan(Range range, long maxEdges) throws IOException {
+        EdgeTraversalIterator iterator = new EdgeTraversalIterator();
+        iterator.init(new SortedMapIterator(data), ImmutableMap.of(EdgeTraversalIterator.MAX_EDGES_OPTION, Long.toString(maxEdges)), null);
+        iterator.seek(range, Collections.emptyList(), false);
+        List<Key> keys = new ArrayList<>();
+        while (iterator.hasTop()) {
+            keys.add(iterator.getTopKey());
+            iterator.next();
+        }
+        return keys;
+    }
+    
+    @Test
+    public void testOneKeyPerEdge() throws IOException {
+        List<Key> keys = scan(new Range(), Long.MAX_VALUE);
+        assertEquals(5, keys.size());
+        assertEquals(new Key("alpha\0bravo", "MY_EDGE/TO-FROM", "20190101/category/attr2/attr3/A"), EdgeTraversalIterator.getEdgeKey(keys.get(0)));
+        assertEquals(new Key("alpha\0bravo", "OTHER_EDGE/TO-FROM", "20190101/category/attr2/attr3/A"), EdgeTraversalIterator.getEdgeKey(keys.get(1)));
+        assertEquals(new Key("alpha\0charlie", "MY_EDGE/TO-FROM", "20190101/category/attr2/attr3/A"), EdgeTraversalIterator.getEdgeKey(keys.get(2)));
+        
+        // each key carries the number of edges returned for the range so far
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i + 1, EdgeTraversalIterator.getEdgesReturned(keys.get(i)));
+        }
+        
+        // keys that were not returned by the iterator are left alone
+        Key key = new Key("alpha\0bravo", "MY_EDGE/TO-FROM", "20190101/category/attr2/attr3/A");
+        assertEquals(key, EdgeTraversalIterator.getEdgeKey(key));
+        assertEquals(0, EdgeTraversalIterator.getEdgesReturned(key));
+    }
+    
+    @Test
+    public void testVertexRange() throws IOException {
+        List<Key> keys = scan(EdgeTraversalFrontier.getVertexRange("alpha"), Long.MAX_VALUE);
+        assertEquals(3, keys.size());
+        for (Key key : keys) {
+            assertTrue(key.getRow().toString().startsWith("alpha\0"));
+        }
+    }
+    
+    @Test
+    public void testMaxEdges() throws IOException {
+        assertEquals(2, scan(new Range(), 2).size());
+    }
+    
+    @Test
+    public void testMaxEdgesAcrossResume() throws IOException {
+        List<Key> keys = scan(new Range(), 3);
+        assertEquals(3, keys.size());
+        
+        // a scan that is torn down and resumed keeps counting from the last key returned
+        assertEquals(keys.subList(2, 3), scan(new Range(keys.get(1), false, null, true), 3));
+        assertTrue(scan(new Range(keys.get(2), false, null, true), 3).isEmpty());
+    }
+    
+    @Test
+    public void testExclusiveResume() throws IOException {
+        List<Key> keys = scan(new Range(), Long.MAX_VALUE);
+        
+        // resuming after each returned key, as the tserver does when a scan session is re-seeked, must return the remaining edges exactly once
+        for (int i = 0; i < keys.size(); i++) {
+            List<Key> resumed = scan(new Range(keys.get(i), false, null, true), Long.MAX_VALUE);
+            assertEquals(keys.subList(i + 1, keys.size()), resumed);
+        }
+    }
+    
+    @Test
+    public void testFrontier() throws IOException {
+        EdgeTraversalFrontier frontier = new EdgeTraversalFrontier(10);
+        for (Key key : scan(EdgeTraversalFrontier.getVertexRange("alpha"), Long.MAX_VALUE)) {
+            assertTrue(frontier.addEdge(key));
+        }
+        assertFalse(frontier.addEdge(new Key("alpha", "STATS/LINKS/MY_EDGE/TO-FROM", "20190101")));
+        assertEquals(2, frontier.size());
+        
+        List<Range> ranges = frontier.advance();
+        assertEquals(2, ranges.size());
+        assertTrue(frontier.isEmpty());
+        
+        // hop 2: alpha has already been visited, so only delta should be queued
+        for (Range range : ranges) {
+            for (Key key : scan(range, Long.MAX_VALUE)) {
+                frontier.addEdge(key);
+            }
+        }
+        assertEquals(Collections.singletonList("delta"), new ArrayList<>(frontier.getFrontier()));
+        assertFalse(frontier.isTruncated());
+    }
+    
+    @Test
+    public void testFrontierBound() {
+        EdgeTraversalFrontier frontier = new EdgeTraversalFrontier(1);
+        frontier.addEdge(new Key("alpha\0bravo"));
+        frontier.addEdge(new Key("alpha\0charlie"));
+        assertEquals(1, frontier.size());
+        assertTrue(frontier.isTruncated());
+    }
+}
@@ -0,0 +1,90 @@
+package datawave.query.iterator;
+
+import java.io.IOException;
+import java.util.Base64;
+
+import datawave.query.jexl.JexlASTHelper;
+import datawave.query.jexl.QueryTreeSerializer;
+import datawave.query.util.TypeMetadata;
+import org.apache.commons.jexl2.parser.ParseException;
+
+/**
+ * A micro benchmark of the option handling that {@link QueryIterator#init} does for every scan session. This is not run as part of the build; run the main
+ * method directly with the test classpath.
+ * <p>
+ * A synthetic query and type metadata are read three ways:
+ * <ul>
+ * <li>parsing the query string and decompressing the type metadata, which is what init previously did for every scan session</li>
+ * <li>deserializing the {@link QueryTreeSerializer binary tree}, which is what a tablet server does the first time it sees a query</li>
+ * <li>the {@link QueryOptionsCache}, which is what every later scan session of the same query does</li>
+ * </ul>
+ *
+ * <pre>
+ *    usage: QueryOptionsBenchmark [numTerms] [iterations]
+ * </pre>
+ */
+public class QueryOptionsBenchmark {
+    
+    public static void main(String[] args) throws IOException, ParseException {
+        int numTerms = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        
+        String query = generateQuery(numTerms);
+        String typeMetadata = QueryOptions.compressOption(generateTypeMetadata(numTerms), QueryOptions.UTF8);
+        String tree = QueryTreeSerializer.encode(query);
+        
+        System.out.println(String.format("query: %d chars, serialized tree: %d bytes", query.length(), Base64.getDecoder().decode(tree).length));
+        
+        // warm up every code path before measuring anything
+        run(query, tree, typeMetadata, Math.max(1, iterations / 4));
+        
+        long[] nanos = run(query, tree, typeMetadata, iterations);
+        System.out.println(String.format("%15s %15s %15s", "parse us/init", "tree us/init", "cached us/init"));
+        System.out.println(String.format("%15.1f %15.1f %15.1f", nanos[0] / 1000.0 / iterations, nanos[1] / 1000.0 / iterations, nanos[2] / 1000.0
+                        / iterations));
+    }
+    
+    private static long[] run(String query, String tree, String typeMetadata, int iterations) throws IOException, ParseException {
+        long[] nanos = new long[3];
+        long blackhole = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            blackhole += JexlASTHelper.parseJexlQuery(query).jjtGetNumChildren();
+            blackhole += System.identityHashCode(new TypeMetadata(QueryOptions.decompressOption(typeMetadata, QueryOptions.UTF8)));
+            nanos[0] += System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            blackhole += QueryTreeSerializer.decode(tree, query).jjtGetNumChildren();
+            blackhole += System.identityHashCode(new TypeMetadata(QueryOptions.decompressOption(typeMetadata, QueryOptions.UTF8)));
+            nanos[1] += System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            blackhole += QueryOptionsCache.getScript(query, tree).jjtGetNumChildren();
+            blackhole += System.identityHashCode(QueryOptionsCache.getTypeMetadata(typeMetadata, true));
+            nanos[2] += System.nanoTime() - start;
+        }
+        if (blackhole == 42) {
+            System.out.println("unlikely");
+        }
+        return nanos;
+    }
+    
+    private static String generateQuery(int numTerms) {
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < numTerms; i++) {
+            if (i > 0) {
+                query.append(i % 3 == 0 ? " && " : " || ");
+            }
+            query.append("FIELD_").append(i % 20).append(" == 'value").append(i).append('\'');
+        }
+        return query.toString();
+    }
+    
+    private static String generateTypeMetadata(int numTerms) {
+        TypeMetadata typeMetadata = new TypeMetadata();
+        for (int i = 0; i < numTerms; i++) {
+            typeMetadata.put("FIELD_" + i, "datatype" + (i % 5), "datawave.data.type.LcNoDiacriticsType");
+        }
+        return typeMetadata.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package datawave.query.iterator;
+
+import java.io.IOException;
+
+import datawave.query.jexl.JexlASTHelper;
+import datawave.query.jexl.QueryTreeSerializer;
+import datawave.query.jexl.visitors.JexlStringBuildingVisitor;
+import datawave.query.jexl.visitors.TreeEqualityVisitor;
+import datawave.query.util.TypeMetadata;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.ParseException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryOptionsCacheTest {
+    
+    @Before
+    public void setup() {
+        QueryOptionsCache.invalidateAll();
+    }
+    
+    @Test
+    public void testScriptIsCached() throws ParseException {
+        String query = "FOO == 'bar' && BAZ =~ 'qu.*'";
+        long misses = QueryOptionsCache.getMissCount();
+        long hits = QueryOptionsCache.getHitCount();
+        
+        ASTJexlScript first = QueryOptionsCache.getScript(query, null);
+        ASTJexlScript second = QueryOptionsCache.getScript(query, null);
+        
+        Assert.assertEquals(misses + 1, QueryOptionsCache.getMissCount());
+        Assert.assertEquals(hits + 1, QueryOptionsCache.getHitCount());
+        
+        // every caller gets its own copy to modify
+        Assert.assertNotSame(first, second);
+        Assert.assertTrue(TreeEqualityVisitor.isEqual(JexlASTHelper.parseJexlQuery(query), second));
+        JexlASTHelper.getIdentifiers(first).get(0).image = "MODIFIED";
+        Assert.assertEquals(JexlStringBuildingVisitor.buildQuery(JexlASTHelper.parseJexlQuery(query)),
+                        JexlStringBuildingVisitor.buildQuery(QueryOptionsCache.getScript(query, null)));
+    }
+    
+    @Test
+    public void testSerializedTree() throws ParseException {
+        String query = "FOO == 'bar' || BAZ == 5";
+        ASTJexlScript script = QueryOptionsCache.getScript(query, QueryTreeSerializer.encode(query));
+        Assert.assertTrue(TreeEqualityVisitor.isEqual(JexlASTHelper.parseJexlQuery(query), script));
+    }
+    
+    @Test
+    public void testStaleSerializedTree() throws ParseException {
+        // a tree serialized for another query is ignored
+        String query = "FOO == 'bar'";
+        ASTJexlScript script = QueryOptionsCache.getScript(query, QueryTreeSerializer.encode("FOO == 'baz'"));
+        Assert.assertEquals(query, JexlStringBuildingVisitor.buildQuery(script));
+        
+        // as is a tree that cannot be read
+        query = "FOO == 'qux'";
+        script = QueryOptionsCache.getScript(query, "bm90IGEgdHJlZQ==");
+        Assert.assertEquals(query, JexlStringBuildingVisitor.buildQuery(script));
+    }
+    
+    @Test
+    public void testTypeMetadata() throws IOException {
+        TypeMetadata typeMetadata = new TypeMetadata();
+        typeMetadata.put("field1", "ingest1", "LcType");
+        typeMetadata.put("field2", "ingest2", "IntegerType");
+        String option = typeMetadata.toString();
+        String compressed = QueryOptions.compressOption(option, QueryOptions.UTF8);
+        
+        TypeMetadata first = QueryOptionsCache.getTypeMetadata(option, false);
+        Assert.assertEquals(typeMetadata, first);
+        Assert.assertEquals(typeMetadata, QueryOptionsCache.getTypeMetadata(compressed, true));
+        
+        // modifying a returned copy does not change the cached metadata
+        long hits = QueryOptionsCache.getHitCount();
+        first.put("field3", "ingest1", "LcType");
+        Assert.assertEquals(typeMetadata, QueryOptionsCache.getTypeMetadata(option, false));
+        Assert.assertEquals(hits + 1, QueryOptionsCache.getHitCount());
+    }
+}
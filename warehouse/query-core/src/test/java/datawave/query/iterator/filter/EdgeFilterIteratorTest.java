@@ -0,0 +1,102 @@
+package datawave.query.iterator.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Test;
+
+import com.google.common.collect.HashMultimap;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EdgeFilterIteratorTest {
+    
+    private static final Value EMPTY_VALUE = new Value(new byte[0]);
+    
+    private static final Key EDGE = new Key("alpha\0bravo", "MY_EDGE/TO-FROM", "20190101/CAT-CAT/ATTR2/ATTR3/A");
+    private static final Key OTHER_EDGE = new Key("alpha\0bravo", "OTHER_EDGE/TO-FROM", "20190101/CAT-CAT/ATTR2/ATTR3/A");
+    private static final Key LEGACY_EDGE = new Key("alpha\0charlie", "MY_EDGE/TO-FROM", "20190101/CAT-CAT//");
+    private static final Key ESCAPED_EDGE = new Key("al\\tpha\0bravo", "MY_EDGE/TO-FROM", "20190101/CAT-CAT/ATTR2/ATTR3/A");
+    private static final Key STATS_EDGE = new Key("alpha", "STATS/LINKS/MY_EDGE/TO", "20190101/CAT/ATTR2/ATTR3/A");
+    
+    @Test
+    public void testExpression() throws IOException {
+        EdgeFilterIterator filter = createFilter("TYPE == 'my_edge' && RELATION == 'to-from' && SOURCE == 'alpha'", false, null);
+        assertTrue(filter.accept(EDGE, EMPTY_VALUE));
+        assertFalse(filter.accept(OTHER_EDGE, EMPTY_VALUE));
+        assertTrue(filter.accept(LEGACY_EDGE, EMPTY_VALUE));
+        assertFalse(filter.accept(ESCAPED_EDGE, EMPTY_VALUE));
+        assertFalse(filter.accept(STATS_EDGE, EMPTY_VALUE));
+    }
+    
+    @Test
+    public void testFieldsAsDisassembled() throws IOException {
+        EdgeFilterIterator filter = createFilter("SINK == 'bravo' && DATE == '20190101' && ATTRIBUTE1 == 'cat-cat' && ATTRIBUTE2 == 'attr2'", false, null);
+        assertTrue(filter.accept(EDGE, EMPTY_VALUE));
+        
+        // trailing empty attributes are not set at all
+        filter = createFilter("ATTRIBUTE2 == null && ATTRIBUTE3 == null", false, null);
+        assertTrue(filter.accept(LEGACY_EDGE, EMPTY_VALUE));
+        assertFalse(filter.accept(EDGE, EMPTY_VALUE));
+        
+        // the source and sink are unescaped
+        filter = createFilter("SOURCE == 'al\tpha'", false, null);
+        assertTrue(filter.accept(ESCAPED_EDGE, EMPTY_VALUE));
+    }
+    
+    @Test
+    public void testStats() throws IOException {
+        assertTrue(createFilter("TYPE == 'none'", true, null).accept(STATS_EDGE, EMPTY_VALUE));
+        
+        Map<String,String> options = options("TYPE == 'none'", true, null);
+        options.put(EdgeFilterIterator.JEXL_STATS_OPTION, "TYPE == 'my_edge' && RELATION == 'to'");
+        EdgeFilterIterator filter = new EdgeFilterIterator();
+        filter.init(null, options);
+        assertTrue(filter.accept(STATS_EDGE, EMPTY_VALUE));
+        assertFalse(filter.accept(EDGE, EMPTY_VALUE));
+    }
+    
+    @Test
+    public void testPrefilter() throws IOException {
+        HashMultimap<String,String> whitelist = HashMultimap.create();
+        whitelist.put("TYPE", "MY_EDGE");
+        whitelist.put("SOURCE", "al\tpha");
+        whitelist.put("SOURCE", "alpha");
+        
+        // the expression accepts everything, so only the prefilter can reject
+        EdgeFilterIterator filter = createFilter("true", true, whitelist);
+        assertTrue(filter.accept(EDGE, EMPTY_VALUE));
+        assertFalse(filter.accept(OTHER_EDGE, EMPTY_VALUE));
+        assertTrue(filter.accept(ESCAPED_EDGE, EMPTY_VALUE));
+        assertTrue(filter.accept(STATS_EDGE, EMPTY_VALUE));
+        assertFalse(filter.accept(new Key("delta\0bravo", "MY_EDGE/TO-FROM", "20190101/CAT-CAT/ATTR2/ATTR3/A"), EMPTY_VALUE));
+    }
+    
+    private static EdgeFilterIterator createFilter(String query, boolean includeStats, HashMultimap<String,String> whitelist) throws IOException {
+        EdgeFilterIterator filter = new EdgeFilterIterator();
+        filter.init(null, options(query, includeStats, whitelist));
+        return filter;
+    }
+    
+    private static Map<String,String> options(String query, boolean includeStats, HashMultimap<String,String> whitelist) throws IOException {
+        Map<String,String> options = new HashMap<>();
+        options.put(EdgeFilterIterator.JEXL_OPTION, query);
+        options.put(EdgeFilterIterator.PROTOBUF_OPTION, "TRUE");
+        options.put(EdgeFilterIterator.INCLUDE_STATS_OPTION, Boolean.toString(includeStats));
+        if (whitelist != null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+                oos.writeObject(whitelist);
+            }
+            options.put(EdgeFilterIterator.PREFILTER_WHITELIST, new String(Base64.encodeBase64(baos.toByteArray())));
+        }
+        return options;
+    }
+}
@@ -67,6 +67,60 @@ public class QuerySpanTest {
         Assert.assertEquals(12, qs4.getSourceCount());
     }
     
+    @Test
+    public void testSavedSeeksAndNexts() {
+        
+        QuerySpan qs1 = new QuerySpan(null);
+        advanceIterators(qs1);
+        qs1.addSavedSeeks(2);
+        qs1.createSource().addSavedNexts(30);
+        MultiThreadedQuerySpan qs2 = new MultiThreadedQuerySpan(null);
+        qs2.addSavedSeeks(1);
+        qs2.addSavedNexts(5);
+        
+        Assert.assertEquals(2, qs1.getSavedSeekCount());
+        Assert.assertEquals(30, qs1.getSavedNextCount());
+        
+        QuerySpanCollector qsc = new QuerySpanCollector();
+        qsc.addQuerySpan(qs1);
+        qsc.addQuerySpan(qs2);
+        QuerySpan qs3 = qsc.getCombinedQuerySpan(null);
+        
+        Assert.assertEquals(3, qs3.getSavedSeekCount());
+        Assert.assertEquals(35, qs3.getSavedNextCount());
+        Assert.assertEquals(0, qs1.getSavedSeekCount());
+        Assert.assertEquals(0, qs2.getSavedNextCount());
+    }
+    
+    @Test
+    public void testIvaratorFills() {
+        
+        QuerySpan qs1 = new QuerySpan(null);
+        advanceIterators(qs1);
+        qs1.addIvaratorFill(100, 10);
+        qs1.createSource().addIvaratorFill(50, 5);
+        QuerySpan spill = new QuerySpan(null);
+        spill.setSourceCount(0);
+        spill.addIvaratorBytesSpilled(4096);
+        
+        Assert.assertEquals(2, qs1.getIvaratorRangeCount());
+        Assert.assertEquals(150, qs1.getIvaratorFillTime());
+        Assert.assertEquals(15, qs1.getIvaratorWaitTime());
+        
+        QuerySpanCollector qsc = new QuerySpanCollector();
+        qsc.addQuerySpan(qs1);
+        qsc.addQuerySpan(spill);
+        Assert.assertTrue(qsc.hasEntries());
+        QuerySpan qs2 = qsc.getCombinedQuerySpan(null);
+        
+        Assert.assertEquals(2, qs2.getIvaratorRangeCount());
+        Assert.assertEquals(150, qs2.getIvaratorFillTime());
+        Assert.assertEquals(15, qs2.getIvaratorWaitTime());
+        Assert.assertEquals(4096, qs2.getIvaratorBytesSpilled());
+        Assert.assertEquals(0, qs1.getIvaratorRangeCount());
+        Assert.assertEquals(0, spill.getIvaratorBytesSpilled());
+    }
+    
     @Test
     public void testMultiThreadedQuerySpanAcrossThreads() {
         
@@ -0,0 +1,90 @@
+package datawave.query.iterators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FieldIndexCountRollupIteratorTest {
+    
+    private SortedMap<Key,Value> counts;
+    
+    @Before
+    public void setup() {
+        counts = new TreeMap<>();
+        addCount("20190101_0", "red\0csv", "A", 10, 2);
+        addCount("20190101_0", "red\0csv", "B", 11, 1);
+        addCount("20190101_1", "blue\0csv", "A", 5, 4);
+        addCount("20190101_1", "red\0csv", "A", 12, 3);
+        addCount("20190102_0", "red\0csv", "A", 20, 5);
+    }
+    
+    @Test
+    public void testRollup() throws IOException {
+        FieldIndexCountRollupIterator iterator = new FieldIndexCountRollupIterator();
+        iterator.init(new SortedMapIterator(counts), Collections.emptyMap(), null);
+        iterator.seek(new Range(new Key("20190101"), true, new Key("20190103"), true), Collections.emptyList(), false);
+        
+        List<String> expected = new ArrayList<>();
+        expected.add("20190101_1 blue\0csv A 5 4");
+        expected.add("20190101_1 red\0csv A 12 5");
+        expected.add("20190101_1 red\0csv B 11 1");
+        expected.add("20190102_0 red\0csv A 20 5");
+        assertEquals(expected, drain(iterator));
+    }
+    
+    @Test
+    public void testResume() throws IOException {
+        FieldIndexCountRollupIterator iterator = new FieldIndexCountRollupIterator();
+        iterator.init(new SortedMapIterator(counts), Collections.emptyMap(), null);
+        iterator.seek(new Range(new Key("20190101"), true, new Key("20190103"), true), Collections.emptyList(), false);
+        iterator.next();
+        Key returned = iterator.getTopKey();
+        
+        // a resumed scan counts the day again and returns only the keys after the last one returned
+        iterator = new FieldIndexCountRollupIterator();
+        iterator.init(new SortedMapIterator(counts), Collections.emptyMap(), null);
+        iterator.seek(new Range(returned, false, new Key("20190103"), true), Collections.emptyList(), false);
+        
+        List<String> expected = new ArrayList<>();
+        expected.add("20190101_1 red\0csv B 11 1");
+        expected.add("20190102_0 red\0csv A 20 5");
+        assertEquals(expected, drain(iterator));
+    }
+    
+    @Test
+    public void testEmpty() throws IOException {
+        FieldIndexCountRollupIterator iterator = new FieldIndexCountRollupIterator();
+        iterator.init(new SortedMapIterator(counts), Collections.emptyMap(), null);
+        iterator.seek(new Range(new Key("20190105"), true, new Key("20190106"), true), Collections.emptyList(), false);
+        assertFalse(iterator.hasTop());
+    }
+    
+    private void addCount(String shard, String cq, String visibility, long timestamp, long count) {
+        counts.put(new Key(shard, "fi\0COLOR", cq, visibility, timestamp), new Value(Long.toString(count).getBytes()));
+    }
+    
+    private static List<String> drain(FieldIndexCountRollupIterator iterator) throws IOException {
+        List<String> results = new ArrayList<>();
+        while (iterator.hasTop()) {
+            Key key = iterator.getTopKey();
+            assertEquals("fi\0COLOR", key.getColumnFamily().toString());
+            results.add(key.getRow() + " " + key.getColumnQualifier() + " " + key.getColumnVisibility() + " " + key.getTimestamp() + " "
+                            + iterator.getTopValue());
+            iterator.next();
+        }
+        return results;
+    }
+}
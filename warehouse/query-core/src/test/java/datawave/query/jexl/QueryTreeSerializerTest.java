@@ -0,0 +1,85 @@
+package datawave.query.jexl;
+
+import java.io.IOException;
+
+import datawave.query.jexl.visitors.JexlStringBuildingVisitor;
+import datawave.query.jexl.visitors.TreeEqualityVisitor;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.ASTNumberLiteral;
+import org.apache.commons.jexl2.parser.JexlNode;
+import org.apache.commons.jexl2.parser.ParseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryTreeSerializerTest {
+    
+    @Test
+    public void testRoundTrip() throws ParseException, IOException {
+        assertRoundTrip("FOO == 'bar'");
+        assertRoundTrip("FOO == 'bar' && (BAZ =~ 'ba.*' || !(BAR != 'foo')) && filter:includeRegex(FOO, 'x.*')");
+        assertRoundTrip("((_Bounded_ = true) && (NUM >= 5 && NUM <= 10.5)) || BAR == null");
+        assertRoundTrip("FOO == 'bar' && ((_Delayed_ = true) && (BAZ == 'qux'))");
+        assertRoundTrip("f:between(DATE, '20190101', '20190102') && geo:within_bounding_box(GEO, '-10_-10', '10_10')");
+    }
+    
+    @Test
+    public void testNumberLiterals() throws ParseException, IOException {
+        String query = "FOO == 5 && BAR == 10.5 && BAZ == 12345678901234";
+        ASTJexlScript decoded = QueryTreeSerializer.decode(QueryTreeSerializer.encode(query), query);
+        ASTJexlScript parsed = JexlASTHelper.parseJexlQuery(query);
+        
+        Assert.assertEquals(literalClasses(parsed, new StringBuilder()).toString(), literalClasses(decoded, new StringBuilder()).toString());
+    }
+    
+    @Test
+    public void testDifferentQuery() throws ParseException, IOException {
+        String option = QueryTreeSerializer.encode("FOO == 'bar'");
+        Assert.assertNull(QueryTreeSerializer.decode(option, "FOO == 'baz'"));
+    }
+    
+    @Test(expected = IOException.class)
+    public void testUnsupportedVersion() throws ParseException, IOException {
+        String query = "FOO == 'bar'";
+        byte[] bytes = QueryTreeSerializer.serialize(JexlASTHelper.parseJexlQuery(query), query);
+        bytes[0] = QueryTreeSerializer.VERSION + 1;
+        QueryTreeSerializer.deserialize(bytes, query);
+    }
+    
+    @Test
+    public void testDictionaryEncoding() throws ParseException {
+        // repeating a field and a value adds a few bytes per term rather than the term itself
+        String term = "FIELD_WITH_A_LONG_NAME == 'value with a long image'";
+        String two = term + " || " + term;
+        String three = two + " || " + term;
+        int twoLength = QueryTreeSerializer.serialize(JexlASTHelper.parseJexlQuery(two), two).length;
+        int threeLength = QueryTreeSerializer.serialize(JexlASTHelper.parseJexlQuery(three), three).length;
+        Assert.assertTrue(threeLength - twoLength < term.length());
+    }
+    
+    private static void assertRoundTrip(String query) throws ParseException, IOException {
+        ASTJexlScript parsed = JexlASTHelper.parseJexlQuery(query);
+        ASTJexlScript decoded = QueryTreeSerializer.decode(QueryTreeSerializer.encode(query), query);
+        
+        Assert.assertNotNull(decoded);
+        Assert.assertTrue(TreeEqualityVisitor.isEqual(parsed, decoded));
+        Assert.assertEquals(JexlStringBuildingVisitor.buildQuery(parsed), JexlStringBuildingVisitor.buildQuery(decoded));
+        assertParents(decoded);
+    }
+    
+    private static void assertParents(JexlNode node) {
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            Assert.assertSame(node, node.jjtGetChild(i).jjtGetParent());
+            assertParents(node.jjtGetChild(i));
+        }
+    }
+    
+    private static StringBuilder literalClasses(JexlNode node, StringBuilder builder) {
+        if (node instanceof ASTNumberLiteral) {
+            builder.append(node.image).append(':').append(((ASTNumberLiteral) node).getLiteralClass().getSimpleName()).append(' ');
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            literalClasses(node.jjtGetChild(i), builder);
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,150 @@
+package datawave.query.jexl.functions;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.google.common.collect.TreeMultimap;
+import com.google.protobuf.InvalidProtocolBufferException;
+import datawave.ingest.protobuf.TermWeight;
+import datawave.ingest.protobuf.TermWeightColumns;
+import datawave.ingest.protobuf.TermWeightPosition;
+import datawave.query.jexl.functions.TermFrequencyList.Zone;
+
+/**
+ * A micro benchmark of building the term offset map of a large document and evaluating a phrase against it. This is not run as part of the build; run the
+ * main method directly with the test classpath.
+ * <p>
+ * Synthetic term frequency values are generated for the phrase terms in several fields of one document and each is read two ways:
+ * <ul>
+ * <li>parsing every TermWeight.Info into TermWeightPositions, which is what the TermOffsetPopulator previously did</li>
+ * <li>decoding {@link TermWeightColumns}, which only become positions for the zones that the phrase looks at</li>
+ * </ul>
+ * The latency and the bytes allocated per document are reported for each.
+ *
+ * <pre>
+ *    usage: ContentFunctionsBenchmark [numTokens] [iterations]
+ * </pre>
+ */
+public class ContentFunctionsBenchmark {
+    
+    private static final String EVENT_ID = "20190101_0\0datatype\0uid";
+    private static final String[] FIELDS = {"BODY", "TITLE", "COMMENTS", "SUMMARY"};
+    private static final String[] TERMS = {"the", "quick", "brown", "fox"};
+    
+    public static void main(String[] args) throws InvalidProtocolBufferException {
+        int numTokens = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        
+        Map<String,List<byte[]>> values = generate(numTokens);
+        
+        // warm up every code path before measuring anything
+        run(values, Math.max(1, iterations / 4));
+        
+        long[] results = run(values, iterations);
+        System.out.println(String.format("%d tokens per field, %d fields", numTokens, FIELDS.length));
+        System.out.println(String.format("%-10s %15s %15s", "", "us/doc", "bytes/doc"));
+        System.out.println(String.format("%-10s %15.1f %15d", "positions", results[0] / 1000.0 / iterations, results[1] / iterations));
+        System.out.println(String.format("%-10s %15.1f %15d", "columns", results[2] / 1000.0 / iterations, results[3] / iterations));
+    }
+    
+    private static long[] run(Map<String,List<byte[]>> values, int iterations) throws InvalidProtocolBufferException {
+        long[] results = new long[4];
+        long blackhole = 0;
+        for (int i = 0; i < iterations; i++) {
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            blackhole += ContentFunctions.phrase("BODY", positions(values), TERMS).size();
+            results[0] += System.nanoTime() - start;
+            results[1] += allocatedBytes() - allocated;
+            
+            allocated = allocatedBytes();
+            start = System.nanoTime();
+            blackhole += ContentFunctions.phrase("BODY", columns(values), TERMS).size();
+            results[2] += System.nanoTime() - start;
+            results[3] += allocatedBytes() - allocated;
+        }
+        if (blackhole == 42) {
+            System.out.println("unlikely");
+        }
+        return results;
+    }
+    
+    private static Map<String,TermFrequencyList> positions(Map<String,List<byte[]>> values) throws InvalidProtocolBufferException {
+        Map<String,TermFrequencyList> termOffsetMap = new HashMap<>();
+        for (String term : TERMS) {
+            List<byte[]> fieldValues = values.get(term);
+            for (int f = 0; f < FIELDS.length; f++) {
+                TreeMultimap<Zone,TermWeightPosition> offsets = TreeMultimap.create();
+                TermWeight.Info info = TermWeight.Info.parseFrom(fieldValues.get(f));
+                Zone zone = new Zone(FIELDS[f], true, EVENT_ID);
+                TermWeightPosition.Builder position = new TermWeightPosition.Builder();
+                for (int i = 0; i < info.getTermOffsetCount(); i++) {
+                    position.setTermWeightOffsetInfo(info, i);
+                    offsets.put(zone, position.build());
+                    position.reset();
+                }
+                TermFrequencyList tfl = termOffsetMap.get(term);
+                if (tfl == null) {
+                    termOffsetMap.put(term, new TermFrequencyList(offsets));
+                } else {
+                    tfl.addOffsets(offsets);
+                }
+            }
+        }
+        return termOffsetMap;
+    }
+    
+    private static Map<String,TermFrequencyList> columns(Map<String,List<byte[]>> values) throws InvalidProtocolBufferException {
+        Map<String,TermFrequencyList> termOffsetMap = new HashMap<>();
+        for (String term : TERMS) {
+            List<byte[]> fieldValues = values.get(term);
+            for (int f = 0; f < FIELDS.length; f++) {
+                TermWeightColumns offsets = TermWeightColumns.parseFrom(fieldValues.get(f));
+                Zone zone = new Zone(FIELDS[f], true, EVENT_ID);
+                TermFrequencyList tfl = termOffsetMap.get(term);
+                if (tfl == null) {
+                    termOffsetMap.put(term, new TermFrequencyList(zone, offsets));
+                } else {
+                    tfl.addOffsets(zone, offsets);
+                }
+            }
+        }
+        return termOffsetMap;
+    }
+    
+    /**
+     * @return for each term, the serialized TermWeight.Info of each field, where the terms are common enough that the phrase only occurs near the end
+     */
+    private static Map<String,List<byte[]>> generate(int numTokens) {
+        Random random = new Random(814);
+        Map<String,List<byte[]>> values = new HashMap<>();
+        for (String term : TERMS) {
+            values.put(term, new ArrayList<>());
+        }
+        for (int f = 0; f < FIELDS.length; f++) {
+            Map<String,TermWeight.Info.Builder> infos = new HashMap<>();
+            for (String term : TERMS) {
+                infos.put(term, TermWeight.Info.newBuilder());
+            }
+            // every fourth token is one of the terms, but never in phrase order until the end
+            for (int offset = 0; offset < numTokens - TERMS.length; offset += 4) {
+                infos.get(TERMS[random.nextInt(TERMS.length - 1) + 1]).addTermOffset(offset).addScore(random.nextInt(10000000));
+            }
+            for (int t = 0; t < TERMS.length; t++) {
+                infos.get(TERMS[t]).addTermOffset(numTokens - TERMS.length + t).addScore(1);
+            }
+            for (String term : TERMS) {
+                values.get(term).add(infos.get(term).build().toByteArray());
+            }
+        }
+        return values;
+    }
+    
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,112 @@
+package datawave.query.jexl.functions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+
+import com.google.common.collect.TreeMultimap;
+import com.google.protobuf.InvalidProtocolBufferException;
+import datawave.ingest.protobuf.TermWeight;
+import datawave.ingest.protobuf.TermWeightColumns;
+import datawave.ingest.protobuf.TermWeightPosition;
+import datawave.query.jexl.functions.TermFrequencyList.Zone;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TermFrequencyListTest {
+    
+    private static final String EVENT_ID = "shard\0datatype\0uid";
+    
+    @Test
+    public void testColumnsMatchPositions() throws InvalidProtocolBufferException {
+        Zone zone = new Zone("BODY", true, EVENT_ID);
+        TermFrequencyList columns = new TermFrequencyList(zone, columns(new int[] {5, 1, 9}, new int[] {0, 1, 0}));
+        
+        TreeMultimap<Zone,TermWeightPosition> positions = TreeMultimap.create();
+        TermWeightPosition.Builder builder = new TermWeightPosition.Builder();
+        positions.put(zone, builder.setOffset(5).setPrevSkips(0).build());
+        positions.put(zone, builder.setOffset(1).setPrevSkips(1).build());
+        positions.put(zone, builder.setOffset(9).setPrevSkips(0).build());
+        
+        Assert.assertEquals(new TermFrequencyList(positions), columns);
+        Assert.assertEquals(Arrays.asList(1, 5, 9), offsets(columns.fetchOffsets(zone)));
+    }
+    
+    @Test
+    public void testZonesAreDecodedLazily() throws InvalidProtocolBufferException {
+        Zone body = new Zone("BODY", true, EVENT_ID);
+        Zone title = new Zone("TITLE", false, EVENT_ID);
+        TermFrequencyList list = new TermFrequencyList(body, columns(new int[] {1, 2}, null));
+        list.addOffsets(title, columns(new int[] {3}, null));
+        
+        // what is tracked is known without decoding anything
+        Assert.assertFalse(list.isEmpty());
+        Assert.assertTrue(list.hasOffsets(body));
+        Assert.assertFalse(list.hasOffsets(new Zone("BODY", false, EVENT_ID)));
+        Assert.assertEquals(2, list.zones().size());
+        Assert.assertEquals(Collections.singleton(EVENT_ID), list.eventIds());
+        Assert.assertTrue(list.undecodedPerField.containsKey(body));
+        
+        // fetching one zone only decodes that zone
+        Assert.assertEquals(Arrays.asList(1, 2), offsets(list.fetchOffsets(body)));
+        Assert.assertFalse(list.undecodedPerField.containsKey(body));
+        Assert.assertTrue(list.undecodedPerField.containsKey(title));
+        
+        Assert.assertEquals(3, list.fetchOffsets().size());
+        Assert.assertTrue(list.undecodedPerField.isEmpty());
+    }
+    
+    @Test
+    public void testEmptyOffsets() throws InvalidProtocolBufferException {
+        TermFrequencyList list = new TermFrequencyList(new Zone("BODY", true, EVENT_ID), columns(new int[0], null));
+        Assert.assertTrue(list.isEmpty());
+        Assert.assertTrue(list.zones().isEmpty());
+    }
+    
+    @Test
+    public void testMerge() throws InvalidProtocolBufferException {
+        Zone zone = new Zone("BODY", true, EVENT_ID);
+        TermFrequencyList first = new TermFrequencyList(zone, columns(new int[] {1}, null));
+        TermFrequencyList second = new TermFrequencyList(zone, columns(new int[] {7}, null));
+        
+        Assert.assertEquals(Arrays.asList(1, 7), offsets(TermFrequencyList.merge(first, second).fetchOffsets(zone)));
+    }
+    
+    @Test
+    public void testPhraseOverColumns() throws InvalidProtocolBufferException {
+        Zone body = new Zone("BODY", true, EVENT_ID);
+        Map<String,TermFrequencyList> termOffsetMap = new HashMap<>();
+        termOffsetMap.put("quick", new TermFrequencyList(body, columns(new int[] {2, 40}, null)));
+        termOffsetMap.put("brown", new TermFrequencyList(body, columns(new int[] {3, 90}, null)));
+        // fox only occurs in another field, which is never decoded
+        TermFrequencyList fox = new TermFrequencyList(new Zone("TITLE", true, EVENT_ID), columns(new int[] {4}, null));
+        termOffsetMap.put("fox", fox);
+        
+        Assert.assertEquals(Collections.singleton("BODY"), ContentFunctions.phrase(termOffsetMap, "quick", "brown"));
+        Assert.assertTrue(ContentFunctions.phrase(termOffsetMap, "quick", "brown", "fox").isEmpty());
+        Assert.assertFalse(fox.undecodedPerField.isEmpty());
+    }
+    
+    private static TermWeightColumns columns(int[] offsets, int[] prevSkips) throws InvalidProtocolBufferException {
+        TermWeight.Info.Builder info = TermWeight.Info.newBuilder();
+        for (int i = 0; i < offsets.length; i++) {
+            info.addTermOffset(offsets[i]);
+            if (prevSkips != null) {
+                info.addPrevSkips(prevSkips[i]);
+            }
+        }
+        return TermWeightColumns.parseFrom(info.build().toByteArray());
+    }
+    
+    private static List<Integer> offsets(NavigableSet<TermWeightPosition> positions) {
+        List<Integer> offsets = new ArrayList<>();
+        for (TermWeightPosition position : positions) {
+            offsets.add(position.getOffset());
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,78 @@
+package datawave.query.jexl.lookups;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import datawave.util.time.DateHelper;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IndexExpansionCacheTest {
+    private static final long MILLIS_IN_DAY = 1000L * 60 * 60 * 24;
+    
+    @Test
+    public void testGetDays() {
+        Date begin = DateHelper.parse("20190130");
+        Date end = new Date(DateHelper.parse("20190202").getTime() - 1);
+        Assert.assertEquals(Arrays.asList("20190130", "20190131", "20190201"), IndexExpansionCache.getDays(begin, end));
+        Assert.assertEquals(Collections.singletonList("20190130"), IndexExpansionCache.getDays(begin, begin));
+    }
+    
+    @Test
+    public void testGetDay() {
+        Assert.assertEquals("20190101", IndexExpansionCache.getDay("20190101_12"));
+        Assert.assertEquals("20190101", IndexExpansionCache.getDay("20190101"));
+    }
+    
+    @Test
+    public void testDescribeIgnoresOrder() {
+        String first = IndexExpansionCache.describe("shardIndex", Arrays.asList("FOO", "BAR"), "ab.*", Arrays.asList("csv", "json"),
+                        Collections.singleton(new Authorizations("A", "B")));
+        String second = IndexExpansionCache.describe("shardIndex", Arrays.asList("BAR", "FOO"), "ab.*", Arrays.asList("json", "csv"),
+                        Collections.singleton(new Authorizations("B", "A")));
+        Assert.assertEquals(first, second);
+        
+        String otherAuths = IndexExpansionCache.describe("shardIndex", Arrays.asList("FOO", "BAR"), "ab.*", Arrays.asList("csv", "json"),
+                        Collections.singleton(new Authorizations("A")));
+        Assert.assertNotEquals(first, otherAuths);
+    }
+    
+    @Test
+    public void testRecentDaysAreNotCached() {
+        IndexExpansionCache cache = new IndexExpansionCache(1000, 1, TimeUnit.HOURS, 2);
+        String today = DateHelper.format(new Date());
+        String yesterday = DateHelper.format(System.currentTimeMillis() - MILLIS_IN_DAY);
+        String older = DateHelper.format(System.currentTimeMillis() - 2 * MILLIS_IN_DAY);
+        
+        Multimap<String,String> terms = HashMultimap.create();
+        terms.put("FOO", "abc");
+        cache.put("lookup", today, terms);
+        cache.put("lookup", yesterday, terms);
+        cache.put("lookup", older, terms);
+        
+        Map<String,Multimap<String,String>> cached = cache.get("lookup", Arrays.asList(older, yesterday, today));
+        Assert.assertEquals(Collections.singleton(older), cached.keySet());
+        Assert.assertEquals(terms, cached.get(older));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(2, cache.getMissCount());
+    }
+    
+    @Test
+    public void testCacheIsBoundedByTerms() {
+        IndexExpansionCache cache = new IndexExpansionCache(100, 1, TimeUnit.HOURS, 0);
+        for (int day = 1; day <= 20; day++) {
+            Multimap<String,String> terms = HashMultimap.create();
+            for (int i = 0; i < 20; i++) {
+                terms.put("FOO", "term" + i);
+            }
+            cache.put("lookup", String.format("201901%02d", day), terms);
+        }
+        Assert.assertTrue(cache.size() < 20);
+    }
+}
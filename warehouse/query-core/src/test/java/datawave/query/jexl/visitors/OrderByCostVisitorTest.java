@@ -0,0 +1,129 @@
+package datawave.query.jexl.visitors;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Sets;
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.jexl.JexlASTHelper;
+import datawave.query.jexl.nodes.ExceededValueThresholdMarkerJexlNode;
+import org.apache.commons.jexl2.parser.ASTDelayedPredicate;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.JexlNode;
+import org.apache.commons.jexl2.parser.ParseException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OrderByCostVisitorTest {
+    
+    private static final Set<String> INDEXED = Sets.newHashSet("FOO", "BAR", "BAZ");
+    
+    private ShardQueryConfiguration config;
+    private Map<String,Double> valueCounts;
+    private Map<String,Double> fieldWeights;
+    
+    @Before
+    public void setup() {
+        config = new ShardQueryConfiguration();
+        valueCounts = new HashMap<>();
+        fieldWeights = new HashMap<>();
+    }
+    
+    @Test
+    public void testOrderByEstimate() throws ParseException {
+        valueCounts.put("FOO:a", 1000d);
+        valueCounts.put("BAR:b", 10d);
+        // two entries per value
+        fieldWeights.put("BAZ", 0.5d);
+        
+        ASTJexlScript script = order("FOO == 'a' && BAR == 'b' && BAZ == 'c'", Collections.emptySet(), -1);
+        Assert.assertEquals("BAZ == 'c' && BAR == 'b' && FOO == 'a'", JexlStringBuildingVisitor.buildQuery(script));
+        
+        List<String> decisions = config.getPlanDecisions();
+        Assert.assertEquals(3, decisions.size());
+        Assert.assertEquals("BAZ == 'c': index, ~2 entries (index stats)", decisions.get(0));
+        Assert.assertEquals("BAR == 'b': index, ~10 entries (term counts)", decisions.get(1));
+    }
+    
+    @Test
+    public void testOrderByPlacement() throws ParseException {
+        valueCounts.put("FOO:a", 1000d);
+        
+        ASTJexlScript script = order("UNINDEXED == 'x' && ((" + ExceededValueThresholdMarkerJexlNode.label() + " = true) && (BAR =~ 'b.*')) && BAZ == 'c'"
+                        + " && FOO == 'a'", Collections.emptySet(), -1);
+        JexlNode and = script.jjtGetChild(0);
+        // estimated, then unestimated index terms, then ivarators, then evaluation
+        Assert.assertEquals("FOO == 'a'", JexlStringBuildingVisitor.buildQuery(and.jjtGetChild(0)));
+        Assert.assertEquals("BAZ == 'c'", JexlStringBuildingVisitor.buildQuery(and.jjtGetChild(1)));
+        Assert.assertTrue(ExceededValueThresholdMarkerJexlNode.instanceOf(and.jjtGetChild(2)));
+        Assert.assertEquals("UNINDEXED == 'x'", JexlStringBuildingVisitor.buildQuery(and.jjtGetChild(3)));
+    }
+    
+    @Test
+    public void testOrEstimate() throws ParseException {
+        valueCounts.put("FOO:a", 1000d);
+        valueCounts.put("BAR:b", 1d);
+        valueCounts.put("BAR:c", 2d);
+        valueCounts.put("BAZ:d", 10d);
+        
+        ASTJexlScript script = order("FOO == 'a' && (BAZ == 'd' || BAR == 'c') && (BAR == 'b' || BAR == 'c')", Collections.emptySet(), -1);
+        Assert.assertEquals("(BAR == 'b' || BAR == 'c') && (BAZ == 'd' || BAR == 'c') && FOO == 'a'", JexlStringBuildingVisitor.buildQuery(script));
+    }
+    
+    @Test
+    public void testMoveToEvaluation() throws ParseException {
+        valueCounts.put("FOO:a", 1000d);
+        valueCounts.put("BAR:b", 10d);
+        valueCounts.put("BAZ:c", 50d);
+        
+        ASTJexlScript script = order("FOO == 'a' && BAR == 'b' && BAZ == 'c'", Collections.emptySet(), 10);
+        JexlNode and = script.jjtGetChild(0);
+        Assert.assertEquals("BAR == 'b'", JexlStringBuildingVisitor.buildQuery(and.jjtGetChild(0)));
+        Assert.assertEquals("BAZ == 'c'", JexlStringBuildingVisitor.buildQuery(and.jjtGetChild(1)));
+        Assert.assertTrue(ASTDelayedPredicate.instanceOf(and.jjtGetChild(2)));
+        Assert.assertEquals("FOO == 'a'", JexlStringBuildingVisitor.buildQuery(ASTDelayedPredicate.getDelayedPredicateSource(and.jjtGetChild(2))));
+        String decision = config.getPlanDecisions().get(2);
+        Assert.assertTrue(decision, decision.contains("FOO == 'a'"));
+        Assert.assertTrue(decision, decision.endsWith(": evaluation, ~1000 entries (over 10.0 times the best term)"));
+    }
+    
+    @Test
+    public void testIndexOnlyTermsStayInTheIndex() throws ParseException {
+        valueCounts.put("FOO:a", 1000d);
+        valueCounts.put("BAR:b", 10d);
+        
+        ASTJexlScript script = order("FOO == 'a' && BAR == 'b'", Collections.singleton("FOO"), 10);
+        Assert.assertEquals("BAR == 'b' && FOO == 'a'", JexlStringBuildingVisitor.buildQuery(script));
+    }
+    
+    @Test
+    public void testNegationsAreNotReordered() throws ParseException {
+        valueCounts.put("FOO:a", 1000d);
+        valueCounts.put("BAR:b", 10d);
+        
+        ASTJexlScript script = order("!(FOO == 'a' && BAR == 'b') && BAZ == 'c'", Collections.emptySet(), -1);
+        Assert.assertEquals("BAZ == 'c' && !(FOO == 'a' && BAR == 'b')", JexlStringBuildingVisitor.buildQuery(script));
+    }
+    
+    private ASTJexlScript order(String query, Set<String> indexOnlyFields, double maxIndexCostRatio) throws ParseException {
+        ASTJexlScript script = JexlASTHelper.parseJexlQuery(query);
+        OrderByCostVisitor visitor = new OrderByCostVisitor(config, null, INDEXED, indexOnlyFields, maxIndexCostRatio) {
+            @Override
+            protected Double getValueCount(String field, String value) {
+                return valueCounts.get(field + ':' + value);
+            }
+            
+            @Override
+            protected Double getFieldWeight(String field) {
+                return fieldWeights.get(field);
+            }
+        };
+        script.jjtAccept(visitor, null);
+        config.setPlanDecisions(visitor.getDecisions());
+        return script;
+    }
+}
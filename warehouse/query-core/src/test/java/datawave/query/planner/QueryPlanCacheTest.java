@@ -0,0 +1,133 @@
+package datawave.query.planner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.jexl.JexlASTHelper;
+import datawave.query.jexl.visitors.JexlStringBuildingVisitor;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.ParseException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryPlanCacheTest {
+    
+    @Test
+    public void testBindRestoresLiterals() throws ParseException {
+        String query = "FOO == 'bar' && (BAZ == 'qux' || BAZ != 'bar')";
+        ASTJexlScript queryTree = JexlASTHelper.parseJexlQuery(query);
+        
+        QueryPlanCache.ParameterizedQuery parameterized = QueryPlanCache.parameterize(queryTree);
+        Assert.assertEquals(Arrays.asList("bar", "qux"), parameterized.getLiterals());
+        Assert.assertFalse(parameterized.getShape().contains("bar"));
+        
+        ASTJexlScript bound = parameterized.bind(parameterized.getQueryTree());
+        Assert.assertEquals(JexlStringBuildingVisitor.buildQuery(queryTree), JexlStringBuildingVisitor.buildQuery(bound));
+        
+        // neither the original nor the cached tree is modified
+        Assert.assertEquals(JexlStringBuildingVisitor.buildQuery(JexlASTHelper.parseJexlQuery(query)), JexlStringBuildingVisitor.buildQuery(queryTree));
+        Assert.assertEquals(parameterized.getShape(), JexlStringBuildingVisitor.buildQueryWithoutParse(parameterized.getQueryTree()));
+    }
+    
+    @Test
+    public void testSameShapeForDifferentLiterals() throws ParseException {
+        QueryPlanCache.ParameterizedQuery first = QueryPlanCache.parameterize(JexlASTHelper.parseJexlQuery("FOO == 'bar' && BAZ == 'qux'"));
+        QueryPlanCache.ParameterizedQuery second = QueryPlanCache.parameterize(JexlASTHelper.parseJexlQuery("FOO == 'abc' && BAZ == 'def'"));
+        Assert.assertEquals(first.getShape(), second.getShape());
+        
+        // a repeated literal is a different shape, since the rewrites may remove the duplicate
+        QueryPlanCache.ParameterizedQuery repeated = QueryPlanCache.parameterize(JexlASTHelper.parseJexlQuery("FOO == 'abc' && BAZ == 'abc'"));
+        Assert.assertNotEquals(first.getShape(), repeated.getShape());
+        Assert.assertEquals(Arrays.asList("abc"), repeated.getLiterals());
+    }
+    
+    @Test
+    public void testRegexAndNumberLiteralsStayInTheShape() throws ParseException {
+        QueryPlanCache.ParameterizedQuery parameterized = QueryPlanCache.parameterize(JexlASTHelper.parseJexlQuery("FOO =~ 'ba.*' && BAZ == 5 && BAR == 'x'"));
+        Assert.assertTrue(parameterized.getShape().contains("ba.*"));
+        Assert.assertTrue(parameterized.getShape().contains("5"));
+        Assert.assertEquals(Arrays.asList("x"), parameterized.getLiterals());
+    }
+    
+    @Test
+    public void testCacheLookup() throws ParseException {
+        QueryPlanCache cache = new QueryPlanCache();
+        QueryPlanCache.ParameterizedQuery first = QueryPlanCache.parameterize(JexlASTHelper.parseJexlQuery("FOO == 'bar'"));
+        QueryPlanCache.ParameterizedQuery second = QueryPlanCache.parameterize(JexlASTHelper.parseJexlQuery("FOO == 'baz'"));
+        
+        QueryPlanCache.PlanKey key = new QueryPlanCache.PlanKey(first.getShape(), "A,B", "model/table", "[csv]", "v1", "rules");
+        Assert.assertNull(cache.get(key));
+        cache.put(key, first.getQueryTree());
+        
+        ASTJexlScript plan = cache.get(new QueryPlanCache.PlanKey(second.getShape(), "A,B", "model/table", "[csv]", "v1", "rules"));
+        Assert.assertNotNull(plan);
+        Assert.assertEquals("FOO == 'baz'", JexlStringBuildingVisitor.buildQuery(second.bind(plan)));
+        
+        // different metadata or authorizations do not share plans
+        Assert.assertNull(cache.get(new QueryPlanCache.PlanKey(second.getShape(), "A,B", "model/table", "[csv]", "v2", "rules")));
+        Assert.assertNull(cache.get(new QueryPlanCache.PlanKey(second.getShape(), "A", "model/table", "[csv]", "v1", "rules")));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(3, cache.getMissCount());
+        
+        cache.invalidateAll();
+        Assert.assertEquals(0, cache.size());
+    }
+    
+    @Test
+    public void testPlannedQueryLookup() throws ParseException {
+        QueryPlanCache cache = new QueryPlanCache();
+        ShardQueryConfiguration config = new ShardQueryConfiguration();
+        config.setIndexedFields(new HashSet<>(Arrays.asList("FOO")));
+        config.setReverseIndexedFields(new HashSet<>(Arrays.asList("BAR")));
+        config.setPlanDecisions(Collections.singletonList("FOO == 'bar' first"));
+        
+        QueryPlanCache.PlanKey key = new QueryPlanCache.PlanKey("FOO =~ 'ba.*'", "0-1", "A", "model/table", "[csv]", "v1", "rules");
+        Assert.assertNull(cache.getPlanned(key));
+        ASTJexlScript planned = JexlASTHelper.parseJexlQuery("FOO == 'bar' || FOO == 'baz'");
+        cache.putPlanned(key, new QueryPlanCache.PlannedQuery(planned, config));
+        
+        // the planned query and its settings are applied to another query with the same key
+        ShardQueryConfiguration other = new ShardQueryConfiguration();
+        QueryPlanCache.PlannedQuery cached = cache.getPlanned(new QueryPlanCache.PlanKey("FOO =~ 'ba.*'", "0-1", "A", "model/table", "[csv]", "v1", "rules"));
+        Assert.assertNotNull(cached);
+        ASTJexlScript queryTree = cached.apply(other);
+        Assert.assertEquals("FOO == 'bar' || FOO == 'baz'", JexlStringBuildingVisitor.buildQuery(queryTree));
+        Assert.assertNotSame(planned, queryTree);
+        Assert.assertEquals(config.getIndexedFields(), other.getIndexedFields());
+        Assert.assertEquals(config.getReverseIndexedFields(), other.getReverseIndexedFields());
+        Assert.assertEquals(config.getPlanDecisions(), other.getPlanDecisions());
+        
+        // another date range or metadata version is planned again
+        Assert.assertNull(cache.getPlanned(new QueryPlanCache.PlanKey("FOO =~ 'ba.*'", "0-2", "A", "model/table", "[csv]", "v1", "rules")));
+        Assert.assertNull(cache.getPlanned(new QueryPlanCache.PlanKey("FOO =~ 'ba.*'", "0-1", "A", "model/table", "[csv]", "v2", "rules")));
+        Assert.assertEquals(1, cache.getPlannedHitCount());
+        Assert.assertEquals(3, cache.getPlannedMissCount());
+        
+        // the rewritten plans are a separate cache
+        Assert.assertEquals(0, cache.size());
+        cache.invalidateAll();
+        Assert.assertEquals(0, cache.plannedSize());
+    }
+    
+    @Test
+    public void testMetadataDigest() {
+        Map<String,String> mapping = new HashMap<>();
+        mapping.put("FOO", "BAR");
+        String digest = new QueryPlanCache.MetadataDigest().add("fields", Arrays.asList("A", "B")).add("mapping", mapping).digest();
+        
+        // the order the metadata was read in does not matter
+        Assert.assertEquals(digest, new QueryPlanCache.MetadataDigest().add("fields", new LinkedHashSet<>(Arrays.asList("B", "A"))).add("mapping", mapping)
+                        .digest());
+        
+        // but any change to it does, including moving a value to another part
+        Assert.assertNotEquals(digest, new QueryPlanCache.MetadataDigest().add("fields", Arrays.asList("A", "C")).add("mapping", mapping).digest());
+        Assert.assertNotEquals(digest, new QueryPlanCache.MetadataDigest().add("fields", Arrays.asList("A")).add("mapping", mapping).digest());
+        Assert.assertNotEquals(digest, new QueryPlanCache.MetadataDigest().add("fields", Arrays.asList("A", "B")).add("mapping", (Map<?,?>) null).digest());
+        Assert.assertEquals(64, digest.length());
+    }
+}
@@ -5,9 +5,12 @@ import datawave.data.type.NumberType;
 import datawave.query.Constants;
 import datawave.query.attributes.AttributeFactory;
 import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.iterator.profile.QuerySpan;
 import datawave.query.jexl.JexlASTHelper;
 import datawave.query.jexl.visitors.EventDataQueryExpressionVisitor;
 import datawave.query.jexl.visitors.FunctionIndexQueryExpansionVisitor;
+import datawave.query.tld.TLDSeekPlanner;
+import datawave.query.tld.TLDSeekPlannerTest;
 import datawave.query.util.MockDateIndexHelper;
 import datawave.query.util.MockMetadataHelper;
 import datawave.query.util.TypeMetadata;
@@ -316,6 +319,98 @@ public class TLDEventDataFilterTest extends EasyMockSupport {
         verifyAll();
     }
     
+    @Test
+    public void getSeekRange_seekPlannerTest() throws ParseException {
+        ASTJexlScript query = JexlASTHelper.parseJexlQuery("FOO == 'bar'");
+        
+        replayAll();
+        
+        Key root = new Key("row", "dataType" + Constants.NULL + "123.234.345", "FOO" + Constants.NULL_BYTE_STRING + "bar");
+        Key child = new Key("row", "dataType" + Constants.NULL + "123.234.345.1", "BAR" + Constants.NULL_BYTE_STRING + "value");
+        
+        // the thresholds are disabled, so without a planner the child is nexted through
+        filter = new TLDEventDataFilter(query, mockAttributeFactory, null, null, -1, -1);
+        filter.startNewDocument(root);
+        assertTrue(filter.apply(new AbstractMap.SimpleEntry<>(root, null)));
+        assertFalse(filter.apply(new AbstractMap.SimpleEntry<>(child, null)));
+        assertNull(filter.getSeekRange(child, child.followingKey(PartialKey.ROW), false));
+        
+        // a planner that has not learned the children yet expects more keys left in the child than a seek costs
+        QuerySpan querySpan = new QuerySpan(null);
+        filter = new TLDEventDataFilter(query, mockAttributeFactory, null, null, -1, -1);
+        filter.setSeekPlanner(new TLDSeekPlanner());
+        filter.setQuerySpan(querySpan);
+        filter.startNewDocument(root);
+        assertTrue(filter.apply(new AbstractMap.SimpleEntry<>(root, null)));
+        assertFalse(filter.apply(new AbstractMap.SimpleEntry<>(child, null)));
+        Range seekRange = filter.getSeekRange(child, child.followingKey(PartialKey.ROW), false);
+        assertNotNull(seekRange);
+        assertEquals(child.getColumnFamily(), seekRange.getStartKey().getColumnFamily());
+        assertEquals("FOO" + Constants.NULL, seekRange.getStartKey().getColumnQualifier().toString());
+        // the nexts are saved at the cost of a seek the thresholds would not have made
+        assertEquals(-1, querySpan.getSavedSeekCount());
+        assertEquals((long) TLDSeekPlanner.DEFAULT_KEYS_PER_CHILD - 1, querySpan.getSavedNextCount());
+        
+        verifyAll();
+    }
+    
+    @Test
+    public void getSeekRange_seekPlannerNextChildTest() throws ParseException {
+        ASTJexlScript query = JexlASTHelper.parseJexlQuery("BAR == 'value' || FOO == 'bar'");
+        
+        replayAll();
+        
+        filter = new TLDEventDataFilter(query, mockAttributeFactory, null, null, -1, -1);
+        filter.setSeekPlanner(new TLDSeekPlanner());
+        
+        Key root = new Key("row", "dataType" + Constants.NULL + "123.234.345", "FOO" + Constants.NULL_BYTE_STRING + "bar");
+        Key child = new Key("row", "dataType" + Constants.NULL + "123.234.345.1", "ZED" + Constants.NULL_BYTE_STRING + "value");
+        filter.startNewDocument(root);
+        assertTrue(filter.apply(new AbstractMap.SimpleEntry<>(root, null)));
+        assertFalse(filter.apply(new AbstractMap.SimpleEntry<>(child, null)));
+        
+        // no query field is left in the child, so the seek skips the rest of it to the first query field of the next child
+        Range seekRange = filter.getSeekRange(child, child.followingKey(PartialKey.ROW), false);
+        assertNotNull(seekRange);
+        assertEquals("dataType" + Constants.NULL + "123.234.345.1" + Constants.NULL, seekRange.getStartKey().getColumnFamily().toString());
+        assertEquals("BAR" + Constants.NULL, seekRange.getStartKey().getColumnQualifier().toString());
+        
+        verifyAll();
+    }
+    
+    @Test
+    public void getSeekRange_seekPlannerSmallChildrenTest() throws ParseException {
+        ASTJexlScript query = JexlASTHelper.parseJexlQuery("FOO == 'bar'");
+        
+        replayAll();
+        
+        // children of two keys are cheaper to next through than to seek past, even though the thresholds would seek
+        TLDSeekPlanner seekPlanner = new TLDSeekPlanner();
+        for (int i = 0; i < TLDSeekPlanner.MIN_SAMPLES; i++) {
+            TLDSeekPlannerTest.recordChild(seekPlanner, "dataType", 2);
+        }
+        QuerySpan querySpan = new QuerySpan(null);
+        filter = new TLDEventDataFilter(query, mockAttributeFactory, null, null, -1, 0);
+        filter.setSeekPlanner(seekPlanner);
+        filter.setQuerySpan(querySpan);
+        
+        Key root = new Key("row", "dataType" + Constants.NULL + "123.234.345", "FOO" + Constants.NULL_BYTE_STRING + "bar");
+        filter.startNewDocument(root);
+        assertTrue(filter.apply(new AbstractMap.SimpleEntry<>(root, null)));
+        for (int i = 1; i <= 3; i++) {
+            Key child = new Key("row", "dataType" + Constants.NULL + "123.234.345." + i, "BAR" + Constants.NULL_BYTE_STRING + "value");
+            assertFalse(filter.apply(new AbstractMap.SimpleEntry<>(child, null)));
+            assertNull(filter.getSeekRange(child, child.followingKey(PartialKey.ROW), false));
+            assertFalse(filter.apply(new AbstractMap.SimpleEntry<>(child, null)));
+            assertNull(filter.getSeekRange(child, child.followingKey(PartialKey.ROW), false));
+        }
+        // each saved seek costs the one key expected to be left in the child
+        assertEquals(3, querySpan.getSavedSeekCount());
+        assertEquals(-3, querySpan.getSavedNextCount());
+        
+        verifyAll();
+    }
+    
     @Test
     public void getParseInfo_isRootTest() {
         expect(mockScript.jjtGetNumChildren()).andReturn(0).anyTimes();
@@ -0,0 +1,93 @@
+package datawave.query.tables.content;
+
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.webservice.query.QueryImpl;
+import datawave.webservice.query.configuration.GenericQueryConfiguration;
+import datawave.webservice.query.logic.WritesQueryMetrics;
+import datawave.webservice.query.metric.QueryMetric;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchedContentQueryLogicTest {
+    
+    private static final String SHARD = "shard";
+    private static final Authorizations AUTHS = new Authorizations("A");
+    
+    private Connector connector;
+    
+    @Before
+    public void setup() throws Exception {
+        connector = new InMemoryInstance(BatchedContentQueryLogicTest.class.getName()).getConnector("root", new PasswordToken(""));
+        connector.securityOperations().changeUserAuthorizations("root", AUTHS);
+        if (!connector.tableOperations().exists(SHARD)) {
+            connector.tableOperations().create(SHARD);
+        }
+        
+        BatchWriter writer = connector.createBatchWriter(SHARD, new BatchWriterConfig().setMaxLatency(1, TimeUnit.SECONDS).setMaxWriteThreads(1));
+        for (int shard = 0; shard < 3; shard++) {
+            Mutation m = new Mutation("20190101_" + shard);
+            for (int uid = 0; uid < 4; uid++) {
+                m.put("d", "csv\0uid" + uid + "\0CONTENT", new ColumnVisibility("A"), new Value(("content" + uid).getBytes()));
+                m.put("d", "csv\0uid" + uid + ".1\0CONTENT", new ColumnVisibility("A"), new Value(("child" + uid).getBytes()));
+            }
+            writer.addMutation(m);
+        }
+        writer.close();
+    }
+    
+    @Test
+    public void testBatchTimings() throws Exception {
+        BatchedContentQueryLogic logic = new BatchedContentQueryLogic();
+        logic.setTableName(SHARD);
+        logic.setQueryThreads(2);
+        logic.setBatchSize(3);
+        
+        QueryImpl settings = new QueryImpl();
+        settings.setQuery("DOCUMENT:20190101_2/csv/uid1 DOCUMENT:20190101_0/csv/uid0 DOCUMENT:20190101_0/csv/uid3 DOCUMENT:20190101_1/csv/uid2 "
+                        + "DOCUMENT:20190101_0/csv/uid0");
+        settings.setQueryAuthorizations(AUTHS.serialize());
+        
+        GenericQueryConfiguration config = logic.initialize(connector, settings, Collections.singleton(AUTHS));
+        logic.setupQuery(config);
+        
+        // each document is read once, and none of the children are
+        TreeSet<String> documents = new TreeSet<>();
+        Iterator<Entry<Key,Value>> it = logic.iterator();
+        while (it.hasNext()) {
+            Key key = it.next().getKey();
+            documents.add(key.getRow() + "/" + key.getColumnQualifier().toString().split("\0")[1]);
+        }
+        assertEquals(new TreeSet<>(Arrays.asList("20190101_0/uid0", "20190101_0/uid3", "20190101_1/uid2", "20190101_2/uid1")), documents);
+        
+        // the ranges, then a full batch and the rest
+        List<String> timings = logic.getBatchTimings();
+        assertEquals(timings.toString(), 3, timings.size());
+        assertTrue(timings.get(0), timings.get(0).startsWith("Ranges: 4 in "));
+        assertTrue(timings.get(1), timings.get(1).startsWith("Batch 1: 3 entries in "));
+        assertTrue(timings.get(2), timings.get(2).startsWith("Batch 2: 1 entries in "));
+        
+        QueryMetric metric = new QueryMetric();
+        ((WritesQueryMetrics) logic.getTransformer(settings)).writeQueryMetrics(metric);
+        assertEquals(timings, metric.getSubQueryTimings());
+    }
+}
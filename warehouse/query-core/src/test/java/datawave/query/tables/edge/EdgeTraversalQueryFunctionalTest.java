@@ -0,0 +1,96 @@
+package datawave.query.tables.edge;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import datawave.configuration.spring.SpringBean;
+import datawave.query.config.EdgeTraversalQueryConfiguration;
+import datawave.webservice.edgedictionary.RemoteEdgeDictionary;
+import datawave.webservice.query.QueryImpl;
+import datawave.webservice.query.configuration.GenericQueryConfiguration;
+
+import org.apache.accumulo.core.security.Authorizations;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(Arquillian.class)
+public class EdgeTraversalQueryFunctionalTest extends BaseEdgeQueryTest {
+    
+    @Inject
+    @SpringBean(name = "EdgeTraversalQuery")
+    EdgeTraversalQueryLogic logic;
+    
+    @Deployment
+    public static JavaArchive createDeployment() throws Exception {
+        return ShrinkWrap
+                        .create(JavaArchive.class)
+                        .addPackages(true, "org.apache.deltaspike", "io.astefanutti.metrics.cdi", "datawave.query", "datawave.webservice.query.result.event")
+                        .deleteClass(DefaultEdgeEventQueryLogic.class)
+                        .deleteClass(RemoteEdgeDictionary.class)
+                        .deleteClass(datawave.query.metrics.QueryMetricQueryLogic.class)
+                        .deleteClass(datawave.query.metrics.ShardTableQueryMetricHandler.class)
+                        .addAsManifestResource(
+                                        new StringAsset("<alternatives>" + "<stereotype>datawave.query.tables.edge.MockAlternative</stereotype>"
+                                                        + "</alternatives>"), "beans.xml");
+    }
+    
+    public EdgeTraversalQueryLogic runLogic(QueryImpl q, Set<Authorizations> auths) throws Exception {
+        GenericQueryConfiguration config = logic.initialize(connector, q, auths);
+        logic.setupQuery(config);
+        return logic;
+    }
+    
+    @Test
+    public void testOneHop() throws Exception {
+        QueryImpl q = configQuery("(SOURCE == 'ASTEROID_BELT')", auths);
+        EdgeTraversalQueryLogic logic = runLogic(q, auths);
+        
+        // the edge table keys are returned, without the counts the tservers add to them
+        List<String> expected = new ArrayList<>();
+        expected.add("asteroid_belt%00;ceres AdjacentCelestialBodies/FROM-TO:20150713/COSMOS_DATA-COSMOS_DATA [A]");
+        expected.add("asteroid_belt%00;jupiter AdjacentCelestialBodies/FROM-TO:20150713/COSMOS_DATA-COSMOS_DATA [A]");
+        expected.add("asteroid_belt%00;mars AdjacentCelestialBodies/FROM-TO:20150713/COSMOS_DATA-COSMOS_DATA [A]");
+        
+        compareResults(logic, expected);
+    }
+    
+    @Test
+    public void testMaxEdgesPerScan() throws Exception {
+        logic.setMaxEdgesPerScan(2);
+        QueryImpl q = configQuery("(SOURCE == 'ASTEROID_BELT')", auths);
+        EdgeTraversalQueryLogic logic = runLogic(q, auths);
+        
+        List<String> expected = new ArrayList<>();
+        expected.add("asteroid_belt%00;ceres AdjacentCelestialBodies/FROM-TO:20150713/COSMOS_DATA-COSMOS_DATA [A]");
+        expected.add("asteroid_belt%00;jupiter AdjacentCelestialBodies/FROM-TO:20150713/COSMOS_DATA-COSMOS_DATA [A]");
+        
+        compareResults(logic, expected);
+    }
+    
+    @Test
+    public void testMaxEdgesPerScanOfEachVertex() throws Exception {
+        logic.setMaxEdgesPerScan(2);
+        QueryImpl q = configQuery("(SOURCE == 'ASTEROID_BELT')", auths);
+        q.addParameter(EdgeTraversalQueryConfiguration.HOPS, "2");
+        EdgeTraversalQueryLogic logic = runLogic(q, auths);
+        
+        // the second hop returns at most two edges out of each of ceres and jupiter
+        List<String> expected = new ArrayList<>();
+        expected.add("asteroid_belt%00;ceres AdjacentCelestialBodies/FROM-TO:20150713/COSMOS_DATA-COSMOS_DATA [A]");
+        expected.add("asteroid_belt%00;jupiter AdjacentCelestialBodies/FROM-TO:20150713/COSMOS_DATA-COSMOS_DATA [A]");
+        expected.add("ceres%00;asteroid_belt AdjacentCelestialBodies/TO-FROM:20150713/COSMOS_DATA-COSMOS_DATA [A]");
+        expected.add("ceres%00;jupiter AdjacentCelestialBodies/FROM-TO:20150713/COSMOS_DATA-COSMOS_DATA [A]");
+        expected.add("jupiter%00;asteroid_belt AdjacentCelestialBodies/TO-FROM:20150713/COSMOS_DATA-COSMOS_DATA [A]");
+        expected.add("jupiter%00;ceres AdjacentCelestialBodies/TO-FROM:20150713/COSMOS_DATA-COSMOS_DATA [A]");
+        
+        compareResults(logic, expected);
+    }
+}
@@ -0,0 +1,34 @@
+package datawave.query.tables.shard;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map.Entry;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+import datawave.ingest.protobuf.Uid;
+import datawave.util.time.DateHelper;
+
+public class FieldIndexCountQueryLogicTest {
+    
+    @Test
+    public void testGlobalIndexCountFunction() {
+        Uid.List uids = Uid.List.newBuilder().setIGNORE(true).setCOUNT(42).build();
+        Entry<Key,Value> summary = Maps.immutableEntry(new Key("red", "COLOR", "20190101\0csv", "A"), new Value(uids.toByteArray()));
+        
+        Entry<Key,Value> count = new FieldIndexCountQueryLogic.GlobalIndexCountFunction(true).apply(summary);
+        assertEquals("20190101", count.getKey().getRow().toString());
+        assertEquals("fi\0COLOR", count.getKey().getColumnFamily().toString());
+        assertEquals("red\0csv", count.getKey().getColumnQualifier().toString());
+        assertEquals("A", count.getKey().getColumnVisibility().toString());
+        assertEquals(DateHelper.parse("20190101").getTime(), count.getKey().getTimestamp());
+        assertEquals("42", count.getValue().toString());
+        
+        count = new FieldIndexCountQueryLogic.GlobalIndexCountFunction(false).apply(summary);
+        assertEquals("red", count.getKey().getColumnQualifier().toString());
+    }
+}
@@ -0,0 +1,85 @@
+package datawave.query.tld;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TLDSeekPlannerTest {
+    
+    @Test
+    public void testDefaults() {
+        TLDSeekPlanner planner = new TLDSeekPlanner();
+        assertEquals(TLDSeekPlanner.DEFAULT_SEEK_COST_IN_NEXTS, planner.getSeekCostInNexts("dataType"), 0.0001);
+        assertEquals((long) TLDSeekPlanner.DEFAULT_KEYS_PER_CHILD - 4, planner.getKeysToSkip("dataType", 4));
+        assertEquals(1, planner.getKeysToSkip("dataType", 100));
+        assertTrue(planner.shouldSeek("dataType", 11));
+        assertFalse(planner.shouldSeek("dataType", 10));
+    }
+    
+    @Test
+    public void testLearnsPerDatatype() {
+        TLDSeekPlanner planner = new TLDSeekPlanner();
+        TLDSeekPlanner.Samples cheapSeeks = new TLDSeekPlanner.Samples();
+        TLDSeekPlanner.Samples expensiveSeeks = new TLDSeekPlanner.Samples();
+        for (int i = 0; i < TLDSeekPlanner.MIN_SAMPLES; i++) {
+            cheapSeeks.recordStep(false, 100);
+            cheapSeeks.recordStep(true, 200);
+            expensiveSeeks.recordStep(false, 100);
+            expensiveSeeks.recordStep(true, 5000);
+            cheapSeeks.recordChild(40);
+            expensiveSeeks.recordChild(40);
+        }
+        planner.record("cheapSeeks", cheapSeeks);
+        planner.record("expensiveSeeks", expensiveSeeks);
+        
+        assertEquals(2.0, planner.getSeekCostInNexts("cheapSeeks"), 0.0001);
+        assertEquals(50.0, planner.getSeekCostInNexts("expensiveSeeks"), 0.0001);
+        assertEquals(30, planner.getKeysToSkip("cheapSeeks", 10));
+        assertTrue(planner.shouldSeek("cheapSeeks", planner.getKeysToSkip("cheapSeeks", 10)));
+        assertFalse(planner.shouldSeek("expensiveSeeks", planner.getKeysToSkip("expensiveSeeks", 10)));
+        
+        // an unseen datatype keeps the defaults
+        assertEquals(TLDSeekPlanner.DEFAULT_SEEK_COST_IN_NEXTS, planner.getSeekCostInNexts("other"), 0.0001);
+    }
+    
+    @Test
+    public void testRecordSamples() {
+        TLDSeekPlanner planner = new TLDSeekPlanner();
+        TLDSeekPlanner.Samples samples = new TLDSeekPlanner.Samples();
+        for (int i = 0; i < TLDSeekPlanner.MIN_SAMPLES; i++) {
+            samples.recordStep(false, 100);
+            samples.recordStep(true, 400);
+            samples.recordChild(40);
+        }
+        
+        // nothing is learned until the samples are recorded
+        assertEquals(TLDSeekPlanner.DEFAULT_SEEK_COST_IN_NEXTS, planner.getSeekCostInNexts("dataType"), 0.0001);
+        
+        planner.record("dataType", samples);
+        assertTrue(samples.isEmpty());
+        assertEquals(4.0, planner.getSeekCostInNexts("dataType"), 0.0001);
+        assertEquals(30, planner.getKeysToSkip("dataType", 10));
+    }
+    
+    @Test
+    public void testFollowsChanges() {
+        TLDSeekPlanner planner = new TLDSeekPlanner();
+        for (int i = 0; i < TLDSeekPlanner.WINDOW; i++) {
+            recordChild(planner, "dataType", 10);
+        }
+        assertEquals(5, planner.getKeysToSkip("dataType", 5));
+        
+        for (int i = 0; i < 5 * TLDSeekPlanner.WINDOW; i++) {
+            recordChild(planner, "dataType", 1000);
+        }
+        assertTrue(planner.getKeysToSkip("dataType", 5) > 980);
+    }
+    
+    public static void recordChild(TLDSeekPlanner planner, String datatype, long keys) {
+        TLDSeekPlanner.Samples samples = new TLDSeekPlanner.Samples();
+        samples.recordChild(keys);
+        planner.record(datatype, samples);
+    }
+}
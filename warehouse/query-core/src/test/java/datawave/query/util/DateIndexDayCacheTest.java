@@ -0,0 +1,75 @@
+package datawave.query.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import datawave.ingest.mapreduce.handler.dateindex.DateIndexUtil;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DateIndexDayCacheTest {
+    
+    private static final Set<Authorizations> AUTHS = Collections.singleton(new Authorizations("A", "B"));
+    
+    @Test
+    public void testGetDays() throws Exception {
+        Assert.assertEquals(Arrays.asList("20100130", "20100131", "20100201"),
+                        DateIndexDayCache.getDays(DateIndexUtil.getBeginDate("20100130"), DateIndexUtil.getEndDate("20100201")));
+        Assert.assertEquals(Collections.singletonList("20100130"),
+                        DateIndexDayCache.getDays(DateIndexUtil.getBeginDate("20100130"), DateIndexUtil.getEndDate("20100130")));
+    }
+    
+    @Test
+    public void testKeyedByTableAuthsAndDateType() {
+        DateIndexDayCache cache = new DateIndexDayCache();
+        cache.put("dateIndex", AUTHS, "LOADED", "20100101", new DateIndexDayCache.Day(System.currentTimeMillis()));
+        
+        Assert.assertEquals(1, cache.get("dateIndex", Collections.singleton(new Authorizations("B", "A")), "LOADED", Arrays.asList("20100101", "20100102"))
+                        .size());
+        Assert.assertTrue(cache.get("dateIndex", AUTHS, "ACTIVITY", Collections.singletonList("20100101")).isEmpty());
+        Assert.assertTrue(cache.get("otherIndex", AUTHS, "LOADED", Collections.singletonList("20100101")).isEmpty());
+        Assert.assertTrue(cache.get("dateIndex", Collections.singleton(new Authorizations("A")), "LOADED", Collections.singletonList("20100101")).isEmpty());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(4, cache.getMissCount());
+    }
+    
+    @Test
+    public void testOpenDaysAreRefreshed() {
+        DateIndexDayCache cache = new DateIndexDayCache(1000, 1, TimeUnit.HOURS, 1000);
+        long now = System.currentTimeMillis();
+        String today = DateIndexUtil.format(new Date(now));
+        
+        cache.put("dateIndex", AUTHS, "LOADED", "20100101", new DateIndexDayCache.Day(now - 2000));
+        cache.put("dateIndex", AUTHS, "LOADED", today, new DateIndexDayCache.Day(now - 2000));
+        Map<String,DateIndexDayCache.Day> cached = cache.get("dateIndex", AUTHS, "LOADED", Arrays.asList("20100101", today));
+        Assert.assertEquals(Collections.singleton("20100101"), cached.keySet());
+        
+        cache.put("dateIndex", AUTHS, "LOADED", today, new DateIndexDayCache.Day(now));
+        cached = cache.get("dateIndex", AUTHS, "LOADED", Arrays.asList("20100101", today));
+        Assert.assertEquals(2, cached.size());
+    }
+    
+    @Test
+    public void testDatatypeFilter() {
+        DateIndexDayCache.Day day = new DateIndexDayCache.Day(System.currentTimeMillis());
+        day.add("csv", "LOAD_DATE", "20100102");
+        day.add("csv", "LOAD_DATE", "20100101");
+        day.add("json", "UPLOAD_DATE", "20091231");
+        
+        DateIndexHelper.DateTypeDescription desc = new DateIndexHelper.DateTypeDescription();
+        day.addTo(desc, Collections.singleton("csv"));
+        Assert.assertEquals(Collections.singleton("LOAD_DATE"), desc.getFields());
+        Assert.assertArrayEquals(new String[] {"20100101", "20100102"}, desc.getDateRange());
+        
+        desc = new DateIndexHelper.DateTypeDescription();
+        day.addTo(desc, null);
+        Assert.assertEquals(2, desc.getFields().size());
+        Assert.assertArrayEquals(new String[] {"20091231", "20100102"}, desc.getDateRange());
+        Assert.assertEquals(2, day.size());
+    }
+}
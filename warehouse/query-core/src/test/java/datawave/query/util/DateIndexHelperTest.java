@@ -1,6 +1,5 @@
 package datawave.query.util;
 
-import com.github.benmanes.caffeine.cache.Cache;
 import datawave.ingest.mapreduce.handler.dateindex.DateIndexUtil;
 import datawave.query.MockAccumuloRecordWriter;
 import datawave.util.TableName;
@@ -22,7 +21,6 @@ import org.apache.log4j.Logger;
 import org.junit.runner.RunWith;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.CacheManager;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.test.context.ContextConfiguration;
@@ -61,7 +59,9 @@ public class DateIndexHelperTest implements ApplicationContextAware {
     private DateIndexHelperFactory dateIndexHelperFactory;
     
     @Before
-    public void setup() throws Exception {}
+    public void setup() throws Exception {
+        DateIndexHelper.getDayCache().invalidateAll();
+    }
     
     @BeforeClass
     public static void setUp() throws Exception {
@@ -157,10 +157,10 @@ public class DateIndexHelperTest implements ApplicationContextAware {
         Assert.assertEquals(DateIndexUtil.getBeginDate("20100103"), dtd.getBeginDate());
         Assert.assertEquals(DateIndexUtil.getEndDate("20100103"), dtd.getEndDate());
         
-        // there should be 3 entries in the cache
+        // there should be 3 days in the cache
         Assert.assertEquals(3, countCacheEntries());
         
-        // create a new DateIndexHelper for each of 3 new calls. There should still be only 3 entries in the cache
+        // create a new DateIndexHelper for each of 3 new calls. There should still be only 3 days in the cache
         helper = this.dateIndexHelperFactory.createDateIndexHelper().initialize(connector, TableName.DATE_INDEX, Collections.singleton(auths), 2, 0.9f);
         
         helper.getTypeDescription("LOADED", DateIndexUtil.getBeginDate("20100102"), DateIndexUtil.getEndDate("20100102"), Collections.singleton("test"));
@@ -185,13 +185,40 @@ public class DateIndexHelperTest implements ApplicationContextAware {
         Assert.assertEquals(5, countCacheEntries());
     }
     
-    private int countCacheEntries() {
-        CacheManager cacheManager = this.applicationContext.getBean("dateIndexHelperCacheManager", CacheManager.class);
-        String cacheName = "getTypeDescription";
-        Object nativeCache = cacheManager.getCache(cacheName).getNativeCache();
-        Cache cache = (Cache) nativeCache;
-        Map map = cache.asMap();
-        return map.size();
+    @Test
+    public void testDateIndexHelperDescriptionFromCachedDays() throws Exception {
+        DateIndexHelper helper = this.dateIndexHelperFactory.createDateIndexHelper().initialize(connector, TableName.DATE_INDEX, Collections.singleton(auths),
+                        2, 0.9f);
+        
+        DateIndexHelper.DateTypeDescription dtd = helper.getTypeDescription("LOADED", DateIndexUtil.getBeginDate("20100102"),
+                        DateIndexUtil.getEndDate("20100102"), Collections.singleton("test"));
+        Assert.assertEquals(0, dtd.getCachedDays());
+        Assert.assertEquals(1, dtd.getScannedDays());
+        
+        // a sliding window only scans the days it has not seen yet
+        dtd = helper.getTypeDescription("LOADED", DateIndexUtil.getBeginDate("20100102"), DateIndexUtil.getEndDate("20100104"), Collections.singleton("test"));
+        Assert.assertEquals(1, dtd.getCachedDays());
+        Assert.assertEquals(2, dtd.getScannedDays());
+        Assert.assertEquals(Collections.singleton("LOAD_DATE"), dtd.getFields());
+        Assert.assertEquals(DateIndexUtil.getBeginDate("20100101"), dtd.getBeginDate());
+        Assert.assertEquals(DateIndexUtil.getEndDate("20100103"), dtd.getEndDate());
+        
+        dtd = helper.getTypeDescription("LOADED", DateIndexUtil.getBeginDate("20100103"), DateIndexUtil.getEndDate("20100104"), Collections.singleton("test"));
+        Assert.assertEquals(2, dtd.getCachedDays());
+        Assert.assertEquals(0, dtd.getScannedDays());
+        Assert.assertEquals(DateIndexUtil.getBeginDate("20100103"), dtd.getBeginDate());
+        Assert.assertEquals(DateIndexUtil.getEndDate("20100103"), dtd.getEndDate());
+        
+        // the datatype filter is applied to the cached days
+        dtd = helper.getTypeDescription("LOADED", DateIndexUtil.getBeginDate("20100102"), DateIndexUtil.getEndDate("20100104"), Collections.singleton("other"));
+        Assert.assertEquals(3, dtd.getCachedDays());
+        Assert.assertEquals(Collections.emptySet(), dtd.getFields());
+        Assert.assertEquals(DateIndexUtil.getBeginDate("20100102"), dtd.getBeginDate());
+        Assert.assertEquals(DateIndexUtil.getEndDate("20100104"), dtd.getEndDate());
+    }
+    
+    private long countCacheEntries() {
+        return DateIndexHelper.getDayCache().size();
     }
     
     @Test
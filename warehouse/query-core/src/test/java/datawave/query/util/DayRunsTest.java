@@ -0,0 +1,26 @@
+package datawave.query.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Sets;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DayRunsTest {
+    
+    @Test
+    public void testGetUncachedRuns() {
+        List<String> days = Arrays.asList("20190101", "20190102", "20190103", "20190104", "20190105");
+        List<String[]> runs = DayRuns.getUncachedRuns(days, Sets.newHashSet("20190103"));
+        Assert.assertEquals(2, runs.size());
+        Assert.assertArrayEquals(new String[] {"20190101", "20190102"}, runs.get(0));
+        Assert.assertArrayEquals(new String[] {"20190104", "20190105"}, runs.get(1));
+        
+        Assert.assertTrue(DayRuns.getUncachedRuns(days, Sets.newHashSet(days)).isEmpty());
+        runs = DayRuns.getUncachedRuns(days, Collections.emptySet());
+        Assert.assertEquals(1, runs.size());
+        Assert.assertArrayEquals(new String[] {"20190101", "20190105"}, runs.get(0));
+    }
+}
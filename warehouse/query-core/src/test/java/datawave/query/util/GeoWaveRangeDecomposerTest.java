@@ -0,0 +1,102 @@
+package datawave.query.util;
+
+import com.google.common.primitives.UnsignedBytes;
+import datawave.data.normalizer.GeometryNormalizer;
+import datawave.query.config.ShardQueryConfiguration;
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.geowave.core.index.ByteArrayRange;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKTReader;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class GeoWaveRangeDecomposerTest {
+    
+    private static final Comparator<byte[]> BYTES = UnsignedBytes.lexicographicalComparator();
+    
+    private static final String POLYGON = "POLYGON((-10 -10, 10 -10, 12 0, 10 10, 0 12, -10 10, -12 0, -10 -10))";
+    
+    @Test
+    public void parallelDecompositionTest() throws Exception {
+        Geometry geom = new WKTReader().read(POLYGON);
+        List<Envelope> envs = Collections.singletonList(geom.getEnvelopeInternal());
+        GeoWaveRangeDecomposer decomposer = new GeoWaveRangeDecomposer(1000, 1, TimeUnit.HOURS, 4);
+        
+        List<ByteArrayRange> sequential = decomposer.decompose(geom, envs, GeometryNormalizer.index, 64, true, 16, 0.25, 0, 1);
+        List<ByteArrayRange> parallel = decomposer.decompose(geom, envs, GeometryNormalizer.index, 64, true, 16, 0.25, 0, 4);
+        
+        Assert.assertFalse(sequential.isEmpty());
+        Assert.assertEquals(sequential, parallel);
+    }
+    
+    @Test
+    public void cacheTest() throws Exception {
+        Geometry geom = new WKTReader().read("POLYGON((-10 -10, 10 -10, 10 10, -10 10, -10 -10))");
+        // the same polygon, starting from another vertex
+        Geometry sameGeom = new WKTReader().read("POLYGON((10 10, -10 10, -10 -10, 10 -10, 10 10))");
+        GeoWaveRangeDecomposer decomposer = new GeoWaveRangeDecomposer(1000, 1, TimeUnit.HOURS, 4);
+        ShardQueryConfiguration config = new ShardQueryConfiguration();
+        
+        List<ByteArrayRange> ranges = decomposer.decompose(geom, Collections.singletonList(geom.getEnvelopeInternal()), GeometryNormalizer.index, 8, config);
+        Assert.assertNull(config.getGeoWaveDecompositionCacheHits());
+        Assert.assertEquals(Integer.valueOf(ranges.size()), config.getGeoWaveRangeCount());
+        Assert.assertNotNull(config.getGeoWaveDecompositionTime());
+        
+        List<ByteArrayRange> cached = decomposer.decompose(sameGeom, Collections.singletonList(sameGeom.getEnvelopeInternal()), GeometryNormalizer.index, 8,
+                        config);
+        Assert.assertEquals(ranges, cached);
+        Assert.assertEquals(Integer.valueOf(1), config.getGeoWaveDecompositionCacheHits());
+        Assert.assertEquals(Integer.valueOf(2 * ranges.size()), config.getGeoWaveRangeCount());
+        Assert.assertEquals(1, decomposer.getHitCount());
+        Assert.assertEquals(1, decomposer.getMissCount());
+        
+        // a different resolution is decomposed again
+        decomposer.decompose(geom, Collections.singletonList(geom.getEnvelopeInternal()), GeometryNormalizer.index, 4, config);
+        Assert.assertEquals(2, decomposer.getMissCount());
+        Assert.assertEquals(2, decomposer.size());
+        
+        config.setCacheGeoWaveDecompositions(false);
+        decomposer.decompose(geom, Collections.singletonList(geom.getEnvelopeInternal()), GeometryNormalizer.index, 8, config);
+        Assert.assertEquals(1, decomposer.getHitCount());
+        Assert.assertEquals(3, decomposer.getMissCount());
+    }
+    
+    @Test
+    public void rangeBudgetTest() throws Exception {
+        Geometry geom = new WKTReader().read(POLYGON);
+        List<Envelope> envs = Collections.singletonList(geom.getEnvelopeInternal());
+        GeoWaveRangeDecomposer decomposer = new GeoWaveRangeDecomposer(1000, 1, TimeUnit.HOURS, 4);
+        
+        List<ByteArrayRange> ranges = decomposer.decompose(geom, envs, GeometryNormalizer.index, 64, true, 16, 0.25, 0, 4);
+        List<ByteArrayRange> budgeted = decomposer.decompose(geom, envs, GeometryNormalizer.index, 64, true, 16, 0.25, ranges.size() / 2, 4);
+        
+        Assert.assertTrue(budgeted.size() < ranges.size());
+        // every original range is still covered by a budgeted range of its tier
+        for (ByteArrayRange range : ranges) {
+            Assert.assertTrue(budgeted.stream().anyMatch(b -> b.getStart()[0] == range.getStart()[0] && BYTES.compare(b.getStart(), range.getStart()) <= 0
+                            && BYTES.compare(b.getEnd(), range.getEnd()) >= 0));
+        }
+    }
+    
+    @Test
+    public void mergeToBudgetTest() {
+        List<ByteArrayRange> ranges = Arrays.asList(GeoWaveUtils.createByteArrayRange(5, 0, 1), GeoWaveUtils.createByteArrayRange(5, 3, 4),
+                        GeoWaveUtils.createByteArrayRange(5, 10, 11), GeoWaveUtils.createByteArrayRange(6, 0, 0));
+        
+        // the smallest gap is closed first
+        Assert.assertEquals(Arrays.asList(GeoWaveUtils.createByteArrayRange(5, 0, 4), GeoWaveUtils.createByteArrayRange(5, 10, 11),
+                        GeoWaveUtils.createByteArrayRange(6, 0, 0)), GeoWaveRangeDecomposer.mergeToBudget(ranges, 3));
+        
+        // ranges of different tiers are never merged
+        Assert.assertEquals(Arrays.asList(GeoWaveUtils.createByteArrayRange(5, 0, 11), GeoWaveUtils.createByteArrayRange(6, 0, 0)),
+                        GeoWaveRangeDecomposer.mergeToBudget(ranges, 1));
+        
+        Assert.assertEquals(ranges, GeoWaveRangeDecomposer.mergeToBudget(ranges, 4));
+    }
+}
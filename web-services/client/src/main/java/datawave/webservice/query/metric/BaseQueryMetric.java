@@ -580,6 +580,39 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
     protected String plan = null;
     @XmlElement
     protected long loginTime = -1;
+    @XmlElement
+    protected Boolean planCacheHit = null;
+    @XmlElement
+    protected Integer dateIndexCacheHits = null;
+    @XmlElement
+    protected Integer dateIndexCacheMisses = null;
+    @XmlElement
+    protected Long geoWaveDecompositionTime = null;
+    @XmlElement
+    protected Integer geoWaveRangeCount = null;
+    @XmlElement
+    protected Integer geoWaveDecompositionCacheHits = null;
+    @XmlElement
+    protected long ivaratorRanges = 0;
+    @XmlElement
+    protected long ivaratorFillTime = 0;
+    @XmlElement
+    protected long ivaratorWaitTime = 0;
+    @XmlElement
+    protected long ivaratorBytesSpilled = 0;
+    @XmlElement
+    protected long savedSeekCount = 0;
+    @XmlElement
+    protected long savedNextCount = 0;
+    @XmlElementWrapper(name = "planTimings")
+    @XmlElement(name = "planTiming")
+    protected List<String> planTimings = null;
+    @XmlElementWrapper(name = "planDecisions")
+    @XmlElement(name = "planDecision")
+    protected List<String> planDecisions = null;
+    @XmlElementWrapper(name = "subQueryTimings")
+    @XmlElement(name = "subQueryTiming")
+    protected List<String> subQueryTimings = null;
     @XmlElementWrapper(name = "predictions")
     @XmlElement(name = "prediction")
     protected Set<Prediction> predictions = new HashSet<Prediction>();
@@ -944,6 +977,172 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
         this.predictions = predictions;
     }
     
+    /**
+     * @return true if the query plan came from the planner's plan cache, false if it was planned and cached, or null if the plan cache was not used
+     */
+    public Boolean getPlanCacheHit() {
+        return planCacheHit;
+    }
+    
+    public void setPlanCacheHit(Boolean planCacheHit) {
+        this.planCacheHit = planCacheHit;
+    }
+    
+    /**
+     * @return the number of days of the date index that the planner found in the date index cache, or null if the query did not use the date index
+     */
+    public Integer getDateIndexCacheHits() {
+        return dateIndexCacheHits;
+    }
+    
+    public void setDateIndexCacheHits(Integer dateIndexCacheHits) {
+        this.dateIndexCacheHits = dateIndexCacheHits;
+    }
+    
+    /**
+     * @return the number of days of the date index that the planner had to scan, or null if the query did not use the date index
+     */
+    public Integer getDateIndexCacheMisses() {
+        return dateIndexCacheMisses;
+    }
+    
+    public void setDateIndexCacheMisses(Integer dateIndexCacheMisses) {
+        this.dateIndexCacheMisses = dateIndexCacheMisses;
+    }
+    
+    /**
+     * @return the milliseconds the planner spent decomposing the geowave functions of the query into ranges, or null if the query has no geowave functions
+     */
+    public Long getGeoWaveDecompositionTime() {
+        return geoWaveDecompositionTime;
+    }
+    
+    public void setGeoWaveDecompositionTime(Long geoWaveDecompositionTime) {
+        this.geoWaveDecompositionTime = geoWaveDecompositionTime;
+    }
+    
+    /**
+     * @return the number of ranges the geowave functions of the query were decomposed into, or null if the query has no geowave functions
+     */
+    public Integer getGeoWaveRangeCount() {
+        return geoWaveRangeCount;
+    }
+    
+    public void setGeoWaveRangeCount(Integer geoWaveRangeCount) {
+        this.geoWaveRangeCount = geoWaveRangeCount;
+    }
+    
+    /**
+     * @return the number of geowave functions of the query whose decomposition was found in the decomposition cache, or null if the query has no geowave
+     *         functions
+     */
+    public Integer getGeoWaveDecompositionCacheHits() {
+        return geoWaveDecompositionCacheHits;
+    }
+    
+    public void setGeoWaveDecompositionCacheHits(Integer geoWaveDecompositionCacheHits) {
+        this.geoWaveDecompositionCacheHits = geoWaveDecompositionCacheHits;
+    }
+    
+    /**
+     * @return the number of field index ranges that ivarators filled for the query
+     */
+    public long getIvaratorRanges() {
+        return ivaratorRanges;
+    }
+    
+    public void setIvaratorRanges(long ivaratorRanges) {
+        this.ivaratorRanges = ivaratorRanges;
+    }
+    
+    /**
+     * @return the milliseconds the ivarators of the query spent filling ranges, summed over the ranges
+     */
+    public long getIvaratorFillTime() {
+        return ivaratorFillTime;
+    }
+    
+    public void setIvaratorFillTime(long ivaratorFillTime) {
+        this.ivaratorFillTime = ivaratorFillTime;
+    }
+    
+    /**
+     * @return the milliseconds the ivarator fills of the query waited for a source, a thread and a fill slot, summed over the ranges
+     */
+    public long getIvaratorWaitTime() {
+        return ivaratorWaitTime;
+    }
+    
+    public void setIvaratorWaitTime(long ivaratorWaitTime) {
+        this.ivaratorWaitTime = ivaratorWaitTime;
+    }
+    
+    /**
+     * @return the bytes the ivarators of the query spilled to their cache dirs
+     */
+    public long getIvaratorBytesSpilled() {
+        return ivaratorBytesSpilled;
+    }
+    
+    public void setIvaratorBytesSpilled(long ivaratorBytesSpilled) {
+        this.ivaratorBytesSpilled = ivaratorBytesSpilled;
+    }
+    
+    /**
+     * @return the seeks that the TLD seek planner saved over the seeking thresholds, net of the seeks it added (negative if it added more than it saved)
+     */
+    public long getSavedSeekCount() {
+        return savedSeekCount;
+    }
+    
+    public void setSavedSeekCount(long savedSeekCount) {
+        this.savedSeekCount = savedSeekCount;
+    }
+    
+    /**
+     * @return the nexts that the TLD seek planner saved over the seeking thresholds, net of the nexts it added (negative if it added more than it saved)
+     */
+    public long getSavedNextCount() {
+        return savedNextCount;
+    }
+    
+    public void setSavedNextCount(long savedNextCount) {
+        this.savedNextCount = savedNextCount;
+    }
+    
+    /**
+     * @return the elapsed time of each planning step, one entry per step
+     */
+    public List<String> getPlanTimings() {
+        return planTimings;
+    }
+    
+    public void setPlanTimings(List<String> planTimings) {
+        this.planTimings = planTimings;
+    }
+    
+    /**
+     * @return the estimated cost and placement of the terms of the query that the planner based its term order on, one entry per term
+     */
+    public List<String> getPlanDecisions() {
+        return planDecisions;
+    }
+    
+    public void setPlanDecisions(List<String> planDecisions) {
+        this.planDecisions = planDecisions;
+    }
+    
+    /**
+     * @return the latency to the first result, the elapsed time and the throughput of each query logic run by a composite query logic, one entry per logic
+     */
+    public List<String> getSubQueryTimings() {
+        return subQueryTimings;
+    }
+    
+    public void setSubQueryTimings(List<String> subQueryTimings) {
+        this.subQueryTimings = subQueryTimings;
+    }
+    
     @Override
     public void setMarkings(Map<String,String> markings) {
         if (markings == null || markings.isEmpty()) {
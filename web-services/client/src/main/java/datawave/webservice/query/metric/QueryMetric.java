@@ -98,6 +98,27 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
         this.fiRanges = other.fiRanges;
         this.plan = other.plan;
         this.loginTime = other.loginTime;
+        this.planCacheHit = other.planCacheHit;
+        this.dateIndexCacheHits = other.dateIndexCacheHits;
+        this.dateIndexCacheMisses = other.dateIndexCacheMisses;
+        this.geoWaveDecompositionTime = other.geoWaveDecompositionTime;
+        this.geoWaveRangeCount = other.geoWaveRangeCount;
+        this.geoWaveDecompositionCacheHits = other.geoWaveDecompositionCacheHits;
+        this.ivaratorRanges = other.ivaratorRanges;
+        this.ivaratorFillTime = other.ivaratorFillTime;
+        this.ivaratorWaitTime = other.ivaratorWaitTime;
+        this.ivaratorBytesSpilled = other.ivaratorBytesSpilled;
+        this.savedSeekCount = other.savedSeekCount;
+        this.savedNextCount = other.savedNextCount;
+        if (other.planTimings != null) {
+            this.planTimings = Lists.newArrayList(other.planTimings);
+        }
+        if (other.planDecisions != null) {
+            this.planDecisions = Lists.newArrayList(other.planDecisions);
+        }
+        if (other.subQueryTimings != null) {
+            this.subQueryTimings = Lists.newArrayList(other.subQueryTimings);
+        }
         
         if (other.predictions != null) {
             this.predictions = new HashSet<Prediction>();
@@ -120,7 +141,12 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
                         .append(this.getErrorMessage()).append(this.getCreateCallTime()).append(this.getErrorCode()).append(this.getQueryName())
                         .append(this.getParameters()).append(this.getSourceCount()).append(this.getNextCount()).append(this.getSeekCount())
                         .append(this.getYieldCount()).append(this.getDocRanges()).append(this.getFiRanges()).append(this.getPlan()).append(this.getLoginTime())
-                        .append(this.getPredictions()).toHashCode();
+                        .append(this.getPredictions()).append(this.getPlanCacheHit()).append(this.getPlanTimings())
+                        .append(this.getPlanDecisions()).append(this.getDateIndexCacheHits()).append(this.getDateIndexCacheMisses())
+                        .append(this.getSubQueryTimings()).append(this.getGeoWaveDecompositionTime()).append(this.getGeoWaveRangeCount())
+                        .append(this.getGeoWaveDecompositionCacheHits()).append(this.getIvaratorRanges()).append(this.getIvaratorFillTime())
+                        .append(this.getIvaratorWaitTime()).append(this.getIvaratorBytesSpilled()).append(this.getSavedSeekCount())
+                        .append(this.getSavedNextCount()).toHashCode();
     }
     
     @Override
@@ -148,6 +174,18 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
                             .append(this.getYieldCount(), other.getYieldCount()).append(this.getDocRanges(), other.getDocRanges())
                             .append(this.getFiRanges(), other.getFiRanges()).append(this.getPlan(), other.getPlan())
                             .append(this.getLoginTime(), other.getLoginTime()).append(this.getPredictions(), other.getPredictions())
+                            .append(this.getPlanCacheHit(), other.getPlanCacheHit()).append(this.getPlanTimings(), other.getPlanTimings())
+                            .append(this.getPlanDecisions(), other.getPlanDecisions())
+                            .append(this.getDateIndexCacheHits(), other.getDateIndexCacheHits())
+                            .append(this.getDateIndexCacheMisses(), other.getDateIndexCacheMisses())
+                            .append(this.getSubQueryTimings(), other.getSubQueryTimings())
+                            .append(this.getGeoWaveDecompositionTime(), other.getGeoWaveDecompositionTime())
+                            .append(this.getGeoWaveRangeCount(), other.getGeoWaveRangeCount())
+                            .append(this.getGeoWaveDecompositionCacheHits(), other.getGeoWaveDecompositionCacheHits())
+                            .append(this.getIvaratorRanges(), other.getIvaratorRanges()).append(this.getIvaratorFillTime(), other.getIvaratorFillTime())
+                            .append(this.getIvaratorWaitTime(), other.getIvaratorWaitTime())
+                            .append(this.getIvaratorBytesSpilled(), other.getIvaratorBytesSpilled())
+                            .append(this.getSavedSeekCount(), other.getSavedSeekCount()).append(this.getSavedNextCount(), other.getSavedNextCount())
                             .append(this.getMarkings(), other.getMarkings()).isEquals();
         } else {
             return false;
@@ -188,6 +226,21 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
         buf.append(" FI Ranges: ").append(this.getFiRanges());
         buf.append(" Login Time: ").append(this.getLoginTime());
         buf.append(" Predictions: ").append(this.getPredictions());
+        buf.append(" Plan Cache Hit: ").append(this.getPlanCacheHit());
+        buf.append(" Plan Timings: ").append(this.getPlanTimings());
+        buf.append(" Plan Decisions: ").append(this.getPlanDecisions());
+        buf.append(" Date Index Cache Hits: ").append(this.getDateIndexCacheHits());
+        buf.append(" Date Index Cache Misses: ").append(this.getDateIndexCacheMisses());
+        buf.append(" Sub Query Timings: ").append(this.getSubQueryTimings());
+        buf.append(" GeoWave Decomposition Time: ").append(this.getGeoWaveDecompositionTime());
+        buf.append(" GeoWave Range Count: ").append(this.getGeoWaveRangeCount());
+        buf.append(" GeoWave Decomposition Cache Hits: ").append(this.getGeoWaveDecompositionCacheHits());
+        buf.append(" Ivarator Ranges: ").append(this.getIvaratorRanges());
+        buf.append(" Ivarator Fill Time(ms): ").append(this.getIvaratorFillTime());
+        buf.append(" Ivarator Wait Time(ms): ").append(this.getIvaratorWaitTime());
+        buf.append(" Ivarator Bytes Spilled: ").append(this.getIvaratorBytesSpilled());
+        buf.append(" Saved Seek Count: ").append(this.getSavedSeekCount());
+        buf.append(" Saved Next Count: ").append(this.getSavedNextCount());
         buf.append("\n");
         return buf.toString();
     }
@@ -370,6 +423,61 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
                     }
                 }
             }
+            
+            if (message.planCacheHit != null) {
+                output.writeBool(37, message.planCacheHit, false);
+            }
+            
+            if (message.planTimings != null) {
+                for (String s : message.planTimings) {
+                    if (s != null) {
+                        output.writeString(38, s, true);
+                    }
+                }
+            }
+            
+            if (message.planDecisions != null) {
+                for (String s : message.planDecisions) {
+                    if (s != null) {
+                        output.writeString(39, s, true);
+                    }
+                }
+            }
+            
+            if (message.dateIndexCacheHits != null) {
+                output.writeUInt32(40, message.dateIndexCacheHits, false);
+            }
+            
+            if (message.dateIndexCacheMisses != null) {
+                output.writeUInt32(41, message.dateIndexCacheMisses, false);
+            }
+            
+            if (message.subQueryTimings != null) {
+                for (String s : message.subQueryTimings) {
+                    if (s != null) {
+                        output.writeString(42, s, true);
+                    }
+                }
+            }
+            
+            if (message.geoWaveDecompositionTime != null) {
+                output.writeUInt64(43, message.geoWaveDecompositionTime, false);
+            }
+            
+            if (message.geoWaveRangeCount != null) {
+                output.writeUInt32(44, message.geoWaveRangeCount, false);
+            }
+            
+            if (message.geoWaveDecompositionCacheHits != null) {
+                output.writeUInt32(45, message.geoWaveDecompositionCacheHits, false);
+            }
+            
+            output.writeInt64(46, message.ivaratorRanges, false);
+            output.writeInt64(47, message.ivaratorFillTime, false);
+            output.writeInt64(48, message.ivaratorWaitTime, false);
+            output.writeInt64(49, message.ivaratorBytesSpilled, false);
+            output.writeInt64(50, message.savedSeekCount, false);
+            output.writeInt64(51, message.savedNextCount, false);
         }
         
         public void mergeFrom(Input input, QueryMetric message) throws IOException {
@@ -502,6 +610,60 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
                         }
                         message.predictions.add(input.mergeObject(null, Prediction.getSchema()));
                         break;
+                    case 37:
+                        message.planCacheHit = input.readBool();
+                        break;
+                    case 38:
+                        if (message.planTimings == null) {
+                            message.planTimings = new ArrayList<String>();
+                        }
+                        message.planTimings.add(input.readString());
+                        break;
+                    case 39:
+                        if (message.planDecisions == null) {
+                            message.planDecisions = new ArrayList<String>();
+                        }
+                        message.planDecisions.add(input.readString());
+                        break;
+                    case 40:
+                        message.dateIndexCacheHits = input.readUInt32();
+                        break;
+                    case 41:
+                        message.dateIndexCacheMisses = input.readUInt32();
+                        break;
+                    case 42:
+                        if (message.subQueryTimings == null) {
+                            message.subQueryTimings = new ArrayList<String>();
+                        }
+                        message.subQueryTimings.add(input.readString());
+                        break;
+                    case 43:
+                        message.geoWaveDecompositionTime = input.readUInt64();
+                        break;
+                    case 44:
+                        message.geoWaveRangeCount = input.readUInt32();
+                        break;
+                    case 45:
+                        message.geoWaveDecompositionCacheHits = input.readUInt32();
+                        break;
+                    case 46:
+                        message.ivaratorRanges = input.readInt64();
+                        break;
+                    case 47:
+                        message.ivaratorFillTime = input.readInt64();
+                        break;
+                    case 48:
+                        message.ivaratorWaitTime = input.readInt64();
+                        break;
+                    case 49:
+                        message.ivaratorBytesSpilled = input.readInt64();
+                        break;
+                    case 50:
+                        message.savedSeekCount = input.readInt64();
+                        break;
+                    case 51:
+                        message.savedNextCount = input.readInt64();
+                        break;
                     default:
                         input.handleUnknownField(number, this);
                         break;
@@ -584,6 +746,36 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
                     return "loginTime";
                 case 36:
                     return "predictions";
+                case 37:
+                    return "planCacheHit";
+                case 38:
+                    return "planTimings";
+                case 39:
+                    return "planDecisions";
+                case 40:
+                    return "dateIndexCacheHits";
+                case 41:
+                    return "dateIndexCacheMisses";
+                case 42:
+                    return "subQueryTimings";
+                case 43:
+                    return "geoWaveDecompositionTime";
+                case 44:
+                    return "geoWaveRangeCount";
+                case 45:
+                    return "geoWaveDecompositionCacheHits";
+                case 46:
+                    return "ivaratorRanges";
+                case 47:
+                    return "ivaratorFillTime";
+                case 48:
+                    return "ivaratorWaitTime";
+                case 49:
+                    return "ivaratorBytesSpilled";
+                case 50:
+                    return "savedSeekCount";
+                case 51:
+                    return "savedNextCount";
                 default:
                     return null;
             }
@@ -633,6 +825,21 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
             fieldMap.put("plan", 34);
             fieldMap.put("loginTime", 35);
             fieldMap.put("predictions", 36);
+            fieldMap.put("planCacheHit", 37);
+            fieldMap.put("planTimings", 38);
+            fieldMap.put("planDecisions", 39);
+            fieldMap.put("dateIndexCacheHits", 40);
+            fieldMap.put("dateIndexCacheMisses", 41);
+            fieldMap.put("subQueryTimings", 42);
+            fieldMap.put("geoWaveDecompositionTime", 43);
+            fieldMap.put("geoWaveRangeCount", 44);
+            fieldMap.put("geoWaveDecompositionCacheHits", 45);
+            fieldMap.put("ivaratorRanges", 46);
+            fieldMap.put("ivaratorFillTime", 47);
+            fieldMap.put("ivaratorWaitTime", 48);
+            fieldMap.put("ivaratorBytesSpilled", 49);
+            fieldMap.put("savedSeekCount", 50);
+            fieldMap.put("savedNextCount", 51);
         }
     };
     
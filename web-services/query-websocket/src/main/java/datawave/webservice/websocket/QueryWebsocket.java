@@ -3,17 +3,22 @@ package datawave.webservice.websocket;
 import static datawave.webservice.metrics.Constants.REQUEST_LOGIN_TIME_HEADER;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.interceptor.Interceptors;
 import javax.websocket.OnClose;
+import javax.websocket.OnError;
 import javax.websocket.OnMessage;
 import javax.websocket.OnOpen;
 import javax.websocket.Session;
 import javax.websocket.server.PathParam;
 import javax.websocket.server.ServerEndpoint;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import datawave.security.websocket.WebsocketSecurityConfigurator;
 import datawave.security.websocket.WebsocketSecurityInterceptor;
 import datawave.webservice.query.exception.QueryException;
@@ -26,9 +31,14 @@ import datawave.webservice.websocket.codec.JsonQueryMessageDecoder;
 import datawave.webservice.websocket.codec.QueryResponseMessageJsonEncoder;
 import datawave.webservice.websocket.messages.CancelMessage;
 import datawave.webservice.websocket.messages.CreateQueryMessage;
+import datawave.webservice.websocket.messages.CreateQueryMessage.StreamFormat;
+import datawave.webservice.websocket.messages.CreditMessage;
 import datawave.webservice.websocket.messages.QueryMessage;
 import datawave.webservice.websocket.messages.QueryResponseMessage;
 import datawave.webservice.websocket.messages.QueryResponseMessage.ResponseType;
+import io.protostuff.LinkedBuffer;
+import io.protostuff.Message;
+import io.protostuff.ProtobufIOUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +49,9 @@ import org.slf4j.LoggerFactory;
  * {@link CancelMessage} while the query is in progress in order to cancel execution of the query. Note that if there is a problem creating the query, a
  * creation failure message is sent and the websocket is closed.
  * <p>
+ * A client may instead ask for the results to be streamed, see {@link CreateQueryMessage#isStreaming()}. The results are then sent in small batches as soon as
+ * the query finds them, one batch per credit the client has granted with a {@link CreditMessage}, and the query waits while the client has no credit left.
+ * <p>
  * Per the JSR-356 specification (section 2.1.1), since we have not configured the endpoint otherwise, there shall be one instance of this class per endpoint,
  * per peer.
  * <p>
@@ -54,6 +67,9 @@ public class QueryWebsocket {
     private static final String LOGIC_NAME = "logicName";
     private static final String ACTIVE_QUERY_FUTURE = "activeQueryFuture";
     private static final String ACTIVE_QUERY_ID = "activeQueryId";
+    private static final String ACTIVE_QUERY_OBSERVER = "activeQueryObserver";
+    
+    private static final ObjectMapper streamingMapper = QueryResponseMessageJsonEncoder.createMapper();
     
     private Logger log = LoggerFactory.getLogger(getClass());
     
@@ -70,6 +86,12 @@ public class QueryWebsocket {
         cancelActiveQuery(session);
     }
     
+    @OnError
+    public void handleError(Session session, Throwable t) {
+        log.warn("Cancelling the active query after a websocket error", t);
+        cancelActiveQuery(session);
+    }
+    
     @OnMessage
     public void handleMessage(final Session session, QueryMessage message) {
         switch (message.getType()) {
@@ -80,7 +102,13 @@ public class QueryWebsocket {
                 } else {
                     CreateQueryMessage cqm = (CreateQueryMessage) message;
                     String logicName = (String) session.getUserProperties().get(LOGIC_NAME);
-                    QueryObserver observer = new QueryObserver(log, session);
+                    QueryObserver observer;
+                    if (cqm.isStreaming()) {
+                        observer = new StreamingQueryObserver(log, session, cqm.getBatchSize(), cqm.getInitialCredit(), cqm.getStreamFormat());
+                    } else {
+                        observer = new QueryObserver(log, session);
+                    }
+                    session.getUserProperties().put(ACTIVE_QUERY_OBSERVER, observer);
                     
                     Long startTime = System.nanoTime();
                     Long loginTime = null;
@@ -99,10 +127,24 @@ public class QueryWebsocket {
                 cancelActiveQuery(session);
             }
                 break;
+            case CREDIT: {
+                Object observer = session.getUserProperties().get(ACTIVE_QUERY_OBSERVER);
+                if (observer instanceof StreamingQueryObserver) {
+                    ((StreamingQueryObserver) observer).grant(((CreditMessage) message).getCredits());
+                } else {
+                    log.debug("Ignoring credit for a websocket without a streaming query");
+                }
+            }
+                break;
         }
     }
     
     protected void cancelActiveQuery(Session session) {
+        Object observer = session.getUserProperties().get(ACTIVE_QUERY_OBSERVER);
+        if (observer instanceof StreamingQueryObserver) {
+            // Release a query that is waiting for credit, so that it stops right away
+            ((StreamingQueryObserver) observer).stop();
+        }
         Future<?> activeQuery = (Future<?>) session.getUserProperties().get(ACTIVE_QUERY_FUTURE);
         if (activeQuery != null && !activeQuery.isDone()) {
             // Attempt to cancel the async query call. This will cause the async call to return when it is between next calls.
@@ -119,9 +161,9 @@ public class QueryWebsocket {
         }
     }
     
-    private static class QueryObserver implements AsyncQueryStatusObserver {
-        private Logger log;
-        private Session session;
+    static class QueryObserver implements AsyncQueryStatusObserver {
+        protected Logger log;
+        protected Session session;
         
         public QueryObserver(Logger log, Session session) {
             this.log = log;
@@ -156,6 +198,7 @@ public class QueryWebsocket {
         public void queryException(QueryException ex) {
             session.getUserProperties().remove(ACTIVE_QUERY_ID);
             session.getUserProperties().remove(ACTIVE_QUERY_FUTURE);
+            session.getUserProperties().remove(ACTIVE_QUERY_OBSERVER);
             
             VoidResponse response = new VoidResponse();
             response.addException(ex);
@@ -166,6 +209,7 @@ public class QueryWebsocket {
         public void queryFinished(String queryId) {
             session.getUserProperties().remove(ACTIVE_QUERY_ID);
             session.getUserProperties().remove(ACTIVE_QUERY_FUTURE);
+            session.getUserProperties().remove(ACTIVE_QUERY_OBSERVER);
             
             session.getAsyncRemote().sendObject(new QueryResponseMessage(ResponseType.COMPLETED));
             try {
@@ -176,4 +220,121 @@ public class QueryWebsocket {
             }
         }
     }
+    
+    /**
+     * Streams the results of a query in batches of at most the batch size (capped at the page size of the query), one batch per credit granted by the client.
+     * Each batch is encoded on the query thread, and only one batch is in flight to the client at a time, so a slow client holds the query back rather than
+     * making results pile up on the server.
+     */
+    static class StreamingQueryObserver extends QueryObserver {
+        private final int batchSize;
+        private final StreamFormat format;
+        private final LinkedBuffer buffer = LinkedBuffer.allocate();
+        private int credits;
+        private boolean stopped = false;
+        private Future<Void> pendingSend = null;
+        
+        public StreamingQueryObserver(Logger log, Session session, int batchSize, int initialCredit, StreamFormat format) {
+            super(log, session);
+            this.batchSize = batchSize;
+            this.credits = initialCredit;
+            this.format = format;
+        }
+        
+        public synchronized void grant(int credit) {
+            if (credit > 0) {
+                credits = (int) Math.min(Integer.MAX_VALUE, (long) credits + credit);
+                notifyAll();
+            }
+        }
+        
+        public synchronized void stop() {
+            stopped = true;
+            notifyAll();
+        }
+        
+        @Override
+        public synchronized int awaitDemand(int pageSize) throws InterruptedException {
+            while (credits == 0 && !stopped && session.isOpen()) {
+                wait(TimeUnit.SECONDS.toMillis(1));
+            }
+            if (stopped || !session.isOpen()) {
+                return 0;
+            }
+            credits--;
+            return Math.min(batchSize, pageSize);
+        }
+        
+        @Override
+        public void queryCreated(GenericResponse<String> createQueryResponse) {
+            session.getUserProperties().put(ACTIVE_QUERY_ID, createQueryResponse.getResult());
+            pendingSend = session.getAsyncRemote().sendObject(new QueryResponseMessage(ResponseType.CREATED, createQueryResponse.getResult()));
+        }
+        
+        @Override
+        public void queryResultsAvailable(BaseQueryResponse results) {
+            awaitPendingSend();
+            if (!session.isOpen()) {
+                stop();
+                return;
+            }
+            if (format == StreamFormat.PROTOBUF && results instanceof Message) {
+                @SuppressWarnings("unchecked")
+                Message<Object> pb = (Message<Object>) results;
+                byte[] bytes;
+                try {
+                    bytes = ProtobufIOUtil.toByteArray(results, pb.cachedSchema(), buffer);
+                } finally {
+                    buffer.clear();
+                }
+                pendingSend = session.getAsyncRemote().sendBinary(ByteBuffer.wrap(bytes));
+            } else {
+                try {
+                    String json = streamingMapper.writeValueAsString(new QueryResponseMessage(ResponseType.RESULTS, results));
+                    pendingSend = session.getAsyncRemote().sendText(json);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unable to encode results of query " + results.getQueryId(), e);
+                }
+            }
+        }
+        
+        @Override
+        public void queryException(QueryException ex) {
+            awaitPendingSend();
+            if (session.isOpen()) {
+                super.queryException(ex);
+            }
+        }
+        
+        @Override
+        public void queryFinished(String queryId) {
+            awaitPendingSend();
+            if (session.isOpen()) {
+                super.queryFinished(queryId);
+            } else {
+                session.getUserProperties().remove(ACTIVE_QUERY_ID);
+                session.getUserProperties().remove(ACTIVE_QUERY_FUTURE);
+                session.getUserProperties().remove(ACTIVE_QUERY_OBSERVER);
+            }
+        }
+        
+        /**
+         * Waits for the previous batch to be sent, so that at most one batch is buffered for the client
+         */
+        private void awaitPendingSend() {
+            if (pendingSend != null) {
+                try {
+                    pendingSend.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stop();
+                } catch (ExecutionException e) {
+                    log.debug("Unable to send results to the client, stopping the query", e);
+                    stop();
+                } finally {
+                    pendingSend = null;
+                }
+            }
+        }
+    }
 }
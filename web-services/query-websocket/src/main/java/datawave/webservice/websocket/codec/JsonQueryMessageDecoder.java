@@ -13,6 +13,7 @@ import javax.ws.rs.core.MultivaluedMap;
 
 import datawave.webservice.websocket.messages.CancelMessage;
 import datawave.webservice.websocket.messages.CreateQueryMessage;
+import datawave.webservice.websocket.messages.CreditMessage;
 import datawave.webservice.websocket.messages.QueryMessage;
 import org.jboss.resteasy.specimpl.MultivaluedMapImpl;
 
@@ -33,8 +34,23 @@ public class JsonQueryMessageDecoder implements Decoder.Text<QueryMessage> {
         }
         if (map.size() == 1 && map.containsKey("cancel"))
             return new CancelMessage();
-        else
-            return new CreateQueryMessage(map);
+        else if (map.size() == 1 && map.containsKey("credit"))
+            return new CreditMessage(parseInt(s, map.getFirst("credit")));
+        else {
+            try {
+                return new CreateQueryMessage(map);
+            } catch (IllegalArgumentException e) {
+                throw new DecodeException(s, "Invalid streaming option: " + e.getMessage(), e);
+            }
+        }
+    }
+    
+    private int parseInt(String s, String value) throws DecodeException {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new DecodeException(s, "Expected an integer but got " + value, e);
+        }
     }
     
     private void addValueToMap(String key, JsonParser parser, MultivaluedMap<String,String> map) {
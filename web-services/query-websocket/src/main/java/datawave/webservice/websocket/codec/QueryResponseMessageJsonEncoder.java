@@ -32,7 +32,14 @@ public class QueryResponseMessageJsonEncoder implements Encoder.TextStream<Query
     
     @Override
     public void init(EndpointConfig config) {
-        mapper = new ObjectMapper();
+        mapper = createMapper();
+    }
+    
+    /**
+     * @return a mapper that writes query response messages the same way as this encoder, for callers that encode messages themselves
+     */
+    public static ObjectMapper createMapper() {
+        ObjectMapper mapper = new ObjectMapper();
         mapper.enable(MapperFeature.USE_WRAPPER_NAME_AS_PROPERTY_NAME);
         mapper.setAnnotationIntrospector(AnnotationIntrospector.pair(new JacksonAnnotationIntrospector(),
                         new JaxbAnnotationIntrospector(mapper.getTypeFactory())));
@@ -40,6 +47,7 @@ public class QueryResponseMessageJsonEncoder implements Encoder.TextStream<Query
         mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
         // Don't include NULL properties.
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        return mapper;
     }
     
     @Override
@@ -23,18 +23,86 @@ import javax.ws.rs.core.MultivaluedMap;
  * }
  * }
  * </pre>
+ *
+ * By default, each page of results is sent as soon as it is complete. To stream results instead, set "stream" to true. The results are then sent in batches of
+ * at most "stream.batchSize" results (10 by default, and never more than the page size of the query) as soon as they are found, and the client controls
+ * the rate with credits: the server sends one batch per credit, starting with "stream.credit" credits (1 by default), and the client grants more with a
+ * {@link CreditMessage}. Set "stream.format" to "protobuf" to receive each batch as a binary protobuf frame of the query response rather than as JSON. These
+ * options are not passed on to the query.
  */
 public class CreateQueryMessage implements QueryMessage {
+    public static final String STREAM = "stream";
+    public static final String STREAM_BATCH_SIZE = "stream.batchSize";
+    public static final String STREAM_CREDIT = "stream.credit";
+    public static final String STREAM_FORMAT = "stream.format";
+    
+    /**
+     * The default number of results in a streamed batch, small so that the first results reach the client without waiting for a full page
+     */
+    public static final int DEFAULT_BATCH_SIZE = 10;
+    
+    public enum StreamFormat {
+        JSON, PROTOBUF
+    }
+    
     private MultivaluedMap<String,String> parameters;
+    private boolean streaming = false;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int initialCredit = 1;
+    private StreamFormat streamFormat = StreamFormat.JSON;
     
     public CreateQueryMessage(MultivaluedMap parameters) {
         this.parameters = parameters;
+        String value = removeParameter(STREAM);
+        if (value != null) {
+            streaming = Boolean.parseBoolean(value);
+        }
+        value = removeParameter(STREAM_BATCH_SIZE);
+        if (value != null) {
+            batchSize = Math.max(1, Integer.parseInt(value));
+        }
+        value = removeParameter(STREAM_CREDIT);
+        if (value != null) {
+            initialCredit = Math.max(0, Integer.parseInt(value));
+        }
+        value = removeParameter(STREAM_FORMAT);
+        if (value != null) {
+            streamFormat = StreamFormat.valueOf(value.toUpperCase());
+        }
+    }
+    
+    private String removeParameter(String name) {
+        String value = parameters.getFirst(name);
+        parameters.remove(name);
+        return value;
     }
     
     public MultivaluedMap<String,String> getParameters() {
         return parameters;
     }
     
+    /**
+     * @return true if results are streamed in credited batches rather than sent a page at a time
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+    
+    /**
+     * @return the maximum number of results in a streamed batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public int getInitialCredit() {
+        return initialCredit;
+    }
+    
+    public StreamFormat getStreamFormat() {
+        return streamFormat;
+    }
+    
     @Override
     public Type getType() {
         return Type.CREATE;
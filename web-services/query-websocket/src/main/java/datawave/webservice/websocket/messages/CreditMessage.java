@@ -0,0 +1,30 @@
+package datawave.webservice.websocket.messages;
+
+/**
+ * A query message for clients that stream results to let the query on this websocket send more batches of results. Each credit allows the server to send one
+ * more batch. The client should send a JSON message with a single property "credit" set to the number of batches it is ready for. For example,
+ *
+ * <pre>
+ * <code>
+ * { "credit": 10 }
+ * </code>
+ * </pre>
+ *
+ * @see CreateQueryMessage#isStreaming()
+ */
+public class CreditMessage implements QueryMessage {
+    private int credits;
+    
+    public CreditMessage(int credits) {
+        this.credits = credits;
+    }
+    
+    public int getCredits() {
+        return credits;
+    }
+    
+    @Override
+    public Type getType() {
+        return Type.CREDIT;
+    }
+}
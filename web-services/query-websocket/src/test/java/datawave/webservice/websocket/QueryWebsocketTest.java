@@ -0,0 +1,233 @@
+package datawave.webservice.websocket;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+
+import datawave.webservice.result.DefaultEventQueryResponse;
+import datawave.webservice.result.GenericResponse;
+import datawave.webservice.websocket.QueryWebsocket.StreamingQueryObserver;
+import datawave.webservice.websocket.messages.CreateQueryMessage.StreamFormat;
+import datawave.webservice.websocket.messages.QueryResponseMessage;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isA;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class QueryWebsocketTest {
+    
+    private Session session;
+    private RemoteEndpoint.Async remote;
+    private Map<String,Object> userProperties;
+    private volatile boolean open;
+    private ExecutorService executor;
+    
+    @Before
+    public void setup() {
+        open = true;
+        userProperties = new HashMap<>();
+        remote = EasyMock.createMock(RemoteEndpoint.Async.class);
+        session = EasyMock.createMock(Session.class);
+        expect(session.isOpen()).andAnswer(() -> open).anyTimes();
+        expect(session.getUserProperties()).andReturn(userProperties).anyTimes();
+        expect(session.getAsyncRemote()).andReturn(remote).anyTimes();
+        executor = Executors.newSingleThreadExecutor();
+    }
+    
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    private StreamingQueryObserver newObserver(int batchSize, int initialCredit, StreamFormat format) {
+        return new StreamingQueryObserver(LoggerFactory.getLogger(getClass()), session, batchSize, initialCredit, format);
+    }
+    
+    @Test
+    public void testDemandIsBoundedByBatchSizeAndPageSize() throws Exception {
+        EasyMock.replay(session, remote);
+        StreamingQueryObserver observer = newObserver(10, 2, StreamFormat.JSON);
+        
+        assertEquals(10, observer.awaitDemand(1000));
+        assertEquals(5, observer.awaitDemand(5));
+        EasyMock.verify(session, remote);
+    }
+    
+    @Test
+    public void testWaitsForCredit() throws Exception {
+        EasyMock.replay(session, remote);
+        StreamingQueryObserver observer = newObserver(10, 1, StreamFormat.JSON);
+        assertEquals(10, observer.awaitDemand(100));
+        
+        // no credit left, so the query waits until the client grants more
+        Future<Integer> demand = executor.submit(() -> observer.awaitDemand(100));
+        try {
+            demand.get(200, TimeUnit.MILLISECONDS);
+            fail("Expected the query to wait for credit");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        observer.grant(1);
+        assertEquals(10, demand.get(5, TimeUnit.SECONDS).intValue());
+    }
+    
+    @Test
+    public void testGrantAccumulatesCredit() throws Exception {
+        EasyMock.replay(session, remote);
+        StreamingQueryObserver observer = newObserver(10, 0, StreamFormat.JSON);
+        
+        // non-positive grants are ignored
+        observer.grant(0);
+        observer.grant(-3);
+        observer.grant(2);
+        observer.grant(1);
+        
+        for (int i = 0; i < 3; i++) {
+            assertEquals(10, observer.awaitDemand(100));
+        }
+        Future<Integer> demand = executor.submit(() -> observer.awaitDemand(100));
+        try {
+            demand.get(200, TimeUnit.MILLISECONDS);
+            fail("Expected the query to wait for credit");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        observer.stop();
+        assertEquals(0, demand.get(5, TimeUnit.SECONDS).intValue());
+    }
+    
+    @Test
+    public void testGrantDoesNotOverflow() throws Exception {
+        EasyMock.replay(session, remote);
+        StreamingQueryObserver observer = newObserver(10, 1, StreamFormat.JSON);
+        
+        observer.grant(Integer.MAX_VALUE);
+        observer.grant(Integer.MAX_VALUE);
+        
+        assertEquals(10, observer.awaitDemand(100));
+    }
+    
+    @Test
+    public void testStopReleasesWaitingQuery() throws Exception {
+        EasyMock.replay(session, remote);
+        StreamingQueryObserver observer = newObserver(10, 0, StreamFormat.JSON);
+        
+        Future<Integer> demand = executor.submit(() -> observer.awaitDemand(100));
+        observer.stop();
+        
+        assertEquals(0, demand.get(5, TimeUnit.SECONDS).intValue());
+        // once stopped, credit does not restart the query
+        observer.grant(5);
+        assertEquals(0, observer.awaitDemand(100));
+    }
+    
+    @Test
+    public void testNoDemandOnceSessionIsClosed() throws Exception {
+        EasyMock.replay(session, remote);
+        StreamingQueryObserver observer = newObserver(10, 5, StreamFormat.JSON);
+        
+        open = false;
+        
+        assertEquals(0, observer.awaitDemand(100));
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testResultsSentAsJson() throws Exception {
+        Future<Void> sent = EasyMock.createMock(Future.class);
+        expect(sent.get()).andReturn(null).times(2);
+        expect(remote.sendObject(isA(QueryResponseMessage.class))).andReturn(sent);
+        expect(remote.sendText(anyObject(String.class))).andReturn(sent).times(2);
+        EasyMock.replay(session, remote, sent);
+        
+        StreamingQueryObserver observer = newObserver(10, 1, StreamFormat.JSON);
+        GenericResponse<String> created = new GenericResponse<>();
+        created.setResult("queryId");
+        observer.queryCreated(created);
+        DefaultEventQueryResponse results = new DefaultEventQueryResponse();
+        results.setQueryId("queryId");
+        observer.queryResultsAvailable(results);
+        // the next batch waits for this one to be sent
+        observer.queryResultsAvailable(results);
+        
+        EasyMock.verify(session, remote, sent);
+        assertEquals("queryId", userProperties.get("activeQueryId"));
+    }
+    
+    @Test
+    public void testResultsSentAsProtobuf() throws Exception {
+        expect(remote.sendBinary(isA(ByteBuffer.class))).andReturn(null);
+        EasyMock.replay(session, remote);
+        
+        StreamingQueryObserver observer = newObserver(10, 1, StreamFormat.PROTOBUF);
+        DefaultEventQueryResponse results = new DefaultEventQueryResponse();
+        results.setQueryId("queryId");
+        observer.queryResultsAvailable(results);
+        
+        EasyMock.verify(session, remote);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testFailedSendStopsTheQuery() throws Exception {
+        Future<Void> failed = EasyMock.createMock(Future.class);
+        expect(failed.get()).andThrow(new ExecutionException(new IllegalStateException("client went away")));
+        expect(remote.sendText(anyObject(String.class))).andReturn(failed);
+        expect(remote.sendText(anyObject(String.class))).andReturn(null);
+        EasyMock.replay(session, remote, failed);
+        
+        StreamingQueryObserver observer = newObserver(10, 5, StreamFormat.JSON);
+        DefaultEventQueryResponse results = new DefaultEventQueryResponse();
+        results.setQueryId("queryId");
+        observer.queryResultsAvailable(results);
+        observer.queryResultsAvailable(results);
+        
+        assertEquals(0, observer.awaitDemand(100));
+    }
+    
+    @Test
+    public void testFinishedAfterClientLeftDoesNotSend() throws Exception {
+        EasyMock.replay(session, remote);
+        StreamingQueryObserver observer = newObserver(10, 1, StreamFormat.JSON);
+        userProperties.put("activeQueryId", "queryId");
+        userProperties.put("activeQueryObserver", observer);
+        
+        open = false;
+        observer.queryFinished("queryId");
+        
+        assertFalse(userProperties.containsKey("activeQueryId"));
+        assertFalse(userProperties.containsKey("activeQueryObserver"));
+        EasyMock.verify(session, remote);
+    }
+    
+    @Test
+    public void testFinishedSendsCompletion() throws Exception {
+        expect(remote.sendObject(isA(QueryResponseMessage.class))).andReturn(null);
+        session.close();
+        EasyMock.replay(session, remote);
+        
+        StreamingQueryObserver observer = newObserver(10, 1, StreamFormat.JSON);
+        observer.queryFinished("queryId");
+        
+        EasyMock.verify(session, remote);
+        assertTrue(userProperties.isEmpty());
+    }
+}
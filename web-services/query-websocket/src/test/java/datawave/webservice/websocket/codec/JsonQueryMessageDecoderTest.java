@@ -0,0 +1,121 @@
+package datawave.webservice.websocket.codec;
+
+import javax.websocket.DecodeException;
+
+import datawave.webservice.websocket.messages.CancelMessage;
+import datawave.webservice.websocket.messages.CreateQueryMessage;
+import datawave.webservice.websocket.messages.CreateQueryMessage.StreamFormat;
+import datawave.webservice.websocket.messages.CreditMessage;
+import datawave.webservice.websocket.messages.QueryMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JsonQueryMessageDecoderTest {
+    
+    private JsonQueryMessageDecoder decoder;
+    
+    @Before
+    public void setup() {
+        decoder = new JsonQueryMessageDecoder();
+    }
+    
+    @Test
+    public void testCancel() throws Exception {
+        QueryMessage message = decoder.decode("{ \"cancel\": true }");
+        
+        assertEquals(QueryMessage.Type.CANCEL, message.getType());
+        assertTrue(message instanceof CancelMessage);
+    }
+    
+    @Test
+    public void testCredit() throws Exception {
+        QueryMessage message = decoder.decode("{ \"credit\": 10 }");
+        
+        assertEquals(QueryMessage.Type.CREDIT, message.getType());
+        assertEquals(10, ((CreditMessage) message).getCredits());
+    }
+    
+    @Test
+    public void testCreditAsString() throws Exception {
+        QueryMessage message = decoder.decode("{ \"credit\": \"3\" }");
+        
+        assertEquals(3, ((CreditMessage) message).getCredits());
+    }
+    
+    @Test(expected = DecodeException.class)
+    public void testInvalidCredit() throws Exception {
+        decoder.decode("{ \"credit\": \"lots\" }");
+    }
+    
+    @Test
+    public void testCreditWithOtherParametersIsACreate() throws Exception {
+        QueryMessage message = decoder.decode("{ \"credit\": 10, \"query\": \"FOO == 'bar'\" }");
+        
+        assertEquals(QueryMessage.Type.CREATE, message.getType());
+    }
+    
+    @Test
+    public void testCreateNotStreaming() throws Exception {
+        CreateQueryMessage message = (CreateQueryMessage) decoder.decode("{ \"query\": \"FOO == 'bar'\", \"pagesize\": 100 }");
+        
+        assertFalse(message.isStreaming());
+        assertEquals("FOO == 'bar'", message.getParameters().getFirst("query"));
+        assertEquals("100", message.getParameters().getFirst("pagesize"));
+    }
+    
+    @Test
+    public void testCreateStreamingDefaults() throws Exception {
+        CreateQueryMessage message = (CreateQueryMessage) decoder.decode("{ \"query\": \"FOO == 'bar'\", \"pagesize\": 1000, \"stream\": true }");
+        
+        assertTrue(message.isStreaming());
+        // the batch size does not follow the page size, so the first results are sent without waiting for a full page
+        assertEquals(CreateQueryMessage.DEFAULT_BATCH_SIZE, message.getBatchSize());
+        assertEquals(1, message.getInitialCredit());
+        assertEquals(StreamFormat.JSON, message.getStreamFormat());
+        assertNull(message.getParameters().getFirst(CreateQueryMessage.STREAM));
+        assertEquals("1000", message.getParameters().getFirst("pagesize"));
+    }
+    
+    @Test
+    public void testCreateStreamingOptions() throws Exception {
+        String json = "{ \"query\": \"FOO == 'bar'\", \"stream\": \"true\", \"stream.batchSize\": 5, \"stream.credit\": 4, \"stream.format\": \"protobuf\" }";
+        CreateQueryMessage message = (CreateQueryMessage) decoder.decode(json);
+        
+        assertTrue(message.isStreaming());
+        assertEquals(5, message.getBatchSize());
+        assertEquals(4, message.getInitialCredit());
+        assertEquals(StreamFormat.PROTOBUF, message.getStreamFormat());
+        // the streaming options are not passed on to the query
+        assertEquals(1, message.getParameters().size());
+        assertEquals("FOO == 'bar'", message.getParameters().getFirst("query"));
+    }
+    
+    @Test
+    public void testCreateStreamingBounds() throws Exception {
+        CreateQueryMessage message = (CreateQueryMessage) decoder.decode("{ \"stream\": true, \"stream.batchSize\": 0, \"stream.credit\": -1 }");
+        
+        assertEquals(1, message.getBatchSize());
+        assertEquals(0, message.getInitialCredit());
+    }
+    
+    @Test(expected = DecodeException.class)
+    public void testInvalidBatchSize() throws Exception {
+        decoder.decode("{ \"stream\": true, \"stream.batchSize\": \"small\" }");
+    }
+    
+    @Test(expected = DecodeException.class)
+    public void testInvalidStreamFormat() throws Exception {
+        decoder.decode("{ \"stream\": true, \"stream.format\": \"xml\" }");
+    }
+    
+    @Test
+    public void testWillDecode() {
+        assertTrue(decoder.willDecode("{ \"credit\": 1 }"));
+        assertFalse(decoder.willDecode("credit=1"));
+    }
+}
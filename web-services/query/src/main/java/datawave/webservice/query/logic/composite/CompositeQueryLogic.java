@@ -11,7 +11,10 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.enterprise.inject.Typed;
 
@@ -21,12 +24,15 @@ import datawave.webservice.query.cache.ResultsPage;
 import datawave.webservice.query.configuration.GenericQueryConfiguration;
 import datawave.webservice.query.logic.BaseQueryLogic;
 import datawave.webservice.query.logic.QueryLogicTransformer;
+import datawave.webservice.query.logic.WritesQueryMetrics;
+import datawave.webservice.query.logic.composite.CompositeQueryLogicResults.MergePolicy;
+import datawave.webservice.query.metric.BaseQueryMetric;
 import datawave.webservice.result.BaseResponse;
 
 import org.apache.accumulo.core.client.Connector;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.collections4.functors.NOPTransformer;
+import org.apache.commons.collections4.Transformer;
 import org.apache.commons.collections4.iterators.TransformIterator;
 import org.apache.log4j.Logger;
 
@@ -34,6 +40,10 @@ import org.apache.log4j.Logger;
  * Query Logic implementation that is configured with more than one query logic delegate. The queries are run in parallel and results are retrieved as they come
  * back from the delegates. This class restricts the delegates such that they have to return the same type of response object and two query logics with the same
  * class name and tableName cannot be configured.
+ * <p>
+ * The delegates run on a pool of at most {@link #getMaxConcurrentLogics()} threads, each buffering at most {@link #getMaxBufferBytes()} bytes of results, and
+ * their results are merged according to the {@link #getMergePolicy()}. The latency, elapsed time and throughput of each delegate are written to the query
+ * metric.
  */
 public class CompositeQueryLogic extends BaseQueryLogic<Object> {
     
@@ -50,16 +60,21 @@ public class CompositeQueryLogic extends BaseQueryLogic<Object> {
         }
     }
     
-    private class QueryLogicHolder extends Thread {
+    private class QueryLogicHolder implements Runnable {
+        private final int index;
+        private final String logicName;
         private GenericQueryConfiguration config;
         private TransformIterator transformIterator;
         private Query settings;
-        private boolean started = false;
         private long maxResults;
         
-        public QueryLogicHolder(String logicName) {
-            this.setDaemon(true);
-            this.setName(Thread.currentThread().getName() + "-CompositeQueryLogic-" + logicName + "-" + UUID.randomUUID());
+        public QueryLogicHolder(int index, String logicName) {
+            this.index = index;
+            this.logicName = logicName;
+        }
+        
+        public String getLogicName() {
+            return logicName;
         }
         
         public GenericQueryConfiguration getConfig() {
@@ -92,45 +107,69 @@ public class CompositeQueryLogic extends BaseQueryLogic<Object> {
         
         public void run() {
             long resultCount = 0L;
+            boolean failed = false;
             
-            log.trace("Starting thread: " + this.getName());
-            if (!started) {
-                startLatch.countDown();
-                started = true;
-            }
+            log.trace("Starting " + logicName + " on thread: " + Thread.currentThread().getName());
+            results.start(index);
             try {
                 Object last = new Object();
                 if (this.getMaxResults() < 0)
                     this.setMaxResults(Long.MAX_VALUE);
                 while ((null != last) && !interrupted && transformIterator.hasNext() && (resultCount < this.getMaxResults())) {
-                    try {
-                        last = transformIterator.next();
-                        if (null != last) {
-                            log.debug(Thread.currentThread().getName() + ": Added object to results");
-                            results.add(last);
+                    last = transformIterator.next();
+                    if (null != last) {
+                        log.debug(logicName + ": Added object to results");
+                        if (!results.add(index, last)) {
+                            break;
                         }
-                    } catch (InterruptedException e) {
-                        log.warn("QueryLogic thread interrupted", e);
                     }
                     resultCount++;
                 }
-                
+            } catch (InterruptedException e) {
+                log.warn("QueryLogic thread interrupted", e);
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Error running query logic " + logicName + ", continuing with the other query logics", e);
+                failed = true;
             } finally {
-                completionLatch.countDown();
-                log.trace("Finished thread: " + this.getName());
+                results.finish(index, failed);
+                log.trace("Finished " + logicName + " on thread: " + Thread.currentThread().getName());
             }
         }
         
     }
     
+    /**
+     * Passes the results through unchanged, they have already been transformed by the query logic that produced them, and writes the timings of the query
+     * logics to the query metric as the results are read
+     */
+    private class TimingsTransformer implements Transformer<Object,Object>, WritesQueryMetrics {
+        @Override
+        public Object transform(Object input) {
+            return input;
+        }
+        
+        @Override
+        public void writeQueryMetrics(BaseQueryMetric metric) {
+            if (results != null) {
+                metric.setSubQueryTimings(results.getTimings());
+            }
+        }
+    }
+    
     protected static final Logger log = Logger.getLogger(CompositeQueryLogic.class);
     
+    public static final long DEFAULT_MAX_BUFFER_BYTES = 16L * 1024 * 1024;
+    
     private List<BaseQueryLogic<?>> queryLogics = null;
     private QueryLogicTransformer transformer;
     private Priority p = Priority.NORMAL;
+    private int maxConcurrentLogics = 0;
+    private long maxBufferBytes = DEFAULT_MAX_BUFFER_BYTES;
+    private MergePolicy mergePolicy = MergePolicy.INTERLEAVE;
+    private long mergeResultLimit = 0;
     private volatile boolean interrupted = false;
-    private CountDownLatch startLatch = null;
-    private CountDownLatch completionLatch = null;
+    private ExecutorService executor = null;
     private Map<BaseQueryLogic<?>,QueryLogicHolder> logicState = new TreeMap<>(new QueryLogicComparator());
     private CompositeQueryLogicResults results = null;
     
@@ -139,6 +178,10 @@ public class CompositeQueryLogic extends BaseQueryLogic<Object> {
     public CompositeQueryLogic(CompositeQueryLogic other) {
         super(other);
         this.queryLogics = new ArrayList<>(other.queryLogics);
+        this.maxConcurrentLogics = other.maxConcurrentLogics;
+        this.maxBufferBytes = other.maxBufferBytes;
+        this.mergePolicy = other.mergePolicy;
+        this.mergeResultLimit = other.mergeResultLimit;
     }
     
     @Override
@@ -166,6 +209,8 @@ public class CompositeQueryLogic extends BaseQueryLogic<Object> {
             }
         }
         
+        // the holders are kept in the configured order of the logics, which is their priority when merging
+        List<String> logicNames = new ArrayList<>();
         Iterator<BaseQueryLogic<?>> itr = queryLogics.iterator();
         StringBuilder logicQueryStringBuilder = new StringBuilder("CompositeQueryLogic: ");
         while (itr.hasNext()) {
@@ -176,11 +221,13 @@ public class CompositeQueryLogic extends BaseQueryLogic<Object> {
                 logicQueryStringBuilder.append("(table=" + config.getTableName());
                 logicQueryStringBuilder.append(",query=" + config.getQueryString());
                 logicQueryStringBuilder.append(") ");
-                QueryLogicHolder holder = new QueryLogicHolder(logic.getClass().getSimpleName());
+                String logicName = logic.getClass().getSimpleName() + "(" + logic.getTableName() + ")";
+                QueryLogicHolder holder = new QueryLogicHolder(logicNames.size(), logicName);
                 holder.setConfig(config);
                 holder.setSettings(settings);
                 holder.setMaxResults(logic.getMaxResults());
                 logicState.put(logic, holder);
+                logicNames.add(logicName);
             } catch (Exception e) {
                 log.info(e.getMessage() + " removing query logic " + logic.getClass().getName() + " from CompositeQuery");
                 itr.remove();
@@ -190,9 +237,7 @@ public class CompositeQueryLogic extends BaseQueryLogic<Object> {
                 }
             }
         }
-        startLatch = new CountDownLatch(logicState.values().size());
-        completionLatch = new CountDownLatch(logicState.values().size());
-        this.results = new CompositeQueryLogicResults(Math.min(settings.getPagesize() * 2, 1000), completionLatch);
+        this.results = new CompositeQueryLogicResults(logicNames, Math.min(settings.getPagesize() * 2, 1000), maxBufferBytes, mergePolicy, mergeResultLimit);
         if (log.isDebugEnabled()) {
             log.debug("CompositeQuery initialized with the following queryLogics: ");
             for (Entry<BaseQueryLogic<?>,QueryLogicHolder> entry : this.logicState.entrySet()) {
@@ -231,12 +276,25 @@ public class CompositeQueryLogic extends BaseQueryLogic<Object> {
             TransformIterator transformIterator = entry.getKey().getTransformIterator(entry.getValue().getSettings());
             entry.getValue().setTransformIterator(transformIterator);
         }
-        for (Entry<BaseQueryLogic<?>,QueryLogicHolder> entry : logicState.entrySet()) {
-            entry.getValue().start();
+        if (logicState.isEmpty()) {
+            return;
         }
-        // Wait until all threads have started
-        startLatch.await();
-        log.trace("All threads have started.");
+        
+        // run the logics on a pool of their own, a logic that waits for buffer space holds a thread until its results are read
+        int threads = (maxConcurrentLogics > 0) ? Math.min(maxConcurrentLogics, logicState.size()) : logicState.size();
+        final String threadName = Thread.currentThread().getName() + "-CompositeQueryLogic-" + UUID.randomUUID() + "-";
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, threadName + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<QueryLogicHolder> holders = new ArrayList<>(logicState.values());
+        holders.sort(Comparator.comparingInt(holder -> holder.index));
+        for (QueryLogicHolder holder : holders) {
+            executor.execute(holder);
+        }
+        log.trace("Submitted " + holders.size() + " query logics to " + threads + " threads.");
     }
     
     @Override
@@ -281,9 +339,9 @@ public class CompositeQueryLogic extends BaseQueryLogic<Object> {
     
     @Override
     public TransformIterator getTransformIterator(Query settings) {
-        // The objects put into the pageQueue have already been transformed.
-        // We will iterate over the pagequeue with the No-Op transformer
-        return new TransformIterator(results.iterator(), NOPTransformer.nopTransformer());
+        // The objects put into the results have already been transformed.
+        // We will iterate over the results with a No-Op transformer that reports the timings of the logics
+        return new TransformIterator(results.iterator(), new TimingsTransformer());
     }
     
     @Override
@@ -294,21 +352,68 @@ public class CompositeQueryLogic extends BaseQueryLogic<Object> {
     @Override
     public void close() {
         this.interrupted = true;
+        // release the logics waiting for buffer space before stopping them
+        if (null != results)
+            results.close();
         for (Entry<BaseQueryLogic<?>,QueryLogicHolder> entry : logicState.entrySet()) {
             entry.getKey().close();
-            entry.getValue().interrupt();
         }
-        for (Entry<BaseQueryLogic<?>,QueryLogicHolder> entry : logicState.entrySet()) {
+        if (null != executor) {
+            executor.shutdownNow();
             try {
-                entry.getValue().join();
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    log.warn("Waiting for query logic threads to finish");
+                }
             } catch (InterruptedException e) {
                 log.error("Error joining query logic thread", e);
                 throw new RuntimeException("Error joining query logic thread", e);
             }
         }
         logicState.clear();
-        if (null != results)
-            results.clear();
+    }
+    
+    public int getMaxConcurrentLogics() {
+        return maxConcurrentLogics;
+    }
+    
+    /**
+     * @param maxConcurrentLogics
+     *            the number of logics run at the same time, or 0 to run all of them, the others start as the running ones finish
+     */
+    public void setMaxConcurrentLogics(int maxConcurrentLogics) {
+        this.maxConcurrentLogics = maxConcurrentLogics;
+    }
+    
+    public long getMaxBufferBytes() {
+        return maxBufferBytes;
+    }
+    
+    /**
+     * @param maxBufferBytes
+     *            the size in bytes of the results a logic buffers before it waits for them to be read, or 0 to only limit the number of results
+     */
+    public void setMaxBufferBytes(long maxBufferBytes) {
+        this.maxBufferBytes = maxBufferBytes;
+    }
+    
+    public MergePolicy getMergePolicy() {
+        return mergePolicy;
+    }
+    
+    public void setMergePolicy(MergePolicy mergePolicy) {
+        this.mergePolicy = mergePolicy;
+    }
+    
+    public long getMergeResultLimit() {
+        return mergeResultLimit;
+    }
+    
+    /**
+     * @param mergeResultLimit
+     *            the number of results after which the logics are stopped when merging with {@link MergePolicy#FIRST_N}, or 0 for no limit
+     */
+    public void setMergeResultLimit(long mergeResultLimit) {
+        this.mergeResultLimit = mergeResultLimit;
     }
     
     public List<BaseQueryLogic<?>> getQueryLogics() {
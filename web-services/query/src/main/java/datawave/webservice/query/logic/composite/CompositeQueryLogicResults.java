@@ -1,38 +1,292 @@
 package datawave.webservice.query.logic.composite;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.CountDownLatch;
+import java.util.List;
 
+import datawave.webservice.query.data.ObjectSizeOf;
+
+import org.apache.log4j.Logger;
+
+/**
+ * The results of the query logics run by a {@link CompositeQueryLogic}. Each logic adds its results to a buffer of its own which holds at most a number of
+ * results and, when a byte limit is set, at most that many bytes, so that a logic that is faster than the client waits for its results to be read instead of
+ * filling memory. The buffers are read according to a {@link MergePolicy} as soon as any logic has produced a result, so a slow logic does not hold up the
+ * results of the others.
+ */
 public class CompositeQueryLogicResults implements Iterable<Object> {
     
-    private ArrayBlockingQueue<Object> results = null;
-    private CountDownLatch completionLatch = null;
+    protected static final Logger log = Logger.getLogger(CompositeQueryLogicResults.class);
+    
+    public enum MergePolicy {
+        /**
+         * Take a result from each logic that has one in turn
+         */
+        INTERLEAVE,
+        /**
+         * Take the results of the first configured logic that has any, so results of a later logic are only returned while the earlier ones have none ready
+         */
+        PRIORITY,
+        /**
+         * Take the results in the order the logics produced them, and stop all of the logics once the result limit has been returned
+         */
+        FIRST_N
+    }
+    
+    private final List<Buffer> buffers = new ArrayList<>();
+    private final int bufferSize;
+    private final long bufferBytes;
+    private final MergePolicy mergePolicy;
+    private final long resultLimit;
+    private int nextBuffer = 0;
+    private long sequence = 0;
+    private long returned = 0;
+    private boolean closed = false;
+    
+    /**
+     * @param logicNames
+     *            the names of the logics, in priority order
+     * @param bufferSize
+     *            the maximum number of results buffered per logic
+     * @param bufferBytes
+     *            the maximum size in bytes of the results buffered per logic, or 0 to not size the results
+     * @param mergePolicy
+     *            the order in which the buffers are read
+     * @param resultLimit
+     *            the number of results returned before the logics are stopped when merging with {@link MergePolicy#FIRST_N}, or 0 for no limit
+     */
+    public CompositeQueryLogicResults(List<String> logicNames, int bufferSize, long bufferBytes, MergePolicy mergePolicy, long resultLimit) {
+        for (String logicName : logicNames) {
+            buffers.add(new Buffer(logicName));
+        }
+        this.bufferSize = Math.max(bufferSize, 1);
+        this.bufferBytes = bufferBytes;
+        this.mergePolicy = mergePolicy;
+        this.resultLimit = resultLimit;
+    }
+    
+    /**
+     * Records that a logic has started to produce results
+     */
+    public synchronized void start(int logic) {
+        buffers.get(logic).startTime = System.currentTimeMillis();
+    }
+    
+    /**
+     * Adds a result of a logic, waiting while the buffer of the logic is full
+     *
+     * @return false if the results have been closed and the logic should stop
+     */
+    public boolean add(int logic, Object object) throws InterruptedException {
+        // size the result before taking the lock, the sizer walks the object graph
+        long size = (bufferBytes > 0) ? ObjectSizeOf.Sizer.getObjectSize(object) : 0;
+        synchronized (this) {
+            Buffer buffer = buffers.get(logic);
+            if (!closed && buffer.isFull()) {
+                long start = System.currentTimeMillis();
+                while (!closed && buffer.isFull()) {
+                    wait();
+                }
+                buffer.waitTime += System.currentTimeMillis() - start;
+            }
+            if (closed) {
+                return false;
+            }
+            if (buffer.count == 0) {
+                buffer.firstResultTime = System.currentTimeMillis();
+            }
+            buffer.results.add(new Result(object, size, sequence++));
+            buffer.bytes += size;
+            buffer.count++;
+            buffer.totalBytes += size;
+            notifyAll();
+            return true;
+        }
+    }
+    
+    /**
+     * Records that a logic has produced all of its results
+     */
+    public synchronized void finish(int logic, boolean failed) {
+        Buffer buffer = buffers.get(logic);
+        buffer.endTime = System.currentTimeMillis();
+        buffer.failed = failed;
+        notifyAll();
+    }
+    
+    /**
+     * Takes the next result according to the merge policy, waiting until a logic has produced one
+     *
+     * @return the next result, or null once all of the logics have finished and their results have been taken, or the results have been closed
+     */
+    public synchronized Object take() throws InterruptedException {
+        while (!closed) {
+            Buffer buffer = select();
+            if (buffer != null) {
+                Result result = buffer.results.poll();
+                buffer.bytes -= result.size;
+                returned++;
+                if (mergePolicy == MergePolicy.FIRST_N && resultLimit > 0 && returned >= resultLimit) {
+                    log.debug("Returned the first " + returned + " results, stopping the query logics");
+                    close();
+                }
+                notifyAll();
+                return result.object;
+            }
+            if (isFinished()) {
+                return null;
+            }
+            wait();
+        }
+        return null;
+    }
+    
+    private Buffer select() {
+        Buffer selected = null;
+        switch (mergePolicy) {
+            case PRIORITY:
+                for (Buffer buffer : buffers) {
+                    if (!buffer.results.isEmpty()) {
+                        return buffer;
+                    }
+                }
+                break;
+            case FIRST_N:
+                for (Buffer buffer : buffers) {
+                    if (!buffer.results.isEmpty() && (selected == null || buffer.results.peek().sequence < selected.results.peek().sequence)) {
+                        selected = buffer;
+                    }
+                }
+                break;
+            default:
+                for (int i = 0; i < buffers.size(); i++) {
+                    int index = (nextBuffer + i) % buffers.size();
+                    if (!buffers.get(index).results.isEmpty()) {
+                        nextBuffer = index + 1;
+                        return buffers.get(index);
+                    }
+                }
+        }
+        return selected;
+    }
+    
+    private boolean isFinished() {
+        for (Buffer buffer : buffers) {
+            if (buffer.endTime < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Drops the buffered results and stops the logics from adding more
+     */
+    public synchronized void close() {
+        this.closed = true;
+        clear();
+    }
     
-    public CompositeQueryLogicResults(int pagesize, CountDownLatch completionLatch) {
-        this.results = new ArrayBlockingQueue<>(pagesize);
-        this.completionLatch = completionLatch;
+    public synchronized void clear() {
+        for (Buffer buffer : buffers) {
+            buffer.results.clear();
+            buffer.bytes = 0;
+        }
+        notifyAll();
     }
     
-    public void add(Object object) throws InterruptedException {
-        this.results.put(object);
+    public synchronized boolean isClosed() {
+        return closed;
     }
     
-    public void clear() {
-        this.results.clear();
+    public synchronized int size() {
+        int size = 0;
+        for (Buffer buffer : buffers) {
+            size += buffer.results.size();
+        }
+        return size;
     }
     
-    public int size() {
-        return results.size();
+    public synchronized boolean contains(Object o) {
+        for (Buffer buffer : buffers) {
+            for (Result result : buffer.results) {
+                if (result.object.equals(o)) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
     
-    public boolean contains(Object o) {
-        return results.contains(o);
+    /**
+     * @return the latency to the first result, the elapsed time and the throughput of each logic, one entry per logic
+     */
+    public synchronized List<String> getTimings() {
+        long now = System.currentTimeMillis();
+        List<String> timings = new ArrayList<>();
+        for (Buffer buffer : buffers) {
+            StringBuilder timing = new StringBuilder(buffer.logicName).append(": ");
+            if (buffer.startTime < 0) {
+                timings.add(timing.append("not started").toString());
+                continue;
+            }
+            long elapsed = ((buffer.endTime < 0) ? now : buffer.endTime) - buffer.startTime;
+            timing.append(buffer.count).append(" results");
+            if (buffer.count > 0) {
+                timing.append(", first after ").append(buffer.firstResultTime - buffer.startTime).append(" ms");
+            }
+            timing.append(buffer.endTime < 0 ? ", running for " : (buffer.failed ? ", failed after " : ", finished after ")).append(elapsed).append(" ms");
+            timing.append(", ").append(String.format("%.1f", (elapsed > 0) ? buffer.count * 1000.0 / elapsed : 0.0)).append(" results/s");
+            if (bufferBytes > 0) {
+                timing.append(", ").append(buffer.totalBytes).append(" bytes");
+            }
+            if (buffer.waitTime > 0) {
+                timing.append(", waited ").append(buffer.waitTime).append(" ms for buffer space");
+            }
+            timings.add(timing.toString());
+        }
+        return timings;
     }
     
     @Override
     public Iterator<Object> iterator() {
-        return new CompositeQueryLogicResultsIterator(this.results, this.completionLatch);
+        return new CompositeQueryLogicResultsIterator(this);
     }
     
+    private class Buffer {
+        private final String logicName;
+        private final ArrayDeque<Result> results = new ArrayDeque<>();
+        private long bytes = 0;
+        private long count = 0;
+        private long totalBytes = 0;
+        private long waitTime = 0;
+        private long startTime = -1;
+        private long firstResultTime = -1;
+        private long endTime = -1;
+        private boolean failed = false;
+        
+        Buffer(String logicName) {
+            this.logicName = logicName;
+        }
+        
+        /**
+         * A buffer always takes one result, so that a single result larger than the byte limit does not stop the logic
+         */
+        boolean isFull() {
+            return !results.isEmpty() && (results.size() >= bufferSize || (bufferBytes > 0 && bytes >= bufferBytes));
+        }
+    }
+    
+    private static class Result {
+        private final Object object;
+        private final long size;
+        private final long sequence;
+        
+        Result(Object object, long size, long sequence) {
+            this.object = object;
+            this.size = size;
+            this.sequence = sequence;
+        }
+    }
 }
@@ -1,9 +1,6 @@
 package datawave.webservice.query.logic.composite;
 
 import java.util.Iterator;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 
@@ -11,14 +8,12 @@ public class CompositeQueryLogicResultsIterator implements Iterator<Object> {
     
     protected static final Logger log = Logger.getLogger(CompositeQueryLogicResultsIterator.class);
     
-    private ArrayBlockingQueue<Object> results = null;
+    private CompositeQueryLogicResults results = null;
     private Object nextEntry = null;
     private Object lock = new Object();
-    private CountDownLatch completionLatch = null;
     
-    public CompositeQueryLogicResultsIterator(ArrayBlockingQueue<Object> results, CountDownLatch completionLatch) {
+    public CompositeQueryLogicResultsIterator(CompositeQueryLogicResults results) {
         this.results = results;
-        this.completionLatch = completionLatch;
     }
     
     @Override
@@ -27,11 +22,10 @@ public class CompositeQueryLogicResultsIterator implements Iterator<Object> {
             if (nextEntry != null)
                 return true;
             try {
-                while (nextEntry == null && (!results.isEmpty() || completionLatch.getCount() > 0)) {
-                    nextEntry = results.poll(1, TimeUnit.SECONDS);
-                }
-                return true;
+                nextEntry = results.take();
+                return nextEntry != null;
             } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 throw new RuntimeException(e);
             }
         }
@@ -42,6 +36,7 @@ public class CompositeQueryLogicResultsIterator implements Iterator<Object> {
         Object current = null;
         
         synchronized (lock) {
+            // null once all of the results have been returned, which ends the page
             if (hasNext()) {
                 current = nextEntry;
                 nextEntry = null;
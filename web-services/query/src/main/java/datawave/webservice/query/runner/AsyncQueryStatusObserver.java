@@ -17,4 +17,18 @@ public interface AsyncQueryStatusObserver {
     void queryException(QueryException ex);
     
     void queryFinished(String queryId);
+    
+    /**
+     * Called before each page of results is produced, so that an observer that cannot keep up with the query can hold it back. By default, pages of the page
+     * size of the query are produced as fast as the query can.
+     *
+     * @param pageSize
+     *            the page size of the query
+     * @return the maximum number of results in the next page, or 0 to stop producing pages
+     * @throws InterruptedException
+     *             if interrupted while waiting, which stops the query
+     */
+    default int awaitDemand(int pageSize) throws InterruptedException {
+        return pageSize;
+    }
 }
@@ -76,7 +76,8 @@ public class BasicQueryBean {
     public static final String EXPAND_VALUES = "expand.values";
     public static final String EXPAND_FIELDS = "expand.fields";
     
-    static final List<String> NO_PLAN_REQUIRED = Arrays.asList("datawave.query.tables.content.ContentQueryTable");
+    static final List<String> NO_PLAN_REQUIRED = Arrays.asList("datawave.query.tables.content.ContentQueryTable",
+                    "datawave.query.tables.content.BatchedContentQueryLogic");
     
     private final Logger log = Logger.getLogger(BasicQueryBean.class);
     
@@ -1361,6 +1361,14 @@ public class QueryExecutorBean implements QueryExecutor {
     }
     
     private BaseQueryResponse _next(RunningQuery query, String queryId, Collection<String> proxyServers, Span span) throws Exception {
+        return _next(query, queryId, proxyServers, span, -1);
+    }
+    
+    /**
+     * @param pageSize
+     *            the maximum number of results in the page, or -1 for the page size of the query
+     */
+    private BaseQueryResponse _next(RunningQuery query, String queryId, Collection<String> proxyServers, Span span, int pageSize) throws Exception {
         // If we're tracing this query, then continue the trace for the next call.
         TInfo traceInfo = query.getTraceInfo();
         if (traceInfo != null) {
@@ -1369,7 +1377,7 @@ public class QueryExecutorBean implements QueryExecutor {
         
         ResultsPage resultList;
         try {
-            resultList = query.next();
+            resultList = (pageSize < 0) ? query.next() : query.next(pageSize);
         } catch (RejectedExecutionException e) {
             // - race condition, query expired while user called next
             throw new PreConditionFailedQueryException(DatawaveErrorCode.QUERY_TIMEOUT_OR_SERVER_ERROR, e, MessageFormat.format("id = {0}", queryId));
@@ -3389,23 +3397,44 @@ public class QueryExecutorBean implements QueryExecutor {
             boolean done = false;
             Span span = null;
             List<PageMetric> pageMetrics = rq.getMetric().getPageTimes();
+            // times of the batches that the running query has not recorded as a page yet
+            long batchedSerializationTime = 0;
+            long batchedCallTime = 0;
             
             // Loop over each page of query results, and notify the observer about each page.
             // If we get any exception, then break out of the loop and notify the observer about the problem.
             do {
+                // Wait until the observer is ready for more results, which also bounds the size of the next page
+                int pageSize;
+                try {
+                    pageSize = observer.awaitDemand(rq.getSettings().getPagesize());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    pageSize = 0;
+                }
+                if (pageSize <= 0) {
+                    break;
+                }
+                
                 long callStart = System.nanoTime();
+                int pageCount = pageMetrics.size();
                 rq.setActiveCall(true);
                 try {
-                    BaseQueryResponse page = _next(rq, queryId, proxyServers, span);
+                    BaseQueryResponse page = _next(rq, queryId, proxyServers, span, pageSize);
                     long serializationStart = System.nanoTime();
                     observer.queryResultsAvailable(page);
                     long serializationTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - serializationStart);
                     
                     if (rq.getLogic().getCollectQueryMetrics()) {
-                        PageMetric pm = pageMetrics.get(pageMetrics.size() - 1);
-                        pm.setSerializationTime(serializationTime);
-                        long pageCallTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - callStart);
-                        pm.setCallTime(pageCallTime);
+                        batchedSerializationTime += serializationTime;
+                        batchedCallTime += TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - callStart);
+                        if (pageMetrics.size() > pageCount) {
+                            PageMetric pm = pageMetrics.get(pageMetrics.size() - 1);
+                            pm.setSerializationTime(batchedSerializationTime);
+                            pm.setCallTime(batchedCallTime);
+                            batchedSerializationTime = 0;
+                            batchedCallTime = 0;
+                        }
                     }
                 } catch (Exception e) {
                     if (e instanceof NoResultsException || e.getCause() instanceof NoResultsException) {
@@ -3427,8 +3456,9 @@ public class QueryExecutorBean implements QueryExecutor {
                     }
                 } finally {
                     rq.setActiveCall(false);
-                    // Update the query metrics for the completion of this page (either successfully or due to error)
-                    if (rq.getLogic().getCollectQueryMetrics()) {
+                    // Update the query metrics for the completion of this page (either successfully or due to error). Streamed batches are only
+                    // recorded once they make up a page, so the metric is not updated for every batch.
+                    if (rq.getLogic().getCollectQueryMetrics() && (done || pageMetrics.size() > pageCount)) {
                         try {
                             metrics.updateMetric(rq.getMetric());
                         } catch (Exception e) {
@@ -3437,6 +3467,18 @@ public class QueryExecutorBean implements QueryExecutor {
                     }
                 }
             } while (!done && !sessionContext.wasCancelCalled());
+            
+            // Record any batches sent before the observer stopped the query
+            if (rq.getLogic().getCollectQueryMetrics() && rq.addBatchedPageTime()) {
+                PageMetric pm = pageMetrics.get(pageMetrics.size() - 1);
+                pm.setSerializationTime(batchedSerializationTime);
+                pm.setCallTime(batchedCallTime);
+                try {
+                    metrics.updateMetric(rq.getMetric());
+                } catch (Exception e) {
+                    log.error("Error updating query metric", e);
+                }
+            }
         } finally {
             // Close the query now that we're done with it.
             try {
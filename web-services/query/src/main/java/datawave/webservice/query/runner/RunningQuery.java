@@ -48,6 +48,11 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
     
     private static Logger log = Logger.getLogger(RunningQuery.class);
     
+    /**
+     * The longest that batches smaller than the page size go unrecorded in the query metric
+     */
+    public static final long BATCH_METRIC_INTERVAL_MS = TimeUnit.SECONDS.toMillis(30);
+    
     private transient Connector connection = null;
     private AccumuloConnectionFactory.Priority connectionPriority = null;
     private transient QueryLogic<?> logic = null;
@@ -65,6 +70,10 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
     private volatile Future<Object> future = null;
     private QueryPredictor predictor = null;
     private long maxResults = 0;
+    // batches smaller than the page size (see next(int)) that have not been recorded as a page in the query metric yet
+    private transient int batchedCount = 0;
+    private transient long batchedTime = 0;
+    private transient long batchedStartTime = 0;
     
     public RunningQuery() {
         super(new QueryMetricFactoryImpl());
@@ -168,6 +177,9 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
             // the configuration query string should now hold the planned query
             this.getMetric().setPlan(configuration.getQueryString());
             this.getMetric().setSetupTime((System.currentTimeMillis() - start));
+            if (this.logic instanceof WritesQueryMetrics) {
+                ((WritesQueryMetrics) this.logic).writeQueryMetrics(this.getMetric());
+            }
             this.getMetric().setLifecycle(QueryMetric.Lifecycle.INITIALIZED);
             testForUncaughtException(0);
             // TODO: applyPrediction("Plan");
@@ -190,9 +202,25 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
     }
     
     public ResultsPage next() throws Exception {
+        return next(this.settings.getPagesize());
+    }
+    
+    /**
+     * Gets the next page of results, which is at most the given size rather than the page size of the query. Streaming clients use this to get small batches
+     * of results as soon as they are available. Batches smaller than the page size are recorded in the query metric as one page once they fill the page size,
+     * the query runs out of results, or {@link #BATCH_METRIC_INTERVAL_MS} has passed since the first of them, rather than one page per batch.
+     *
+     * @param pageSize
+     *            the maximum number of results in the page
+     * @return the next page of results
+     * @throws Exception
+     */
+    public ResultsPage next(int pageSize) throws Exception {
         // update AbstractRunningQuery.lastUsed
         touch();
         long pageStartTime = System.currentTimeMillis();
+        boolean batch = pageSize < this.settings.getPagesize();
+        boolean pageRecorded = true;
         List<Object> resultList = new ArrayList<>();
         boolean hitPageByteTrigger = false;
         boolean hitPageTimeTrigger = false;
@@ -212,7 +240,7 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
                     break;
                 }
                 // if the number of results has reached out page size, then break out
-                if (currentPageCount >= this.settings.getPagesize()) {
+                if (currentPageCount >= pageSize) {
                     log.info("Query requested page size had been reached, aborting query.next call");
                     break;
                 }
@@ -250,7 +278,7 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
                 // this page.
                 long pageTimeInCall = (System.currentTimeMillis() - pageStartTime);
                 
-                int maxPageSize = Math.min(this.settings.getPagesize(), this.logic.getMaxPageSize());
+                int maxPageSize = Math.min(pageSize, this.logic.getMaxPageSize());
                 if (timing != null && currentPageCount > 0 && timing.shouldReturnPartialResults(currentPageCount, maxPageSize, pageTimeInCall)) {
                     log.info("Query logic max expire before page is full, returning existing results " + currentPageCount + " " + maxPageSize + " "
                                     + pageTimeInCall + " " + timing);
@@ -308,7 +336,15 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
             
             // Update the metric
             long now = System.currentTimeMillis();
-            this.getMetric().addPageTime(currentPageCount, now - pageStartTime, pageStartTime, now);
+            if (batchedCount == 0 && batchedTime == 0) {
+                batchedStartTime = pageStartTime;
+            }
+            batchedCount += currentPageCount;
+            batchedTime += now - pageStartTime;
+            pageRecorded = !batch || resultList.isEmpty() || batchedCount >= this.settings.getPagesize() || now - batchedStartTime >= BATCH_METRIC_INTERVAL_MS;
+            if (pageRecorded) {
+                addBatchedPageTime(now);
+            }
             this.lastPageNumber++;
             if (!resultList.isEmpty()) {
                 this.getMetric().setLifecycle(QueryMetric.Lifecycle.RESULTS);
@@ -322,7 +358,7 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
             touch();
             removeNDC();
             
-            if (this.queryMetrics != null) {
+            if (this.queryMetrics != null && pageRecorded) {
                 try {
                     this.queryMetrics.updateMetric(this.getMetric());
                 } catch (Exception e) {
@@ -444,6 +480,25 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
         }
     }
     
+    /**
+     * Records the batches that have not been recorded in the query metric yet, e.g. when a streaming client stops before the page is full.
+     *
+     * @return true if a page was added to the query metric
+     */
+    public boolean addBatchedPageTime() {
+        if (batchedCount == 0 && batchedTime == 0) {
+            return false;
+        }
+        addBatchedPageTime(System.currentTimeMillis());
+        return true;
+    }
+    
+    private void addBatchedPageTime(long now) {
+        this.getMetric().addPageTime(batchedCount, batchedTime, batchedStartTime, now);
+        batchedCount = 0;
+        batchedTime = 0;
+    }
+    
     @Override
     public long getLastPageNumber() {
         return this.lastPageNumber;
@@ -11,6 +11,8 @@ import java.util.Map;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import javax.ejb.EJBContext;
 import javax.ejb.EJBException;
 import javax.ws.rs.core.HttpHeaders;
@@ -49,7 +51,7 @@ public class LookupUUIDUtil {
     
     protected static final String EMPTY_STRING = "";
     
-    private static final String CONTENT_QUERY = "ContentQuery";
+    private static final String CONTENT_QUERY = "BatchedContentQuery";
     private static final String DASH = "-";
     private static final String DOCUMENT_FIELD_NAME = "DOCUMENT:";
     private static final List<FieldBase> EMPTY_FIELDS = new ArrayList<>(0);
@@ -154,127 +156,107 @@ public class LookupUUIDUtil {
     }
     
     /*
-     * Create manageable batches of contentQuery strings based on the configured upper limit of UUIDS, if any. A content query term from one item in the list
-     * would look like the following example: <p> "DOCUMENT:shardId/datatype/uid" <p> <b>Note:</b> An attempt was made to concatenate multiple events into a
-     * single OR'd expression, but the ContentQueryTable only supports one term at a time.
+     * Collect the event IDs of the "event" UUID terms of the specified criteria. An event ID would look like the following example: <p>
+     * "shardId/datatype/uid"
      * 
-     * @param eventResponse a specialized response for optimizing content lookup based on internal event IDs
+     * @param validatedCriteria a specialized lookup criteria for optimizing content lookup based on internal event IDs
      * 
-     * @return a list of batched content query strings
+     * @return the event IDs in sorted order
      */
-    private List<StringBuilder> createContentQueryStrings(final AbstractUUIDLookupCriteria validatedCriteria, boolean multiTermExpressionsSupported) {
-        // Initialize the returned list of query strings
-        final List<StringBuilder> batchedContentQueryStrings = new LinkedList<>();
-        
-        // Get the raw query string from the validated criteria
-        final String rawQueryString = validatedCriteria.getRawQueryString();
-        
-        // Initialize the string builder
-        StringBuilder contentQuery = null;
-        int eventCounter = 0;
+    private SortedSet<String> getDocumentIds(final AbstractUUIDLookupCriteria validatedCriteria) {
+        // Collect the event IDs in sorted order
+        final SortedSet<String> documentIds = new TreeSet<>();
         
         // Break apart into separate terms
-        final String[] uuidTypeValuePairs = rawQueryString.split(REGEX_WHITESPACE_CHARS);
+        final String[] uuidTypeValuePairs = validatedCriteria.getRawQueryString().split(REGEX_WHITESPACE_CHARS);
         for (final String potentialUUIDTerm : uuidTypeValuePairs) {
             // Double-check for the expected type/value delimiter (i.e., event:shardID/datatype/uid)
             if (potentialUUIDTerm.contains(UUID_TERM_DELIMITER)) {
                 // Get the UUID type and value
                 final String[] splitPair = potentialUUIDTerm.split(UUID_TERM_DELIMITER);
                 final String uuidType = splitPair[0].trim().toUpperCase();
-                final String uuid;
-                if (splitPair.length > 1) {
-                    uuid = splitPair[1].trim();
-                } else {
-                    uuid = null;
-                }
-                
-                if (EVENT_TYPE_NAME.equalsIgnoreCase(uuidType) && (null != uuid)) {
-                    // Conditionally initialize a new query string and the event counter
-                    if ((null == contentQuery) || (!multiTermExpressionsSupported)
-                                    || ((this.maxAllowedBatchLookupUUIDs > 0) && (eventCounter > this.maxAllowedBatchLookupUUIDs))) {
-                        contentQuery = new StringBuilder();
-                        batchedContentQueryStrings.add(contentQuery);
-                        eventCounter = 1;
-                    }
-                    // Conditionally append an OR operator
-                    else if (contentQuery.length() > 0) {
-                        contentQuery.append(SPACE);
-                    }
-                    
-                    // Append the content query criteria
-                    contentQuery.append(DOCUMENT_FIELD_NAME);
-                    contentQuery.append(uuid);
+                if (EVENT_TYPE_NAME.equalsIgnoreCase(uuidType) && (splitPair.length > 1)) {
+                    documentIds.add(splitPair[1].trim());
                 }
             }
         }
         
-        return batchedContentQueryStrings;
+        return documentIds;
     }
     
     /*
-     * Create contentQuery strings based on the specified events, if any. A contentQuery string from one event would look like the following example: <p>
-     * "DOCUMENT:shardId/datatype/uid" <p> <b>Note:</b> An attempt was made to concatenate multiple events into a single OR'd expression, but the
-     * ContentQueryTable only supports one term at a time.
+     * Collect the event IDs of the specified events, if any. An event ID would look like the following example: <p> "shardId/datatype/uid"
      * 
      * @param eventResponse the response from the UUID query
      * 
-     * @return a list of batched content query strings
+     * @return the event IDs in sorted order
      */
-    private List<StringBuilder> createContentQueryStrings(final EventQueryResponseBase eventResponse) {
-        // Initialize a flag that can be flipped to support multi-term ContentQueryTable expressions
-        // at some unknown point in the future
-        boolean multiTermExpressionsSupported = true;
-        
-        // Declare the returned list of query strings
-        final List<StringBuilder> contentQueryStrings;
-        
-        // Build query strings based on an optimized all-event response
+    private SortedSet<String> getDocumentIds(final EventQueryResponseBase eventResponse) {
+        // Collect the event IDs based on an optimized all-event response
         if (eventResponse instanceof AllEventMockResponse) {
-            final AllEventMockResponse allEventResponse = (AllEventMockResponse) eventResponse;
-            final AbstractUUIDLookupCriteria validatedCriteria = allEventResponse.getLookupCriteria();
-            contentQueryStrings = this.createContentQueryStrings(validatedCriteria, multiTermExpressionsSupported);
+            return this.getDocumentIds(((AllEventMockResponse) eventResponse).getLookupCriteria());
         }
-        // Otherwise, handle "normally" built query strings
-        else {
-            // Create the list
-            contentQueryStrings = new LinkedList<>();
-            
-            // Get the entire list of queried events
-            final List<EventBase> unbatchedEvents = eventResponse.getEvents();
+        
+        // Otherwise, collect the shard table info of the queried events in sorted order
+        final SortedSet<String> documentIds = new TreeSet<>();
+        for (final EventBase<?,?> event : eventResponse.getEvents()) {
+            final Metadata metadata = event.getMetadata();
+            documentIds.add(metadata.getRow() + FORWARD_SLASH + metadata.getDataType() + FORWARD_SLASH + metadata.getInternalId());
+        }
+        
+        return documentIds;
+    }
+    
+    /**
+     * Joins event IDs into a content query string of the form "DOCUMENT:shardId/datatype/uid [DOCUMENT:shardId/datatype/uid]*". The events of the string are
+     * fetched by one batched content query, which reads their coalesced ranges with a single batch scanner pass. The IDs are taken in sorted order, and an
+     * event returned more than once by the UUID query is only fetched once.
+     *
+     * @param documentIds
+     *            the event IDs, in the form "shardId/datatype/uid"
+     * @return the content query string, which is empty if there are no events
+     */
+    static String createContentQueryString(final SortedSet<String> documentIds) {
+        final StringBuilder contentQuery = new StringBuilder();
+        for (final String documentId : documentIds) {
+            // Conditionally append an OR operator
+            if (contentQuery.length() > 0) {
+                contentQuery.append(SPACE);
+            }
             
-            // Iterate through the unbatched events and fill the batched set of query strings
-            StringBuilder contentQuery = null;
-            int eventCounter = 0;
-            for (final EventBase<?,?> event : unbatchedEvents) {
-                // Get the event's shard table info
-                final Metadata metadata = event.getMetadata();
-                final String row = metadata.getRow();
-                final String dataType = metadata.getDataType();
-                final String internalId = metadata.getInternalId();
-                
-                // Increment the counter
-                eventCounter++;
-                
-                // Conditionally initialize a new query string and the event counter
-                if ((null == contentQuery) || (!multiTermExpressionsSupported)
-                                || ((this.maxAllowedBatchLookupUUIDs > 0) && (eventCounter > this.maxAllowedBatchLookupUUIDs))) {
-                    contentQuery = new StringBuilder();
-                    contentQueryStrings.add(contentQuery);
-                    eventCounter = 1;
-                }
-                // Conditionally append an OR operator
-                else if (contentQuery.length() > 0) {
-                    contentQuery.append(SPACE);
-                }
-                
-                // Append the content query criteria
-                contentQuery.append(DOCUMENT_FIELD_NAME).append(row);
-                contentQuery.append(FORWARD_SLASH).append(dataType);
-                contentQuery.append(FORWARD_SLASH).append(internalId);
+            // Append the content query criteria
+            contentQuery.append(DOCUMENT_FIELD_NAME).append(documentId);
+        }
+        
+        return contentQuery.toString();
+    }
+    
+    /**
+     * Splits event IDs into content query strings of at most <code>maxDocumentIds</code> events each, so that a lookup whose UUIDs match many events does
+     * not put all of them in the ranges of a single content query. The events are split in sorted order, so each query still reads a contiguous set of
+     * coalesced ranges.
+     *
+     * @param documentIds
+     *            the event IDs, in the form "shardId/datatype/uid"
+     * @param maxDocumentIds
+     *            the maximum number of events per content query, or zero or less if all of the events are fetched by one query
+     * @return the content query strings, which is empty if there are no events
+     */
+    static List<String> createContentQueryStrings(final SortedSet<String> documentIds, final int maxDocumentIds) {
+        final List<String> contentQueries = new ArrayList<>();
+        SortedSet<String> chunk = new TreeSet<>();
+        for (final String documentId : documentIds) {
+            chunk.add(documentId);
+            if ((maxDocumentIds > 0) && (chunk.size() == maxDocumentIds)) {
+                contentQueries.add(createContentQueryString(chunk));
+                chunk = new TreeSet<>();
             }
         }
+        if (!chunk.isEmpty()) {
+            contentQueries.add(createContentQueryString(chunk));
+        }
         
-        return contentQueryStrings;
+        return contentQueries;
     }
     
     /**
@@ -525,8 +507,8 @@ public class LookupUUIDUtil {
         final Date endDate = new Date();
         final Date expireDate = new Date(endDate.getTime() + 1000 * 60 * 60);
         
-        // Create manageable batches of contentQuery strings based on the configured upper limit of UUIDS, if any
-        final List<StringBuilder> batchedContentQueryStrings = this.createContentQueryStrings(eventResponse);
+        // Collect the IDs of all of the events
+        final SortedSet<String> documentIds = this.getDocumentIds(eventResponse);
         
         // Perform criteria validation if paging through next results
         final AbstractUUIDLookupCriteria validatedCriteria;
@@ -540,10 +522,11 @@ public class LookupUUIDUtil {
         boolean allEventMockResponse = (uuidQueryResponse instanceof AllEventMockResponse);
         try {
             if (null != validatedCriteria.getStreamingOutputHeaders()) {
-                contentResponse = (T) this.lookupStreamedContent(queryName, validatedCriteria, batchedContentQueryStrings, endDate, expireDate, userAuths,
-                                allEventMockResponse);
+                final String contentQuery = createContentQueryString(documentIds);
+                contentResponse = (T) this.lookupStreamedContent(queryName, validatedCriteria, contentQuery, endDate, expireDate, userAuths);
             } else {
-                contentResponse = (T) this.lookupPagedContent(queryName, validatedCriteria, batchedContentQueryStrings, endDate, expireDate, userAuths,
+                final List<String> contentQueries = createContentQueryStrings(documentIds, this.maxAllowedBatchLookupUUIDs);
+                contentResponse = (T) this.lookupPagedContent(queryName, validatedCriteria, contentQueries, endDate, expireDate, userAuths,
                                 allEventMockResponse);
             }
         } catch (NoResultsException e) {
@@ -556,61 +539,33 @@ public class LookupUUIDUtil {
     }
     
     private EventQueryResponseBase lookupPagedContent(final String queryName, final AbstractUUIDLookupCriteria validatedCriteria,
-                    final List<StringBuilder> batchedContentQueryStrings, final Date endDate, final Date expireDate, final String userAuths,
-                    boolean allEventMockResponse) {
+                    final List<String> contentQueries, final Date endDate, final Date expireDate, final String userAuths, boolean allEventMockResponse) {
+        // Don't do any work unless there are events
+        if (contentQueries.isEmpty()) {
+            return null;
+        }
+        
         // Initialize the return value
         EventQueryResponseBase mergedContentQueryResponse = null;
-        
-        // Call the ContentQuery for one or more events
         DatawaveWebApplicationException noResultsException = null;
-        for (final StringBuilder contentQuery : batchedContentQueryStrings) {
-            // Submitted query should look like this:
-            //
-            // DOCUMENT:shardId/datatype/uid [DOCUMENT:shardId/datatype/uid]*
-            //
-            MultivaluedMap<String,String> queryParameters = new MultivaluedMapImpl<>();
-            queryParameters.putAll(this.defaultOptionalParams);
-            queryParameters.putSingle(QueryParameters.QUERY_NAME, queryName);
-            queryParameters.putSingle(QueryParameters.QUERY_STRING, contentQuery.toString());
-            try {
-                queryParameters.putSingle(QueryParameters.QUERY_BEGIN, QueryParametersImpl.formatDate(this.beginAsDate));
-            } catch (ParseException e1) {
-                throw new RuntimeException("Error formatting begin date: " + this.beginAsDate);
-            }
-            try {
-                queryParameters.putSingle(QueryParameters.QUERY_END, QueryParametersImpl.formatDate(endDate));
-            } catch (ParseException e1) {
-                throw new RuntimeException("Error formatting end date: " + endDate);
-            }
-            queryParameters.putSingle(QueryParameters.QUERY_AUTHORIZATIONS, userAuths);
-            try {
-                queryParameters.putSingle(QueryParameters.QUERY_EXPIRATION, QueryParametersImpl.formatDate(expireDate));
-            } catch (ParseException e1) {
-                throw new RuntimeException("Error formatting expr date: " + expireDate);
-            }
-            queryParameters.putSingle(QueryParameters.QUERY_PERSISTENCE, QueryPersistence.TRANSIENT.name());
-            queryParameters.putSingle(QueryParameters.QUERY_TRACE, "false");
-            
-            for (String key : validatedCriteria.getQueryParameters().keySet()) {
-                if (!queryParameters.containsKey(key)) {
-                    queryParameters.put(key, validatedCriteria.getQueryParameters().get(key));
-                }
-            }
-            
+        
+        // Call the batched ContentQuery for each chunk of the events, which streams their content back a page at a time
+        for (final String contentQuery : contentQueries) {
+            final MultivaluedMap<String,String> queryParameters = this.createContentQueryParameters(queryName, validatedCriteria, contentQuery, endDate,
+                            expireDate, userAuths);
             final GenericResponse<String> createResponse = this.queryExecutor.createQuery(CONTENT_QUERY, queryParameters);
             final String contentQueryId = createResponse.getResult();
-            boolean preventCloseOfMergedQueryId = ((null == mergedContentQueryResponse) && allEventMockResponse);
             try {
                 BaseQueryResponse contentQueryResponse = null;
                 do {
                     try {
                         // Get the first/next results
                         contentQueryResponse = this.queryExecutor.next(contentQueryId);
-                        
+            
                         // Validate the response, which also checks for null
                         if (!(contentQueryResponse instanceof EventQueryResponseBase)) {
                             EventQueryResponseBase er = responseObjectFactory.getEventQueryResponse();
-                            er.addMessage("Unhandled response type " + contentQueryResponse + " from ContentQuery");
+                            er.addMessage("Unhandled response type " + contentQueryResponse + " from " + CONTENT_QUERY);
                             throw new PreConditionFailedException(null, er);
                         }
                         
@@ -623,13 +578,13 @@ public class LookupUUIDUtil {
                         
                         // Assign the merged response if it hasn't been done yet
                         if (null == mergedContentQueryResponse) {
-                            mergedContentQueryResponse = (EventQueryResponseBase) contentQueryResponse;
+                            mergedContentQueryResponse = eventQueryResponse;
                         }
                         // If the merged content has already been assigned, merge into it, but keep the original
                         // query Id
                         else {
                             final String queryId = mergedContentQueryResponse.getQueryId();
-                            mergedContentQueryResponse.merge((EventQueryResponseBase) contentQueryResponse);
+                            mergedContentQueryResponse.merge(eventQueryResponse);
                             mergedContentQueryResponse.setQueryId(queryId);
                         }
                     } catch (final NoResultsException e) {
@@ -655,7 +610,8 @@ public class LookupUUIDUtil {
                 // Loop if more results are available
                 while (null != contentQueryResponse);
             } finally {
-                if (!preventCloseOfMergedQueryId) {
+                // The query of an all-event lookup is left open, since the merged response carries its ID
+                if (!(allEventMockResponse && (null != mergedContentQueryResponse) && contentQueryId.equals(mergedContentQueryResponse.getQueryId()))) {
                     this.queryExecutor.close(contentQueryId);
                 }
             }
@@ -669,22 +625,26 @@ public class LookupUUIDUtil {
         return mergedContentQueryResponse;
     }
     
-    private StreamingOutput lookupStreamedContent(final String queryName, final AbstractUUIDLookupCriteria validatedCriteria,
-                    final List<StringBuilder> batchedContentQueryStrings, final Date endDate, final Date expireDate, final String userAuths,
-                    boolean allEventMockResponse) {
+    private StreamingOutput lookupStreamedContent(final String queryName, final AbstractUUIDLookupCriteria validatedCriteria, final String contentQuery,
+                    final Date endDate, final Date expireDate, final String userAuths) {
+        final MultivaluedMap<String,String> queryParameters = this.createContentQueryParameters(queryName, validatedCriteria, contentQuery, endDate,
+                        expireDate, userAuths);
         
-        // Merge the content query strings
-        final StringBuilder contentQuery = new StringBuilder();
-        for (final StringBuilder contentQueryString : batchedContentQueryStrings) {
-            if (contentQuery.length() > 0) {
-                contentQuery.append(' ');
-            }
-            contentQuery.append(contentQueryString);
-        }
+        // Call the batched ContentQuery for all of the events
+        final HttpHeaders headers = validatedCriteria.getStreamingOutputHeaders();
+        return this.queryExecutor.execute(CONTENT_QUERY, queryParameters, headers);
+    }
+    
+    private MultivaluedMap<String,String> createContentQueryParameters(final String queryName, final AbstractUUIDLookupCriteria validatedCriteria,
+                    final String contentQuery, final Date endDate, final Date expireDate, final String userAuths) {
+        // Submitted query should look like this:
+        //
+        // DOCUMENT:shardId/datatype/uid [DOCUMENT:shardId/datatype/uid]*
+        //
         MultivaluedMap<String,String> queryParameters = new MultivaluedMapImpl<>();
         queryParameters.putAll(this.defaultOptionalParams);
         queryParameters.putSingle(QueryParameters.QUERY_NAME, queryName);
-        queryParameters.putSingle(QueryParameters.QUERY_STRING, contentQuery.toString());
+        queryParameters.putSingle(QueryParameters.QUERY_STRING, contentQuery);
         try {
             queryParameters.putSingle(QueryParameters.QUERY_BEGIN, QueryParametersImpl.formatDate(this.beginAsDate));
         } catch (ParseException e1) {
@@ -709,10 +669,7 @@ public class LookupUUIDUtil {
                 queryParameters.put(key, validatedCriteria.getQueryParameters().get(key));
             }
         }
-        
-        // Call the ContentQuery for one or more events
-        final HttpHeaders headers = validatedCriteria.getStreamingOutputHeaders();
-        return this.queryExecutor.execute(CONTENT_QUERY, queryParameters, headers);
+        return queryParameters;
     }
     
     private void mergeNextUUIDLookups(final EventQueryResponseBase mergedResponse) {
@@ -1,6 +1,7 @@
 package datawave.webservice.query.logic.composite;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -28,6 +29,9 @@ import datawave.webservice.query.logic.BaseQueryLogicTransformer;
 import datawave.webservice.query.logic.DatawaveRoleManager;
 import datawave.webservice.query.logic.EasyRoleManager;
 import datawave.webservice.query.logic.QueryLogicTransformer;
+import datawave.webservice.query.logic.WritesQueryMetrics;
+import datawave.webservice.query.logic.composite.CompositeQueryLogicResults.MergePolicy;
+import datawave.webservice.query.metric.QueryMetric;
 import datawave.webservice.query.result.EdgeQueryResponseBase;
 import datawave.webservice.query.result.edge.EdgeBase;
 import datawave.webservice.result.BaseQueryResponse;
@@ -845,4 +849,128 @@ public class CompositeQueryLogicTest {
         Assert.assertEquals(0, c.getQueryLogics().size());
         
     }
+    
+    @Test
+    public void testMergePolicies() throws Exception {
+        Assert.assertEquals(Arrays.asList("a1", "b1", "a2", "b2", "a3"), mergeResults(MergePolicy.INTERLEAVE, 0));
+        Assert.assertEquals(Arrays.asList("a1", "a2", "a3", "b1", "b2"), mergeResults(MergePolicy.PRIORITY, 0));
+        Assert.assertEquals(Arrays.asList("a1", "b1", "b2", "a2", "a3"), mergeResults(MergePolicy.FIRST_N, 0));
+        Assert.assertEquals(Arrays.asList("a1", "b1", "b2"), mergeResults(MergePolicy.FIRST_N, 3));
+    }
+    
+    private List<Object> mergeResults(MergePolicy mergePolicy, long resultLimit) throws Exception {
+        CompositeQueryLogicResults results = new CompositeQueryLogicResults(Arrays.asList("a", "b"), 10, 0, mergePolicy, resultLimit);
+        results.start(0);
+        results.start(1);
+        results.add(0, "a1");
+        results.add(1, "b1");
+        results.add(1, "b2");
+        results.add(0, "a2");
+        results.add(0, "a3");
+        results.finish(0, false);
+        results.finish(1, false);
+        
+        List<Object> merged = new ArrayList<>();
+        Iterator<Object> iter = results.iterator();
+        while (iter.hasNext()) {
+            merged.add(iter.next());
+        }
+        if (resultLimit > 0) {
+            Assert.assertTrue(results.isClosed());
+            Assert.assertFalse(results.add(0, "a4"));
+        }
+        return merged;
+    }
+    
+    @Test
+    public void testBufferIsBounded() throws Exception {
+        CompositeQueryLogicResults results = new CompositeQueryLogicResults(Arrays.asList("a", "b"), 2, 0, MergePolicy.INTERLEAVE, 0);
+        results.start(0);
+        results.add(0, "a1");
+        results.add(0, "a2");
+        
+        Thread producer = new Thread(() -> {
+            try {
+                results.add(0, "a3");
+                results.finish(0, false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        producer.join(500);
+        // the buffer is full so the producer waits for a result to be taken
+        Assert.assertTrue(producer.isAlive());
+        Assert.assertEquals(2, results.size());
+        
+        // results are returned while the other logic has not produced any
+        Assert.assertEquals("a1", results.take());
+        producer.join(10000);
+        Assert.assertFalse(producer.isAlive());
+        Assert.assertEquals(Arrays.asList("a2", "a3"), Arrays.asList(results.take(), results.take()));
+        
+        results.close();
+        Assert.assertNull(results.take());
+        Assert.assertTrue(results.getTimings().get(0).startsWith("a: 3 results, first after "));
+        Assert.assertEquals("b: not started", results.getTimings().get(1));
+    }
+    
+    @Test
+    public void testQueryLogicOnBoundedPool() throws Exception {
+        List<BaseQueryLogic<?>> logics = new ArrayList<>();
+        TestQueryLogic logic1 = new TestQueryLogic();
+        TestQueryLogic2 logic2 = new TestQueryLogic2();
+        logics.add(logic1);
+        logics.add(logic2);
+        
+        logic1.getData().put(key1, value1);
+        logic1.getData().put(key2, value2);
+        logic2.getData().put(key3, value3);
+        logic2.getData().put(key4, value4);
+        logic1.getData().put(key5, value5);
+        logic1.getData().put(key6, value6);
+        logic2.getData().put(key7, value7);
+        logic2.getData().put(key8, value8);
+        
+        QueryImpl settings = new QueryImpl();
+        settings.setPagesize(1);
+        settings.setQueryAuthorizations(auths.toString());
+        settings.setQuery("FOO == 'BAR'");
+        settings.setParameters(new HashSet<>());
+        settings.setId(UUID.randomUUID());
+        
+        CompositeQueryLogic c = new CompositeQueryLogic();
+        logic1.setMaxResults(-1);
+        logic2.setMaxResults(-1);
+        c.setQueryLogics(logics);
+        c.setMaxConcurrentLogics(1);
+        c.setMergePolicy(MergePolicy.PRIORITY);
+        c.initialize((Connector) null, (Query) settings, Collections.singleton(auths));
+        c.setupQuery(null);
+        TransformIterator iter = c.getTransformIterator((Query) settings);
+        
+        // the second logic only runs once the first has finished, which needs its buffer of two results to be read
+        List<Object> results = new ArrayList<>();
+        while (iter.hasNext()) {
+            results.add(iter.next());
+        }
+        Assert.assertEquals(8, results.size());
+        Set<String> logic1Keys = new HashSet<>();
+        for (Key key : logic1.getData().keySet()) {
+            logic1Keys.add(key.toString());
+        }
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(logic1Keys.contains(((TestQueryResponse) results.get(i)).getKey()));
+        }
+        
+        QueryMetric metric = new QueryMetric();
+        ((WritesQueryMetrics) iter.getTransformer()).writeQueryMetrics(metric);
+        Assert.assertEquals(2, metric.getSubQueryTimings().size());
+        for (String timing : metric.getSubQueryTimings()) {
+            Assert.assertTrue(timing, timing.contains(": 4 results, first after "));
+            Assert.assertTrue(timing, timing.contains(" ms, finished after "));
+        }
+        
+        c.close();
+    }
 }
@@ -45,6 +45,7 @@ import datawave.webservice.query.logic.QueryLogicFactory;
 import datawave.webservice.query.logic.QueryLogicFactoryImpl;
 import datawave.webservice.query.logic.QueryLogicTransformer;
 import datawave.webservice.query.logic.RoleManager;
+import datawave.webservice.query.metric.BaseQueryMetric.PageMetric;
 import datawave.webservice.query.metric.QueryMetric;
 import datawave.webservice.query.metric.QueryMetricsBean;
 import datawave.webservice.query.result.event.ResponseObjectFactory;
@@ -82,6 +83,7 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
 import javax.ejb.EJBContext;
+import javax.ejb.SessionContext;
 import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.jms.JMSRuntimeException;
 import javax.transaction.HeuristicMixedException;
@@ -107,6 +109,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 
 import static org.easymock.EasyMock.anyObject;
@@ -4313,4 +4316,152 @@ public class ExtendedQueryExecutorBeanTest {
             return Collections.emptySet();
         }
     }
+    
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Test
+    public void testExecuteAsync_StreamsBatchesOnDemand() throws Exception {
+        // Set local test input
+        String queryLogicName = "queryLogicName";
+        UUID queryId = UUID.randomUUID();
+        int pagesize = 100;
+        int batchSize = 10;
+        long pageNumber = 1L;
+        MultivaluedMap<String,String> params = new MultivaluedMapImpl<>();
+        params.putSingle(QueryParameters.QUERY_STRING, "query");
+        GenericResponse<String> createResponse = new GenericResponse<>();
+        createResponse.setResult(queryId.toString());
+        List<PageMetric> pageTimes = new ArrayList<>();
+        
+        QueryExecutorBean subject = PowerMock.createPartialMock(QueryExecutorBean.class, "createQuery");
+        SessionContext sessionContext = PowerMock.createMock(SessionContext.class);
+        AsyncQueryStatusObserver observer = PowerMock.createStrictMock(AsyncQueryStatusObserver.class);
+        
+        // Set expectations of the create logic
+        expect(this.context.getCallerPrincipal()).andReturn(this.principal).anyTimes();
+        expect(this.principal.getProxyServers()).andReturn(new HashSet<>(0)).anyTimes();
+        expect(subject.createQuery(queryLogicName, params)).andReturn(createResponse);
+        observer.queryCreated(createResponse);
+        expect(sessionContext.wasCancelCalled()).andReturn(false).anyTimes();
+        expect(this.cache.get(queryId.toString())).andReturn(this.runningQuery);
+        expect(this.runningQuery.getMetric()).andReturn(this.queryMetric).anyTimes();
+        this.queryMetric.setCreateCallTime(EasyMock.geq(0L));
+        expect(this.queryMetric.getPageTimes()).andReturn(pageTimes).anyTimes();
+        // once for the create, then once for the batches recorded when the observer stops the query
+        this.metrics.updateMetric(this.queryMetric);
+        PowerMock.expectLastCall().times(2);
+        
+        // Set expectations of the batches, the observer asks for two batches and then stops the query
+        expect(this.runningQuery.getSettings()).andReturn(this.query).anyTimes();
+        expect(this.query.getPagesize()).andReturn(pagesize).anyTimes();
+        expect(this.query.getId()).andReturn(queryId).anyTimes();
+        expect(this.query.getUncaughtExceptionHandler()).andReturn(null).anyTimes();
+        expect(this.runningQuery.getLogic()).andReturn((QueryLogic) this.queryLogic1).anyTimes();
+        expect(this.queryLogic1.getCollectQueryMetrics()).andReturn(true).anyTimes();
+        expect(this.queryLogic1.getTransformer(this.query)).andReturn(this.transformer).anyTimes();
+        expect(this.queryLogic1.getLogicName()).andReturn(queryLogicName).anyTimes();
+        expect(this.runningQuery.getTraceInfo()).andReturn(null).anyTimes();
+        this.runningQuery.setActiveCall(true);
+        expectLastCall().times(2);
+        expect(this.runningQuery.next(batchSize)).andReturn(this.resultsPage).times(2);
+        expect(this.runningQuery.getLastPageNumber()).andReturn(pageNumber).anyTimes();
+        expect(this.transformer.createResponse(this.resultsPage)).andReturn(this.baseResponse).anyTimes();
+        expect(this.resultsPage.getResults()).andReturn(Arrays.asList((Object) "result1")).anyTimes();
+        this.baseResponse.setHasResults(true);
+        expectLastCall().anyTimes();
+        this.baseResponse.setPageNumber(pageNumber);
+        expectLastCall().anyTimes();
+        this.baseResponse.setLogicName(queryLogicName);
+        expectLastCall().anyTimes();
+        this.baseResponse.setQueryId(queryId.toString());
+        expectLastCall().anyTimes();
+        this.queryMetric.setProxyServers(eq(new HashSet<>(0)));
+        expectLastCall().anyTimes();
+        this.runningQuery.setActiveCall(false);
+        expectLastCall().times(2);
+        expect(observer.awaitDemand(pagesize)).andReturn(batchSize);
+        observer.queryResultsAvailable(this.baseResponse);
+        expect(observer.awaitDemand(pagesize)).andReturn(batchSize);
+        observer.queryResultsAvailable(this.baseResponse);
+        expect(observer.awaitDemand(pagesize)).andReturn(0);
+        // the batches are smaller than the page size, so they are recorded as a page only once the query stops
+        expect(this.runningQuery.addBatchedPageTime()).andAnswer(() -> pageTimes.add(new PageMetric(2, 0, 0, 0)));
+        
+        // Set expectations of the close logic
+        this.runningQuery.closeConnection(this.connectionFactory);
+        this.cache.remove(queryId.toString());
+        observer.queryFinished(queryId.toString());
+        
+        // Run the test
+        PowerMock.replayAll();
+        setInternalState(subject, EJBContext.class, context);
+        setInternalState(subject, "sessionContext", sessionContext);
+        setInternalState(subject, AccumuloConnectionFactory.class, connectionFactory);
+        setInternalState(subject, QueryCache.class, cache);
+        setInternalState(subject, QueryMetricsBean.class, metrics);
+        setInternalState(subject, QueryMetricFactory.class, new QueryMetricFactoryImpl());
+        setInternalState(subject, Logger.class, Logger.getLogger(QueryExecutorBean.class));
+        Future<?> result1 = subject.executeAsync(queryLogicName, params, null, null, observer);
+        PowerMock.verifyAll();
+        
+        // Verify results
+        assertEquals("Expected the query id", queryId.toString(), result1.get());
+        assertEquals("Expected the batches to be recorded as one page", 1, pageTimes.size());
+        assertTrue("Expected the call time of the batches", pageTimes.get(0).getCallTime() >= 0);
+        assertTrue("Expected the serialization time of the batches", pageTimes.get(0).getSerializationTime() >= 0);
+    }
+    
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Test
+    public void testExecuteAsync_NoDemandStopsBeforeNext() throws Exception {
+        // Set local test input
+        String queryLogicName = "queryLogicName";
+        UUID queryId = UUID.randomUUID();
+        int pagesize = 100;
+        MultivaluedMap<String,String> params = new MultivaluedMapImpl<>();
+        params.putSingle(QueryParameters.QUERY_STRING, "query");
+        GenericResponse<String> createResponse = new GenericResponse<>();
+        createResponse.setResult(queryId.toString());
+        
+        QueryExecutorBean subject = PowerMock.createPartialMock(QueryExecutorBean.class, "createQuery");
+        SessionContext sessionContext = PowerMock.createMock(SessionContext.class);
+        AsyncQueryStatusObserver observer = PowerMock.createStrictMock(AsyncQueryStatusObserver.class);
+        
+        // Set expectations, the observer stops the query before asking for any results
+        expect(this.context.getCallerPrincipal()).andReturn(this.principal).anyTimes();
+        expect(this.principal.getProxyServers()).andReturn(new HashSet<>(0)).anyTimes();
+        expect(subject.createQuery(queryLogicName, params)).andReturn(createResponse);
+        observer.queryCreated(createResponse);
+        expect(sessionContext.wasCancelCalled()).andReturn(false).anyTimes();
+        expect(this.cache.get(queryId.toString())).andReturn(this.runningQuery);
+        expect(this.runningQuery.getMetric()).andReturn(this.queryMetric).anyTimes();
+        this.queryMetric.setCreateCallTime(EasyMock.geq(0L));
+        expect(this.queryMetric.getPageTimes()).andReturn(new ArrayList<>()).anyTimes();
+        this.metrics.updateMetric(this.queryMetric);
+        expect(this.runningQuery.getSettings()).andReturn(this.query).anyTimes();
+        expect(this.query.getPagesize()).andReturn(pagesize).anyTimes();
+        expect(this.query.getId()).andReturn(queryId).anyTimes();
+        expect(this.runningQuery.getLogic()).andReturn((QueryLogic) this.queryLogic1).anyTimes();
+        expect(this.queryLogic1.getCollectQueryMetrics()).andReturn(true).anyTimes();
+        expect(this.runningQuery.getTraceInfo()).andReturn(null).anyTimes();
+        expect(observer.awaitDemand(pagesize)).andReturn(0);
+        expect(this.runningQuery.addBatchedPageTime()).andReturn(false);
+        this.runningQuery.closeConnection(this.connectionFactory);
+        this.cache.remove(queryId.toString());
+        observer.queryFinished(queryId.toString());
+        
+        // Run the test
+        PowerMock.replayAll();
+        setInternalState(subject, EJBContext.class, context);
+        setInternalState(subject, "sessionContext", sessionContext);
+        setInternalState(subject, AccumuloConnectionFactory.class, connectionFactory);
+        setInternalState(subject, QueryCache.class, cache);
+        setInternalState(subject, QueryMetricsBean.class, metrics);
+        setInternalState(subject, QueryMetricFactory.class, new QueryMetricFactoryImpl());
+        setInternalState(subject, Logger.class, Logger.getLogger(QueryExecutorBean.class));
+        Future<?> result1 = subject.executeAsync(queryLogicName, params, null, null, observer);
+        PowerMock.verifyAll();
+        
+        // Verify results
+        assertEquals("Expected the query id", queryId.toString(), result1.get());
+    }
 }
@@ -13,6 +13,7 @@ import datawave.webservice.query.cache.QueryMetricFactoryImpl;
 import datawave.webservice.query.cache.ResultsPage;
 import datawave.webservice.query.configuration.GenericQueryConfiguration;
 import datawave.webservice.query.logic.QueryLogic;
+import datawave.webservice.query.metric.BaseQueryMetric.PageMetric;
 import datawave.webservice.query.metric.QueryMetric;
 import datawave.webservice.query.metric.QueryMetricsBean;
 import datawave.webservice.query.util.QueryUncaughtExceptionHandler;
@@ -27,7 +28,9 @@ import org.junit.runner.RunWith;
 import org.powermock.api.easymock.PowerMock;
 import org.powermock.api.easymock.annotation.Mock;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -41,6 +44,7 @@ import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.isA;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
@@ -461,4 +465,117 @@ public class ExtendedRunningQueryTest {
         
         assertNotNull("Expected a non-null toString() representation", result2);
     }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Test
+    public void testNextBatches_RecordedInMetricAsPages() throws Exception {
+        // Set local test input
+        String userDN = "userDN";
+        List<String> dnList = Lists.newArrayList(userDN);
+        UUID queryId = UUID.randomUUID();
+        String methodAuths = "AUTH_1";
+        DatawaveUser user = new DatawaveUser(SubjectIssuerDNPair.of("userDN", "issuerDN"), UserType.USER, Collections.singleton(methodAuths), null, null, 0L);
+        DatawavePrincipal principal = new DatawavePrincipal(Collections.singletonList(user));
+        int pageSize = 5;
+        int batchSize = 2;
+        long maxResults = 100L;
+        List<Object> resultObjects = Arrays.asList("resultObject1", "resultObject2", "resultObject3", "resultObject4", "resultObject5", "resultObject6",
+                        "resultObject7");
+        
+        // Set expectations
+        expect(this.queryLogic.getCollectQueryMetrics()).andReturn(true);
+        this.query.populateMetric(isA(QueryMetric.class));
+        expect(this.query.getUncaughtExceptionHandler()).andReturn(null).anyTimes();
+        expect(this.query.getId()).andReturn(queryId).anyTimes();
+        expect(this.query.getUserDN()).andReturn(userDN).anyTimes();
+        expect(this.query.getDnList()).andReturn(dnList);
+        expect(this.query.isMaxResultsOverridden()).andReturn(false).anyTimes();
+        expect(this.query.getPagesize()).andReturn(pageSize).anyTimes();
+        expect(this.queryLogic.getResultLimit(eq(dnList))).andReturn(maxResults);
+        expect(this.queryLogic.getMaxResults()).andReturn(maxResults).anyTimes();
+        expect(this.queryLogic.getMaxPageSize()).andReturn(0).anyTimes();
+        expect(this.queryLogic.getPageByteTrigger()).andReturn(0L).anyTimes();
+        expect(this.queryLogic.getMaxWork()).andReturn(-1L).anyTimes();
+        // once when created, then once for each page recorded from the batches
+        this.queryMetrics.updateMetric(isA(QueryMetric.class));
+        PowerMock.expectLastCall().times(3);
+        
+        // Run the test
+        PowerMock.replayAll();
+        RunningQuery subject = new RunningQuery(this.queryMetrics, null, Priority.NORMAL, this.queryLogic, this.query, methodAuths, principal,
+                        new QueryMetricFactoryImpl());
+        Whitebox.setInternalState(subject, "iter", new TransformIterator(resultObjects.iterator(), transformer));
+        
+        List<Integer> batchSizes = new ArrayList<>();
+        List<Integer> pagesRecorded = new ArrayList<>();
+        ResultsPage page;
+        do {
+            page = subject.next(batchSize);
+            batchSizes.add(page.getResults().size());
+            pagesRecorded.add(subject.getMetric().getPageTimes().size());
+        } while (!page.getResults().isEmpty());
+        PowerMock.verifyAll();
+        
+        // Verify results
+        assertEquals("Expected results in batches of at most the batch size", Arrays.asList(2, 2, 2, 1, 0), batchSizes);
+        assertEquals("Expected batches to be recorded once they fill the page size or run out of results", Arrays.asList(0, 0, 1, 1, 2), pagesRecorded);
+        List<PageMetric> pageTimes = subject.getMetric().getPageTimes();
+        assertEquals(6, pageTimes.get(0).getPagesize());
+        assertEquals(1, pageTimes.get(1).getPagesize());
+        assertFalse("Expected no batches left to record", subject.addBatchedPageTime());
+    }
+    
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Test
+    public void testAddBatchedPageTime_AfterStreamingStops() throws Exception {
+        // Set local test input
+        String userDN = "userDN";
+        List<String> dnList = Lists.newArrayList(userDN);
+        UUID queryId = UUID.randomUUID();
+        String methodAuths = "AUTH_1";
+        DatawaveUser user = new DatawaveUser(SubjectIssuerDNPair.of("userDN", "issuerDN"), UserType.USER, Collections.singleton(methodAuths), null, null, 0L);
+        DatawavePrincipal principal = new DatawavePrincipal(Collections.singletonList(user));
+        int pageSize = 10;
+        long maxResults = 100L;
+        List<Object> resultObjects = Arrays.asList("resultObject1", "resultObject2", "resultObject3", "resultObject4");
+        
+        // Set expectations
+        expect(this.queryLogic.getCollectQueryMetrics()).andReturn(true);
+        this.query.populateMetric(isA(QueryMetric.class));
+        expect(this.query.getUncaughtExceptionHandler()).andReturn(null).anyTimes();
+        expect(this.query.getId()).andReturn(queryId).anyTimes();
+        expect(this.query.getUserDN()).andReturn(userDN).anyTimes();
+        expect(this.query.getDnList()).andReturn(dnList);
+        expect(this.query.isMaxResultsOverridden()).andReturn(false).anyTimes();
+        expect(this.query.getPagesize()).andReturn(pageSize).anyTimes();
+        expect(this.queryLogic.getResultLimit(eq(dnList))).andReturn(maxResults);
+        expect(this.queryLogic.getMaxResults()).andReturn(maxResults).anyTimes();
+        expect(this.queryLogic.getMaxPageSize()).andReturn(0).anyTimes();
+        expect(this.queryLogic.getPageByteTrigger()).andReturn(0L).anyTimes();
+        expect(this.queryLogic.getMaxWork()).andReturn(-1L).anyTimes();
+        // only when created, the batches are not updated in the metric until they are recorded as a page
+        this.queryMetrics.updateMetric(isA(QueryMetric.class));
+        
+        // Run the test
+        PowerMock.replayAll();
+        RunningQuery subject = new RunningQuery(this.queryMetrics, null, Priority.NORMAL, this.queryLogic, this.query, methodAuths, principal,
+                        new QueryMetricFactoryImpl());
+        Whitebox.setInternalState(subject, "iter", new TransformIterator(resultObjects.iterator(), transformer));
+        
+        ResultsPage result1 = subject.next(1);
+        ResultsPage result2 = subject.next(2);
+        int pagesBeforeStop = subject.getMetric().getPageTimes().size();
+        boolean result3 = subject.addBatchedPageTime();
+        boolean result4 = subject.addBatchedPageTime();
+        PowerMock.verifyAll();
+        
+        // Verify results
+        assertEquals(1, result1.getResults().size());
+        assertEquals(2, result2.getResults().size());
+        assertEquals("Expected no page recorded while the batches are smaller than the page size", 0, pagesBeforeStop);
+        assertTrue("Expected the batches sent so far to be recorded", result3);
+        assertFalse("Expected the batches to be recorded only once", result4);
+        assertEquals(1, subject.getMetric().getPageTimes().size());
+        assertEquals(3, subject.getMetric().getPageTimes().get(0).getPagesize());
+    }
 }
@@ -0,0 +1,38 @@
+package datawave.webservice.query.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LookupUUIDUtilTest {
+    
+    @Test
+    public void testContentQueryStringIsSorted() {
+        TreeSet<String> documentIds = new TreeSet<>(Arrays.asList("20190102_1/csv/-cvy0gj.tlf59s.-duxzua", "20190101_10/csv/-3bs6dh.sf8y2c.fdbt3i",
+                        "20190101_2/json/1fmv1d.-ydj0zv.-3j2aqw", "20190101_10/csv/-3bs6dh.sf8y2c.fdbt3i", "20190101_10/csv/-3bs6dh.sf8y2c.fdbt3i.1"));
+        
+        Assert.assertEquals("DOCUMENT:20190101_10/csv/-3bs6dh.sf8y2c.fdbt3i DOCUMENT:20190101_10/csv/-3bs6dh.sf8y2c.fdbt3i.1 "
+                        + "DOCUMENT:20190101_2/json/1fmv1d.-ydj0zv.-3j2aqw DOCUMENT:20190102_1/csv/-cvy0gj.tlf59s.-duxzua",
+                        LookupUUIDUtil.createContentQueryString(documentIds));
+        Assert.assertEquals("", LookupUUIDUtil.createContentQueryString(new TreeSet<>()));
+    }
+    
+    @Test
+    public void testContentQueryStringsAreChunked() {
+        TreeSet<String> documentIds = new TreeSet<>(Arrays.asList("20190101_1/csv/a", "20190101_1/csv/b", "20190101_2/csv/c", "20190102_1/csv/d",
+                        "20190102_1/csv/e"));
+        
+        Assert.assertEquals(Arrays.asList("DOCUMENT:20190101_1/csv/a DOCUMENT:20190101_1/csv/b", "DOCUMENT:20190101_2/csv/c DOCUMENT:20190102_1/csv/d",
+                        "DOCUMENT:20190102_1/csv/e"), LookupUUIDUtil.createContentQueryStrings(documentIds, 2));
+        Assert.assertEquals(Arrays.asList("DOCUMENT:20190101_1/csv/a DOCUMENT:20190101_1/csv/b DOCUMENT:20190101_2/csv/c DOCUMENT:20190102_1/csv/d"),
+                        LookupUUIDUtil.createContentQueryStrings(documentIds.headSet("20190102_1/csv/e"), 4));
+        
+        // without an upper limit, all of the events are fetched by one query
+        Assert.assertEquals(Collections.singletonList(LookupUUIDUtil.createContentQueryString(documentIds)),
+                        LookupUUIDUtil.createContentQueryStrings(documentIds, -1));
+        Assert.assertEquals(Collections.emptyList(), LookupUUIDUtil.createContentQueryStrings(new TreeSet<>(), 2));
+    }
+}
@@ -76,6 +76,9 @@ public class CredentialsCacheBean {
     @Inject
     private Instance<CachedDatawaveUserService> cachedDatawaveUserServiceInstance;
     
+    @Inject
+    private Instance<DatawaveUserNearCache> datawaveUserNearCacheInstance;
+    
     @Inject
     private AccumuloConnectionFactory accumuloConnectionFactory;
     
@@ -95,7 +98,8 @@ public class CredentialsCacheBean {
     /**
      * Removes all cached {@link DatawaveUser}s. There are potentially two caches in use. First, Wildfly uses a security cache that stores {@link Principal}s
      * under the incoming credential key. This is normally a very short-lived cache (5-30 minutes). Second, a {@link CachedDatawaveUserService} may be in use,
-     * which means that it caches according to its own rules. This method attempts to clear both caches.
+     * which means that it caches according to its own rules. This method attempts to clear both caches, as well as the {@link DatawaveUserNearCache} on every
+     * web server, if one is in use.
      *
      * @return a string indicating cache flush was successful
      */
@@ -109,6 +113,9 @@ public class CredentialsCacheBean {
             if (!cachedDatawaveUserServiceInstance.isUnsatisfied()) {
                 cachedDatawaveUserServiceInstance.get().evictAll();
             }
+            if (!datawaveUserNearCacheInstance.isUnsatisfied()) {
+                datawaveUserNearCacheInstance.get().invalidateAll();
+            }
             return "All credentials caches cleared.";
         } catch (Exception e) {
             GenericResponse<String> response = new GenericResponse<>();
@@ -120,7 +127,8 @@ public class CredentialsCacheBean {
     /**
      * Evicts {@code dn} from authorization caches. There are potentially two caches in use. First, Wildfly uses a security cache that stores {@link Principal}s
      * under the incoming credential key. This is normally a very short-lived cache (5-30 minutes). Second, a {@link CachedDatawaveUserService} may be in use,
-     * which means that it caches according to its own rules. This method attempts to clear both caches.
+     * which means that it caches according to its own rules. This method attempts to clear both caches, as well as the {@link DatawaveUserNearCache} on every
+     * web server, if one is in use.
      *
      * @param dn
      *            the DN to evict from authorization caches
@@ -137,6 +145,9 @@ public class CredentialsCacheBean {
         if (!cachedDatawaveUserServiceInstance.isUnsatisfied()) {
             result = cachedDatawaveUserServiceInstance.get().evictMatching(dn);
         }
+        if (!datawaveUserNearCacheInstance.isUnsatisfied()) {
+            datawaveUserNearCacheInstance.get().invalidate(dn);
+        }
         // @formatter:off
         // Flush all principals from the Wildfly cache if the getName() of any of the contained DatawaveUser objects matches the supplied DN.
         authManager.getCachedKeys().parallelStream()
@@ -0,0 +1,284 @@
+package datawave.security.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import datawave.configuration.DatawaveEmbeddedProjectStageHolder;
+import datawave.security.authorization.AuthorizationException;
+import datawave.security.authorization.DatawaveUser;
+import datawave.security.authorization.DatawaveUserService;
+import datawave.security.authorization.SubjectIssuerDNPair;
+import datawave.webservice.common.cache.SharedCacheCoordinator;
+import org.apache.deltaspike.core.api.config.ConfigProperty;
+import org.apache.deltaspike.core.api.exclude.Exclude;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A per-node near-cache that sits in front of the {@link DatawaveUserService} (and therefore in front of any Infinispan/{@link AccumuloCacheStore} backed
+ * cache used by that service). Entries are keyed on the full proxied DN chain and:
+ * <ul>
+ * <li>are refreshed asynchronously when accessed within {@code refreshAheadSeconds} of expiring, so callers keep getting the cached value while the reload
+ * happens in the background;</li>
+ * <li>are loaded at most once at a time per DN chain: concurrent lookups for the same chain wait on the single outstanding remote lookup;</li>
+ * <li>are invalidated on every web server through an eviction message of the configured {@link SharedCacheCoordinator} when {@link #invalidate(String)} or
+ * {@link #invalidateAll()} is called.</li>
+ * </ul>
+ * Lookup, load (miss) and refresh latencies, plus the hit and miss counts, are published to the {@link MetricRegistry} under {@code dw.security.nearCache}.
+ */
+@ApplicationScoped
+@Exclude(ifProjectStage = DatawaveEmbeddedProjectStageHolder.DatawaveEmbedded.class)
+public class DatawaveUserNearCache {
+    public static final String METRIC_PREFIX = "dw.security.nearCache";
+    
+    // Eviction message used to indicate all entries should be dropped. This is not a legal base64url character, so it can't collide with an encoded DN.
+    static final String EVICT_ALL_MESSAGE = "*";
+    
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    
+    @Inject
+    private DatawaveUserService datawaveUserService;
+    
+    @Inject
+    private MetricRegistry metricRegistry;
+    
+    @Inject
+    @ConfigProperty(name = "dw.security.nearCache.enabled", defaultValue = "true")
+    private boolean enabled;
+    
+    @Inject
+    @ConfigProperty(name = "dw.security.nearCache.ttlSeconds", defaultValue = "300")
+    private long ttlSeconds;
+    
+    @Inject
+    @ConfigProperty(name = "dw.security.nearCache.refreshAheadSeconds", defaultValue = "60")
+    private long refreshAheadSeconds;
+    
+    @Inject
+    @ConfigProperty(name = "dw.security.nearCache.maxEntries", defaultValue = "10000")
+    private long maxEntries;
+    
+    @Inject
+    @ConfigProperty(name = "dw.security.nearCache.refreshThreads", defaultValue = "2")
+    private int refreshThreads;
+    
+    @Inject
+    private Instance<SharedCacheCoordinator> cacheCoordinatorInstance;
+    
+    private LoadingCache<List<SubjectIssuerDNPair>,Collection<DatawaveUser>> cache;
+    private ExecutorService refreshExecutorService;
+    private SharedCacheCoordinator cacheCoordinator;
+    
+    private Timer lookupTimer;
+    private Timer loadTimer;
+    private Timer refreshTimer;
+    
+    public DatawaveUserNearCache() {}
+    
+    /**
+     * Creates a near-cache outside of a CDI container. No {@link SharedCacheCoordinator} is used, so invalidations are local only.
+     */
+    DatawaveUserNearCache(DatawaveUserService datawaveUserService, MetricRegistry metricRegistry, long ttlMillis, long refreshAheadMillis, long maxEntries,
+                    Executor refreshExecutor, Ticker ticker) {
+        this.datawaveUserService = datawaveUserService;
+        this.metricRegistry = metricRegistry;
+        this.enabled = true;
+        this.maxEntries = maxEntries;
+        buildCache(ttlMillis, refreshAheadMillis, refreshExecutor, ticker);
+    }
+    
+    @PostConstruct
+    protected void init() {
+        if (!enabled) {
+            log.info("DatawaveUser near-cache is disabled. All lookups will be sent to {}.", datawaveUserService.getClass().getName());
+            return;
+        }
+        
+        refreshExecutorService = Executors.newFixedThreadPool(Math.max(1, refreshThreads),
+                        new ThreadFactoryBuilder().setNameFormat("user-near-cache-refresh-%d").setDaemon(true).build());
+        buildCache(TimeUnit.SECONDS.toMillis(ttlSeconds), TimeUnit.SECONDS.toMillis(refreshAheadSeconds), refreshExecutorService, Ticker.systemTicker());
+        
+        if (!cacheCoordinatorInstance.isUnsatisfied()) {
+            try {
+                cacheCoordinator = cacheCoordinatorInstance.get();
+                cacheCoordinator.watchForEvictions(this::handleEvictMessage);
+            } catch (Exception e) {
+                log.warn("Unable to use the cache coordinator for the near-cache. Invalidations will only be applied locally: {}", e.getMessage(), e);
+                cacheCoordinator = null;
+            }
+        }
+    }
+    
+    @PreDestroy
+    protected void shutdown() {
+        // the coordinator is stopped by the container along with this bean
+        if (refreshExecutorService != null) {
+            refreshExecutorService.shutdownNow();
+        }
+    }
+    
+    private void buildCache(long ttlMillis, long refreshAheadMillis, Executor refreshExecutor, Ticker ticker) {
+        if (refreshAheadMillis >= ttlMillis) {
+            throw new IllegalArgumentException("Near-cache refresh-ahead window (" + refreshAheadMillis + "ms) must be smaller than the TTL (" + ttlMillis
+                            + "ms)");
+        }
+        
+        lookupTimer = metricRegistry.timer(MetricRegistry.name(METRIC_PREFIX, "lookup"));
+        loadTimer = metricRegistry.timer(MetricRegistry.name(METRIC_PREFIX, "load"));
+        refreshTimer = metricRegistry.timer(MetricRegistry.name(METRIC_PREFIX, "refresh"));
+        
+        // @formatter:off
+        cache = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .refreshAfterWrite(ttlMillis - refreshAheadMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build(new CacheLoader<List<SubjectIssuerDNPair>,Collection<DatawaveUser>>() {
+                    @Override
+                    public Collection<DatawaveUser> load(List<SubjectIssuerDNPair> dns) throws Exception {
+                        try (Timer.Context ignored = loadTimer.time()) {
+                            return datawaveUserService.lookup(dns);
+                        }
+                    }
+                    
+                    @Override
+                    public ListenableFuture<Collection<DatawaveUser>> reload(List<SubjectIssuerDNPair> dns, Collection<DatawaveUser> oldValue) {
+                        ListenableFutureTask<Collection<DatawaveUser>> task = ListenableFutureTask.create(() -> {
+                            try (Timer.Context ignored = refreshTimer.time()) {
+                                return datawaveUserService.lookup(dns);
+                            }
+                        });
+                        refreshExecutor.execute(task);
+                        return task;
+                    }
+                });
+        // @formatter:on
+        
+        registerGauge("hits", () -> cache.stats().hitCount());
+        registerGauge("misses", () -> cache.stats().missCount());
+        registerGauge("refreshFailures", () -> cache.stats().loadExceptionCount());
+        registerGauge("size", () -> cache.size());
+    }
+    
+    private void registerGauge(String name, Gauge<Long> gauge) {
+        String metricName = MetricRegistry.name(METRIC_PREFIX, name);
+        metricRegistry.remove(metricName);
+        metricRegistry.register(metricName, gauge);
+    }
+    
+    /**
+     * Retrieves the {@link DatawaveUser}s for the proxied entity chain {@code dns}, consulting the near-cache first.
+     *
+     * @param dns
+     *            the proxied DN chain to look up
+     * @return the users corresponding to {@code dns}
+     * @throws AuthorizationException
+     *             if the underlying {@link DatawaveUserService} fails to look up the users
+     */
+    public Collection<DatawaveUser> lookup(Collection<SubjectIssuerDNPair> dns) throws AuthorizationException {
+        if (!enabled) {
+            return datawaveUserService.lookup(dns);
+        }
+        
+        try (Timer.Context ignored = lookupTimer.time()) {
+            return cache.get(new ArrayList<>(dns));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AuthorizationException) {
+                throw (AuthorizationException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new AuthorizationException(cause == null ? e.getMessage() : cause.getMessage(), cause == null ? e : cause);
+        }
+    }
+    
+    /**
+     * Invalidates every cached DN chain that contains {@code dn}, on this server and on all other servers listening to the coordinator.
+     *
+     * @param dn
+     *            the DN to invalidate; this may be either a bare subject DN or the {@link SubjectIssuerDNPair#toString()} form
+     */
+    public void invalidate(String dn) {
+        invalidateLocal(dn);
+        broadcast(Base64.getUrlEncoder().withoutPadding().encodeToString(dn.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    /**
+     * Invalidates all cached entries, on this server and on all other servers listening to the coordinator.
+     */
+    public void invalidateAll() {
+        invalidateAllLocal();
+        broadcast(EVICT_ALL_MESSAGE);
+    }
+    
+    void invalidateLocal(String dn) {
+        if (cache != null) {
+            cache.asMap().keySet().removeIf(dns -> dns.stream().anyMatch(p -> p.subjectDN().equals(dn) || p.toString().equals(dn)));
+        }
+    }
+    
+    void invalidateAllLocal() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+    
+    long size() {
+        return cache == null ? 0 : cache.size();
+    }
+    
+    private void handleEvictMessage(String message) {
+        if (EVICT_ALL_MESSAGE.equals(message)) {
+            log.debug("Received near-cache flush message.");
+            invalidateAllLocal();
+        } else {
+            String dn;
+            try {
+                dn = new String(Base64.getUrlDecoder().decode(message), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                // the coordinator is shared, so this is an eviction message from some other cache
+                log.trace("Ignoring eviction message {}", message);
+                return;
+            }
+            log.debug("Received near-cache eviction message for {}", dn);
+            invalidateLocal(dn);
+        }
+    }
+    
+    private void broadcast(String message) {
+        if (cacheCoordinator != null) {
+            try {
+                cacheCoordinator.sendEvictMessage(message);
+            } catch (Exception e) {
+                log.warn("Unable to send near-cache eviction message to other servers: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
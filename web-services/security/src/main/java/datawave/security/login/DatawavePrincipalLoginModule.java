@@ -17,6 +17,7 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 
+import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 import javax.net.ssl.X509KeyManager;
 import javax.security.auth.Subject;
@@ -38,6 +39,7 @@ import datawave.configuration.spring.BeanProvider;
 import datawave.security.auth.DatawaveCredential;
 import datawave.security.authorization.DatawavePrincipal;
 import datawave.security.authorization.JWTTokenHandler;
+import datawave.security.cache.DatawaveUserNearCache;
 import datawave.util.StringUtils;
 import org.apache.deltaspike.core.api.exclude.Exclude;
 import org.jboss.logging.Logger;
@@ -73,6 +75,8 @@ public class DatawavePrincipalLoginModule extends AbstractServerLoginModule {
     @Inject
     private DatawaveUserService datawaveUserService;
     @Inject
+    private Instance<DatawaveUserNearCache> datawaveUserNearCacheInstance;
+    @Inject
     private JSSESecurityDomain domain;
     
     private JWTTokenHandler jwtTokenHandler;
@@ -401,7 +405,11 @@ public class DatawavePrincipalLoginModule extends AbstractServerLoginModule {
             
             if (!jwtHeaderLogin || credential.getJwtToken() == null) {
                 try {
-                    identity = new DatawavePrincipal(datawaveUserService.lookup(credential.getEntities()));
+                    if (datawaveUserNearCacheInstance != null && !datawaveUserNearCacheInstance.isUnsatisfied()) {
+                        identity = new DatawavePrincipal(datawaveUserNearCacheInstance.get().lookup(credential.getEntities()));
+                    } else {
+                        identity = new DatawavePrincipal(datawaveUserService.lookup(credential.getEntities()));
+                    }
                 } catch (Exception e) {
                     log.debug("Failing login due to datawave user service exception " + e.getMessage(), e);
                     throw new FailedLoginException("Unable to authenticate: " + e.getMessage());
@@ -0,0 +1,194 @@
+package datawave.security.cache;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
+import datawave.security.authorization.AuthorizationException;
+import datawave.security.authorization.DatawaveUser;
+import datawave.security.authorization.DatawaveUser.UserType;
+import datawave.security.authorization.DatawaveUserService;
+import datawave.security.authorization.SubjectIssuerDNPair;
+import datawave.webservice.common.cache.SharedCacheCoordinator;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+import org.powermock.reflect.Whitebox;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class DatawaveUserNearCacheTest {
+    
+    private static final SubjectIssuerDNPair USER = SubjectIssuerDNPair.of("user1", "issuer1");
+    private static final SubjectIssuerDNPair SERVER = SubjectIssuerDNPair.of("server1", "issuer1");
+    
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicLong nanos = new AtomicLong();
+    private MetricRegistry metricRegistry;
+    private DatawaveUserNearCache nearCache;
+    
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+    
+    private final DatawaveUserService userService = dns -> {
+        lookups.incrementAndGet();
+        return dns.stream().map(dn -> new DatawaveUser(dn, UserType.USER, null, null, null, -1)).collect(Collectors.toList());
+    };
+    
+    @Before
+    public void setUp() {
+        metricRegistry = new MetricRegistry();
+        nearCache = new DatawaveUserNearCache(userService, metricRegistry, 1000L, 200L, 100L, MoreExecutors.directExecutor(), ticker);
+    }
+    
+    @Test
+    public void testHitAfterMiss() throws Exception {
+        List<SubjectIssuerDNPair> dns = Arrays.asList(USER, SERVER);
+        Collection<DatawaveUser> first = nearCache.lookup(dns);
+        Collection<DatawaveUser> second = nearCache.lookup(dns);
+        
+        assertSame(first, second);
+        assertEquals(1, lookups.get());
+        assertEquals(1L, metricRegistry.getGauges().get("dw.security.nearCache.hits").getValue());
+        assertEquals(1L, metricRegistry.getGauges().get("dw.security.nearCache.misses").getValue());
+        assertEquals(1L, metricRegistry.timer("dw.security.nearCache.load").getCount());
+    }
+    
+    @Test
+    public void testRefreshAhead() throws Exception {
+        List<SubjectIssuerDNPair> dns = Arrays.asList(USER, SERVER);
+        nearCache.lookup(dns);
+        
+        // Inside the refresh-ahead window: the entry is reloaded (synchronously with our executor) and no caller sees a miss.
+        nanos.set(TimeUnit.MILLISECONDS.toNanos(850));
+        nearCache.lookup(dns);
+        assertEquals(2, lookups.get());
+        assertEquals(1L, metricRegistry.timer("dw.security.nearCache.refresh").getCount());
+        assertEquals(1L, metricRegistry.getGauges().get("dw.security.nearCache.misses").getValue());
+        
+        // The refreshed entry has a new write time, so it is still valid past the original expiration.
+        nanos.set(TimeUnit.MILLISECONDS.toNanos(1500));
+        nearCache.lookup(dns);
+        assertEquals(2, lookups.get());
+    }
+    
+    @Test
+    public void testExpiration() throws Exception {
+        List<SubjectIssuerDNPair> dns = Arrays.asList(USER, SERVER);
+        nearCache.lookup(dns);
+        nanos.set(TimeUnit.MILLISECONDS.toNanos(1001));
+        nearCache.lookup(dns);
+        assertEquals(2, lookups.get());
+        assertEquals(2L, metricRegistry.getGauges().get("dw.security.nearCache.misses").getValue());
+    }
+    
+    @Test
+    public void testSingleFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        DatawaveUserService slowService = dns -> {
+            lookups.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new AuthorizationException("interrupted", e);
+            }
+            return userService.lookup(dns);
+        };
+        nearCache = new DatawaveUserNearCache(slowService, metricRegistry, 1000L, 200L, 100L, MoreExecutors.directExecutor(), ticker);
+        
+        List<SubjectIssuerDNPair> dns = Arrays.asList(USER, SERVER);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<Collection<DatawaveUser>> first = executor.submit(() -> nearCache.lookup(dns));
+            started.await(10, TimeUnit.SECONDS);
+            Future<Collection<DatawaveUser>> second = executor.submit(() -> nearCache.lookup(dns));
+            Future<Collection<DatawaveUser>> third = executor.submit(() -> nearCache.lookup(dns));
+            release.countDown();
+            
+            assertSame(first.get(), second.get());
+            assertSame(first.get(), third.get());
+            assertEquals(1, lookups.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void testInvalidate() throws Exception {
+        nearCache.lookup(Arrays.asList(USER, SERVER));
+        nearCache.lookup(Arrays.asList(SERVER));
+        assertEquals(2L, nearCache.size());
+        
+        nearCache.invalidate(USER.subjectDN());
+        assertEquals(1L, nearCache.size());
+        
+        nearCache.invalidateAll();
+        assertEquals(0L, nearCache.size());
+    }
+    
+    @Test
+    public void testInvalidateIsSentThroughTheCoordinator() throws Exception {
+        SharedCacheCoordinator cacheCoordinator = EasyMock.createMock(SharedCacheCoordinator.class);
+        String message = Base64.getUrlEncoder().withoutPadding().encodeToString(USER.subjectDN().getBytes(StandardCharsets.UTF_8));
+        cacheCoordinator.sendEvictMessage(message);
+        cacheCoordinator.sendEvictMessage(DatawaveUserNearCache.EVICT_ALL_MESSAGE);
+        EasyMock.replay(cacheCoordinator);
+        Whitebox.setInternalState(nearCache, "cacheCoordinator", cacheCoordinator);
+        
+        nearCache.invalidate(USER.subjectDN());
+        nearCache.invalidateAll();
+        EasyMock.verify(cacheCoordinator);
+    }
+    
+    @Test
+    public void testEvictMessages() throws Exception {
+        nearCache.lookup(Arrays.asList(USER, SERVER));
+        nearCache.lookup(Arrays.asList(SERVER));
+        
+        // the coordinator is shared with other caches, whose messages are ignored
+        Whitebox.invokeMethod(nearCache, "handleEvictMessage", "cn=someone else, o=other");
+        assertEquals(2L, nearCache.size());
+        
+        Whitebox.invokeMethod(nearCache, "handleEvictMessage",
+                        Base64.getUrlEncoder().withoutPadding().encodeToString(USER.subjectDN().getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1L, nearCache.size());
+        
+        Whitebox.invokeMethod(nearCache, "handleEvictMessage", DatawaveUserNearCache.EVICT_ALL_MESSAGE);
+        assertEquals(0L, nearCache.size());
+    }
+    
+    @Test
+    public void testLookupExceptionIsPropagated() {
+        nearCache = new DatawaveUserNearCache(dns -> {
+            throw new AuthorizationException("no such user");
+        }, metricRegistry, 1000L, 200L, 100L, MoreExecutors.directExecutor(), ticker);
+        try {
+            nearCache.lookup(Arrays.asList(USER));
+            fail("Expected an AuthorizationException");
+        } catch (AuthorizationException e) {
+            assertEquals("no such user", e.getMessage());
+        }
+        assertEquals(0L, nearCache.size());
+    }
+}